@@ -17,18 +17,17 @@ import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.amber.AmberBAF;
-import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSiteView;
 import com.hartwig.hmftools.common.amber.AmberSitesFile;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
@@ -47,7 +46,7 @@ public class AmberApplication implements AutoCloseable
 
     private ResultsWriter mPersistence;
     private VersionInfo mVersionInfo;
-    private ImmutableListMultimap<Chromosome,AmberSite> mChromosomeSites;
+    private Map<Chromosome,AmberSiteView> mChromosomeSites;
 
     public AmberApplication(final ConfigBuilder configBuilder)
     {
@@ -88,14 +87,14 @@ public class AmberApplication implements AutoCloseable
         return 0;
     }
 
-    private ImmutableListMultimap<Chromosome,AmberSite> loadAmberSites() throws IOException
+    private Map<Chromosome,AmberSiteView> loadAmberSites() throws IOException
     {
-        ListMultimap<Chromosome,AmberSite> amberSitesMap = AmberSitesFile.sites(mConfig.BafLociPath);
+        Map<Chromosome,AmberSiteView> chrSiteViews = AmberSitesFile.siteViews(mConfig.BafLociPath);
 
         if(mConfig.TargetRegionsBed == null)
-            return ImmutableListMultimap.copyOf(amberSitesMap);
+            return chrSiteViews;
 
-        ListMultimap<Chromosome,AmberSite> targetRegionSites = ArrayListMultimap.create();
+        Map<Chromosome,AmberSiteView> targetRegionSites = Maps.newLinkedHashMap();
 
         try
         {
@@ -106,20 +105,25 @@ public class AmberApplication implements AutoCloseable
                 Chromosome chromosome = entry.getKey();
                 List<BaseRegion> regions = entry.getValue();
 
-                Collection<AmberSite> amberSites = amberSitesMap.get(chromosome);
+                AmberSiteView siteView = chrSiteViews.get(chromosome);
 
-                if(amberSites == null)
+                if(siteView == null)
                     continue;
 
+                int[] siteIndices = new int[siteView.size()];
+                int siteCount = 0;
+
                 int regionIndex = 0;
                 BaseRegion currentRegion = regions.get(0);
 
-                for(AmberSite amberSite : amberSites)
+                for(int i = 0; i < siteView.size(); ++i)
                 {
-                    if(amberSite.position() < currentRegion.start())
+                    int position = siteView.position(i);
+
+                    if(position < currentRegion.start())
                         continue;
 
-                    while(amberSite.position() > currentRegion.end())
+                    while(position > currentRegion.end())
                     {
                         ++regionIndex;
 
@@ -132,15 +136,18 @@ public class AmberApplication implements AutoCloseable
                     if(regionIndex >= regions.size())
                         break;
 
-                    if(amberSite.position() >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
-                    && amberSite.position() <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
+                    if(position >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
+                    && position <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
                     {
-                        targetRegionSites.put(chromosome, amberSite);
+                        siteIndices[siteCount++] = i;
                     }
                 }
+
+                if(siteCount > 0)
+                    targetRegionSites.put(chromosome, siteView.select(siteIndices, siteCount));
             }
 
-            return ImmutableListMultimap.copyOf(targetRegionSites);
+            return targetRegionSites;
         }
         catch(Exception e)
         {
@@ -148,7 +155,7 @@ public class AmberApplication implements AutoCloseable
             System.exit(1);
         }
 
-        return ImmutableListMultimap.copyOf(targetRegionSites);
+        return targetRegionSites;
     }
 
     private void runGermlineOnly() throws InterruptedException, IOException
@@ -237,25 +244,30 @@ public class AmberApplication implements AutoCloseable
         int numBlackListed = 0;
 
         // filter out everything in loaded genome positions that are in these regions
-        for(Map.Entry<Chromosome,AmberSite> entry : mChromosomeSites.entries())
+        for(Map.Entry<Chromosome,AmberSiteView> entry : mChromosomeSites.entrySet())
         {
-            // check against black list
-            boolean blacklisted = false;
-            for(GenomeRegion gr : excludedRegions)
+            AmberSiteView siteView = entry.getValue();
+
+            for(int i = 0; i < siteView.size(); ++i)
             {
-                if(gr.contains(entry.getValue()))
+                // check against black list
+                boolean blacklisted = false;
+                for(GenomeRegion gr : excludedRegions)
                 {
-                    blacklisted = true;
-                    break;
+                    if(gr.chromosome().equals(siteView.chromosome()) && gr.start() <= siteView.position(i) && gr.end() >= siteView.position(i))
+                    {
+                        blacklisted = true;
+                        break;
+                    }
+                }
+                if(blacklisted)
+                {
+                    numBlackListed++;
+                }
+                else
+                {
+                    result.put(entry.getKey(), PositionEvidenceChecker.fromSiteView(siteView, i));
                 }
-            }
-            if(blacklisted)
-            {
-                numBlackListed++;
-            }
-            else
-            {
-                result.put(entry.getKey(), PositionEvidenceChecker.fromAmberSite(entry.getValue()));
             }
         }
 
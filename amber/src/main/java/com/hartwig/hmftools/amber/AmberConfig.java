@@ -163,7 +163,7 @@ public class AmberConfig
         configBuilder.addConfigItem(REFERENCE, REFERENCE_DESC);
         configBuilder.addPaths(REFERENCE_BAM, false, REFERENCE_BAM_DESC);
 
-        configBuilder.addPath(LOCI_FILE, true, "Path to BAF loci vcf file");
+        configBuilder.addPath(LOCI_FILE, true, "Path to BAF loci file: VCF, TSV or compiled binary");
         configBuilder.addPath(TARGET_REGIONS_BED, false, TARGET_REGIONS_BED_DESC);
 
         addRefGenomeVersion(configBuilder);
@@ -31,7 +31,7 @@ public class BamEvidenceReader
     }
 
     public void processBam(
-            final String bamFile, final SamReaderFactory samReaderFactory, final Map<Chromosome,List<PositionEvidence>> chrPositionEvidence)
+            final String bamFile, final SamReaderFactory samReaderFactory, final Map<Chromosome,PositionEvidenceBlock> chrEvidenceBlocks)
             throws InterruptedException
     {
         AMB_LOGGER.trace("processing bam({})", bamFile);
@@ -40,7 +40,7 @@ public class BamEvidenceReader
 
         // create genome regions from the loci
         boolean limitRegions = bamFile.endsWith(".cram");
-        populateTaskQueue(chrPositionEvidence, taskQueue, limitRegions);
+        populateTaskQueue(chrEvidenceBlocks, taskQueue, limitRegions);
 
         // we create the consumer and producer
         List<BamReaderThread> bamReaders = new ArrayList<BamReaderThread>();
@@ -79,9 +79,9 @@ public class BamEvidenceReader
     }
 
     private void populateTaskQueue(
-            final Map<Chromosome,List<PositionEvidence>> chrBaseDepth, final Queue<RegionTask> taskQueue, boolean limitRegions)
+            final Map<Chromosome,PositionEvidenceBlock> chrEvidenceBlocks, final Queue<RegionTask> taskQueue, boolean limitRegions)
     {
-        int positionCount = chrBaseDepth.values().stream().mapToInt(x -> x.size()).sum();
+        int positionCount = chrEvidenceBlocks.values().stream().mapToInt(PositionEvidenceBlock::size).sum();
 
         int minGap = mConfig.PositionGap > 0 ? mConfig.PositionGap : (limitRegions ? CRAM_MIN_GAP_START : BAM_MIN_GAP_START);
 
@@ -90,34 +90,32 @@ public class BamEvidenceReader
 
         List<RegionTask> tasks = Lists.newArrayList();
 
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrBaseDepth.entrySet())
+        for(Map.Entry<Chromosome,PositionEvidenceBlock> entry : chrEvidenceBlocks.entrySet())
         {
             String chromosome = mConfig.RefGenVersion.versionedChromosome(entry.getKey().toString());
 
             if(!mConfig.SpecificChromosomes.isEmpty() && !mConfig.SpecificChromosomes.contains(chromosome))
                 continue;
 
-            List<PositionEvidence> positions = entry.getValue();
+            PositionEvidenceBlock block = entry.getValue();
 
-            if(positions.isEmpty())
+            if(block.size() == 0)
                 continue;
 
-            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, positions.get(0));
+            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, block, 0);
             tasks.add(currentTask);
 
-            for(int i = 1; i < positions.size(); ++i)
+            for(int i = 1; i < block.size(); ++i)
             {
-                PositionEvidence posEvidence = positions.get(i);
-
-                if(currentTask.Region.end() + minGap < posEvidence.Position) // or  || tasks.size() >= maxPositionsPerRegion
+                if(currentTask.Region.end() + minGap < block.Positions[i]) // or  || tasks.size() >= maxPositionsPerRegion
                 {
                     // start a new region
-                    currentTask = new RegionTask(mEvidenceChecker, chromosome, posEvidence);
+                    currentTask = new RegionTask(mEvidenceChecker, chromosome, block, i);
                     tasks.add(currentTask);
                 }
                 else
                 {
-                    currentTask.addPosition(posEvidence);
+                    currentTask.addNextPosition();
                 }
             }
         }
@@ -3,7 +3,6 @@ package com.hartwig.hmftools.amber;
 import static java.util.stream.Collectors.toList;
 
 import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
-import static com.hartwig.hmftools.amber.PositionEvidenceChecker.fromAmberSite;
 import static com.hartwig.hmftools.common.utils.collection.Multimaps.filterEntries;
 
 import java.io.IOException;
@@ -14,9 +13,9 @@ import java.util.function.Predicate;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSiteView;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 
 import org.jetbrains.annotations.Nullable;
@@ -36,7 +35,7 @@ public class GermlineAnalysis
     @Nullable private final Chromosome mUniparentalDisomy;
 
     public GermlineAnalysis(
-            final AmberConfig config, SamReaderFactory readerFactory, ListMultimap<Chromosome,AmberSite> chrAmberSites)
+            final AmberConfig config, SamReaderFactory readerFactory, final Map<Chromosome,AmberSiteView> chrSiteViews)
             throws InterruptedException, IOException
     {
         mConfig = config;
@@ -44,12 +43,13 @@ public class GermlineAnalysis
         final Predicate<PositionEvidence> isValidFilter = PositionEvidence::isValid;
         Predicate<PositionEvidence> homozygousFilter = new NormalHomozygousFilter().and(isValidFilter);
         Predicate<PositionEvidence> heterozygousFilter = new NormalHeterozygousFilter(mConfig.MinHetAfPercent, mConfig.MaxHetAfPercent).and(isValidFilter);
-        Predicate<PositionEvidence> snpCheckFilter = new SnpCheckFilter(chrAmberSites);
+        Predicate<PositionEvidence> snpCheckFilter = new SnpCheckFilter(chrSiteViews);
 
         mHetNormalEvidence = new HetNormalEvidence();
 
         // Primary Reference Data
-        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = germlineDepth(readerFactory, mConfig.ReferenceBams.get(0), chrAmberSites);
+        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = germlineDepth(
+                readerFactory, mConfig.ReferenceBams.get(0), fromSiteViews(chrSiteViews));
 
         final Predicate<PositionEvidence> depthFilter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, unfilteredLoci);
         mSnpCheckedLoci = filterEntries(unfilteredLoci, snpCheckFilter);
@@ -62,7 +62,8 @@ public class GermlineAnalysis
         {
             final String sample = mConfig.ReferenceIds.get(i);
             final String sampleBam = mConfig.ReferenceBams.get(i);
-            final Collection<PositionEvidence> additional = germlineDepth(readerFactory, sampleBam, mHetNormalEvidence.intersection()).values();
+            final Collection<PositionEvidence> additional = germlineDepth(
+                    readerFactory, sampleBam, fromAmberSites(mHetNormalEvidence.intersection())).values();
             final Predicate<PositionEvidence> filter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, additional);
             final Collection<PositionEvidence> additionalHetNormal = additional.stream().filter(filter.and(heterozygousFilter)).collect(toList());
             mHetNormalEvidence.add(sample, additionalHetNormal);
@@ -76,7 +77,7 @@ public class GermlineAnalysis
         AMB_LOGGER.info("{} heterozygous, {} homozygous in reference bams", mHeterozygousLoci.size(), mHomozygousLoci.size());
 
         RegionOfHomozygosityFinder rohFinder = new RegionOfHomozygosityFinder(mConfig.RefGenVersion, mConfig.MinDepthPercent, mConfig.MaxDepthPercent);
-        mRegionsOfHomozygosity = rohFinder.findRegions(unfilteredLoci);
+        mRegionsOfHomozygosity = rohFinder.findRegions(unfilteredLoci, mConfig.Threads);
 
         mConsanguinityProportion = ConsanguinityAnalyser.calcConsanguinityProportion(mRegionsOfHomozygosity);
         mUniparentalDisomy = ConsanguinityAnalyser.findUniparentalDisomy(mRegionsOfHomozygosity);
@@ -92,40 +93,61 @@ public class GermlineAnalysis
     @Nullable
     Chromosome getUniparentalDisomy() { return mUniparentalDisomy; }
 
-    private ListMultimap<Chromosome, PositionEvidence> germlineDepth(
-            final SamReaderFactory readerFactory, final String bamPath,
-            final ListMultimap<Chromosome,AmberSite> chrAmberSites) throws InterruptedException
+    private static Map<Chromosome,PositionEvidenceBlock> fromSiteViews(final Map<Chromosome,AmberSiteView> chrSiteViews)
     {
-        AMB_LOGGER.info("processing {} Amber sites in reference bam({})", chrAmberSites.values().size(), bamPath);
-
-        Map<Chromosome,List<PositionEvidence>> chrPositionEvidence = Maps.newHashMap();
+        Map<Chromosome,PositionEvidenceBlock> chrEvidenceBlocks = Maps.newHashMap();
 
-        for(Map.Entry<Chromosome,AmberSite> entry : chrAmberSites.entries())
+        for(Map.Entry<Chromosome,AmberSiteView> entry : chrSiteViews.entrySet())
         {
-            Chromosome chromosome = entry.getKey();
+            chrEvidenceBlocks.put(entry.getKey(), PositionEvidenceBlock.fromSiteView(entry.getValue()));
+        }
+
+        return chrEvidenceBlocks;
+    }
+
+    private static Map<Chromosome,PositionEvidenceBlock> fromAmberSites(final ListMultimap<Chromosome,AmberSite> chrAmberSites)
+    {
+        Map<Chromosome,PositionEvidenceBlock> chrEvidenceBlocks = Maps.newHashMap();
 
-            List<PositionEvidence> positions = chrPositionEvidence.get(chromosome);
+        for(Chromosome chromosome : chrAmberSites.keySet())
+        {
+            List<AmberSite> sites = chrAmberSites.get(chromosome);
+            PositionEvidenceBlock block = new PositionEvidenceBlock(sites.get(0).chromosome(), sites.size());
 
-            if(positions == null)
+            for(int i = 0; i < sites.size(); ++i)
             {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(chromosome, positions);
+                AmberSite site = sites.get(i);
+                block.setSite(i, site.position(), (byte)site.ref().charAt(0), (byte)site.alt().charAt(0));
             }
 
-            positions.add(fromAmberSite(entry.getValue()));
+            chrEvidenceBlocks.put(chromosome, block);
         }
 
+        return chrEvidenceBlocks;
+    }
+
+    private ListMultimap<Chromosome, PositionEvidence> germlineDepth(
+            final SamReaderFactory readerFactory, final String bamPath,
+            final Map<Chromosome,PositionEvidenceBlock> chrEvidenceBlocks) throws InterruptedException
+    {
+        AMB_LOGGER.info("processing {} Amber sites in reference bam({})",
+                chrEvidenceBlocks.values().stream().mapToInt(PositionEvidenceBlock::size).sum(), bamPath);
+
         BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
-        bamEvidenceReader.processBam(bamPath, readerFactory, chrPositionEvidence);
+        bamEvidenceReader.processBam(bamPath, readerFactory, chrEvidenceBlocks);
 
+        // the germline filters and ROH work on every site, so all are made into evidence objects once the BAM is read
         ListMultimap<Chromosome, PositionEvidence> normalEvidence = ArrayListMultimap.create();
 
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrPositionEvidence.entrySet())
+        for(Map.Entry<Chromosome,PositionEvidenceBlock> entry : chrEvidenceBlocks.entrySet())
         {
             Chromosome chromosome = entry.getKey();
-            List<PositionEvidence> positions = entry.getValue();
+            PositionEvidenceBlock block = entry.getValue();
 
-            positions.forEach(x -> normalEvidence.put(chromosome, x));
+            for(int i = 0; i < block.size(); ++i)
+            {
+                normalEvidence.put(chromosome, block.toEvidence(i));
+            }
         }
 
         return normalEvidence;
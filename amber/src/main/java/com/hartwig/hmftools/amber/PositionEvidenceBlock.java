@@ -0,0 +1,100 @@
+package com.hartwig.hmftools.amber;
+
+import static java.lang.String.format;
+
+import com.hartwig.hmftools.common.amber.AmberSiteView;
+import com.hartwig.hmftools.common.amber.BaseDepthData;
+import com.hartwig.hmftools.common.amber.ImmutableBaseDepthData;
+
+// the evidence for a chromosome's sites held in parallel arrays indexed by site, which region tasks fill in as they
+// read the BAM, so sites are only made into objects once they are known to be needed
+public class PositionEvidenceBlock
+{
+    public final String Chromosome;
+    public final int Count;
+
+    public final int[] Positions;
+    public final byte[] Refs; // as base characters
+    public final byte[] Alts;
+
+    public final int[] ReadDepth;
+    public final int[] IndelCount;
+    public final int[] RefSupport;
+    public final int[] AltSupport;
+    public final int[] AltQuality;
+
+    public PositionEvidenceBlock(final String chromosome, int count)
+    {
+        Chromosome = chromosome;
+        Count = count;
+        Positions = new int[count];
+        Refs = new byte[count];
+        Alts = new byte[count];
+        ReadDepth = new int[count];
+        IndelCount = new int[count];
+        RefSupport = new int[count];
+        AltSupport = new int[count];
+        AltQuality = new int[count];
+    }
+
+    public static PositionEvidenceBlock fromSiteView(final AmberSiteView siteView)
+    {
+        PositionEvidenceBlock block = new PositionEvidenceBlock(siteView.chromosome(), siteView.size());
+
+        for(int i = 0; i < siteView.size(); ++i)
+        {
+            block.setSite(i, siteView.position(i), (byte)siteView.ref(i), (byte)siteView.alt(i));
+        }
+
+        return block;
+    }
+
+    public void setSite(int index, final PositionEvidence posEvidence)
+    {
+        setSite(index, posEvidence.Position, baseByte(posEvidence.Ref), baseByte(posEvidence.Alt));
+    }
+
+    public void setSite(int index, int position, byte ref, byte alt)
+    {
+        Positions[index] = position;
+        Refs[index] = ref;
+        Alts[index] = alt;
+    }
+
+    public int size() { return Count; }
+
+    public String ref(int index) { return String.valueOf((char)Refs[index]); }
+    public String alt(int index) { return String.valueOf((char)Alts[index]); }
+
+    public PositionEvidence toEvidence(int index)
+    {
+        PositionEvidence posEvidence = new PositionEvidence(Chromosome, Positions[index], ref(index), alt(index));
+        copyEvidence(index, posEvidence);
+        return posEvidence;
+    }
+
+    public void copyEvidence(int index, final PositionEvidence posEvidence)
+    {
+        posEvidence.ReadDepth = ReadDepth[index];
+        posEvidence.IndelCount = IndelCount[index];
+        posEvidence.RefSupport = RefSupport[index];
+        posEvidence.AltSupport = AltSupport[index];
+        posEvidence.AltQuality = AltQuality[index];
+    }
+
+    public BaseDepthData toBaseDepthData(int index)
+    {
+        return ImmutableBaseDepthData.builder()
+                .ref(BaseDepthData.Base.valueOf(ref(index)))
+                .alt(BaseDepthData.Base.valueOf(alt(index)))
+                .readDepth(ReadDepth[index])
+                .refSupport(RefSupport[index])
+                .altSupport(AltSupport[index])
+                .indelCount(IndelCount[index])
+                .build();
+    }
+
+    private static byte baseByte(final PositionEvidence.Base base) { return (byte)base.name().charAt(0); }
+
+    public String toString() { return format("chromosome(%s) sites(%d)", Chromosome, Count); }
+}
@@ -1,6 +1,6 @@
 package com.hartwig.hmftools.amber;
 
-import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSiteView;
 
 import htsjdk.samtools.SAMRecord;
 
@@ -13,36 +13,36 @@ public class PositionEvidenceChecker
         mMinBaseQuality = minBaseQuality;
     }
 
-    public void addEvidence(final PositionEvidence posEvidence, final SAMRecord samRecord)
+    public void addEvidence(final PositionEvidenceBlock block, int index, final SAMRecord samRecord)
     {
-        int baseQuality = getBaseQuality(posEvidence.Position, samRecord);
+        int bafPosition = block.Positions[index];
+        int baseQuality = getBaseQuality(bafPosition, samRecord);
 
         if(baseQuality < mMinBaseQuality)
             return;
 
-        ++posEvidence.ReadDepth;
+        ++block.ReadDepth[index];
 
-        int bafPosition = posEvidence.position();
         int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
         if(readPosition != 0)
         {
             if(!isIndel(bafPosition, readPosition, samRecord))
             {
-                char baseChar = samRecord.getReadString().charAt(readPosition - 1);
+                byte base = samRecord.getReadBases()[readPosition - 1];
 
-                if(posEvidence.equalsRef(baseChar))
+                if(base == block.Refs[index])
                 {
-                    ++posEvidence.RefSupport;
+                    ++block.RefSupport[index];
                 }
-                else if(posEvidence.equalsAlt(baseChar))
+                else if(base == block.Alts[index])
                 {
-                    ++posEvidence.AltSupport;
-                    posEvidence.AltQuality += baseQuality;
+                    ++block.AltSupport[index];
+                    block.AltQuality[index] += baseQuality;
                 }
             }
             else
             {
-                ++posEvidence.IndelCount;
+                ++block.IndelCount[index];
             }
         }
     }
@@ -80,8 +80,10 @@ public class PositionEvidenceChecker
         return 0;
     }
 
-    public static PositionEvidence fromAmberSite(final AmberSite site)
+    public static PositionEvidence fromSiteView(final AmberSiteView siteView, int index)
     {
-        return new PositionEvidence(site.chromosome(), site.position(), site.ref(), site.alt());
+        return new PositionEvidence(
+                siteView.chromosome(), siteView.position(index), String.valueOf(siteView.ref(index)),
+                String.valueOf(siteView.alt(index)));
     }
 }
@@ -2,27 +2,27 @@ package com.hartwig.hmftools.amber;
 
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates.COORDS_37;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates.COORDS_38;
-import static com.hartwig.hmftools.common.utils.collection.Multimaps.filterEntries;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
-import com.hartwig.hmftools.common.genome.region.GenomeRegion;
+import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 
 import org.apache.commons.math3.distribution.PoissonDistribution;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -59,7 +59,7 @@ public class RegionOfHomozygosityFinder
     private static final int EXCLUDED_REGION_EXPAND_SIZE = 1_000_000;
     private static final int HALF_CENTROMERE_SIZE = 1_500_000;
 
-    private final List<GenomeRegion> mExcludedRegions;
+    private final Map<String,List<BaseRegion>> mExcludedRegions;
     private final RefGenomeVersion mRefGenomeVersion;
     private final double mMinDepthPercent;
     private final double mMaxDepthPercent;
@@ -79,7 +79,7 @@ public class RegionOfHomozygosityFinder
         mMinSnpLociCount = minSnpLociCount;
         mSiteWindowSize = siteWindowSize;
         mMaxHetInWindow = maxHetInWindow;
-        mExcludedRegions = Lists.newArrayList();
+        mExcludedRegions = Maps.newHashMap();
 
         loadExcludedRegions();
     }
@@ -95,71 +95,127 @@ public class RegionOfHomozygosityFinder
 
     public List<RegionOfHomozygosity> findRegions(final ListMultimap<Chromosome, PositionEvidence> baseDepths)
     {
-        final Predicate<PositionEvidence> depthFilter = new BaseDepthFilter(mMinDepthPercent, mMaxDepthPercent, baseDepths);
-        final ListMultimap<Chromosome, PositionEvidence> filteredBaseDepths = filterEntries(baseDepths, depthFilter);
+        return findRegions(baseDepths, 1);
+    }
 
-        List<RegionOfHomozygosity> homozygousRegions = new ArrayList<RegionOfHomozygosity>();
+    public List<RegionOfHomozygosity> findRegions(final ListMultimap<Chromosome, PositionEvidence> baseDepths, int threads)
+    {
+        final Predicate<PositionEvidence> depthFilter = new BaseDepthFilter(mMinDepthPercent, mMaxDepthPercent, baseDepths);
 
-        Set<Chromosome> chromosomeSet = baseDepths.keySet();
+        List<ChromosomeTask> chromosomeTasks = Lists.newArrayList();
 
-        for(Chromosome chromosome : chromosomeSet)
+        for(Chromosome chromosome : baseDepths.keySet())
         {
             if(chromosome.isAllosome())
                 continue;
-            
-            homozygousRegions.addAll(findRegionsForChromosome(chromosome, toLocusZygosityList(filteredBaseDepths.get(chromosome))));
+
+            chromosomeTasks.add(new ChromosomeTask(chromosome, baseDepths.get(chromosome), depthFilter));
         }
 
+        final List<Callable> callableList = chromosomeTasks.stream().collect(Collectors.toList());
+        TaskExecutor.executeTasks(callableList, threads);
+
+        List<RegionOfHomozygosity> homozygousRegions = new ArrayList<RegionOfHomozygosity>();
+        chromosomeTasks.forEach(x -> homozygousRegions.addAll(x.regions()));
+
         Collections.sort(homozygousRegions);
 
         return homozygousRegions;
     }
 
+    private class ChromosomeTask implements Callable
+    {
+        private final Chromosome mChromosome;
+        private final List<PositionEvidence> mBaseDepths;
+        private final Predicate<PositionEvidence> mDepthFilter;
+        private List<RegionOfHomozygosity> mRegions;
+
+        public ChromosomeTask(final Chromosome chromosome, final List<PositionEvidence> baseDepths, final Predicate<PositionEvidence> depthFilter)
+        {
+            mChromosome = chromosome;
+            mBaseDepths = baseDepths;
+            mDepthFilter = depthFilter;
+            mRegions = Collections.emptyList();
+        }
+
+        public List<RegionOfHomozygosity> regions() { return mRegions; }
+
+        @Override
+        public Long call()
+        {
+            int[] positions = new int[mBaseDepths.size()];
+            boolean[] heterozygous = new boolean[mBaseDepths.size()];
+            int siteCount = 0;
+
+            for(PositionEvidence baseDepth : mBaseDepths)
+            {
+                if(!mDepthFilter.test(baseDepth))
+                    continue;
+
+                positions[siteCount] = baseDepth.position();
+                heterozygous[siteCount] = calcZygosity(baseDepth) == Zygosity.HETEROZYGOUS;
+                ++siteCount;
+            }
+
+            mRegions = findRegionsForChromosome(mChromosome, positions, heterozygous, siteCount);
+            return (long)0;
+        }
+    }
+
     public List<RegionOfHomozygosity> findRegionsForChromosome(Chromosome chromosome, final List<LocusZygosity> bafSites)
+    {
+        int[] positions = new int[bafSites.size()];
+        boolean[] heterozygous = new boolean[bafSites.size()];
+
+        for(int i = 0; i < bafSites.size(); ++i)
+        {
+            positions[i] = bafSites.get(i).position;
+            heterozygous[i] = bafSites.get(i).zygosity == Zygosity.HETEROZYGOUS;
+        }
+
+        return findRegionsForChromosome(chromosome, positions, heterozygous, bafSites.size());
+    }
+
+    private List<RegionOfHomozygosity> findRegionsForChromosome(
+            final Chromosome chromosome, final int[] positions, final boolean[] heterozygous, int siteCount)
     {
         var homozygousRegions = new ArrayList<RegionOfHomozygosity>();
 
+        // het counts up to each site, so a region's counts need no rescan of its sites
+        int[] hetCounts = new int[siteCount + 1];
+
+        for(int i = 0; i < siteCount; ++i)
+        {
+            hetCounts[i + 1] = hetCounts[i] + (heterozygous[i] ? 1 : 0);
+        }
+
+        int[] nextExclusionStarts = nextExclusionStarts(chromosome.toString(), positions, siteCount);
+
         // keep track of where the sliding window is
         // following are indices
         int slidingWindowStartIndex = -1;
         int rohStartIndex = -1;
         int rohEndIndex = -1;
 
-        int numHetInWindow = 0;
-
-        for(int i = 0; i < bafSites.size(); ++i)
+        for(int i = 0; i < siteCount; ++i)
         {
-            LocusZygosity bafSite = bafSites.get(i);
-            int position = bafSite.position;
-            Zygosity zygosity = bafSite.zygosity;
+            int position = positions[i];
 
             if(rohStartIndex != -1)
             {
-                boolean crossedExcludedRegion = overlapWithExcludedRegions(chromosome.toString(),
-                        rohEndIndex != -1 ? bafSites.get(rohEndIndex).position : position, position);
-
-                // first thing we need to check if the previous region is ending
-                if(zygosity == Zygosity.HETEROZYGOUS)
-                    ++numHetInWindow;
+                // the region's last site is always set while it is open
+                boolean crossedExcludedRegion = nextExclusionStarts[rohEndIndex] <= position;
 
                 // say sliding window size is 3, and i = 4. we want to remove i = 4 - 3 = 1
-                assert (slidingWindowStartIndex >= i - mSiteWindowSize);
-
                 if(slidingWindowStartIndex <= i - mSiteWindowSize)
-                {
-                    // one location has gone out of the sliding window
-                    if(bafSites.get(slidingWindowStartIndex).zygosity == Zygosity.HETEROZYGOUS)
-                    {
-                        // if it is het, then we reduce the count
-                        --numHetInWindow;
-                    }
                     ++slidingWindowStartIndex;
-                }
+
+                int numHetInWindow = hetCounts[i + 1] - hetCounts[slidingWindowStartIndex];
 
                 if(numHetInWindow > mMaxHetInWindow || crossedExcludedRegion)
                 {
                     // this stretch of homozygosity ends
-                    RegionOfHomozygosity region = createRegionIfPassFilter(bafSites, chromosome, rohStartIndex, rohEndIndex);
+                    RegionOfHomozygosity region = createRegionIfPassFilter(positions, hetCounts, chromosome, rohStartIndex, rohEndIndex);
                     if(region != null)
                     {
                         homozygousRegions.add(region);
@@ -169,7 +225,7 @@ public class RegionOfHomozygosityFinder
                 }
             }
 
-            if(zygosity == Zygosity.HOMOZYGOUS && !overlapWithExcludedRegions(chromosome.toString(), position, position))
+            if(!heterozygous[i] && nextExclusionStarts[i] > position)
             {
                 if(rohStartIndex != -1)
                 {
@@ -184,13 +240,12 @@ public class RegionOfHomozygosityFinder
 
                     // we start the window again
                     slidingWindowStartIndex = i;
-                    numHetInWindow = 0;
                 }
             }
         }
 
         // this stretch of homozygosity ends
-        RegionOfHomozygosity region = createRegionIfPassFilter(bafSites, chromosome, rohStartIndex, rohEndIndex);
+        RegionOfHomozygosity region = createRegionIfPassFilter(positions, hetCounts, chromosome, rohStartIndex, rohEndIndex);
         if(region != null)
         {
             // this is a region
@@ -235,60 +290,64 @@ public class RegionOfHomozygosityFinder
                     centromerePosition + HALF_CENTROMERE_SIZE));
         }
 
-        excludedRegions.forEach(x -> mExcludedRegions.add(x.genomeRegion()));
+        // merge each chromosome's expanded regions so a site's next exclusion can be found with a moving pointer
+        Collections.sort(excludedRegions);
+
+        for(ChrBaseRegion region : excludedRegions)
+        {
+            List<BaseRegion> chrRegions = mExcludedRegions.computeIfAbsent(region.Chromosome, k -> Lists.newArrayList());
+
+            int start = region.start() - EXCLUDED_REGION_EXPAND_SIZE;
+            int end = region.end() + EXCLUDED_REGION_EXPAND_SIZE;
+            BaseRegion lastRegion = chrRegions.isEmpty() ? null : chrRegions.get(chrRegions.size() - 1);
+
+            if(lastRegion != null && start <= lastRegion.end() + 1)
+                lastRegion.setEnd(Math.max(lastRegion.end(), end));
+            else
+                chrRegions.add(new BaseRegion(start, end));
+        }
     }
 
-    private boolean overlapWithExcludedRegions(String chromosome, int position1, int position2)
+    // for each site, the start of the first expanded excluded region which does not end before it, so a span of sites
+    // crosses an excluded region if that start is within the span
+    private int[] nextExclusionStarts(final String chromosome, final int[] positions, int siteCount)
     {
-        assert(position1 <= position2);
-        for(GenomeRegion genomeRegion: mExcludedRegions)
+        int[] nextExclusionStarts = new int[siteCount];
+        List<BaseRegion> chrRegions = mExcludedRegions.getOrDefault(chromosome, Collections.emptyList());
+        int regionIndex = 0;
+
+        for(int i = 0; i < siteCount; ++i)
         {
-            // we want to check if we overlap
-            if(genomeRegion.chromosome().equals(chromosome) &&
-                    position1 <= genomeRegion.end() + EXCLUDED_REGION_EXPAND_SIZE &&
-                    position2 >= genomeRegion.start() - EXCLUDED_REGION_EXPAND_SIZE)
+            while(regionIndex < chrRegions.size() && chrRegions.get(regionIndex).end() < positions[i])
             {
-                return true;
+                ++regionIndex;
             }
+
+            nextExclusionStarts[i] = regionIndex < chrRegions.size() ? chrRegions.get(regionIndex).start() : Integer.MAX_VALUE;
         }
-        return false;
+
+        return nextExclusionStarts;
     }
 
     // we apply some filters
     @Nullable
     private RegionOfHomozygosity createRegionIfPassFilter(
-            @NotNull List<LocusZygosity> bafSites,
-            Chromosome chromosome, int regionStartIndex, int regionEndIndex)
+            final int[] positions, final int[] hetCounts, Chromosome chromosome, int regionStartIndex, int regionEndIndex)
     {
         if(regionStartIndex <= 0 || regionEndIndex <= 0)
             return null;
 
-        int numHomozygous = 0;
-        int numHeterozygous = 0;
+        int snpCount = regionEndIndex - regionStartIndex + 1;
+        int numHeterozygous = hetCounts[regionEndIndex + 1] - hetCounts[regionStartIndex];
+        int numHomozygous = snpCount - numHeterozygous;
         int numUnclear = 0;
 
-        // we want to count
-        for(int i = regionStartIndex; i <= regionEndIndex; ++i)
-        {
-            Zygosity zygosity = bafSites.get(i).zygosity;
-            switch (zygosity)
-            {
-                case HOMOZYGOUS:
-                    ++numHomozygous;
-                    break;
-                case HETEROZYGOUS:
-                    ++numHeterozygous;
-                    break;
-            }
-        }
-
-        int snpCount = numHomozygous + numHeterozygous + numUnclear;
         if(snpCount < mMinSnpLociCount)
         {
             return null;
         }
-        int regionStart = bafSites.get(regionStartIndex).position;
-        int regionEnd = bafSites.get(regionEndIndex).position;
+        int regionStart = positions[regionStartIndex];
+        int regionEnd = positions[regionEndIndex];
 
         if((regionEnd - regionStart) >= mMinHomozygousRegionSize)
         {
@@ -308,7 +367,11 @@ public class RegionOfHomozygosityFinder
         boolean isHighVaf = alleleCount > 0.75 * totalCount;
         if(isHighVaf)
         {
-            double p = new PoissonDistribution(totalCount / 2d).cumulativeProbability(totalCount - alleleCount);
+            // no random generator is needed for the probability, and creating one per site dominated the ROH run time
+            PoissonDistribution distribution = new PoissonDistribution(
+                    null, totalCount / 2d, PoissonDistribution.DEFAULT_EPSILON, PoissonDistribution.DEFAULT_MAX_ITERATIONS);
+
+            double p = distribution.cumulativeProbability(totalCount - alleleCount);
             return p < 0.005;
         }
 
@@ -323,21 +386,4 @@ public class RegionOfHomozygosityFinder
         }
         return Zygosity.HETEROZYGOUS;
     }
-
-    static LocusZygosity toLocusZygosity(PositionEvidence depth)
-    {
-        return new LocusZygosity(depth.position(), calcZygosity(depth));
-    }
-
-    private static List<LocusZygosity> toLocusZygosityList(@NotNull final List<PositionEvidence> bafs)
-    {
-        var locusZygosityList = new ArrayList<LocusZygosity>();
-
-        for(var depth : bafs)
-        {
-            locusZygosityList.add(toLocusZygosity(depth));
-        }
-
-        return locusZygosityList;
-    }
 }
@@ -3,9 +3,6 @@ package com.hartwig.hmftools.amber;
 import static java.lang.Math.max;
 import static java.lang.String.format;
 
-import java.util.List;
-
-import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
 import htsjdk.samtools.SAMRecord;
@@ -15,23 +12,31 @@ public class RegionTask
     private final PositionEvidenceChecker mEvidenceChecker;
     public final ChrBaseRegion Region;
 
-    private final List<PositionEvidence> mPositions;
+    // a task covers a range of its chromosome's evidence block, with a cursor which only moves forward as reads arrive
+    private final PositionEvidenceBlock mBlock;
+    private final int[] mPositions;
+    private final int mStartIndex;
+    private int mEndIndex;
     private int mCurrentIndex;
     private boolean mComplete;
 
-    public RegionTask(final PositionEvidenceChecker evidenceChecker, final String chromosome, final PositionEvidence baseDepth)
+    public RegionTask(
+            final PositionEvidenceChecker evidenceChecker, final String chromosome, final PositionEvidenceBlock block, int startIndex)
     {
         mEvidenceChecker = evidenceChecker;
-        Region = new ChrBaseRegion(chromosome, baseDepth.Position, baseDepth.Position);
-        mPositions = Lists.newArrayList(baseDepth);
-        mCurrentIndex = 0;
+        mBlock = block;
+        mPositions = block.Positions;
+        Region = new ChrBaseRegion(chromosome, mPositions[startIndex], mPositions[startIndex]);
+        mStartIndex = startIndex;
+        mEndIndex = startIndex + 1;
+        mCurrentIndex = startIndex;
         mComplete = false;
     }
 
-    public void addPosition(final PositionEvidence posEvidence)
+    public void addNextPosition()
     {
-        mPositions.add(posEvidence);
-        Region.setEnd(max(Region.end(), posEvidence.Position));
+        Region.setEnd(max(Region.end(), mPositions[mEndIndex]));
+        ++mEndIndex;
     }
 
     public void processRecord(final SAMRecord record)
@@ -40,23 +45,23 @@ public class RegionTask
         int alignmentEnd = record.getAlignmentEnd();
 
         int index = mCurrentIndex;
-        for(; index < mPositions.size(); ++index)
+        for(; index < mEndIndex; ++index)
         {
-            PositionEvidence posEvidence = mPositions.get(index);
+            int position = mPositions[index];
 
-            if(alignmentStart > posEvidence.Position)
+            if(alignmentStart > position)
             {
                 ++mCurrentIndex;
                 continue;
             }
 
-            if(alignmentEnd < posEvidence.Position)
+            if(alignmentEnd < position)
                 break;
 
-            mEvidenceChecker.addEvidence(posEvidence, record);
+            mEvidenceChecker.addEvidence(mBlock, index, record);
         }
 
-        if(mCurrentIndex >= mPositions.size())
+        if(mCurrentIndex >= mEndIndex)
             mComplete = true;
     }
 
@@ -67,11 +72,11 @@ public class RegionTask
 
     public int positionCount()
     {
-        return mPositions.size();
+        return mEndIndex - mStartIndex;
     }
 
     public String toString()
     {
-        return format("region(%s) positions(%d) index(%d)", Region, mPositions.size(), mCurrentIndex);
+        return format("region(%s) positions(%d) index(%d)", Region, positionCount(), mCurrentIndex - mStartIndex);
     }
 }
@@ -6,32 +6,28 @@ import java.util.function.Predicate;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSiteView;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 
 public class SnpCheckFilter implements Predicate<PositionEvidence>
 {
     private final Map<String,List<AmberSite>> mSnpLoci;
 
-    public SnpCheckFilter(final Multimap<Chromosome, AmberSite> snpLoci)
+    public SnpCheckFilter(final Map<Chromosome,AmberSiteView> chrSiteViews)
     {
         mSnpLoci = Maps.newHashMap();
 
-        for(AmberSite amberSite : snpLoci.values())
+        for(AmberSiteView siteView : chrSiteViews.values())
         {
-            if(!amberSite.snpCheck())
-                continue;
-
-            List<AmberSite> chrSites = mSnpLoci.get(amberSite.Chromosome);
-
-            if(chrSites == null)
+            for(int i = 0; i < siteView.size(); ++i)
             {
-                chrSites = Lists.newArrayList();
-                mSnpLoci.put(amberSite.Chromosome, chrSites);
-            }
+                if(!siteView.snpCheck(i))
+                    continue;
 
-            chrSites.add(amberSite);
+                AmberSite amberSite = siteView.site(i);
+                mSnpLoci.computeIfAbsent(amberSite.Chromosome, k -> Lists.newArrayList()).add(amberSite);
+            }
         }
     }
 
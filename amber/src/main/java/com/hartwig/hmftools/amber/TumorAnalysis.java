@@ -2,13 +2,13 @@ package com.hartwig.hmftools.amber;
 
 import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
@@ -42,70 +42,117 @@ public class TumorAnalysis
         AMB_LOGGER.info("processing tumor germline heterozygous({}) and homozygous({}) sites",
                 germlineHetLoci.values().size(), germlineHomLoci.size());
 
-        Map<Chromosome,List<PositionEvidence>> chrPositionEvidence = Maps.newHashMap();
-        Map<PositionEvidence, PositionEvidence> contaminationBafMap = Maps.newHashMap();
-        List<TumorBAF> tumorBAFs = Lists.newArrayList();
+        Map<Chromosome,TumorSites> chrTumorSites = Maps.newHashMap();
 
-        for(Map.Entry<Chromosome, PositionEvidence> entry : germlineHetLoci.entries())
+        for(Chromosome chromosome : germlineHetLoci.keySet())
         {
-            List<PositionEvidence> positions = chrPositionEvidence.get(entry.getKey());
+            chrTumorSites.put(chromosome, new TumorSites(germlineHetLoci.get(chromosome), germlineHomLoci.get(chromosome)));
+        }
 
-            if(positions == null)
-            {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(entry.getKey(), positions);
-            }
+        for(Chromosome chromosome : germlineHomLoci.keySet())
+        {
+            if(!chrTumorSites.containsKey(chromosome))
+                chrTumorSites.put(chromosome, new TumorSites(Collections.emptyList(), germlineHomLoci.get(chromosome)));
+        }
+
+        Map<Chromosome,PositionEvidenceBlock> chrEvidenceBlocks = Maps.newHashMap();
+        chrTumorSites.forEach((key, value) -> chrEvidenceBlocks.put(key, value.Block));
 
-            PositionEvidence normal = entry.getValue();
+        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
+        bamEvidenceReader.processBam(mConfig.TumorBam, readerFactory, chrEvidenceBlocks);
 
-            TumorBAF tumorBAF = TumorBAF.fromNormal(normal);
-            tumorBAFs.add(tumorBAF);
+        mBafs = ArrayListMultimap.create();
+        mContamination = ArrayListMultimap.create();
 
-            positions.add(tumorBAF.TumorEvidence);
+        for(TumorSites tumorSites : chrTumorSites.values())
+        {
+            tumorSites.addBafs(mBafs);
+            tumorSites.addContamination(mContamination);
         }
+    }
+
+    // a chromosome's het and hom sites merged into a single evidence block in position order, with each block site
+    // indexing back to its germline site
+    private static class TumorSites
+    {
+        public final PositionEvidenceBlock Block;
+
+        private final List<PositionEvidence> mHetLoci;
+        private final List<PositionEvidence> mHomLoci;
+        private final int[] mHetBlockIndices;
+        private final int[] mHomBlockIndices;
 
-        for(Map.Entry<Chromosome, PositionEvidence> entry : germlineHomLoci.entries())
+        public TumorSites(final List<PositionEvidence> hetLoci, final List<PositionEvidence> homLoci)
         {
-            List<PositionEvidence> positions = chrPositionEvidence.get(entry.getKey());
+            mHetLoci = hetLoci;
+            mHomLoci = homLoci;
+            mHetBlockIndices = new int[hetLoci.size()];
+            mHomBlockIndices = new int[homLoci.size()];
+
+            int siteCount = hetLoci.size() + homLoci.size();
+
+            // sort on position then het before hom, keeping each list's order for sites at the same position
+            long[] siteKeys = new long[siteCount];
 
-            if(positions == null)
+            for(int i = 0; i < siteCount; ++i)
             {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(entry.getKey(), positions);
+                PositionEvidence site = i < hetLoci.size() ? hetLoci.get(i) : homLoci.get(i - hetLoci.size());
+                siteKeys[i] = ((long)site.Position << 32) | i;
             }
 
-            PositionEvidence normal = entry.getValue();
-            PositionEvidence tumor = PositionEvidence.copy(normal);
+            Arrays.sort(siteKeys);
 
-            positions.add(tumor);
-            contaminationBafMap.put(normal, tumor);
-        }
+            String chromosome = !hetLoci.isEmpty() ? hetLoci.get(0).Chromosome : homLoci.get(0).Chromosome;
+            Block = new PositionEvidenceBlock(chromosome, siteCount);
 
-        // ensure positions are sorted after the merge
-        for(List<PositionEvidence> positions : chrPositionEvidence.values())
-        {
-            Collections.sort(positions);
+            for(int blockIndex = 0; blockIndex < siteCount; ++blockIndex)
+            {
+                int siteIndex = (int)siteKeys[blockIndex];
+
+                if(siteIndex < hetLoci.size())
+                {
+                    Block.setSite(blockIndex, hetLoci.get(siteIndex));
+                    mHetBlockIndices[siteIndex] = blockIndex;
+                }
+                else
+                {
+                    Block.setSite(blockIndex, homLoci.get(siteIndex - hetLoci.size()));
+                    mHomBlockIndices[siteIndex - hetLoci.size()] = blockIndex;
+                }
+            }
         }
 
-        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
-        bamEvidenceReader.processBam(mConfig.TumorBam, readerFactory, chrPositionEvidence);
+        public void addBafs(final ListMultimap<Chromosome,TumorBAF> bafs)
+        {
+            for(int i = 0; i < mHetLoci.size(); ++i)
+            {
+                int blockIndex = mHetBlockIndices[i];
 
-        mBafs = ArrayListMultimap.create();
+                if(Block.IndelCount[blockIndex] > 0)
+                    continue;
 
-        tumorBAFs.stream().filter(x -> x.TumorEvidence.IndelCount == 0).forEach(x -> mBafs.put(HumanChromosome.fromString(x.chromosome()), x));
+                PositionEvidence normal = mHetLoci.get(i);
+                TumorBAF tumorBAF = TumorBAF.fromNormal(normal);
+                Block.copyEvidence(blockIndex, tumorBAF.TumorEvidence);
 
-        mContamination = ArrayListMultimap.create();
+                bafs.put(HumanChromosome.fromString(normal.chromosome()), tumorBAF);
+            }
+        }
 
-        for(Map.Entry<PositionEvidence, PositionEvidence> entry : contaminationBafMap.entrySet())
+        public void addContamination(final ListMultimap<Chromosome,TumorContamination> contamination)
         {
-            PositionEvidence normal = entry.getKey();
-            PositionEvidence tumor = entry.getValue();
-
-            if(tumor.AltSupport > 0)
+            for(int i = 0; i < mHomLoci.size(); ++i)
             {
-                mContamination.put(
+                int blockIndex = mHomBlockIndices[i];
+
+                if(Block.AltSupport[blockIndex] == 0)
+                    continue;
+
+                PositionEvidence normal = mHomLoci.get(i);
+
+                contamination.put(
                         HumanChromosome.fromString(normal.chromosome()),
-                        new TumorContamination(normal.Chromosome, normal.Position, normal.toBaseDepthData(), tumor.toBaseDepthData()));
+                        new TumorContamination(normal.Chromosome, normal.Position, normal.toBaseDepthData(), Block.toBaseDepthData(blockIndex)));
             }
         }
     }
@@ -0,0 +1,62 @@
+package com.hartwig.hmftools.amber.utils;
+
+import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+
+import java.io.IOException;
+
+import com.google.common.collect.ListMultimap;
+import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSitesFile;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.jetbrains.annotations.NotNull;
+
+// converts an Amber sites TSV or VCF into the binary sites file, which Amber memory-maps instead of parsing on each run
+public class AmberSitesCompiler
+{
+    private static final String INPUT_SITES_FILE = "input_sites_file";
+    private static final String OUTPUT_SITES_FILE = "output_sites_file";
+
+    private final String mInputFile;
+    private final String mOutputFile;
+
+    public AmberSitesCompiler(final ConfigBuilder configBuilder)
+    {
+        mInputFile = configBuilder.getValue(INPUT_SITES_FILE);
+        mOutputFile = configBuilder.getValue(OUTPUT_SITES_FILE);
+    }
+
+    public void run()
+    {
+        AMB_LOGGER.info("compiling Amber sites from {}", mInputFile);
+
+        try
+        {
+            ListMultimap<Chromosome,AmberSite> amberSites = AmberSitesFile.sites(mInputFile);
+            AmberSitesFile.writeBinary(amberSites, mOutputFile);
+        }
+        catch(IOException | IllegalArgumentException e)
+        {
+            AMB_LOGGER.error("failed to compile Amber sites file: {}", e.toString());
+            System.exit(1);
+        }
+
+        AMB_LOGGER.info("Amber sites compilation complete");
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+
+        configBuilder.addPath(INPUT_SITES_FILE, true, "Input Amber sites TSV or VCF");
+        configBuilder.addConfigItem(OUTPUT_SITES_FILE, true, "Output binary Amber sites file");
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        AmberSitesCompiler application = new AmberSitesCompiler(configBuilder);
+        application.run();
+    }
+}
@@ -1,17 +1,38 @@
 package com.hartwig.hmftools.amber;
 
-import org.junit.Test;
+import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates.COORDS_37;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.io.Resources;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 
+import org.junit.Test;
+
 public class RegionOfHomozygosityFinderTest
 {
+    // the benchmark only runs with a site count, eg -Damber_roh_sites=1000000 for the scale of a germline sample
+    private static final Integer BENCHMARK_SITE_COUNT = Integer.getInteger("amber_roh_sites");
+
+    // regions found by the previous serial finder in the sample created from seed 0 with 100K sites
+    private static final String EXPECTED_REGIONS = Resources.getResource("amber/roh.regions").getPath();
+
     private static final RegionOfHomozygosityFinder.Zygosity het = RegionOfHomozygosityFinder.Zygosity.HETEROZYGOUS;
     private static final RegionOfHomozygosityFinder.Zygosity hom = RegionOfHomozygosityFinder.Zygosity.HOMOZYGOUS;
 
@@ -153,4 +174,96 @@ public class RegionOfHomozygosityFinderTest
 
         assertEquals(regions.size(), 0);
     }
+
+    @Test
+    public void testThreadedMatchesSerial() throws IOException
+    {
+        RegionOfHomozygosityFinder finder = new RegionOfHomozygosityFinder(RefGenomeVersion.V37,
+                AmberConstants.DEFAULT_MIN_DEPTH_PERCENTAGE, AmberConstants.DEFAULT_MAX_DEPTH_PERCENTAGE);
+
+        ListMultimap<Chromosome,PositionEvidence> sample = createSample(new Random(0), 300_000);
+
+        List<String> serialRegions = regionStrings(finder.findRegions(sample));
+        assertFalse(serialRegions.isEmpty());
+
+        assertEquals(serialRegions, regionStrings(finder.findRegions(sample, 4)));
+    }
+
+    @Test
+    public void testMatchesPreviousFinder() throws IOException
+    {
+        RegionOfHomozygosityFinder finder = new RegionOfHomozygosityFinder(RefGenomeVersion.V37,
+                AmberConstants.DEFAULT_MIN_DEPTH_PERCENTAGE, AmberConstants.DEFAULT_MAX_DEPTH_PERCENTAGE);
+
+        ListMultimap<Chromosome,PositionEvidence> sample = createSample(new Random(0), 100_000);
+        List<String> expectedRegions = Files.readAllLines(Paths.get(EXPECTED_REGIONS));
+
+        assertEquals(expectedRegions, regionStrings(finder.findRegions(sample)));
+        assertEquals(expectedRegions, regionStrings(finder.findRegions(sample, 4)));
+    }
+
+    @Test
+    public void testBenchmark() throws IOException
+    {
+        assumeTrue(BENCHMARK_SITE_COUNT != null);
+
+        RegionOfHomozygosityFinder finder = new RegionOfHomozygosityFinder(RefGenomeVersion.V37,
+                AmberConstants.DEFAULT_MIN_DEPTH_PERCENTAGE, AmberConstants.DEFAULT_MAX_DEPTH_PERCENTAGE);
+
+        ListMultimap<Chromosome,PositionEvidence> sample = createSample(new Random(1), BENCHMARK_SITE_COUNT);
+
+        // warm up before timing
+        finder.findRegions(sample);
+
+        for(int threads = 1; threads <= 16; threads *= 2)
+        {
+            long startTime = System.nanoTime();
+            List<RegionOfHomozygosity> regions = finder.findRegions(sample, threads);
+            long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+            AMB_LOGGER.info("ROH sites({}) threads({}) regions({}) consanguinity({}) time({}ms)",
+                    sample.size(), threads, regions.size(),
+                    String.format("%.4f", ConsanguinityAnalyser.calcConsanguinityProportion(regions)), elapsedMs);
+        }
+    }
+
+    private static List<String> regionStrings(final List<RegionOfHomozygosity> regions)
+    {
+        return regions.stream()
+                .map(x -> String.format("%s:%d-%d hom(%d) het(%d) unclear(%d)",
+                        x.Chromosome, x.Start, x.End, x.NumHomozygous, x.NumHeterozygous, x.NumUnclear))
+                .collect(Collectors.toList());
+    }
+
+    // a germline sample with evenly spread sites, occasional stretches of homozygosity and some sites outside the depth limits
+    private static ListMultimap<Chromosome,PositionEvidence> createSample(final Random random, int siteCount)
+    {
+        ListMultimap<Chromosome,PositionEvidence> sample = ArrayListMultimap.create();
+
+        long genomeLength = COORDS_37.Lengths.values().stream().mapToLong(x -> x).sum();
+        int siteGap = (int)(genomeLength / siteCount);
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            int length = COORDS_37.Lengths.get(chromosome);
+            boolean homozygous = false;
+
+            for(int position = 1 + random.nextInt(siteGap); position < length; position += 1 + random.nextInt(2 * siteGap))
+            {
+                if(random.nextInt(homozygous ? 300 : 3000) == 0)
+                    homozygous = !homozygous;
+
+                int depth = random.nextInt(20) == 0 ? random.nextInt(200) : 20 + random.nextInt(20);
+                boolean het = homozygous ? random.nextInt(40) == 0 : random.nextInt(3) > 0;
+
+                PositionEvidence site = new PositionEvidence(chromosome.toString(), position, "A", "C");
+                site.ReadDepth = depth;
+                site.RefSupport = het ? depth / 2 + random.nextInt(depth / 4 + 1) : depth - random.nextInt(2);
+                site.AltSupport = depth - site.RefSupport;
+                sample.put(chromosome, site);
+            }
+        }
+
+        return sample;
+    }
 }
@@ -0,0 +1,373 @@
+package com.hartwig.hmftools.amber;
+
+import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.peakHeap;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.resetPeakHeap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.amber.BaseDepthData;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReaderFactory;
+
+public class TumorAnalysisTest
+{
+    // run with -Damber_benchmark_reads=10000000 to compare throughput and heap at the scale of a tumor BAM's sites
+    private static final int BENCHMARK_READ_COUNT = Integer.getInteger("amber_benchmark_reads", 50_000);
+
+    private static final String[] CHROMOSOMES = { "1", "2" };
+    private static final int CHROMOSOME_LENGTH = 2_000_000;
+    private static final int READ_LENGTH = 50;
+    private static final String[] CIGARS = { "50M", "50M", "50M", "50M", "20M2D30M", "25M1I24M", "10M3D40M", "30M1D20M" };
+    private static final char[] BASES = { 'A', 'C', 'G', 'T', 'A', 'C', 'G', 'T', 'N' };
+    private static final String[] SITE_BASES = { "A", "C", "G", "T" };
+
+    private File mTempDir;
+
+    @Before
+    public void setup() throws IOException
+    {
+        mTempDir = createTempDir("amber_tumor");
+    }
+
+    @After
+    public void tearDown()
+    {
+        deleteDir(mTempDir);
+    }
+
+    @Test
+    public void testMatchesPerReadEvidence() throws Exception
+    {
+        for(int seed = 0; seed < 3; ++seed)
+        {
+            Random random = new Random(seed);
+
+            List<PositionEvidence> sites = createSites(random, 3000, 3000);
+            List<SAMRecord> reads = createReads(random, sites, 20000);
+            String bamFile = writeBam(reads, "tumor_" + seed + ".bam");
+
+            ListMultimap<Chromosome,PositionEvidence> hetLoci = ArrayListMultimap.create();
+            ListMultimap<Chromosome,PositionEvidence> homLoci = ArrayListMultimap.create();
+
+            for(PositionEvidence site : sites)
+            {
+                int type = random.nextInt(3);
+
+                if(type == 0)
+                    hetLoci.put(HumanChromosome.fromString(site.Chromosome), site);
+                else if(type == 1)
+                    homLoci.put(HumanChromosome.fromString(site.Chromosome), site);
+            }
+
+            for(int threads : new int[] { 1, 3 })
+            {
+                AmberConfig config = createConfig(bamFile, threads);
+                TumorAnalysis tumor = new TumorAnalysis(config, SamReaderFactory.make(), hetLoci, homLoci);
+
+                assertEquals(expectedBafs(config, hetLoci, reads), bafs(tumor));
+                assertEquals(expectedContamination(config, homLoci, reads), contamination(tumor));
+            }
+        }
+    }
+
+    @Test
+    public void testBenchmark() throws Exception
+    {
+        Random random = new Random(1);
+
+        int siteCount = BENCHMARK_READ_COUNT / 5;
+        List<PositionEvidence> sites = createSites(random, siteCount, CHROMOSOME_LENGTH * 2 / siteCount);
+        List<SAMRecord> reads = createReads(random, sites, BENCHMARK_READ_COUNT);
+        String bamFile = writeBam(reads, "benchmark.bam");
+        reads.clear();
+
+        ListMultimap<Chromosome,PositionEvidence> hetLoci = ArrayListMultimap.create();
+        ListMultimap<Chromosome,PositionEvidence> homLoci = ArrayListMultimap.create();
+
+        for(PositionEvidence site : sites)
+        {
+            if(random.nextBoolean())
+                hetLoci.put(HumanChromosome.fromString(site.Chromosome), site);
+            else
+                homLoci.put(HumanChromosome.fromString(site.Chromosome), site);
+        }
+
+        AmberConfig config = createConfig(bamFile, 1);
+
+        // warm up before timing
+        new TumorAnalysis(config, SamReaderFactory.make(), hetLoci, homLoci);
+
+        long usedBefore = resetPeakHeap();
+
+        long startTime = System.nanoTime();
+        TumorAnalysis tumor = new TumorAnalysis(config, SamReaderFactory.make(), hetLoci, homLoci);
+        long elapsedMs = Math.max((System.nanoTime() - startTime) / 1_000_000, 1);
+
+        long peakHeap = peakHeap() - usedBefore;
+
+        assertTrue(tumor.getBafs().size() <= hetLoci.size());
+
+        AMB_LOGGER.info("tumor analysis sites({}) reads({}) time({}ms) readsPerSec({}) peakHeap({}MB)",
+                sites.size(), BENCHMARK_READ_COUNT, elapsedMs, BENCHMARK_READ_COUNT * 1000L / elapsedMs,
+                peakHeap / (1024 * 1024));
+    }
+
+    private static List<String> bafs(final TumorAnalysis tumor)
+    {
+        List<String> bafs = Lists.newArrayList();
+
+        for(Chromosome chromosome : tumor.getBafs().keySet())
+        {
+            for(TumorBAF baf : tumor.getBafs().get(chromosome))
+            {
+                PositionEvidence evidence = baf.TumorEvidence;
+
+                bafs.add(String.format("%s %s:%d %s>%s normal(%d %d %d) tumor(%d %d %d %d %d)",
+                        chromosome, baf.chromosome(), baf.position(), baf.ref(), baf.alt(),
+                        baf.NormalReadDepth, baf.NormalRefSupport, baf.NormalAltSupport,
+                        evidence.ReadDepth, evidence.RefSupport, evidence.AltSupport, evidence.IndelCount, evidence.AltQuality));
+            }
+        }
+
+        Collections.sort(bafs);
+        return bafs;
+    }
+
+    private static List<String> contamination(final TumorAnalysis tumor)
+    {
+        List<String> contamination = Lists.newArrayList();
+
+        for(Chromosome chromosome : tumor.getContamination().keySet())
+        {
+            for(TumorContamination record : tumor.getContamination().get(chromosome))
+            {
+                contamination.add(String.format("%s %s:%d normal(%s) tumor(%s)",
+                        chromosome, record.Chromosome, record.Position, format(record.Normal), format(record.Tumor)));
+            }
+        }
+
+        Collections.sort(contamination);
+        return contamination;
+    }
+
+    private static String format(final BaseDepthData depth)
+    {
+        return String.format("%s>%s %d %d %d %d",
+                depth.ref(), depth.alt(), depth.readDepth(), depth.refSupport(), depth.altSupport(), depth.indelCount());
+    }
+
+    // the evidence checks on each site in turn, collected without any region tasks or BAM slicing
+    private static PositionEvidence readEvidence(final AmberConfig config, final PositionEvidence normal, final List<SAMRecord> reads)
+    {
+        PositionEvidenceChecker evidenceChecker = new PositionEvidenceChecker(config.MinBaseQuality);
+        PositionEvidenceBlock block = new PositionEvidenceBlock(normal.Chromosome, 1);
+        block.setSite(0, normal);
+
+        for(SAMRecord read : reads)
+        {
+            if(read.getContig().equals(normal.Chromosome)
+            && read.getAlignmentStart() <= normal.Position && read.getAlignmentEnd() >= normal.Position)
+            {
+                evidenceChecker.addEvidence(block, 0, read);
+            }
+        }
+
+        return block.toEvidence(0);
+    }
+
+    private static List<String> expectedBafs(
+            final AmberConfig config, final ListMultimap<Chromosome,PositionEvidence> hetLoci, final List<SAMRecord> reads)
+    {
+        ListMultimap<Chromosome,TumorBAF> expected = ArrayListMultimap.create();
+
+        for(PositionEvidence normal : hetLoci.values())
+        {
+            PositionEvidence tumor = readEvidence(config, normal, reads);
+
+            if(tumor.IndelCount > 0)
+                continue;
+
+            TumorBAF tumorBAF = TumorBAF.fromNormal(normal);
+            tumorBAF.TumorEvidence.ReadDepth = tumor.ReadDepth;
+            tumorBAF.TumorEvidence.RefSupport = tumor.RefSupport;
+            tumorBAF.TumorEvidence.AltSupport = tumor.AltSupport;
+            tumorBAF.TumorEvidence.AltQuality = tumor.AltQuality;
+
+            expected.put(HumanChromosome.fromString(normal.Chromosome), tumorBAF);
+        }
+
+        List<String> bafs = Lists.newArrayList();
+
+        for(Chromosome chromosome : expected.keySet())
+        {
+            for(TumorBAF baf : expected.get(chromosome))
+            {
+                PositionEvidence evidence = baf.TumorEvidence;
+
+                bafs.add(String.format("%s %s:%d %s>%s normal(%d %d %d) tumor(%d %d %d %d %d)",
+                        chromosome, baf.chromosome(), baf.position(), baf.ref(), baf.alt(),
+                        baf.NormalReadDepth, baf.NormalRefSupport, baf.NormalAltSupport,
+                        evidence.ReadDepth, evidence.RefSupport, evidence.AltSupport, evidence.IndelCount, evidence.AltQuality));
+            }
+        }
+
+        Collections.sort(bafs);
+        return bafs;
+    }
+
+    private static List<String> expectedContamination(
+            final AmberConfig config, final ListMultimap<Chromosome,PositionEvidence> homLoci, final List<SAMRecord> reads)
+    {
+        List<String> contamination = Lists.newArrayList();
+
+        for(PositionEvidence normal : homLoci.values())
+        {
+            PositionEvidence tumor = readEvidence(config, normal, reads);
+
+            if(tumor.AltSupport == 0)
+                continue;
+
+            contamination.add(String.format("%s %s:%d normal(%s) tumor(%s)",
+                    HumanChromosome.fromString(normal.Chromosome), normal.Chromosome, normal.Position,
+                    format(normal.toBaseDepthData()), format(tumor.toBaseDepthData())));
+        }
+
+        Collections.sort(contamination);
+        return contamination;
+    }
+
+    private AmberConfig createConfig(final String tumorBam, int threads) throws IOException
+    {
+        File lociFile = new File(mTempDir, "loci.tsv");
+
+        if(!lociFile.exists())
+            Files.write(lociFile.toPath(), Lists.newArrayList("Chromosome\tPosition\tRef\tAlt\tSnpCheck"));
+
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        AmberConfig.registerConfig(configBuilder);
+
+        String[] args = {
+                "-tumor", "TUMOR", "-tumor_bam", tumorBam, "-reference", "REF", "-reference_bam", tumorBam,
+                "-loci", lociFile.getAbsolutePath(), "-ref_genome_version", "37", "-output_dir", mTempDir.getAbsolutePath(),
+                "-threads", String.valueOf(threads) };
+
+        assertTrue(configBuilder.parseCommandLine(args));
+        return new AmberConfig(configBuilder);
+    }
+
+    private static List<PositionEvidence> createSites(final Random random, int siteCount, int maxGap)
+    {
+        List<PositionEvidence> sites = Lists.newArrayList();
+        int chromosomeSites = siteCount / CHROMOSOMES.length;
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            int position = 1000;
+
+            for(int i = 0; i < chromosomeSites; ++i)
+            {
+                // some sites share a position with the previous one
+                if(i == 0 || random.nextInt(20) > 0)
+                    position += 1 + random.nextInt(maxGap);
+
+                int refIndex = random.nextInt(SITE_BASES.length);
+                String ref = SITE_BASES[refIndex];
+                String alt = SITE_BASES[(refIndex + 1 + random.nextInt(SITE_BASES.length - 1)) % SITE_BASES.length];
+
+                PositionEvidence site = new PositionEvidence(chromosome, position, ref, alt);
+                site.ReadDepth = random.nextInt(60);
+                site.RefSupport = random.nextInt(site.ReadDepth + 1);
+                site.AltSupport = site.ReadDepth - site.RefSupport;
+                sites.add(site);
+            }
+        }
+
+        return sites;
+    }
+
+    private static List<SAMRecord> createReads(final Random random, final List<PositionEvidence> sites, int readCount)
+    {
+        SAMFileHeader header = createHeader();
+        List<SAMRecord> reads = Lists.newArrayListWithCapacity(readCount);
+
+        for(int i = 0; i < readCount; ++i)
+        {
+            // most reads cover a site
+            PositionEvidence site = sites.get(random.nextInt(sites.size()));
+            int alignmentStart = Math.max(1, site.Position - random.nextInt(READ_LENGTH + 10));
+
+            StringBuilder readBases = new StringBuilder();
+            StringBuilder qualities = new StringBuilder();
+
+            for(int j = 0; j < READ_LENGTH; ++j)
+            {
+                readBases.append(BASES[random.nextInt(BASES.length)]);
+                qualities.append((char)('!' + 5 + random.nextInt(36)));
+            }
+
+            SAMRecord record = new SAMRecord(header);
+            record.setReadName("READ_" + i);
+            record.setReferenceName(site.Chromosome);
+            record.setAlignmentStart(alignmentStart);
+            record.setCigarString(CIGARS[random.nextInt(CIGARS.length)]);
+            record.setReadString(readBases.toString());
+            record.setBaseQualityString(qualities.toString());
+            record.setMappingQuality(60);
+            reads.add(record);
+        }
+
+        return reads;
+    }
+
+    private static SAMFileHeader createHeader()
+    {
+        SAMSequenceDictionary dictionary = new SAMSequenceDictionary();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            dictionary.addSequence(new SAMSequenceRecord(chromosome, CHROMOSOME_LENGTH * 2));
+        }
+
+        SAMFileHeader header = new SAMFileHeader(dictionary);
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        return header;
+    }
+
+    private String writeBam(final List<SAMRecord> reads, final String filename)
+    {
+        File bamFile = new File(mTempDir, filename);
+
+        SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(reads.get(0).getHeader(), false, bamFile);
+        reads.forEach(writer::addAlignment);
+        writer.close();
+
+        return bamFile.getAbsolutePath();
+    }
+}
@@ -18,15 +18,16 @@ public class TumorEvidenceTest
         final SAMRecord lowQualDel = buildSamRecord(1000, "1M1D1M", "CT", "FI");
         final SAMRecord highQualDel = buildSamRecord(1000, "1M1D1M", "CT", "FJ");
 
-        final PositionEvidence baseDepth = new PositionEvidence("5", 1001, "A", "T");
+        PositionEvidenceBlock block = new PositionEvidenceBlock("5", 1);
+        block.setSite(0, 1001, (byte)'A', (byte)'T');
 
         PositionEvidenceChecker evidenceChecker = new PositionEvidenceChecker(minQuality);
 
-        evidenceChecker.addEvidence(baseDepth, lowQualDel);
-        assertEquals(0, baseDepth.ReadDepth);
+        evidenceChecker.addEvidence(block, 0, lowQualDel);
+        assertEquals(0, block.ReadDepth[0]);
 
-        evidenceChecker.addEvidence(baseDepth, highQualDel);
-        assertEquals(1, baseDepth.ReadDepth);
+        evidenceChecker.addEvidence(block, 0, highQualDel);
+        assertEquals(1, block.ReadDepth[0]);
     }
 
     private SAMRecord buildSamRecord(
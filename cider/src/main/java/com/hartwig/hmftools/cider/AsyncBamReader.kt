@@ -8,13 +8,21 @@ import htsjdk.samtools.SamReaderFactory
 import org.apache.logging.log4j.LogManager
 import java.io.File
 import java.io.IOException
-import java.util.*
+import java.util.concurrent.ArrayBlockingQueue
 import java.util.concurrent.BlockingQueue
-import java.util.concurrent.LinkedBlockingDeque
+import java.util.concurrent.TimeUnit
 
 object AsyncBamReader
 {
-    private const val MAX_BAM_RECORD_Q_SIZE = 100000
+    // records are handed to the consumers in batches, which cuts the per record queue overhead
+    const val RECORD_BATCH_SIZE = 1000
+
+    // bounded number of batches in flight, the bam reader blocks when the queue is full
+    const val MAX_BATCH_Q_SIZE = 100
+
+    // an empty batch signals the consumers to finish
+    private val END_OF_STREAM = emptyList<SAMRecord>()
+
     private val logger = LogManager.getLogger(AsyncBamReader::class.java)
 
     @JvmStatic
@@ -29,26 +37,23 @@ object AsyncBamReader
     {
         logger.debug("Processing {} potential sites in bam {}", genomeRegions.size, bamFile)
 
-        // create genome regions from the loci
-        // val taskCompletion = BamTaskCompletion(taskQ.size)
-
-        val bamRecordQ: BlockingQueue<Optional<SAMRecord>> = LinkedBlockingDeque()
+        val batchQ: BlockingQueue<List<SAMRecord>> = ArrayBlockingQueue(MAX_BATCH_Q_SIZE)
 
         // create the bam record consumers
         val recordConsumers = ArrayList<BamRecordConsumerThread>()
 
         for (i in 0 until Math.max(threadCount, 1))
         {
-            val t = BamRecordConsumerThread(bamRecordQ, asyncRecordHandler)
+            val t = BamRecordConsumerThread(batchQ, asyncRecordHandler)
             t.name = String.format("worker-%d", i)
             t.start()
             recordConsumers.add(t)
         }
         logger.info("{} bam record consumer threads started", recordConsumers.size)
 
-        val bamReader = BamReader(bamFile, samReaderFactory, genomeRegions, bamRecordQ)
+        val bamReader = BamReader(bamFile, samReaderFactory, genomeRegions, batchQ)
         bamReader.run()
-        bamRecordQ.put(Optional.empty()) // signals consumer to finish
+        batchQ.put(END_OF_STREAM) // signals consumer to finish
 
         for (t in recordConsumers)
         {
@@ -56,15 +61,44 @@ object AsyncBamReader
         }
 
         logger.info("{} bam reader threads finished", recordConsumers.size)
+
+        logQueueStats(bamReader, recordConsumers)
+    }
+
+    private fun logQueueStats(bamReader: BamReader, recordConsumers: List<BamRecordConsumerThread>)
+    {
+        val avgQueueDepth = if (bamReader.batchCount > 0) bamReader.queueDepthTotal.toDouble() / bamReader.batchCount else 0.0
+
+        logger.info("bam reader: records({}) batches({}) queue depth avg({}) max({}) of capacity({}), reader blocked({}ms)",
+            bamReader.recordCount, bamReader.batchCount, String.format("%.1f", avgQueueDepth), bamReader.maxQueueDepth,
+            MAX_BATCH_Q_SIZE, TimeUnit.NANOSECONDS.toMillis(bamReader.blockedNanos))
+
+        for (t in recordConsumers)
+        {
+            val totalMs = TimeUnit.NANOSECONDS.toMillis(t.idleNanos + t.busyNanos)
+            val idlePercent = if (totalMs > 0) 100.0 * TimeUnit.NANOSECONDS.toMillis(t.idleNanos) / totalMs else 0.0
+
+            logger.info("consumer {}: records({}) idle({}ms, {}%) busy({}ms)",
+                t.name, t.recordCount, TimeUnit.NANOSECONDS.toMillis(t.idleNanos), String.format("%.1f", idlePercent),
+                TimeUnit.NANOSECONDS.toMillis(t.busyNanos))
+        }
     }
 
     internal class BamReader(
         bamFile: String,
         samReaderFactory: SamReaderFactory,
         private val genomeRegionList: Collection<GenomeRegion>,
-        private val outputRecordQ: Queue<Optional<SAMRecord>>)
+        private val outputBatchQ: BlockingQueue<List<SAMRecord>>)
     {
         private val mSamReader: SamReader = samReaderFactory.open(File(bamFile))
+        private var mCurrentBatch = ArrayList<SAMRecord>(RECORD_BATCH_SIZE)
+
+        // queue metrics, only accessed from the reader thread
+        var recordCount: Long = 0
+        var batchCount: Long = 0
+        var queueDepthTotal: Long = 0
+        var maxQueueDepth: Int = 0
+        var blockedNanos: Long = 0
 
         fun run()
         {
@@ -80,6 +114,8 @@ object AsyncBamReader
             // we do not process unmapped reads
             // mSamReader.queryUnmapped().use({ iterator -> processRecords(iterator) })
 
+            flushBatch()
+
             try
             {
                 mSamReader.close()
@@ -106,65 +142,78 @@ object AsyncBamReader
                 // we don't want to check the alignment region, reason is that we intentionally
                 // want to process unmapped read where mate pairs are mapped to an interesting region
                 // the downstream processing will take care of it.
-                outputRecordQ.add(Optional.of(record))
+                mCurrentBatch.add(record)
+                ++recordCount
 
-                // important: we want to take a break if we are going to flood the output queue
-                checkAndWaitForConsumer()
+                if (mCurrentBatch.size >= RECORD_BATCH_SIZE)
+                    flushBatch()
             }
         }
 
-        private fun checkAndWaitForConsumer()
+        private fun flushBatch()
         {
-            if (outputRecordQ.size >= MAX_BAM_RECORD_Q_SIZE)
-            {
-                logger.info("bam record Q size: {}, max size reached, pausing bam reader", outputRecordQ.size)
+            if (mCurrentBatch.isEmpty())
+                return
 
-                // drain at least 80% of the queue before going back to work
-                while (outputRecordQ.size * 5 >= MAX_BAM_RECORD_Q_SIZE)
-                {
-                    try
-                    {
-                        Thread.sleep(1000)
-                    }
-                    catch (ex: InterruptedException)
-                    {
-                        Thread.currentThread().interrupt()
-                    }
-                }
-                logger.info("finished sleeping, bam record Q size: {}", outputRecordQ.size)
-            }
+            val queueDepth = outputBatchQ.size
+            queueDepthTotal += queueDepth
+            maxQueueDepth = Math.max(maxQueueDepth, queueDepth)
+
+            // blocks when the consumers fall behind, rather than letting the queue grow
+            val startTime = System.nanoTime()
+            outputBatchQ.put(mCurrentBatch)
+            blockedNanos += System.nanoTime() - startTime
+
+            ++batchCount
+            mCurrentBatch = ArrayList(RECORD_BATCH_SIZE)
         }
     }
 
     internal class BamRecordConsumerThread(
-        private val bamRecordQ: BlockingQueue<Optional<SAMRecord>>,
+        private val batchQ: BlockingQueue<List<SAMRecord>>,
         private val samRecordHandler: (SAMRecord) -> Unit
     ) : Thread()
     {
+        // read by the main thread after join
+        @Volatile var recordCount: Long = 0
+        @Volatile var idleNanos: Long = 0
+        @Volatile var busyNanos: Long = 0
+
         override fun run()
         {
             logger.debug("bam record consumer thread start")
             while (true)
             {
-                val record: Optional<SAMRecord> = try
+                val waitStart = System.nanoTime()
+                val batch: List<SAMRecord> = try
                 {
-                    bamRecordQ.take()
+                    batchQ.take()
                 }
                 catch (e: InterruptedException)
                 {
                     break
                 }
-                if (record.isEmpty)
+                val processStart = System.nanoTime()
+                idleNanos += processStart - waitStart
+
+                if (batch.isEmpty())
                 {
-                    // if record is empty, it signals consumer to stop
+                    // if batch is empty, it signals consumer to stop
                     // we want to put it back so other consumer threads
                     // will also know to stop
-                    bamRecordQ.put(record)
+                    batchQ.put(batch)
                     break
                 }
-                samRecordHandler(record.get())
+
+                for (record in batch)
+                {
+                    samRecordHandler(record)
+                }
+
+                recordCount += batch.size
+                busyNanos += System.nanoTime() - processStart
             }
             logger.debug("bam record consumer thread finish")
         }
     }
-}
\ No newline at end of file
+}
@@ -10,8 +10,10 @@ import com.hartwig.hmftools.cider.VDJSequenceTsvWriter.writeVDJSequences
 import com.hartwig.hmftools.cider.blastn.BlastnAnnotation
 import com.hartwig.hmftools.cider.blastn.BlastnAnnotator
 import com.hartwig.hmftools.cider.blastn.BlastnStatus
+import com.hartwig.hmftools.cider.blastn.VdjRefSeqIndex
 import com.hartwig.hmftools.cider.genes.IgTcrConstantDiversityRegion
 import com.hartwig.hmftools.cider.primer.*
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource
 import com.hartwig.hmftools.common.genome.region.GenomeRegion
 import com.hartwig.hmftools.common.genome.region.GenomeRegions
 import com.hartwig.hmftools.common.utils.config.DeclaredOrderParameterComparator
@@ -126,6 +128,19 @@ class CiderApplication
             val blastnAnnotator = BlastnAnnotator()
             blastnAnnotations = blastnAnnotator.runAnnotate(mParams.sampleId, mParams.blast!!, mParams.blastDb!!, filteredVdjs, mParams.outputDir, mParams.threadCount)
         }
+        else if (mParams.vdjRefRegions != null)
+        {
+            val filteredVdjs = vdjSequences.filter { vdj -> !vdjAnnotator.vdjMatchesRef(vdj) }
+
+            // the IMGT gene sequences can only be added if the ref genome is the same version as the regions
+            val refGenome = if (mParams.refGenomePath != null && mParams.refGenomeVersion == CiderConstants.BLAST_REF_GENOME_VERSION)
+                RefGenomeSource.loadRefGenome(mParams.refGenomePath) else null
+
+            val refIndex = VdjRefSeqIndex.load(mParams.vdjRefRegions!!, refGenome)
+
+            val blastnAnnotator = BlastnAnnotator()
+            blastnAnnotations = blastnAnnotator.runAnnotate(mParams.sampleId, refIndex, filteredVdjs, mParams.outputDir, mParams.threadCount)
+        }
         else
         {
             blastnAnnotations = emptyList()
@@ -75,8 +75,17 @@ class CiderParams
     @Parameter(names = ["-blast_db"], description = "Location of blast database")
     var blastDb: String? = null
 
+    @Parameter(names = ["-vdj_ref_regions"],
+        description = "TSV of ref genome regions from CiderRefGenomeExtractor, used to annotate VDJ sequences without blast")
+    var vdjRefRegions: String? = null
+
     val isValid: Boolean get()
     {
+        if (blast != null && vdjRefRegions != null)
+        {
+            sLogger.error("invalid parameters: only one of -blast and -vdj_ref_regions can be configured")
+            return false
+        }
         if (blast != null && blastDb == null)
         {
             sLogger.error("invalid parameters: requires -blast_db if -blast is configured")
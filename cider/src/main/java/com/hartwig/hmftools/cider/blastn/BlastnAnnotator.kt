@@ -68,6 +68,22 @@ class BlastnAnnotator
 
     fun runAnnotate(sampleId: String, blastDir: String, blastDb: String, vdjList: List<VDJSequence>, outputDir: String, numThreads: Int)
             : Collection<BlastnAnnotation>
+    {
+        return runAnnotate(sampleId, vdjList, outputDir) { querySeqs ->
+            BlastnRunner.runBlastn(sampleId, blastDir, blastDb, querySeqs, outputDir, numThreads, BLASTN_MAX_EVALUE) }
+    }
+
+    // annotate using the in process aligner instead of blastn
+    fun runAnnotate(sampleId: String, refIndex: VdjRefSeqIndex, vdjList: List<VDJSequence>, outputDir: String, numThreads: Int)
+            : Collection<BlastnAnnotation>
+    {
+        return runAnnotate(sampleId, vdjList, outputDir) { querySeqs ->
+            LocalAlignmentRunner.runAlignment(refIndex, querySeqs, numThreads, BLASTN_MAX_EVALUE) }
+    }
+
+    private fun runAnnotate(sampleId: String, vdjList: List<VDJSequence>, outputDir: String,
+                            aligner: (Map<Int, String>) -> Multimap<Int, BlastnMatch>)
+            : Collection<BlastnAnnotation>
     {
         // assign a key to each VDJ, such that we can keep track of them
         var key = 0
@@ -83,11 +99,7 @@ class BlastnAnnotator
             blastnRunDataMap[blastnRunData.key] = blastnRunData
         }
 
-        val blastnResults = BlastnRunner.runBlastn(
-            sampleId, blastDir, blastDb,
-            blastnRunDataMap.mapValues { runData -> runData.value.querySeq },
-            outputDir, numThreads, BLASTN_MAX_EVALUE
-        )
+        val blastnResults = aligner(blastnRunDataMap.mapValues { runData -> runData.value.querySeq })
 
         // put all into an identity hash multimap
         val vdjToBlastnMatch: Multimap<BlastnRunData, BlastnMatch> = Multimaps.newListMultimap(IdentityHashMap()) { ArrayList() }
@@ -0,0 +1,64 @@
+package com.hartwig.hmftools.cider.blastn
+
+import com.google.common.collect.ArrayListMultimap
+import com.google.common.collect.Multimap
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import org.apache.logging.log4j.LogManager
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
+// in process alternative to BlastnRunner, aligns the sequences against the VDJ ref sequence index
+object LocalAlignmentRunner
+{
+    private val sLogger = LogManager.getLogger(LocalAlignmentRunner::class.java)
+
+    fun runAlignment(refIndex: VdjRefSeqIndex, vdjSequences: Map<Int, String>, numThreads: Int, expectedValueCutoff: Double = 1.0)
+    : Multimap<Int, BlastnMatch>
+    {
+        val alignResults: Multimap<Int, BlastnMatch> = ArrayListMultimap.create()
+
+        if (vdjSequences.isEmpty())
+        {
+            return alignResults
+        }
+
+        val start = Instant.now()
+
+        sLogger.info("aligning {} sequences against VDJ ref sequence index", vdjSequences.size)
+
+        // index is immutable and shared, each thread has its own aligner with its scratch buffers
+        val aligners = ThreadLocal.withInitial { VdjLocalAligner(refIndex) }
+
+        val namedThreadFactory = ThreadFactoryBuilder().setNameFormat("align-%d").build()
+        val executorService = Executors.newFixedThreadPool(Math.max(numThreads, 1), namedThreadFactory)
+
+        try
+        {
+            val futures = ArrayList<Pair<Int, Future<List<BlastnMatch>>>>()
+
+            for ((key, seq) in vdjSequences)
+            {
+                val task = Callable { aligners.get().align(seq, expectedValueCutoff) }
+                futures.add(Pair(key, executorService.submit(task)))
+            }
+
+            for ((key, future) in futures)
+            {
+                alignResults.putAll(key, future.get())
+            }
+        }
+        finally
+        {
+            // we must do this to make sure application will exit on exception
+            executorService.shutdown()
+        }
+
+        val seconds: Long = Duration.between(start, Instant.now()).seconds
+        sLogger.info("alignment complete, {} matches. Time taken: {}m {}s", alignResults.size(), seconds / 60, seconds % 60)
+
+        return alignResults
+    }
+}
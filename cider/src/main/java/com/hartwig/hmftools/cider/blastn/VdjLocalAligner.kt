@@ -0,0 +1,461 @@
+package com.hartwig.hmftools.cider.blastn
+
+import com.hartwig.hmftools.common.genome.region.Strand
+import htsjdk.samtools.util.SequenceUtil
+import java.util.*
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.roundToInt
+
+// Seed and extend local aligner that produces the same matches as running blastn against the VDJ ref
+// sequence index. Seeds are exact k-mer hits, seeds that are close in diagonal are grouped together and
+// a banded Smith-Waterman with affine gaps is run around them, using the same scoring as BlastnRunner.
+//
+// An aligner holds scratch buffers that are reused between queries, so it must only be used by one thread.
+class VdjLocalAligner(private val refIndex: VdjRefSeqIndex)
+{
+    // seed hits, each packed as (diagonal + query length) << 32 | seed position
+    private var mSeedHits = LongArray(1024)
+
+    // DP rows and traceback matrix
+    private var mHRow = IntArray(0)
+    private var mFRow = IntArray(0)
+    private var mTrace = ByteArray(0)
+
+    data class LocalAlignment(
+        val score: Int,
+        val queryStart: Int, // 0 based inclusive, in the aligned query orientation
+        val queryEnd: Int,
+        val refStart: Int, // 0 based inclusive, position in the concatenated index sequence
+        val refEnd: Int,
+        val alignedQuery: String,
+        val alignedRef: String)
+
+    fun align(querySeq: String, expectedValueCutoff: Double): List<BlastnMatch>
+    {
+        val query = querySeq.uppercase().toByteArray()
+        val queryRevComp = SequenceUtil.reverseComplement(querySeq.uppercase()).toByteArray()
+
+        val matches = ArrayList<BlastnMatch>()
+
+        for (alignment in alignStrand(query))
+        {
+            val match = toBlastnMatch(alignment, query.size, Strand.FORWARD)
+            if (match.expectedValue <= expectedValueCutoff)
+                matches.add(match)
+        }
+
+        for (alignment in alignStrand(queryRevComp))
+        {
+            val match = toBlastnMatch(alignment, query.size, Strand.REVERSE)
+            if (match.expectedValue <= expectedValueCutoff)
+                matches.add(match)
+        }
+
+        matches.sortWith(Comparator.comparingDouble(BlastnMatch::expectedValue).thenComparing(BlastnMatch::bitScore, Comparator.reverseOrder()))
+
+        return if (matches.size > MAX_MATCHES_PER_QUERY) matches.subList(0, MAX_MATCHES_PER_QUERY) else matches
+    }
+
+    // align the query against the forward strand of the index
+    fun alignStrand(query: ByteArray): List<LocalAlignment>
+    {
+        val seedCount = collectSeedHits(query)
+
+        if (seedCount == 0)
+            return emptyList()
+
+        Arrays.sort(mSeedHits, 0, seedCount)
+
+        val alignments = ArrayList<LocalAlignment>()
+        val foundKeys = HashSet<List<Int>>()
+
+        // group seeds that are close in diagonal and inside the same region
+        var i = 0
+        while (i < seedCount)
+        {
+            val firstPos = seedPosition(mSeedHits[i])
+            val regionIndex = refIndex.regionIndex(firstPos)
+            val minDiag = seedDiagonal(mSeedHits[i], query.size)
+            var maxDiag = minDiag
+            var j = i + 1
+
+            while (j < seedCount)
+            {
+                val diag = seedDiagonal(mSeedHits[j], query.size)
+
+                if (diag - maxDiag > BAND_WIDTH || refIndex.regionIndex(seedPosition(mSeedHits[j])) != regionIndex)
+                    break
+
+                maxDiag = diag
+                ++j
+            }
+
+            val alignment = bandedAlign(query, regionIndex, minDiag - BAND_WIDTH, maxDiag + BAND_WIDTH)
+
+            // neighbouring seed groups can extend to the same alignment
+            if (alignment != null && foundKeys.add(listOf(alignment.queryStart, alignment.queryEnd, alignment.refStart, alignment.refEnd)))
+                alignments.add(alignment)
+
+            i = j
+        }
+
+        return alignments
+    }
+
+    private fun collectSeedHits(query: ByteArray): Int
+    {
+        val wordSize = refIndex.wordSize
+        val mask = (1 shl (2 * wordSize)) - 1
+        var kmer = 0
+        var validLength = 0
+        var count = 0
+
+        for (q in query.indices)
+        {
+            val code = VdjRefSeqIndex.baseCode(query[q])
+
+            if (code < 0)
+            {
+                validLength = 0
+                kmer = 0
+                continue
+            }
+
+            kmer = ((kmer shl 2) or code) and mask
+
+            if (++validLength < wordSize)
+                continue
+
+            val queryPos = q - wordSize + 1
+            val seedStart = refIndex.seedStart(kmer)
+            val seedEnd = refIndex.seedEnd(kmer)
+
+            // skip highly repetitive k-mers
+            if (seedEnd - seedStart > MAX_SEED_HITS_PER_KMER)
+                continue
+
+            for (s in seedStart until seedEnd)
+            {
+                val refPos = refIndex.seedPosition(s)
+
+                if (count == mSeedHits.size)
+                    mSeedHits = mSeedHits.copyOf(count * 2)
+
+                mSeedHits[count++] = ((refPos - queryPos + query.size).toLong() shl 32) or refPos.toLong()
+            }
+        }
+
+        return count
+    }
+
+    // Smith-Waterman with affine gap, restricted to the diagonals (ref pos - query pos) in [minDiag, maxDiag]
+    // and to the region
+    private fun bandedAlign(query: ByteArray, regionIndex: Int, minDiag: Int, maxDiag: Int): LocalAlignment?
+    {
+        val regionStart = refIndex.regionStart(regionIndex)
+        val regionEnd = refIndex.regionEnd(regionIndex)
+        val windowStart = Math.max(regionStart, minDiag)
+        val windowEnd = Math.min(regionEnd, maxDiag + query.size)
+
+        val n = query.size
+        val m = windowEnd - windowStart
+
+        if (m <= 0)
+            return null
+
+        ensureCapacity(n, m)
+
+        val gapOpen = -(BlastnRunner.GAP_OPENING_SCORE + BlastnRunner.GAP_EXTEND_SCORE)
+        val gapExtend = -BlastnRunner.GAP_EXTEND_SCORE
+        val width = m + 1
+
+        Arrays.fill(mHRow, 0, width, 0)
+        Arrays.fill(mFRow, 0, width, NEG_INF)
+
+        var bestScore = 0
+        var bestI = 0
+        var bestJ = 0
+
+        for (i in 1..n)
+        {
+            var diagH = 0 // H[i - 1][j - 1]
+            var leftH = 0 // H[i][j - 1]
+            var e = NEG_INF // E[i][j - 1]
+            val queryBase = query[i - 1]
+            val rowOffset = i * width
+
+            mTrace[rowOffset] = TRACE_STOP
+
+            for (j in 1..m)
+            {
+                val upH = mHRow[j]
+                val refPos = windowStart + j - 1
+                val diagonal = refPos - (i - 1)
+
+                if (diagonal < minDiag || diagonal > maxDiag)
+                {
+                    // outside of the band, no alignment can pass through this cell
+                    mHRow[j] = 0
+                    mFRow[j] = NEG_INF
+                    mTrace[rowOffset + j] = TRACE_STOP
+                    diagH = upH
+                    leftH = 0
+                    e = NEG_INF
+                    continue
+                }
+
+                var trace: Int
+
+                // gap in query, consumes ref base
+                val eOpen = leftH - gapOpen
+                val eExtend = e - gapExtend
+                e = if (eExtend > eOpen) eExtend else eOpen
+                trace = if (eExtend > eOpen) TRACE_E_EXTEND else 0
+
+                // gap in ref, consumes query base
+                val fOpen = upH - gapOpen
+                val fExtend = mFRow[j] - gapExtend
+                val f = if (fExtend > fOpen) fExtend else fOpen
+                if (fExtend > fOpen)
+                    trace = trace or TRACE_F_EXTEND
+
+                val refBase = refIndex.base(refPos)
+                val isMatch = queryBase == refBase && VdjRefSeqIndex.baseCode(queryBase) >= 0
+                val matchScore = diagH + if (isMatch) BlastnRunner.MATCH_SCORE else BlastnRunner.MISMATCH_SCORE
+
+                var h = 0
+                var source = TRACE_STOP.toInt()
+
+                if (matchScore > h)
+                {
+                    h = matchScore
+                    source = TRACE_DIAG.toInt()
+                }
+                if (e > h)
+                {
+                    h = e
+                    source = TRACE_E.toInt()
+                }
+                if (f > h)
+                {
+                    h = f
+                    source = TRACE_F.toInt()
+                }
+
+                mTrace[rowOffset + j] = (trace or source).toByte()
+
+                diagH = upH
+                leftH = h
+                mHRow[j] = h
+                mFRow[j] = f
+
+                if (h > bestScore)
+                {
+                    bestScore = h
+                    bestI = i
+                    bestJ = j
+                }
+            }
+        }
+
+        if (bestScore <= 0)
+            return null
+
+        return traceback(query, windowStart, width, bestScore, bestI, bestJ)
+    }
+
+    private fun traceback(query: ByteArray, windowStart: Int, width: Int, score: Int, endI: Int, endJ: Int): LocalAlignment
+    {
+        val alignedQuery = StringBuilder()
+        val alignedRef = StringBuilder()
+
+        var i = endI
+        var j = endJ
+        var state = TRACE_DIAG.toInt()
+
+        while (i > 0 && j > 0)
+        {
+            val trace = mTrace[i * width + j].toInt()
+
+            if (state == TRACE_DIAG.toInt())
+            {
+                val source = trace and TRACE_SOURCE_MASK
+
+                if (source == TRACE_STOP.toInt())
+                    break
+
+                if (source != TRACE_DIAG.toInt())
+                {
+                    state = source
+                    continue
+                }
+
+                alignedQuery.append(query[i - 1].toInt().toChar())
+                alignedRef.append(refIndex.base(windowStart + j - 1).toInt().toChar())
+                --i
+                --j
+            }
+            else if (state == TRACE_E.toInt())
+            {
+                alignedQuery.append('-')
+                alignedRef.append(refIndex.base(windowStart + j - 1).toInt().toChar())
+
+                if ((trace and TRACE_E_EXTEND) == 0)
+                    state = TRACE_DIAG.toInt()
+                --j
+            }
+            else
+            {
+                alignedQuery.append(query[i - 1].toInt().toChar())
+                alignedRef.append('-')
+
+                if ((trace and TRACE_F_EXTEND) == 0)
+                    state = TRACE_DIAG.toInt()
+                --i
+            }
+        }
+
+        return LocalAlignment(
+            score = score,
+            queryStart = i,
+            queryEnd = endI - 1,
+            refStart = windowStart + j,
+            refEnd = windowStart + endJ - 1,
+            alignedQuery = alignedQuery.reverse().toString(),
+            alignedRef = alignedRef.reverse().toString())
+    }
+
+    // convert to the same representation as a match from the blastn output. For reverse strand the query was
+    // reverse complemented, and it is converted back such that query is always the forward strand
+    fun toBlastnMatch(alignment: LocalAlignment, queryLength: Int, strand: Strand): BlastnMatch
+    {
+        val regionIndex = refIndex.regionIndex(alignment.refStart)
+        val region = refIndex.regions[regionIndex]
+        val regionOffset = refIndex.regionStart(regionIndex)
+
+        val refStartPos = region.start + alignment.refStart - regionOffset
+        val refEndPos = region.start + alignment.refEnd - regionOffset
+
+        var numMatch = 0
+        var numMismatch = 0
+        var numGapOpenings = 0
+
+        for (k in alignment.alignedQuery.indices)
+        {
+            val q = alignment.alignedQuery[k]
+            val r = alignment.alignedRef[k]
+
+            if (q == '-' || r == '-')
+            {
+                val prevQ = if (k > 0) alignment.alignedQuery[k - 1] else ' '
+                val prevR = if (k > 0) alignment.alignedRef[k - 1] else ' '
+
+                if ((q == '-' && prevQ != '-') || (r == '-' && prevR != '-'))
+                    ++numGapOpenings
+            }
+            else if (q == r)
+                ++numMatch
+            else
+                ++numMismatch
+        }
+
+        val alignmentLength = alignment.alignedQuery.length
+        val bitScore = Math.round(bitScore(alignment.score) * 10) / 10.0
+
+        val queryAlignStart: Int
+        val queryAlignEnd: Int
+        val alignedQuery: String
+        val alignedRef: String
+
+        if (strand == Strand.FORWARD)
+        {
+            queryAlignStart = alignment.queryStart + 1
+            queryAlignEnd = alignment.queryEnd + 1
+            alignedQuery = alignment.alignedQuery
+            alignedRef = alignment.alignedRef
+        }
+        else
+        {
+            queryAlignStart = queryLength - alignment.queryEnd
+            queryAlignEnd = queryLength - alignment.queryStart
+            alignedQuery = SequenceUtil.reverseComplement(alignment.alignedQuery)
+            alignedRef = SequenceUtil.reverseComplement(alignment.alignedRef)
+        }
+
+        return BlastnMatch(
+            querySeqLen = queryLength,
+            subjectTitle = region.contig,
+            percentageIdent = Math.round(100_000.0 * numMatch / alignmentLength) / 1000.0,
+            queryCoverage = (100.0 * (queryAlignEnd - queryAlignStart + 1) / queryLength).roundToInt().toDouble(),
+            alignmentLength = alignmentLength,
+            numMismatch = numMismatch,
+            numGapOpenings = numGapOpenings,
+            queryAlignStart = queryAlignStart,
+            queryAlignEnd = queryAlignEnd,
+            subjectAlignStart = if (strand == Strand.FORWARD) refStartPos else refEndPos,
+            subjectAlignEnd = if (strand == Strand.FORWARD) refEndPos else refStartPos,
+            subjectFrame = strand,
+            expectedValue = expectedValue(alignment.score, queryLength),
+            bitScore = bitScore,
+            alignedPartOfQuerySeq = alignedQuery,
+            alignedPartOfSubjectSeq = alignedRef)
+    }
+
+    private fun ensureCapacity(queryLength: Int, windowLength: Int)
+    {
+        if (mHRow.size < windowLength + 1)
+        {
+            mHRow = IntArray(windowLength + 1)
+            mFRow = IntArray(windowLength + 1)
+        }
+
+        val traceSize = (queryLength + 1) * (windowLength + 1)
+
+        if (mTrace.size < traceSize)
+            mTrace = ByteArray(traceSize)
+    }
+
+    companion object
+    {
+        // diagonal distance within which seeds are grouped together, also the band added around each seed group
+        const val BAND_WIDTH = 16
+
+        const val MAX_SEED_HITS_PER_KMER = 10_000
+
+        // same as the blastn default max_target_seqs
+        const val MAX_MATCHES_PER_QUERY = 500
+
+        // Karlin-Altschul parameters for match / mismatch of 1 / -4. Gap costs of 5 / 2 are not in the blastn
+        // table, and are large enough that blastn uses the ungapped values
+        const val LAMBDA = 1.383
+        const val K = 0.738
+
+        // approximate length of the GRCh38 top level blast database, such that the expected values are comparable
+        // with those from running blastn against the whole genome
+        const val DATABASE_LENGTH = 3_257_319_537.0
+
+        private const val NEG_INF = Int.MIN_VALUE / 2
+
+        private const val TRACE_STOP: Byte = 0
+        private const val TRACE_DIAG: Byte = 1
+        private const val TRACE_E: Byte = 2
+        private const val TRACE_F: Byte = 3
+        private const val TRACE_SOURCE_MASK = 3
+        private const val TRACE_E_EXTEND = 4
+        private const val TRACE_F_EXTEND = 8
+
+        private fun seedDiagonal(seedHit: Long, queryLength: Int): Int = (seedHit ushr 32).toInt() - queryLength
+        private fun seedPosition(seedHit: Long): Int = seedHit.toInt()
+
+        fun bitScore(score: Int): Double
+        {
+            return (LAMBDA * score - ln(K)) / ln(2.0)
+        }
+
+        fun expectedValue(score: Int, queryLength: Int): Double
+        {
+            return K * queryLength * DATABASE_LENGTH * exp(-LAMBDA * score)
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.hartwig.hmftools.cider.blastn
+
+import com.hartwig.hmftools.cider.CiderConstants
+import com.hartwig.hmftools.cider.IgTcrRegion
+import com.hartwig.hmftools.cider.genes.IgTcrGeneFile
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource
+import org.apache.logging.log4j.LogManager
+
+// Immutable k-mer seed index over the ref genome sequences that VDJ sequences are aligned against.
+// The sequences are the regions curated by CiderRefGenomeExtractor, optionally together with the V / D / J
+// gene regions extracted from the reference genome. All sequences are stored on the forward strand.
+//
+// Since the number of possible k-mers is small (4^9), we use a direct address table of k-mer -> seed positions,
+// where each position is an offset into the concatenation of all the region sequences.
+// The index is safe to query from multiple threads.
+class VdjRefSeqIndex(regions: List<RefGenomeRegion>, val wordSize: Int = BlastnRunner.WORD_SIZE)
+{
+    val regions: List<RefGenomeRegion> = ArrayList(regions)
+
+    // offset of each region in the concatenated sequence, with the total length as the last element
+    private val mRegionOffsets: IntArray = IntArray(this.regions.size + 1)
+
+    // bases of every region, one byte per base
+    private val mBases: ByteArray
+
+    // seed positions of k-mer k are mSeedPositions[mKmerStarts[k] until mKmerStarts[k + 1]]
+    private val mKmerStarts: IntArray
+    private val mSeedPositions: IntArray
+
+    init
+    {
+        require(wordSize in 1..15)
+
+        for (i in this.regions.indices)
+        {
+            mRegionOffsets[i + 1] = mRegionOffsets[i] + this.regions[i].sequence.length
+        }
+
+        val totalLength = mRegionOffsets[this.regions.size]
+        mBases = ByteArray(totalLength)
+
+        for (i in this.regions.indices)
+        {
+            val seq = this.regions[i].sequence.uppercase().toByteArray()
+            System.arraycopy(seq, 0, mBases, mRegionOffsets[i], seq.size)
+        }
+
+        // counting sort of all the k-mers
+        val kmerCount = 1 shl (2 * wordSize)
+        mKmerStarts = IntArray(kmerCount + 1)
+
+        forEachKmer { kmer, _ -> ++mKmerStarts[kmer + 1] }
+
+        for (k in 0 until kmerCount)
+        {
+            mKmerStarts[k + 1] += mKmerStarts[k]
+        }
+
+        mSeedPositions = IntArray(mKmerStarts[kmerCount])
+        val fillIndex = mKmerStarts.copyOf(kmerCount)
+
+        forEachKmer { kmer, pos -> mSeedPositions[fillIndex[kmer]++] = pos }
+
+        sLogger.info("built VDJ ref sequence index, regions({}) bases({}) seeds({})",
+            this.regions.size, totalLength, mSeedPositions.size)
+    }
+
+    val totalLength: Int get() = mBases.size
+
+    fun base(globalPos: Int): Byte = mBases[globalPos]
+
+    fun regionStart(regionIndex: Int): Int = mRegionOffsets[regionIndex]
+
+    fun regionEnd(regionIndex: Int): Int = mRegionOffsets[regionIndex + 1]
+
+    // find the region that contains the position in the concatenated sequence
+    fun regionIndex(globalPos: Int): Int
+    {
+        var low = 0
+        var high = regions.size - 1
+
+        while (low < high)
+        {
+            val mid = (low + high + 1) ushr 1
+
+            if (mRegionOffsets[mid] <= globalPos)
+                low = mid
+            else
+                high = mid - 1
+        }
+
+        return low
+    }
+
+    // seed positions of a k-mer are seedPosition(i) for i in seedStart(kmer) until seedEnd(kmer)
+    fun seedStart(kmer: Int): Int = mKmerStarts[kmer]
+    fun seedEnd(kmer: Int): Int = mKmerStarts[kmer + 1]
+    fun seedPosition(i: Int): Int = mSeedPositions[i]
+
+    // k-mers do not cross region boundaries or non ACGT bases
+    private inline fun forEachKmer(consumer: (Int, Int) -> Unit)
+    {
+        val mask = (1 shl (2 * wordSize)) - 1
+
+        for (r in regions.indices)
+        {
+            var kmer = 0
+            var validLength = 0
+
+            for (pos in mRegionOffsets[r] until mRegionOffsets[r + 1])
+            {
+                val code = baseCode(mBases[pos])
+
+                if (code < 0)
+                {
+                    validLength = 0
+                    kmer = 0
+                    continue
+                }
+
+                kmer = ((kmer shl 2) or code) and mask
+
+                if (++validLength >= wordSize)
+                {
+                    consumer(kmer, pos - wordSize + 1)
+                }
+            }
+        }
+    }
+
+    companion object
+    {
+        private val sLogger = LogManager.getLogger(VdjRefSeqIndex::class.java)
+
+        // we add these flanking bases around the IMGT genes when extracting them from the ref genome
+        const val GENE_FLANKING_BASES = 50
+
+        fun baseCode(base: Byte): Int
+        {
+            return when (base)
+            {
+                'A'.code.toByte() -> 0
+                'C'.code.toByte() -> 1
+                'G'.code.toByte() -> 2
+                'T'.code.toByte() -> 3
+                else -> -1
+            }
+        }
+
+        // title in the same format as the blast database, such that the matches can be mapped back to genomic locations
+        fun primaryAssemblyContig(chromosome: String): String
+        {
+            return "Homo sapiens chromosome ${chromosome.removePrefix("chr")}, GRCh38.p13 ${BlastnMatch.PRIMARY_ASSEMBLY_NAME}"
+        }
+
+        fun load(refGenomeRegionsTsv: String, refGenome: RefGenomeSource?): VdjRefSeqIndex
+        {
+            val collator = RefGenomeRegionCollator()
+            collator.readFromTsv(refGenomeRegionsTsv)
+
+            val regions = ArrayList<RefGenomeRegion>()
+            collator.refGenomeRegions.values.forEach { l -> l.forEach { regionCount -> regions.add(regionCount.refGenomeRegion) } }
+
+            if (refGenome != null)
+                regions.addAll(extractGeneRegions(refGenome))
+
+            return VdjRefSeqIndex(regions)
+        }
+
+        // extract the V / D / J gene sequences in the primary assembly from the v38 ref genome
+        fun extractGeneRegions(refGenome: RefGenomeSource): List<RefGenomeRegion>
+        {
+            val regions = ArrayList<RefGenomeRegion>()
+            val addedLocations = HashSet<Triple<String, Int, Int>>()
+
+            for (gene in IgTcrGeneFile.read(CiderConstants.BLAST_REF_GENOME_VERSION))
+            {
+                if (gene.region !in arrayOf(IgTcrRegion.V_REGION, IgTcrRegion.D_REGION, IgTcrRegion.J_REGION))
+                    continue
+
+                val geneLocation = gene.geneLocation ?: continue
+
+                if (!geneLocation.inPrimaryAssembly)
+                    continue
+
+                val chrLength = refGenome.getChromosomeLength(geneLocation.chromosome)
+                val start = Math.max(geneLocation.posStart - GENE_FLANKING_BASES, 1)
+                val end = Math.min(geneLocation.posEnd + GENE_FLANKING_BASES, chrLength)
+
+                // different alleles share the same location
+                if (!addedLocations.add(Triple(geneLocation.chromosome, start, end)))
+                    continue
+
+                regions.add(RefGenomeRegion(
+                    contig = primaryAssemblyContig(geneLocation.chromosome),
+                    start = start,
+                    endExclusive = end + 1,
+                    sequence = refGenome.getBaseString(geneLocation.chromosome, start, end)))
+            }
+
+            sLogger.info("extracted {} VDJ gene regions from ref genome", regions.size)
+
+            return regions
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.hartwig.hmftools.cider.blastn
+
+import com.hartwig.hmftools.common.genome.region.Strand
+import htsjdk.samtools.util.SequenceUtil
+import org.junit.Test
+import kotlin.random.Random
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertTrue
+
+// blastn is not run in unit tests. Alignment scores are checked against an exhaustive Smith-Waterman with the blastn
+// scoring, and the expected matches are written in the same form as the parsed blastn output
+class VdjLocalAlignerTest
+{
+    // random sequence so that there are no repeats
+    private val refSeq = randomSequence(600, 1)
+
+    // covers IGHV3-23, which is on the reverse strand of chr14
+    private val refRegionStart = 106268500
+
+    private val refIndex = VdjRefSeqIndex(listOf(
+        RefGenomeRegion(VdjRefSeqIndex.primaryAssemblyContig("chr14"), refRegionStart, refRegionStart + refSeq.length, refSeq),
+        RefGenomeRegion(VdjRefSeqIndex.primaryAssemblyContig("chr7"), 1000, 1600, randomSequence(600, 2))))
+
+    @Test
+    fun testForwardMatchWithMismatch()
+    {
+        // take 150 bases, with a mismatch at query position 50
+        val querySeq = mutateBase(refSeq.substring(200, 350), 50)
+
+        val matches = VdjLocalAligner(refIndex).align(querySeq, 1.0)
+        assertEquals(1, matches.size)
+
+        val match = matches[0]
+        assertEquals(150, match.querySeqLen)
+        assertEquals(VdjRefSeqIndex.primaryAssemblyContig("chr14"), match.subjectTitle)
+        assertEquals(Strand.FORWARD, match.subjectFrame)
+        assertEquals(1, match.queryAlignStart)
+        assertEquals(150, match.queryAlignEnd)
+        assertEquals(refRegionStart + 200, match.subjectAlignStart)
+        assertEquals(refRegionStart + 349, match.subjectAlignEnd)
+        assertEquals(150, match.alignmentLength)
+        assertEquals(1, match.numMismatch)
+        assertEquals(0, match.numGapOpenings)
+        assertEquals(99.333, match.percentageIdent, 1e-6)
+        assertEquals(querySeq, match.alignedPartOfQuerySeq)
+        assertEquals(refSeq.substring(200, 350), match.alignedPartOfSubjectSeq)
+
+        // 149 matches and 1 mismatch, score of 145
+        assertEquals(VdjLocalAligner.bitScore(145), match.bitScore, 0.05)
+        assertEquals(VdjLocalAligner.expectedValue(145, 150), match.expectedValue, 1e-100)
+    }
+
+    @Test
+    fun testDeletion()
+    {
+        // remove 3 bases from the middle
+        val querySeq = refSeq.substring(200, 300) + refSeq.substring(303, 400)
+
+        val matches = VdjLocalAligner(refIndex).align(querySeq, 1.0)
+        assertEquals(1, matches.size)
+
+        val match = matches[0]
+        assertEquals(1, match.queryAlignStart)
+        assertEquals(197, match.queryAlignEnd)
+        assertEquals(refRegionStart + 200, match.subjectAlignStart)
+        assertEquals(refRegionStart + 399, match.subjectAlignEnd)
+        assertEquals(200, match.alignmentLength)
+        assertEquals(0, match.numMismatch)
+        assertEquals(1, match.numGapOpenings)
+        assertEquals(3, match.alignedPartOfQuerySeq.count { c -> c == '-' })
+
+        // 197 matches minus gap open of 5 and extend of 3 x 2
+        assertEquals(VdjLocalAligner.bitScore(186), match.bitScore, 0.05)
+    }
+
+    @Test
+    fun testReverseStrandBlastnConventions()
+    {
+        // 20 flanking bases which do not match the ref, then the reverse complement of 300 ref bases
+        val querySeq = randomSequence(20, 3) + SequenceUtil.reverseComplement(refSeq.substring(106, 406))
+
+        // expected match in blastn output conventions: 1 based coordinates, query always on the forward strand,
+        // and reverse strand matches have subject start > subject end
+        val expectedMatch = BlastnMatch(
+            querySeqLen = 320,
+            subjectTitle = "Homo sapiens chromosome 14, GRCh38.p13 Primary Assembly",
+            percentageIdent = 100.0,
+            queryCoverage = 94.0,
+            alignmentLength = 300,
+            numMismatch = 0,
+            numGapOpenings = 0,
+            queryAlignStart = 21,
+            queryAlignEnd = 320,
+            subjectAlignStart = 106268905,
+            subjectAlignEnd = 106268606,
+            subjectFrame = Strand.REVERSE,
+            expectedValue = VdjLocalAligner.expectedValue(300, 320),
+            bitScore = VdjLocalAligner.bitScore(300),
+            alignedPartOfQuerySeq = querySeq.substring(20),
+            alignedPartOfSubjectSeq = querySeq.substring(20))
+
+        val matches = VdjLocalAligner(refIndex).align(querySeq, 1.0)
+        assertTrue(matches.isNotEmpty())
+
+        val match = matches[0]
+        assertEquals(expectedMatch.querySeqLen, match.querySeqLen)
+        assertEquals(expectedMatch.subjectTitle, match.subjectTitle)
+        assertEquals(expectedMatch.percentageIdent, match.percentageIdent, 1e-6)
+        assertEquals(expectedMatch.queryCoverage, match.queryCoverage, 1e-6)
+        assertEquals(expectedMatch.alignmentLength, match.alignmentLength)
+        assertEquals(expectedMatch.numMismatch, match.numMismatch)
+        assertEquals(expectedMatch.numGapOpenings, match.numGapOpenings)
+        assertEquals(expectedMatch.queryAlignStart, match.queryAlignStart)
+        assertEquals(expectedMatch.queryAlignEnd, match.queryAlignEnd)
+        assertEquals(expectedMatch.subjectAlignStart, match.subjectAlignStart)
+        assertEquals(expectedMatch.subjectAlignEnd, match.subjectAlignEnd)
+        assertEquals(expectedMatch.subjectFrame, match.subjectFrame)
+        assertEquals(expectedMatch.alignedPartOfQuerySeq, match.alignedPartOfQuerySeq)
+        assertEquals(expectedMatch.alignedPartOfSubjectSeq, match.alignedPartOfSubjectSeq)
+        assertEquals(expectedMatch.toGenomicLocation(), match.toGenomicLocation())
+
+        // both must be annotated with the same gene
+        val blastnAnnotator = BlastnAnnotator()
+        val gene = blastnAnnotator.findGene(match)
+        assertNotNull(gene)
+        assertEquals("IGHV3-23", gene.geneName)
+        assertEquals(blastnAnnotator.findGene(expectedMatch), gene)
+    }
+
+    @Test
+    fun testMatchesExhaustiveAlignment()
+    {
+        // blastn finds the optimal local alignment for these scores, so compare against a full Smith-Waterman
+        // over every ref region and both strands, for queries with mismatches, indels and unmatched flanks
+        val random = Random(5)
+        val regionSeqs = refIndex.regions.map { r -> r.sequence }
+
+        for (q in 0 until 200)
+        {
+            val region = random.nextInt(regionSeqs.size)
+            val length = 60 + random.nextInt(140)
+            val start = random.nextInt(regionSeqs[region].length - length)
+            var querySeq = mutateSequence(regionSeqs[region].substring(start, start + length), random)
+
+            if (random.nextBoolean())
+                querySeq = randomSequence(random.nextInt(30), q) + querySeq
+
+            if (random.nextBoolean())
+                querySeq = SequenceUtil.reverseComplement(querySeq)
+
+            val expectedScore = regionSeqs.maxOf { refSeq ->
+                Math.max(exhaustiveAlignScore(querySeq, refSeq), exhaustiveAlignScore(SequenceUtil.reverseComplement(querySeq), refSeq)) }
+            val matches = VdjLocalAligner(refIndex).align(querySeq, 1.0)
+
+            if (VdjLocalAligner.expectedValue(expectedScore, querySeq.length) > 1.0)
+            {
+                // too many mutations for the best alignment to pass the expected value cut-off
+                assertTrue(matches.isEmpty())
+                continue
+            }
+
+            assertTrue(matches.isNotEmpty())
+
+            val match = matches[0]
+            assertEquals(VdjLocalAligner.bitScore(expectedScore), match.bitScore, 0.05)
+            assertEquals(expectedScore, alignmentScore(match.alignedPartOfQuerySeq, match.alignedPartOfSubjectSeq))
+
+            // as in blastn output the aligned query is on the forward strand for both frames
+            assertEquals(querySeq.substring(match.queryAlignStart - 1, match.queryAlignEnd), match.alignedPartOfQuerySeq.replace("-", ""))
+        }
+    }
+
+    @Test
+    fun testNoMatch()
+    {
+        val matches = VdjLocalAligner(refIndex).align(randomSequence(100, 4), 1.0)
+        assertTrue(matches.isEmpty())
+    }
+
+    @Test
+    fun testRunnerMultipleThreads()
+    {
+        val querySeqs = HashMap<Int, String>()
+
+        for (i in 0 until 20)
+        {
+            querySeqs[i] = refSeq.substring(i * 10, i * 10 + 100)
+        }
+
+        val results = LocalAlignmentRunner.runAlignment(refIndex, querySeqs, 4)
+
+        for (i in 0 until 20)
+        {
+            val matches = results[i]
+            assertEquals(1, matches.size)
+            assertEquals(refRegionStart + i * 10, matches.first().subjectAlignStart)
+        }
+    }
+
+    companion object
+    {
+        fun randomSequence(length: Int, seed: Int): String
+        {
+            val random = Random(seed)
+            return String(CharArray(length) { "ACGT"[random.nextInt(4)] })
+        }
+
+        // roughly 3% mismatches and an indel of 1 to 3 bases every 60 bases
+        fun mutateSequence(seq: String, random: Random): String
+        {
+            val sb = StringBuilder()
+            var i = 0
+
+            while (i < seq.length)
+            {
+                val r = random.nextInt(60)
+
+                if (r == 0)
+                {
+                    // deletion
+                    i += 1 + random.nextInt(3)
+                    continue
+                }
+
+                if (r == 1)
+                {
+                    // insertion
+                    sb.append(randomSequence(1 + random.nextInt(3), random.nextInt()))
+                }
+
+                sb.append(if (random.nextInt(33) == 0) (if (seq[i] == 'A') 'C' else 'A') else seq[i])
+                ++i
+            }
+
+            return sb.toString()
+        }
+
+        // score of the alignment using the blastn scoring
+        fun alignmentScore(alignedQuery: String, alignedRef: String): Int
+        {
+            var score = 0
+
+            for (k in alignedQuery.indices)
+            {
+                val q = alignedQuery[k]
+                val r = alignedRef[k]
+
+                score += if (q == '-' || r == '-')
+                {
+                    val gapOpen = k == 0 || (q == '-' && alignedQuery[k - 1] != '-') || (r == '-' && alignedRef[k - 1] != '-')
+                    BlastnRunner.GAP_EXTEND_SCORE + if (gapOpen) BlastnRunner.GAP_OPENING_SCORE else 0
+                }
+                else if (q == r) BlastnRunner.MATCH_SCORE else BlastnRunner.MISMATCH_SCORE
+            }
+
+            return score
+        }
+
+        // unbanded Smith-Waterman with affine gaps, returns the best local alignment score
+        fun exhaustiveAlignScore(query: String, ref: String): Int
+        {
+            val gapOpen = -(BlastnRunner.GAP_OPENING_SCORE + BlastnRunner.GAP_EXTEND_SCORE)
+            val gapExtend = -BlastnRunner.GAP_EXTEND_SCORE
+            val negInf = Int.MIN_VALUE / 2
+
+            var prevH = IntArray(ref.length + 1)
+            var prevF = IntArray(ref.length + 1) { negInf }
+            var bestScore = 0
+
+            for (i in 1..query.length)
+            {
+                val h = IntArray(ref.length + 1)
+                val f = IntArray(ref.length + 1) { negInf }
+                var e = negInf
+
+                for (j in 1..ref.length)
+                {
+                    e = Math.max(e - gapExtend, h[j - 1] - gapOpen)
+                    f[j] = Math.max(prevF[j] - gapExtend, prevH[j] - gapOpen)
+                    val diag = prevH[j - 1] + if (query[i - 1] == ref[j - 1]) BlastnRunner.MATCH_SCORE else BlastnRunner.MISMATCH_SCORE
+                    h[j] = maxOf(0, diag, e, f[j])
+                    bestScore = Math.max(bestScore, h[j])
+                }
+
+                prevH = h
+                prevF = f
+            }
+
+            return bestScore
+        }
+
+        fun mutateBase(seq: String, index: Int): String
+        {
+            val base = seq[index]
+            val newBase = if (base == 'A') 'C' else 'A'
+            return seq.substring(0, index) + newBase + seq.substring(index + 1)
+        }
+    }
+}
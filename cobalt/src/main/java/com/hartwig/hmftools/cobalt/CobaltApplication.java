@@ -4,29 +4,24 @@ import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 import static com.hartwig.hmftools.cobalt.CobaltConfig.registerConfig;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.APP_NAME;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.WINDOW_SIZE;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.rowToCobaltRatio;
 import static com.hartwig.hmftools.cobalt.RatioSegmentation.applyRatioSegmentation;
+import static com.hartwig.hmftools.cobalt.diploid.DiploidRegionLoader.loadDiploidRegions;
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
-import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
 import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
-import java.util.stream.Collectors;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.cobalt.count.BamReadCounter;
-import com.hartwig.hmftools.cobalt.diploid.DiploidRegionLoader;
+import com.hartwig.hmftools.cobalt.ratio.RatioResults;
 import com.hartwig.hmftools.cobalt.ratio.RatioSupplier;
+import com.hartwig.hmftools.cobalt.targeted.TargetRegionEnrichment;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
-import com.hartwig.hmftools.common.genome.gc.GCProfile;
 import com.hartwig.hmftools.common.genome.gc.GCProfileFactory;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
@@ -35,8 +30,6 @@ import org.jetbrains.annotations.NotNull;
 
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.cram.ref.ReferenceSource;
-import tech.tablesaw.api.*;
-import tech.tablesaw.io.csv.CsvReadOptions;
 
 public class CobaltApplication
 {
@@ -81,38 +74,29 @@ public class CobaltApplication
         {
             final SamReaderFactory readerFactory = readerFactory(mConfig);
 
-            ChromosomePositionCodec chromosomePosCodec = new ChromosomePositionCodec();
-
-            final BamReadCounter bamReadCounter = new BamReadCounter(WINDOW_SIZE, mConfig, executorService, readerFactory, chromosomePosCodec);
+            final BamReadCounter bamReadCounter = new BamReadCounter(WINDOW_SIZE, mConfig, executorService, readerFactory);
 
             bamReadCounter.generateDepths(mConfig.ReferenceBamPath, mConfig.TumorBamPath);
 
-            Table referenceReadDepths = bamReadCounter.getReferenceDepths();
-            Table tumorReadDepths = bamReadCounter.getTumorDepths();
+            final WindowGrid windowGrid = bamReadCounter.getWindowGrid();
 
-            final Table gcProfiles = loadGCContent(chromosomePosCodec);
+            loadGCContent(windowGrid);
 
             final RatioSupplier ratioSupplier = new RatioSupplier(mConfig.ReferenceId, mConfig.TumorId, mConfig.OutputDir,
-                    gcProfiles, referenceReadDepths, tumorReadDepths,
-                    chromosomePosCodec);
+                    windowGrid, bamReadCounter.getReferenceDepths(), bamReadCounter.getTumorDepths());
 
             if(mConfig.TargetRegionPath != null)
             {
-                CsvReadOptions options = CsvReadOptions.builder(mConfig.TargetRegionPath)
-                        .separator(TSV_DELIM.charAt(0))
-                        .columnTypesPartial(Map.of("chromosome", ColumnType.STRING)).build();
-                Table targetRegionEnrichment = Table.read().usingOptions(options);
-                chromosomePosCodec.addEncodedChrPosColumn(targetRegionEnrichment, true);
-                ratioSupplier.setTargetRegionEnrichment(targetRegionEnrichment);
+                ratioSupplier.setTargetRegionEnrichment(TargetRegionEnrichment.fromTsv(mConfig.TargetRegionPath, windowGrid));
             }
 
-            Table ratios;
+            RatioResults ratios;
 
             switch(mConfig.mode())
             {
                 case TUMOR_ONLY:
-                    final Table diploidRegions = new DiploidRegionLoader(mConfig.TumorOnlyDiploidBed, chromosomePosCodec).build();
-                    ratios = ratioSupplier.tumorOnly(diploidRegions);
+                    loadDiploidRegions(mConfig.TumorOnlyDiploidBed, windowGrid);
+                    ratios = ratioSupplier.tumorOnly();
                     break;
                 case GERMLIHE_ONLY:
                     ratios = ratioSupplier.germlineOnly();
@@ -126,8 +110,7 @@ public class CobaltApplication
 
             CB_LOGGER.info("persisting cobalt ratios to {}", outputFilename);
 
-
-            CobaltRatioFile.write(outputFilename, ratios.stream().map(r -> rowToCobaltRatio(r, chromosomePosCodec)).collect(Collectors.toList()));
+            ratios.write(outputFilename);
 
             applyRatioSegmentation(executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
 
@@ -160,33 +143,8 @@ public class CobaltApplication
         return readerFactory;
     }
 
-    public Table loadGCContent(ChromosomePositionCodec chromosomePosCodec) throws IOException
+    public void loadGCContent(final WindowGrid windowGrid) throws IOException
     {
-        Table gcProfileTable = Table.create("gcProfiles",
-                LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
-
-        Collection<GCProfile> gcProfileList = GCProfileFactory.loadGCContent(WINDOW_SIZE, mConfig.GcProfilePath).values();
-
-        for(GCProfile gcProfile : gcProfileList)
-        {
-            Row row = gcProfileTable.appendRow();
-            long chrPosIndex = chromosomePosCodec.encodeChromosomePosition(gcProfile.chromosome(), gcProfile.start());
-            if (chrPosIndex > 0)
-            {
-                row.setLong(CobaltColumns.ENCODED_CHROMOSOME_POS, chrPosIndex);
-            }
-            else
-            {
-                throw new RuntimeException("Unknown chromosome: " + gcProfile.chromosome());
-            }
-            row.setDouble(CobaltColumns.GC_CONTENT, gcProfile.gcContent());
-            row.setBoolean(CobaltColumns.IS_MAPPABLE, gcProfile.isMappable());
-            row.setBoolean(CobaltColumns.IS_AUTOSOME, HumanChromosome.fromString(gcProfile.chromosome()).isAutosome());
-        }
-
-        return gcProfileTable;
+        windowGrid.loadGcProfiles(GCProfileFactory.loadGCContent(WINDOW_SIZE, mConfig.GcProfilePath).values());
     }
 }
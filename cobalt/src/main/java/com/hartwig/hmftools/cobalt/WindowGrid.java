@@ -0,0 +1,150 @@
+package com.hartwig.hmftools.cobalt;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.gc.GCProfile;
+
+// the genome's windows laid out chromosome by chromosome in genome order, so that each per-window value can be held in a
+// primitive column indexed by window, and stages line up their columns by index rather than joining on chromosome and position
+public class WindowGrid
+{
+    // window flags
+    public static final byte MAPPABLE = 0x01;
+    public static final byte DIPLOID_REGION = 0x02;
+
+    public final int WindowSize;
+
+    // GC profile content, NaN where the profile has no entry for the window
+    public final double[] GcContent;
+    public final byte[] Flags;
+
+    private final String[] mChromosomes;
+    private final HumanChromosome[] mHumanChromosomes;
+    private final int[] mChromosomeOffsets; // first window of each chromosome, with the total window count at the end
+    private final Map<String,Integer> mChromosomeIndex;
+
+    public WindowGrid(final Collection<Chromosome> chromosomes, int windowSize)
+    {
+        WindowSize = windowSize;
+
+        List<Chromosome> sorted = new ArrayList<>(chromosomes);
+        sorted.sort(Comparator.comparingInt(x -> HumanChromosome.fromString(x.contig).ordinal()));
+
+        mChromosomes = new String[sorted.size()];
+        mHumanChromosomes = new HumanChromosome[sorted.size()];
+        mChromosomeOffsets = new int[sorted.size() + 1];
+        mChromosomeIndex = Maps.newHashMap();
+
+        for(int c = 0; c < sorted.size(); ++c)
+        {
+            Chromosome chromosome = sorted.get(c);
+            mChromosomes[c] = chromosome.contig;
+            mHumanChromosomes[c] = HumanChromosome.fromString(chromosome.contig);
+            mChromosomeIndex.put(chromosome.contig, c);
+
+            // the partial window at the end of the chromosome is omitted, as when counting read depth
+            mChromosomeOffsets[c + 1] = mChromosomeOffsets[c] + chromosome.length / windowSize;
+        }
+
+        GcContent = new double[windowCount()];
+        Arrays.fill(GcContent, Double.NaN);
+        Flags = new byte[windowCount()];
+    }
+
+    public int windowCount() { return mChromosomeOffsets[mChromosomes.length]; }
+
+    public int chromosomeCount() { return mChromosomes.length; }
+    public String chromosome(int chrIndex) { return mChromosomes[chrIndex]; }
+    public boolean isAutosome(int chrIndex) { return mHumanChromosomes[chrIndex].isAutosome(); }
+    public boolean isChromosome(int chrIndex, final HumanChromosome chromosome) { return mHumanChromosomes[chrIndex] == chromosome; }
+
+    public int chromosomeStart(int chrIndex) { return mChromosomeOffsets[chrIndex]; }
+    public int chromosomeEnd(int chrIndex) { return mChromosomeOffsets[chrIndex + 1]; }
+
+    public int position(int chrIndex, int windowIndex) { return (windowIndex - mChromosomeOffsets[chrIndex]) * WindowSize + 1; }
+
+    // returns -1 for a chromosome not in the genome, and fails on a name which differs from the BAM's for the same chromosome
+    public int chromosomeIndex(final String chromosome)
+    {
+        Integer chrIndex = mChromosomeIndex.get(chromosome);
+
+        if(chrIndex != null)
+            return chrIndex;
+
+        if(!HumanChromosome.contains(chromosome))
+            return -1;
+
+        HumanChromosome humanChromosome = HumanChromosome.fromString(chromosome);
+
+        for(int c = 0; c < mChromosomes.length; ++c)
+        {
+            if(mHumanChromosomes[c] == humanChromosome)
+            {
+                CB_LOGGER.fatal("inconsistent chromosome name: {} and {}", mChromosomes[c], chromosome);
+                throw new RuntimeException("inconsistent chromosome name");
+            }
+        }
+
+        return -1;
+    }
+
+    // returns -1 unless the position is the start of one of the chromosome's windows
+    public int windowIndex(int chrIndex, int position)
+    {
+        if(chrIndex < 0 || (position - 1) % WindowSize != 0)
+            return -1;
+
+        int windowIndex = mChromosomeOffsets[chrIndex] + (position - 1) / WindowSize;
+        return position >= 1 && windowIndex < mChromosomeOffsets[chrIndex + 1] ? windowIndex : -1;
+    }
+
+    public int windowIndex(final String chromosome, int position) { return windowIndex(chromosomeIndex(chromosome), position); }
+
+    public int windowChromosome(int windowIndex)
+    {
+        int chrIndex = Arrays.binarySearch(mChromosomeOffsets, windowIndex);
+
+        if(chrIndex < 0)
+            return -chrIndex - 2;
+
+        // skip past any chromosomes too short to have a window
+        while(mChromosomeOffsets[chrIndex + 1] == windowIndex)
+        {
+            ++chrIndex;
+        }
+
+        return chrIndex;
+    }
+
+    public boolean hasFlag(int windowIndex, byte flag) { return (Flags[windowIndex] & flag) != 0; }
+    public void setFlag(int windowIndex, byte flag) { Flags[windowIndex] |= flag; }
+
+    public void loadGcProfiles(final Collection<GCProfile> gcProfiles)
+    {
+        for(GCProfile gcProfile : gcProfiles)
+        {
+            int windowIndex = windowIndex(gcProfile.chromosome(), gcProfile.start());
+
+            if(windowIndex < 0)
+                continue;
+
+            GcContent[windowIndex] = gcProfile.gcContent();
+
+            if(gcProfile.isMappable())
+                setFlag(windowIndex, MAPPABLE);
+        }
+    }
+
+    public String toString() { return format("chromosomes(%d) windows(%d)", mChromosomes.length, windowCount()); }
+}
@@ -10,15 +10,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import com.hartwig.hmftools.cobalt.Chromosome;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.cobalt.CobaltConfig;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.bam.BamSlicer;
@@ -32,15 +30,17 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
-import tech.tablesaw.api.*;
 
 public class BamReadCounter
 {
     private final int mMinMappingQuality;
     private final boolean mIncludeDuplicates;
 
-    private Table mReferenceDepths = null;
-    private Table mTumorDepths = null;
+    private final int mWindowSize;
+
+    private WindowGrid mWindowGrid = null;
+    private WindowDepths mReferenceDepths = null;
+    private WindowDepths mTumorDepths = null;
 
     private final ExecutorService mExecutorService;
     private final SamReaderFactory mReaderFactory;
@@ -50,21 +50,19 @@ public class BamReadCounter
     private final ReadDepthAccumulator mRefReadDepthAccumulator;
     private final ReadDepthAccumulator mTumorReadDepthAccumulator;
 
-    private final ChromosomePositionCodec mChromosomePosCodec;
-
-    public Table getReferenceDepths() { return mReferenceDepths; }
-    public Table getTumorDepths() { return mTumorDepths; }
+    public WindowGrid getWindowGrid() { return mWindowGrid; }
+    public WindowDepths getReferenceDepths() { return mReferenceDepths; }
+    public WindowDepths getTumorDepths() { return mTumorDepths; }
 
     public BamReadCounter(
             final int windowSize, final CobaltConfig config,
-            final ExecutorService executorService, final SamReaderFactory readerFactory,
-            final ChromosomePositionCodec chromosomePosCodec)
+            final ExecutorService executorService, final SamReaderFactory readerFactory)
     {
+        mWindowSize = windowSize;
         mMinMappingQuality = config.MinMappingQuality;
         mIncludeDuplicates = config.IncludeDuplicates;
         mExecutorService = executorService;
         mReaderFactory = readerFactory;
-        mChromosomePosCodec = chromosomePosCodec;
         mRefReadDepthAccumulator = new ReadDepthAccumulator(windowSize);
         mTumorReadDepthAccumulator = new ReadDepthAccumulator(windowSize);
     }
@@ -80,6 +78,7 @@ public class BamReadCounter
         }
 
         mChromosomes = loadChromosomes(mReaderFactory, referenceBam, tumorBam);
+        mWindowGrid = new WindowGrid(mChromosomes, mWindowSize);
 
         List<Future<?>> tasks = new ArrayList<>();
         List<SamReader> samReaders = Collections.synchronizedList(new ArrayList<>());
@@ -206,31 +205,16 @@ public class BamReadCounter
         readDepthAccumulator.addReadAlignmentToCounts(region.Chromosome, genomeStart, length, readBases, readStartIndex);
     }
 
-    private Table generateDepths(ReadDepthAccumulator readDepthAccumulator)
+    private WindowDepths generateDepths(ReadDepthAccumulator readDepthAccumulator)
     {
-        final Table readDepthTable = Table.create("readDepths",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
+        WindowDepths readDepths = new WindowDepths(mWindowGrid.windowCount());
 
-        for (Chromosome chromosome : mChromosomes)
+        for(int chrIndex = 0; chrIndex < mWindowGrid.chromosomeCount(); ++chrIndex)
         {
-            List<ReadDepth> readDepths = readDepthAccumulator.getChromosomeReadDepths(chromosome.contig);
-            Objects.requireNonNull(readDepths);
-            for (ReadDepth readDepth : readDepths)
-            {
-                Row row = readDepthTable.appendRow();
-                row.setString(CobaltColumns.CHROMOSOME, chromosome.contig);
-                row.setInt(CobaltColumns.POSITION, readDepth.StartPosition);
-                row.setDouble(CobaltColumns.READ_DEPTH, readDepth.ReadDepth);
-                row.setDouble(CobaltColumns.READ_GC_CONTENT, readDepth.ReadGcContent);
-            }
+            readDepthAccumulator.populateReadDepths(mWindowGrid.chromosome(chrIndex), readDepths, mWindowGrid.chromosomeStart(chrIndex));
         }
 
-        mChromosomePosCodec.addEncodedChrPosColumn(readDepthTable, false);
-
-        return readDepthTable;
+        return readDepths;
     }
 
     private Collection<Chromosome> loadChromosomes(final SamReaderFactory readerFactory,
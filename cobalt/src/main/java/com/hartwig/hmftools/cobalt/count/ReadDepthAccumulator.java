@@ -3,14 +3,11 @@ package com.hartwig.hmftools.cobalt.count;
 import static htsjdk.samtools.util.SequenceUtil.C;
 import static htsjdk.samtools.util.SequenceUtil.G;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.apache.commons.lang3.Validate;
-import org.jetbrains.annotations.NotNull;
 
 // ReadDepthAccumulator accumulate read alignment blocks and calculate read depth per
 // 1000 base windows.
@@ -67,28 +64,23 @@ public class ReadDepthAccumulator
         mChromosomeWindowCounts.put(chromosome, new ChromosomeWindowCounts(chromosome, numWindows));
     }
 
-    @NotNull
-    public List<ReadDepth> getChromosomeReadDepths(String chromosome)
+    // sets the chromosome's window read depths into the columns, from its first window onwards
+    public void populateReadDepths(final String chromosome, final WindowDepths readDepths, int startWindowIndex)
     {
         ChromosomeWindowCounts windowCounts = mChromosomeWindowCounts.get(chromosome);
 
         if(windowCounts == null)
         {
             // not a chromosome we keep track of
-            return List.of();
+            return;
         }
 
-        List<ReadDepth> readDepths = new ArrayList<>();
-
         for(int windowIndex = 0; windowIndex < windowCounts.windowReadBaseCounts.length(); ++windowIndex)
         {
             double basesCount = windowCounts.getCount(windowIndex);
-            double depth = basesCount / mWindowSize;
-            double gcContent = windowCounts.getGcCount(windowIndex) / basesCount;
-            readDepths.add(new ReadDepth(chromosome, getGenomePosition(windowIndex), depth, gcContent));
+            readDepths.ReadDepth[startWindowIndex + windowIndex] = basesCount / mWindowSize;
+            readDepths.ReadGcContent[startWindowIndex + windowIndex] = windowCounts.getGcCount(windowIndex) / basesCount;
         }
-
-        return readDepths;
     }
 
     // Add a read alignment to the base counts
@@ -0,0 +1,14 @@
+package com.hartwig.hmftools.cobalt.count;
+
+// a sample's read depth and read GC content for each window of the window grid
+public class WindowDepths
+{
+    public final double[] ReadDepth;
+    public final double[] ReadGcContent;
+
+    public WindowDepths(int windowCount)
+    {
+        ReadDepth = new double[windowCount];
+        ReadGcContent = new double[windowCount];
+    }
+}
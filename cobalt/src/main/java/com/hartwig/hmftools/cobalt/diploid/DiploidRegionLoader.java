@@ -7,12 +7,10 @@ import static htsjdk.tribble.AbstractFeatureReader.getFeatureReader;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
 
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -22,28 +20,20 @@ import htsjdk.tribble.bed.BEDCodec;
 import htsjdk.tribble.bed.BEDFeature;
 import htsjdk.tribble.readers.LineIterator;
 
-import tech.tablesaw.api.*;
-
+// marks the grid windows starting in the diploid regions
 public class DiploidRegionLoader implements Consumer<Locatable>
 {
-    private final Table mResult = Table.create(
-            StringColumn.create(CobaltColumns.CHROMOSOME), IntColumn.create(CobaltColumns.POSITION));
-    private final Table mContigResult = mResult.emptyCopy();
-
-    private final ChromosomePositionCodec mChromosomePosCodec;
-
-    private String mChromosome = null;
-    private int mStart = 0;
+    private final WindowGrid mWindowGrid;
+    private int mWindowCount = 0;
 
-    public DiploidRegionLoader(ChromosomePositionCodec chromosomePosCodec)
+    public DiploidRegionLoader(final WindowGrid windowGrid)
     {
-        mChromosomePosCodec = chromosomePosCodec;
+        mWindowGrid = windowGrid;
     }
 
-    public DiploidRegionLoader(final String diploidBedPath,
-            ChromosomePositionCodec chromosomePosCodec) throws IOException
+    public static void loadDiploidRegions(final String diploidBedPath, final WindowGrid windowGrid) throws IOException
     {
-        this(chromosomePosCodec);
+        DiploidRegionLoader loader = new DiploidRegionLoader(windowGrid);
         List<BEDFeature> bedFeatures = new ArrayList<>();
 
         CB_LOGGER.info("Reading diploid regions from {}", diploidBedPath);
@@ -57,50 +47,26 @@ public class DiploidRegionLoader implements Consumer<Locatable>
             }
         }
 
-        bedFeatures.forEach(this);
+        bedFeatures.forEach(loader);
+
+        CB_LOGGER.debug("marked {} diploid region windows", loader.mWindowCount);
     }
 
     @Override
     public void accept(@NotNull Locatable bed)
     {
-        if(mChromosome == null || !bed.getContig().equals(mChromosome))
-        {
-            finaliseCurrent();
-            mChromosome = bed.getContig();
-            mStart = 1;
-        }
-
-        createRatio(bed.getContig(), bed.getStart(), bed.getEnd());
-        mStart = bed.getEnd() + 1;
-    }
+        int chrIndex = mWindowGrid.chromosomeIndex(bed.getContig());
 
-    private void createRatio(String contig, int start, int end)
-    {
-        int position = start;
-        while(position < end)
+        // positions which are not at the start of a window are not used
+        for(int position = bed.getStart(); position < bed.getEnd(); position += WINDOW_SIZE)
         {
-            Row row = mContigResult.appendRow();
-            row.setString(CobaltColumns.CHROMOSOME, contig);
-            row.setInt(CobaltColumns.POSITION, position);
-            position += WINDOW_SIZE;
-        }
-    }
+            int windowIndex = mWindowGrid.windowIndex(chrIndex, position);
 
-    private void finaliseCurrent()
-    {
-        if(mChromosome != null && mStart > 0)
-        {
-            mResult.append(mContigResult);
+            if(windowIndex >= 0 && !mWindowGrid.hasFlag(windowIndex, WindowGrid.DIPLOID_REGION))
+            {
+                mWindowGrid.setFlag(windowIndex, WindowGrid.DIPLOID_REGION);
+                ++mWindowCount;
+            }
         }
-
-        mContigResult.clear();
-    }
-
-    @NotNull
-    public Table build()
-    {
-        finaliseCurrent();
-        mChromosomePosCodec.addEncodedChrPosColumn(mResult, false);
-        return mResult;
     }
 }
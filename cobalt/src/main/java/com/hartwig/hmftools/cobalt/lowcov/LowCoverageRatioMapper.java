@@ -1,200 +1,136 @@
 package com.hartwig.hmftools.cobalt.lowcov;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.ratio.RatioMapper.hasRatio;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Comparators;
 import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.stat.StatUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapper implements RatioMapper
 {
-    private static final String BUCKET_ID_COLUMN = "lowCovBucketId";
-
-    private int mConsolidationCount = 0;
-    private @Nullable Multimap<String, LowCovBucket> mConsolidateBoundaries;
-
-    private final ChromosomePositionCodec mChromosomePositionCodec;
-
-
-    public LowCoverageRatioMapper(int consolidationCount, final ChromosomePositionCodec chromosomePosCodec)
-    {
-        mConsolidationCount = consolidationCount;
-        mChromosomePositionCodec = chromosomePosCodec;
-    }
+    private final Multimap<String, LowCovBucket> mConsolidateBoundaries;
+    private final WindowGrid mWindowGrid;
 
     public LowCoverageRatioMapper(
             final @NotNull Multimap<String, LowCovBucket> consolidateBoundaries,
-            final @NotNull ChromosomePositionCodec chromosomePosCodec)
+            final @NotNull WindowGrid windowGrid)
     {
         mConsolidateBoundaries = consolidateBoundaries;
-        mChromosomePositionCodec = chromosomePosCodec;
+        mWindowGrid = windowGrid;
     }
 
-    // we use on target ratios only for now
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public double[] mapRatios(final double[] inputRatios)
     {
-        if(mConsolidateBoundaries == null)
-        {
-            Validate.isTrue(mConsolidationCount > 1);
-            mConsolidateBoundaries = consolidateIntoBuckets(inputRatios, mConsolidationCount);
-        }
-
-        Objects.requireNonNull(mConsolidateBoundaries);
         CB_LOGGER.info("using {} sparse consolidated buckets, from {} input ratios",
-                mConsolidateBoundaries.size(), inputRatios.rowCount());
+                mConsolidateBoundaries.size(), Arrays.stream(inputRatios).filter(RatioMapper::hasRatio).count());
 
-        return populateLowCoverageRatio(inputRatios, mConsolidateBoundaries);
+        return populateLowCoverageRatio(inputRatios);
     }
 
     // we create a pan window ratio by taking the mean count of super windows that combine multiple windows
-    @SuppressWarnings("UnstableApiUsage")
-    private Table populateLowCoverageRatio(final Table rawRatios, Multimap<String, LowCovBucket> consolidateBoundaries)
+    private double[] populateLowCoverageRatio(final double[] rawRatios)
     {
-        // make sure the ratios chromosome code are sorted
-        Validate.isTrue(Comparators.isInStrictOrder(rawRatios.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).asList(),
-                Comparator.naturalOrder()));
-
-        String chromosome = "";
-        Iterator<LowCovBucket> bucketItr = null;
-        LowCovBucket bucket = null;
-        int bucketId = 0;
-
-        IntColumn bucketIdCol = IntColumn.create(BUCKET_ID_COLUMN, rawRatios.rowCount());
-
-        // also create a table of the bucket themselves
-        Table bucketTable = Table.create(
-                IntColumn.create(BUCKET_ID_COLUMN),
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                BooleanColumn.create("isAutosome"));
-
-        // first step we give each row a lowCovBucketId
-        for (int i = 0; i < rawRatios.rowCount(); ++i)
-        {
-            Row row = rawRatios.row(i);
-            long encodedChrPos = row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS);
-            String rowChr = mChromosomePositionCodec.decodeChromosome(encodedChrPos);
-            int pos = mChromosomePositionCodec.decodePosition(encodedChrPos);
+        // each bucket's ratio is set at its bucket position, all other windows are dropped
+        double[] lowCovRatios = new double[rawRatios.length];
+        Arrays.fill(lowCovRatios, Double.NaN);
 
-            if(rowChr.isEmpty())
-            {
-                CB_LOGGER.error("chr is empty, row: {}", row);
-                throw new RuntimeException();
-            }
+        int maxChromosomeWindows = 0;
 
-            if(!chromosome.equals(rowChr))
-            {
-                // move to next chromosome
-                chromosome = rowChr;
-                bucketItr = consolidateBoundaries.get(chromosome).iterator();
+        for(int chrIndex = 0; chrIndex < mWindowGrid.chromosomeCount(); ++chrIndex)
+        {
+            maxChromosomeWindows = Math.max(maxChromosomeWindows, mWindowGrid.chromosomeEnd(chrIndex) - mWindowGrid.chromosomeStart(chrIndex));
+        }
 
-                if(!bucketItr.hasNext())
-                {
-                    CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
-                    bucket = null;
-                    assert false;
-                    continue;
-                }
+        // the bucket's windows are consecutive, so its ratios are gathered until moving to the next bucket
+        double[] bucketRatios = new double[maxChromosomeWindows];
 
-                bucket = bucketItr.next();
-                ++bucketId;
-                Row bucketRow = bucketTable.appendRow();
-                bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-            }
+        for(int chrIndex = 0; chrIndex < mWindowGrid.chromosomeCount(); ++chrIndex)
+        {
+            String chromosome = mWindowGrid.chromosome(chrIndex);
+            Iterator<LowCovBucket> bucketItr = null;
+            LowCovBucket bucket = null;
+            int bucketRatioCount = 0;
 
-            if(bucket == null)
+            for(int windowIndex = mWindowGrid.chromosomeStart(chrIndex); windowIndex < mWindowGrid.chromosomeEnd(chrIndex); ++windowIndex)
             {
-                // no bucket for whole chromosome, or we already finished last bucket
-                continue;
-            }
+                double ratio = rawRatios[windowIndex];
 
-            if(row.getDouble(CobaltColumns.RATIO) >= 0)
-            {
-                if(pos > bucket.EndPosition)
+                if(!hasRatio(ratio))
+                    continue;
+
+                if(bucketItr == null)
                 {
-                    if(bucketItr.hasNext())
-                    {
-                        // move to next bucket
-                        bucket = bucketItr.next();
-                        ++bucketId;
-                        Row bucketRow = bucketTable.appendRow();
-                        bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                        bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                        bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                        bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-                    }
-                    else
+                    // first window of the chromosome
+                    bucketItr = mConsolidateBoundaries.get(chromosome).iterator();
+
+                    if(!bucketItr.hasNext())
                     {
-                        // no more bucket for this chromosome. Setting bucket to null will let us skip through
-                        // the rest of the chromosome
-                        bucket = null;
-                        continue;
+                        CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
+                        break;
                     }
+
+                    bucket = bucketItr.next();
                 }
 
-                // we do not assign bucket id for rows that have negative ratio, we do not want them
-                // to be in the summarize call
-                bucketIdCol.set(i, bucketId);
-            }
-        }
+                // windows with negative ratio are not assigned a bucket, we do not want them in the mean
+                if(ratio < 0)
+                    continue;
 
-        // now we assign a bucket id per row, we can do with it
-        rawRatios.addColumns(bucketIdCol);
+                if(mWindowGrid.position(chrIndex, windowIndex) > bucket.EndPosition)
+                {
+                    setBucketRatio(lowCovRatios, chrIndex, bucket, bucketRatios, bucketRatioCount);
+                    bucketRatioCount = 0;
 
-        //
-        Table lowCovRatio = rawRatios.summarize(
-                CobaltColumns.RATIO,
-                CobaltColumns.GC_CONTENT,
-                AggregateFunctions.mean).by(BUCKET_ID_COLUMN);
+                    if(!bucketItr.hasNext())
+                    {
+                        // no more bucket for this chromosome, skip through the rest of it
+                        bucket = null;
+                        break;
+                    }
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
+                    // move to next bucket
+                    bucket = bucketItr.next();
+                }
 
-        //
-        // lowCovBucketId  |   Mean [gcContent]    |  Mean [bucketEncodedChrPos]  |      Mean [ratio]
-        // fix up the column names
-        lowCovRatio.column("Mean [gcContent]").setName(CobaltColumns.GC_CONTENT);
-        lowCovRatio.column("Mean [ratio]").setName(CobaltColumns.RATIO);
+                bucketRatios[bucketRatioCount++] = ratio;
+            }
 
-        // add is mappable column, we are not sure if this is needed yet. But if we want to pass
-        // consolidated ratios to gc normalisation this is needed.
-        lowCovRatio.addColumns(BooleanColumn.create(CobaltColumns.IS_MAPPABLE,
-                Collections.nCopies(lowCovRatio.rowCount(), true)));
+            if(bucket != null)
+                setBucketRatio(lowCovRatios, chrIndex, bucket, bucketRatios, bucketRatioCount);
+        }
 
-        // merge in the bucket, this is required to get the bucket position
-        lowCovRatio = lowCovRatio.joinOn(BUCKET_ID_COLUMN).inner(bucketTable);
+        return lowCovRatios;
+    }
 
-        // add the encoded chromosome pos columns
-        mChromosomePositionCodec.addEncodedChrPosColumn(lowCovRatio, false);
+    private void setBucketRatio(
+            final double[] lowCovRatios, int chrIndex, final LowCovBucket bucket, final double[] bucketRatios, int bucketRatioCount)
+    {
+        if(bucketRatioCount == 0)
+            return;
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
+        int windowIndex = mWindowGrid.windowIndex(chrIndex, bucket.BucketPosition);
 
-        return lowCovRatio;
+        if(windowIndex >= 0)
+            lowCovRatios[windowIndex] = StatUtils.mean(bucketRatios, 0, bucketRatioCount);
     }
 
     @Nullable
-    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(final Table rawRatios, final double medianReadDepth)
+    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(
+            final WindowGrid windowGrid, final double[] rawRatios, final double medianReadDepth)
     {
         int consolidationCount = calcConsolidationCount(medianReadDepth);
 
@@ -207,26 +143,48 @@ public class LowCoverageRatioMapper implements RatioMapper
         CB_LOGGER.info("median read depth: {}, sparse consolidation count: {}",
                 medianReadDepth, consolidationCount);
 
-        return consolidateIntoBuckets(rawRatios, consolidationCount);
+        return consolidateIntoBuckets(windowGrid, rawRatios, consolidationCount);
     }
 
     // given the consolidation count, which is the number of 1k window we want in each bucket, we go through the windows and
     // and find the ranges of the consolidated buckets. We do this to skip through windows with invalid ratios.
     @Nullable
-    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(final Table rawRatios, final int consolidationCount)
+    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(
+            final WindowGrid windowGrid, final double[] rawRatios, final int consolidationCount)
     {
         if(consolidationCount == 1)
             return null;
 
         ArrayListMultimap<String, LowCovBucket> boundaries = ArrayListMultimap.create();
 
-        for (String chromosome : rawRatios.stringColumn(CobaltColumns.CHROMOSOME).unique())
+        for(int chrIndex = 0; chrIndex < windowGrid.chromosomeCount(); ++chrIndex)
         {
-            List<Integer> nonMaskedPositions = rawRatios.where(
-                    rawRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chromosome)
-                    .and(rawRatios.doubleColumn(CobaltColumns.RATIO).isNonNegative()))
-                    .intColumn(CobaltColumns.POSITION).asList();
+            int chrStart = windowGrid.chromosomeStart(chrIndex);
+            int chrEnd = windowGrid.chromosomeEnd(chrIndex);
+            boolean hasRatios = false;
+            int nonMaskedCount = 0;
+
+            for(int windowIndex = chrStart; windowIndex < chrEnd; ++windowIndex)
+            {
+                hasRatios |= hasRatio(rawRatios[windowIndex]);
+
+                if(rawRatios[windowIndex] >= 0)
+                    ++nonMaskedCount;
+            }
+
+            if(!hasRatios)
+                continue;
 
+            int[] nonMaskedPositions = new int[nonMaskedCount];
+            int index = 0;
+
+            for(int windowIndex = chrStart; windowIndex < chrEnd; ++windowIndex)
+            {
+                if(rawRatios[windowIndex] >= 0)
+                    nonMaskedPositions[index++] = windowGrid.position(chrIndex, windowIndex);
+            }
+
+            String chromosome = windowGrid.chromosome(chrIndex);
             List<LowCovBucket> consolidatedBuckets = consolidateIntoBuckets(nonMaskedPositions, consolidationCount);
 
             boundaries.putAll(chromosome, consolidatedBuckets);
@@ -264,25 +222,27 @@ public class LowCoverageRatioMapper implements RatioMapper
     }
 
     // given the list of non masked windows, get the list of consolidated buckets
-    @SuppressWarnings("UnstableApiUsage")
-    static List<LowCovBucket> consolidateIntoBuckets(List<Integer> windowPositions, int consolidationCount)
+    static List<LowCovBucket> consolidateIntoBuckets(final int[] windowPositions, int consolidationCount)
     {
         // make sure position is sorted
-        Validate.isTrue(Comparators.isInStrictOrder(windowPositions, Comparator.naturalOrder()));
+        for(int i = 1; i < windowPositions.length; ++i)
+        {
+            Validate.isTrue(windowPositions[i - 1] < windowPositions[i]);
+        }
 
         List<LowCovBucket> buckets = new ArrayList<>();
 
-        if(windowPositions.isEmpty())
+        if(windowPositions.length == 0)
         {
             return buckets;
         }
 
         int windowCount = 0;
-        int bucketStart = windowPositions.get(0);
+        int bucketStart = windowPositions[0];
 
-        for (int i = 0; i < windowPositions.size(); ++i)
+        for (int i = 0; i < windowPositions.length; ++i)
         {
-            int position = windowPositions.get(i);
+            int position = windowPositions[i];
 
             if((position - bucketStart) >= CobaltConstants.MAX_SPARSE_CONSOLIDATE_DISTANCE)
             {
@@ -291,7 +251,7 @@ public class LowCoverageRatioMapper implements RatioMapper
                 // use the last bucket
                 if(i > 0)
                 {
-                    int lastPosition = windowPositions.get(i - 1);
+                    int lastPosition = windowPositions[i - 1];
                     int bucketEnd = lastPosition + CobaltConstants.WINDOW_SIZE;
                     int bucketPos = roundDownToWindowBoundary((bucketStart + bucketEnd) * 0.5);
                     buckets.add(new LowCovBucket(bucketStart, bucketEnd, bucketPos));
@@ -308,7 +268,7 @@ public class LowCoverageRatioMapper implements RatioMapper
             if(windowCount == consolidationCount)
             {
                 // we want to put the bucket boundary in the middle of the two windows
-                int lastPosition = windowPositions.get(i - 1);
+                int lastPosition = windowPositions[i - 1];
                 int bucketEnd = roundDownToWindowBoundary((lastPosition + position) * 0.5);
 
                 // bucket position is at the middle
@@ -329,7 +289,7 @@ public class LowCoverageRatioMapper implements RatioMapper
         // add a final window
         if(windowCount > 0)
         {
-            int bucketEnd = windowPositions.get(windowPositions.size() - 1) + CobaltConstants.WINDOW_SIZE;
+            int bucketEnd = windowPositions[windowPositions.length - 1] + CobaltConstants.WINDOW_SIZE;
 
             // bucket position is at the middle
             int bucketPos = roundDownToWindowBoundary((bucketStart + bucketEnd) * 0.5);
@@ -338,4 +298,4 @@ public class LowCoverageRatioMapper implements RatioMapper
 
         return buckets;
     }
-}
\ No newline at end of file
+}
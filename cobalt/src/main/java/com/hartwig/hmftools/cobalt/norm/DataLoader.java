@@ -1,30 +1,40 @@
 package com.hartwig.hmftools.cobalt.norm;
 
 import static java.lang.Math.floor;
+import static java.lang.Math.max;
+import static java.lang.String.format;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 import static com.hartwig.hmftools.cobalt.norm.NormConstants.REGION_SIZE;
+import static com.hartwig.hmftools.common.cobalt.CobaltRatioFile.COL_TUMOR_READ_COUNT;
+import static com.hartwig.hmftools.common.cobalt.CobaltRatioFile.convertReadCount;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.Lists;
-import com.hartwig.hmftools.common.cobalt.CobaltRatio;
-import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
-import com.hartwig.hmftools.common.genome.bed.NamedBed;
-import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioFile.Column;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.purple.Gender;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
+import org.jetbrains.annotations.Nullable;
+
 public class DataLoader
 {
+    private static final char TSV_DELIM_CHAR = '\t';
+
     public static void addTargetRegions(final List<ChrBaseRegion> bedRegions, final Map<String,List<RegionData>> chrRegionData)
     {
         String currentChromosome = "";
         List<RegionData> regions = null;
+        int regionCount = chrRegionData.values().stream().mapToInt(List::size).sum();
 
         for(ChrBaseRegion region : bedRegions)
         {
@@ -38,120 +48,169 @@ public class DataLoader
             int startPosition = (int)(floor(region.start()/(double)REGION_SIZE) * REGION_SIZE + 1);
             int endPosition = startPosition + REGION_SIZE - 1;
 
-            addRegion(regions, startPosition);
+            regionCount += addRegion(regions, startPosition, regionCount);
 
             while(endPosition < region.end())
             {
                 startPosition += REGION_SIZE;
-                addRegion(regions, startPosition);
+                regionCount += addRegion(regions, startPosition, regionCount);
                 endPosition = startPosition + REGION_SIZE - 1;
             }
         }
     }
 
-    private static void addRegion(final List<RegionData> regions, int position)
+    private static int addRegion(final List<RegionData> regions, int position, int regionIndex)
     {
         RegionData prevRegion = !regions.isEmpty() ? regions.get(regions.size() - 1) : null;
         if(prevRegion != null && prevRegion.Position == position)
-            return;
+            return 0;
+
+        regions.add(new RegionData(position, regionIndex));
+        return 1;
+    }
+
+    public static Map<HumanChromosome,List<RegionData>> humanChromosomeRegions(final Map<String,List<RegionData>> chrRegionData)
+    {
+        Map<HumanChromosome,List<RegionData>> chrRegions = Maps.newHashMap();
+
+        for(Map.Entry<String,List<RegionData>> entry : chrRegionData.entrySet())
+        {
+            if(HumanChromosome.contains(entry.getKey()))
+                chrRegions.put(HumanChromosome.fromString(entry.getKey()), entry.getValue());
+        }
 
-        regions.add(new RegionData(position));
+        return chrRegions;
     }
 
-    public static void addCobaltSampleData(
-            final Gender amberGender, final String cobaltPanelFilename, final String cobaltWgsFilename,
-            final Map<String,List<RegionData>> chrRegionData)
+    public static void readSampleData(
+            final int sampleIndex, final Gender amberGender, final String cobaltPanelFilename, final String cobaltWgsFilename,
+            final Map<HumanChromosome,List<RegionData>> chrRegions, final SampleRegionMatrix sampleMatrix)
     {
         try
         {
-            CB_LOGGER.info("reading Cobalt ratios from {}", cobaltPanelFilename);
+            CB_LOGGER.debug("reading Cobalt ratios from {}", cobaltPanelFilename);
 
-            Map<Chromosome,List<CobaltRatio>> chrPanelRatios = CobaltRatioFile.readWithGender(
-                    cobaltPanelFilename, amberGender, true);
+            // regions without a panel ratio are left with zero depth and ratio
+            readTumorRatios(cobaltPanelFilename, chrRegions, sampleIndex, sampleMatrix.ReadDepths, sampleMatrix.GcRatiosPanel);
+
+            for(Map.Entry<HumanChromosome,List<RegionData>> entry : chrRegions.entrySet())
+            {
+                float defaultWgsGcRatio = (float)wgsGcRatio(amberGender, entry.getKey());
 
-            Map<Chromosome,List<CobaltRatio>> chrWgsRatios = null;
+                for(RegionData region : entry.getValue())
+                {
+                    sampleMatrix.GcRatiosWgs[region.Index][sampleIndex] = defaultWgsGcRatio;
+                }
+            }
 
             if(!cobaltWgsFilename.isEmpty())
             {
-                CB_LOGGER.info("reading Cobalt WGS ratios from {}", cobaltWgsFilename);
+                CB_LOGGER.debug("reading Cobalt WGS ratios from {}", cobaltWgsFilename);
 
-                chrWgsRatios = CobaltRatioFile.readWithGender(cobaltWgsFilename, amberGender, true);
+                readTumorRatios(cobaltWgsFilename, chrRegions, sampleIndex, null, sampleMatrix.GcRatiosWgs);
             }
+        }
+        catch(IOException | RuntimeException e)
+        {
+            CB_LOGGER.error("sample({}) failed to read Cobalt data: {}", cobaltPanelFilename, e.toString());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
 
-            for(Map.Entry<String,List<RegionData>> entry : chrRegionData.entrySet())
-            {
-                String chrStr = entry.getKey();
-                List<RegionData> regions = entry.getValue();
+    private static void readTumorRatios(
+            final String filename, final Map<HumanChromosome,List<RegionData>> chrRegions, final int sampleIndex,
+            @Nullable final float[][] readDepths, @Nullable final float[][] gcRatios) throws IOException
+    {
+        // only the fields needed are located in each line, and values are only parsed for target region positions
+        try(BufferedReader reader = createBufferedReader(filename))
+        {
+            Map<String,Integer> fieldsIndexMap = createFieldsIndexMap(reader.readLine(), TSV_DELIM);
 
-                HumanChromosome chromosome = HumanChromosome.fromString(chrStr);
-                List<CobaltRatio> cobaltRatios = chrPanelRatios.get(chromosome);
+            int chrIndex = fieldsIndexMap.get(Column.chromosome.name());
+            int posIndex = fieldsIndexMap.get(Column.position.name());
+            int gcRatioIndex = fieldsIndexMap.get(Column.tumorGCRatio.name());
 
-                if(cobaltRatios == null)
-                    continue;
+            boolean useReadCount = fieldsIndexMap.containsKey(COL_TUMOR_READ_COUNT);
+            int readDepthIndex = fieldsIndexMap.get(useReadCount ? COL_TUMOR_READ_COUNT : Column.tumorReadDepth.name());
+
+            int lastIndex = max(max(chrIndex, posIndex), max(gcRatioIndex, readDepthIndex));
+            int[] fieldStarts = new int[lastIndex + 2];
 
-                double defaultWgsGcRatio = wgsGcRatio(amberGender, chromosome);
-                List<CobaltRatio> cobaltWgsRatios = chrWgsRatios != null ? chrWgsRatios.get(chromosome) : Collections.emptyList();
+            String currentChromosome = "";
+            List<RegionData> regions = null;
+            int regionIndex = 0;
 
-                int cobaltIndex = 0;
-                int cobaltWgsIndex = 0;
+            String line;
+            while((line = reader.readLine()) != null)
+            {
+                setFieldStarts(line, fieldStarts);
 
-                for(RegionData region : regions)
+                if(!fieldEquals(line, fieldStarts, chrIndex, currentChromosome))
                 {
-                    CobaltRatio cobaltRatio = null;
+                    currentChromosome = field(line, fieldStarts, chrIndex);
+                    regions = HumanChromosome.contains(currentChromosome) ? chrRegions.get(HumanChromosome.fromString(currentChromosome)) : null;
+                    regionIndex = 0;
+                }
 
-                    while(true)
-                    {
-                        if(cobaltIndex >= cobaltRatios.size())
-                            break;
+                if(regions == null)
+                    continue;
 
-                        cobaltRatio = cobaltRatios.get(cobaltIndex);
+                int position = Integer.parseInt(line, fieldStarts[posIndex], fieldStarts[posIndex + 1] - 1, 10);
 
-                        if(cobaltRatio.position() == region.Position)
-                            break;
-                        else if(cobaltRatio.position() > region.Position)
-                            break;
+                while(regionIndex < regions.size() && regions.get(regionIndex).Position < position)
+                {
+                    ++regionIndex;
+                }
 
-                        ++cobaltIndex;
-                    }
+                if(regionIndex >= regions.size() || regions.get(regionIndex).Position != position)
+                    continue;
 
-                    // likewise find the matching WGS ratio if available
-                    CobaltRatio cobaltWgsRatio = null;
+                // move past the region so a repeated position keeps the first ratio
+                int row = regions.get(regionIndex++).Index;
 
-                    while(true)
-                    {
-                        if(cobaltWgsIndex >= cobaltWgsRatios.size())
-                            break;
+                if(readDepths != null)
+                {
+                    double readDepth = Double.parseDouble(field(line, fieldStarts, readDepthIndex));
+                    readDepths[row][sampleIndex] = (float)(useReadCount ? convertReadCount(readDepth) : readDepth);
+                }
 
-                        cobaltWgsRatio = cobaltWgsRatios.get(cobaltWgsIndex);
+                if(gcRatios != null)
+                    gcRatios[row][sampleIndex] = (float)Double.parseDouble(field(line, fieldStarts, gcRatioIndex));
+            }
+        }
+    }
 
-                        if(cobaltWgsRatio.position() == region.Position)
-                            break;
-                        else if(cobaltWgsRatio.position() > region.Position)
-                            break;
+    private static void setFieldStarts(final String line, final int[] fieldStarts)
+    {
+        // each field ends one before the next field's start, including the last field required
+        fieldStarts[0] = 0;
 
-                        ++cobaltWgsIndex;
-                    }
+        for(int i = 1; i < fieldStarts.length; ++i)
+        {
+            int delimIndex = line.indexOf(TSV_DELIM_CHAR, fieldStarts[i - 1]);
 
-                    double wgsGcRatio = cobaltWgsRatio != null && cobaltWgsRatio.position() == region.Position ?
-                            cobaltWgsRatio.tumorGCRatio() : defaultWgsGcRatio;
+            if(delimIndex < 0)
+            {
+                if(i < fieldStarts.length - 1)
+                    throw new IllegalArgumentException(format("invalid Cobalt ratio line: %s", line));
 
-                    if(cobaltRatio != null && cobaltRatio.position() == region.Position)
-                    {
-                        region.addSampleRegionData(new SampleRegionData(cobaltRatio.tumorReadDepth(), cobaltRatio.tumorGCRatio(), wgsGcRatio));
-                    }
-                    else
-                    {
-                        region.addSampleRegionData(new SampleRegionData(0, 0, wgsGcRatio));
-                    }
-                }
+                delimIndex = line.length();
             }
+
+            fieldStarts[i] = delimIndex + 1;
         }
-        catch(IOException e)
-        {
-            CB_LOGGER.error("sample({}) failed to read Cobalt data: {}", cobaltPanelFilename, e.toString());
-            e.printStackTrace();
-            System.exit(1);
-        }
+    }
+
+    private static String field(final String line, final int[] fieldStarts, int index)
+    {
+        return line.substring(fieldStarts[index], fieldStarts[index + 1] - 1);
+    }
+
+    private static boolean fieldEquals(final String line, final int[] fieldStarts, int index, final String value)
+    {
+        int length = fieldStarts[index + 1] - 1 - fieldStarts[index];
+        return length == value.length() && line.startsWith(value, fieldStarts[index]);
     }
 
     private static double wgsGcRatio(final Gender amberGender, final HumanChromosome chromosome)
@@ -3,6 +3,7 @@ package com.hartwig.hmftools.cobalt.norm;
 import static java.lang.String.format;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.norm.Normaliser.adjustedGcRatio;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
 
 import java.io.BufferedWriter;
@@ -54,7 +55,8 @@ public class FileWriter
     }
 
     public static void writeDetailedFile(
-            final Map<String,List<RegionData>> chrRegionData, final List<String> sampleIds, final String outputFile)
+            final Map<String,List<RegionData>> chrRegionData, final List<String> sampleIds, final SampleRegionMatrix sampleMatrix,
+            final NormCalcData[] sampleNormCalcs, final String outputFile)
     {
         try
         {
@@ -74,11 +76,13 @@ public class FileWriter
                     for(int i = 0; i < sampleIds.size(); ++i)
                     {
                         String sampleId = sampleIds.get(i);
-                        SampleRegionData sampleRegionData = regionData.getSampleData(i);
+                        double readDepth = sampleMatrix.ReadDepths[regionData.Index][i];
+                        double adjustedGcRatio = adjustedGcRatio(regionData, readDepth, sampleNormCalcs[i]);
 
                         writer.write(format("%s\t%s\t%d\t%d\t%.3f\t%.3f\t%.3f\t%.3f",
                                 sampleId, chromosome, regionData.Position, regionData.gcBucket(), regionData.mappability(),
-                                sampleRegionData.GcRatioPanel, sampleRegionData.ReadDepth, sampleRegionData.adjustedGcRatio()));
+                                decimalValue(sampleMatrix.GcRatiosPanel[regionData.Index][i]),
+                                decimalValue(sampleMatrix.ReadDepths[regionData.Index][i]), adjustedGcRatio));
                         writer.newLine();
                     }
                 }
@@ -93,4 +97,10 @@ public class FileWriter
         }
     }
 
+    private static double decimalValue(float value)
+    {
+        // takes the shortest decimal form of the float, being the ratio file's value where this has up to 7 digits, so that it
+        // rounds as the file's value would rather than as the float's nearest double
+        return Double.parseDouble(Float.toString(value));
+    }
 }
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.cobalt.norm;
 
+import static com.hartwig.hmftools.cobalt.norm.NormConstants.GC_BUCKET_MAX;
+
 import java.util.Collections;
 import java.util.Map;
 
@@ -11,6 +13,8 @@ public class NormCalcData
 
     public final Map<Integer,Double> GcBucketMedians;
 
+    private final double[] mGcBucketMedianValues; // by GC bucket for lookups across the cohort, zero if not set
+
     public static NormCalcData INVALID = new NormCalcData(
             0, 0, 0, Collections.emptyMap());
 
@@ -22,8 +26,15 @@ public class NormCalcData
         SampleMedianReadDepth = sampleMedianReadDepth;
         SampleFilteredRegionCount = sampleFilteredRegionCount;
         GcBucketMedians = gcBucketMedians;
+
+        mGcBucketMedianValues = new double[GC_BUCKET_MAX + 1];
+        gcBucketMedians.forEach((key, value) -> mGcBucketMedianValues[key] = value);
     }
 
     public double sampleMedianNormalisation() { return SampleMeanReadDepth > 0 ? SampleMedianReadDepth / SampleMeanReadDepth : 0; }
 
+    public double gcBucketMedian(int gcBucket)
+    {
+        return gcBucket >= 0 && gcBucket < mGcBucketMedianValues.length ? mGcBucketMedianValues[gcBucket] : 0;
+    }
 }
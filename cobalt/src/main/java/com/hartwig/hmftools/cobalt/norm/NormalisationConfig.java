@@ -5,6 +5,8 @@ import static com.hartwig.hmftools.common.genome.gc.GCProfileFactory.GC_PROFILE;
 import static com.hartwig.hmftools.common.genome.gc.GCProfileFactory.addGcProfilePath;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.REF_GENOME_VERSION;
 import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion.REF_GENOME_VERSION_CFG_DESC;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.AMBER_DIR_CFG;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.AMBER_DIR_DESC;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.COBALT_DIR_CFG;
@@ -42,6 +44,7 @@ public class NormalisationConfig
     public final String OutputFile;
     public final String DetailedFile;
     public final RefGenomeVersion RefGenVersion;
+    public final int Threads;
 
     private final Map<String,String> mPanelToWgsSampleIdMappings; // if required, mapping from panel to WGS
 
@@ -67,6 +70,7 @@ public class NormalisationConfig
         RefGenVersion = RefGenomeVersion.from(configBuilder);
         OutputFile = configBuilder.getValue(OUTPUT_FILE);
         DetailedFile = configBuilder.getValue(DETAILED_OUTPUT);
+        Threads = parseThreads(configBuilder);
     }
 
     public String getWgsSampleId(final String sampleId)
@@ -132,6 +136,7 @@ public class NormalisationConfig
         configBuilder.addRequiredConfigItem(OUTPUT_FILE, "Output normalisation file");
         configBuilder.addConfigItem(DETAILED_OUTPUT, "Detailed normalisation calcs file");
         addGcProfilePath(configBuilder, true);
+        addThreadOptions(configBuilder);
         addLoggingOptions(configBuilder);
     }
 }
@@ -1,13 +1,16 @@
 package com.hartwig.hmftools.cobalt.norm;
 
+import static java.lang.Math.max;
+
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
-import static com.hartwig.hmftools.cobalt.norm.DataLoader.addCobaltSampleData;
 import static com.hartwig.hmftools.cobalt.norm.DataLoader.addTargetRegions;
+import static com.hartwig.hmftools.cobalt.norm.DataLoader.humanChromosomeRegions;
+import static com.hartwig.hmftools.cobalt.norm.DataLoader.readSampleData;
 import static com.hartwig.hmftools.cobalt.norm.FileWriter.writeDetailedFile;
 import static com.hartwig.hmftools.cobalt.norm.FileWriter.writeNormalisationFile;
 import static com.hartwig.hmftools.cobalt.norm.NormConstants.MIN_ENRICHMENT_RATIO;
 import static com.hartwig.hmftools.cobalt.norm.Normaliser.calcRelativeEnrichment;
-import static com.hartwig.hmftools.cobalt.norm.Normaliser.calcSampleAdjustedRatios;
+import static com.hartwig.hmftools.cobalt.norm.Normaliser.calcSampleNormalisation;
 import static com.hartwig.hmftools.common.genome.bed.NamedBedFile.readBedFile;
 import static com.hartwig.hmftools.common.genome.gc.GCBucket.calcGcBucket;
 import static com.hartwig.hmftools.common.utils.config.ConfigUtils.convertWildcardSamplePath;
@@ -16,18 +19,22 @@ import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.common.amber.AmberBAF;
 import com.hartwig.hmftools.common.amber.AmberBAFFile;
 import com.hartwig.hmftools.common.amber.AmberGender;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
-import com.hartwig.hmftools.common.genome.bed.NamedBed;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCProfile;
 import com.hartwig.hmftools.common.purple.Gender;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 
 public class NormalisationFileBuilder
@@ -36,6 +43,8 @@ public class NormalisationFileBuilder
     private final Map<String,List<RegionData>> mChrRegionData;
     private final GcProfileCache mGcProfileCache;
 
+    private SampleRegionMatrix mSampleMatrix;
+
     public NormalisationFileBuilder(final ConfigBuilder configBuilder)
     {
         mConfig = new NormalisationConfig(configBuilder);
@@ -55,57 +64,53 @@ public class NormalisationFileBuilder
     {
         CB_LOGGER.info("running Cobalt normalisation file generation from {} samples", mConfig.SampleIds.size());
 
-        // load reference data
-        loadTargetRegionsBed(mConfig.TargetRegionsBed);
-
-        setGcProfileData();
+        loadReferenceData();
 
-        // load Amber files and establish gender
-        Map<String,Gender> sampleGenders = !mConfig.SampleGender.isEmpty() ? mConfig.SampleGender : determineAmberGenders();
-
-        // load per-sample Cobalt ratios
-        loadSampleCobaltData(sampleGenders);
+        // load per-sample Cobalt ratios, establishing gender from Amber if required
+        loadSampleData();
 
         // calculate per-sample normalised tumor GC ratios
-        calcSampleAdjustedRatios(mConfig.SampleIds, mChrRegionData);
+        NormCalcData[] sampleNormCalcs = calcSampleNormalisation(mChrRegionData, mSampleMatrix, mConfig.Threads);
 
         // calculate a final relative panel enichment ratio for each region
-        calcRelativeEnrichment(mChrRegionData, MIN_ENRICHMENT_RATIO);
+        calcRelativeEnrichment(mChrRegionData, mSampleMatrix, sampleNormCalcs, MIN_ENRICHMENT_RATIO, mConfig.Threads);
 
         writeNormalisationFile(mChrRegionData, mConfig.RefGenVersion, mConfig.OutputFile);
 
         if(mConfig.DetailedFile != null)
-            writeDetailedFile(mChrRegionData, mConfig.SampleIds, mConfig.DetailedFile);
+            writeDetailedFile(mChrRegionData, mConfig.SampleIds, mSampleMatrix, sampleNormCalcs, mConfig.DetailedFile);
 
         CB_LOGGER.info("Cobalt normalisation file generation complete");
     }
 
-    private Map<String,Gender> determineAmberGenders()
+    @VisibleForTesting
+    void loadReferenceData()
     {
-        Map<String,Gender> sampleGenders = Maps.newHashMap();
+        loadTargetRegionsBed(mConfig.TargetRegionsBed);
+
+        setGcProfileData();
+    }
 
-        for(String sampleId : mConfig.SampleIds)
+    private Gender determineAmberGender(final String sampleId)
+    {
+        try
         {
-            try
-            {
-                String sampleDir = convertWildcardSamplePath(mConfig.AmberDir, sampleId);
-                final String amberFilename = AmberBAFFile.generateAmberFilenameForReading(sampleDir, sampleId);
+            String sampleDir = convertWildcardSamplePath(mConfig.AmberDir, sampleId);
+            final String amberFilename = AmberBAFFile.generateAmberFilenameForReading(sampleDir, sampleId);
 
-                Multimap<Chromosome, AmberBAF> chromosomeBafs = AmberBAFFile.read(amberFilename, true);
-                Gender gender = AmberGender.determineGender(mConfig.RefGenVersion, chromosomeBafs);
-                sampleGenders.put(sampleId, gender);
+            Multimap<Chromosome, AmberBAF> chromosomeBafs = AmberBAFFile.read(amberFilename, true);
+            Gender gender = AmberGender.determineGender(mConfig.RefGenVersion, chromosomeBafs);
 
-                CB_LOGGER.debug("sample({}) Amber gender({})", sampleId, gender);
-            }
-            catch(IOException e)
-            {
-                CB_LOGGER.error("sample({}) failed to read Amber data: {}", sampleId, e.toString());
-                e.printStackTrace();
-                System.exit(1);
-            }
+            CB_LOGGER.debug("sample({}) Amber gender({})", sampleId, gender);
+            return gender;
+        }
+        catch(IOException e)
+        {
+            CB_LOGGER.error("sample({}) failed to read Amber data: {}", sampleId, e.toString());
+            e.printStackTrace();
+            System.exit(1);
+            return null;
         }
-
-        return sampleGenders;
     }
 
     private void loadTargetRegionsBed(final String bedFile)
@@ -115,7 +120,7 @@ public class NormalisationFileBuilder
 
         List<ChrBaseRegion> regions = ChrBaseRegion.loadChrBaseRegionList(bedFile);
 
-            addTargetRegions(regions, mChrRegionData);
+        addTargetRegions(regions, mChrRegionData);
 
         CB_LOGGER.info("loaded {} target regions from file({})",
                 mChrRegionData.values().stream().mapToInt(x -> x.size()).sum(), bedFile);
@@ -136,26 +141,59 @@ public class NormalisationFileBuilder
         }
     }
 
-    private void loadSampleCobaltData(final Map<String,Gender> sampleGenders)
+    @VisibleForTesting
+    SampleRegionMatrix loadSampleData()
     {
-        for(String sampleId : mConfig.SampleIds)
-        {
-            Gender amberGender = sampleGenders.get(sampleId);
+        int regionCount = mChrRegionData.values().stream().flatMap(List::stream).mapToInt(x -> x.Index).max().orElse(-1) + 1;
+        mSampleMatrix = new SampleRegionMatrix(regionCount, mConfig.SampleIds.size(), mConfig.DetailedFile != null);
 
-            String cobaltPanelDir = convertWildcardSamplePath(mConfig.CobaltPanelDir, sampleId);
-            String cobaltPanelFilename = CobaltRatioFile.generateFilenameForReading(cobaltPanelDir, sampleId);
+        Map<HumanChromosome,List<RegionData>> chrRegions = humanChromosomeRegions(mChrRegionData);
 
-            String cobaltWgsFilename = "";
+        // each task reads its own samples' files into their matrix columns
+        List<Callable> callableList = Lists.newArrayList();
+        int taskCount = max(mConfig.Threads, 1);
 
-            if(!mConfig.CobaltWgsDir.isEmpty())
+        for(int taskIndex = 0; taskIndex < taskCount; ++taskIndex)
+        {
+            int firstSampleIndex = taskIndex;
+
+            callableList.add(() ->
             {
-                String wgsSampleId = mConfig.getWgsSampleId(sampleId);
-                String cobaltWgsDir = convertWildcardSamplePath(mConfig.CobaltWgsDir, wgsSampleId);
-                cobaltWgsFilename = CobaltRatioFile.generateFilenameForReading(cobaltWgsDir, wgsSampleId);
-            }
+                for(int sampleIndex = firstSampleIndex; sampleIndex < mConfig.SampleIds.size(); sampleIndex += taskCount)
+                {
+                    loadSampleCobaltData(sampleIndex, chrRegions);
+                }
+
+                return (long)0;
+            });
+        }
+
+        TaskExecutor.executeTasks(callableList, mConfig.Threads);
+
+        CB_LOGGER.info("loaded Cobalt ratios for {} samples and {} regions", mSampleMatrix.SampleCount, mSampleMatrix.RegionCount);
 
-            addCobaltSampleData(amberGender, cobaltPanelFilename, cobaltWgsFilename, mChrRegionData);
+        return mSampleMatrix;
+    }
+
+    private void loadSampleCobaltData(final int sampleIndex, final Map<HumanChromosome,List<RegionData>> chrRegions)
+    {
+        String sampleId = mConfig.SampleIds.get(sampleIndex);
+
+        Gender amberGender = !mConfig.SampleGender.isEmpty() ? mConfig.SampleGender.get(sampleId) : determineAmberGender(sampleId);
+
+        String cobaltPanelDir = convertWildcardSamplePath(mConfig.CobaltPanelDir, sampleId);
+        String cobaltPanelFilename = CobaltRatioFile.generateFilenameForReading(cobaltPanelDir, sampleId);
+
+        String cobaltWgsFilename = "";
+
+        if(!mConfig.CobaltWgsDir.isEmpty())
+        {
+            String wgsSampleId = mConfig.getWgsSampleId(sampleId);
+            String cobaltWgsDir = convertWildcardSamplePath(mConfig.CobaltWgsDir, wgsSampleId);
+            cobaltWgsFilename = CobaltRatioFile.generateFilenameForReading(cobaltWgsDir, wgsSampleId);
         }
+
+        readSampleData(sampleIndex, amberGender, cobaltPanelFilename, cobaltWgsFilename, chrRegions, mSampleMatrix);
     }
 
     public static void main(final String[] args)
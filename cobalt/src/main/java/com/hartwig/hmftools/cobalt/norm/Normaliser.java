@@ -1,16 +1,21 @@
 package com.hartwig.hmftools.cobalt.norm;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
 import static com.hartwig.hmftools.cobalt.norm.NormConstants.GC_BUCKET_MAX;
 import static com.hartwig.hmftools.cobalt.norm.NormConstants.GC_BUCKET_MIN;
 import static com.hartwig.hmftools.cobalt.norm.NormConstants.MAPPABILITY_THRESHOLD;
-import static com.hartwig.hmftools.common.utils.Doubles.median;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 
 public class Normaliser
 {
@@ -21,92 +26,113 @@ public class Normaliser
     - calculate an adjusted GC ratio for each sample's region
     - calculate relative enrichment as a median from each region's sample adjusted GC ratios
         - apply a min relative enrichment threshold
+
+    samples are normalised in parallel blocks of matrix columns, and relative enrichment in blocks of rows
     */
 
-    public static void calcSampleAdjustedRatios(final List<String> samples, final Map<String,List<RegionData>> chrRegionData)
+    public static NormCalcData[] calcSampleNormalisation(
+            final Map<String,List<RegionData>> chrRegionData, final SampleRegionMatrix sampleMatrix, int threads)
     {
-        for(int i = 0; i < samples.size(); ++i)
+        NormCalcData[] sampleNormCalcs = new NormCalcData[sampleMatrix.SampleCount];
+        FilteredRegions filteredRegions = new FilteredRegions(chrRegionData);
+
+        List<Callable> callableList = Lists.newArrayList();
+
+        for(int[] sampleRange : partition(sampleMatrix.SampleCount, threads))
         {
-            NormCalcData normCalcData = calcSampleAdjustedRatios(i, chrRegionData);
-            applySampleNormalisation(i, chrRegionData, normCalcData);
+            callableList.add(() ->
+            {
+                for(int sampleIndex = sampleRange[0]; sampleIndex < sampleRange[1]; ++sampleIndex)
+                {
+                    sampleNormCalcs[sampleIndex] = calcSampleNormalisation(sampleIndex, sampleMatrix, filteredRegions);
+                }
+
+                return (long)0;
+            });
         }
+
+        TaskExecutor.executeTasks(callableList, threads);
+
+        return sampleNormCalcs;
+    }
+
+    public static NormCalcData calcSampleNormalisation(
+            final int sampleIndex, final Map<String,List<RegionData>> chrRegionData, final SampleRegionMatrix sampleMatrix)
+    {
+        return calcSampleNormalisation(sampleIndex, sampleMatrix, new FilteredRegions(chrRegionData));
     }
 
-    public static NormCalcData calcSampleAdjustedRatios(final int sampleIndex, final Map<String,List<RegionData>> chrRegionData)
+    private static NormCalcData calcSampleNormalisation(
+            final int sampleIndex, final SampleRegionMatrix sampleMatrix, final FilteredRegions filteredRegions)
     {
         // calculate interpolated median read count per GC bucket across filtered regions
+        int regionCount = filteredRegions.Rows.length;
+        double[] readDepths = new double[regionCount];
+        int[] gcBuckets = new int[regionCount];
+        int[] gcBucketCounts = new int[GC_BUCKET_MAX + 2];
 
-        List<Double> sampleReadDepths = new ArrayList<>();
+        int sampleRegionCount = 0;
         double sampleReadCountTotal = 0;
 
-        Map<Integer, List<Double>> gcBucketReadDepths = new HashMap<>();
-
-        for(Map.Entry<String, List<RegionData>> entry : chrRegionData.entrySet())
+        for(int i = 0; i < regionCount; ++i)
         {
-            String chromosome = entry.getKey();
+            double readCount = sampleMatrix.ReadDepths[filteredRegions.Rows[i]][sampleIndex];
 
-            if(!useChromosome(chromosome))
+            if(readCount < 0)
                 continue;
 
-            List<RegionData> regions = entry.getValue();
-
-            for(RegionData regionData : regions)
-            {
-                SampleRegionData sampleRegionData = regionData.getSampleData(sampleIndex);
+            readDepths[sampleRegionCount] = readCount;
+            gcBuckets[sampleRegionCount] = filteredRegions.GcBuckets[i];
+            ++gcBucketCounts[filteredRegions.GcBuckets[i] + 1];
+            ++sampleRegionCount;
 
-                if(!useRegion(regionData, sampleRegionData))
-                    continue;
+            sampleReadCountTotal += readCount;
+        }
 
-                double readCount = sampleRegionData.ReadDepth;
-                sampleReadDepths.add(readCount);
-                sampleReadCountTotal += readCount;
+        if(sampleRegionCount == 0)
+            return NormCalcData.INVALID;
 
-                List<Double> bucketDepths = gcBucketReadDepths.computeIfAbsent(regionData.gcBucket(), k -> new ArrayList<>());
+        // group the read depths by GC bucket, with each bucket's values starting from the prior buckets' total count
+        double[] gcBucketReadDepths = new double[sampleRegionCount];
+        int[] gcBucketStarts = new int[GC_BUCKET_MAX + 2];
 
-                bucketDepths.add(readCount);
-            }
+        for(int gcBucket = 1; gcBucket < gcBucketCounts.length; ++gcBucket)
+        {
+            gcBucketCounts[gcBucket] += gcBucketCounts[gcBucket - 1];
         }
 
-        if(sampleReadDepths.isEmpty())
-            return NormCalcData.INVALID;
+        System.arraycopy(gcBucketCounts, 0, gcBucketStarts, 0, gcBucketCounts.length);
 
-        double sampleMeanReadCount = sampleReadCountTotal / sampleReadDepths.size();
-        double sampleMedianReadCount = median(sampleReadDepths);
+        for(int i = 0; i < sampleRegionCount; ++i)
+        {
+            gcBucketReadDepths[gcBucketCounts[gcBuckets[i]]++] = readDepths[i];
+        }
 
         Map<Integer,Double> gcBucketMedians = new HashMap<>();
 
-        for(Map.Entry<Integer, List<Double>> entry : gcBucketReadDepths.entrySet())
+        for(int gcBucket = GC_BUCKET_MIN; gcBucket <= GC_BUCKET_MAX; ++gcBucket)
         {
-            int gcBucket = entry.getKey();
-            double medianReadDepth = median(entry.getValue());
-            gcBucketMedians.put(gcBucket, medianReadDepth);
+            int bucketStart = gcBucketStarts[gcBucket];
+            int bucketEnd = gcBucketStarts[gcBucket + 1];
+
+            if(bucketEnd > bucketStart)
+                gcBucketMedians.put(gcBucket, median(gcBucketReadDepths, bucketStart, bucketEnd));
         }
 
-        return new NormCalcData(sampleMeanReadCount, sampleMedianReadCount, sampleReadDepths.size(), gcBucketMedians);
+        double sampleMeanReadCount = sampleReadCountTotal / sampleRegionCount;
+        double sampleMedianReadCount = median(readDepths, 0, sampleRegionCount);
+
+        return new NormCalcData(sampleMeanReadCount, sampleMedianReadCount, sampleRegionCount, gcBucketMedians);
     }
 
-    public static void applySampleNormalisation(
-            final int sampleIndex, final Map<String,List<RegionData>> chrRegionData, final NormCalcData normCalcData)
+    public static double adjustedGcRatio(final RegionData regionData, double readDepth, final NormCalcData normCalcData)
     {
-        // apply the median values into each sample's adjusted calcs
-        double sampleMedianNormalisation = normCalcData.sampleMedianNormalisation();
+        double gcBucketMedian = normCalcData.gcBucketMedian(regionData.gcBucket());
 
-        for(List<RegionData> regions : chrRegionData.values())
-        {
-            for(RegionData regionData : regions)
-            {
-                SampleRegionData sampleRegionData = regionData.getSampleData(sampleIndex);
-
-                Double gcBucketMedian = normCalcData.GcBucketMedians.get(regionData.gcBucket());
-
-                if(gcBucketMedian == null || gcBucketMedian == 0)
-                    continue;
-
-                double adjustedRatio = sampleMedianNormalisation * sampleRegionData.ReadDepth / gcBucketMedian;
+        if(gcBucketMedian == 0)
+            return 0;
 
-                sampleRegionData.setAdjustedGcRatio(adjustedRatio);
-            }
-        }
+        return normCalcData.sampleMedianNormalisation() * readDepth / gcBucketMedian;
     }
 
     private static boolean useChromosome(final String chromosome)
@@ -114,38 +140,107 @@ public class Normaliser
         return HumanChromosome.fromString(chromosome).isAutosome();
     }
 
-    public static boolean useRegion(final RegionData regionData, final SampleRegionData sampleRegionData)
+    public static boolean useRegion(final RegionData regionData)
     {
         if(regionData.mappability() < MAPPABILITY_THRESHOLD)
             return false;
 
-        if(sampleRegionData.ReadDepth < 0)
-            return false;
-
         return regionData.gcBucket() >= GC_BUCKET_MIN && regionData.gcBucket() <= GC_BUCKET_MAX;
     }
 
-    public static void calcRelativeEnrichment(final Map<String,List<RegionData>> chrRegionData, double minEnrichmentRatio)
+    public static void calcRelativeEnrichment(
+            final Map<String,List<RegionData>> chrRegionData, final SampleRegionMatrix sampleMatrix,
+            final NormCalcData[] sampleNormCalcs, double minEnrichmentRatio, int threads)
     {
-        for(List<RegionData> regions : chrRegionData.values())
+        RegionData[] matrixRegions = new RegionData[sampleMatrix.RegionCount];
+        chrRegionData.values().forEach(x -> x.forEach(y -> matrixRegions[y.Index] = y));
+
+        List<Callable> callableList = Lists.newArrayList();
+
+        for(int[] regionRange : partition(sampleMatrix.RegionCount, threads))
         {
-            for(RegionData regionData : regions)
+            callableList.add(() ->
             {
-                List<Double> sampleRelativeEnrichment = new ArrayList<>(regionData.sampleCount());
+                double[] sampleRelativeEnrichment = new double[sampleMatrix.SampleCount];
 
-                for(SampleRegionData sampleRegionData : regionData.getSamples())
+                for(int row = regionRange[0]; row < regionRange[1]; ++row)
                 {
-                    double relativeEnrichment = sampleRegionData.GcRatioWgs > 0 ?
-                            sampleRegionData.adjustedGcRatio() / sampleRegionData.GcRatioWgs : 0;
+                    RegionData regionData = matrixRegions[row];
+
+                    if(regionData == null)
+                        continue;
+
+                    for(int sampleIndex = 0; sampleIndex < sampleMatrix.SampleCount; ++sampleIndex)
+                    {
+                        double gcRatioWgs = sampleMatrix.GcRatiosWgs[row][sampleIndex];
+
+                        double adjustedGcRatio = adjustedGcRatio(
+                                regionData, sampleMatrix.ReadDepths[row][sampleIndex], sampleNormCalcs[sampleIndex]);
+
+                        sampleRelativeEnrichment[sampleIndex] = gcRatioWgs > 0 ? adjustedGcRatio / gcRatioWgs : 0;
+                    }
+
+                    double medianEnrichment = median(sampleRelativeEnrichment, 0, sampleRelativeEnrichment.length);
 
-                    sampleRelativeEnrichment.add(relativeEnrichment);
+                    if(medianEnrichment >= minEnrichmentRatio)
+                        regionData.setRelativeEnrichment(medianEnrichment);
                 }
 
-                double medianEnrichment = median(sampleRelativeEnrichment);
+                return (long)0;
+            });
+        }
+
+        TaskExecutor.executeTasks(callableList, threads);
+    }
+
+    private static double median(final double[] values, int start, int end)
+    {
+        // sorts the range in place, taking the mean of the middle two values for an even count
+        int count = end - start;
+
+        if(count == 0)
+            return 0;
 
-                if(medianEnrichment >= minEnrichmentRatio)
-                    regionData.setRelativeEnrichment(medianEnrichment);
+        Arrays.sort(values, start, end);
+
+        int middle = start + count / 2;
+        return count % 2 == 0 ? (values[middle] + values[middle - 1]) / 2 : values[middle];
+    }
+
+    private static List<int[]> partition(int count, int threads)
+    {
+        List<int[]> ranges = Lists.newArrayList();
+        int blockCount = max(threads, 1);
+        int blockSize = (count + blockCount - 1) / blockCount;
+
+        for(int start = 0; start < count; start += blockSize)
+        {
+            ranges.add(new int[] { start, min(start + blockSize, count) });
+        }
+
+        return ranges;
+    }
+
+    private static class FilteredRegions
+    {
+        // matrix rows of autosome regions which qualify for each sample's read depth medians, in region map order
+        public final int[] Rows;
+        public final int[] GcBuckets;
+
+        public FilteredRegions(final Map<String,List<RegionData>> chrRegionData)
+        {
+            List<RegionData> regions = Lists.newArrayList();
+
+            for(Map.Entry<String,List<RegionData>> entry : chrRegionData.entrySet())
+            {
+                if(!useChromosome(entry.getKey()))
+                    continue;
+
+                entry.getValue().stream().filter(Normaliser::useRegion).forEach(regions::add);
             }
+
+            Rows = regions.stream().mapToInt(x -> x.Index).toArray();
+            GcBuckets = regions.stream().mapToInt(RegionData::gcBucket).toArray();
         }
     }
 }
@@ -2,13 +2,10 @@ package com.hartwig.hmftools.cobalt.norm;
 
 import static java.lang.String.format;
 
-import java.util.List;
-
-import com.google.common.collect.Lists;
-
 public class RegionData
 {
     public final int Position;
+    public final int Index; // row in the sample region matrix
 
     // reference data
     private int mGcBucket;
@@ -17,14 +14,12 @@ public class RegionData
     // calculate values
     private double mRelativeEnrichment;
 
-    private final List<SampleRegionData> mSampleRegionData;
-
-    public RegionData(int position)
+    public RegionData(int position, int index)
     {
         Position = position;
+        Index = index;
         mGcBucket = 0;
         mMappability = 0;
-        mSampleRegionData = Lists.newArrayList();
     }
 
     public int gcBucket() { return mGcBucket; }
@@ -39,15 +34,6 @@ public class RegionData
     public double relativeEnrichment() { return mRelativeEnrichment; }
     public void setRelativeEnrichment(double relativeEnrichment) { mRelativeEnrichment = relativeEnrichment; }
 
-    public void addSampleRegionData(final SampleRegionData sampleRegionData)
-    {
-        mSampleRegionData.add(sampleRegionData);
-    }
-
-    public int sampleCount() { return mSampleRegionData.size(); }
-    public SampleRegionData getSampleData(final int sampleIndex) { return mSampleRegionData.get(sampleIndex); }
-    public List<SampleRegionData> getSamples() { return mSampleRegionData; }
-
     public String toString()
     {
         return format("%d: gcBucket(%d) relEnrichment(%.4f)", Position, mGcBucket, mRelativeEnrichment);
@@ -0,0 +1,26 @@
+package com.hartwig.hmftools.cobalt.norm;
+
+import static java.lang.String.format;
+
+// each sample's Cobalt values for the target regions, with a row per region and a column per sample, so a cohort
+// costs 4 bytes per region and sample for each value kept rather than an object per sample region
+public class SampleRegionMatrix
+{
+    public final int RegionCount;
+    public final int SampleCount;
+
+    public final float[][] ReadDepths;
+    public final float[][] GcRatiosWgs;
+    public final float[][] GcRatiosPanel; // only kept for the detailed file
+
+    public SampleRegionMatrix(int regionCount, int sampleCount, boolean keepPanelRatios)
+    {
+        RegionCount = regionCount;
+        SampleCount = sampleCount;
+        ReadDepths = new float[regionCount][sampleCount];
+        GcRatiosWgs = new float[regionCount][sampleCount];
+        GcRatiosPanel = keepPanelRatios ? new float[regionCount][sampleCount] : null;
+    }
+
+    public String toString() { return format("regions(%d) samples(%d)", RegionCount, SampleCount); }
+}
@@ -2,47 +2,69 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MAX_DISTANCE;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MIN_COVERAGE;
+import static com.hartwig.hmftools.cobalt.ratio.RatioMapper.hasRatio;
 
+import java.util.Arrays;
 import java.util.List;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
-import tech.tablesaw.api.*;
-
 public final class DiploidRatioSupplier
 {
-    public static Table calcDiploidRatioResults(final Table normalRatios, final List<MedianRatio> medianRatios)
+    public static double[] calcDiploidRatioResults(
+            final WindowGrid windowGrid, final double[] normalRatios, final List<MedianRatio> medianRatios)
     {
-        Table results = normalRatios.emptyCopy();
+        double[] results = new double[normalRatios.length];
+        Arrays.fill(results, Double.NaN);
 
         for (CobaltChromosome cobaltChromosome : new CobaltChromosomes(medianRatios).chromosomes())
         {
             String chr = cobaltChromosome.contig();
-            if(HumanChromosome.contains(chr))
+            int chrIndex = windowGrid.chromosomeIndex(chr);
+
+            if(!HumanChromosome.contains(chr) || chrIndex < 0)
+                continue;
+
+            // gather the chromosome's ratios, the rolling median is over the windows which have them
+            int chrStart = windowGrid.chromosomeStart(chrIndex);
+            int chrEnd = windowGrid.chromosomeEnd(chrIndex);
+            int[] windowIndices = new int[chrEnd - chrStart];
+            int ratioCount = 0;
+
+            for(int windowIndex = chrStart; windowIndex < chrEnd; ++windowIndex)
+            {
+                if(hasRatio(normalRatios[windowIndex]))
+                    windowIndices[ratioCount++] = windowIndex;
+            }
+
+            final double[] ratios = new double[ratioCount];
+
+            for(int i = 0; i < ratioCount; ++i)
+            {
+                ratios[i] = normalRatios[windowIndices[i]];
+            }
+
+            final double[] adjustedRatios;
+            if (HumanChromosome.fromString(chr).equals(HumanChromosome._Y))
+            {
+                adjustedRatios = ratios;
+            }
+            else
+            {
+                double expectedRatio = cobaltChromosome.actualRatio();
+                adjustedRatios = new DiploidRatioNormalization(expectedRatio,
+                        ROLLING_MEDIAN_MAX_DISTANCE,
+                        ROLLING_MEDIAN_MIN_COVERAGE,
+                        ratios).get();
+            }
+
+            for(int i = 0; i < ratioCount; ++i)
             {
-                Table chrTable = normalRatios.where(normalRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chr));
-
-                final List<Double> ratios = chrTable.doubleColumn(CobaltColumns.RATIO).asList();
-                final List<Double> adjustedRatios;
-                if (HumanChromosome.fromString(chr).equals(HumanChromosome._Y))
-                {
-                    adjustedRatios = ratios;
-                }
-                else
-                {
-                    double expectedRatio = cobaltChromosome.actualRatio();
-                    adjustedRatios = new DiploidRatioNormalization(expectedRatio,
-                            ROLLING_MEDIAN_MAX_DISTANCE,
-                            ROLLING_MEDIAN_MIN_COVERAGE,
-                            ratios).get();
-                }
-
-                chrTable.replaceColumn(DoubleColumn.create(CobaltColumns.RATIO, adjustedRatios));
-                results.append(chrTable);
+                results[windowIndices[i]] = adjustedRatios[i];
             }
         }
 
@@ -1,95 +1,151 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.CobaltConstants.INVALID_VALUE_INDICATOR;
+import static com.hartwig.hmftools.cobalt.ratio.RatioMapper.hasRatio;
 
 import java.util.HashMap;
 import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 import com.hartwig.hmftools.common.genome.gc.GCBucket;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepth;
 import com.hartwig.hmftools.common.genome.gc.ImmutableGCBucket;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.aggregate.NumericAggregateFunction;
-import tech.tablesaw.api.*;
+import org.apache.commons.math3.stat.StatUtils;
 
 public class GcNormalizedRatioMapper implements RatioMapper
 {
     private static final int MIN_BUCKET = 20;
     private static final int MAX_BUCKET = 60;
 
-    private Table mGCMedianReadDepth;
+    private final WindowGrid mWindowGrid;
+
+    // median ratio per GC bucket, from the number of windows counted for the bucket
+    private final double[] mBucketMedians;
+    private final int[] mBucketCounts;
+
     private double mSampleMedianReadDepth;
     private double mSampleMeanReadDepth;
 
-    // apply gc normalisation, the input ratios must have chromosome, position, ratio, gcBucket, isMappable
-    public GcNormalizedRatioMapper()
+    // apply gc normalisation in place, using the window grid's GC content and mappability
+    public GcNormalizedRatioMapper(final WindowGrid windowGrid)
     {
+        mWindowGrid = windowGrid;
+        mBucketMedians = new double[MAX_BUCKET + 1];
+        mBucketCounts = new int[MAX_BUCKET + 1];
     }
 
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public double[] mapRatios(final double[] inputRatios)
     {
         CB_LOGGER.info("applying ratio GC normalization");
 
-        // add a gc bucket column if not already have one
-        if (!inputRatios.containsColumn(CobaltColumns.GC_BUCKET))
+        // count the windows used for the medians, skipping masked regions
+        int medianWindowCount = 0;
+
+        for(int chrIndex = 0; chrIndex < mWindowGrid.chromosomeCount(); ++chrIndex)
         {
-            inputRatios.addColumns(inputRatios.doubleColumn(CobaltColumns.GC_CONTENT)
-                    .multiply(100).round().asIntColumn().setName(CobaltColumns.GC_BUCKET));
+            if(!mWindowGrid.isAutosome(chrIndex))
+                continue;
+
+            for(int windowIndex = mWindowGrid.chromosomeStart(chrIndex); windowIndex < mWindowGrid.chromosomeEnd(chrIndex); ++windowIndex)
+            {
+                int gcBucket = medianGcBucket(windowIndex, inputRatios[windowIndex]);
+
+                if(gcBucket >= 0)
+                {
+                    ++mBucketCounts[gcBucket];
+                    ++medianWindowCount;
+                }
+            }
         }
 
-        // create a gc normalisation df
+        // counting sort the ratios into their buckets, and keep them in genome order for the sample mean
+        double[] sampleRatios = new double[medianWindowCount];
+        double[] bucketRatios = new double[medianWindowCount];
+        int[] bucketOffsets = new int[MAX_BUCKET + 2];
+
+        for(int gcBucket = MIN_BUCKET; gcBucket <= MAX_BUCKET; ++gcBucket)
+        {
+            bucketOffsets[gcBucket + 1] = bucketOffsets[gcBucket] + mBucketCounts[gcBucket];
+        }
 
-        // skipped masked regions
-        Table gcMedianCalcDf = inputRatios.where(
-                inputRatios.doubleColumn(CobaltColumns.RATIO).isGreaterThan(0.0) // TODO: change to >= 0.0
-                        .and(inputRatios.intColumn(CobaltColumns.GC_BUCKET).isBetweenInclusive(MIN_BUCKET, MAX_BUCKET))
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_AUTOSOME).asSelection()));
+        int[] bucketNextIndex = bucketOffsets.clone();
+        int sampleIndex = 0;
 
-        NumericAggregateFunction aggFunc = AggregateFunctions.median;
+        for(int chrIndex = 0; chrIndex < mWindowGrid.chromosomeCount(); ++chrIndex)
+        {
+            if(!mWindowGrid.isAutosome(chrIndex))
+                continue;
+
+            for(int windowIndex = mWindowGrid.chromosomeStart(chrIndex); windowIndex < mWindowGrid.chromosomeEnd(chrIndex); ++windowIndex)
+            {
+                double ratio = inputRatios[windowIndex];
+                int gcBucket = medianGcBucket(windowIndex, ratio);
+
+                if(gcBucket >= 0)
+                {
+                    sampleRatios[sampleIndex++] = ratio;
+                    bucketRatios[bucketNextIndex[gcBucket]++] = ratio;
+                }
+            }
+        }
 
         // get the sample median and mean
-        mSampleMedianReadDepth = aggFunc.summarize(gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO));
-        mSampleMeanReadDepth = gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO).mean();
+        mSampleMedianReadDepth = StatUtils.percentile(sampleRatios, 50);
+        mSampleMeanReadDepth = StatUtils.mean(sampleRatios);
+
+        for(int gcBucket = MIN_BUCKET; gcBucket <= MAX_BUCKET; ++gcBucket)
+        {
+            if(mBucketCounts[gcBucket] > 0)
+                mBucketMedians[gcBucket] = StatUtils.percentile(bucketRatios, bucketOffsets[gcBucket], mBucketCounts[gcBucket], 50);
+        }
 
-        // groupby gcBucket and apply median, to create a table with columns
-        // gcBucket, gcMedianCount, windowCount
-        gcMedianCalcDf = gcMedianCalcDf.retainColumns(CobaltColumns.GC_BUCKET, CobaltColumns.RATIO)
-                .summarize(CobaltColumns.RATIO, aggFunc, AggregateFunctions.count)
-                .by(CobaltColumns.GC_BUCKET);
+        CB_LOGGER.trace("sample median: {}, mean: {}, gc median windows: {}", mSampleMedianReadDepth, mSampleMeanReadDepth, medianWindowCount);
 
-        CB_LOGGER.trace("sample median: {}, mean: {}, gc median calc: {}", mSampleMedianReadDepth, mSampleMeanReadDepth, gcMedianCalcDf);
+        double medianNormalisation = mSampleMedianReadDepth / mSampleMeanReadDepth;
 
-        gcMedianCalcDf.column(String.format("Median [%s]", CobaltColumns.RATIO)).setName("gcMedianCount");
-        gcMedianCalcDf.column(String.format("Count [%s]", CobaltColumns.RATIO)).setName("windowCount");
+        // unmappable windows and those without a GC bucket median are dropped
+        for(int windowIndex = 0; windowIndex < inputRatios.length; ++windowIndex)
+        {
+            double ratio = inputRatios[windowIndex];
 
-        // merge in the gc median count
-        Table ratiosWithMedianCount = inputRatios
-                .where(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                .joinOn(CobaltColumns.GC_BUCKET).inner(gcMedianCalcDf);
+            if(!hasRatio(ratio))
+                continue;
 
-        double medianNormalisation = mSampleMedianReadDepth / mSampleMeanReadDepth;
+            int gcBucket = gcBucket(windowIndex);
 
-        DoubleColumn gcNormalisedRatio = ratiosWithMedianCount.doubleColumn(CobaltColumns.RATIO)
-                .multiply(medianNormalisation)
-                .divide(ratiosWithMedianCount.doubleColumn("gcMedianCount"))
-                .map(d -> Double.isFinite(d) ? d : Double.NaN); // protect against division by 0
+            if(!mWindowGrid.hasFlag(windowIndex, WindowGrid.MAPPABLE) || gcBucket < MIN_BUCKET || gcBucket > MAX_BUCKET
+            || mBucketCounts[gcBucket] == 0)
+            {
+                inputRatios[windowIndex] = Double.NaN;
+            }
+            else if(ratio != INVALID_VALUE_INDICATOR)
+            {
+                double gcNormalisedRatio = ratio * medianNormalisation / mBucketMedians[gcBucket];
 
-        ratiosWithMedianCount.replaceColumn(gcNormalisedRatio.setName(CobaltColumns.RATIO));
+                // protect against division by 0
+                inputRatios[windowIndex] = Double.isFinite(gcNormalisedRatio) ? gcNormalisedRatio : INVALID_VALUE_INDICATOR;
+            }
+        }
 
-        // resort it, the join messes up with the ordering
-        ratiosWithMedianCount = ratiosWithMedianCount.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        return inputRatios;
+    }
 
-        mGCMedianReadDepth = gcMedianCalcDf;
-        return ratiosWithMedianCount;
+    private int gcBucket(int windowIndex)
+    {
+        return (int)Math.round(mWindowGrid.GcContent[windowIndex] * 100);
     }
 
-    public Table gcMedianReadDepthTable()
+    // returns the window's GC bucket if it is used for the median ratios, otherwise -1
+    private int medianGcBucket(int windowIndex, double ratio)
     {
-        return mGCMedianReadDepth;
+        if(!(ratio > 0) || !mWindowGrid.hasFlag(windowIndex, WindowGrid.MAPPABLE))
+            return -1;
+
+        int gcBucket = gcBucket(windowIndex);
+        return gcBucket >= MIN_BUCKET && gcBucket <= MAX_BUCKET ? gcBucket : -1;
     }
 
     public double getSampleMedianReadDepth()
@@ -102,14 +158,17 @@ public class GcNormalizedRatioMapper implements RatioMapper
         return mSampleMeanReadDepth;
     }
 
-    // convert the gc median read count table to the object representation
+    // convert the gc median read counts to the object representation
     public GCMedianReadDepth gcMedianReadDepth()
     {
         final Map<GCBucket, Double> medianPerBucket = new HashMap<>();
-        for (Row row : mGCMedianReadDepth)
+
+        for(int gcBucket = MIN_BUCKET; gcBucket <= MAX_BUCKET; ++gcBucket)
         {
-            medianPerBucket.put(new ImmutableGCBucket(row.getInt(CobaltColumns.GC_BUCKET)), row.getDouble("gcMedianCount"));
+            if(mBucketCounts[gcBucket] > 0)
+                medianPerBucket.put(new ImmutableGCBucket(gcBucket), mBucketMedians[gcBucket]);
         }
+
         return new GCMedianReadDepth(mSampleMeanReadDepth, mSampleMedianReadDepth, medianPerBucket);
     }
 }
@@ -1,9 +1,11 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import tech.tablesaw.api.Table;
-
 public interface RatioMapper
 {
-    // ratio mapper maps input ratio to output
-    Table mapRatios(final Table inputRatios);
+    // ratio mapper maps a ratio column over the window grid to output, either in place or into a new column
+    // a window dropped by an earlier stage has no ratio and holds NaN, whereas a window which is kept but whose ratio
+    // cannot be calculated holds INVALID_VALUE_INDICATOR
+    double[] mapRatios(final double[] inputRatios);
+
+    static boolean hasRatio(double ratio) { return !Double.isNaN(ratio); }
 }
@@ -0,0 +1,74 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import static com.hartwig.hmftools.cobalt.CobaltConstants.INVALID_VALUE_INDICATOR;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createGzipBufferedWriter;
+
+import java.io.IOException;
+
+import com.hartwig.hmftools.cobalt.WindowGrid;
+import com.hartwig.hmftools.cobalt.count.WindowDepths;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
+import com.hartwig.hmftools.common.utils.file.DelimFileWriter;
+
+import org.jetbrains.annotations.Nullable;
+
+// the merged read depths and ratios of each grid window, with null columns for a sample which is not run
+public class RatioResults
+{
+    public final WindowGrid Grid;
+
+    @Nullable public final WindowDepths ReferenceDepths;
+    @Nullable public final WindowDepths TumorDepths;
+
+    @Nullable public final double[] ReferenceGcRatios;
+    @Nullable public final double[] TumorGcRatios;
+    @Nullable public final double[] ReferenceGcDiploidRatios;
+
+    public RatioResults(
+            final WindowGrid grid, @Nullable final WindowDepths referenceDepths, @Nullable final WindowDepths tumorDepths,
+            @Nullable final double[] referenceGcRatios, @Nullable final double[] tumorGcRatios,
+            @Nullable final double[] referenceGcDiploidRatios)
+    {
+        Grid = grid;
+        ReferenceDepths = referenceDepths;
+        TumorDepths = tumorDepths;
+        ReferenceGcRatios = referenceGcRatios;
+        TumorGcRatios = tumorGcRatios;
+        ReferenceGcDiploidRatios = referenceGcDiploidRatios;
+    }
+
+    public double referenceReadDepth(int windowIndex) { return ReferenceDepths != null ? value(ReferenceDepths.ReadDepth, windowIndex) : INVALID_VALUE_INDICATOR; }
+    public double tumorReadDepth(int windowIndex) { return TumorDepths != null ? value(TumorDepths.ReadDepth, windowIndex) : INVALID_VALUE_INDICATOR; }
+    public double referenceGcContent(int windowIndex) { return ReferenceDepths != null ? value(ReferenceDepths.ReadGcContent, windowIndex) : INVALID_VALUE_INDICATOR; }
+    public double tumorGcContent(int windowIndex) { return TumorDepths != null ? value(TumorDepths.ReadGcContent, windowIndex) : INVALID_VALUE_INDICATOR; }
+    public double referenceGcRatio(int windowIndex) { return value(ReferenceGcRatios, windowIndex); }
+    public double tumorGcRatio(int windowIndex) { return value(TumorGcRatios, windowIndex); }
+    public double referenceGcDiploidRatio(int windowIndex) { return value(ReferenceGcDiploidRatios, windowIndex); }
+
+    // a window without a value, including a NaN read GC content from a window without reads, is written as invalid
+    private static double value(@Nullable final double[] column, int windowIndex)
+    {
+        return column != null && !Double.isNaN(column[windowIndex]) ? column[windowIndex] : INVALID_VALUE_INDICATOR;
+    }
+
+    // every grid window is written, in genome order
+    public void write(final String fileName) throws IOException
+    {
+        try(DelimFileWriter<Integer> writer = new DelimFileWriter<>(
+                createGzipBufferedWriter(fileName), CobaltRatioFile.Column.values(), (windowIndex, row) ->
+                {
+                    int chrIndex = Grid.windowChromosome(windowIndex);
+
+                    CobaltRatioFile.setRow(row, Grid.chromosome(chrIndex), Grid.position(chrIndex, windowIndex),
+                            referenceReadDepth(windowIndex), tumorReadDepth(windowIndex),
+                            referenceGcRatio(windowIndex), tumorGcRatio(windowIndex), referenceGcDiploidRatio(windowIndex),
+                            referenceGcContent(windowIndex), tumorGcContent(windowIndex));
+                }))
+        {
+            for(int windowIndex = 0; windowIndex < Grid.windowCount(); ++windowIndex)
+            {
+                writer.writeRow(windowIndex);
+            }
+        }
+    }
+}
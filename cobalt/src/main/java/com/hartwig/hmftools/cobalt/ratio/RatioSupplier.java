@@ -1,28 +1,27 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.toCommonChromosomeMap;
+import static com.hartwig.hmftools.cobalt.CobaltConstants.INVALID_VALUE_INDICATOR;
 import static com.hartwig.hmftools.cobalt.ratio.DiploidRatioSupplier.calcDiploidRatioResults;
+import static com.hartwig.hmftools.cobalt.ratio.RatioMapper.hasRatio;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import tech.tablesaw.api.*;
-import tech.tablesaw.columns.Column;
-
 import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.cobalt.CobaltConstants;
+import com.hartwig.hmftools.cobalt.WindowGrid;
+import com.hartwig.hmftools.cobalt.count.WindowDepths;
 import com.hartwig.hmftools.cobalt.lowcov.LowCovBucket;
 import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
+import com.hartwig.hmftools.cobalt.targeted.TargetRegionEnrichment;
 import com.hartwig.hmftools.cobalt.targeted.TargetedRatioMapper;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
-import com.hartwig.hmftools.common.cobalt.MedianRatioFactory;
 import com.hartwig.hmftools.common.cobalt.MedianRatioFile;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepthFile;
+import com.hartwig.hmftools.common.utils.Doubles;
 
-import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -32,14 +31,11 @@ public class RatioSupplier
     private final String mReferenceId;
     @Nullable private final String mOutputDir;
 
-    private final Table mGcProfiles;
-    @Nullable private final Table mReferenceDepths;
-    @Nullable private final Table mTumorDepths;
-
-    // a table with chromosome, position, relativeEnrichment
-    private Table mTargetRegionEnrichment = null;
+    private final WindowGrid mWindowGrid;
+    @Nullable private final WindowDepths mReferenceDepths;
+    @Nullable private final WindowDepths mTumorDepths;
 
-    private final ChromosomePositionCodec mChromosomePosCodec;
+    private TargetRegionEnrichment mTargetRegionEnrichment = null;
 
     enum SparseBucketPolicy
     {
@@ -55,53 +51,39 @@ public class RatioSupplier
 
         @Nullable Multimap<String, LowCovBucket> consolidatedBuckets;
 
-        // chromosomePositionIndex, ratio
-        Table readRatios;
+        // ratio per grid window
+        double[] readRatios;
 
-        Table getRatios() { return readRatios; }
+        double[] getRatios() { return readRatios; }
 
         SampleRatios(
                 final String sampleId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final WindowGrid windowGrid,
+                final WindowDepths readDepths,
+                @Nullable TargetRegionEnrichment targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                @Nullable final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                @Nullable final String outputDir) throws IOException
         {
             CB_LOGGER.info("calculating sample ratios for {}", sampleId);
 
-            readRatios = readDepths.copy().setName("readRatios");
-
-            CB_LOGGER.info("merging in GC profile");
+            // set the read depth as ratio, but filter out unmappable regions
+            readRatios = new double[windowGrid.windowCount()];
 
-            // merge in the gc profile
-            readRatios = readRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).leftOuter(gcProfiles);
-
-            // set column as ratio, but filter out unmappable regions
-            DoubleColumn ratioColumn = DoubleColumn.create(CobaltColumns.RATIO);
-            for (Row row : readRatios)
+            for(int windowIndex = 0; windowIndex < readRatios.length; ++windowIndex)
             {
-                if(!row.isMissing(CobaltColumns.IS_MAPPABLE) && row.getBoolean(CobaltColumns.IS_MAPPABLE))
-                {
-                    ratioColumn.append(row.getDouble(CobaltColumns.READ_DEPTH));
-                }
-                else
-                {
-                    ratioColumn.appendMissing();
-                }
+                readRatios[windowIndex] = windowGrid.hasFlag(windowIndex, WindowGrid.MAPPABLE) ?
+                        readDepths.ReadDepth[windowIndex] : INVALID_VALUE_INDICATOR;
             }
-            readRatios.addColumns(ratioColumn);
 
             // on target ratios
             if(targetRegionEnrichment != null)
             {
                 CB_LOGGER.info("using targeted ratio");
-                readRatios = new TargetedRatioMapper(targetRegionEnrichment, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new TargetedRatioMapper(targetRegionEnrichment, windowGrid).mapRatios(readRatios);
             }
 
-            gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
+            gcNormalizedRatioMapper = new GcNormalizedRatioMapper(windowGrid);
             readRatios = gcNormalizedRatioMapper.mapRatios(readRatios);
 
             switch (sparseBucketPolicy)
@@ -117,7 +99,7 @@ public class RatioSupplier
                     // determine consolidated buckets
                     // determine the low cov consolidation window count
                     double medianReadDepth = gcNormalizedRatioMapper.getSampleMedianReadDepth();
-                    this.consolidatedBuckets = LowCoverageRatioMapper.calcConsolidateBuckets(readRatios, medianReadDepth);
+                    this.consolidatedBuckets = LowCoverageRatioMapper.calcConsolidateBuckets(windowGrid, readRatios, medianReadDepth);
                     break;
                 }
             }
@@ -125,7 +107,7 @@ public class RatioSupplier
             if(this.consolidatedBuckets != null)
             {
                 CB_LOGGER.info("using low coverage ratio");
-                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, windowGrid).mapRatios(readRatios);
             }
 
             if(outputDir != null)
@@ -140,55 +122,51 @@ public class RatioSupplier
     static class GermlineRatios extends SampleRatios
     {
         // processing states
-        private final Table gcDiploidRatios;
+        private final double[] gcDiploidRatios;
 
         GermlineRatios(final String referenceId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final WindowGrid windowGrid,
+                final WindowDepths readDepths,
+                @Nullable TargetRegionEnrichment targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                final String outputDir) throws IOException
         {
-            super(referenceId, readDepths, gcProfiles, targetRegionEnrichment, sparseBucketPolicy,
-                    consolidatedBuckets, outputDir, chromosomePosCodec);
+            super(referenceId, windowGrid, readDepths, targetRegionEnrichment, sparseBucketPolicy,
+                    consolidatedBuckets, outputDir);
 
-            // TODO: check this
-            final List<MedianRatio> medianRatios = MedianRatioFactory.createFromReadRatio(toCommonChromosomeMap(getRatios()));
+            final List<MedianRatio> medianRatios = calcMedianRatios(windowGrid, getRatios());
 
             CB_LOGGER.info("persisting {} gc ratio medians to {}", referenceId, outputDir);
             final String ratioMedianFilename = MedianRatioFile.generateFilename(outputDir, referenceId);
             MedianRatioFile.write(ratioMedianFilename, medianRatios);
 
             CB_LOGGER.info("applying ratio diploid normalization");
-            gcDiploidRatios = calcDiploidRatioResults(getRatios(), medianRatios);
+            gcDiploidRatios = calcDiploidRatioResults(windowGrid, getRatios(), medianRatios);
         }
     }
 
     public RatioSupplier(final String reference, final String tumor,
             @Nullable final String outputDirectory,
-            final Table gcProfiles,
-            @Nullable final Table referenceDepths,
-            @Nullable final Table tumorDepths,
-            ChromosomePositionCodec chromosomePosCodec)
+            final WindowGrid windowGrid,
+            @Nullable final WindowDepths referenceDepths,
+            @Nullable final WindowDepths tumorDepths)
     {
         mTumorId = tumor;
         mReferenceId = reference;
         mOutputDir = outputDirectory;
-        mGcProfiles = gcProfiles;
+        mWindowGrid = windowGrid;
         mReferenceDepths = referenceDepths;
         mTumorDepths = tumorDepths;
-        mChromosomePosCodec = chromosomePosCodec;
     }
-    
-    public void setTargetRegionEnrichment(Table targetRegionEnrichment)
+
+    public void setTargetRegionEnrichment(final TargetRegionEnrichment targetRegionEnrichment)
     {
         mTargetRegionEnrichment = targetRegionEnrichment;
     }
 
     @NotNull
-    public Table tumorOnly(final Table diploidRegions) throws IOException
+    public RatioResults tumorOnly() throws IOException
     {
         if(mTumorDepths == null)
         {
@@ -196,21 +174,21 @@ public class RatioSupplier
             throw new RuntimeException("tumor count is null");
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
-        Table tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment, sparseBucketPolicy,
-                null, mOutputDir, mChromosomePosCodec).getRatios();
+        double[] tumorRatios = new SampleRatios(mTumorId, mWindowGrid, mTumorDepths, mTargetRegionEnrichment, sparseBucketPolicy,
+                null, mOutputDir).getRatios();
 
-        // filter tumor ratios by the diploid regions
-        // we use inner join to remove any tumor ratios that are not in the diploid regions
-        tumorRatios = tumorRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS)
-                .inner(diploidRegions.selectColumns(CobaltColumns.ENCODED_CHROMOSOME_POS))
-                .sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        // filter tumor ratios by the diploid regions, as marked in the window grid
+        for(int windowIndex = 0; windowIndex < tumorRatios.length; ++windowIndex)
+        {
+            if(!mWindowGrid.hasFlag(windowIndex, WindowGrid.DIPLOID_REGION))
+                tumorRatios[windowIndex] = Double.NaN;
+        }
 
-        // merge this ratios together into one cobalt ratio
-        return mergeRatios(null, mTumorDepths, null, tumorRatios, null);
+        return new RatioResults(mWindowGrid, null, mTumorDepths, null, tumorRatios, null);
     }
 
     @NotNull
-    public Table germlineOnly() throws IOException
+    public RatioResults germlineOnly() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -218,15 +196,15 @@ public class RatioSupplier
             throw new RuntimeException("reference count is null");
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
-        var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                sparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
-        return mergeRatios(
-                mReferenceDepths, null,
+        var germlineRatios = new GermlineRatios(mReferenceId, mWindowGrid, mReferenceDepths, mTargetRegionEnrichment,
+                sparseBucketPolicy, null, mOutputDir);
+        return new RatioResults(
+                mWindowGrid, mReferenceDepths, null,
                 germlineRatios.getRatios(), null, germlineRatios.gcDiploidRatios);
     }
 
     @NotNull
-    public Table tumorNormalPair() throws IOException
+    public RatioResults tumorNormalPair() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -241,125 +219,58 @@ public class RatioSupplier
         SparseBucketPolicy tumorSparseBucketPolicy = mTargetRegionEnrichment == null ?
                 SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
 
-        var tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment,
-                tumorSparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+        var tumorRatios = new SampleRatios(mTumorId, mWindowGrid, mTumorDepths, mTargetRegionEnrichment,
+                tumorSparseBucketPolicy, null, mOutputDir);
 
         SparseBucketPolicy germlineSparseBucketPolicy = tumorRatios.consolidatedBuckets == null ?
                 SparseBucketPolicy.DO_NOT_CONSOLIDATE : SparseBucketPolicy.USE_PROVIDED_BUCKETS;
 
-        var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir, mChromosomePosCodec);
+        var germlineRatios = new GermlineRatios(mReferenceId, mWindowGrid, mReferenceDepths, mTargetRegionEnrichment,
+                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir);
 
-        return mergeRatios(
-                mReferenceDepths, mTumorDepths,
+        return new RatioResults(
+                mWindowGrid, mReferenceDepths, mTumorDepths,
                 germlineRatios.getRatios(), tumorRatios.getRatios(), germlineRatios.gcDiploidRatios);
     }
 
-    // merge everything together
-    @NotNull
-    private static Table mergeRatios(
-            @Nullable Table referenceDepths,
-            @Nullable Table tumorDepths,
-            @Nullable Table referenceRatios,
-            @Nullable Table tumorRatios,
-            @Nullable Table referenceDiploidRatios)
+    // median of the positive ratios of each chromosome which has ratios
+    static List<MedianRatio> calcMedianRatios(final WindowGrid windowGrid, final double[] ratios)
     {
-        CB_LOGGER.info("start merging ratios");
-
-        // get all the chromosome positions from the counts
-        Table result = Table.create(LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS));
-
-        // now we make sure all tables are valid, by setting missing tables to empty
-        if(referenceDepths == null)
-        {
-            referenceDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+        List<MedianRatio> medianRatios = new ArrayList<>();
 
-        if(tumorDepths == null)
+        for(int chrIndex = 0; chrIndex < windowGrid.chromosomeCount(); ++chrIndex)
         {
-            tumorDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+            int chrStart = windowGrid.chromosomeStart(chrIndex);
+            int chrEnd = windowGrid.chromosomeEnd(chrIndex);
 
-        if(referenceRatios == null)
-        {
-            referenceRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+            boolean hasRatios = false;
+            double[] contigRatios = new double[chrEnd - chrStart];
+            int count = 0;
 
-        if(tumorRatios == null)
-        {
-            tumorRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
-
-        if(referenceDiploidRatios == null)
-        {
-            referenceDiploidRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
-
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.REFERENCE_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.REFERENCE_GC_CONTENT);
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
-
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.TUMOR_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.TUMOR_GC_CONTENT);
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
-
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCRatio");
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
-
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("tumorGCRatio");
+            for(int windowIndex = chrStart; windowIndex < chrEnd; ++windowIndex)
+            {
+                hasRatios |= hasRatio(ratios[windowIndex]);
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDiploidRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+                if(Doubles.positive(ratios[windowIndex]))
+                    contigRatios[count++] = ratios[windowIndex];
+            }
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCDiploidRatio");
+            if(!hasRatios)
+                continue;
 
-        Validate.isTrue(result.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
+            Arrays.sort(contigRatios, 0, count);
 
-        // sort by the encoded chromosome pos
-        result = result.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+            double medianRatio = 0;
 
-        // set any missing value to -1
-        for (Column<?> c: result.columns())
-        {
-            if(c instanceof IntColumn)
+            if(count > 0)
             {
-                ((IntColumn)c).setMissingTo(CobaltConstants.INVALID_VALUE_INDICATOR);
+                medianRatio = count % 2 == 0 ?
+                        (contigRatios[count / 2] + contigRatios[count / 2 - 1]) / 2 : contigRatios[count / 2];
             }
-            else if(c instanceof DoubleColumn)
-            {
-                ((DoubleColumn)c).setMissingTo((double)CobaltConstants.INVALID_VALUE_INDICATOR);
-                // ((DoubleColumn)c).map(d -> Double.isFinite(d) ? d : -1.0);
-            }
-        }
 
-        CB_LOGGER.info("finish merging ratios");
+            medianRatios.add(new MedianRatio(windowGrid.chromosome(chrIndex), medianRatio, count));
+        }
 
-        return result;
+        return medianRatios;
     }
-}
\ No newline at end of file
+}
@@ -1,74 +1,67 @@
 package com.hartwig.hmftools.cobalt.targeted;
 
-import com.hartwig.hmftools.common.genome.position.GenomePosition;
-import com.hartwig.hmftools.common.genome.position.GenomePositions;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
+import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
+import com.hartwig.hmftools.cobalt.WindowGrid;
+import com.hartwig.hmftools.common.utils.file.DelimFileReader;
 
+// the target region windows of the normalisation file and their relative enrichment, NaN where the enrichment was too low
 public class TargetRegionEnrichment
 {
-    private final List<GenomePosition> mTargetedRegions = new ArrayList<>();
-    private final Map<GenomePosition, Double> mTargetRelativeEnrichment = new TreeMap<>(GenomePosition::compare);
+    public final int[] WindowIndices; // in grid order
+    public final double[] RelativeEnrichment;
 
-    public List<GenomePosition> getTargetedRegions()
-    {
-        return mTargetedRegions;
-    }
+    private static final String COL_CHROMOSOME = "chromosome";
+    private static final String COL_POSITION = "position";
+    private static final String COL_RELATIVE_ENRICHMENT = "relativeEnrichment";
 
-    public Map<GenomePosition, Double> getTargetRelativeEnrichment()
+    public TargetRegionEnrichment(final int[] windowIndices, final double[] relativeEnrichment)
     {
-        return mTargetRelativeEnrichment;
+        WindowIndices = windowIndices;
+        RelativeEnrichment = relativeEnrichment;
     }
 
-    private static final char DELIMITER = '\t';
-
-    public static TargetRegionEnrichment fromTsv(String fileName) throws IOException
+    public static TargetRegionEnrichment fromTsv(final String fileName, final WindowGrid windowGrid)
     {
-        TargetRegionEnrichment targetRegionEnrichment = new TargetRegionEnrichment();
+        // windows are set in a grid-sized column first, since the file need not be in the grid's chromosome order
+        double[] windowEnrichment = new double[windowGrid.windowCount()];
+        boolean[] isTarget = new boolean[windowGrid.windowCount()];
+        int count = 0;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName)))
+        try(DelimFileReader reader = new DelimFileReader(fileName))
         {
-            CSVFormat format = CSVFormat.Builder.create()
-                    .setDelimiter(DELIMITER)
-                    .setRecordSeparator('\n')
-                    .setHeader().setSkipHeaderRecord(true)
-                    .build();
-            Iterable<CSVRecord> records = format.parse(reader);
-
-            for (CSVRecord record : records)
+            for(DelimFileReader.Row row : reader)
             {
-                String chromosome = record.get("chromosome").intern();
-                int position = (int) Double.parseDouble(record.get("position"));
-                Double relativeEnrichment = parseDoubleOrNull(record.get("relativeEnrichment"));
-                GenomePosition genomePosition = GenomePositions.create(chromosome, position);
-                targetRegionEnrichment.mTargetedRegions.add(genomePosition);
-                if (relativeEnrichment != null && !Double.isNaN(relativeEnrichment))
-                {
-                    targetRegionEnrichment.mTargetRelativeEnrichment.put(genomePosition, relativeEnrichment);
-                }
+                int windowIndex = windowGrid.windowIndex(row.get(COL_CHROMOSOME), row.getInt(COL_POSITION));
+
+                if(windowIndex < 0 || isTarget[windowIndex])
+                    continue;
+
+                Double relativeEnrichment = row.getDoubleOrNull(COL_RELATIVE_ENRICHMENT);
+                windowEnrichment[windowIndex] = relativeEnrichment != null ? relativeEnrichment : Double.NaN;
+                isTarget[windowIndex] = true;
+                ++count;
             }
         }
 
-        return targetRegionEnrichment;
-    }
+        int[] windowIndices = new int[count];
+        double[] relativeEnrichment = new double[count];
+        int index = 0;
 
-    private static Double parseDoubleOrNull(String value)
-    {
-        try
+        for(int windowIndex = 0; windowIndex < isTarget.length; ++windowIndex)
         {
-            return Double.parseDouble(value);
-        }
-        catch (NumberFormatException e)
-        {
-            return null;
+            if(isTarget[windowIndex])
+            {
+                windowIndices[index] = windowIndex;
+                relativeEnrichment[index] = windowEnrichment[windowIndex];
+                ++index;
+            }
         }
+
+        CB_LOGGER.info("loaded {} target region windows from {}", count, fileName);
+
+        return new TargetRegionEnrichment(windowIndices, relativeEnrichment);
     }
+
+    public int size() { return WindowIndices.length; }
 }
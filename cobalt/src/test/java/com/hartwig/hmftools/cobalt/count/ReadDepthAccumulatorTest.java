@@ -3,15 +3,12 @@ package com.hartwig.hmftools.cobalt.count;
 import static com.hartwig.hmftools.cobalt.CobaltTestUtils.EPSILON;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
 
 import static htsjdk.samtools.util.SequenceUtil.A;
 import static htsjdk.samtools.util.SequenceUtil.C;
 import static htsjdk.samtools.util.SequenceUtil.G;
 import static htsjdk.samtools.util.SequenceUtil.T;
 
-import java.util.List;
-
 import org.junit.Test;
 
 public class ReadDepthAccumulatorTest
@@ -24,11 +21,12 @@ public class ReadDepthAccumulatorTest
         ReadDepthAccumulator readDepthCounter = new ReadDepthAccumulator(1000);
         readDepthCounter.addChromosome(CHROMOSOME, 2000);
 
-        // test that it gets the correct windows
-        List<ReadDepth> readDepths = readDepthCounter.getChromosomeReadDepths(CHROMOSOME);
+        // the chromosome's windows are set from the start window index onwards
+        WindowDepths readDepths = new WindowDepths(3);
+        readDepthCounter.populateReadDepths(CHROMOSOME, readDepths, 1);
 
-        assertNotNull(readDepths);
-        assertEquals(2, readDepths.size());
+        assertEquals(0, readDepths.ReadDepth[1], EPSILON);
+        assertEquals(0, readDepths.ReadDepth[2], EPSILON);
 
         byte[] bases = new byte[1000];
 
@@ -51,19 +49,13 @@ public class ReadDepthAccumulatorTest
         // add some read data
         readDepthCounter.addReadAlignmentToCounts(CHROMOSOME, 501, 1000, bases, 0);
 
-        readDepths = readDepthCounter.getChromosomeReadDepths(CHROMOSOME);
-        assertNotNull(readDepths);
-        assertEquals(2, readDepths.size());
-        ReadDepth readDepth = readDepths.get(0);
-        assertEquals(1, readDepth.StartPosition);
-        assertEquals(0.5, readDepth.ReadDepth, EPSILON);
+        readDepthCounter.populateReadDepths(CHROMOSOME, readDepths, 1);
+        assertEquals(0.5, readDepths.ReadDepth[1], EPSILON);
         // gc percent should be 0.8 as first 400 bases were GC, and next 100 bases were AT
-        assertEquals(0.8, readDepth.ReadGcContent, EPSILON);
-        readDepth = readDepths.get(1);
-        assertEquals(1001, readDepth.StartPosition);
-        assertEquals(0.5, readDepth.ReadDepth, EPSILON);
+        assertEquals(0.8, readDepths.ReadGcContent[1], EPSILON);
+        assertEquals(0.5, readDepths.ReadDepth[2], EPSILON);
         // gc percent should be 0.4 as first 300 bases were AT, and next 200 bases were GC
-        assertEquals(0.4, readDepth.ReadGcContent, EPSILON);
+        assertEquals(0.4, readDepths.ReadGcContent[2], EPSILON);
 
         // add one more read that only covers the first window
 
@@ -77,21 +69,19 @@ public class ReadDepthAccumulatorTest
         }
 
         readDepthCounter.addReadAlignmentToCounts(CHROMOSOME, 1, 1000, bases, 0);
-        readDepths = readDepthCounter.getChromosomeReadDepths(CHROMOSOME);
-        assertNotNull(readDepths);
-        assertEquals(2, readDepths.size());
-        readDepth = readDepths.get(0);
-        assertEquals(1, readDepth.StartPosition);
-        assertEquals(1.5, readDepth.ReadDepth, EPSILON);
+        readDepthCounter.populateReadDepths(CHROMOSOME, readDepths, 1);
+        assertEquals(1.5, readDepths.ReadDepth[1], EPSILON);
 
         // first read has 0.8 gc with 500 bases covered, second read has 0.5 gc with 1000 bases
         // together it becomes 0.6
-        assertEquals(0.6, readDepth.ReadGcContent, EPSILON);
+        assertEquals(0.6, readDepths.ReadGcContent[1], EPSILON);
 
         // second read should have no change
-        readDepth = readDepths.get(1);
-        assertEquals(1001, readDepth.StartPosition);
-        assertEquals(0.5, readDepth.ReadDepth, EPSILON);
-        assertEquals(0.4, readDepth.ReadGcContent, EPSILON);
+        assertEquals(0.5, readDepths.ReadDepth[2], EPSILON);
+        assertEquals(0.4, readDepths.ReadGcContent[2], EPSILON);
+
+        // windows before the chromosome's and of untracked chromosomes are not set
+        readDepthCounter.populateReadDepths("chr2", readDepths, 0);
+        assertEquals(0, readDepths.ReadDepth[0], EPSILON);
     }
 }
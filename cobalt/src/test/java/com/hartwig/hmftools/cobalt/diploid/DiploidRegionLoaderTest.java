@@ -1,47 +1,48 @@
 package com.hartwig.hmftools.cobalt.diploid;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 
 import java.util.List;
 
 import com.hartwig.hmftools.cobalt.Chromosome;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
 import htsjdk.samtools.util.Locatable;
 
-import tech.tablesaw.api.*;
-
 public class DiploidRegionLoaderTest
 {
     @Test
     public void testBuildRatios()
     {
-        String chr1 = "1";
-        String chr2 = "2";
-        ChromosomePositionCodec chromosomePosCodec = new ChromosomePositionCodec();
-        DiploidRegionLoader victim = new DiploidRegionLoader(chromosomePosCodec);
+        WindowGrid windowGrid = new WindowGrid(List.of(new Chromosome("1", 10000), new Chromosome("2", 10000)), 1000);
+        DiploidRegionLoader victim = new DiploidRegionLoader(windowGrid);
         victim.accept(locatable("1", 1001, 3000));
         victim.accept(locatable("1", 5001, 6000));
         victim.accept(locatable("2", 1001, 3000));
 
-        Table result = victim.build();
-        assertEquals(5, result.rowCount());
-        StringColumn chrColumn = result.stringColumn(CobaltColumns.CHROMOSOME);
-        assertReadRatio("1", 1001, result.where(chrColumn.isEqualTo(chr1)).row(0));
-        assertReadRatio("1", 2001, result.where(chrColumn.isEqualTo(chr1)).row(1));
-        assertReadRatio("1", 5001, result.where(chrColumn.isEqualTo(chr1)).row(2));
-        assertReadRatio("2", 1001, result.where(chrColumn.isEqualTo(chr2)).row(0));
-        assertReadRatio("2", 2001, result.where(chrColumn.isEqualTo(chr2)).row(1));
+        int diploidWindowCount = 0;
+
+        for(int windowIndex = 0; windowIndex < windowGrid.windowCount(); ++windowIndex)
+        {
+            if(windowGrid.hasFlag(windowIndex, WindowGrid.DIPLOID_REGION))
+                ++diploidWindowCount;
+        }
+
+        assertEquals(5, diploidWindowCount);
+        assertDiploidRegion(windowGrid, "1", 1001);
+        assertDiploidRegion(windowGrid, "1", 2001);
+        assertDiploidRegion(windowGrid, "1", 5001);
+        assertDiploidRegion(windowGrid, "2", 1001);
+        assertDiploidRegion(windowGrid, "2", 2001);
     }
 
-    private void assertReadRatio(@NotNull String contig, long position, @NotNull Row victim)
+    private void assertDiploidRegion(@NotNull WindowGrid windowGrid, @NotNull String contig, int position)
     {
-        assertEquals(contig, victim.getString(CobaltColumns.CHROMOSOME));
-        assertEquals(position, victim.getInt(CobaltColumns.POSITION));
+        assertTrue(windowGrid.hasFlag(windowGrid.windowIndex(contig, position), WindowGrid.DIPLOID_REGION));
     }
 
     @NotNull
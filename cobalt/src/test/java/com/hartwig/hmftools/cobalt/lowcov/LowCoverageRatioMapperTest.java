@@ -2,16 +2,15 @@ package com.hartwig.hmftools.cobalt.lowcov;
 
 import static org.junit.Assert.assertEquals;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.Chromosome;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 
 import org.junit.Test;
 
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapperTest
 {
     @Test
@@ -34,18 +33,10 @@ public class LowCoverageRatioMapperTest
     @Test
     public void testCalcConsolidateBoundaries()
     {
-        List<Integer> windowPositions = new ArrayList<>();
-        windowPositions.add(1_001);
-        windowPositions.add(2_001);
-        windowPositions.add(5_001);
-        windowPositions.add(6_001);
-        windowPositions.add(10_001);
-
-        // test we do not span over centromere
-        windowPositions.add(3_020_001);
-        windowPositions.add(3_021_001);
-        windowPositions.add(3_024_001);
-        windowPositions.add(3_029_001);
+        int[] windowPositions = new int[] {
+                1_001, 2_001, 5_001, 6_001, 10_001,
+                // test we do not span over centromere
+                3_020_001, 3_021_001, 3_024_001, 3_029_001 };
 
         List<LowCovBucket> buckets = LowCoverageRatioMapper.consolidateIntoBuckets(windowPositions, 4);
 
@@ -59,7 +50,8 @@ public class LowCoverageRatioMapperTest
         assertEquals(3_020_001, buckets.get(2).StartPosition);
         assertEquals(3_030_001, buckets.get(2).EndPosition);
 
-        windowPositions.add(3_034_001);
+        windowPositions = Arrays.copyOf(windowPositions, windowPositions.length + 1);
+        windowPositions[windowPositions.length - 1] = 3_034_001;
 
         buckets = LowCoverageRatioMapper.consolidateIntoBuckets(windowPositions, 4);
 
@@ -80,28 +72,26 @@ public class LowCoverageRatioMapperTest
     @Test
     public void testCalcConsolidateBoundaryRatios()
     {
-        final Table rawRatios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO));
+        final WindowGrid windowGrid = new WindowGrid(List.of(new Chromosome("chr1", 21000)), 1000);
+        final double[] rawRatios = new double[windowGrid.windowCount()];
+        Arrays.fill(rawRatios, Double.NaN);
 
-        Row row;
         // add in some chromosome read ratio
-        appendReadRatio(rawRatios, "chr1", 1001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 2001, -1.0);
-        appendReadRatio(rawRatios, "chr1", 3001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 5001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 9001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 1001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 2001, -1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 3001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 5001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 9001, 1.0);
 
-        appendReadRatio(rawRatios, "chr1", 10001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 12001, -1.0);
-        appendReadRatio(rawRatios, "chr1", 13001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 14001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 16001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 10001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 12001, -1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 13001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 14001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 16001, 1.0);
 
-        appendReadRatio(rawRatios, "chr1", 19001, 1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 19001, 1.0);
 
-        List<LowCovBucket> buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(rawRatios, 4)).get("chr1");
+        List<LowCovBucket> buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(windowGrid, rawRatios, 4)).get("chr1");
 
         assertEquals(3, buckets.size());
 
@@ -117,9 +107,9 @@ public class LowCoverageRatioMapperTest
         assertEquals(20001, buckets.get(2).EndPosition);
 
         // put a masked out ratio at the end, should also work
-        row = rawRatios.appendRow(); row.setString("chromosome", "chr1"); row.setInt("position", 20001); row.setDouble("ratio", -1.0);
+        appendReadRatio(windowGrid, rawRatios, "chr1", 20001, -1.0);
 
-        buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(rawRatios, 4)).get("chr1");
+        buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(windowGrid, rawRatios, 4)).get("chr1");
 
         assertEquals(3, buckets.size());
 
@@ -133,11 +123,8 @@ public class LowCoverageRatioMapperTest
     }
 
     @SuppressWarnings("SameParameterValue")
-    private static void appendReadRatio(Table table, String chromosome, int position, double ratio)
+    private static void appendReadRatio(final WindowGrid windowGrid, final double[] ratios, String chromosome, int position, double ratio)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.RATIO, ratio);
+        ratios[windowGrid.windowIndex(chromosome, position)] = ratio;
     }
 }
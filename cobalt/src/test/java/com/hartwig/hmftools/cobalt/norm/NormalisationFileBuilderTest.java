@@ -0,0 +1,296 @@
+package com.hartwig.hmftools.cobalt.norm;
+
+import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.usedHeap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import com.hartwig.hmftools.common.amber.AmberBAF;
+import com.hartwig.hmftools.common.amber.AmberBAFFile;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
+import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NormalisationFileBuilderTest
+{
+    // run with -Dcobalt_norm_samples=1000 to time a cohort at the scale of a panel normal build
+    private static final int BENCHMARK_SAMPLE_COUNT = Integer.getInteger("cobalt_norm_samples", 20);
+
+    private static final String[] CHROMOSOMES = { "1", "2", "X" };
+    private static final int CHROMOSOME_LENGTH = 3_000_000;
+    private static final int WINDOW_SIZE = 1000;
+
+    // written by the builder before it moved to a sample matrix, for the cohort created from seed 3 with 6 samples
+    private static final String EXPECTED_NORMALISATION = Resources.getResource("norm/cohort_normalisation.tsv").getPath();
+
+    private File mTempDir;
+    private int mRegionCount;
+
+    @Before
+    public void setup() throws IOException
+    {
+        mTempDir = createTempDir("cobalt_norm");
+    }
+
+    @After
+    public void tearDown()
+    {
+        deleteDir(mTempDir);
+    }
+
+    @Test
+    public void testThreadedMatchesSerial() throws IOException
+    {
+        writeCohort(new Random(0), 20);
+
+        runBuilder(1, "norm_1.tsv", "detailed_1.tsv");
+        runBuilder(4, "norm_4.tsv", "detailed_4.tsv");
+
+        List<String> normLines = readLines("norm_1.tsv");
+        assertTrue(normLines.size() > 1);
+        assertTrue(normLines.stream().skip(1).anyMatch(x -> !x.endsWith("NaN")));
+
+        assertEquals(normLines, readLines("norm_4.tsv"));
+        assertEquals(readLines("detailed_1.tsv"), readLines("detailed_4.tsv"));
+    }
+
+    @Test
+    public void testMatchesPreviousBuilder() throws IOException
+    {
+        writeCohort(new Random(3), 6, 200_000);
+
+        runBuilder(1, "norm_1.tsv", null);
+        runBuilder(4, "norm_4.tsv", null);
+
+        List<String> expectedLines = Files.readAllLines(Paths.get(EXPECTED_NORMALISATION));
+        assertEquals(expectedLines, readLines("norm_1.tsv"));
+        assertEquals(expectedLines, readLines("norm_4.tsv"));
+    }
+
+    @Test
+    public void testBenchmark() throws IOException
+    {
+        writeCohort(new Random(1), BENCHMARK_SAMPLE_COUNT);
+
+        for(int threads : new int[] { 1, 4, 16 })
+        {
+            long startTime = System.nanoTime();
+            runBuilder(threads, "norm.tsv", null);
+            long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+            CB_LOGGER.info("normalisation benchmark: samples({}) threads({}) time({}ms)", BENCHMARK_SAMPLE_COUNT, threads, elapsedMs);
+        }
+    }
+
+    @Test
+    public void testHeapScalesWithMatrix() throws IOException
+    {
+        // the retained heap from loading more samples should only be their matrix columns, read depths and WGS ratios
+        // held as floats, so about 8 bytes per region sample
+        int sampleCount = 20;
+        writeCohort(new Random(2), sampleCount * 3);
+
+        retainedLoadBytes(sampleCount); // to load classes before measuring
+
+        long smallCohortBytes = retainedLoadBytes(sampleCount);
+        long largeCohortBytes = retainedLoadBytes(sampleCount * 3);
+        int regionCount = mRegionCount;
+
+        double bytesPerValue = (largeCohortBytes - smallCohortBytes) / (double)(regionCount * sampleCount * 2);
+        CB_LOGGER.info("normalisation heap: bytes per region sample({})", String.format("%.1f", bytesPerValue));
+
+        // a generous bound which still fails if each region sample is held as a boxed value or object
+        assertTrue(bytesPerValue < 16);
+    }
+
+    private long retainedLoadBytes(int cohortSize) throws IOException
+    {
+        writeSampleIdFile(cohortSize);
+
+        NormalisationFileBuilder builder = new NormalisationFileBuilder(createConfig(1, "norm.tsv", null));
+        builder.loadReferenceData();
+
+        long usedBefore = usedHeap();
+        SampleRegionMatrix sampleMatrix = builder.loadSampleData();
+        long retainedBytes = usedHeap() - usedBefore;
+        mRegionCount = sampleMatrix.RegionCount;
+
+        CB_LOGGER.info("normalisation heap: samples({}) regions({}) retained({}KB)",
+                cohortSize, sampleMatrix.RegionCount, retainedBytes / 1024);
+
+        return retainedBytes;
+    }
+
+    private List<String> readLines(final String filename) throws IOException
+    {
+        return Files.readAllLines(new File(mTempDir, filename).toPath());
+    }
+
+    private void runBuilder(int threads, final String outputFile, @Nullable final String detailedFile)
+    {
+        new NormalisationFileBuilder(createConfig(threads, outputFile, detailedFile)).run();
+    }
+
+    private ConfigBuilder createConfig(int threads, final String outputFile, @Nullable final String detailedFile)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        NormalisationConfig.registerConfig(configBuilder);
+
+        List<String> args = Lists.newArrayList(
+                "-sample_id_file", new File(mTempDir, "samples.csv").getAbsolutePath(),
+                "-amber_dir", new File(mTempDir, "amber").getAbsolutePath(),
+                "-cobalt_dir", new File(mTempDir, "cobalt_panel").getAbsolutePath(),
+                "-cobalt_wgs_dir", new File(mTempDir, "cobalt_wgs").getAbsolutePath(),
+                "-ref_genome_version", "37",
+                "-target_regions_bed", new File(mTempDir, "panel.bed").getAbsolutePath(),
+                "-gc_profile", new File(mTempDir, "gc_profile.cnp").getAbsolutePath(),
+                "-output_file", new File(mTempDir, outputFile).getAbsolutePath(),
+                "-threads", String.valueOf(threads));
+
+        if(detailedFile != null)
+        {
+            args.add("-detailed_file");
+            args.add(new File(mTempDir, detailedFile).getAbsolutePath());
+        }
+
+        assertTrue(configBuilder.parseCommandLine(args.toArray(new String[0])));
+        return configBuilder;
+    }
+
+    private void writeCohort(final Random random, int sampleCount) throws IOException
+    {
+        writeCohort(random, sampleCount, CHROMOSOME_LENGTH);
+    }
+
+    private void writeCohort(final Random random, int sampleCount, int chromosomeLength) throws IOException
+    {
+        File amberDir = new File(mTempDir, "amber");
+        File panelDir = new File(mTempDir, "cobalt_panel");
+        File wgsDir = new File(mTempDir, "cobalt_wgs");
+        amberDir.mkdir();
+        panelDir.mkdir();
+        wgsDir.mkdir();
+
+        // targets spread over each chromosome, some spanning several windows
+        List<String> bedLines = Lists.newArrayList();
+        List<String> gcLines = Lists.newArrayList();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            int position = 10_000;
+
+            while(position < chromosomeLength - 10_000)
+            {
+                int length = 100 + random.nextInt(random.nextInt(10) == 0 ? 5000 : 500);
+                bedLines.add(String.format("%s\t%d\t%d", chromosome, position, position + length));
+                position += length + 500 + random.nextInt(5000);
+            }
+
+            for(int windowStart = 0; windowStart < chromosomeLength; windowStart += WINDOW_SIZE)
+            {
+                double gcContent = 0.25 + random.nextInt(40) / 100.0;
+                double mappability = random.nextInt(20) == 0 ? 0.5 : 1.0;
+                gcLines.add(String.format("%s\t%d\t%.2f\t1\t%.2f", chromosome, windowStart, gcContent, mappability));
+            }
+        }
+
+        Files.write(new File(mTempDir, "panel.bed").toPath(), bedLines);
+        Files.write(new File(mTempDir, "gc_profile.cnp").toPath(), gcLines);
+
+        for(int s = 0; s < sampleCount; ++s)
+        {
+            String sampleId = sampleId(s);
+
+            boolean female = random.nextBoolean();
+            double sampleDepth = 200 + random.nextInt(1500);
+
+            List<AmberBAF> bafs = Lists.newArrayList();
+
+            for(String chromosome : CHROMOSOMES)
+            {
+                if(chromosome.equals("X") && !female)
+                    continue;
+
+                for(int i = 0; i < 20; ++i)
+                {
+                    bafs.add(new AmberBAF(chromosome, chromosomeLength - 200_000 + i * 1000, 0.5, 100, 0.5, 100));
+                }
+            }
+
+            AmberBAFFile.write(AmberBAFFile.generateAmberFilenameForWriting(amberDir.getAbsolutePath(), sampleId), bafs);
+
+            List<CobaltRatio> panelRatios = Lists.newArrayList();
+            List<CobaltRatio> wgsRatios = Lists.newArrayList();
+
+            for(String chromosome : CHROMOSOMES)
+            {
+                double copyRatio = chromosome.equals("X") && !female ? 0.5 : 1;
+
+                for(int position = 1; position < chromosomeLength; position += WINDOW_SIZE)
+                {
+                    // some windows are missing from either file
+                    if(random.nextInt(50) > 0)
+                    {
+                        double readDepth = random.nextInt(100) == 0 ? -1 : sampleDepth * copyRatio * (0.2 + random.nextDouble() * 1.6);
+                        panelRatios.add(createRatio(chromosome, position, readDepth, copyRatio * (0.7 + random.nextDouble() * 0.6)));
+                    }
+
+                    if(random.nextInt(10) > 0)
+                        wgsRatios.add(createRatio(chromosome, position, 30 * copyRatio, copyRatio * (0.8 + random.nextDouble() * 0.4)));
+                }
+            }
+
+            CobaltRatioFile.write(CobaltRatioFile.generateFilename(panelDir.getAbsolutePath(), sampleId), panelRatios);
+            CobaltRatioFile.write(CobaltRatioFile.generateFilename(wgsDir.getAbsolutePath(), sampleId), wgsRatios);
+        }
+
+        writeSampleIdFile(sampleCount);
+    }
+
+    private void writeSampleIdFile(int sampleCount) throws IOException
+    {
+        List<String> sampleLines = Lists.newArrayList("SampleId");
+
+        for(int s = 0; s < sampleCount; ++s)
+        {
+            sampleLines.add(sampleId(s));
+        }
+
+        Files.write(new File(mTempDir, "samples.csv").toPath(), sampleLines);
+    }
+
+    private static String sampleId(int sampleIndex) { return String.format("SAMPLE_%03d", sampleIndex); }
+
+    private static CobaltRatio createRatio(final String chromosome, int position, double tumorReadDepth, double tumorGcRatio)
+    {
+        return ImmutableCobaltRatio.builder()
+                .chromosome(chromosome)
+                .position(position)
+                .referenceReadDepth(-1)
+                .tumorReadDepth(tumorReadDepth)
+                .referenceGCRatio(-1)
+                .tumorGCRatio(tumorGcRatio)
+                .referenceGCDiploidRatio(-1)
+                .referenceGcContent(0)
+                .tumorGcContent(0.4)
+                .build();
+    }
+}
@@ -12,7 +12,7 @@ import com.hartwig.hmftools.common.genome.bed.NamedBed;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
-import static com.hartwig.hmftools.cobalt.norm.Normaliser.calcSampleAdjustedRatios;
+import static com.hartwig.hmftools.cobalt.norm.Normaliser.calcSampleNormalisation;
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
 
@@ -62,34 +62,40 @@ public class NormalisationFileTest
     {
         Map<String,List<RegionData>> chrRegionData = Maps.newHashMap();
 
+        SampleRegionMatrix sampleMatrix = new SampleRegionMatrix(8, 1, false);
+
         List<RegionData> regions = Lists.newArrayList();
-        regions.add(createRegion(1001, 15, 1.0, 10, 0.5)); // filtered
-        regions.add(createRegion(2001, 20, 1.0, 20, 0.5));
-        regions.add(createRegion(3001, 30, 1.0, 30, 0.5));
-        regions.add(createRegion(3001, 30, 1.0, -1, 0.5)); // filtered
-        regions.add(createRegion(4001, 40, 1.0, 40, 0.5));
-        regions.add(createRegion(4001, 50, 0.5, 50, 0.5)); // filtered
-        regions.add(createRegion(4001, 60, 1.0, 60, 0.5));
-        regions.add(createRegion(5001, 70, 1.0, 70, 0.5)); // filtered
+        addRegion(regions, sampleMatrix, 1001, 15, 1.0, 10); // filtered
+        addRegion(regions, sampleMatrix, 2001, 20, 1.0, 20);
+        addRegion(regions, sampleMatrix, 3001, 30, 1.0, 30);
+        addRegion(regions, sampleMatrix, 3001, 30, 1.0, -1); // filtered
+        addRegion(regions, sampleMatrix, 4001, 40, 1.0, 40);
+        addRegion(regions, sampleMatrix, 4001, 50, 0.5, 50); // filtered
+        addRegion(regions, sampleMatrix, 4001, 60, 1.0, 60);
+        addRegion(regions, sampleMatrix, 5001, 70, 1.0, 70); // filtered
 
         chrRegionData.put(CHR_1, regions);
         chrRegionData.put(HumanChromosome._X.toString(), regions);
         chrRegionData.put(HumanChromosome._Y.toString(), regions);
 
-        NormCalcData normCalcData = calcSampleAdjustedRatios(0, chrRegionData);
+        NormCalcData normCalcData = calcSampleNormalisation(0, chrRegionData, sampleMatrix);
         assertEquals(4, normCalcData.SampleFilteredRegionCount);
         assertEquals(37.5, normCalcData.SampleMeanReadDepth, 0.1);
         assertEquals(35, normCalcData.SampleMedianReadDepth, 0.1);
         assertEquals(4, normCalcData.GcBucketMedians.size());
+        assertEquals(40, normCalcData.gcBucketMedian(40), 0.1);
+        assertEquals(0, normCalcData.gcBucketMedian(50), 0.1);
     }
 
-    @SuppressWarnings("SameParameterValue")
-    private static RegionData createRegion(int position, int gcBucket, double mappability, int readCount, double gcRatioPanel)
+    private static void addRegion(
+            final List<RegionData> regions, final SampleRegionMatrix sampleMatrix, int position, int gcBucket, double mappability,
+            int readCount)
     {
-        RegionData regionData = new RegionData(position);
+        RegionData regionData = new RegionData(position, regions.size());
         regionData.setGcProfile(gcBucket, mappability);
-        regionData.addSampleRegionData(new SampleRegionData(readCount, gcRatioPanel, 1));
-        return regionData;
+        sampleMatrix.ReadDepths[regionData.Index][0] = readCount;
+        sampleMatrix.GcRatiosWgs[regionData.Index][0] = 1;
+        regions.add(regionData);
     }
 
 }
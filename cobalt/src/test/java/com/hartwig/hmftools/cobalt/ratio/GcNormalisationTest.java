@@ -1,22 +1,17 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.cobalt.ratio.GcNormalizedRatioMapper;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import java.util.Arrays;
+import java.util.List;
+
+import com.hartwig.hmftools.cobalt.Chromosome;
+import com.hartwig.hmftools.cobalt.WindowGrid;
 
 import org.junit.Before;
 import org.junit.Test;
 
-import tech.tablesaw.api.BooleanColumn;
-import tech.tablesaw.api.DoubleColumn;
-import tech.tablesaw.api.IntColumn;
-import tech.tablesaw.api.Row;
-import tech.tablesaw.api.StringColumn;
-import tech.tablesaw.api.Table;
-
 public class GcNormalisationTest
 {
     private static final double EPSILON = 1e-5;
@@ -30,54 +25,50 @@ public class GcNormalisationTest
     @Test
     public void testGcNormaliser()
     {
-        Table ratios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
+        WindowGrid windowGrid = new WindowGrid(List.of(
+                new Chromosome("chr1", 13000), new Chromosome("chr2", 26000),
+                new Chromosome("chr3", 9000), new Chromosome("chrX", 8000)), 1000);
 
-        addReadRatio(ratios, "chr1", 1001, 0, 0.45, true);
-        addReadRatio(ratios, "chr1", 2001, 5, 0.451, true);
-        addReadRatio(ratios, "chr1", 11001, 4.0, 0.45, true);
-        addReadRatio(ratios, "chr1", 12001, 19, 0.501, true);
-        addReadRatio(ratios, "chr2", 23001, 1, 0.496, true);
-        addReadRatio(ratios, "chr2", 24001, 2, 0.19, true); // gc bucket too low
-        addReadRatio(ratios, "chr2", 25001, 3, 0.61, true); // gc bucket too high
-        addReadRatio(ratios, "chr3", 8001, 2, 0.45, false); // unmappable
-        addReadRatio(ratios, "chrX", 7001, 2, 0.45, true); // allosome, not included in median calc
+        double[] ratios = new double[windowGrid.windowCount()];
+        Arrays.fill(ratios, Double.NaN);
 
-        (new ChromosomePositionCodec()).addEncodedChrPosColumn(ratios, false);
+        addReadRatio(windowGrid, ratios, "chr1", 1001, 0, 0.45, true);
+        addReadRatio(windowGrid, ratios, "chr1", 2001, 5, 0.451, true);
+        addReadRatio(windowGrid, ratios, "chr1", 11001, 4.0, 0.45, true);
+        addReadRatio(windowGrid, ratios, "chr1", 12001, 19, 0.501, true);
+        addReadRatio(windowGrid, ratios, "chr2", 23001, 1, 0.496, true);
+        addReadRatio(windowGrid, ratios, "chr2", 24001, 2, 0.19, true); // gc bucket too low
+        addReadRatio(windowGrid, ratios, "chr2", 25001, 3, 0.61, true); // gc bucket too high
+        addReadRatio(windowGrid, ratios, "chr3", 8001, 2, 0.45, false); // unmappable
+        addReadRatio(windowGrid, ratios, "chrX", 7001, 2, 0.45, true); // allosome, not included in median calc
 
-        ratios = new GcNormalizedRatioMapper().mapRatios(ratios);
+        ratios = new GcNormalizedRatioMapper(windowGrid).mapRatios(ratios);
 
-        // System.out.println(ratios);
-
-        assertEquals(6, ratios.rowCount());
-        assertRatio(ratios, 0,1001, 0.0);
-        assertRatio(ratios, 1,2001, 0.6896552);
-        assertRatio(ratios, 2,11001, 0.5517241);
-        assertRatio(ratios, 3,12001, 1.1793103);
-        assertRatio(ratios, 4,23001, 0.062069);
-        assertRatio(ratios, 5,7001, 0.275862);
+        assertEquals(6, Arrays.stream(ratios).filter(RatioMapper::hasRatio).count());
+        assertRatio(windowGrid, ratios, "chr1", 1001, 0.0);
+        assertRatio(windowGrid, ratios, "chr1", 2001, 0.6896552);
+        assertRatio(windowGrid, ratios, "chr1", 11001, 0.5517241);
+        assertRatio(windowGrid, ratios, "chr1", 12001, 1.1793103);
+        assertRatio(windowGrid, ratios, "chr2", 23001, 0.062069);
+        assertRatio(windowGrid, ratios, "chrX", 7001, 0.275862);
     }
 
-    private static void addReadRatio(Table table, String chromosome, int position, double ratio, double gcContent, boolean isMappable)
+    private static void addReadRatio(
+            final WindowGrid windowGrid, final double[] ratios, String chromosome, int position, double ratio, double gcContent,
+            boolean isMappable)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.RATIO, ratio);
-        row.setDouble(CobaltColumns.GC_CONTENT, gcContent);
-        row.setBoolean(CobaltColumns.IS_MAPPABLE, isMappable);
-        row.setBoolean(CobaltColumns.IS_AUTOSOME, HumanChromosome.fromString(chromosome).isAutosome());
+        int windowIndex = windowGrid.windowIndex(chromosome, position);
+        ratios[windowIndex] = ratio;
+        windowGrid.GcContent[windowIndex] = gcContent;
+
+        if(isMappable)
+            windowGrid.setFlag(windowIndex, WindowGrid.MAPPABLE);
     }
 
-    private static void assertRatio(Table table, int rowIndex, int expectedPosition, double expectedRatio)
+    private static void assertRatio(final WindowGrid windowGrid, final double[] ratios, String chromosome, int position, double expectedRatio)
     {
-        Row row = table.row(rowIndex);
-        assertEquals(expectedPosition, row.getInt(CobaltColumns.POSITION));
-        assertEquals(expectedRatio, row.getDouble(CobaltColumns.RATIO), EPSILON);
+        int windowIndex = windowGrid.windowIndex(chromosome, position);
+        assertTrue(RatioMapper.hasRatio(ratios[windowIndex]));
+        assertEquals(expectedRatio, ratios[windowIndex], EPSILON);
     }
 }
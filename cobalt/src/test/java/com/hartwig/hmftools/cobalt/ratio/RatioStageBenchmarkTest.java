@@ -0,0 +1,183 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.CobaltConstants.INVALID_VALUE_INDICATOR;
+import static com.hartwig.hmftools.cobalt.ratio.DiploidRatioSupplier.calcDiploidRatioResults;
+import static com.hartwig.hmftools.cobalt.ratio.RatioSupplier.calcMedianRatios;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.usedHeap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.hartwig.hmftools.cobalt.Chromosome;
+import com.hartwig.hmftools.cobalt.WindowGrid;
+import com.hartwig.hmftools.cobalt.count.WindowDepths;
+import com.hartwig.hmftools.cobalt.lowcov.LowCovBucket;
+import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
+import com.hartwig.hmftools.cobalt.targeted.TargetRegionEnrichment;
+import com.hartwig.hmftools.cobalt.targeted.TargetedRatioMapper;
+import com.hartwig.hmftools.common.cobalt.MedianRatio;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.junit.Test;
+
+public class RatioStageBenchmarkTest
+{
+    // run with -Dcobalt_ratio_windows=3000000 to time each stage over a whole genome of 1K windows
+    private static final int BENCHMARK_WINDOW_COUNT = Integer.getInteger("cobalt_ratio_windows", 100_000);
+
+    private static final int GENOME_WINDOW_COUNT = 3_000_000;
+    private static final int WINDOW_SIZE = 1000;
+
+    @Test
+    public void testStageBenchmark() throws IOException
+    {
+        WindowGrid windowGrid = createGrid(BENCHMARK_WINDOW_COUNT);
+        Random random = new Random(0);
+        populateGcProfile(windowGrid, random);
+
+        // low depth so that the low coverage stage consolidates windows
+        WindowDepths readDepths = createDepths(windowGrid, random, 2);
+
+        double[] readRatios = timeStage("read ratios", () ->
+        {
+            double[] mappableDepths = new double[windowGrid.windowCount()];
+
+            for(int windowIndex = 0; windowIndex < mappableDepths.length; ++windowIndex)
+            {
+                mappableDepths[windowIndex] = windowGrid.hasFlag(windowIndex, WindowGrid.MAPPABLE) ?
+                        readDepths.ReadDepth[windowIndex] : INVALID_VALUE_INDICATOR;
+            }
+
+            return mappableDepths;
+        });
+
+        TargetRegionEnrichment targetRegions = createTargetRegions(windowGrid, random);
+        timeStage("targeted", () -> new TargetedRatioMapper(targetRegions, windowGrid).mapRatios(readRatios));
+
+        GcNormalizedRatioMapper gcNormalizedRatioMapper = new GcNormalizedRatioMapper(windowGrid);
+        double[] gcRatios = timeStage("gc normalisation", () -> gcNormalizedRatioMapper.mapRatios(readRatios.clone()));
+
+        Multimap<String, LowCovBucket> buckets = timeStage("low coverage buckets", () -> LowCoverageRatioMapper.calcConsolidateBuckets(
+                windowGrid, gcRatios, gcNormalizedRatioMapper.getSampleMedianReadDepth()));
+
+        assertTrue(buckets != null && !buckets.isEmpty());
+        timeStage("low coverage", () -> new LowCoverageRatioMapper(buckets, windowGrid).mapRatios(gcRatios));
+
+        List<MedianRatio> medianRatios = timeStage("median ratios", () -> calcMedianRatios(windowGrid, gcRatios));
+        double[] diploidRatios = timeStage("diploid normalisation", () -> calcDiploidRatioResults(windowGrid, gcRatios, medianRatios));
+
+        RatioResults results = new RatioResults(windowGrid, readDepths, readDepths, gcRatios, gcRatios, diploidRatios);
+        File outputFile = File.createTempFile("cobalt_bench", ".cobalt.ratio.tsv.gz");
+
+        long startTime = System.nanoTime();
+        results.write(outputFile.getAbsolutePath());
+        logStageTime("write", startTime);
+
+        assertTrue(outputFile.length() > 0);
+        Files.delete(outputFile.toPath());
+    }
+
+    @Test
+    public void testGenomeHeap()
+    {
+        // a tumor-normal run retains the grid, the depths of both samples and the merged ratio columns, so GC content and
+        // flags, 2 doubles per sample and 3 ratio columns come to 65 bytes per window
+        long usedBefore = usedHeap();
+
+        WindowGrid windowGrid = createGrid(GENOME_WINDOW_COUNT);
+        int windowCount = windowGrid.windowCount();
+
+        RatioResults results = new RatioResults(windowGrid,
+                new WindowDepths(windowCount), new WindowDepths(windowCount),
+                new double[windowCount], new double[windowCount], new double[windowCount]);
+
+        long retainedBytes = usedHeap() - usedBefore;
+        double bytesPerWindow = retainedBytes / (double)windowCount;
+
+        CB_LOGGER.info("ratio heap: windows({}) retained({}MB) bytes per window({})",
+                windowCount, retainedBytes / (1024 * 1024), String.format("%.1f", bytesPerWindow));
+
+        assertEquals(GENOME_WINDOW_COUNT, results.Grid.windowCount());
+    }
+
+    private static <T> T timeStage(final String stage, final Supplier<T> supplier)
+    {
+        long startTime = System.nanoTime();
+        T result = supplier.get();
+        logStageTime(stage, startTime);
+        return result;
+    }
+
+    private static void logStageTime(final String stage, long startTime)
+    {
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+        CB_LOGGER.info("ratio benchmark: windows({}) stage({}) time({}ms)", BENCHMARK_WINDOW_COUNT, stage, elapsedMs);
+    }
+
+    private static WindowGrid createGrid(int windowCount)
+    {
+        // split the windows evenly over the autosomes and X
+        List<Chromosome> chromosomes = Lists.newArrayList();
+        int chromosomeCount = 23;
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            if(chromosome != HumanChromosome._Y)
+            {
+                int chromosomeWindows = windowCount / chromosomeCount + (chromosomes.size() < windowCount % chromosomeCount ? 1 : 0);
+                chromosomes.add(new Chromosome(chromosome.toString(), chromosomeWindows * WINDOW_SIZE));
+            }
+        }
+
+        return new WindowGrid(chromosomes, WINDOW_SIZE);
+    }
+
+    private static void populateGcProfile(final WindowGrid windowGrid, final Random random)
+    {
+        for(int windowIndex = 0; windowIndex < windowGrid.windowCount(); ++windowIndex)
+        {
+            windowGrid.GcContent[windowIndex] = 0.3 + random.nextDouble() * 0.3;
+
+            if(random.nextInt(100) != 0)
+                windowGrid.setFlag(windowIndex, WindowGrid.MAPPABLE);
+        }
+    }
+
+    private static WindowDepths createDepths(final WindowGrid windowGrid, final Random random, double meanDepth)
+    {
+        WindowDepths depths = new WindowDepths(windowGrid.windowCount());
+
+        for(int windowIndex = 0; windowIndex < windowGrid.windowCount(); ++windowIndex)
+        {
+            depths.ReadDepth[windowIndex] = Math.max(0, meanDepth + random.nextGaussian());
+            depths.ReadGcContent[windowIndex] = windowGrid.GcContent[windowIndex];
+        }
+
+        return depths;
+    }
+
+    private static TargetRegionEnrichment createTargetRegions(final WindowGrid windowGrid, final Random random)
+    {
+        int targetCount = windowGrid.windowCount() / 4;
+        int[] windowIndices = new int[targetCount];
+        double[] relativeEnrichment = new double[targetCount];
+
+        for(int i = 0; i < targetCount; ++i)
+        {
+            windowIndices[i] = i * 4;
+            relativeEnrichment[i] = 0.5 + random.nextDouble();
+        }
+
+        return new TargetRegionEnrichment(windowIndices, relativeEnrichment);
+    }
+}
@@ -1,110 +1,168 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltTestUtils.assertDoubleEquals;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import com.hartwig.hmftools.cobalt.Chromosome;
+import com.hartwig.hmftools.cobalt.WindowGrid;
+import com.hartwig.hmftools.cobalt.count.WindowDepths;
+import com.hartwig.hmftools.common.genome.gc.GCProfile;
+import com.hartwig.hmftools.common.genome.gc.ImmutableGCProfile;
 
 import org.junit.Test;
 
-import tech.tablesaw.api.BooleanColumn;
-import tech.tablesaw.api.DoubleColumn;
-import tech.tablesaw.api.IntColumn;
-import tech.tablesaw.api.Row;
-import tech.tablesaw.api.StringColumn;
-import tech.tablesaw.api.Table;
-
 public class RatioSupplierTest
 {
+    // written by the ratio supplier before it moved to the window grid, for the sample pair created from seed 4
+    private static final String EXPECTED_TUMOR_NORMAL_RATIOS = Resources.getResource("ratio/tumor_normal.cobalt.ratio.tsv").getPath();
+
+    private static final String[] CHROMOSOMES = { "1", "X" };
+    private static final int[] CHROMOSOME_WINDOWS = { 1100, 200 };
+
     @Test
     public void testTumorOnly() throws IOException
     {
-        var chromosomePosCodec = new ChromosomePositionCodec();
+        WindowGrid windowGrid = new WindowGrid(List.of(new Chromosome("chr1", 3000), new Chromosome("chr2", 5000)), 1000);
 
         // add some counts
-        final Table readDepths = Table.create("readDepths",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-
-        addReadDepth(readDepths, "chr1", 2001, 10.0);
-        addReadDepth(readDepths, "chr2", 3001, 5.0);
-        addReadDepth(readDepths, "chr2", 4001, 7.0);
+        final WindowDepths readDepths = new WindowDepths(windowGrid.windowCount());
 
-        chromosomePosCodec.addEncodedChrPosColumn(readDepths, false);
+        addReadDepth(windowGrid, readDepths, "chr1", 2001, 10.0);
+        addReadDepth(windowGrid, readDepths, "chr2", 3001, 5.0);
+        addReadDepth(windowGrid, readDepths, "chr2", 4001, 7.0);
 
         // gc profiles
-        Table gcProfiles = Table.create("gcProfiles",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
+        addGcProfile(windowGrid, "chr1", 2001, 0.45, true);
+        addGcProfile(windowGrid, "chr2", 3001, 0.50, true);
+        addGcProfile(windowGrid, "chr2", 4001, 0.50, true);
 
-        addGcProfile(gcProfiles, "chr1", 2001, 0.45, true);
-        addGcProfile(gcProfiles, "chr2", 3001, 0.50, true);
-        addGcProfile(gcProfiles, "chr2", 4001, 0.50, true);
+        // diploid regions
+        windowGrid.setFlag(windowGrid.windowIndex("chr1", 2001), WindowGrid.DIPLOID_REGION);
+        windowGrid.setFlag(windowGrid.windowIndex("chr2", 3001), WindowGrid.DIPLOID_REGION);
 
-        chromosomePosCodec.addEncodedChrPosColumn(gcProfiles, true);
+        final RatioSupplier ratioSupplier = new RatioSupplier("TEST", "TEST", null,
+                windowGrid, null, readDepths);
 
-        // diploid regions
-        final Table diploidRegions = Table.create("diploidRegions",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION));
+        RatioResults ratios = ratioSupplier.tumorOnly();
 
-        Row row = diploidRegions.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, "chr1");
-        row.setInt(CobaltColumns.POSITION, 2001);
+        assertEquals(8, ratios.Grid.windowCount());
 
-        row = diploidRegions.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, "chr2");
-        row.setInt(CobaltColumns.POSITION, 3001);
-        chromosomePosCodec.addEncodedChrPosColumn(diploidRegions, true);
+        int windowIndex = windowGrid.windowIndex("chr1", 2001);
+        assertDoubleEquals(10.0, ratios.tumorReadDepth(windowIndex));
 
-        final RatioSupplier ratioSupplier = new RatioSupplier("TEST", "TEST", null,
-                gcProfiles, null, readDepths,
-                chromosomePosCodec);
+        windowIndex = windowGrid.windowIndex("chr2", 3001);
+        assertDoubleEquals(5.0, ratios.tumorReadDepth(windowIndex));
 
-        Table ratios = ratioSupplier.tumorOnly(diploidRegions);
+        windowIndex = windowGrid.windowIndex("chr2", 4001);
+        assertDoubleEquals(7.0, ratios.tumorReadDepth(windowIndex));
 
-        assertEquals(3, ratios.rowCount());
+        // tumorGCRatio must be -1 since this position is not in diploid bed file
+        assertDoubleEquals(ratios.tumorGcRatio(windowIndex), -1);
+        assertDoubleEquals(ratios.referenceReadDepth(windowIndex), -1);
+    }
 
-        Row ratio = ratios.row(0);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr1", 2001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+    @Test
+    public void testTumorNormalMatchesPreviousRatios() throws IOException
+    {
+        List<Chromosome> chromosomes = Lists.newArrayList();
 
-        ratio = ratios.row(1);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr2", 3001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        for(int i = 0; i < CHROMOSOMES.length; ++i)
+        {
+            chromosomes.add(new Chromosome(CHROMOSOMES[i], CHROMOSOME_WINDOWS[i] * 1000));
+        }
 
-        ratio = ratios.row(2);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr2", 4001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        WindowGrid windowGrid = new WindowGrid(chromosomes, 1000);
+        WindowDepths referenceDepths = new WindowDepths(windowGrid.windowCount());
+        WindowDepths tumorDepths = new WindowDepths(windowGrid.windowCount());
+        windowGrid.loadGcProfiles(createSamplePair(new Random(4), referenceDepths, tumorDepths));
 
-        // tumorGCRatio must be -1 since this position is not in diploid bed file
-        assertDoubleEquals(ratio.getDouble("tumorGCRatio"), -1);
+        File outputDir = createTempDir("cobalt_ratio");
+
+        try
+        {
+            RatioResults ratios = new RatioSupplier("REF", "TUMOR", outputDir.getAbsolutePath(),
+                    windowGrid, referenceDepths, tumorDepths).tumorNormalPair();
+
+            String ratioFile = new File(outputDir, "TUMOR.cobalt.ratio.tsv.gz").getAbsolutePath();
+            ratios.write(ratioFile);
+
+            List<String> ratioLines;
+
+            try(BufferedReader reader = createBufferedReader(ratioFile))
+            {
+                ratioLines = reader.lines().collect(Collectors.toList());
+            }
+
+            assertEquals(Files.readAllLines(Paths.get(EXPECTED_TUMOR_NORMAL_RATIOS)), ratioLines);
+        }
+        finally
+        {
+            deleteDir(outputDir);
+        }
     }
 
-    private static void addReadDepth(Table readCountTable, String chromosome, int position, double readDepth)
+    // GC profiles and read depths with a GC bias, some unmappable and empty windows, and tumor gains
+    private static List<GCProfile> createSamplePair(final Random random, final WindowDepths referenceDepths, final WindowDepths tumorDepths)
     {
-        Row row = readCountTable.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.READ_DEPTH, readDepth);
-        row.setDouble(CobaltColumns.READ_GC_CONTENT, 0.5);
+        List<GCProfile> gcProfiles = Lists.newArrayList();
+        int windowIndex = 0;
+
+        for(int i = 0; i < CHROMOSOMES.length; ++i)
+        {
+            for(int window = 0; window < CHROMOSOME_WINDOWS[i]; ++window, ++windowIndex)
+            {
+                int position = window * 1000 + 1;
+                double gcContent = 0.35 + random.nextInt(30) / 100.0;
+
+                gcProfiles.add(ImmutableGCProfile.builder()
+                        .chromosome(CHROMOSOMES[i]).start(position).end(position + 999)
+                        .gcContent(gcContent).nonNPercentage(1).mappablePercentage(random.nextInt(20) > 0 ? 1.0 : 0.5)
+                        .build());
+
+                double tumorCopyRatio = (window / 100) % 3 == 1 ? 1.5 : 1;
+
+                double referenceDepth = random.nextInt(50) == 0 ? 0 : 30 * (0.8 + random.nextDouble() * 0.4) * (0.55 + gcContent);
+                referenceDepths.ReadDepth[windowIndex] = referenceDepth;
+                referenceDepths.ReadGcContent[windowIndex] = referenceDepth > 0 ? gcContent + (random.nextInt(5) - 2) / 100.0 : Double.NaN;
+
+                double tumorDepth = random.nextInt(50) == 0 ? 0 : 40 * tumorCopyRatio * (0.8 + random.nextDouble() * 0.4) * (0.55 + gcContent);
+                tumorDepths.ReadDepth[windowIndex] = tumorDepth;
+                tumorDepths.ReadGcContent[windowIndex] = tumorDepth > 0 ? gcContent + (random.nextInt(5) - 2) / 100.0 : Double.NaN;
+            }
+        }
+
+        return gcProfiles;
+    }
+
+    private static void addReadDepth(final WindowGrid windowGrid, final WindowDepths readDepths, String chromosome, int position, double readDepth)
+    {
+        int windowIndex = windowGrid.windowIndex(chromosome, position);
+        readDepths.ReadDepth[windowIndex] = readDepth;
+        readDepths.ReadGcContent[windowIndex] = 0.5;
     }
 
     @SuppressWarnings("SameParameterValue")
-    private static void addGcProfile(Table table, String chromosome, int position, double gcContent, boolean isMappable)
+    private static void addGcProfile(final WindowGrid windowGrid, String chromosome, int position, double gcContent, boolean isMappable)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.GC_CONTENT, gcContent);
-        row.setBoolean(CobaltColumns.IS_MAPPABLE, isMappable);
-        row.setBoolean(CobaltColumns.IS_AUTOSOME, HumanChromosome.fromString(chromosome).isAutosome());
+        int windowIndex = windowGrid.windowIndex(chromosome, position);
+        windowGrid.GcContent[windowIndex] = gcContent;
+
+        if(isMappable)
+            windowGrid.setFlag(windowIndex, WindowGrid.MAPPABLE);
     }
 }
@@ -76,6 +76,7 @@ public class JunctionTracker
 
     private final List<JunctionData> mJunctions; // ordered by position
     private int mLastJunctionIndex;
+    private long mJunctionTests; // junctions tested for read support, to track cost in junction-dense partitions
 
     private ReadIdTrimmer mReadIdTrimmer;
     private int mInitialSupportingFrags;
@@ -124,6 +125,7 @@ public class JunctionTracker
         mCandidateDiscordantGroups = Lists.newArrayList();
         mJunctions = Lists.newArrayList();
         mLastJunctionIndex = -1;
+        mJunctionTests = 0;
         mInitialSupportingFrags = 0;
         mReadIdTrimmer = new ReadIdTrimmer(mConfig.TrimReadId);
 
@@ -143,9 +145,11 @@ public class JunctionTracker
         mRemoteCandidateReadGroups.clear();
         mCandidateDiscordantGroups.clear();
         mJunctions.clear();
+        mJunctionTests = 0;
     }
 
     public List<JunctionData> junctions() { return mJunctions; }
+    public long junctionTestCount() { return mJunctionTests; }
     public List<PerformanceCounter> perfCounters() { return mPerfCounters; }
 
     public List<ReadGroup> formUniqueAssignedGroups()
@@ -282,7 +286,7 @@ public class JunctionTracker
         // cannot early exit even if there are no junctions since could miss capture of any candidate support for remote junctions
         boolean hasJunctions = !mJunctions.isEmpty();
 
-        // order by first read's start position to assist with efficient junction look-up using the last junction index
+        // order by first read's start position so supporting groups are assigned to junctions in positional order
         if(hasJunctions)
             Collections.sort(candidateSupportGroups, new ReadGroup.ReadGroupComparator());
 
@@ -536,15 +540,19 @@ public class JunctionTracker
         int readBoundsMin = min(read.start(), impliedUnclippedStart);
         int readBoundsMax = max(read.end(), impliedUnclippedEnd);
 
+        int boundsLower = min(readBoundsMin, readBoundsMax);
+        int boundsUpper = max(readBoundsMin, readBoundsMax);
+
         // reads with a sufficiently long indel only need to cover a junction with any of their read bases, not the indel itself
-        for(JunctionData junctionData : mJunctions)
+        for(int index = findFirstJunctionIndex(boundsLower); index < mJunctions.size(); ++index)
         {
-            if(min(readBoundsMin, readBoundsMax) > junctionData.Position)
-                continue;
+            JunctionData junctionData = mJunctions.get(index);
 
-            if(junctionData.Position > max(readBoundsMin, readBoundsMax))
+            if(junctionData.Position > boundsUpper)
                 break;
 
+            ++mJunctionTests;
+
             if(supportedJunctions.containsKey(junctionData))
                 continue;
 
@@ -597,23 +605,19 @@ public class JunctionTracker
                 return junctionData;
         }
 
-        int index = 0;
+        int index = findFirstJunctionIndex(junctionPosition);
 
         while(index < mJunctions.size())
         {
             JunctionData junctionData = mJunctions.get(index);
 
-            if(junctionData.Position == junctionPosition)
-            {
-                if(junctionData.Orient == orientation)
-                {
-                    setLastJunctionIndex(index);
-                    return junctionData;
-                }
-            }
-            else if(junctionData.Position > junctionPosition)
-            {
+            if(junctionData.Position > junctionPosition)
                 break;
+
+            if(junctionData.Orient == orientation)
+            {
+                setLastJunctionIndex(index);
+                return junctionData;
             }
 
             ++index;
@@ -627,21 +631,17 @@ public class JunctionTracker
 
     private void addJunction(final JunctionData newJunction)
     {
-        int index = 0;
+        int index = findFirstJunctionIndex(newJunction.Position);
 
         while(index < mJunctions.size())
         {
             JunctionData junctionData = mJunctions.get(index);
 
-            if(junctionData.Position == newJunction.Position)
-            {
-                if(junctionData.Orient == newJunction.Orient)
-                    return;
-            }
-            else if(junctionData.Position > newJunction.Position)
-            {
+            if(junctionData.Position > newJunction.Position)
                 break;
-            }
+
+            if(junctionData.Orient == newJunction.Orient)
+                return;
 
             ++index;
         }
@@ -656,46 +656,34 @@ public class JunctionTracker
 
         int maxSupportDistance = mConfig.UnpairedReads ? UNPAIRED_READ_JUNCTION_DISTANCE : mFilterConfig.maxSupportingFragmentDistance();
 
-        // first check the last index since the next read is likely to be close by
-        int closeJunctionIndex = -1;
+        // test only the junctions within the support distance of either end of the read, using a single window if these overlap
+        int readStart = read.start();
+        int readEnd = read.end();
 
-        if(mLastJunctionIndex >= 0)
+        if(readEnd - readStart <= 2 * maxSupportDistance)
         {
-            JunctionData junctionData = mJunctions.get(mLastJunctionIndex);
-            if(readWithinJunctionRange(read, junctionData, maxSupportDistance))
-                closeJunctionIndex = mLastJunctionIndex;
+            checkJunctionsInWindow(readGroup, read, readStart - maxSupportDistance, readEnd + maxSupportDistance, supportedJunctions);
         }
-
-        if(closeJunctionIndex == -1)
-            closeJunctionIndex = findJunctionIndex(read, maxSupportDistance);
-
-        if(closeJunctionIndex < 0)
-            return;
-
-        setLastJunctionIndex(closeJunctionIndex);
-        checkReadSupportsJunction(readGroup, read, mJunctions.get(closeJunctionIndex), supportedJunctions);
-
-        // check up and down from this location
-        for(int i = 0; i <= 1; ++i)
+        else
         {
-            boolean searchUp = (i == 0);
-
-            int index = searchUp ? closeJunctionIndex + 1 : closeJunctionIndex - 1;
-
-            while(index >= 0 && index < mJunctions.size())
-            {
-                JunctionData junctionData = mJunctions.get(index);
+            checkJunctionsInWindow(readGroup, read, readStart - maxSupportDistance, readStart + maxSupportDistance, supportedJunctions);
+            checkJunctionsInWindow(readGroup, read, readEnd - maxSupportDistance, readEnd + maxSupportDistance, supportedJunctions);
+        }
+    }
 
-                if(!readWithinJunctionRange(read, junctionData, maxSupportDistance))
-                    break;
+    private void checkJunctionsInWindow(
+            final ReadGroup readGroup, final PrepRead read, int windowStart, int windowEnd,
+            final Map<JunctionData,ReadType> supportedJunctions)
+    {
+        for(int index = findFirstJunctionIndex(windowStart); index < mJunctions.size(); ++index)
+        {
+            JunctionData junctionData = mJunctions.get(index);
 
-                checkReadSupportsJunction(readGroup, read, junctionData, supportedJunctions);
+            if(junctionData.Position > windowEnd)
+                break;
 
-                if(searchUp)
-                    ++index;
-                else
-                    --index;
-            }
+            ++mJunctionTests;
+            checkReadSupportsJunction(readGroup, read, junctionData, supportedJunctions);
         }
     }
 
@@ -729,78 +717,23 @@ public class JunctionTracker
         mLastJunctionIndex = index;
     }
 
-    private int findJunctionIndex(final PrepRead read, int maxSupportDistance)
+    private int findFirstJunctionIndex(int position)
     {
-        if(mJunctions.size() <= 5)
-        {
-            for(int index = 0; index < mJunctions.size(); ++index)
-            {
-                if(readWithinJunctionRange(read, mJunctions.get(index), maxSupportDistance))
-                    return index;
-            }
-
-            return -1;
-        }
-
-        // binary search on junctions if the collection gets too large
-        int currentIndex = mJunctions.size() / 2;
+        // binary search for the first junction at or after this position, or the junction count if there is none
         int lowerIndex = 0;
-        int upperIndex = mJunctions.size() - 1;
-
-        int iterations = 0;
+        int upperIndex = mJunctions.size();
 
-        while(true)
+        while(lowerIndex < upperIndex)
         {
-            JunctionData junctionData = mJunctions.get(currentIndex);
-
-            if(readWithinJunctionRange(read, junctionData, maxSupportDistance))
-                return currentIndex;
-
-            if(read.end() < junctionData.Position)
-            {
-                // search lower
-                if(lowerIndex + 1 == currentIndex)
-                    return currentIndex;
-
-                upperIndex = currentIndex;
-                currentIndex = (lowerIndex + upperIndex) / 2;
-            }
-            else if(read.start() > junctionData.Position)
-            {
-                // search higher
-                if(currentIndex + 1 == upperIndex)
-                    return currentIndex;
+            int midIndex = (lowerIndex + upperIndex) >>> 1;
 
-                lowerIndex = currentIndex;
-                currentIndex = (lowerIndex + upperIndex) / 2;
-            }
+            if(mJunctions.get(midIndex).Position < position)
+                lowerIndex = midIndex + 1;
             else
-            {
-                break;
-            }
-
-            ++iterations;
-
-            if(iterations > 1000)
-            {
-                SV_LOGGER.warn("junction index search iterations({}}) junctions({}) index(cur={} low={} high={})",
-                        iterations, mJunctions.size(), currentIndex, lowerIndex, upperIndex);
-                break;
-            }
+                upperIndex = midIndex;
         }
 
-        return -1;
-    }
-
-    private boolean readWithinJunctionRange(final PrepRead read, final JunctionData junctionData, int maxDistance)
-    {
-        if(abs(read.end() - junctionData.Position) <= maxDistance)
-            return true;
-
-        if(abs(read.start() - junctionData.Position) <= maxDistance)
-            return true;
-
-        return false;
+        return lowerIndex;
     }
 
     public static boolean hasOtherJunctionSupport(
@@ -237,6 +237,7 @@ public class PartitionSlicer
         mStats.JunctionFragmentCount += junctionFragments;
         mStats.SupportingFragmentCount += junctionGroups.size() - junctionFragments;
         mStats.InitialSupportingFragmentCount += mJunctionTracker.initialSupportingFrags();
+        mStats.JunctionTests += mJunctionTracker.junctionTestCount();
     }
 
     private void assignReadGroup(final ReadGroup readGroup, Map<String,ReadGroup> partialGroupsMap)
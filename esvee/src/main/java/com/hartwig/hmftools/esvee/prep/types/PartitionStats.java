@@ -12,6 +12,7 @@ public class PartitionStats
     public int LocalCompleteGroups;
     public int LocalIncompleteGroups;
     public int SpanningGroups;
+    public long JunctionTests;
 
     public final int[] ReadFilterCounts;
 
@@ -25,6 +26,7 @@ public class PartitionStats
         LocalCompleteGroups = 0;
         LocalIncompleteGroups = 0;
         SpanningGroups = 0;
+        JunctionTests = 0;
 
         ReadFilterCounts = new int[ReadFilterType.values().length];
     }
@@ -39,6 +41,7 @@ public class PartitionStats
         LocalCompleteGroups += other.LocalCompleteGroups;
         LocalIncompleteGroups += other.LocalIncompleteGroups;
         SpanningGroups += other.SpanningGroups;
+        JunctionTests += other.JunctionTests;
 
         for(int i = 0; i < ReadFilterCounts.length; ++i)
         {
@@ -48,9 +51,9 @@ public class PartitionStats
 
     public String toString()
     {
-        return format("reads(%s) junc(%d) juncFrags(%d) supportFrags(init=%d final=%d) groups(comp=%d incomp=%d span=%d)",
+        return format("reads(%s) junc(%d) juncFrags(%d) supportFrags(init=%d final=%d) groups(comp=%d incomp=%d span=%d) juncTests(%d)",
                 TotalReads, JunctionCount, JunctionFragmentCount, InitialSupportingFragmentCount, SupportingFragmentCount,
-                LocalCompleteGroups, LocalIncompleteGroups, SpanningGroups);
+                LocalCompleteGroups, LocalIncompleteGroups, SpanningGroups, JunctionTests);
     }
 
 }
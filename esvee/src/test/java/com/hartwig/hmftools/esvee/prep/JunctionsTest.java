@@ -371,4 +371,43 @@ public class JunctionsTest
         assertEquals(2, junctions.size());
     }
 
+    @Test
+    public void testJunctionLookupInDenseRegion()
+    {
+        ChrBaseRegion region = new ChrBaseRegion(CHR_1, 1, 100000);
+        JunctionTracker junctionTracker = new JunctionTracker(region, new PrepConfig(100000), HOTSPOT_CACHE, BLACKLIST_LOCATIONS);
+
+        // a junction every 2000 bases, each with an exact supporting read
+        int junctionCount = 40;
+
+        for(int i = 0; i < junctionCount; ++i)
+        {
+            int junctionPos = 2000 + i * 2000;
+
+            PrepRead junctionRead = PrepRead.from(createSamRecord(
+                    READ_ID_GENERATOR.nextId(), CHR_1, junctionPos, REF_BASES.substring(0, 100), "30S70M"));
+
+            junctionRead.setReadType(JUNCTION);
+            junctionTracker.processRead(junctionRead);
+
+            PrepRead suppRead = PrepRead.from(createSamRecord(
+                    READ_ID_GENERATOR.nextId(), CHR_1, junctionPos, REF_BASES.substring(0, 73), "3S70M"));
+
+            suppRead.setReadType(CANDIDATE_SUPPORT);
+            junctionTracker.processRead(suppRead);
+        }
+
+        junctionTracker.assignJunctionFragmentsAndSupport();
+
+        assertEquals(junctionCount, junctionTracker.junctions().size());
+
+        for(JunctionData junctionData : junctionTracker.junctions())
+        {
+            assertEquals(1, junctionData.junctionFragmentCount());
+            assertEquals(1, junctionData.exactSupportFragmentCount());
+        }
+
+        // each read only tests the junctions within its support distance rather than all of them
+        assertTrue(junctionTracker.junctionTestCount() < junctionCount * 2 * 3);
+    }
 }
@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.geneutils.ensembl;
 
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataBinaryFile.ENSEMBL_DATA_BINARY_FILE;
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_SPLICE_DATA_FILE;
 import static com.hartwig.hmftools.common.fusion.FusionCommon.DEFAULT_PRE_GENE_PROMOTOR_DISTANCE;
 import static com.hartwig.hmftools.common.fusion.FusionCommon.NEG_STRAND;
@@ -16,10 +17,13 @@ import static com.hartwig.hmftools.geneutils.common.CommonUtils.GU_LOGGER;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataBinaryFile;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
 import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.common.gene.ExonData;
@@ -56,6 +60,17 @@ public class GenerateEnsemblDataCache
             ensemblDAO.writeDataCacheFiles(outputDir);
         }
 
+        // remove any previous binary snapshot so the cache is reloaded from the CSV files
+        try
+        {
+            Files.deleteIfExists(Paths.get(outputDir + ENSEMBL_DATA_BINARY_FILE));
+        }
+        catch(IOException e)
+        {
+            GU_LOGGER.error("failed to remove previous Ensembl binary data file: {}", e.toString());
+            System.exit(1);
+        }
+
         GU_LOGGER.debug("reloading transcript data to generate splice acceptor positions");
 
         // create the transcript splice acceptor position data
@@ -65,6 +80,20 @@ public class GenerateEnsemblDataCache
         createTranscriptPreGenePositionData(
                 geneTransCache.getChrGeneDataMap(), geneTransCache.getTranscriptDataMap(), DEFAULT_PRE_GENE_PROMOTOR_DISTANCE, outputDir);
 
+        GU_LOGGER.debug("writing Ensembl binary data file");
+
+        // reload everything, including data not required for the splice positions, to form the binary snapshot
+        EnsemblDataCache fullCache = new EnsemblDataCache(outputDir, refGenomeVersion);
+        fullCache.setRequiredData(true, true, true, false);
+        fullCache.setRequireGeneSynonyms();
+        fullCache.setRequireNonEnsemblTranscripts();
+
+        if(!fullCache.load(false) || !EnsemblDataBinaryFile.write(outputDir, fullCache))
+        {
+            GU_LOGGER.error("failed to write Ensembl binary data file");
+            System.exit(1);
+        }
+
         GU_LOGGER.info("Ensembl data cache complete");
     }
 
@@ -101,6 +101,23 @@ public class FilterCache
             filters.add(filter);
     }
 
+    public void addFilters(final FilterCache other)
+    {
+        // merge in filters applied to a distinct set of SVs, appending to any filters applied earlier
+        for(Map.Entry<Breakend,List<FilterType>> entry : other.mBreakendFilters.entrySet())
+        {
+            List<FilterType> filters = mBreakendFilters.get(entry.getKey());
+
+            if(filters == null)
+                mBreakendFilters.put(entry.getKey(), entry.getValue());
+            else
+                filters.addAll(entry.getValue());
+        }
+
+        mHotspots.addAll(other.mHotspots);
+        mPonFiltered += other.mPonFiltered;
+    }
+
     public void updateFilters(final Set<Breakend> rescuedBreakends, final Set<Breakend> duplicateBreakends)
     {
         // add duplicate filter and remove any rescued breakends
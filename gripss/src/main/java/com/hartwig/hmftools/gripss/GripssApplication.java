@@ -16,10 +16,13 @@ import static com.hartwig.hmftools.gripss.GripssConfig.addConfig;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
@@ -180,6 +183,7 @@ public class GripssApplication
         GR_LOGGER.info("applying soft-filters and realignment");
         int realignedCount = 0;
 
+        // realignment is applied first and on a single thread since it uses the ref genome
         for(final SvData svData : mSvDataCache.getSvList())
         {
             // realign breakends
@@ -207,29 +211,17 @@ public class GripssApplication
                     svData.onPositionsUpdated();
                 }
             }
-
-            mFilterCache.checkHotspotFilter(mHotspotCache, svData);
-
-            mSoftFilters.applyFilters(svData, mFilterCache);
         }
 
+        applySoftFilters();
+
         GR_LOGGER.info("soft-filtered({}) hotspots({}) realigned({})",
                 mFilterCache.getBreakendFilters().size(), mFilterCache.getHotspots().size(), realignedCount);
 
-        mSvDataCache.buildBreakendMap();
+        mSvDataCache.buildBreakendMap(mConfig.Threads);
 
         GR_LOGGER.info("applying PON filters");
-
-        for(List<Breakend> chrBreakendList : mSvDataCache.getBreakendMap().values())
-        {
-            for(Breakend breakend : chrBreakendList)
-            {
-                if(breakend == breakend.sv().breakendEnd()) // skip testing the same SV again
-                    continue;
-
-                mFilterCache.checkPonFilter(mPonCache, breakend.sv());
-            }
-        }
+        applyPonFilters();
 
         GR_LOGGER.debug("pon filtered count({})", mFilterCache.ponFilteredCount());
 
@@ -239,7 +231,7 @@ public class GripssApplication
 
         GR_LOGGER.info("finding alternative paths and transitive links");
 
-        List<AlternatePath> alternatePaths = AlternatePathFinder.findPaths(mSvDataCache, assemblyLinkStore);
+        List<AlternatePath> alternatePaths = AlternatePathFinder.findPaths(mSvDataCache, assemblyLinkStore, mConfig.Threads);
         LinkStore transitiveLinkStore = AlternatePathFinder.createLinkStore(alternatePaths);
 
         GR_LOGGER.debug("found {} alternate paths and {} transitive links",
@@ -339,6 +331,71 @@ public class GripssApplication
         }
     }
 
+    private void applySoftFilters()
+    {
+        // SVs are filtered by start chromosome in separate tasks, each recording filters in its own cache
+        Map<String,List<SvData>> chromosomeSvs = Maps.newLinkedHashMap();
+
+        for(SvData svData : mSvDataCache.getSvList())
+        {
+            chromosomeSvs.computeIfAbsent(svData.chromosomeStart(), k -> Lists.newArrayList()).add(svData);
+        }
+
+        List<FilterCache> chromosomeFilterCaches = Lists.newArrayList();
+        List<Callable> callableList = Lists.newArrayList();
+
+        for(List<SvData> svList : chromosomeSvs.values())
+        {
+            FilterCache filterCache = new FilterCache();
+            chromosomeFilterCaches.add(filterCache);
+
+            callableList.add(() ->
+            {
+                for(SvData svData : svList)
+                {
+                    filterCache.checkHotspotFilter(mHotspotCache, svData);
+                    mSoftFilters.applyFilters(svData, filterCache);
+                }
+
+                return (long)0;
+            });
+        }
+
+        TaskExecutor.executeTasks(callableList, mConfig.Threads);
+
+        chromosomeFilterCaches.forEach(x -> mFilterCache.addFilters(x));
+    }
+
+    private void applyPonFilters()
+    {
+        // PON lookups are stateless so each chromosome's SVs are matched in a separate task
+        List<FilterCache> chromosomeFilterCaches = Lists.newArrayList();
+        List<Callable> callableList = Lists.newArrayList();
+
+        for(List<Breakend> chrBreakendList : mSvDataCache.getBreakendMap().values())
+        {
+            FilterCache filterCache = new FilterCache();
+            chromosomeFilterCaches.add(filterCache);
+
+            callableList.add(() ->
+            {
+                for(Breakend breakend : chrBreakendList)
+                {
+                    if(breakend == breakend.sv().breakendEnd()) // skip testing the same SV again
+                        continue;
+
+                    filterCache.checkPonFilter(mPonCache, breakend.sv());
+                }
+
+                return (long)0;
+            });
+        }
+
+        TaskExecutor.executeTasks(callableList, mConfig.Threads);
+
+        chromosomeFilterCaches.forEach(x -> mFilterCache.addFilters(x));
+    }
+
     public void processVariant(final VariantContext variant, final GenotypeIds genotypeIds)
     {
         // GR_LOGGER.trace("id({}) position({}: {})", variant.getID(), variant.getContig(), variant.getStart());
@@ -3,23 +3,27 @@ package com.hartwig.hmftools.gripss;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.gripss.common.Breakend;
 import com.hartwig.hmftools.gripss.common.SvData;
 
 public class SvDataCache
 {
     private final List<SvData> mSvData;
-    private final Map<String,List<Breakend>> mChromosomeBreakends;
+    private Map<String,List<Breakend>> mChromosomeBreakends;
 
     public SvDataCache()
     {
         mSvData = Lists.newArrayList();
-        mChromosomeBreakends = Maps.newHashMap();
+        mChromosomeBreakends = Collections.emptyMap();
     }
 
     public List<SvData> getSvList() { return mSvData; }
@@ -27,8 +31,12 @@ public class SvDataCache
 
     public void addSvData(final SvData sv) { mSvData.add(sv); }
 
-    public void buildBreakendMap()
+    public void buildBreakendMap() { buildBreakendMap(1); }
+
+    public void buildBreakendMap(int threads)
     {
+        Map<String,List<Breakend>> chromosomeBreakends = Maps.newHashMap();
+
         for(SvData sv : mSvData)
         {
             for(int se = SE_START; se <= SE_END; ++se)
@@ -38,34 +46,45 @@ public class SvDataCache
                 if(breakend == null)
                     continue;
 
-                List<Breakend> breakends = mChromosomeBreakends.get(breakend.Chromosome);
+                List<Breakend> breakends = chromosomeBreakends.get(breakend.Chromosome);
 
                 if(breakends == null)
                 {
                     breakends = Lists.newArrayList();
-                    mChromosomeBreakends.put(breakend.Chromosome, breakends);
+                    chromosomeBreakends.put(breakend.Chromosome, breakends);
                 }
 
-                int index = 0;
-                while(index < breakends.size())
-                {
-                    if(breakend.Position < breakends.get(index).Position)
-                        break;
+                breakends.add(breakend);
+            }
+        }
+
+        // sort and index each chromosome's breakends, with a stable sort so breakends at the same position remain in SV order
+        List<Callable> callableList = Lists.newArrayList();
 
-                    ++index;
+        for(List<Breakend> breakends : chromosomeBreakends.values())
+        {
+            callableList.add(() ->
+            {
+                breakends.sort(Comparator.comparingInt(x -> x.Position));
+
+                for(int index = 0; index < breakends.size(); ++index)
+                {
+                    breakends.get(index).setChrLocationIndex(index);
                 }
 
-                breakends.add(index, breakend);
-            }
+                return (long)0;
+            });
         }
 
-        for(List<Breakend> breakends : mChromosomeBreakends.values())
+        TaskExecutor.executeTasks(callableList, threads);
+
+        // the map is not changed once built, so it can be searched concurrently by the link finders
+        for(Map.Entry<String,List<Breakend>> entry : chromosomeBreakends.entrySet())
         {
-            for(int index = 0; index < breakends.size(); ++index)
-            {
-                breakends.get(index).setChrLocationIndex(index);
-            }
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
         }
+
+        mChromosomeBreakends = Collections.unmodifiableMap(chromosomeBreakends);
     }
 
     public List<Breakend> selectOthersNearby(final Breakend breakend, int additionalDistance, int maxSeekDistance)
@@ -114,7 +133,7 @@ public class SvDataCache
 
     public void clear()
     {
-        mChromosomeBreakends.clear();
+        mChromosomeBreakends = Collections.emptyMap();
         mSvData.clear();
     }
 }
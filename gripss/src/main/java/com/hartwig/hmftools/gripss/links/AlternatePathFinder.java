@@ -1,35 +1,61 @@
 package com.hartwig.hmftools.gripss.links;
 
+import static java.lang.Math.min;
+
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.gripss.common.Breakend;
 import com.hartwig.hmftools.gripss.common.SvData;
 import com.hartwig.hmftools.gripss.SvDataCache;
 
 public class AlternatePathFinder
 {
+    // SVs are searched in blocks, each by a separate finder, since the finder counts its search iterations
+    private static final int SV_BLOCK_SIZE = 1000;
+
     public static List<AlternatePath> findPaths(final SvDataCache svDataCache, final LinkStore assemblyLinkStore)
     {
-        Map<String,AlternatePath> alternatePaths = Maps.newHashMap();
+        return findPaths(svDataCache, assemblyLinkStore, 1);
+    }
 
-        TransitiveLinkFinder transitiveLinkFinder = new TransitiveLinkFinder(svDataCache, assemblyLinkStore);
+    public static List<AlternatePath> findPaths(final SvDataCache svDataCache, final LinkStore assemblyLinkStore, int threads)
+    {
+        // the breakend map and assembly links are only read, so SVs can be searched concurrently
+        List<SvData> svList = svDataCache.getSvList();
+        List<TransitiveLinkTask> linkTasks = Lists.newArrayList();
 
-        for(SvData sv : svDataCache.getSvList())
+        for(int blockStart = 0; blockStart < svList.size(); blockStart += SV_BLOCK_SIZE)
         {
-            if(sv.isSgl())
-                continue;
+            List<SvData> blockSvs = svList.subList(blockStart, min(blockStart + SV_BLOCK_SIZE, svList.size()));
+            linkTasks.add(new TransitiveLinkTask(new TransitiveLinkFinder(svDataCache, assemblyLinkStore), blockSvs));
+        }
 
-            Breakend breakend = sv.breakendStart();
-            Breakend otherBreakend = sv.breakendEnd();
+        final List<Callable> callableList = linkTasks.stream().collect(Collectors.toList());
+        TaskExecutor.executeTasks(callableList, threads);
 
-            List<Link> transLinks = transitiveLinkFinder.findTransitiveLinks(breakend);
+        // form paths in SV order
+        Map<String,AlternatePath> alternatePaths = Maps.newHashMap();
 
-            if(!transLinks.isEmpty())
+        for(TransitiveLinkTask linkTask : linkTasks)
+        {
+            for(int i = 0; i < linkTask.Svs.size(); ++i)
             {
+                List<Link> transLinks = linkTask.TransitiveLinks.get(i);
+
+                if(transLinks.isEmpty())
+                    continue;
+
+                SvData sv = linkTask.Svs.get(i);
+                Breakend breakend = sv.breakendStart();
+                Breakend otherBreakend = sv.breakendEnd();
+
                 AlternatePath altPath = new AlternatePath(breakend, otherBreakend, transLinks);
 
                 List<Link> reversedLinks = Lists.newArrayList();
@@ -44,6 +70,35 @@ public class AlternatePathFinder
         return alternatePaths.values().stream().collect(Collectors.toList());
     }
 
+    private static class TransitiveLinkTask implements Callable
+    {
+        public final List<SvData> Svs;
+        public final List<List<Link>> TransitiveLinks;
+
+        private final TransitiveLinkFinder mTransitiveLinkFinder;
+
+        public TransitiveLinkTask(final TransitiveLinkFinder transitiveLinkFinder, final List<SvData> svs)
+        {
+            mTransitiveLinkFinder = transitiveLinkFinder;
+            Svs = svs;
+            TransitiveLinks = Lists.newArrayListWithCapacity(svs.size());
+        }
+
+        @Override
+        public Long call()
+        {
+            for(SvData sv : Svs)
+            {
+                if(sv.isSgl())
+                    TransitiveLinks.add(Collections.emptyList());
+                else
+                    TransitiveLinks.add(mTransitiveLinkFinder.findTransitiveLinks(sv.breakendStart()));
+            }
+
+            return (long)0;
+        }
+    }
+
     public static Map<Breakend,String> createPathMap(final List<AlternatePath> alternatePaths)
     {
         Map<Breakend,String> idPathMap = Maps.newHashMap();
@@ -30,29 +30,32 @@ import com.hartwig.hmftools.gripss.common.SvData;
 
 public class PonCache
 {
+    // PON entries loaded from file or added, from which the index is formed
     private final Map<String,List<PonSvRegion>> mSvRegions;
     private final Map<String,List<PonSglRegion>> mSglRegions;
     private final int mPositionMargin;
     private final boolean mAllowUnordered;
 
-    // keep indices into the 2 collections assuming that requests to match on the PON will be made sequentially through the genome
-    private String mCurrentSvChromosome;
-    private int mCurrentSvIndex;
-    private String mCurrentSglChromosome;
-    private int mCurrentSglIndex;
+    private PonIndex mIndex;
     private boolean mHasValidData;
 
     private static final String GERMLINE_PON_BED_SV_FILE = "pon_sv_file";
     private static final String GERMLINE_PON_BED_SGL_FILE = "pon_sgl_file";
+    private static final String GERMLINE_PON_BINARY_FILE = "pon_binary_file";
     private static final String GERMLINE_PON_MARGIN = "pon_margin";
 
     public PonCache(final ConfigBuilder configBuilder)
     {
         this(configBuilder.getInteger(GERMLINE_PON_MARGIN), configBuilder.getValue(GERMLINE_PON_BED_SV_FILE),
-                configBuilder.getValue(GERMLINE_PON_BED_SGL_FILE), false);
+                configBuilder.getValue(GERMLINE_PON_BED_SGL_FILE), configBuilder.getValue(GERMLINE_PON_BINARY_FILE), false);
     }
 
     public PonCache(final int margin, final String ponSvFile, final String ponSglFile, boolean allowUnordered)
+    {
+        this(margin, ponSvFile, ponSglFile, null, allowUnordered);
+    }
+
+    private PonCache(final int margin, final String ponSvFile, final String ponSglFile, final String ponBinaryFile, boolean allowUnordered)
     {
         mSvRegions = Maps.newHashMap();
         mSglRegions = Maps.newHashMap();
@@ -61,60 +64,59 @@ public class PonCache
 
         mPositionMargin = margin;
 
+        if(ponBinaryFile != null)
+        {
+            mIndex = PonIndex.open(ponBinaryFile);
+            mHasValidData = mIndex != null;
+            return;
+        }
+
         if(ponSvFile != null)
             loadPonSvFile(ponSvFile);
 
         if(ponSglFile != null)
             loadPonSglFile(ponSglFile);
 
-        mCurrentSglChromosome = "";
-        mCurrentSvChromosome = "";
-        mCurrentSglIndex = 0;
-        mCurrentSvIndex = 0;
+        mIndex = PonIndex.from(mSvRegions, mSglRegions);
+
+        // only the index is used for lookups
+        mSvRegions.clear();
+        mSglRegions.clear();
     }
 
     public boolean hasValidData() { return mHasValidData; }
 
-    public Map<String,List<PonSvRegion>> svRegions() { return mSvRegions; }
-    public Map<String,List<PonSglRegion>> sglRegions() { return mSglRegions; }
+    public void writeBinary(final String filename) throws IOException
+    {
+        mIndex.write(filename);
+    }
 
     public int getPonCount(final SvData var)
     {
         // matching routine:
-        // - get regions by chromosome
-        // - use a binary search using start position
-        // - if a region is matched, search up and down from their checking both positions and orientations
+        // - get entries by chromosome, or chromosome pair for SVs
+        // - use a binary search to find the first entry which could overlap the start position
+        // - search up from there for an entry matching both positions and orientations
 
-        if(var.isSgl())
-        {
-            List<PonSglRegion> regions = mSglRegions.get(var.chromosomeStart());
-            if(regions != null)
-            {
-                if(!mCurrentSglChromosome.equals(var.chromosomeStart()))
-                {
-                    mCurrentSglChromosome = var.chromosomeStart();
-                    mCurrentSglIndex = 0;
-                }
+        if(mIndex == null)
+            mIndex = PonIndex.from(mSvRegions, mSglRegions);
 
-                return findSglPonMatch(regions, var);
-            }
-        }
-        else
-        {
-            List<PonSvRegion> regions = mSvRegions.get(var.chromosomeStart());
-            if(regions != null)
-            {
-                if(!mCurrentSvChromosome.equals(var.chromosomeStart()))
-                {
-                    mCurrentSvChromosome = var.chromosomeStart();
-                    mCurrentSvIndex = 0;
-                }
+        final int[] marginStart = breakendMargin(var.breakendStart());
 
-                return findPonMatch(regions, var);
-            }
-        }
+        int startLower = var.posStart() + marginStart[SE_START] - mPositionMargin;
+        int startUpper = var.posStart() + marginStart[SE_END] + mPositionMargin;
 
-        return 0;
+        if(var.isSgl())
+            return mIndex.getSglPonCount(var.chromosomeStart(), startLower, startUpper, var.orientStart());
+
+        final int[] marginEnd = breakendMargin(var.breakendEnd());
+
+        return mIndex.getSvPonCount(
+                var.chromosomeStart(), startLower, startUpper, var.orientStart(),
+                var.chromosomeEnd(),
+                var.posEnd() + marginEnd[SE_START] - mPositionMargin,
+                var.posEnd() + marginEnd[SE_END] + mPositionMargin,
+                var.orientEnd());
     }
 
     private static int[] breakendMargin(final Breakend breakend)
@@ -126,136 +128,6 @@ public class PonCache
         return margins;
     }
 
-    private int findPonMatch(final List<PonSvRegion> regions, final SvData var)
-    {
-        final int[] marginStart = breakendMargin(var.breakendStart());
-        final int[] marginEnd = breakendMargin(var.breakendEnd());
-
-        BaseRegion svStart = new BaseRegion(
-                var.posStart() + marginStart[SE_START] - mPositionMargin,
-                var.posStart() + marginStart[SE_END] + mPositionMargin);
-
-        for(; mCurrentSvIndex < regions.size(); ++mCurrentSvIndex)
-        {
-            PonSvRegion region = regions.get(mCurrentSvIndex);
-
-            if(region.RegionStart.overlaps(svStart))
-            {
-                // test the PON entries around this position
-                ChrBaseRegion svEnd = new ChrBaseRegion(
-                        var.chromosomeEnd(),
-                        var.posEnd() + marginEnd[SE_START] - mPositionMargin,
-                        var.posEnd() + marginEnd[SE_END] + mPositionMargin);
-
-                return findPonMatch(regions, var, svStart, svEnd, mCurrentSvIndex);
-            }
-
-            // exit if the PON is now past this point and retreat one position
-            if(region.RegionStart.start() > svStart.end())
-                break;
-        }
-
-        if(mCurrentSvIndex > 0)
-            --mCurrentSvIndex;
-
-        return 0;
-    }
-
-    private int findPonMatch(
-            final List<PonSvRegion> regions, final SvData var, final BaseRegion svStart, final ChrBaseRegion svEnd, int startIndex)
-    {
-        // search and up and down from this entry point for a PON match
-        for(int i = 0; i <= 1; ++i)
-        {
-            boolean searchUp = (i == 0);
-            int currentIndex = startIndex;
-
-            while(currentIndex >= 0 && currentIndex < regions.size())
-            {
-                PonSvRegion region = regions.get(currentIndex);
-
-                if(searchUp && region.RegionStart.start() > svStart.end())
-                    break;
-
-                if(!searchUp && region.RegionStart.end() < svStart.start())
-                    break;
-
-                if(region.matches(svStart, svEnd, var.orientStart(), var.orientEnd()))
-                    return region.PonCount;
-
-                if(searchUp)
-                    ++currentIndex;
-                else
-                    --currentIndex;
-            }
-        }
-
-        return 0;
-    }
-
-    private int findSglPonMatch(final List<PonSglRegion> regions, final SvData var)
-    {
-        final int[] marginStart = breakendMargin(var.breakendStart());
-
-        BaseRegion svStart = new BaseRegion(
-                var.posStart() + marginStart[SE_START] - mPositionMargin,
-                var.posStart() + marginStart[SE_END] + mPositionMargin);
-
-        for(; mCurrentSglIndex < regions.size(); ++mCurrentSglIndex)
-        {
-            PonSglRegion region = regions.get(mCurrentSglIndex);
-
-            if(region.Region.overlaps(svStart))
-            {
-                // test the PON entries around this position
-                return findSglPonMatch(regions, var, svStart, mCurrentSglIndex);
-            }
-
-            // exit if the PON is now past this point and retreat one position
-            if(region.Region.start() > svStart.end())
-            {
-                if(mCurrentSglIndex > 0)
-                    --mCurrentSglIndex;
-
-                break;
-            }
-        }
-
-        return 0;
-    }
-
-    private int findSglPonMatch(final List<PonSglRegion> regions, final SvData var, final BaseRegion svStart, int startIndex)
-    {
-        // search and up and down from this entry point for a PON match
-
-        for(int i = 0; i <= 1; ++i)
-        {
-            boolean searchUp = (i == 0);
-            int currentIndex = startIndex;
-
-            while(currentIndex >= 0 && currentIndex < regions.size())
-            {
-                PonSglRegion region = regions.get(currentIndex);
-
-                if(searchUp && region.Region.start() > svStart.end())
-                    break;
-
-                if(!searchUp && region.Region.end() < svStart.start())
-                    break;
-
-                if(region.matches(svStart, var.orientStart()))
-                    return region.PonCount;
-
-                if(searchUp)
-                    ++currentIndex;
-                else
-                    --currentIndex;
-            }
-        }
-
-        return 0;
-    }
-
     private void loadPonSvFile(final String filename)
     {
         if(filename == null)
@@ -283,8 +155,7 @@ public class PonCache
                 if(!chrStart.equals(currentChr))
                 {
                     currentChr = chrStart;
-                    svRegions = Lists.newArrayList();
-                    mSvRegions.put(chrStart, svRegions);
+                    svRegions = mSvRegions.computeIfAbsent(chrStart, k -> Lists.newArrayList());
                     lastRegion = null;
                 }
 
@@ -343,8 +214,7 @@ public class PonCache
                 if(!chr.equals(currentChr))
                 {
                     currentChr = chr;
-                    sglRegions = Lists.newArrayList();
-                    mSglRegions.put(chr, sglRegions);
+                    sglRegions = mSglRegions.computeIfAbsent(chr, k -> Lists.newArrayList());
                     lastRegion = null;
                 }
 
@@ -374,6 +244,7 @@ public class PonCache
         }
     }
 
+    // regions added after loading are indexed on the next lookup, only used for testing
     public void addPonSvRegion(
             final String chrStart, final BaseRegion regionStart, final Byte orientStart, final ChrBaseRegion regionEnd, final Byte orientEnd, final int ponCount)
     {
@@ -386,6 +257,7 @@ public class PonCache
         }
 
         regions.add(new PonSvRegion(regionStart, orientStart, regionEnd, orientEnd, ponCount));
+        mIndex = null;
     }
 
     public void addPonSglRegion(final String chromosome, BaseRegion region, final Byte orient, final int ponCount)
@@ -399,20 +271,21 @@ public class PonCache
         }
 
         regions.add(new PonSglRegion(region, orient, ponCount));
+        mIndex = null;
     }
 
     public void clear()
     {
-        mCurrentSvIndex = 0;
-        mCurrentSglIndex = 0;
         mSvRegions.clear();
         mSglRegions.clear();
+        mIndex = null;
     }
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
         configBuilder.addPath(GERMLINE_PON_BED_SV_FILE, false, "PON for SV positions");
         configBuilder.addPath(GERMLINE_PON_BED_SGL_FILE, false, "PON for SGL positions");
+        configBuilder.addPath(GERMLINE_PON_BINARY_FILE, false, "PON binary file for SV and SGL positions, used instead of the PON files");
         configBuilder.addInteger(
                 GERMLINE_PON_MARGIN, "PON permitted matching position margin", DEFAULT_PON_DISTANCE);
     }
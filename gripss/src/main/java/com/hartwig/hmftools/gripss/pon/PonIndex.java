@@ -0,0 +1,374 @@
+package com.hartwig.hmftools.gripss.pon;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
+import static com.hartwig.hmftools.gripss.GripssConfig.GR_LOGGER;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.jetbrains.annotations.Nullable;
+
+// the SV and SGL PONs in a compact, sorted form which can be written to a binary file and memory-mapped on load
+// SV entries are held per pair of start and end chromosomes and SGL entries per chromosome, each as columns of primitive values ordered
+// by start position - lookups are stateless binary searches, so can be made in any order and from any thread
+// layout: header (magic, version, SV and SGL section counts), a directory of sections (chromosomes, entry count, data offset and max
+// start region length), then each section's int columns followed by its orientation columns
+public class PonIndex
+{
+    private final ByteBuffer mBuffer;
+    private final Map<String,Map<String,Section>> mSvSections; // keyed by start then end chromosome
+    private final Map<String,Section> mSglSections;
+    private int mSvEntryCount;
+    private int mSglEntryCount;
+
+    private static final int MAGIC = 0x47504F4E; // GPON
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    // SV columns: start region begin and end, end region begin and end, PON count, then start and end orientations
+    private static final int SV_INT_COLUMNS = 5;
+    private static final int SV_BYTE_COLUMNS = 2;
+
+    // SGL columns: region begin and end, PON count, then orientation
+    private static final int SGL_INT_COLUMNS = 3;
+    private static final int SGL_BYTE_COLUMNS = 1;
+
+    private static class Section
+    {
+        public final int Count;
+        public final int Offset;
+        public final int MaxLength; // of the start region, bounding the search for regions overlapping a position
+
+        public Section(int count, int offset, int maxLength)
+        {
+            Count = count;
+            Offset = offset;
+            MaxLength = maxLength;
+        }
+    }
+
+    private PonIndex(final ByteBuffer buffer)
+    {
+        mBuffer = buffer;
+        mSvSections = Maps.newHashMap();
+        mSglSections = Maps.newHashMap();
+        mSvEntryCount = 0;
+        mSglEntryCount = 0;
+
+        int svSectionCount = buffer.getInt(8);
+        int sglSectionCount = buffer.getInt(12);
+
+        ByteBuffer directory = buffer.duplicate();
+        directory.position(HEADER_SIZE);
+
+        for(int i = 0; i < svSectionCount; ++i)
+        {
+            String chrStart = readString(directory);
+            String chrEnd = readString(directory);
+            Section section = new Section(directory.getInt(), directory.getInt(), directory.getInt());
+            mSvSections.computeIfAbsent(chrStart, k -> Maps.newHashMap()).put(chrEnd, section);
+            mSvEntryCount += section.Count;
+        }
+
+        for(int i = 0; i < sglSectionCount; ++i)
+        {
+            String chromosome = readString(directory);
+            Section section = new Section(directory.getInt(), directory.getInt(), directory.getInt());
+            mSglSections.put(chromosome, section);
+            mSglEntryCount += section.Count;
+        }
+    }
+
+    public int svEntryCount() { return mSvEntryCount; }
+    public int sglEntryCount() { return mSglEntryCount; }
+
+    public int getSvPonCount(
+            final String chrStart, int startLower, int startUpper, byte orientStart,
+            final String chrEnd, int endLower, int endUpper, byte orientEnd)
+    {
+        Map<String,Section> chrEndSections = mSvSections.get(chrStart);
+
+        if(chrEndSections == null)
+            return 0;
+
+        Section section = chrEndSections.get(chrEnd);
+
+        if(section == null)
+            return 0;
+
+        // the first matching entry by start position is taken
+        for(int i = firstCandidate(section, startLower); i < section.Count; ++i)
+        {
+            int regionStart = intValue(section, 0, i);
+
+            if(regionStart > startUpper)
+                break;
+
+            if(!positionsOverlap(regionStart, intValue(section, 1, i), startLower, startUpper))
+                continue;
+
+            if(!positionsOverlap(intValue(section, 2, i), intValue(section, 3, i), endLower, endUpper))
+                continue;
+
+            if(byteValue(section, SV_INT_COLUMNS, 0, i) == orientStart && byteValue(section, SV_INT_COLUMNS, 1, i) == orientEnd)
+                return intValue(section, 4, i);
+        }
+
+        return 0;
+    }
+
+    public int getSglPonCount(final String chromosome, int lower, int upper, byte orientation)
+    {
+        Section section = mSglSections.get(chromosome);
+
+        if(section == null)
+            return 0;
+
+        for(int i = firstCandidate(section, lower); i < section.Count; ++i)
+        {
+            int regionStart = intValue(section, 0, i);
+
+            if(regionStart > upper)
+                break;
+
+            if(!positionsOverlap(regionStart, intValue(section, 1, i), lower, upper))
+                continue;
+
+            if(byteValue(section, SGL_INT_COLUMNS, 0, i) == orientation)
+                return intValue(section, 2, i);
+        }
+
+        return 0;
+    }
+
+    private int firstCandidate(final Section section, int lowerPosition)
+    {
+        // find the first entry which could overlap the lower position given the longest region in the section
+        int minRegionStart = lowerPosition - section.MaxLength;
+
+        int low = 0;
+        int high = section.Count;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(intValue(section, 0, mid) < minRegionStart)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private int intValue(final Section section, int column, int index)
+    {
+        return mBuffer.getInt(section.Offset + (column * section.Count + index) * Integer.BYTES);
+    }
+
+    private byte byteValue(final Section section, int intColumns, int column, int index)
+    {
+        return mBuffer.get(section.Offset + intColumns * section.Count * Integer.BYTES + column * section.Count + index);
+    }
+
+    public static PonIndex from(final Map<String,List<PonSvRegion>> svRegions, final Map<String,List<PonSglRegion>> sglRegions)
+    {
+        // group SV entries by their pair of chromosomes, sorted by start position and otherwise keeping their original order
+        Map<String,Map<String,List<PonSvRegion>>> chrPairRegions = Maps.newTreeMap();
+
+        for(Map.Entry<String,List<PonSvRegion>> entry : svRegions.entrySet())
+        {
+            Map<String,List<PonSvRegion>> chrEndRegions = chrPairRegions.computeIfAbsent(entry.getKey(), k -> Maps.newTreeMap());
+
+            for(PonSvRegion region : entry.getValue())
+            {
+                chrEndRegions.computeIfAbsent(region.RegionEnd.Chromosome, k -> Lists.newArrayList()).add(region);
+            }
+        }
+
+        Map<String,List<PonSglRegion>> chrSglRegions = Maps.newTreeMap();
+
+        for(Map.Entry<String,List<PonSglRegion>> entry : sglRegions.entrySet())
+        {
+            if(!entry.getValue().isEmpty())
+                chrSglRegions.put(entry.getKey(), Lists.newArrayList(entry.getValue()));
+        }
+
+        int svSectionCount = 0;
+        int directorySize = 0;
+        int dataSize = 0;
+
+        for(Map.Entry<String,Map<String,List<PonSvRegion>>> entry : chrPairRegions.entrySet())
+        {
+            for(Map.Entry<String,List<PonSvRegion>> chrEndEntry : entry.getValue().entrySet())
+            {
+                chrEndEntry.getValue().sort(null);
+                ++svSectionCount;
+                directorySize += stringSize(entry.getKey()) + stringSize(chrEndEntry.getKey()) + 3 * Integer.BYTES;
+                dataSize += sectionSize(chrEndEntry.getValue().size(), SV_INT_COLUMNS, SV_BYTE_COLUMNS);
+            }
+        }
+
+        for(Map.Entry<String,List<PonSglRegion>> entry : chrSglRegions.entrySet())
+        {
+            entry.getValue().sort(null);
+            directorySize += stringSize(entry.getKey()) + 3 * Integer.BYTES;
+            dataSize += sectionSize(entry.getValue().size(), SGL_INT_COLUMNS, SGL_BYTE_COLUMNS);
+        }
+
+        // keep sections aligned to whole ints
+        int dataOffset = alignedSize(HEADER_SIZE + directorySize);
+
+        ByteBuffer buffer = ByteBuffer.allocate(dataOffset + dataSize);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(svSectionCount);
+        buffer.putInt(chrSglRegions.size());
+
+        for(Map.Entry<String,Map<String,List<PonSvRegion>>> entry : chrPairRegions.entrySet())
+        {
+            for(Map.Entry<String,List<PonSvRegion>> chrEndEntry : entry.getValue().entrySet())
+            {
+                List<PonSvRegion> regions = chrEndEntry.getValue();
+                int count = regions.size();
+                int maxLength = 0;
+
+                for(int i = 0; i < count; ++i)
+                {
+                    PonSvRegion region = regions.get(i);
+                    maxLength = max(maxLength, region.RegionStart.end() - region.RegionStart.start());
+
+                    buffer.putInt(dataOffset + i * Integer.BYTES, region.RegionStart.start());
+                    buffer.putInt(dataOffset + (count + i) * Integer.BYTES, region.RegionStart.end());
+                    buffer.putInt(dataOffset + (2 * count + i) * Integer.BYTES, region.RegionEnd.start());
+                    buffer.putInt(dataOffset + (3 * count + i) * Integer.BYTES, region.RegionEnd.end());
+                    buffer.putInt(dataOffset + (4 * count + i) * Integer.BYTES, region.PonCount);
+                    buffer.put(dataOffset + SV_INT_COLUMNS * count * Integer.BYTES + i, region.OrientStart);
+                    buffer.put(dataOffset + SV_INT_COLUMNS * count * Integer.BYTES + count + i, region.OrientEnd);
+                }
+
+                writeString(buffer, entry.getKey());
+                writeString(buffer, chrEndEntry.getKey());
+                buffer.putInt(count);
+                buffer.putInt(dataOffset);
+                buffer.putInt(maxLength);
+
+                dataOffset += sectionSize(count, SV_INT_COLUMNS, SV_BYTE_COLUMNS);
+            }
+        }
+
+        for(Map.Entry<String,List<PonSglRegion>> entry : chrSglRegions.entrySet())
+        {
+            List<PonSglRegion> regions = entry.getValue();
+            int count = regions.size();
+            int maxLength = 0;
+
+            for(int i = 0; i < count; ++i)
+            {
+                PonSglRegion region = regions.get(i);
+                maxLength = max(maxLength, region.Region.end() - region.Region.start());
+
+                buffer.putInt(dataOffset + i * Integer.BYTES, region.Region.start());
+                buffer.putInt(dataOffset + (count + i) * Integer.BYTES, region.Region.end());
+                buffer.putInt(dataOffset + (2 * count + i) * Integer.BYTES, region.PonCount);
+                buffer.put(dataOffset + SGL_INT_COLUMNS * count * Integer.BYTES + i, region.Orient);
+            }
+
+            writeString(buffer, entry.getKey());
+            buffer.putInt(count);
+            buffer.putInt(dataOffset);
+            buffer.putInt(maxLength);
+
+            dataOffset += sectionSize(count, SGL_INT_COLUMNS, SGL_BYTE_COLUMNS);
+        }
+
+        return new PonIndex(buffer);
+    }
+
+    @Nullable
+    public static PonIndex open(final String filename)
+    {
+        try(RandomAccessFile file = new RandomAccessFile(filename, "r"))
+        {
+            FileChannel channel = file.getChannel();
+
+            // the mapping remains valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            {
+                GR_LOGGER.error("PON binary file({}) has unsupported format", filename);
+                return null;
+            }
+
+            PonIndex ponIndex = new PonIndex(buffer);
+
+            GR_LOGGER.info("loaded {} germline SV and {} SGL PON records from binary file({})",
+                    ponIndex.svEntryCount(), ponIndex.sglEntryCount(), filename);
+
+            return ponIndex;
+        }
+        catch(IOException | IllegalArgumentException | IndexOutOfBoundsException e)
+        {
+            GR_LOGGER.error("failed to load PON binary file({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    public void write(final String filename) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(
+                Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer buffer = mBuffer.duplicate();
+            buffer.position(0);
+
+            while(buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static int sectionSize(int count, int intColumns, int byteColumns)
+    {
+        return alignedSize(count * (intColumns * Integer.BYTES + byteColumns));
+    }
+
+    private static int alignedSize(int size)
+    {
+        return (size + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+    }
+
+    private static int stringSize(final String value)
+    {
+        return Short.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void writeString(final ByteBuffer buffer, final String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short)bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
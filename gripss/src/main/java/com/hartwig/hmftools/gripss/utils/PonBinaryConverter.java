@@ -0,0 +1,49 @@
+package com.hartwig.hmftools.gripss.utils;
+
+import static com.hartwig.hmftools.gripss.GripssConfig.APP_NAME;
+import static com.hartwig.hmftools.gripss.GripssConfig.GR_LOGGER;
+
+import java.io.IOException;
+
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.config.ConfigUtils;
+import com.hartwig.hmftools.gripss.pon.PonCache;
+
+import org.jetbrains.annotations.NotNull;
+
+// writes the SV and SGL PON files to a single binary file, which Gripss can then memory-map instead of parsing the PON files
+public class PonBinaryConverter
+{
+    private static final String OUTPUT_FILE = "output_file";
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+        configBuilder.addConfigItem(OUTPUT_FILE, true, "Output PON binary file");
+        PonCache.addConfig(configBuilder);
+
+        ConfigUtils.addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        GR_LOGGER.info("converting Gripss PON files to binary");
+
+        PonCache ponCache = new PonCache(configBuilder);
+
+        if(!ponCache.hasValidData())
+            System.exit(1);
+
+        String outputFile = configBuilder.getValue(OUTPUT_FILE);
+
+        try
+        {
+            ponCache.writeBinary(outputFile);
+            GR_LOGGER.info("wrote PON binary file({})", outputFile);
+        }
+        catch(IOException e)
+        {
+            GR_LOGGER.error("failed to write PON binary file({}): {}", outputFile, e.toString());
+            System.exit(1);
+        }
+    }
+}
@@ -11,6 +11,8 @@ import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +22,7 @@ import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.gripss.common.SvData;
 import com.hartwig.hmftools.gripss.pon.PonCache;
+import com.hartwig.hmftools.gripss.pon.PonIndex;
 import com.hartwig.hmftools.gripss.pon.PonSglRegion;
 import com.hartwig.hmftools.gripss.pon.PonSvRegion;
 
@@ -154,4 +157,45 @@ public class PonTest
 
         assertTrue(mPonCache.getPonCount(var) > 0);
     }
+
+    @Test
+    public void testBinaryPonMatches() throws IOException
+    {
+        PonCache ponCache = new PonCache(2, null, null, true);
+
+        // added out of order and across chromosome pairs
+        ponCache.addPonSvRegion(
+                CHR_1, new BaseRegion(5000, 5010), POS_ORIENT, new ChrBaseRegion(CHR_2, 8000, 8010), NEG_ORIENT, 3);
+
+        ponCache.addPonSvRegion(
+                CHR_1, new BaseRegion(100, 110), POS_ORIENT, new ChrBaseRegion(CHR_1, 1000, 1010), NEG_ORIENT, 2);
+
+        ponCache.addPonSglRegion(CHR_2, new BaseRegion(2000, 2010), POS_ORIENT, 4);
+
+        SvData bnd = mGripss.createBnd(CHR_1, CHR_2, 5005, 8005, POS_ORIENT, NEG_ORIENT, null, null);
+        SvData del = mGripss.createDel(CHR_1, 105, 1005, null, null);
+
+        SvData sgl = GripssTestUtils.createSgl(
+                mGripss.IdGen.nextEventId(), CHR_2, 2005, POS_ORIENT, "",
+                mGripss.GenotypeIds, null, null, null);
+
+        // lookups do not depend on the order in which they're made
+        assertEquals(3, ponCache.getPonCount(bnd));
+        assertEquals(2, ponCache.getPonCount(del));
+        assertEquals(4, ponCache.getPonCount(sgl));
+
+        File binaryFile = File.createTempFile("gripss_pon", ".bin");
+        binaryFile.deleteOnExit();
+        ponCache.writeBinary(binaryFile.getAbsolutePath());
+
+        PonIndex ponIndex = PonIndex.open(binaryFile.getAbsolutePath());
+        assertEquals(2, ponIndex.svEntryCount());
+        assertEquals(1, ponIndex.sglEntryCount());
+
+        assertEquals(2, ponIndex.getSvPonCount(CHR_1, 103, 107, POS_ORIENT, CHR_1, 1003, 1007, NEG_ORIENT));
+        assertEquals(3, ponIndex.getSvPonCount(CHR_1, 5003, 5007, POS_ORIENT, CHR_2, 8003, 8007, NEG_ORIENT));
+        assertEquals(0, ponIndex.getSvPonCount(CHR_1, 5003, 5007, POS_ORIENT, CHR_1, 8003, 8007, NEG_ORIENT));
+        assertEquals(4, ponIndex.getSglPonCount(CHR_2, 2003, 2007, POS_ORIENT));
+        assertEquals(0, ponIndex.getSglPonCount(CHR_2, 2003, 2007, NEG_ORIENT));
+    }
 }
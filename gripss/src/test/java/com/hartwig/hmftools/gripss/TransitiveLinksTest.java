@@ -4,6 +4,7 @@ import static com.hartwig.hmftools.common.sv.SvVcfTags.CIPOS;
 import static com.hartwig.hmftools.common.variant.CommonVcfTags.QUAL;
 import static com.hartwig.hmftools.common.sv.gridss.GridssVcfTags.IMPRECISE;
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
 import static com.hartwig.hmftools.common.utils.sv.SvCommonUtils.NEG_ORIENT;
 import static com.hartwig.hmftools.common.utils.sv.SvCommonUtils.POS_ORIENT;
 import static com.hartwig.hmftools.gripss.GripssTestUtils.buildLinkAttributes;
@@ -18,7 +19,9 @@ import java.util.Map;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.gripss.common.Breakend;
 import com.hartwig.hmftools.gripss.common.SvData;
+import com.hartwig.hmftools.gripss.links.AlternatePathFinder;
 import com.hartwig.hmftools.gripss.links.AssemblyLinks;
 import com.hartwig.hmftools.gripss.links.Link;
 import com.hartwig.hmftools.gripss.links.LinkStore;
@@ -287,4 +290,49 @@ public class TransitiveLinksTest
         GripssTestUtils.loadSvDataCache(mGripss.DataCache, Lists.newArrayList(var1, var2, var3, var4, var5));
         assertTrue(transLinkFinder.findTransitiveLinks(var1.breakendStart()).isEmpty());
     }
+
+    @Test
+    public void testThreadedPathFinding()
+    {
+        Map<String, Object> attributeOverrides = Maps.newHashMap();
+        attributeOverrides.put(IMPRECISE, "true");
+
+        List<SvData> svList = Lists.newArrayList();
+
+        // enough transitive link candidates to be searched in several blocks
+        for(String chromosome : Lists.newArrayList(CHR_1, CHR_2))
+        {
+            for(int i = 0; i < 400; ++i)
+            {
+                int offset = i * 10000;
+
+                svList.add(createSv(
+                        mGripss.IdGen.nextEventId(), chromosome, chromosome, offset + 1000, offset + 2000, POS_ORIENT, NEG_ORIENT, "",
+                        mGripss.GenotypeIds, attributeOverrides, null, null));
+
+                svList.add(createSv(
+                        mGripss.IdGen.nextEventId(), chromosome, chromosome, offset + 1000, offset + 1400, POS_ORIENT, NEG_ORIENT, "",
+                        mGripss.GenotypeIds, null, null));
+
+                svList.add(createSv(
+                        mGripss.IdGen.nextEventId(), chromosome, chromosome, offset + 1600, offset + 2000, POS_ORIENT, NEG_ORIENT, "",
+                        mGripss.GenotypeIds, null, null));
+            }
+        }
+
+        mGripss.DataCache.clear();
+        svList.forEach(x -> mGripss.DataCache.addSvData(x));
+        mGripss.DataCache.buildBreakendMap(4);
+
+        LinkStore assemblyLinks = AssemblyLinks.buildAssembledLinks(mGripss.DataCache.getBreakendMap());
+
+        Map<Breakend,String> pathMap = AlternatePathFinder.createPathMap(
+                AlternatePathFinder.findPaths(mGripss.DataCache, assemblyLinks, 1));
+
+        Map<Breakend,String> threadedPathMap = AlternatePathFinder.createPathMap(
+                AlternatePathFinder.findPaths(mGripss.DataCache, assemblyLinks, 4));
+
+        assertEquals(800 * 2, pathMap.size());
+        assertEquals(pathMap, threadedPathMap);
+    }
 }
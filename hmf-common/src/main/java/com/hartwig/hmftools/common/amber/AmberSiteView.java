@@ -0,0 +1,136 @@
+package com.hartwig.hmftools.common.amber;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+
+// a read-only view of one chromosome's Amber sites, either over a memory-mapped binary sites file or over sites loaded
+// from a TSV or VCF, with each site's ref and alt held as 2-bit base codes and its SnpCheck status as a bit
+public class AmberSiteView
+{
+    private final String mChromosome;
+    private final int mCount;
+    private final IntBuffer mPositions;
+    private final ByteBuffer mBases; // ref in the low 2 bits, alt in the next 2
+    private final ByteBuffer mSnpChecks;
+
+    private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+
+    public AmberSiteView(
+            final String chromosome, int count, final IntBuffer positions, final ByteBuffer bases, final ByteBuffer snpChecks)
+    {
+        mChromosome = chromosome;
+        mCount = count;
+        mPositions = positions;
+        mBases = bases;
+        mSnpChecks = snpChecks;
+    }
+
+    public static AmberSiteView fromSites(final String chromosome, final List<AmberSite> sites)
+    {
+        int count = sites.size();
+        IntBuffer positions = IntBuffer.allocate(count);
+        ByteBuffer bases = ByteBuffer.allocate(count);
+        ByteBuffer snpChecks = ByteBuffer.allocate(snpCheckBytes(count));
+
+        for(int i = 0; i < count; ++i)
+        {
+            AmberSite site = sites.get(i);
+            positions.put(i, site.Position);
+            bases.put(i, baseCodes(site));
+
+            if(site.snpCheck())
+                snpChecks.put(i >> 3, (byte)(snpChecks.get(i >> 3) | (1 << (i & 7))));
+        }
+
+        return new AmberSiteView(chromosome, count, positions, bases, snpChecks);
+    }
+
+    public String chromosome() { return mChromosome; }
+    public int size() { return mCount; }
+
+    public int position(int index) { return mPositions.get(index); }
+    public char ref(int index) { return BASES[mBases.get(index) & 0x3]; }
+    public char alt(int index) { return BASES[(mBases.get(index) >> 2) & 0x3]; }
+    public boolean snpCheck(int index) { return (mSnpChecks.get(index >> 3) & (1 << (index & 7))) != 0; }
+
+    public AmberSite site(int index)
+    {
+        return new AmberSite(mChromosome, position(index), String.valueOf(ref(index)), String.valueOf(alt(index)), snpCheck(index));
+    }
+
+    // index of the first site at or after the position, or the site count if there is none
+    public int firstIndex(int position)
+    {
+        int low = 0;
+        int high = mCount;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mPositions.get(mid) < position)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    // index after the last site at or before the position
+    public int endIndex(int position)
+    {
+        return position == Integer.MAX_VALUE ? mCount : firstIndex(position + 1);
+    }
+
+    // a heap-backed view of the sites at the given indices
+    public AmberSiteView select(final int[] indices, int count)
+    {
+        IntBuffer positions = IntBuffer.allocate(count);
+        ByteBuffer bases = ByteBuffer.allocate(count);
+        ByteBuffer snpChecks = ByteBuffer.allocate(snpCheckBytes(count));
+
+        for(int i = 0; i < count; ++i)
+        {
+            int index = indices[i];
+            positions.put(i, mPositions.get(index));
+            bases.put(i, mBases.get(index));
+
+            if(snpCheck(index))
+                snpChecks.put(i >> 3, (byte)(snpChecks.get(i >> 3) | (1 << (i & 7))));
+        }
+
+        return new AmberSiteView(mChromosome, count, positions, bases, snpChecks);
+    }
+
+    public static int snpCheckBytes(int count) { return (count + 7) / 8; }
+
+    public static byte baseCodes(final AmberSite site)
+    {
+        int refCode = baseCode(site.Ref);
+        int altCode = baseCode(site.Alt);
+
+        if(refCode < 0 || altCode < 0)
+            throw new IllegalArgumentException("unsupported bases for Amber site: " + site);
+
+        return (byte)(refCode | (altCode << 2));
+    }
+
+    private static int baseCode(final String base)
+    {
+        if(base.length() != 1)
+            return -1;
+
+        switch(base.charAt(0))
+        {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+
+    public String toString() { return String.format("chromosome(%s) sites(%d)", mChromosome, mCount); }
+}
@@ -8,15 +8,29 @@ import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
 import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
@@ -31,8 +45,30 @@ public final class AmberSitesFile
     private static final Logger LOGGER = LogManager.getLogger(AmberSitesFile.class);
     private static final String SNPCHECK = "SNPCHECK";
 
+    // the binary sites file holds each chromosome's sorted positions, 2-bit base codes and SnpCheck bits as contiguous sections
+    // layout: magic, version and chromosome count, then per chromosome its name, site count and section offsets
+    private static final int BINARY_MAGIC = 0x414D4253; // AMBS
+    private static final int BINARY_VERSION = 1;
+
     public static ListMultimap<Chromosome,AmberSite> sites(final String filename) throws IOException
     {
+        if(isBinary(filename))
+        {
+            ListMultimap<Chromosome,AmberSite> result = ArrayListMultimap.create();
+
+            for(Map.Entry<Chromosome,AmberSiteView> entry : loadBinary(filename).entrySet())
+            {
+                AmberSiteView view = entry.getValue();
+
+                for(int i = 0; i < view.size(); ++i)
+                {
+                    result.put(entry.getKey(), view.site(i));
+                }
+            }
+
+            return result;
+        }
+
         BufferedReader reader = createBufferedReader(filename);
 
         String header = reader.readLine();
@@ -43,6 +79,178 @@ public final class AmberSitesFile
             return loadFile(filename);
     }
 
+    // loads sites as per-chromosome views, mapping a binary sites file or otherwise converting those loaded from a TSV or VCF
+    public static Map<Chromosome,AmberSiteView> siteViews(final String filename) throws IOException
+    {
+        if(isBinary(filename))
+            return loadBinary(filename);
+
+        ListMultimap<Chromosome,AmberSite> sites = sites(filename);
+        Map<Chromosome,AmberSiteView> siteViews = Maps.newLinkedHashMap();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            List<AmberSite> chrSites = sites.get(chromosome);
+
+            if(!chrSites.isEmpty())
+                siteViews.put(chromosome, AmberSiteView.fromSites(chrSites.get(0).Chromosome, chrSites));
+        }
+
+        return siteViews;
+    }
+
+    public static boolean isBinary(final String filename) throws IOException
+    {
+        try(DataInputStream inputStream = new DataInputStream(Files.newInputStream(Paths.get(filename))))
+        {
+            return inputStream.readInt() == BINARY_MAGIC;
+        }
+        catch(EOFException e)
+        {
+            return false;
+        }
+    }
+
+    public static Map<Chromosome,AmberSiteView> loadBinary(final String filename) throws IOException
+    {
+        ByteBuffer buffer;
+
+        try(RandomAccessFile file = new RandomAccessFile(filename, "r"))
+        {
+            FileChannel channel = file.getChannel();
+
+            // the mapping remains valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if(buffer.getInt() != BINARY_MAGIC || buffer.getInt() != BINARY_VERSION)
+            throw new IOException("invalid binary Amber sites file: " + filename);
+
+        int chromosomeCount = buffer.getInt();
+        Map<Chromosome,AmberSiteView> siteViews = Maps.newLinkedHashMap();
+        int siteCount = 0;
+
+        for(int i = 0; i < chromosomeCount; ++i)
+        {
+            byte[] nameBytes = new byte[buffer.getShort()];
+            buffer.get(nameBytes);
+            String chrStr = new String(nameBytes, StandardCharsets.UTF_8);
+
+            int count = buffer.getInt();
+            int positionsOffset = buffer.getInt();
+            int basesOffset = buffer.getInt();
+            int snpChecksOffset = buffer.getInt();
+
+            IntBuffer positions = slice(buffer, positionsOffset, count * Integer.BYTES).asIntBuffer();
+            ByteBuffer bases = slice(buffer, basesOffset, count);
+            ByteBuffer snpChecks = slice(buffer, snpChecksOffset, AmberSiteView.snpCheckBytes(count));
+
+            siteViews.put(HumanChromosome.fromString(chrStr), new AmberSiteView(chrStr, count, positions, bases, snpChecks));
+            siteCount += count;
+        }
+
+        LOGGER.info("loaded {} Amber germline sites from binary file {}", siteCount, filename);
+        return siteViews;
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer, int offset, int length)
+    {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    public static void writeBinary(final ListMultimap<Chromosome,AmberSite> sites, final String filename) throws IOException
+    {
+        Map<String,List<AmberSite>> chrSites = Maps.newLinkedHashMap();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            List<AmberSite> sortedSites = Lists.newArrayList(sites.get(chromosome));
+
+            if(sortedSites.isEmpty())
+                continue;
+
+            sortedSites.sort(Comparator.comparingInt(AmberSite::position));
+            chrSites.put(sortedSites.get(0).Chromosome, sortedSites);
+        }
+
+        int headerSize = 3 * Integer.BYTES;
+
+        for(String chrStr : chrSites.keySet())
+        {
+            headerSize += Short.BYTES + chrStr.getBytes(StandardCharsets.UTF_8).length + 4 * Integer.BYTES;
+        }
+
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+
+        outputStream.writeInt(BINARY_MAGIC);
+        outputStream.writeInt(BINARY_VERSION);
+        outputStream.writeInt(chrSites.size());
+
+        // sections start 4-byte aligned so positions can be read as ints
+        int offset = align(headerSize);
+
+        for(Map.Entry<String,List<AmberSite>> entry : chrSites.entrySet())
+        {
+            byte[] nameBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            int count = entry.getValue().size();
+
+            outputStream.writeShort(nameBytes.length);
+            outputStream.write(nameBytes);
+            outputStream.writeInt(count);
+            outputStream.writeInt(offset);
+            outputStream.writeInt(offset + count * Integer.BYTES);
+            outputStream.writeInt(offset + count * Integer.BYTES + count);
+
+            offset = align(offset + count * Integer.BYTES + count + AmberSiteView.snpCheckBytes(count));
+        }
+
+        int written = headerSize;
+
+        for(List<AmberSite> sortedSites : chrSites.values())
+        {
+            written = pad(outputStream, written);
+
+            for(AmberSite site : sortedSites)
+            {
+                outputStream.writeInt(site.Position);
+            }
+
+            byte[] snpChecks = new byte[AmberSiteView.snpCheckBytes(sortedSites.size())];
+
+            for(int i = 0; i < sortedSites.size(); ++i)
+            {
+                AmberSite site = sortedSites.get(i);
+                outputStream.writeByte(AmberSiteView.baseCodes(site));
+
+                if(site.snpCheck())
+                    snpChecks[i >> 3] |= (byte)(1 << (i & 7));
+            }
+
+            outputStream.write(snpChecks);
+            written += sortedSites.size() * (Integer.BYTES + 1) + snpChecks.length;
+        }
+
+        outputStream.close();
+
+        LOGGER.info("wrote {} Amber germline sites to binary file {}", sites.size(), filename);
+    }
+
+    private static int align(int offset) { return (offset + 3) & ~3; }
+
+    private static int pad(final DataOutputStream outputStream, int written) throws IOException
+    {
+        while(written % 4 != 0)
+        {
+            outputStream.writeByte(0);
+            ++written;
+        }
+
+        return written;
+    }
+
     public static ListMultimap<Chromosome, AmberSite> loadVcf(final String vcfFile) throws IOException
     {
         final ListMultimap<Chromosome, AmberSite> result = ArrayListMultimap.create();
@@ -0,0 +1,64 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+
+// the drawing surface shared by each track, with radii expressed as a fraction of the base radius (the ideogram's inner
+// radius) as for circos' 'r' units, and glyph sizes and thicknesses in pixels of a default-sized circos image
+public class CircosCanvas
+{
+    public final Graphics2D Graphics;
+    public final CircosLayout Layout;
+    public final double CentreX;
+    public final double CentreY;
+    public final double BaseRadius;
+    public final double IdeogramOuterRadius;
+    public final double PixelScale;
+    public final boolean RasterGlyphs;
+
+    public CircosCanvas(
+            final Graphics2D graphics, final CircosLayout layout, double centreX, double centreY, double baseRadius,
+            double ideogramOuterRadius, double pixelScale, boolean rasterGlyphs)
+    {
+        Graphics = graphics;
+        Layout = layout;
+        CentreX = centreX;
+        CentreY = centreY;
+        BaseRadius = baseRadius;
+        IdeogramOuterRadius = ideogramOuterRadius;
+        PixelScale = pixelScale;
+        RasterGlyphs = rasterGlyphs;
+    }
+
+    public double pixels(double circosPixels) { return circosPixels * PixelScale; }
+
+    public double radius(double relativeRadius) { return relativeRadius * BaseRadius; }
+
+    public double x(double angle, double radius) { return CentreX + radius * Math.sin(angle); }
+    public double y(double angle, double radius) { return CentreY - radius * Math.cos(angle); }
+
+    public Point2D point(double angle, double radius)
+    {
+        return new Point2D.Double(x(angle, radius), y(angle, radius));
+    }
+
+    // the area between two radii and two angles, with radii in pixels
+    public Path2D segment(double startAngle, double endAngle, double innerRadius, double outerRadius)
+    {
+        Path2D path = new Path2D.Double();
+        path.append(arc(startAngle, endAngle, outerRadius), false);
+        path.append(arc(endAngle, startAngle, innerRadius), true);
+        path.closePath();
+        return path;
+    }
+
+    public Arc2D arc(double startAngle, double endAngle, double radius)
+    {
+        // Java2D arcs run anti-clockwise from 3 o'clock, in degrees
+        double start = 90 - Math.toDegrees(startAngle);
+        double extent = -Math.toDegrees(endAngle - startAngle);
+        return new Arc2D.Double(CentreX - radius, CentreY - radius, 2 * radius, 2 * radius, start, extent, Arc2D.OPEN);
+    }
+}
@@ -0,0 +1,99 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeCoordinates;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+// places chromosomes end to end around a circle, clockwise from the top, with the same scale for every chromosome
+// each chromosome's start angle is precomputed so that a position's angle is a single multiply and add
+public class CircosLayout
+{
+    private final List<String> mChromosomes;
+    private final Map<String,Integer> mChromosomeIndices;
+    private final int[] mLengths;
+    private final double[] mStartAngles;
+    private final double mRadiansPerBase;
+
+    // as for circos' default ideogram spacing
+    public static final double DEFAULT_GAP_FRACTION = 0.002;
+
+    private static final double FULL_CIRCLE = 2 * Math.PI;
+
+    public CircosLayout(final List<String> chromosomes, final List<Integer> lengths, double gapFraction)
+    {
+        mChromosomes = Lists.newArrayList(chromosomes);
+        mChromosomeIndices = Maps.newHashMap();
+        mLengths = lengths.stream().mapToInt(x -> x).toArray();
+        mStartAngles = new double[chromosomes.size()];
+
+        long totalLength = lengths.stream().mapToLong(x -> x).sum();
+        double gapRadians = FULL_CIRCLE * gapFraction;
+        mRadiansPerBase = totalLength > 0 ? (FULL_CIRCLE - gapRadians * chromosomes.size()) / totalLength : 0;
+
+        double angle = gapRadians / 2;
+
+        for(int i = 0; i < chromosomes.size(); ++i)
+        {
+            mChromosomeIndices.put(chromosomeKey(chromosomes.get(i)), i);
+            mStartAngles[i] = angle;
+            angle += mLengths[i] * mRadiansPerBase + gapRadians;
+        }
+    }
+
+    public static CircosLayout fromRefGenome(final RefGenomeVersion refGenomeVersion, boolean includeY)
+    {
+        RefGenomeCoordinates coordinates = refGenomeVersion.is37() ? RefGenomeCoordinates.COORDS_37 : RefGenomeCoordinates.COORDS_38;
+
+        List<String> chromosomes = Lists.newArrayList();
+        List<Integer> lengths = Lists.newArrayList();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            if(chromosome == HumanChromosome._Y && !includeY)
+                continue;
+
+            chromosomes.add(chromosome.toString());
+            lengths.add(coordinates.Lengths.get(chromosome));
+        }
+
+        return new CircosLayout(chromosomes, lengths, DEFAULT_GAP_FRACTION);
+    }
+
+    private static String chromosomeKey(final String chromosome)
+    {
+        // accepts any of the 'chr' and circos 'hs' prefixed or unprefixed forms
+        if(chromosome.startsWith("chr"))
+            return chromosome.substring(3);
+
+        if(chromosome.startsWith("hs"))
+            return chromosome.substring(2);
+
+        return chromosome;
+    }
+
+    public int chromosomeCount() { return mChromosomes.size(); }
+    public String chromosome(int index) { return mChromosomes.get(index); }
+    public int length(int index) { return mLengths[index]; }
+
+    // returns -1 for chromosomes not in the layout
+    public int chromosomeIndex(final String chromosome)
+    {
+        Integer index = mChromosomeIndices.get(chromosomeKey(chromosome));
+        return index != null ? index : -1;
+    }
+
+    public double startAngle(int chromosomeIndex) { return mStartAngles[chromosomeIndex]; }
+
+    public double endAngle(int chromosomeIndex) { return angle(chromosomeIndex, mLengths[chromosomeIndex]); }
+
+    // radians clockwise from the top of the circle
+    public double angle(int chromosomeIndex, int position)
+    {
+        return mStartAngles[chromosomeIndex] + position * mRadiansPerBase;
+    }
+}
@@ -0,0 +1,59 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+// draws tracks in the order added, scaled so that relative radii and pixel sizes match circos' default 3000 pixel image
+// with the ideogram's outer edge at 0.9 of the image radius
+public class CircosPlot
+{
+    private final CircosLayout mLayout;
+    private final List<CircosTrack> mTracks;
+    private final double mIdeogramThickness;
+    private boolean mRasterGlyphs;
+
+    public static final double CIRCOS_IMAGE_SIZE = 3000;
+    public static final double IDEOGRAM_RADIUS = 0.9;
+
+    public CircosPlot(final CircosLayout layout, double ideogramThickness)
+    {
+        mLayout = layout;
+        mTracks = Lists.newArrayList();
+        mIdeogramThickness = ideogramThickness;
+        mRasterGlyphs = false;
+    }
+
+    // stamps scatter glyphs from images rather than drawing them as shapes, which should only be used for raster output
+    public void setRasterGlyphs(boolean rasterGlyphs) { mRasterGlyphs = rasterGlyphs; }
+
+    public CircosLayout layout() { return mLayout; }
+
+    public void addTrack(final CircosTrack track) { mTracks.add(track); }
+
+    public void draw(final Graphics2D graphics, double width, double height)
+    {
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        graphics.setColor(Color.WHITE);
+        graphics.fill(new Rectangle2D.Double(0, 0, width, height));
+
+        double size = Math.min(width, height);
+        double pixelScale = size / CIRCOS_IMAGE_SIZE;
+        double ideogramRadius = IDEOGRAM_RADIUS * size / 2;
+        double baseRadius = ideogramRadius - mIdeogramThickness * pixelScale;
+
+        CircosCanvas canvas = new CircosCanvas(
+                graphics, mLayout, width / 2, height / 2, baseRadius, ideogramRadius, pixelScale, mRasterGlyphs);
+
+        for(CircosTrack track : mTracks)
+        {
+            track.draw(canvas);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.hartwig.hmftools.common.circos;
+
+public interface CircosTrack
+{
+    void draw(final CircosCanvas canvas);
+}
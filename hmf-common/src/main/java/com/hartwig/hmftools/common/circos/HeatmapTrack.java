@@ -0,0 +1,106 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// regions filling the full depth of the track in their own colour, widened to at least a pixel so single-base
+// regions remain visible
+public class HeatmapTrack extends RadialTrack
+{
+    private final List<Color> mColours;
+    private final Map<Color,Integer> mColourIndices;
+
+    private int mCount;
+    private int[] mChromosomes;
+    private int[] mStarts;
+    private int[] mEnds;
+    private int[] mColourIndex;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    public HeatmapTrack(double innerRadius, double outerRadius)
+    {
+        super(innerRadius, outerRadius, 0, 1);
+
+        mColours = Lists.newArrayList();
+        mColourIndices = Maps.newHashMap();
+
+        mCount = 0;
+        mChromosomes = new int[INITIAL_CAPACITY];
+        mStarts = new int[INITIAL_CAPACITY];
+        mEnds = new int[INITIAL_CAPACITY];
+        mColourIndex = new int[INITIAL_CAPACITY];
+    }
+
+    public int count() { return mCount; }
+
+    public void add(int chromosomeIndex, int start, int end, final Color colour)
+    {
+        if(chromosomeIndex < 0)
+            return;
+
+        if(mCount == mStarts.length)
+        {
+            int capacity = mCount * 2;
+            mChromosomes = Arrays.copyOf(mChromosomes, capacity);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+            mColourIndex = Arrays.copyOf(mColourIndex, capacity);
+        }
+
+        Integer colourIndex = mColourIndices.get(colour);
+
+        if(colourIndex == null)
+        {
+            colourIndex = mColours.size();
+            mColours.add(colour);
+            mColourIndices.put(colour, colourIndex);
+        }
+
+        mChromosomes[mCount] = chromosomeIndex;
+        mStarts[mCount] = start;
+        mEnds[mCount] = end;
+        mColourIndex[mCount] = colourIndex;
+        ++mCount;
+    }
+
+    @Override
+    protected void drawData(final CircosCanvas canvas)
+    {
+        CircosLayout layout = canvas.Layout;
+
+        double innerRadius = canvas.radius(Math.min(mInnerRadius, mOuterRadius));
+        double outerRadius = canvas.radius(Math.max(mInnerRadius, mOuterRadius));
+        double minAngle = 1 / outerRadius;
+
+        Path2D[] paths = new Path2D[mColours.size()];
+
+        for(int i = 0; i < paths.length; ++i)
+        {
+            paths[i] = new Path2D.Double();
+        }
+
+        for(int i = 0; i < mCount; ++i)
+        {
+            double startAngle = layout.angle(mChromosomes[i], mStarts[i]);
+            double endAngle = Math.max(layout.angle(mChromosomes[i], mEnds[i]), startAngle + minAngle);
+
+            paths[mColourIndex[i]].append(canvas.segment(startAngle, endAngle, innerRadius, outerRadius), false);
+        }
+
+        Graphics2D graphics = canvas.Graphics;
+
+        for(int i = 0; i < paths.length; ++i)
+        {
+            graphics.setColor(mColours.get(i));
+            graphics.fill(paths[i]);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.awt.Color;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+// regions drawn as bars from zero, or the nearest end of the range to zero, out to the region's value
+public class HistogramTrack extends RadialTrack
+{
+    private final Color mColour;
+
+    private int mCount;
+    private int[] mChromosomes;
+    private int[] mStarts;
+    private int[] mEnds;
+    private float[] mValues;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    public HistogramTrack(double innerRadius, double outerRadius, double min, double max, final Color colour)
+    {
+        super(innerRadius, outerRadius, min, max);
+        mColour = colour;
+
+        mCount = 0;
+        mChromosomes = new int[INITIAL_CAPACITY];
+        mStarts = new int[INITIAL_CAPACITY];
+        mEnds = new int[INITIAL_CAPACITY];
+        mValues = new float[INITIAL_CAPACITY];
+    }
+
+    public int count() { return mCount; }
+
+    public void add(int chromosomeIndex, int start, int end, double value)
+    {
+        if(chromosomeIndex < 0)
+            return;
+
+        if(mCount == mStarts.length)
+        {
+            int capacity = mCount * 2;
+            mChromosomes = Arrays.copyOf(mChromosomes, capacity);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+            mValues = Arrays.copyOf(mValues, capacity);
+        }
+
+        mChromosomes[mCount] = chromosomeIndex;
+        mStarts[mCount] = start;
+        mEnds[mCount] = end;
+        mValues[mCount] = (float)value;
+        ++mCount;
+    }
+
+    @Override
+    protected void drawData(final CircosCanvas canvas)
+    {
+        CircosLayout layout = canvas.Layout;
+
+        double baseRadius = valueRadius(canvas, 0);
+        Path2D path = new Path2D.Double();
+
+        for(int i = 0; i < mCount; ++i)
+        {
+            double valueRadius = valueRadius(canvas, mValues[i]);
+
+            if(valueRadius == baseRadius)
+                continue;
+
+            double startAngle = layout.angle(mChromosomes[i], mStarts[i]);
+            double endAngle = layout.angle(mChromosomes[i], mEnds[i]);
+
+            path.append(canvas.segment(
+                    startAngle, endAngle, Math.min(baseRadius, valueRadius), Math.max(baseRadius, valueRadius)), false);
+        }
+
+        canvas.Graphics.setColor(mColour);
+        canvas.Graphics.fill(path);
+    }
+}
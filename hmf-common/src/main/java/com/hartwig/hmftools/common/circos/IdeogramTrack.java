@@ -0,0 +1,203 @@
+package com.hartwig.hmftools.common.circos;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeFunctions.enforceChrPrefix;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.chromosome.CytoBands;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+// the ring of chromosomes between the base radius and the ideogram's outer radius, with optional karyotype bands,
+// highlighted regions and labels parallel to the ring
+public class IdeogramTrack implements CircosTrack
+{
+    private final Map<String,Color> mChromosomeColours;
+    private final List<HighlightRegion> mBands;
+    private final List<HighlightRegion> mHighlights;
+
+    private Color mOutlineColour;
+    private double mOutlineThickness;
+    private double mLabelOffset;
+    private double mLabelSize;
+
+    private static final Color DEFAULT_COLOUR = Color.LIGHT_GRAY;
+
+    private class HighlightRegion
+    {
+        public final int ChromosomeIndex;
+        public final int Start;
+        public final int End;
+        public final Color Colour;
+
+        public HighlightRegion(final int chromosomeIndex, final int start, final int end, final Color colour)
+        {
+            ChromosomeIndex = chromosomeIndex;
+            Start = start;
+            End = end;
+            Colour = colour;
+        }
+    }
+
+    // outline thickness and label size and offset are in circos pixels
+    public IdeogramTrack()
+    {
+        mChromosomeColours = Maps.newHashMap();
+        mBands = Lists.newArrayList();
+        mHighlights = Lists.newArrayList();
+        mOutlineColour = Color.DARK_GRAY;
+        mOutlineThickness = 2;
+        mLabelOffset = 30;
+        mLabelSize = 30;
+    }
+
+    public void setChromosomeColour(final String chromosome, final Color colour) { mChromosomeColours.put(chromosome, colour); }
+
+    public void setOutline(final Color colour, double thickness)
+    {
+        mOutlineColour = colour;
+        mOutlineThickness = thickness;
+    }
+
+    public void setLabels(double offset, double size)
+    {
+        mLabelOffset = offset;
+        mLabelSize = size;
+    }
+
+    public void addHighlight(int chromosomeIndex, int start, int end, final Color colour)
+    {
+        if(chromosomeIndex >= 0)
+            mHighlights.add(new HighlightRegion(chromosomeIndex, start, end, colour));
+    }
+
+    public void addBand(int chromosomeIndex, int start, int end, final Color colour)
+    {
+        if(chromosomeIndex >= 0)
+            mBands.add(new HighlightRegion(chromosomeIndex, start, end, colour));
+    }
+
+    // as circos' show_bands and fill_bands, using the UCSC Giemsa stain colours of its karyotype files, and the band
+    // files are 'chr' prefixed for both ref genome versions
+    public void addCytoBands(final CircosLayout layout, final RefGenomeVersion refGenomeVersion)
+    {
+        CytoBands cytoBands = new CytoBands(refGenomeVersion);
+
+        for(int i = 0; i < layout.chromosomeCount(); ++i)
+        {
+            for(CytoBands.CytoBand band : cytoBands.chromosomeBands(enforceChrPrefix(layout.chromosome(i))))
+            {
+                Color colour = bandColour(band.Stain);
+
+                if(colour != null)
+                    addBand(i, band.start(), band.end(), colour);
+            }
+        }
+    }
+
+    static Color bandColour(final String stain)
+    {
+        switch(stain)
+        {
+            case "gneg": return Color.WHITE;
+            case "acen": return new Color(217, 47, 39);
+            case "stalk": return new Color(100, 127, 164);
+            case "gvar": return new Color(220, 220, 220);
+            default: break;
+        }
+
+        if(!stain.startsWith("gpos"))
+            return null;
+
+        // darker with increasing stain intensity, gpos100 being black
+        int intensity = stain.length() > 4 ? Integer.parseInt(stain.substring(4)) : 100;
+        int grey = (int)Math.round(255 * (1 - intensity / 100.0));
+        return new Color(grey, grey, grey);
+    }
+
+    @Override
+    public void draw(final CircosCanvas canvas)
+    {
+        Graphics2D graphics = canvas.Graphics;
+        CircosLayout layout = canvas.Layout;
+
+        double innerRadius = canvas.BaseRadius;
+        double outerRadius = canvas.IdeogramOuterRadius;
+
+        Path2D[] segments = new Path2D[layout.chromosomeCount()];
+
+        for(int i = 0; i < layout.chromosomeCount(); ++i)
+        {
+            segments[i] = canvas.segment(layout.startAngle(i), layout.endAngle(i), innerRadius, outerRadius);
+
+            graphics.setColor(mChromosomeColours.getOrDefault(layout.chromosome(i), DEFAULT_COLOUR));
+            graphics.fill(segments[i]);
+        }
+
+        for(HighlightRegion band : mBands)
+        {
+            drawRegion(canvas, band, innerRadius, outerRadius);
+        }
+
+        for(HighlightRegion highlight : mHighlights)
+        {
+            drawRegion(canvas, highlight, innerRadius, outerRadius);
+        }
+
+        if(mOutlineThickness > 0)
+        {
+            graphics.setColor(mOutlineColour);
+            graphics.setStroke(new BasicStroke((float)canvas.pixels(mOutlineThickness)));
+
+            for(Path2D segment : segments)
+            {
+                graphics.draw(segment);
+            }
+        }
+
+        if(mLabelSize > 0)
+            drawLabels(canvas, outerRadius + canvas.pixels(mLabelOffset));
+    }
+
+    private static void drawRegion(final CircosCanvas canvas, final HighlightRegion region, double innerRadius, double outerRadius)
+    {
+        double startAngle = canvas.Layout.angle(region.ChromosomeIndex, region.Start);
+        double endAngle = canvas.Layout.angle(region.ChromosomeIndex, region.End);
+
+        canvas.Graphics.setColor(region.Colour);
+        canvas.Graphics.fill(canvas.segment(startAngle, endAngle, innerRadius, outerRadius));
+    }
+
+    private void drawLabels(final CircosCanvas canvas, double labelRadius)
+    {
+        Graphics2D graphics = canvas.Graphics;
+        CircosLayout layout = canvas.Layout;
+
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 1).deriveFont((float)canvas.pixels(mLabelSize)));
+        graphics.setColor(Color.BLACK);
+
+        FontMetrics metrics = graphics.getFontMetrics();
+        AffineTransform transform = graphics.getTransform();
+
+        for(int i = 0; i < layout.chromosomeCount(); ++i)
+        {
+            String label = layout.chromosome(i).toUpperCase();
+            double angle = (layout.startAngle(i) + layout.endAngle(i)) / 2;
+
+            // labels sit with their baseline on the label radius, rotated to run along the ring
+            graphics.translate(canvas.x(angle, labelRadius), canvas.y(angle, labelRadius));
+            graphics.rotate(angle);
+            graphics.drawString(label, -metrics.stringWidth(label) / 2f, 0);
+            graphics.setTransform(transform);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.QuadCurve2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// links between two positions drawn as quadratic beziers, with the control point on the angle bisecting the shorter arc
+// between the ends at the link's bezier radius, as circos does
+public class LinkTrack implements CircosTrack
+{
+    private final double mRadius;
+    private final double mDefaultBezierRadius;
+    private final double mThickness;
+
+    private final List<Color> mColours;
+    private final Map<Color,Integer> mColourIndices;
+
+    private int mCount;
+    private int[] mStartChromosomes;
+    private int[] mStartPositions;
+    private int[] mEndChromosomes;
+    private int[] mEndPositions;
+    private float[] mBezierRadii;
+    private int[] mColourIndex;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    public LinkTrack(double radius, double defaultBezierRadius, double thickness)
+    {
+        mRadius = radius;
+        mDefaultBezierRadius = defaultBezierRadius;
+        mThickness = thickness;
+
+        mColours = Lists.newArrayList();
+        mColourIndices = Maps.newHashMap();
+
+        mCount = 0;
+        mStartChromosomes = new int[INITIAL_CAPACITY];
+        mStartPositions = new int[INITIAL_CAPACITY];
+        mEndChromosomes = new int[INITIAL_CAPACITY];
+        mEndPositions = new int[INITIAL_CAPACITY];
+        mBezierRadii = new float[INITIAL_CAPACITY];
+        mColourIndex = new int[INITIAL_CAPACITY];
+    }
+
+    public int count() { return mCount; }
+
+    public void add(int startChromosomeIndex, int startPosition, int endChromosomeIndex, int endPosition, final Color colour)
+    {
+        add(startChromosomeIndex, startPosition, endChromosomeIndex, endPosition, colour, mDefaultBezierRadius);
+    }
+
+    public void add(
+            int startChromosomeIndex, int startPosition, int endChromosomeIndex, int endPosition, final Color colour,
+            double bezierRadius)
+    {
+        if(startChromosomeIndex < 0 || endChromosomeIndex < 0)
+            return;
+
+        if(mCount == mStartPositions.length)
+        {
+            int capacity = mCount * 2;
+            mStartChromosomes = Arrays.copyOf(mStartChromosomes, capacity);
+            mStartPositions = Arrays.copyOf(mStartPositions, capacity);
+            mEndChromosomes = Arrays.copyOf(mEndChromosomes, capacity);
+            mEndPositions = Arrays.copyOf(mEndPositions, capacity);
+            mBezierRadii = Arrays.copyOf(mBezierRadii, capacity);
+            mColourIndex = Arrays.copyOf(mColourIndex, capacity);
+        }
+
+        Integer colourIndex = mColourIndices.get(colour);
+
+        if(colourIndex == null)
+        {
+            colourIndex = mColours.size();
+            mColours.add(colour);
+            mColourIndices.put(colour, colourIndex);
+        }
+
+        mStartChromosomes[mCount] = startChromosomeIndex;
+        mStartPositions[mCount] = startPosition;
+        mEndChromosomes[mCount] = endChromosomeIndex;
+        mEndPositions[mCount] = endPosition;
+        mBezierRadii[mCount] = (float)bezierRadius;
+        mColourIndex[mCount] = colourIndex;
+        ++mCount;
+    }
+
+    @Override
+    public void draw(final CircosCanvas canvas)
+    {
+        CircosLayout layout = canvas.Layout;
+        double radius = canvas.radius(mRadius);
+
+        Graphics2D graphics = canvas.Graphics;
+        graphics.setStroke(new BasicStroke((float)canvas.pixels(mThickness)));
+
+        // each link is drawn as its own shape since a single path crossing the whole plot is far slower to rasterise
+        QuadCurve2D.Double curve = new QuadCurve2D.Double();
+
+        for(int i = 0; i < mCount; ++i)
+        {
+            double startAngle = layout.angle(mStartChromosomes[i], mStartPositions[i]);
+            double endAngle = layout.angle(mEndChromosomes[i], mEndPositions[i]);
+
+            double bisectAngle = (startAngle + endAngle) / 2;
+
+            if(Math.abs(endAngle - startAngle) > Math.PI)
+                bisectAngle += Math.PI;
+
+            double bezierRadius = canvas.radius(mBezierRadii[i]);
+
+            curve.setCurve(
+                    canvas.x(startAngle, radius), canvas.y(startAngle, radius),
+                    canvas.x(bisectAngle, bezierRadius), canvas.y(bisectAngle, bezierRadius),
+                    canvas.x(endAngle, radius), canvas.y(endAngle, radius));
+
+            graphics.setColor(mColours.get(mColourIndex[i]));
+            graphics.draw(curve);
+        }
+    }
+}
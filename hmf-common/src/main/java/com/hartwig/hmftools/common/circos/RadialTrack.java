@@ -0,0 +1,104 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+
+import org.jetbrains.annotations.Nullable;
+
+// a track occupying the ring between two relative radii, with values mapped linearly from min at the inner radius to max
+// at the outer, and an optional background and concentric axes as configured in the circos templates
+public abstract class RadialTrack implements CircosTrack
+{
+    protected final double mInnerRadius;
+    protected final double mOuterRadius;
+    protected final double mMin;
+    protected final double mMax;
+
+    @Nullable
+    private Color mBackground;
+
+    @Nullable
+    private Color mAxisColour;
+    private double mAxisThickness;
+    private double mAxisSpacing;
+
+    public RadialTrack(double innerRadius, double outerRadius, double min, double max)
+    {
+        mInnerRadius = innerRadius;
+        mOuterRadius = outerRadius;
+        mMin = min;
+        mMax = max;
+        mBackground = null;
+        mAxisColour = null;
+        mAxisThickness = 0;
+        mAxisSpacing = 0;
+    }
+
+    public RadialTrack setBackground(final Color colour)
+    {
+        mBackground = colour;
+        return this;
+    }
+
+    // thickness is in circos pixels and spacing is a fraction of the track's depth, as for circos' relative axis spacing
+    public RadialTrack setAxes(final Color colour, double thickness, double spacing)
+    {
+        mAxisColour = colour;
+        mAxisThickness = thickness;
+        mAxisSpacing = spacing;
+        return this;
+    }
+
+    protected double clamp(double value)
+    {
+        return Math.max(mMin, Math.min(mMax, value));
+    }
+
+    // returns the radius in pixels for a value, clamping values outside the track's range
+    protected double valueRadius(final CircosCanvas canvas, double value)
+    {
+        double fraction = mMax > mMin ? (clamp(value) - mMin) / (mMax - mMin) : 0;
+        return canvas.radius(mInnerRadius + fraction * (mOuterRadius - mInnerRadius));
+    }
+
+    @Override
+    public void draw(final CircosCanvas canvas)
+    {
+        Graphics2D graphics = canvas.Graphics;
+        CircosLayout layout = canvas.Layout;
+
+        double innerRadius = canvas.radius(mInnerRadius);
+        double outerRadius = canvas.radius(mOuterRadius);
+
+        if(mBackground != null)
+        {
+            graphics.setColor(mBackground);
+
+            for(int i = 0; i < layout.chromosomeCount(); ++i)
+            {
+                graphics.fill(canvas.segment(layout.startAngle(i), layout.endAngle(i), innerRadius, outerRadius));
+            }
+        }
+
+        if(mAxisColour != null && mAxisSpacing > 0)
+        {
+            graphics.setColor(mAxisColour);
+            graphics.setStroke(new BasicStroke((float)canvas.pixels(mAxisThickness)));
+
+            for(double fraction = 0; fraction <= 1 + 1e-9; fraction += mAxisSpacing)
+            {
+                double radius = innerRadius + fraction * (outerRadius - innerRadius);
+
+                for(int i = 0; i < layout.chromosomeCount(); ++i)
+                {
+                    graphics.draw(canvas.arc(layout.startAngle(i), layout.endAngle(i), radius));
+                }
+            }
+        }
+
+        drawData(canvas);
+    }
+
+    protected abstract void drawData(final CircosCanvas canvas);
+}
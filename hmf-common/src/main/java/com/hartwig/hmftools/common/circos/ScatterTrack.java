@@ -0,0 +1,183 @@
+package com.hartwig.hmftools.common.circos;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// points held in primitive arrays and drawn as circles, either with all points of a colour filled as a single path or, for
+// raster output, stamped from a pre-drawn glyph image which is an order of magnitude faster for large point counts
+public class ScatterTrack extends RadialTrack
+{
+    private final List<Color> mColours;
+    private final Map<Color,Integer> mColourIndices;
+
+    private int mCount;
+    private int[] mChromosomes;
+    private int[] mPositions;
+    private float[] mValues;
+    private float[] mSizes;
+    private int[] mColourIndex;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    public ScatterTrack(double innerRadius, double outerRadius, double min, double max)
+    {
+        super(innerRadius, outerRadius, min, max);
+
+        mColours = Lists.newArrayList();
+        mColourIndices = Maps.newHashMap();
+
+        mCount = 0;
+        mChromosomes = new int[INITIAL_CAPACITY];
+        mPositions = new int[INITIAL_CAPACITY];
+        mValues = new float[INITIAL_CAPACITY];
+        mSizes = new float[INITIAL_CAPACITY];
+        mColourIndex = new int[INITIAL_CAPACITY];
+    }
+
+    public int count() { return mCount; }
+
+    // glyph size is the circle's diameter in circos pixels
+    public void add(int chromosomeIndex, int position, double value, final Color colour, double glyphSize)
+    {
+        if(chromosomeIndex < 0)
+            return;
+
+        if(mCount == mPositions.length)
+        {
+            int capacity = mCount * 2;
+            mChromosomes = Arrays.copyOf(mChromosomes, capacity);
+            mPositions = Arrays.copyOf(mPositions, capacity);
+            mValues = Arrays.copyOf(mValues, capacity);
+            mSizes = Arrays.copyOf(mSizes, capacity);
+            mColourIndex = Arrays.copyOf(mColourIndex, capacity);
+        }
+
+        mChromosomes[mCount] = chromosomeIndex;
+        mPositions[mCount] = position;
+        mValues[mCount] = (float)value;
+        mSizes[mCount] = (float)glyphSize;
+        mColourIndex[mCount] = colourIndex(colour);
+        ++mCount;
+    }
+
+    private int colourIndex(final Color colour)
+    {
+        Integer index = mColourIndices.get(colour);
+
+        if(index == null)
+        {
+            index = mColours.size();
+            mColours.add(colour);
+            mColourIndices.put(colour, index);
+        }
+
+        return index;
+    }
+
+    @Override
+    protected void drawData(final CircosCanvas canvas)
+    {
+        if(canvas.RasterGlyphs)
+            drawSprites(canvas);
+        else
+            drawPaths(canvas);
+    }
+
+    private void drawPaths(final CircosCanvas canvas)
+    {
+        CircosLayout layout = canvas.Layout;
+
+        Path2D[] paths = new Path2D[mColours.size()];
+
+        for(int i = 0; i < paths.length; ++i)
+        {
+            paths[i] = new Path2D.Float(Path2D.WIND_NON_ZERO, Math.max(mCount / Math.max(paths.length, 1), 16) * 5);
+        }
+
+        Ellipse2D.Double glyph = new Ellipse2D.Double();
+
+        for(int i = 0; i < mCount; ++i)
+        {
+            double angle = layout.angle(mChromosomes[i], mPositions[i]);
+            double radius = valueRadius(canvas, mValues[i]);
+            double size = canvas.pixels(mSizes[i]);
+
+            glyph.setFrame(canvas.x(angle, radius) - size / 2, canvas.y(angle, radius) - size / 2, size, size);
+            paths[mColourIndex[i]].append(glyph, false);
+        }
+
+        Graphics2D graphics = canvas.Graphics;
+
+        for(int i = 0; i < paths.length; ++i)
+        {
+            graphics.setColor(mColours.get(i));
+            graphics.fill(paths[i]);
+        }
+    }
+
+    private void drawSprites(final CircosCanvas canvas)
+    {
+        CircosLayout layout = canvas.Layout;
+        Graphics2D graphics = canvas.Graphics;
+
+        // stamp in device pixels so the glyph images are not resampled by any scaling on the graphics
+        AffineTransform transform = graphics.getTransform();
+        double deviceScale = Math.sqrt(Math.abs(transform.getDeterminant()));
+        graphics.setTransform(new AffineTransform());
+
+        Map<Long,BufferedImage> sprites = Maps.newHashMap();
+        double[] point = new double[2];
+
+        for(int i = 0; i < mCount; ++i)
+        {
+            double angle = layout.angle(mChromosomes[i], mPositions[i]);
+            double radius = valueRadius(canvas, mValues[i]);
+
+            // sizes are rounded to a quarter pixel to bound the number of distinct glyph images
+            int quarterPixels = (int)Math.round(canvas.pixels(mSizes[i]) * deviceScale * 4);
+            long spriteKey = ((long)mColourIndex[i] << 32) | quarterPixels;
+
+            BufferedImage sprite = sprites.get(spriteKey);
+
+            if(sprite == null)
+            {
+                sprite = createSprite(mColours.get(mColourIndex[i]), quarterPixels / 4.0);
+                sprites.put(spriteKey, sprite);
+            }
+
+            point[0] = canvas.x(angle, radius);
+            point[1] = canvas.y(angle, radius);
+            transform.transform(point, 0, point, 0, 1);
+
+            graphics.drawImage(sprite,
+                    (int)Math.round(point[0] - sprite.getWidth() / 2.0), (int)Math.round(point[1] - sprite.getHeight() / 2.0), null);
+        }
+
+        graphics.setTransform(transform);
+    }
+
+    private static BufferedImage createSprite(final Color colour, double size)
+    {
+        int dimension = (int)Math.ceil(size) + 2;
+
+        BufferedImage sprite = new BufferedImage(dimension, dimension, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = sprite.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(colour);
+        graphics.fill(new Ellipse2D.Double((dimension - size) / 2, (dimension - size) / 2, size, size));
+        graphics.dispose();
+
+        return sprite;
+    }
+}
@@ -32,7 +32,7 @@ import org.jetbrains.annotations.Nullable;
 
 public final class CobaltRatioFile
 {
-    enum Column
+    public enum Column
     {
         chromosome,
         position,
@@ -50,8 +50,8 @@ public final class CobaltRatioFile
     private static final String EXTENSION = ".cobalt.ratio.tsv.gz";
 
     // old column names for backwards compatibility
-    private static final String COL_REF_READ_COUNT  = "referenceReadCount";
-    private static final String COL_TUMOR_READ_COUNT  = "tumorReadCount";
+    public static final String COL_REF_READ_COUNT  = "referenceReadCount";
+    public static final String COL_TUMOR_READ_COUNT  = "tumorReadCount";
 
     @Deprecated
     public static final String TUMOR_ONLY_REFERENCE_SAMPLE = "DIPLOID";
@@ -103,7 +103,7 @@ public final class CobaltRatioFile
     private static final int DEFAULT_READ_LENGTH = 151;
     private static final double READ_DEPTH_INVALID = -1;
 
-    private static double convertReadCount(final double readCount)
+    public static double convertReadCount(final double readCount)
     {
         if(readCount <= 0)
             return readCount;
@@ -229,17 +229,26 @@ public final class CobaltRatioFile
         try(BufferedWriter writer = createGzipBufferedWriter(fileName))
         {
             DelimFileWriter.write(writer, Column.values(), sorted,
-                (ratio, row) -> {
-                    row.set(Column.chromosome, ratio.chromosome());
-                    row.set(Column.position, ratio.position());
-                    row.set(Column.referenceReadDepth, ratio.referenceReadDepth(), FORMAT);
-                    row.set(Column.tumorReadDepth, ratio.tumorReadDepth(), FORMAT);
-                    row.set(Column.referenceGCRatio, ratio.referenceGCRatio(), FORMAT);
-                    row.set(Column.tumorGCRatio, ratio.tumorGCRatio(), FORMAT);
-                    row.set(Column.referenceGCDiploidRatio, ratio.referenceGCDiploidRatio(), FORMAT);
-                    row.set(Column.referenceGCContent, ratio.referenceGcContent(), FORMAT);
-                    row.set(Column.tumorGCContent, ratio.tumorGcContent(), FORMAT);
-                });
+                (ratio, row) -> setRow(row, ratio.chromosome(), ratio.position(),
+                        ratio.referenceReadDepth(), ratio.tumorReadDepth(), ratio.referenceGCRatio(), ratio.tumorGCRatio(),
+                        ratio.referenceGCDiploidRatio(), ratio.referenceGcContent(), ratio.tumorGcContent()));
         }
     }
+
+    // for writers which hold the ratios in columns rather than as CobaltRatio objects
+    public static void setRow(
+            final DelimFileWriter.Row row, final String chromosome, int position, double referenceReadDepth, double tumorReadDepth,
+            double referenceGCRatio, double tumorGCRatio, double referenceGCDiploidRatio, double referenceGcContent,
+            double tumorGcContent)
+    {
+        row.set(Column.chromosome, chromosome);
+        row.set(Column.position, position);
+        row.set(Column.referenceReadDepth, referenceReadDepth, FORMAT);
+        row.set(Column.tumorReadDepth, tumorReadDepth, FORMAT);
+        row.set(Column.referenceGCRatio, referenceGCRatio, FORMAT);
+        row.set(Column.tumorGCRatio, tumorGCRatio, FORMAT);
+        row.set(Column.referenceGCDiploidRatio, referenceGCDiploidRatio, FORMAT);
+        row.set(Column.referenceGCContent, referenceGcContent, FORMAT);
+        row.set(Column.tumorGCContent, tumorGcContent, FORMAT);
+    }
 }
@@ -167,4 +167,53 @@ public class ImmutableIntervalTree<T>
     {
         return containedIntervals(new BaseRegion(queryIntervalStart, queryIntervalEnd));
     }
+
+    private void collectOverlappingIntervals(int queryStart, int queryEnd, final List<Pair<BaseRegion, T>> acc)
+    {
+        if(queryStart < mCentre && mLeft != null)
+        {
+            mLeft.collectOverlappingIntervals(queryStart, queryEnd, acc);
+        }
+
+        if(queryEnd > mCentre && mRight != null)
+        {
+            mRight.collectOverlappingIntervals(queryStart, queryEnd, acc);
+        }
+
+        // all centre intervals contain the centre, so only need to check the side of the query which lies away from it
+        if(queryEnd < mCentre)
+        {
+            for(Pair<BaseRegion, T> entry : mCentreSortedByLeft)
+            {
+                if(entry.getKey().start() > queryEnd)
+                    break;
+
+                acc.add(entry);
+            }
+        }
+        else if(queryStart > mCentre)
+        {
+            for(int i = mCentreSortedByRight.size() - 1; i >= 0; --i)
+            {
+                Pair<BaseRegion, T> entry = mCentreSortedByRight.get(i);
+
+                if(entry.getKey().end() < queryStart)
+                    break;
+
+                acc.add(entry);
+            }
+        }
+        else
+        {
+            acc.addAll(mCentreSortedByLeft);
+        }
+    }
+
+    // intervals overlapping the query interval, inclusive of their bounds, in no particular order
+    public List<Pair<BaseRegion, T>> overlappingIntervals(int queryIntervalStart, int queryIntervalEnd)
+    {
+        List<Pair<BaseRegion, T>> acc = new ArrayList<>();
+        collectOverlappingIntervals(queryIntervalStart, queryIntervalEnd, acc);
+        return acc;
+    }
 }
@@ -0,0 +1,560 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_GENE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_PROTEIN_FEATURE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANSCRIPT_PREFIX;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_EXON_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_SPLICE_DATA_FILE;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.gene.ExonData;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.gene.TranscriptProteinData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+// a binary snapshot of the Ensembl data cache files, memory-mapped on load to avoid parsing the CSV files
+// layout: header with the sizes of the CSV files it was formed from and the offset of each section, then sections for a string pool,
+// genes, transcripts with their exons, protein features and splice acceptor positions - all strings are stored as pool indices
+// the same restrictions (genes, canonical-only, exons, non-Ensembl transcripts) are applied on load as for the CSV files
+public class EnsemblDataBinaryFile
+{
+    private final String mFilename;
+    private final ByteBuffer mBuffer;
+
+    // strings are only decoded when first referenced, so restricted loads only decode what they use
+    private final int[] mStringOffsets;
+    private final String[] mStrings;
+
+    private final int mGenesOffset;
+    private final int mTranscriptsOffset;
+    private final int mProteinFeaturesOffset;
+    private final int mSpliceAcceptorsOffset;
+
+    public static final String ENSEMBL_DATA_BINARY_FILE = "ensembl_data_cache.bin";
+
+    private static final int MAGIC = 0x454E5344; // ENSD
+    private static final int VERSION = 1;
+    private static final int NULL_POSITION = -1;
+    private static final int EXON_RECORD_SIZE = 12;
+
+    private static final String[] SOURCE_FILES = {
+            ENSEMBL_GENE_DATA_FILE, ENSEMBL_TRANS_EXON_DATA_FILE, ENSEMBL_PROTEIN_FEATURE_DATA_FILE, ENSEMBL_TRANS_SPLICE_DATA_FILE };
+
+    private static final Logger LOGGER = LogManager.getLogger(EnsemblDataBinaryFile.class);
+
+    private EnsemblDataBinaryFile(final String filename, final ByteBuffer buffer)
+    {
+        mFilename = filename;
+        mBuffer = buffer;
+
+        int offset = 8 + SOURCE_FILES.length * Long.BYTES;
+        int stringsOffset = buffer.getInt(offset);
+        mGenesOffset = buffer.getInt(offset + 4);
+        mTranscriptsOffset = buffer.getInt(offset + 8);
+        mProteinFeaturesOffset = buffer.getInt(offset + 12);
+        mSpliceAcceptorsOffset = buffer.getInt(offset + 16);
+
+        int stringCount = buffer.getInt(stringsOffset);
+        mStringOffsets = new int[stringCount];
+        mStrings = new String[stringCount];
+
+        int stringOffset = stringsOffset + 4;
+
+        for(int i = 0; i < stringCount; ++i)
+        {
+            mStringOffsets[i] = stringOffset;
+            stringOffset += 4 + buffer.getInt(stringOffset);
+        }
+    }
+
+    public String filename() { return mFilename; }
+
+    // opens the snapshot in the data directory if present and formed from the same CSV files as those alongside it
+    @Nullable
+    public static EnsemblDataBinaryFile open(final String dataPath)
+    {
+        String filename = dataPath + ENSEMBL_DATA_BINARY_FILE;
+
+        if(!Files.exists(Paths.get(filename)))
+            return null;
+
+        try(RandomAccessFile file = new RandomAccessFile(filename, "r"))
+        {
+            FileChannel channel = file.getChannel();
+
+            // the mapping remains valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            {
+                LOGGER.warn("Ensembl binary data file({}) has unsupported format, using CSV files", filename);
+                return null;
+            }
+
+            for(int i = 0; i < SOURCE_FILES.length; ++i)
+            {
+                Path sourceFile = Paths.get(dataPath + SOURCE_FILES[i]);
+
+                if(Files.exists(sourceFile) && Files.size(sourceFile) != buffer.getLong(8 + i * Long.BYTES))
+                {
+                    LOGGER.warn("Ensembl binary data file({}) does not match {}, using CSV files", filename, SOURCE_FILES[i]);
+                    return null;
+                }
+            }
+
+            return new EnsemblDataBinaryFile(filename, buffer);
+        }
+        catch(IOException | IllegalArgumentException | IndexOutOfBoundsException e)
+        {
+            LOGGER.warn("failed to open Ensembl binary data file({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    private String getString(int index)
+    {
+        String value = mStrings[index];
+
+        if(value == null)
+        {
+            int offset = mStringOffsets[index];
+            int length = mBuffer.getInt(offset);
+            byte[] bytes = new byte[length];
+            ByteBuffer buffer = mBuffer.duplicate();
+            buffer.position(offset + 4);
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            mStrings[index] = value;
+        }
+
+        return value;
+    }
+
+    public void loadGeneData(
+            final List<String> restrictedGeneIds, final Map<String,List<GeneData>> chrGeneDataMap, final RefGenomeVersion version,
+            boolean loadSynonyms)
+    {
+        Set<String> restrictedGenes = Sets.newHashSet(restrictedGeneIds);
+        Map<Integer,String> chromosomes = Maps.newHashMap();
+
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(mGenesOffset);
+
+        int geneCount = buffer.getInt();
+        int loadedCount = 0;
+
+        for(int i = 0; i < geneCount; ++i)
+        {
+            int geneIdIndex = buffer.getInt();
+            int geneNameIndex = buffer.getInt();
+            int chromosomeIndex = buffer.getInt();
+            byte strand = buffer.get();
+            int geneStart = buffer.getInt();
+            int geneEnd = buffer.getInt();
+            int karyotypeBandIndex = buffer.getInt();
+            int synonymsIndex = buffer.getInt();
+
+            final String geneId = getString(geneIdIndex);
+
+            if(!restrictedGenes.isEmpty() && !restrictedGenes.contains(geneId))
+                continue;
+
+            String chromosome = chromosomes.computeIfAbsent(chromosomeIndex, x -> version.versionedChromosome(getString(x)));
+
+            GeneData geneData = new GeneData(
+                    geneId, getString(geneNameIndex), chromosome, strand, geneStart, geneEnd, getString(karyotypeBandIndex));
+
+            if(loadSynonyms)
+                geneData.setSynonyms(getString(synonymsIndex));
+
+            chrGeneDataMap.computeIfAbsent(chromosome, x -> Lists.newArrayList()).add(geneData);
+            ++loadedCount;
+        }
+
+        LOGGER.debug("loaded {} gene records from binary file", loadedCount);
+    }
+
+    public void loadTranscriptData(
+            final Map<String,List<TranscriptData>> transcriptDataMap, final List<String> restrictedGeneIds,
+            boolean cacheExons, boolean canonicalOnly, boolean includeNonEnsembl, final List<String> nonCanonicalTrans)
+    {
+        Set<String> restrictedGenes = Sets.newHashSet(restrictedGeneIds);
+
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(mTranscriptsOffset);
+
+        int geneCount = buffer.getInt();
+        int transcriptCount = 0;
+        int exonCount = 0;
+
+        for(int i = 0; i < geneCount; ++i)
+        {
+            final String geneId = getString(buffer.getInt());
+            int blockLength = buffer.getInt();
+
+            if(!restrictedGenes.isEmpty() && !restrictedGenes.contains(geneId))
+            {
+                buffer.position(buffer.position() + blockLength);
+                continue;
+            }
+
+            List<TranscriptData> transDataList = Lists.newArrayList();
+            transcriptDataMap.put(geneId, transDataList);
+
+            int transCount = buffer.getInt();
+
+            for(int t = 0; t < transCount; ++t)
+            {
+                int transId = buffer.getInt();
+                String transName = getString(buffer.getInt());
+                boolean isCanonical = buffer.get() == 1;
+                byte strand = buffer.get();
+                int transStart = buffer.getInt();
+                int transEnd = buffer.getInt();
+                int codingStart = buffer.getInt();
+                int codingEnd = buffer.getInt();
+                int bioTypeIndex = buffer.getInt();
+                int transExonCount = buffer.getInt();
+
+                boolean skip = (canonicalOnly && !isCanonical && !nonCanonicalTrans.contains(transName))
+                        || (!includeNonEnsembl && !transName.startsWith(ENSEMBL_TRANSCRIPT_PREFIX));
+
+                if(skip)
+                {
+                    buffer.position(buffer.position() + transExonCount * EXON_RECORD_SIZE);
+                    continue;
+                }
+
+                TranscriptData transData = new TranscriptData(
+                        transId, transName, geneId, isCanonical, strand, transStart, transEnd,
+                        codingStart != NULL_POSITION ? codingStart : null, codingEnd != NULL_POSITION ? codingEnd : null,
+                        getString(bioTypeIndex));
+
+                List<ExonData> exonDataList = Lists.newArrayList();
+
+                if(cacheExons || isCanonical)
+                {
+                    for(int e = 0; e < transExonCount; ++e)
+                    {
+                        int exonStart = buffer.getInt();
+                        int exonEnd = buffer.getInt();
+                        int rank = buffer.getShort();
+                        int phaseStart = buffer.get();
+                        int phaseEnd = buffer.get();
+                        exonDataList.add(new ExonData(transId, exonStart, exonEnd, rank, phaseStart, phaseEnd));
+                    }
+
+                    exonCount += transExonCount;
+                }
+                else
+                {
+                    buffer.position(buffer.position() + transExonCount * EXON_RECORD_SIZE);
+                }
+
+                transData.setExons(exonDataList);
+                transDataList.add(transData);
+                ++transcriptCount;
+            }
+        }
+
+        LOGGER.debug("loaded {} genes with {} transcripts records and {} exons from binary file",
+                transcriptDataMap.size(), transcriptCount, exonCount);
+    }
+
+    public void loadTranscriptProteinData(final Map<Integer,List<TranscriptProteinData>> proteinDataMap, final Set<Integer> restrictedTransIds)
+    {
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(mProteinFeaturesOffset);
+
+        int transCount = buffer.getInt();
+        int proteinCount = 0;
+
+        for(int i = 0; i < transCount; ++i)
+        {
+            int transId = buffer.getInt();
+            int featureCount = buffer.getInt();
+
+            if(!restrictedTransIds.isEmpty() && !restrictedTransIds.contains(transId))
+            {
+                buffer.position(buffer.position() + featureCount * 5 * Integer.BYTES);
+                continue;
+            }
+
+            List<TranscriptProteinData> transProteinDataList = Lists.newArrayListWithCapacity(featureCount);
+            proteinDataMap.put(transId, transProteinDataList);
+
+            for(int f = 0; f < featureCount; ++f)
+            {
+                transProteinDataList.add(new TranscriptProteinData(
+                        transId, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), getString(buffer.getInt())));
+            }
+
+            proteinCount += featureCount;
+        }
+
+        LOGGER.debug("loaded {} protein trans records with {} locations from binary file", proteinDataMap.size(), proteinCount);
+    }
+
+    public void loadTranscriptSpliceAcceptorData(final Map<Integer,Integer> transSaPositionDataMap, final Set<Integer> restrictedTransIds)
+    {
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(mSpliceAcceptorsOffset);
+
+        int count = buffer.getInt();
+
+        for(int i = 0; i < count; ++i)
+        {
+            int transId = buffer.getInt();
+            int saPosition = buffer.getInt();
+
+            if(!restrictedTransIds.isEmpty() && !restrictedTransIds.contains(transId))
+                continue;
+
+            transSaPositionDataMap.put(transId, saPosition);
+        }
+
+        LOGGER.debug("loaded {} trans splice-acceptor position records from binary file", transSaPositionDataMap.size());
+    }
+
+    // writes a snapshot of a fully loaded cache - all transcripts, exons, protein domains, splice positions and gene synonyms
+    public static boolean write(final String dataPath, final EnsemblDataCache ensemblDataCache)
+    {
+        String filename = dataPath + ENSEMBL_DATA_BINARY_FILE;
+
+        try
+        {
+            StringPool stringPool = new StringPool();
+
+            byte[] genesSection = writeGenes(ensemblDataCache.getChrGeneDataMap(), stringPool);
+
+            byte[] transcriptsSection = writeTranscripts(
+                    ensemblDataCache.getChrGeneDataMap(), ensemblDataCache.getTranscriptDataMap(), stringPool);
+
+            byte[] proteinFeaturesSection = writeProteinFeatures(ensemblDataCache.getTranscriptProteinDataMap(), stringPool);
+            byte[] spliceAcceptorsSection = writeSpliceAcceptors(ensemblDataCache.getTransSpliceAcceptorPosDataMap());
+            byte[] stringsSection = stringPool.write();
+
+            int headerSize = 8 + SOURCE_FILES.length * Long.BYTES + 5 * Integer.BYTES;
+
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+
+            for(String sourceFile : SOURCE_FILES)
+            {
+                Path sourcePath = Paths.get(dataPath + sourceFile);
+                outputStream.writeLong(Files.exists(sourcePath) ? Files.size(sourcePath) : 0);
+            }
+
+            int offset = headerSize;
+
+            for(byte[] section : new byte[][] { stringsSection, genesSection, transcriptsSection, proteinFeaturesSection })
+            {
+                outputStream.writeInt(offset);
+                offset += section.length;
+            }
+
+            outputStream.writeInt(offset);
+
+            outputStream.write(stringsSection);
+            outputStream.write(genesSection);
+            outputStream.write(transcriptsSection);
+            outputStream.write(proteinFeaturesSection);
+            outputStream.write(spliceAcceptorsSection);
+            outputStream.close();
+
+            LOGGER.info("written Ensembl binary data file({}) with {} strings", filename, stringPool.size());
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("failed to write Ensembl binary data file({}): {}", filename, e.toString());
+            return false;
+        }
+
+        return true;
+    }
+
+    private static byte[] writeGenes(final Map<String,List<GeneData>> chrGeneDataMap, final StringPool stringPool) throws IOException
+    {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteStream);
+
+        outputStream.writeInt(chrGeneDataMap.values().stream().mapToInt(List::size).sum());
+
+        for(List<GeneData> geneDataList : chrGeneDataMap.values())
+        {
+            for(GeneData geneData : geneDataList)
+            {
+                outputStream.writeInt(stringPool.index(geneData.GeneId));
+                outputStream.writeInt(stringPool.index(geneData.GeneName));
+                outputStream.writeInt(stringPool.index(geneData.Chromosome));
+                outputStream.writeByte(geneData.Strand);
+                outputStream.writeInt(geneData.GeneStart);
+                outputStream.writeInt(geneData.GeneEnd);
+                outputStream.writeInt(stringPool.index(geneData.KaryotypeBand));
+                outputStream.writeInt(stringPool.index(geneData.getSynonyms()));
+            }
+        }
+
+        outputStream.close();
+        return byteStream.toByteArray();
+    }
+
+    private static byte[] writeTranscripts(
+            final Map<String,List<GeneData>> chrGeneDataMap, final Map<String,List<TranscriptData>> transcriptDataMap,
+            final StringPool stringPool) throws IOException
+    {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteStream);
+
+        // written in gene order, with each gene's block length so that restricted loads can skip unwanted genes
+        List<String> geneIds = Lists.newArrayList();
+        chrGeneDataMap.values().forEach(x -> x.stream().filter(y -> transcriptDataMap.containsKey(y.GeneId)).forEach(y -> geneIds.add(y.GeneId)));
+
+        outputStream.writeInt(geneIds.size());
+
+        for(String geneId : geneIds)
+        {
+            ByteArrayOutputStream geneByteStream = new ByteArrayOutputStream();
+            DataOutputStream geneOutputStream = new DataOutputStream(geneByteStream);
+
+            List<TranscriptData> transDataList = transcriptDataMap.get(geneId);
+            geneOutputStream.writeInt(transDataList.size());
+
+            for(TranscriptData transData : transDataList)
+            {
+                geneOutputStream.writeInt(transData.TransId);
+                geneOutputStream.writeInt(stringPool.index(transData.TransName));
+                geneOutputStream.writeByte(transData.IsCanonical ? 1 : 0);
+                geneOutputStream.writeByte(transData.Strand);
+                geneOutputStream.writeInt(transData.TransStart);
+                geneOutputStream.writeInt(transData.TransEnd);
+                geneOutputStream.writeInt(transData.CodingStart != null ? transData.CodingStart : NULL_POSITION);
+                geneOutputStream.writeInt(transData.CodingEnd != null ? transData.CodingEnd : NULL_POSITION);
+                geneOutputStream.writeInt(stringPool.index(transData.BioType));
+                geneOutputStream.writeInt(transData.exons().size());
+
+                for(ExonData exon : transData.exons())
+                {
+                    geneOutputStream.writeInt(exon.Start);
+                    geneOutputStream.writeInt(exon.End);
+                    geneOutputStream.writeShort(exon.Rank);
+                    geneOutputStream.writeByte(exon.PhaseStart);
+                    geneOutputStream.writeByte(exon.PhaseEnd);
+                }
+            }
+
+            geneOutputStream.close();
+
+            outputStream.writeInt(stringPool.index(geneId));
+            outputStream.writeInt(geneByteStream.size());
+            geneByteStream.writeTo(outputStream);
+        }
+
+        outputStream.close();
+        return byteStream.toByteArray();
+    }
+
+    private static byte[] writeProteinFeatures(
+            final Map<Integer,List<TranscriptProteinData>> proteinDataMap, final StringPool stringPool) throws IOException
+    {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteStream);
+
+        outputStream.writeInt(proteinDataMap.size());
+
+        for(Map.Entry<Integer,List<TranscriptProteinData>> entry : proteinDataMap.entrySet())
+        {
+            outputStream.writeInt(entry.getKey());
+            outputStream.writeInt(entry.getValue().size());
+
+            for(TranscriptProteinData proteinData : entry.getValue())
+            {
+                outputStream.writeInt(proteinData.TranslationId);
+                outputStream.writeInt(proteinData.ProteinFeatureId);
+                outputStream.writeInt(proteinData.SeqStart);
+                outputStream.writeInt(proteinData.SeqEnd);
+                outputStream.writeInt(stringPool.index(proteinData.HitDescription));
+            }
+        }
+
+        outputStream.close();
+        return byteStream.toByteArray();
+    }
+
+    private static byte[] writeSpliceAcceptors(final Map<Integer,Integer> transSaPositionDataMap) throws IOException
+    {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        DataOutputStream outputStream = new DataOutputStream(byteStream);
+
+        outputStream.writeInt(transSaPositionDataMap.size());
+
+        for(Map.Entry<Integer,Integer> entry : transSaPositionDataMap.entrySet())
+        {
+            outputStream.writeInt(entry.getKey());
+            outputStream.writeInt(entry.getValue());
+        }
+
+        outputStream.close();
+        return byteStream.toByteArray();
+    }
+
+    private static class StringPool
+    {
+        private final Map<String,Integer> mIndices = Maps.newHashMap();
+        private final List<String> mStrings = Lists.newArrayList();
+
+        public int size() { return mStrings.size(); }
+
+        public int index(final String value)
+        {
+            return mIndices.computeIfAbsent(value != null ? value : "", x ->
+            {
+                mStrings.add(x);
+                return mStrings.size() - 1;
+            });
+        }
+
+        public byte[] write() throws IOException
+        {
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+            DataOutputStream outputStream = new DataOutputStream(byteStream);
+
+            outputStream.writeInt(mStrings.size());
+
+            for(String value : mStrings)
+            {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                outputStream.writeInt(bytes.length);
+                outputStream.write(bytes);
+            }
+
+            outputStream.close();
+            return byteStream.toByteArray();
+        }
+    }
+}
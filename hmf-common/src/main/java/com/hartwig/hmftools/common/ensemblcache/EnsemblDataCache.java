@@ -8,6 +8,7 @@ import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.loadTra
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.loadTranscriptSpliceAcceptorData;
 import static com.hartwig.hmftools.common.fusion.FusionCommon.NEG_STRAND;
 import static com.hartwig.hmftools.common.fusion.FusionCommon.POS_STRAND;
+import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDirSeparator;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
@@ -16,18 +17,22 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.collect.ImmutableIntervalTree;
 import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.common.gene.ExonData;
 import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.gene.TranscriptProteinData;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 
 import org.apache.commons.cli.CommandLine;
+import org.apache.commons.lang3.tuple.Pair;
 
 public class EnsemblDataCache
 {
@@ -54,6 +59,13 @@ public class EnsemblDataCache
     private final List<GeneData> mAlternativeGeneData;
     private final List<String> mRestrictedGeneIdList = Lists.newArrayList();
 
+    // per-chromosome gene interval index for region queries, built on first use and safe for concurrent readers
+    // genes are indexed by their position in the chromosome's gene list so results keep that order
+    private final Map<String,GeneIndex> mChrGeneIndex;
+
+    // binary snapshot of the CSV data files, used in their place if present
+    private EnsemblDataBinaryFile mBinaryFile;
+
     public static final String ENSEMBL_DATA_DIR = "ensembl_data_dir";
     public static final String ENSEMBL_DATA_DIR_CFG = "Ensembl data file directory";
 
@@ -87,6 +99,8 @@ public class EnsemblDataCache
         mRequireNonEnsemblTranscripts = false;
         mDownstreamGeneAnnotations = Maps.newHashMap();
         mAlternativeGeneData = Lists.newArrayList();
+        mChrGeneIndex = new ConcurrentHashMap<>();
+        mBinaryFile = null;
     }
 
     public static void addEnsemblDir(final ConfigBuilder configBuilder)
@@ -127,6 +141,7 @@ public class EnsemblDataCache
     public Map<String,List<TranscriptData>> getTranscriptDataMap() { return mTranscriptByGeneIdMap; }
     public Map<String,List<GeneData>> getChrGeneDataMap() { return mChrGeneDataMap; }
     public Map<Integer,List<TranscriptProteinData>> getTranscriptProteinDataMap() { return mEnsemblProteinDataMap; }
+    public Map<Integer,Integer> getTransSpliceAcceptorPosDataMap() { return mTransSpliceAcceptorPosDataMap; }
 
     public final GeneData getGeneDataByName(final String geneName)
     {
@@ -239,13 +254,8 @@ public class EnsemblDataCache
         // find genes if any of their transcripts are within this position
         List<GeneData> genesList = Lists.newArrayList();
 
-        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
-
-        for(final GeneData geneData : geneDataList)
+        for(final GeneData geneData : findOverlappingGenes(chromosome, posStart, posEnd))
         {
-            if(posStart > geneData.GeneEnd || posEnd < geneData.GeneStart)
-                continue;
-
             final List<TranscriptData> transList = mTranscriptByGeneIdMap.get(geneData.GeneId);
 
             if(transList == null || transList.isEmpty())
@@ -253,7 +263,7 @@ public class EnsemblDataCache
 
             for(final TranscriptData transData : transList)
             {
-                if (posStart <= transData.TransStart && posEnd >= transData.TransEnd)
+                if(posStart <= transData.TransStart && posEnd >= transData.TransEnd)
                 {
                     genesList.add(geneData);
                     break;
@@ -273,7 +283,8 @@ public class EnsemblDataCache
         if(geneDataList == null)
             return matchedGenes;
 
-        for(final GeneData geneData : geneDataList)
+        // widen the query by the upstream distance and then apply it according to each gene's strand
+        for(final GeneData geneData : findOverlappingGenes(chromosome, position - upstreamDistance, position + upstreamDistance))
         {
             int geneStartRange = geneData.Strand == 1 ? geneData.GeneStart - upstreamDistance : geneData.GeneStart;
             int geneEndRange = geneData.Strand == 1 ? geneData.GeneEnd : geneData.GeneEnd + upstreamDistance;
@@ -301,6 +312,86 @@ public class EnsemblDataCache
         return matchedGenes;
     }
 
+    // genes overlapping the region, in the order of the chromosome's gene list
+    public List<GeneData> findOverlappingGenes(final String chromosome, int posStart, int posEnd)
+    {
+        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+
+        if(geneDataList == null)
+            return Collections.emptyList();
+
+        List<Pair<BaseRegion,Integer>> geneEntries = getGeneIndex(chromosome, geneDataList).overlappingIntervals(posStart, posEnd);
+
+        if(geneEntries.isEmpty())
+            return Collections.emptyList();
+
+        int[] geneIndices = geneEntries.stream().mapToInt(x -> x.getValue()).sorted().toArray();
+
+        List<GeneData> genes = Lists.newArrayListWithCapacity(geneIndices.length);
+
+        for(int geneIndex : geneIndices)
+        {
+            genes.add(geneDataList.get(geneIndex));
+        }
+
+        return genes;
+    }
+
+    // transcripts overlapping the region, by gene in the order of the chromosome's gene list
+    public List<TranscriptData> findOverlappingTranscripts(final String chromosome, int posStart, int posEnd)
+    {
+        List<TranscriptData> transcripts = Lists.newArrayList();
+
+        for(GeneData geneData : findOverlappingGenes(chromosome, posStart, posEnd))
+        {
+            final List<TranscriptData> transList = mTranscriptByGeneIdMap.get(geneData.GeneId);
+
+            if(transList == null)
+                continue;
+
+            transList.stream().filter(x -> positionsOverlap(posStart, posEnd, x.TransStart, x.TransEnd)).forEach(transcripts::add);
+        }
+
+        return transcripts;
+    }
+
+    private ImmutableIntervalTree<Integer> getGeneIndex(final String chromosome, final List<GeneData> geneDataList)
+    {
+        // rebuilt if the chromosome's genes have been replaced or added to since the index was formed
+        GeneIndex geneIndex = mChrGeneIndex.get(chromosome);
+
+        if(geneIndex == null || !geneIndex.matches(geneDataList))
+            geneIndex = mChrGeneIndex.compute(chromosome, (chr, existing) ->
+                    existing != null && existing.matches(geneDataList) ? existing : new GeneIndex(geneDataList));
+
+        return geneIndex.Index;
+    }
+
+    private static class GeneIndex
+    {
+        public final List<GeneData> Genes;
+        public final int GeneCount;
+        public final ImmutableIntervalTree<Integer> Index;
+
+        public GeneIndex(final List<GeneData> geneDataList)
+        {
+            Genes = geneDataList;
+            GeneCount = geneDataList.size();
+
+            List<Pair<BaseRegion,Integer>> entries = Lists.newArrayListWithCapacity(GeneCount);
+
+            for(int i = 0; i < GeneCount; ++i)
+            {
+                GeneData geneData = geneDataList.get(i);
+                entries.add(Pair.of(new BaseRegion(geneData.GeneStart, geneData.GeneEnd), i));
+            }
+
+            Index = new ImmutableIntervalTree<>(entries);
+        }
+
+        public boolean matches(final List<GeneData> geneDataList) { return Genes == geneDataList && GeneCount == geneDataList.size(); }
+    }
+
     public int findPrecedingGeneSpliceAcceptorPosition(int transId)
     {
         if(mTransSpliceAcceptorPosDataMap.isEmpty())
@@ -393,22 +484,28 @@ public class EnsemblDataCache
 
     public boolean load(boolean delayTranscriptLoading)
     {
-        if(!loadEnsemblGeneData(mDataPath, mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms))
+        mChrGeneIndex.clear();
+
+        mBinaryFile = EnsemblDataBinaryFile.open(mDataPath);
+
+        if(mBinaryFile != null)
+        {
+            mBinaryFile.loadGeneData(mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms);
+        }
+        else if(!loadEnsemblGeneData(mDataPath, mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms))
+        {
             return false;
+        }
 
         if(!delayTranscriptLoading)
         {
-            if(!EnsemblDataLoader.loadTranscriptData(
-                    mDataPath, mTranscriptByGeneIdMap, mRestrictedGeneIdList, mRequireExons, mCanonicalTranscriptsOnly,
-                    mRequireNonEnsemblTranscripts, Collections.emptyList()))
-            {
+            if(!loadTranscripts(mRestrictedGeneIdList, Collections.emptyList()))
                 return false;
-            }
 
-            if(mRequireProteinDomains && !loadTranscriptProteinData(mDataPath, mEnsemblProteinDataMap, Sets.newHashSet()))
+            if(mRequireProteinDomains && !loadProteinData(Sets.newHashSet()))
                 return false;
 
-            if(mRequireSplicePositions && !loadTranscriptSpliceAcceptorData(mDataPath, mTransSpliceAcceptorPosDataMap, Sets.newHashSet()))
+            if(mRequireSplicePositions && !loadSpliceAcceptorData(Sets.newHashSet()))
                 return false;
         }
 
@@ -422,12 +519,8 @@ public class EnsemblDataCache
 
     public boolean loadTranscriptData(final List<String> restrictedGeneIds, final List<String> nonCanonicalTrans)
     {
-        if(!EnsemblDataLoader.loadTranscriptData(
-                mDataPath, mTranscriptByGeneIdMap, restrictedGeneIds, mRequireExons, mCanonicalTranscriptsOnly,
-                mRequireNonEnsemblTranscripts, nonCanonicalTrans))
-        {
+        if(!loadTranscripts(restrictedGeneIds, nonCanonicalTrans))
             return false;
-        }
 
         Set<Integer> uniqueTransIds = Sets.newHashSet();
 
@@ -436,15 +529,49 @@ public class EnsemblDataCache
             transDataList.forEach(x -> uniqueTransIds.add(x.TransId));
         }
 
-        if(mRequireProteinDomains && !loadTranscriptProteinData(mDataPath, mEnsemblProteinDataMap, uniqueTransIds))
+        if(mRequireProteinDomains && !loadProteinData(uniqueTransIds))
             return false;
 
-        if(mRequireSplicePositions && !loadTranscriptSpliceAcceptorData(mDataPath, mTransSpliceAcceptorPosDataMap, uniqueTransIds))
+        if(mRequireSplicePositions && !loadSpliceAcceptorData(uniqueTransIds))
             return false;
 
         return true;
     }
 
+    private boolean loadTranscripts(final List<String> restrictedGeneIds, final List<String> nonCanonicalTrans)
+    {
+        if(mBinaryFile == null)
+        {
+            return EnsemblDataLoader.loadTranscriptData(
+                    mDataPath, mTranscriptByGeneIdMap, restrictedGeneIds, mRequireExons, mCanonicalTranscriptsOnly,
+                    mRequireNonEnsemblTranscripts, nonCanonicalTrans);
+        }
+
+        mBinaryFile.loadTranscriptData(
+                mTranscriptByGeneIdMap, restrictedGeneIds, mRequireExons, mCanonicalTranscriptsOnly,
+                mRequireNonEnsemblTranscripts, nonCanonicalTrans);
+
+        return true;
+    }
+
+    private boolean loadProteinData(final Set<Integer> restrictedTransIds)
+    {
+        if(mBinaryFile == null)
+            return loadTranscriptProteinData(mDataPath, mEnsemblProteinDataMap, restrictedTransIds);
+
+        mBinaryFile.loadTranscriptProteinData(mEnsemblProteinDataMap, restrictedTransIds);
+        return true;
+    }
+
+    private boolean loadSpliceAcceptorData(final Set<Integer> restrictedTransIds)
+    {
+        if(mBinaryFile == null)
+            return loadTranscriptSpliceAcceptorData(mDataPath, mTransSpliceAcceptorPosDataMap, restrictedTransIds);
+
+        mBinaryFile.loadTranscriptSpliceAcceptorData(mTransSpliceAcceptorPosDataMap, restrictedTransIds);
+        return true;
+    }
+
     public static Integer[] getProteinDomainPositions(final TranscriptProteinData proteinData, final TranscriptData transData)
     {
         Integer[] domainPositions = {null, null};
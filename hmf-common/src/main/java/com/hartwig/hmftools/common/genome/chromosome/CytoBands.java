@@ -6,6 +6,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -41,6 +42,12 @@ public class CytoBands
         return band != null ? band.Name : null;
     }
 
+    public List<CytoBand> chromosomeBands(final String chromosome)
+    {
+        List<CytoBand> bands = mChromosomeMap.get(chromosome);
+        return bands != null ? bands : Collections.emptyList();
+    }
+
     private void loadRegions(final RefGenomeVersion refGenomeVersion)
     {
         String resourceFilename = resourceFilename(refGenomeVersion);
@@ -54,8 +61,9 @@ public class CytoBands
         int posStartIndex = 1;
         int posEndIndex = 2;
         int nameIndex = 3;
+        int stainIndex = 4;
 
-        for(String line : lines)
+        for(String line : lines.subList(1, lines.size()))
         {
             final String[] values = line.split(delim, -1);
 
@@ -71,18 +79,20 @@ public class CytoBands
                 mChromosomeMap.put(chromosome, bands);
             }
 
-            bands.add(new CytoBand(posStart, posEnd, values[nameIndex]));
+            bands.add(new CytoBand(posStart, posEnd, values[nameIndex], values[stainIndex]));
         }
     }
 
-    private class CytoBand extends BaseRegion
+    public static class CytoBand extends BaseRegion
     {
         public final String Name;
+        public final String Stain; // Giemsa stain, eg gneg, gpos25 or acen
 
-        public CytoBand(final int positionStart, final int positionEnd, final String name)
+        public CytoBand(final int positionStart, final int positionEnd, final String name, final String stain)
         {
             super(positionStart, positionEnd);
             Name = name;
+            Stain = stain;
         }
     }
 
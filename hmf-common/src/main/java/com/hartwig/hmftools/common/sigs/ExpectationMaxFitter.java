@@ -0,0 +1,280 @@
+package com.hartwig.hmftools.common.sigs;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
+
+import com.hartwig.hmftools.common.utils.Matrix;
+
+// reusable version of ExpectationMaxFit which keeps its working buffers between fits, so a single instance per thread avoids
+// any allocation per fit or iteration, with optional SQUAREM acceleration (Varadhan & Roland, 2008)
+// the stopping criteria are the same: residuals as a percentage of the total counts below the threshold, or the max iterations
+public class ExpectationMaxFitter
+{
+    private final boolean mAccelerate;
+    private final double mMinResidualsPerc;
+    private final int mMaxIterations;
+
+    // working buffers, only ever grown
+    private double[] mDefinitions; // definition ratios, contiguous per definition
+    private double[] mProportions;
+    private double[] mNewAllocations;
+    private double[] mAllocFactors;
+    private double[] mFittedCounts;
+    private double[] mStepStart; // SQUAREM buffers
+    private double[] mStepOne;
+    private double[] mStepTwo;
+
+    private int mDefinitionCount;
+    private int mCategoryCount;
+    private double mTotalCounts;
+
+    // results of the last fit
+    private int mIterations;
+    private double mResidualsTotal;
+    private double mResidualsPerc;
+
+    public static final int MAX_ITERATIONS = 20;
+    public static final double RESIDUALS_EXIT_PERC = 0.001;
+
+    public ExpectationMaxFitter(boolean accelerate)
+    {
+        this(accelerate, RESIDUALS_EXIT_PERC, MAX_ITERATIONS);
+    }
+
+    public ExpectationMaxFitter(boolean accelerate, double minResidualsPerc, int maxIterations)
+    {
+        mAccelerate = accelerate;
+        mMinResidualsPerc = minResidualsPerc;
+        mMaxIterations = maxIterations;
+
+        mDefinitions = new double[0];
+        mProportions = new double[0];
+        mNewAllocations = new double[0];
+        mAllocFactors = new double[0];
+        mFittedCounts = new double[0];
+        mStepStart = new double[0];
+        mStepOne = new double[0];
+        mStepTwo = new double[0];
+
+        mIterations = 0;
+        mResidualsTotal = 0;
+        mResidualsPerc = 0;
+    }
+
+    public int iterations() { return mIterations; }
+    public double residualsTotal() { return mResidualsTotal; }
+    public double residualsPercent() { return mResidualsPerc; }
+
+    // fits the counts to the definitions (categories x definitions) and writes the allocation per definition into allocations
+    public void fit(final double[] counts, final Matrix definitions, final double[] allocations)
+    {
+        initialise(counts, definitions);
+
+        double initialAlloc = 1 / (double)mDefinitionCount;
+
+        for(int defId = 0; defId < mDefinitionCount; ++defId)
+        {
+            mProportions[defId] = initialAlloc;
+        }
+
+        if(mAccelerate)
+            fitAccelerated(counts);
+        else
+            fitStandard(counts);
+
+        System.arraycopy(mNewAllocations, 0, allocations, 0, mDefinitionCount);
+    }
+
+    private void fitStandard(final double[] counts)
+    {
+        while(mIterations < mMaxIterations)
+        {
+            if(evaluateStep(counts, mProportions))
+                break;
+
+            setProportions(mNewAllocations, mProportions);
+        }
+    }
+
+    private void fitAccelerated(final double[] counts)
+    {
+        double lastResidualsTotal = -1;
+
+        while(mIterations < mMaxIterations)
+        {
+            System.arraycopy(mProportions, 0, mStepStart, 0, mDefinitionCount);
+
+            if(evaluateStep(counts, mStepStart))
+                break;
+
+            // fall back to the last plain EM step if the previous extrapolation made the fit worse
+            if(lastResidualsTotal >= 0 && mResidualsTotal > lastResidualsTotal)
+            {
+                System.arraycopy(mStepTwo, 0, mStepStart, 0, mDefinitionCount);
+
+                if(mIterations >= mMaxIterations || evaluateStep(counts, mStepStart))
+                    break;
+            }
+
+            setProportions(mNewAllocations, mStepOne);
+
+            if(mIterations >= mMaxIterations || evaluateStep(counts, mStepOne))
+                break;
+
+            setProportions(mNewAllocations, mStepTwo);
+            lastResidualsTotal = mResidualsTotal;
+
+            // extrapolate using r = p1 - p0 and v = (p2 - p1) - r, with step length alpha = -|r|/|v| capped at -1
+            double rNormSq = 0;
+            double vNormSq = 0;
+
+            for(int defId = 0; defId < mDefinitionCount; ++defId)
+            {
+                double r = mStepOne[defId] - mStepStart[defId];
+                double v = mStepTwo[defId] - mStepOne[defId] - r;
+                rNormSq += r * r;
+                vNormSq += v * v;
+            }
+
+            if(vNormSq == 0)
+            {
+                System.arraycopy(mStepTwo, 0, mProportions, 0, mDefinitionCount);
+                continue;
+            }
+
+            double alpha = min(-sqrt(rNormSq / vNormSq), -1);
+            double proportionsTotal = 0;
+
+            for(int defId = 0; defId < mDefinitionCount; ++defId)
+            {
+                double r = mStepOne[defId] - mStepStart[defId];
+                double v = mStepTwo[defId] - mStepOne[defId] - r;
+                mProportions[defId] = max(mStepStart[defId] - 2 * alpha * r + alpha * alpha * v, 0);
+                proportionsTotal += mProportions[defId];
+            }
+
+            if(proportionsTotal == 0)
+                System.arraycopy(mStepTwo, 0, mProportions, 0, mDefinitionCount);
+        }
+    }
+
+    private void setProportions(final double[] newAllocations, final double[] proportions)
+    {
+        for(int defId = 0; defId < mDefinitionCount; ++defId)
+        {
+            proportions[defId] = newAllocations[defId] / mTotalCounts;
+        }
+    }
+
+    // applies a single EM update to the proportions, writing the new allocations and their residuals, and returns true if converged
+    private boolean evaluateStep(final double[] counts, final double[] proportions)
+    {
+        int categoryCount = mCategoryCount;
+
+        for(int catId = 0; catId < categoryCount; ++catId)
+        {
+            mAllocFactors[catId] = 0;
+            mFittedCounts[catId] = 0;
+        }
+
+        for(int defId = 0; defId < mDefinitionCount; ++defId)
+        {
+            mNewAllocations[defId] = 0;
+
+            int offset = defId * categoryCount;
+            double defAlloc = proportions[defId];
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                mAllocFactors[catId] += defAlloc * mDefinitions[offset + catId];
+            }
+        }
+
+        for(int defId = 0; defId < mDefinitionCount; ++defId)
+        {
+            int offset = defId * categoryCount;
+            double defAlloc = proportions[defId];
+            double newAlloc = 0;
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                if(mAllocFactors[catId] == 0)
+                    continue;
+
+                newAlloc += counts[catId] * mDefinitions[offset + catId] * defAlloc / mAllocFactors[catId];
+            }
+
+            mNewAllocations[defId] = newAlloc;
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                mFittedCounts[catId] += newAlloc * mDefinitions[offset + catId];
+            }
+        }
+
+        double residualsTotal = 0;
+
+        for(int catId = 0; catId < categoryCount; ++catId)
+        {
+            residualsTotal += abs(mFittedCounts[catId] - counts[catId]);
+        }
+
+        mResidualsTotal = residualsTotal;
+        mResidualsPerc = residualsTotal / mTotalCounts;
+        ++mIterations;
+
+        return mResidualsPerc < mMinResidualsPerc;
+    }
+
+    private void initialise(final double[] counts, final Matrix definitions)
+    {
+        mDefinitionCount = definitions.Cols;
+        mCategoryCount = definitions.Rows;
+        mTotalCounts = sumVector(counts);
+        mIterations = 0;
+        mResidualsTotal = 0;
+        mResidualsPerc = 0;
+
+        int definitionsSize = mDefinitionCount * mCategoryCount;
+
+        if(mDefinitions.length < definitionsSize)
+            mDefinitions = new double[definitionsSize];
+
+        if(mProportions.length < mDefinitionCount)
+        {
+            mProportions = new double[mDefinitionCount];
+            mNewAllocations = new double[mDefinitionCount];
+            mStepStart = new double[mDefinitionCount];
+            mStepOne = new double[mDefinitionCount];
+            mStepTwo = new double[mDefinitionCount];
+        }
+
+        if(mAllocFactors.length < mCategoryCount)
+        {
+            mAllocFactors = new double[mCategoryCount];
+            mFittedCounts = new double[mCategoryCount];
+        }
+
+        // no allocations result if the fit does not run
+        for(int defId = 0; defId < mDefinitionCount; ++defId)
+        {
+            mNewAllocations[defId] = 0;
+        }
+
+        final double[][] data = definitions.getData();
+
+        for(int catId = 0; catId < mCategoryCount; ++catId)
+        {
+            final double[] row = data[catId];
+
+            for(int defId = 0; defId < mDefinitionCount; ++defId)
+            {
+                mDefinitions[defId * mCategoryCount + catId] = row[defId];
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.hartwig.hmftools.common.amber;
+
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.peakHeap;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.resetPeakHeap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AmberSitesFileTest
+{
+    private static final Logger LOGGER = LogManager.getLogger(AmberSitesFileTest.class);
+
+    // run with -Damber_sites_count=1000000 to compare load times and heap at the scale of the germline het panel
+    private static final int BENCHMARK_SITE_COUNT = Integer.getInteger("amber_sites_count", 20_000);
+
+    private static final String[] BASES = { "A", "C", "G", "T" };
+
+    private File mTempDir;
+
+    @Before
+    public void setup() throws IOException
+    {
+        mTempDir = createTempDir("amber_sites");
+    }
+
+    @After
+    public void tearDown()
+    {
+        deleteDir(mTempDir);
+    }
+
+    @Test
+    public void testBinaryMatchesTsvAndVcf() throws IOException
+    {
+        String tsvFile = new File(mTempDir, "sites.tsv").getAbsolutePath();
+        String vcfFile = new File(mTempDir, "sites.vcf").getAbsolutePath();
+        String binaryFile = new File(mTempDir, "sites.bin").getAbsolutePath();
+
+        writeSites(tsvFile, vcfFile, 5000, new Random(0));
+
+        ListMultimap<Chromosome,AmberSite> tsvSites = AmberSitesFile.sites(tsvFile);
+        ListMultimap<Chromosome,AmberSite> vcfSites = AmberSitesFile.sites(vcfFile);
+
+        AmberSitesFile.writeBinary(tsvSites, binaryFile);
+
+        assertFalse(AmberSitesFile.isBinary(tsvFile));
+        assertTrue(AmberSitesFile.isBinary(binaryFile));
+
+        ListMultimap<Chromosome,AmberSite> binarySites = AmberSitesFile.sites(binaryFile);
+        assertSitesEqual(tsvSites, binarySites);
+        assertSitesEqual(vcfSites, binarySites);
+
+        // views from each format hold the same sites
+        Map<Chromosome,AmberSiteView> tsvViews = AmberSitesFile.siteViews(tsvFile);
+        Map<Chromosome,AmberSiteView> binaryViews = AmberSitesFile.siteViews(binaryFile);
+
+        assertEquals(tsvViews.keySet(), binaryViews.keySet());
+
+        for(Map.Entry<Chromosome,AmberSiteView> entry : binaryViews.entrySet())
+        {
+            AmberSiteView binaryView = entry.getValue();
+            AmberSiteView tsvView = tsvViews.get(entry.getKey());
+
+            assertEquals(tsvView.chromosome(), binaryView.chromosome());
+            assertEquals(tsvView.size(), binaryView.size());
+
+            for(int i = 0; i < binaryView.size(); ++i)
+            {
+                assertEquals(tsvSites.get(entry.getKey()).get(i), binaryView.site(i));
+                assertEquals(tsvSites.get(entry.getKey()).get(i).snpCheck(), binaryView.snpCheck(i));
+                assertEquals(tsvView.site(i), binaryView.site(i));
+            }
+        }
+    }
+
+    @Test
+    public void testRangeQueries() throws IOException
+    {
+        List<AmberSite> sites = Lists.newArrayList(
+                new AmberSite("1", 100, "A", "C", false),
+                new AmberSite("1", 200, "G", "T", true),
+                new AmberSite("1", 200, "G", "A", false),
+                new AmberSite("1", 350, "T", "C", false));
+
+        AmberSiteView view = AmberSiteView.fromSites("1", sites);
+
+        assertEquals(0, view.firstIndex(1));
+        assertEquals(0, view.firstIndex(100));
+        assertEquals(1, view.firstIndex(101));
+        assertEquals(1, view.firstIndex(200));
+        assertEquals(3, view.endIndex(200));
+        assertEquals(3, view.firstIndex(201));
+        assertEquals(4, view.firstIndex(351));
+        assertEquals(4, view.endIndex(Integer.MAX_VALUE));
+
+        assertEquals('G', view.ref(1));
+        assertEquals('T', view.alt(1));
+        assertTrue(view.snpCheck(1));
+        assertFalse(view.snpCheck(2));
+
+        AmberSiteView selected = view.select(new int[] { 1, 3 }, 2);
+        assertEquals(2, selected.size());
+        assertEquals(sites.get(1), selected.site(0));
+        assertTrue(selected.snpCheck(0));
+        assertEquals(sites.get(3), selected.site(1));
+    }
+
+    @Test
+    public void testLoadBenchmark() throws Exception
+    {
+        String tsvFile = new File(mTempDir, "benchmark.tsv").getAbsolutePath();
+        String vcfFile = new File(mTempDir, "benchmark.vcf").getAbsolutePath();
+        String binaryFile = new File(mTempDir, "benchmark.bin").getAbsolutePath();
+
+        writeSites(tsvFile, vcfFile, BENCHMARK_SITE_COUNT, new Random(1));
+        AmberSitesFile.writeBinary(AmberSitesFile.sites(tsvFile), binaryFile);
+
+        logLoad("TSV", () -> AmberSitesFile.siteViews(tsvFile));
+        logLoad("VCF", () -> AmberSitesFile.siteViews(vcfFile));
+        logLoad("binary", () -> AmberSitesFile.siteViews(binaryFile));
+    }
+
+    private static void logLoad(final String format, final Callable<Map<Chromosome,AmberSiteView>> loader) throws Exception
+    {
+        long usedBefore = resetPeakHeap();
+
+        long startTime = System.nanoTime();
+        Map<Chromosome,AmberSiteView> siteViews = loader.call();
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        long peakHeap = peakHeap() - usedBefore;
+        int siteCount = siteViews.values().stream().mapToInt(AmberSiteView::size).sum();
+
+        LOGGER.info("Amber sites {} load: sites({}) time({}ms) peakHeap({}MB)",
+                format, siteCount, elapsedMs, peakHeap / (1024 * 1024));
+    }
+
+    private static void assertSitesEqual(final ListMultimap<Chromosome,AmberSite> expected, final ListMultimap<Chromosome,AmberSite> actual)
+    {
+        assertEquals(expected.keySet(), actual.keySet());
+
+        for(Chromosome chromosome : expected.keySet())
+        {
+            List<AmberSite> expectedSites = expected.get(chromosome);
+            List<AmberSite> actualSites = actual.get(chromosome);
+
+            assertEquals(expectedSites, actualSites);
+
+            for(int i = 0; i < expectedSites.size(); ++i)
+            {
+                assertEquals(expectedSites.get(i).snpCheck(), actualSites.get(i).snpCheck());
+            }
+        }
+    }
+
+    private static void writeSites(final String tsvFile, final String vcfFile, int siteCount, final Random random) throws IOException
+    {
+        BufferedWriter tsvWriter = Files.newBufferedWriter(new File(tsvFile).toPath());
+        BufferedWriter vcfWriter = Files.newBufferedWriter(new File(vcfFile).toPath());
+
+        tsvWriter.write(AmberSitesFile.header());
+        tsvWriter.newLine();
+
+        vcfWriter.write("##fileformat=VCFv4.2\n");
+        vcfWriter.write("##INFO=<ID=SNPCHECK,Number=0,Type=Flag,Description=\"SnpCheck site\">\n");
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            vcfWriter.write("##contig=<ID=" + chromosome + ">\n");
+        }
+
+        vcfWriter.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+
+        int chromosomeSites = siteCount / HumanChromosome.values().length + 1;
+        int written = 0;
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            int position = 0;
+
+            for(int i = 0; i < chromosomeSites && written < siteCount; ++i, ++written)
+            {
+                position += 1 + random.nextInt(2000);
+
+                int refIndex = random.nextInt(BASES.length);
+                String ref = BASES[refIndex];
+                String alt = BASES[(refIndex + 1 + random.nextInt(BASES.length - 1)) % BASES.length];
+                boolean snpCheck = random.nextInt(100) == 0;
+
+                tsvWriter.write(String.format("%s\t%d\t%s\t%s\t%s", chromosome, position, ref, alt, snpCheck));
+                tsvWriter.newLine();
+
+                vcfWriter.write(String.format("%s\t%d\t.\t%s\t%s\t.\tPASS\t%s\n", chromosome, position, ref, alt, snpCheck ? "SNPCHECK" : "."));
+            }
+        }
+
+        tsvWriter.close();
+        vcfWriter.close();
+    }
+}
@@ -0,0 +1,179 @@
+package com.hartwig.hmftools.common.circos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+public class CircosPlotTest
+{
+    private static final double EPSILON = 1e-9;
+
+    private static final Logger LOGGER = LogManager.getLogger(CircosPlotTest.class);
+
+    @Test
+    public void testLayout()
+    {
+        CircosLayout layout = CircosLayout.fromRefGenome(RefGenomeVersion.V37, false);
+
+        assertEquals(23, layout.chromosomeCount());
+        assertEquals(0, layout.chromosomeIndex("1"));
+        assertEquals(0, layout.chromosomeIndex("chr1"));
+        assertEquals(22, layout.chromosomeIndex("hsX"));
+        assertEquals(-1, layout.chromosomeIndex("Y"));
+
+        // chromosomes run clockwise without overlapping, separated by equal gaps
+        double gap = layout.startAngle(1) - layout.endAngle(0);
+        assertTrue(gap > 0);
+
+        for(int i = 1; i < layout.chromosomeCount(); ++i)
+        {
+            assertTrue(layout.startAngle(i) > layout.endAngle(i - 1));
+            assertEquals(gap, layout.startAngle(i) - layout.endAngle(i - 1), EPSILON);
+        }
+
+        assertEquals(2 * Math.PI, layout.endAngle(22) + gap / 2, EPSILON);
+
+        // the same scale applies to every chromosome
+        double chr1Scale = (layout.endAngle(0) - layout.startAngle(0)) / layout.length(0);
+        double chrXScale = (layout.endAngle(22) - layout.startAngle(22)) / layout.length(22);
+        assertEquals(chr1Scale, chrXScale, EPSILON);
+    }
+
+    @Test
+    public void testTracksDrawInPosition()
+    {
+        CircosLayout layout = CircosLayout.fromRefGenome(RefGenomeVersion.V37, true);
+        CircosPlot plot = new CircosPlot(layout, 50);
+
+        // a single large point at the start of chromosome 1, which is at the top of the plot
+        ScatterTrack scatter = new ScatterTrack(0.5, 0.5, 0, 1);
+        scatter.add(layout.chromosomeIndex("1"), 1_000_000, 0.5, Color.RED, 100);
+        plot.addTrack(scatter);
+
+        int size = 600;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        plot.draw(graphics, size, size);
+        graphics.dispose();
+
+        double baseRadius = CircosPlot.IDEOGRAM_RADIUS * size / 2 - 50 * size / CircosPlot.CIRCOS_IMAGE_SIZE;
+        int pointY = (int)Math.round(size / 2.0 - 0.5 * baseRadius);
+
+        assertEquals(Color.RED.getRGB(), image.getRGB(size / 2 + 1, pointY));
+        assertNotEquals(Color.RED.getRGB(), image.getRGB(size / 2 + 1, size - pointY));
+    }
+
+    @Test
+    public void testCytoBands()
+    {
+        CircosLayout layout = CircosLayout.fromRefGenome(RefGenomeVersion.V37, true);
+        CircosPlot plot = new CircosPlot(layout, 50);
+
+        IdeogramTrack ideogram = new IdeogramTrack();
+        ideogram.setOutline(Color.BLACK, 0);
+        ideogram.setLabels(0, 0);
+        ideogram.addCytoBands(layout, RefGenomeVersion.V37);
+        plot.addTrack(ideogram);
+
+        int size = (int)CircosPlot.CIRCOS_IMAGE_SIZE;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        plot.draw(graphics, size, size);
+        graphics.dispose();
+
+        // sample the middle of the ideogram ring, in the middle of some of chromosome 1's bands
+        double radius = CircosPlot.IDEOGRAM_RADIUS * size / 2 - 25 * size / CircosPlot.CIRCOS_IMAGE_SIZE;
+
+        // 1p31.1 is gpos30, 1p11.1 is the centromere and 1q32.1 is gneg
+        assertEquals(IdeogramTrack.bandColour("gpos30").getRGB(), ringColour(image, layout, 0, 77_000_000, radius));
+        assertEquals(IdeogramTrack.bandColour("acen").getRGB(), ringColour(image, layout, 0, 123_000_000, radius));
+        assertEquals(Color.WHITE.getRGB(), ringColour(image, layout, 0, 203_000_000, radius));
+
+        assertEquals(new Color(179, 179, 179), IdeogramTrack.bandColour("gpos30"));
+        assertEquals(Color.BLACK, IdeogramTrack.bandColour("gpos100"));
+    }
+
+    private static int ringColour(final BufferedImage image, final CircosLayout layout, int chrIndex, int position, double radius)
+    {
+        double angle = layout.angle(chrIndex, position);
+        int x = (int)Math.round(image.getWidth() / 2.0 + radius * Math.sin(angle));
+        int y = (int)Math.round(image.getHeight() / 2.0 - radius * Math.cos(angle));
+        return image.getRGB(x, y);
+    }
+
+    @Test
+    public void testRenderingPerformance()
+    {
+        // a large synthetic sample drawn at full circos resolution
+        CircosLayout layout = CircosLayout.fromRefGenome(RefGenomeVersion.V38, true);
+        CircosPlot plot = new CircosPlot(layout, 50);
+        plot.setRasterGlyphs(true);
+
+        IdeogramTrack ideogram = new IdeogramTrack();
+        ideogram.addCytoBands(layout, RefGenomeVersion.V38);
+        plot.addTrack(ideogram);
+
+        Random random = new Random(0);
+        Color[] colours = { Color.RED, Color.GREEN, Color.BLUE, Color.BLACK, Color.ORANGE, Color.GRAY };
+
+        ScatterTrack scatter = new ScatterTrack(0.775, 0.975, 0, 1);
+        scatter.setBackground(new Color(230, 230, 250));
+        scatter.setAxes(Color.LIGHT_GRAY, 1, 0.25);
+
+        for(int i = 0; i < 500_000; ++i)
+        {
+            int chrIndex = random.nextInt(layout.chromosomeCount());
+
+            scatter.add(chrIndex, random.nextInt(layout.length(chrIndex)), random.nextDouble(),
+                    colours[random.nextInt(colours.length)], 8);
+        }
+
+        plot.addTrack(scatter);
+
+        LinkTrack links = new LinkTrack(0.35, 0.1, 2);
+
+        for(int i = 0; i < 5_000; ++i)
+        {
+            int startIndex = random.nextInt(layout.chromosomeCount());
+            int endIndex = random.nextInt(layout.chromosomeCount());
+
+            links.add(startIndex, random.nextInt(layout.length(startIndex)), endIndex, random.nextInt(layout.length(endIndex)),
+                    colours[random.nextInt(colours.length)]);
+        }
+
+        plot.addTrack(links);
+
+        assertEquals(500_000, scatter.count());
+        assertEquals(5_000, links.count());
+
+        // the first render warms up the JIT and Java2D pipelines
+        renderFullSize(plot);
+
+        long startTime = System.nanoTime();
+        renderFullSize(plot);
+
+        LOGGER.info("circos render: points({}) links({}) time({}ms)",
+                scatter.count(), links.count(), (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private static void renderFullSize(final CircosPlot plot)
+    {
+        int size = (int)CircosPlot.CIRCOS_IMAGE_SIZE;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D graphics = image.createGraphics();
+        plot.draw(graphics, size, size);
+        graphics.dispose();
+    }
+}
@@ -0,0 +1,70 @@
+package com.hartwig.hmftools.common.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.BaseRegion;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+public class ImmutableIntervalTreeTest
+{
+    @Test
+    public void testOverlappingIntervals()
+    {
+        List<Pair<BaseRegion,Integer>> entries = Lists.newArrayList(
+                Pair.of(new BaseRegion(100, 200), 0),
+                Pair.of(new BaseRegion(150, 160), 1),
+                Pair.of(new BaseRegion(300, 400), 2),
+                Pair.of(new BaseRegion(50, 500), 3));
+
+        ImmutableIntervalTree<Integer> tree = new ImmutableIntervalTree<>(entries);
+
+        assertEquals(Set.of(0, 3), values(tree.overlappingIntervals(200, 250)));
+        assertEquals(Set.of(0, 1, 3), values(tree.overlappingIntervals(160, 160)));
+        assertEquals(Set.of(2, 3), values(tree.overlappingIntervals(201, 300)));
+        assertTrue(tree.overlappingIntervals(501, 600).isEmpty());
+        assertTrue(tree.overlappingIntervals(10, 49).isEmpty());
+
+        assertTrue(new ImmutableIntervalTree<Integer>(Lists.newArrayList()).overlappingIntervals(1, 100).isEmpty());
+
+        // compare with a brute-force search over random intervals
+        Random random = new Random(1);
+        entries.clear();
+
+        for(int i = 0; i < 500; ++i)
+        {
+            int start = random.nextInt(10000);
+            entries.add(Pair.of(new BaseRegion(start, start + random.nextInt(300)), i));
+        }
+
+        tree = new ImmutableIntervalTree<>(entries);
+
+        for(int i = 0; i < 200; ++i)
+        {
+            int queryStart = random.nextInt(10500);
+            int queryEnd = queryStart + random.nextInt(100);
+
+            List<Pair<BaseRegion,Integer>> results = tree.overlappingIntervals(queryStart, queryEnd);
+
+            Set<Integer> expected = entries.stream()
+                    .filter(x -> x.getKey().overlaps(new BaseRegion(queryStart, queryEnd)))
+                    .map(Pair::getValue).collect(Collectors.toSet());
+
+            assertEquals(expected.size(), results.size());
+            assertEquals(expected, values(results));
+        }
+    }
+
+    private static Set<Integer> values(final List<Pair<BaseRegion,Integer>> entries)
+    {
+        return entries.stream().map(Pair::getValue).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,176 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataBinaryFile.ENSEMBL_DATA_BINARY_FILE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import com.hartwig.hmftools.common.gene.ExonData;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.gene.TranscriptProteinData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.junit.Test;
+
+public class EnsemblDataBinaryFileTest
+{
+    private static final String ENSEMBL_DIR = Resources.getResource("ensembl").getPath() + File.separator;
+
+    @Test
+    public void testBinaryMatchesCsvLoad() throws IOException
+    {
+        File binaryDir = Files.createTempDirectory("ensembl_binary").toFile();
+        binaryDir.deleteOnExit();
+        String binaryPath = binaryDir.getPath() + File.separator;
+
+        EnsemblDataCache csvCache = createCache(ENSEMBL_DIR, true, true, false);
+        assertTrue(csvCache.load(false));
+        assertTrue(EnsemblDataBinaryFile.write(binaryPath, csvCache));
+        new File(binaryPath + ENSEMBL_DATA_BINARY_FILE).deleteOnExit();
+
+        assertNotNull(EnsemblDataBinaryFile.open(binaryPath));
+
+        // compare each combination of load settings
+        for(boolean requireExons : new boolean[] { true, false })
+        {
+            for(boolean canonicalOnly : new boolean[] { true, false })
+            {
+                for(boolean nonEnsembl : new boolean[] { true, false })
+                {
+                    EnsemblDataCache expected = createCache(ENSEMBL_DIR, requireExons, nonEnsembl, canonicalOnly);
+                    EnsemblDataCache actual = createCache(binaryPath, requireExons, nonEnsembl, canonicalOnly);
+                    assertTrue(expected.load(false));
+                    assertTrue(actual.load(false));
+                    assertCachesMatch(expected, actual);
+                }
+            }
+        }
+
+        // restricted to genes, with transcript loading delayed
+        List<String> restrictedGeneIds = Lists.newArrayList("ENSG002");
+
+        EnsemblDataCache expected = createCache(ENSEMBL_DIR, true, false, false);
+        EnsemblDataCache actual = createCache(binaryPath, true, false, false);
+        expected.setRestrictedGeneIdList(restrictedGeneIds);
+        actual.setRestrictedGeneIdList(restrictedGeneIds);
+        assertTrue(expected.load(true));
+        assertTrue(actual.load(true));
+        assertTrue(expected.loadTranscriptData(restrictedGeneIds));
+        assertTrue(actual.loadTranscriptData(restrictedGeneIds));
+        assertCachesMatch(expected, actual);
+        assertEquals(1, actual.getTranscriptProteinDataMap().size());
+        assertEquals(1, actual.getTransSpliceAcceptorPosDataMap().size());
+    }
+
+    @Test
+    public void testStaleBinaryFileIgnored() throws IOException
+    {
+        File binaryDir = Files.createTempDirectory("ensembl_binary").toFile();
+        binaryDir.deleteOnExit();
+        String binaryPath = binaryDir.getPath() + File.separator;
+
+        EnsemblDataCache csvCache = createCache(ENSEMBL_DIR, true, true, false);
+        assertTrue(csvCache.load(false));
+        assertTrue(EnsemblDataBinaryFile.write(binaryPath, csvCache));
+        new File(binaryPath + ENSEMBL_DATA_BINARY_FILE).deleteOnExit();
+
+        // a gene data file differing from the one the snapshot was formed from
+        File geneFile = new File(binaryPath + EnsemblDataLoader.ENSEMBL_GENE_DATA_FILE);
+        Files.write(geneFile.toPath(), "GeneId,GeneName,Chromosome,Strand,GeneStart,GeneEnd,KaryotypeBand,Synonyms\n".getBytes());
+        geneFile.deleteOnExit();
+
+        assertNull(EnsemblDataBinaryFile.open(binaryPath));
+    }
+
+    private static EnsemblDataCache createCache(final String dataPath, boolean requireExons, boolean nonEnsembl, boolean canonicalOnly)
+    {
+        EnsemblDataCache ensemblDataCache = new EnsemblDataCache(dataPath, RefGenomeVersion.V37);
+        ensemblDataCache.setRequiredData(requireExons, true, true, canonicalOnly);
+        ensemblDataCache.setRequireGeneSynonyms();
+
+        if(nonEnsembl)
+            ensemblDataCache.setRequireNonEnsemblTranscripts();
+
+        return ensemblDataCache;
+    }
+
+    private static void assertCachesMatch(final EnsemblDataCache expected, final EnsemblDataCache actual)
+    {
+        assertEquals(expected.getChrGeneDataMap().keySet(), actual.getChrGeneDataMap().keySet());
+
+        for(Map.Entry<String,List<GeneData>> entry : expected.getChrGeneDataMap().entrySet())
+        {
+            List<GeneData> actualGenes = actual.getChrGeneDataMap().get(entry.getKey());
+            assertEquals(entry.getValue().size(), actualGenes.size());
+
+            for(int i = 0; i < actualGenes.size(); ++i)
+            {
+                GeneData expectedGene = entry.getValue().get(i);
+                GeneData actualGene = actualGenes.get(i);
+                assertEquals(expectedGene.toString(), actualGene.toString());
+                assertEquals(expectedGene.KaryotypeBand, actualGene.KaryotypeBand);
+                assertEquals(expectedGene.getSynonyms(), actualGene.getSynonyms());
+            }
+        }
+
+        assertEquals(expected.getTranscriptDataMap().keySet(), actual.getTranscriptDataMap().keySet());
+
+        for(Map.Entry<String,List<TranscriptData>> entry : expected.getTranscriptDataMap().entrySet())
+        {
+            List<TranscriptData> actualTranscripts = actual.getTranscriptDataMap().get(entry.getKey());
+            assertEquals(entry.getValue().size(), actualTranscripts.size());
+
+            for(int i = 0; i < actualTranscripts.size(); ++i)
+            {
+                TranscriptData expectedTrans = entry.getValue().get(i);
+                TranscriptData actualTrans = actualTranscripts.get(i);
+                assertEquals(expectedTrans.toString(), actualTrans.toString());
+                assertEquals(expectedTrans.IsCanonical, actualTrans.IsCanonical);
+                assertEquals(expectedTrans.CodingStart, actualTrans.CodingStart);
+                assertEquals(expectedTrans.CodingEnd, actualTrans.CodingEnd);
+                assertEquals(expectedTrans.BioType, actualTrans.BioType);
+                assertEquals(expectedTrans.exons().size(), actualTrans.exons().size());
+
+                for(int e = 0; e < actualTrans.exons().size(); ++e)
+                {
+                    ExonData expectedExon = expectedTrans.exons().get(e);
+                    ExonData actualExon = actualTrans.exons().get(e);
+                    assertEquals(expectedExon.TransId, actualExon.TransId);
+                    assertEquals(expectedExon.Start, actualExon.Start);
+                    assertEquals(expectedExon.End, actualExon.End);
+                    assertEquals(expectedExon.Rank, actualExon.Rank);
+                    assertEquals(expectedExon.PhaseStart, actualExon.PhaseStart);
+                    assertEquals(expectedExon.PhaseEnd, actualExon.PhaseEnd);
+                }
+            }
+        }
+
+        assertEquals(expected.getTranscriptProteinDataMap().keySet(), actual.getTranscriptProteinDataMap().keySet());
+
+        for(Map.Entry<Integer,List<TranscriptProteinData>> entry : expected.getTranscriptProteinDataMap().entrySet())
+        {
+            List<TranscriptProteinData> actualFeatures = actual.getTranscriptProteinDataMap().get(entry.getKey());
+            assertEquals(entry.getValue().size(), actualFeatures.size());
+
+            for(int i = 0; i < actualFeatures.size(); ++i)
+            {
+                assertEquals(entry.getValue().get(i).ProteinFeatureId, actualFeatures.get(i).ProteinFeatureId);
+                assertEquals(entry.getValue().get(i).SeqStart, actualFeatures.get(i).SeqStart);
+                assertEquals(entry.getValue().get(i).HitDescription, actualFeatures.get(i).HitDescription);
+            }
+        }
+
+        assertEquals(expected.getTransSpliceAcceptorPosDataMap(), actual.getTransSpliceAcceptorPosDataMap());
+    }
+}
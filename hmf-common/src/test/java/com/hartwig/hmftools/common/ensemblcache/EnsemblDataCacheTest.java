@@ -0,0 +1,88 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static com.hartwig.hmftools.common.fusion.FusionCommon.NEG_STRAND;
+import static com.hartwig.hmftools.common.fusion.FusionCommon.POS_STRAND;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_ID_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_ID_2;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_ID_3;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_NAME_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_NAME_2;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.GENE_NAME_3;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addTransExonData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createEnsemblGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createGeneDataCache;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createTransExons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+
+import org.junit.Test;
+
+public class EnsemblDataCacheTest
+{
+    @Test
+    public void testRegionLookups()
+    {
+        EnsemblDataCache geneTransCache = createGeneDataCache();
+
+        List<GeneData> geneList = Lists.newArrayList(
+                createEnsemblGeneData(GENE_ID_1, GENE_NAME_1, CHR_1, POS_STRAND, 10000, 12000),
+                createEnsemblGeneData(GENE_ID_2, GENE_NAME_2, CHR_1, NEG_STRAND, 11000, 20000),
+                createEnsemblGeneData(GENE_ID_3, GENE_NAME_3, CHR_1, POS_STRAND, 30000, 31000));
+
+        addGeneData(geneTransCache, CHR_1, geneList);
+
+        addTransExonData(geneTransCache, GENE_ID_1, Lists.newArrayList(
+                createTransExons(GENE_ID_1, 1, POS_STRAND, new int[] {10000, 11500}, 500, null, null, true, "")));
+
+        addTransExonData(geneTransCache, GENE_ID_2, Lists.newArrayList(
+                createTransExons(GENE_ID_2, 2, NEG_STRAND, new int[] {11000, 19500}, 500, null, null, true, "")));
+
+        // upstream distance applies before a positive-strand gene and after a negative-strand one
+        List<GeneData> genes = geneTransCache.findGeneRegions(CHR_1, 9500, 1000);
+        assertEquals(1, genes.size());
+        assertEquals(GENE_ID_1, genes.get(0).GeneId);
+
+        genes = geneTransCache.findGeneRegions(CHR_1, 20500, 1000);
+        assertEquals(1, genes.size());
+        assertEquals(GENE_ID_2, genes.get(0).GeneId);
+
+        assertTrue(geneTransCache.findGeneRegions(CHR_1, 10500, 0).stream().anyMatch(x -> x.GeneId.equals(GENE_ID_1)));
+        assertTrue(geneTransCache.findGeneRegions(CHR_1, 9500, 0).isEmpty());
+        assertTrue(geneTransCache.findGeneRegions(CHR_1, 20500, 0).isEmpty());
+
+        // results keep the order of the chromosome's gene list
+        genes = geneTransCache.findGeneRegions(CHR_1, 11800, 0);
+        assertEquals(2, genes.size());
+        assertEquals(GENE_ID_1, genes.get(0).GeneId);
+        assertEquals(GENE_ID_2, genes.get(1).GeneId);
+
+        // genes with a transcript wholly within the region
+        genes = geneTransCache.findGenesByRegion(CHR_1, 9000, 15000);
+        assertEquals(1, genes.size());
+        assertEquals(GENE_ID_1, genes.get(0).GeneId);
+
+        genes = geneTransCache.findGenesByRegion(CHR_1, 9000, 35000);
+        assertEquals(2, genes.size());
+
+        assertTrue(geneTransCache.findGenesByRegion(CHR_2, 9000, 35000).isEmpty());
+
+        List<TranscriptData> transcripts = geneTransCache.findOverlappingTranscripts(CHR_1, 19000, 19100);
+        assertEquals(1, transcripts.size());
+        assertEquals(GENE_ID_2, transcripts.get(0).GeneId);
+
+        // the index is refreshed when the chromosome's genes are replaced
+        addGeneData(geneTransCache, CHR_1, Lists.newArrayList(geneList.get(2)));
+        assertTrue(geneTransCache.findGeneRegions(CHR_1, 11800, 0).isEmpty());
+        assertEquals(1, geneTransCache.findOverlappingGenes(CHR_1, 30500, 30500).size());
+    }
+}
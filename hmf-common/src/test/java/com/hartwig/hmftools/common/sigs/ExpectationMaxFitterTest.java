@@ -0,0 +1,124 @@
+package com.hartwig.hmftools.common.sigs;
+
+import static com.hartwig.hmftools.common.sigs.SigUtils.calcResiduals;
+import static com.hartwig.hmftools.common.sigs.SigUtils.calculateFittedCounts;
+import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.hartwig.hmftools.common.utils.Matrix;
+
+import org.junit.Test;
+
+public class ExpectationMaxFitterTest
+{
+    @Test
+    public void testMatchesStandardFit()
+    {
+        Matrix definitions = new Matrix(3, 2);
+        definitions.setCol(0, new double[] {0.2, 0.8, 0});
+        definitions.setCol(1, new double[] {0.4, 0, 0.6});
+
+        double[] counts = {5, 4, 7};
+
+        double[] expected = ExpectationMaxFit.performFit(counts, definitions);
+
+        ExpectationMaxFitter fitter = new ExpectationMaxFitter(false);
+        double[] allocations = new double[2];
+        fitter.fit(counts, definitions, allocations);
+
+        assertEquals(expected[0], allocations[0], 1e-12);
+        assertEquals(expected[1], allocations[1], 1e-12);
+
+        SigResiduals residuals = calcResiduals(counts, calculateFittedCounts(definitions, allocations), sumVector(counts));
+        assertEquals(residuals.Total, fitter.residualsTotal(), 1e-9);
+
+        // the same fitter is reused for a larger fit
+        Matrix largerDefinitions = createDefinitions(6, 4);
+        double[] largerCounts = {10, 30, 5, 0, 22, 14};
+
+        expected = ExpectationMaxFit.performFit(largerCounts, largerDefinitions);
+        allocations = new double[4];
+        fitter.fit(largerCounts, largerDefinitions, allocations);
+
+        for(int i = 0; i < allocations.length; ++i)
+        {
+            assertEquals(expected[i], allocations[i], 1e-12);
+        }
+
+        // and then a smaller one again
+        expected = ExpectationMaxFit.performFit(counts, definitions);
+        allocations = new double[2];
+        fitter.fit(counts, definitions, allocations);
+
+        assertEquals(expected[0], allocations[0], 1e-12);
+        assertEquals(expected[1], allocations[1], 1e-12);
+    }
+
+    @Test
+    public void testAcceleratedFit()
+    {
+        Matrix definitions = createDefinitions(8, 5);
+        double[] counts = new double[8];
+
+        // counts generated from known allocations
+        double[] actualAllocations = {100, 0, 250, 40, 10};
+
+        for(int defId = 0; defId < actualAllocations.length; ++defId)
+        {
+            for(int catId = 0; catId < counts.length; ++catId)
+            {
+                counts[catId] += actualAllocations[defId] * definitions.get(catId, defId);
+            }
+        }
+
+        int maxIterations = 200;
+        ExpectationMaxFitter standardFitter = new ExpectationMaxFitter(false, 0.0001, maxIterations);
+        double[] standardAllocations = new double[5];
+        standardFitter.fit(counts, definitions, standardAllocations);
+
+        ExpectationMaxFitter acceleratedFitter = new ExpectationMaxFitter(true, 0.0001, maxIterations);
+        double[] acceleratedAllocations = new double[5];
+        acceleratedFitter.fit(counts, definitions, acceleratedAllocations);
+
+        assertTrue(acceleratedFitter.residualsPercent() < 0.0001);
+        assertTrue(acceleratedFitter.iterations() <= standardFitter.iterations());
+        assertEquals(sumVector(counts), sumVector(acceleratedAllocations), 0.5);
+
+        for(double allocation : acceleratedAllocations)
+        {
+            assertTrue(allocation >= 0);
+        }
+    }
+
+    private static Matrix createDefinitions(int categoryCount, int definitionCount)
+    {
+        // overlapping definitions with each category supported by one or two definitions
+        Matrix definitions = new Matrix(categoryCount, definitionCount);
+
+        for(int defId = 0; defId < definitionCount; ++defId)
+        {
+            double[] ratios = new double[categoryCount];
+            double total = 0;
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                if(catId % definitionCount == defId || (catId + 1) % definitionCount == defId)
+                {
+                    ratios[catId] = 1 + catId + defId;
+                    total += ratios[catId];
+                }
+            }
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                ratios[catId] /= total;
+            }
+
+            definitions.setCol(defId, ratios);
+        }
+
+        return definitions;
+    }
+}
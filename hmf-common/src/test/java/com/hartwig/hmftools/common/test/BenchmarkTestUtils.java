@@ -0,0 +1,69 @@
+package com.hartwig.hmftools.common.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+
+// temporary output directories and heap measurement for file and benchmark tests
+public final class BenchmarkTestUtils
+{
+    public static File createTempDir(final String prefix) throws IOException
+    {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    public static void deleteDir(final File dir)
+    {
+        File[] files = dir.listFiles();
+
+        if(files != null)
+        {
+            for(File file : files)
+            {
+                if(file.isDirectory())
+                    deleteDir(file);
+                else
+                    file.delete();
+            }
+        }
+
+        dir.delete();
+    }
+
+    // heap in use once garbage has been collected
+    public static long usedHeap()
+    {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(x -> x.getType() == MemoryType.HEAP).mapToLong(x -> x.getUsage().getUsed()).sum();
+    }
+
+    // starts a peak heap measurement, returning the heap in use at its start
+    public static long resetPeakHeap()
+    {
+        System.gc();
+
+        long usedHeap = 0;
+
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if(pool.getType() == MemoryType.HEAP)
+            {
+                pool.resetPeakUsage();
+                usedHeap += pool.getUsage().getUsed();
+            }
+        }
+
+        return usedHeap;
+    }
+
+    public static long peakHeap()
+    {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(x -> x.getType() == MemoryType.HEAP).mapToLong(x -> x.getPeakUsage().getUsed()).sum();
+    }
+}
@@ -63,8 +63,10 @@ public class ChromosomeTaskExecutor implements Callable
     private final ExpectedCountsCache mExpectedCountsCache;
 
     private final List<GeneData> mGeneDataList;
+    private final GeneTaskRange mTaskRange;
     private int mCollectionId;
     private int mCurrentGeneIndex;
+    private int mLastGeneCollectionEnd;
     private int mGenesProcessed;
 
     // fusion state cached across all gene collections
@@ -80,6 +82,7 @@ public class ChromosomeTaskExecutor implements Callable
 
     private TaskType mCurrentTaskType;
     private boolean mIsValid;
+    private long mTaskTimeMs;
 
     private final PerformanceCounter[] mPerfCounters;
 
@@ -87,6 +90,15 @@ public class ChromosomeTaskExecutor implements Callable
             final IsofoxConfig config, final String chromosome, final List<GeneData> geneDataList,
             final EnsemblDataCache geneTransCache, final ResultsWriter resultsWriter, final FusionTaskManager fusionManager,
             final ExpectedCountsCache expectedCountsCache, final GcTranscriptCalculator transcriptGcCalcs)
+    {
+        this(config, chromosome, geneDataList, GeneTaskRange.wholeChromosome(geneDataList), geneTransCache, resultsWriter,
+                fusionManager, expectedCountsCache, transcriptGcCalcs);
+    }
+
+    public ChromosomeTaskExecutor(
+            final IsofoxConfig config, final String chromosome, final List<GeneData> geneDataList, final GeneTaskRange taskRange,
+            final EnsemblDataCache geneTransCache, final ResultsWriter resultsWriter, final FusionTaskManager fusionManager,
+            final ExpectedCountsCache expectedCountsCache, final GcTranscriptCalculator transcriptGcCalcs)
     {
         mConfig = config;
         mChromosome = chromosome;
@@ -94,9 +106,12 @@ public class ChromosomeTaskExecutor implements Callable
         mResultsWriter = resultsWriter;
 
         mGeneDataList = geneDataList;
-        mCollectionId = 0;
+        mTaskRange = taskRange;
+        mCollectionId = taskRange.CollectionIdStart;
+        mTaskTimeMs = 0;
 
-        mCurrentGeneIndex = 0;
+        mCurrentGeneIndex = taskRange.GeneStartIndex;
+        mLastGeneCollectionEnd = taskRange.PriorCollectionEnd;
         mCurrentTaskType = null;
 
         mExpectedCountsCache = expectedCountsCache;
@@ -117,12 +132,29 @@ public class ChromosomeTaskExecutor implements Callable
         mPerfCounters = PerformanceTracking.createPerfCounters();
 
         mChromosomeFusions = mConfig.runFunction(FUSIONS) ? new ChromosomeFusions(
-                        config, chromosome, fusionManager, mBamFragmentAllocator.getChimericReadTracker(),mPerfCounters[PERF_FUSIONS]) : null;
+                        config, chromosome, taskRange, fusionManager, mBamFragmentAllocator.getChimericReadTracker(),
+                        mPerfCounters[PERF_FUSIONS]) : null;
+
+        // reads from the prior task range may be spanning chimeric reads whose groups are completed in this range
+        if(mChromosomeFusions != null && !taskRange.isFirst())
+        {
+            mBamFragmentAllocator.getChimericReadTracker().setPriorTaskBounds(
+                    taskRange.PriorCollectionEnd, geneDataList.get(taskRange.GeneStartIndex).GeneStart);
+        }
 
         mIsValid = true;
     }
 
     public String chromosome() { return mChromosome; }
+    public GeneTaskRange taskRange() { return mTaskRange; }
+    public long taskTimeMs() { return mTaskTimeMs; }
+
+    public String taskId()
+    {
+        return mTaskRange.geneCount() == mGeneDataList.size()
+                ? mChromosome : String.format("%s_%d-%d", mChromosome, mTaskRange.GeneStartIndex, mTaskRange.GeneEndIndex - 1);
+    }
+
     public final List<GeneCollectionSummary> getGeneCollectionSummaryData() { return mGeneCollectionSummaryData; }
     public final GcRatioCounts getGcRatioCounts() { return mGcRatioCounts; }
 
@@ -141,6 +173,8 @@ public class ChromosomeTaskExecutor implements Callable
             return (long)0;
         }
 
+        long startTimeMs = System.currentTimeMillis();
+
         switch(mCurrentTaskType)
         {
             case TRANSCRIPT_COUNTS:
@@ -155,71 +189,28 @@ public class ChromosomeTaskExecutor implements Callable
                 break;
         }
 
+        mTaskTimeMs = System.currentTimeMillis() - startTimeMs;
+
         return (long)1; // return value not used
     }
 
     public void assignTranscriptCounts()
     {
-        if(mGeneDataList.size() > 10)
+        int taskGeneCount = mTaskRange.geneCount();
+
+        if(taskGeneCount > 10)
         {
-            ISF_LOGGER.info("chr({}) processing {} genes", mChromosome, mGeneDataList.size());
+            ISF_LOGGER.info("chr({}) processing {} genes", taskId(), taskGeneCount);
         }
 
-        mCurrentGeneIndex = 0;
-        final List<GeneData> overlappingGenes = Lists.newArrayList();
+        mCurrentGeneIndex = mTaskRange.GeneStartIndex;
+        mLastGeneCollectionEnd = mTaskRange.PriorCollectionEnd;
         int nextLogCount = 100;
-        int lastGeneCollectionEndPosition = 1;
 
-        boolean genesFiltered = !mConfig.Filters.RestrictedGeneIds.isEmpty() || mConfig.Filters.SpecificChrRegions.hasFilters();
-
-        while(mCurrentGeneIndex < mGeneDataList.size())
+        // a task range ends on a gene collection boundary, and the next gene is still taken from the whole chromosome
+        while(hasNextGeneCollection())
         {
-            mCurrentGeneIndex = findNextOverlappingGenes(mGeneDataList, mCurrentGeneIndex, overlappingGenes);
-
-            final List<GeneReadData> geneReadDataList = createGeneReadData(overlappingGenes, mGeneTransCache);
-
-            GeneCollection geneCollection = new GeneCollection(mCollectionId++, geneReadDataList);
-            geneCollection.markEnrichedAndExcludedGenes(mConfig, mGeneTransCache);
-
-            if(!genesFiltered) // reads will be taken from the previous gene collection's end
-            {
-                geneCollection.setNonGenicPosition(SE_START, lastGeneCollectionEndPosition);
-
-                if(mCurrentGeneIndex < mGeneDataList.size())
-                {
-                    final GeneData nextGeneData = mGeneDataList.get(mCurrentGeneIndex);
-                    geneCollection.setNonGenicPosition(SE_END, nextGeneData.GeneStart - 1);
-                }
-                else
-                {
-                    int endOfChromosome = (int)getChromosomeLength(mChromosome, mConfig.RefGenVersion);
-                    int endNonGenicPosition = max(geneCollection.getNonGenicPositions()[SE_START] + 1, endOfChromosome - 1000);
-                    geneCollection.setNonGenicPosition(SE_END, endNonGenicPosition);
-                    geneCollection.setEndOfChromosome();
-                }
-            }
-            else
-            {
-                // the buffer is to be able to test out pre and post gene region reads
-                if(lastGeneCollectionEndPosition == 1)
-                {
-                    geneCollection.setNonGenicPosition(SE_START, geneCollection.regionBounds()[SE_START] - 10000);
-                }
-                else
-                {
-                    geneCollection.setNonGenicPosition(SE_START, lastGeneCollectionEndPosition);
-                }
-
-                if(mCurrentGeneIndex < mGeneDataList.size())
-                {
-                    final GeneData nextGeneData = mGeneDataList.get(mCurrentGeneIndex);
-                    geneCollection.setNonGenicPosition(SE_END, nextGeneData.GeneStart - 1);
-                }
-                else
-                {
-                    geneCollection.setNonGenicPosition(SE_END, geneCollection.regionBounds()[SE_END] + 10000);
-                }
-            }
+            GeneCollection geneCollection = nextGeneCollection();
 
             mPerfCounters[PERF_TOTAL].start();
 
@@ -228,29 +219,93 @@ public class ChromosomeTaskExecutor implements Callable
             mPerfCounters[PERF_TOTAL].stop();
 
             ISF_LOGGER.debug("chr({}) gene({}) processed({} of {})",
-                    mChromosome, geneCollection.geneNames(10), mCurrentGeneIndex, mGeneDataList.size());
+                    taskId(), geneCollection.geneNames(10), mCurrentGeneIndex - mTaskRange.GeneStartIndex, taskGeneCount);
 
             mGenesProcessed += geneCollection.genes().size();
             mTotalReadsProcessed = mBamFragmentAllocator.totalReadCount();
 
-            lastGeneCollectionEndPosition = geneCollection.regionBounds()[SE_END] + 1;
-
             if(mGenesProcessed >= nextLogCount)
             {
                 nextLogCount += 100;
-                ISF_LOGGER.info("chr({}) processed {} of {} genes", mChromosome, mGenesProcessed, mGeneDataList.size());
+                ISF_LOGGER.info("chr({}) processed {} of {} genes", taskId(), mGenesProcessed, taskGeneCount);
             }
         }
 
         if(mChromosomeFusions != null)
-            mChromosomeFusions.onChromosomeComplete();
+            mChromosomeFusions.onTaskComplete();
 
-        if(mGeneDataList.size() > 10)
+        if(taskGeneCount > 10)
         {
-            ISF_LOGGER.info("chr({}) processing complete", mChromosome);
+            ISF_LOGGER.info("chr({}) processing complete", taskId());
         }
     }
 
+    public boolean hasNextGeneCollection() { return mCurrentGeneIndex < mTaskRange.GeneEndIndex; }
+
+    // form the next gene collection in the task range, with the positions of its non-genic reads
+    public GeneCollection nextGeneCollection()
+    {
+        final List<GeneData> overlappingGenes = Lists.newArrayList();
+        mCurrentGeneIndex = findNextOverlappingGenes(mGeneDataList, mCurrentGeneIndex, overlappingGenes);
+
+        final List<GeneReadData> geneReadDataList = createGeneReadData(overlappingGenes, mGeneTransCache);
+
+        GeneCollection geneCollection = new GeneCollection(mCollectionId++, geneReadDataList);
+        geneCollection.markEnrichedAndExcludedGenes(mConfig, mGeneTransCache);
+
+        boolean genesFiltered = !mConfig.Filters.RestrictedGeneIds.isEmpty() || mConfig.Filters.SpecificChrRegions.hasFilters();
+
+        if(!genesFiltered) // reads will be taken from the previous gene collection's end
+        {
+            geneCollection.setNonGenicPosition(SE_START, mLastGeneCollectionEnd);
+
+            if(mCurrentGeneIndex < mGeneDataList.size())
+            {
+                final GeneData nextGeneData = mGeneDataList.get(mCurrentGeneIndex);
+                geneCollection.setNonGenicPosition(SE_END, nextGeneData.GeneStart - 1);
+            }
+            else
+            {
+                int endOfChromosome = (int)getChromosomeLength(mChromosome, mConfig.RefGenVersion);
+                int endNonGenicPosition = max(geneCollection.getNonGenicPositions()[SE_START] + 1, endOfChromosome - 1000);
+                geneCollection.setNonGenicPosition(SE_END, endNonGenicPosition);
+                geneCollection.setEndOfChromosome();
+            }
+        }
+        else
+        {
+            // the buffer is to be able to test out pre and post gene region reads
+            if(mCurrentGeneIndex - overlappingGenes.size() == 0)
+            {
+                geneCollection.setNonGenicPosition(SE_START, geneCollection.regionBounds()[SE_START] - 10000);
+            }
+            else
+            {
+                geneCollection.setNonGenicPosition(SE_START, mLastGeneCollectionEnd);
+            }
+
+            if(mCurrentGeneIndex < mGeneDataList.size())
+            {
+                final GeneData nextGeneData = mGeneDataList.get(mCurrentGeneIndex);
+                geneCollection.setNonGenicPosition(SE_END, nextGeneData.GeneStart - 1);
+            }
+            else
+            {
+                geneCollection.setNonGenicPosition(SE_END, geneCollection.regionBounds()[SE_END] + 10000);
+            }
+        }
+
+        mLastGeneCollectionEnd = collectionEndPosition(geneCollection);
+
+        return geneCollection;
+    }
+
+    // the next gene collection's non-genic reads start after this collection's transcripts, which can extend past its genes
+    public static int collectionEndPosition(final GeneCollection geneCollection)
+    {
+        return geneCollection.regionBounds()[SE_END] + 1;
+    }
+
     public static int findNextOverlappingGenes(
             final List<GeneData> geneDataList, int currentIndex, final List<GeneData> overlappingGenes)
     {
@@ -261,7 +261,12 @@ public class FragmentAllocator
         // to avoid double-processing of reads overlapping 2 (or more) gene collections, only process them if they start in this
         // gene collection or its preceding non-genic region
         if(!positionWithin(record.getStart(), mValidReadStartRegion[SE_START], mValidReadStartRegion[SE_END]))
+        {
+            if(mChimericReads.isPriorTaskRead(record.getStart(), record.getEnd()))
+                mChimericReads.addPriorTaskRead(ReadRecord.from(record));
+
             return;
+        }
 
         if(inExcludedRegion(record))
             return;
@@ -0,0 +1,87 @@
+package com.hartwig.hmftools.isofox;
+
+import static com.hartwig.hmftools.isofox.ChromosomeTaskExecutor.collectionEndPosition;
+import static com.hartwig.hmftools.isofox.ChromosomeTaskExecutor.findNextOverlappingGenes;
+import static com.hartwig.hmftools.isofox.common.GeneReadData.createGeneReadData;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.isofox.common.GeneCollection;
+
+public class GeneTaskRange
+{
+    // a range of a chromosome's genes processed by a single task, always starting and ending on a gene collection boundary
+    public final int GeneStartIndex;
+    public final int GeneEndIndex; // exclusive
+    public final int CollectionIdStart; // so gene collection IDs match those from processing the whole chromosome
+    public final int PriorCollectionEnd; // end position of the previous range's last gene collection, or 1 for the first range
+
+    public GeneTaskRange(int geneStartIndex, int geneEndIndex, int collectionIdStart, int priorCollectionEnd)
+    {
+        GeneStartIndex = geneStartIndex;
+        GeneEndIndex = geneEndIndex;
+        CollectionIdStart = collectionIdStart;
+        PriorCollectionEnd = priorCollectionEnd;
+    }
+
+    public int geneCount() { return GeneEndIndex - GeneStartIndex; }
+    public boolean isFirst() { return GeneStartIndex == 0; }
+
+    public static GeneTaskRange wholeChromosome(final List<GeneData> geneDataList)
+    {
+        return new GeneTaskRange(0, geneDataList.size(), 0, 1);
+    }
+
+    public static List<GeneTaskRange> formGeneTaskRanges(
+            final List<GeneData> geneDataList, final EnsemblDataCache geneTransCache, int targetGeneCount)
+    {
+        List<GeneTaskRange> taskRanges = Lists.newArrayList();
+
+        if(targetGeneCount <= 0 || geneDataList.size() <= targetGeneCount)
+        {
+            taskRanges.add(wholeChromosome(geneDataList));
+            return taskRanges;
+        }
+
+        final List<GeneData> overlappingGenes = Lists.newArrayList();
+
+        int currentIndex = 0;
+        int collectionId = 0;
+        int rangeStartIndex = 0;
+        int rangeCollectionIdStart = 0;
+        int rangePriorCollectionEnd = 1;
+
+        while(currentIndex < geneDataList.size())
+        {
+            currentIndex = findNextOverlappingGenes(geneDataList, currentIndex, overlappingGenes);
+            ++collectionId;
+
+            if(currentIndex >= geneDataList.size())
+            {
+                taskRanges.add(new GeneTaskRange(rangeStartIndex, currentIndex, rangeCollectionIdStart, rangePriorCollectionEnd));
+            }
+            else if(currentIndex - rangeStartIndex >= targetGeneCount)
+            {
+                taskRanges.add(new GeneTaskRange(rangeStartIndex, currentIndex, rangeCollectionIdStart, rangePriorCollectionEnd));
+
+                // the next range's non-genic reads start where the task executor's would after this gene collection,
+                // which is past its transcripts rather than its genes
+                GeneCollection geneCollection = new GeneCollection(collectionId - 1, createGeneReadData(overlappingGenes, geneTransCache));
+
+                rangeStartIndex = currentIndex;
+                rangeCollectionIdStart = collectionId;
+                rangePriorCollectionEnd = collectionEndPosition(geneCollection);
+            }
+        }
+
+        return taskRanges;
+    }
+
+    public String toString()
+    {
+        return String.format("genes(%d-%d) collectionIdStart(%d)", GeneStartIndex, GeneEndIndex - 1, CollectionIdStart);
+    }
+}
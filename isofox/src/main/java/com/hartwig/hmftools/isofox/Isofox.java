@@ -8,6 +8,7 @@ import static com.hartwig.hmftools.common.sigs.SigUtils.convertToPercentages;
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
 import static com.hartwig.hmftools.common.utils.VectorUtils.copyVector;
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
+import static com.hartwig.hmftools.isofox.GeneTaskRange.formGeneTaskRanges;
 import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
 import static com.hartwig.hmftools.isofox.IsofoxConstants.APP_NAME;
 import static com.hartwig.hmftools.isofox.IsofoxConstants.PANEL_LOW_COVERAGE_FACTOR;
@@ -24,6 +25,7 @@ import static com.hartwig.hmftools.isofox.expression.TranscriptExpression.setTra
 import static com.hartwig.hmftools.isofox.results.SummaryStats.createSummaryStats;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -173,19 +175,42 @@ public class Isofox
             if(geneDataList == null)
                 continue;
 
-            ChromosomeTaskExecutor bamReaderTask = new ChromosomeTaskExecutor(
-                    mConfig, chromosome, geneDataList, mGeneTransCache, mResultsWriter,
-                    mFusionTaskManager, mExpectedCountsCache, mGcTranscriptCalcs);
+            List<GeneTaskRange> taskRanges = formGeneTaskRanges(geneDataList, mGeneTransCache, mConfig.TaskGeneCount);
 
-            chrTasks.add(bamReaderTask);
-            callableList.add(bamReaderTask);
+            if(mFusionTaskManager != null)
+                mFusionTaskManager.registerTaskRanges(chromosome, taskRanges);
+
+            for(GeneTaskRange taskRange : taskRanges)
+            {
+                ChromosomeTaskExecutor bamReaderTask = new ChromosomeTaskExecutor(
+                        mConfig, chromosome, geneDataList, taskRange, mGeneTransCache, mResultsWriter,
+                        mFusionTaskManager, mExpectedCountsCache, mGcTranscriptCalcs);
+
+                chrTasks.add(bamReaderTask);
+            }
         }
 
+        // results are collated in chromosome order, but after the prioritised chromosomes, tasks are submitted largest first
+        // so that threads pick up the smaller tasks as they become free
+        List<String> prioritisedChromosomes = PRIORITISED_CHROMOSOMES.stream()
+                .map(x -> mConfig.RefGenVersion.versionedChromosome(x)).collect(Collectors.toList());
+
+        chrTasks.stream().filter(x -> prioritisedChromosomes.contains(x.chromosome())).forEach(x -> callableList.add(x));
+
+        chrTasks.stream()
+                .filter(x -> !prioritisedChromosomes.contains(x.chromosome()))
+                .sorted(Comparator.comparingInt((ChromosomeTaskExecutor x) -> x.taskRange().geneCount()).reversed())
+                .forEach(x -> callableList.add(x));
+
         chrTasks.forEach(x -> x.setTaskType(TRANSCRIPT_COUNTS));
 
+        long taskStartTimeMs = System.currentTimeMillis();
+
         if(!TaskExecutor.executeTasks(callableList, mConfig.Threads))
             return false;
 
+        logTaskTimes(chrTasks, System.currentTimeMillis() - taskStartTimeMs);
+
         int totalReadsProcessed = chrTasks.stream().mapToInt(x -> x.totalReadCount()).sum();
         ISF_LOGGER.info("read {} total BAM records", totalReadsProcessed);
 
@@ -212,6 +237,35 @@ public class Isofox
         return true;
     }
 
+    private void logTaskTimes(final List<ChromosomeTaskExecutor> chrTasks, long wallTimeMs)
+    {
+        if(chrTasks.isEmpty())
+            return;
+
+        for(ChromosomeTaskExecutor chrTask : chrTasks)
+        {
+            ISF_LOGGER.debug("task({}) genes({}) reads({}) time({}s)",
+                    chrTask.taskId(), chrTask.taskRange().geneCount(), chrTask.totalReadCount(),
+                    String.format("%.1f", chrTask.taskTimeMs() / 1000.0));
+        }
+
+        List<Long> taskTimes = chrTasks.stream().map(x -> x.taskTimeMs()).sorted().collect(Collectors.toList());
+        long totalTaskTimeMs = taskTimes.stream().mapToLong(x -> x).sum();
+        int threads = max(mConfig.Threads, 1);
+
+        // utilisation is the proportion of available thread time spent in tasks
+        double utilisation = wallTimeMs > 0 ? totalTaskTimeMs / (double)(wallTimeMs * threads) : 1;
+
+        ISF_LOGGER.info(String.format("BAM tasks(%d) threads(%d) time(wall=%.1fs min=%.1fs median=%.1fs max=%.1fs) utilisation(%.2f)",
+                taskTimes.size(), threads, wallTimeMs / 1000.0, taskTimes.get(0) / 1000.0,
+                taskTimes.get(taskTimes.size() / 2) / 1000.0, taskTimes.get(taskTimes.size() - 1) / 1000.0, utilisation));
+
+        ChromosomeTaskExecutor slowestTask = chrTasks.stream().max(Comparator.comparingLong(x -> x.taskTimeMs())).orElse(null);
+
+        ISF_LOGGER.info("slowest BAM task({}) genes({}) reads({})",
+                slowestTask.taskId(), slowestTask.taskRange().geneCount(), slowestTask.totalReadCount());
+    }
+
     private void processBamFragments(final List<ChromosomeTaskExecutor> chrTasks, final List<Callable> callableList)
     {
         FragmentTypeCounts totalFragmentCounts = new FragmentTypeCounts();
@@ -25,6 +25,7 @@ import static com.hartwig.hmftools.isofox.IsofoxConstants.DEFAULT_EXPECTED_RATE_
 import static com.hartwig.hmftools.isofox.IsofoxConstants.DEFAULT_FRAG_LENGTH_MIN_COUNT;
 import static com.hartwig.hmftools.isofox.IsofoxConstants.DEFAULT_MAX_FRAGMENT_SIZE;
 import static com.hartwig.hmftools.isofox.IsofoxConstants.DEFAULT_SINGLE_MAP_QUALITY;
+import static com.hartwig.hmftools.isofox.IsofoxConstants.DEFAULT_TASK_GENE_COUNT;
 import static com.hartwig.hmftools.isofox.IsofoxFunction.FUSIONS;
 import static com.hartwig.hmftools.isofox.IsofoxFunction.ALT_SPLICE_JUNCTIONS;
 import static com.hartwig.hmftools.isofox.IsofoxFunction.RETAINED_INTRONS;
@@ -77,6 +78,7 @@ public class IsofoxConfig
     private static final String EXP_COUNTS_FILE = "exp_counts_file";
     private static final String EXP_GC_RATIOS_FILE = "exp_gc_ratios_file";
     private static final String PANEL_TPM_NORM_FILE = "panel_tpm_norm_file";
+    private static final String ACCELERATED_FIT = "accelerated_fit";
 
     private static final String DROP_DUPLICATES = "drop_dups";
     private static final String SINGLE_MAP_QUAL = "single_map_qual";
@@ -86,6 +88,7 @@ public class IsofoxConfig
     private static final String RUN_VALIDATIONS = "validate";
     private static final String PERF_CHECKS = "run_perf_checks";
     private static final String FILTER_READS_FILE = "filter_reads_file";
+    private static final String TASK_GENE_COUNT = "task_gene_count";
 
     public final String SampleId;
 
@@ -110,6 +113,7 @@ public class IsofoxConfig
     public final String PanelTpmNormFile;
     public final String NeoDir;
     public final boolean ApplyFragmentLengthAdjust;
+    public final boolean AcceleratedFit;
     public final List<FragmentSize> FragmentSizeData;
 
     public final boolean WriteExonData;
@@ -129,6 +133,7 @@ public class IsofoxConfig
     public final boolean RunValidations;
     public final boolean RunPerfChecks;
     public final int Threads;
+    public final int TaskGeneCount;
     public final List<String> FilteredReadIds;
 
     public static final Logger ISF_LOGGER = LogManager.getLogger(IsofoxConfig.class);
@@ -190,6 +195,7 @@ public class IsofoxConfig
         WriteGcData = configBuilder.hasFlag(WRITE_GC_DATA);
 
         Threads = parseThreads(configBuilder);
+        TaskGeneCount = configBuilder.getInteger(TASK_GENE_COUNT);
 
         if(Functions.contains(TRANSCRIPT_COUNTS))
         {
@@ -206,6 +212,7 @@ public class IsofoxConfig
         PanelTpmNormFile = configBuilder.getValue(PANEL_TPM_NORM_FILE);
 
         ApplyFragmentLengthAdjust = ExpCountsFile != null;
+        AcceleratedFit = configBuilder.hasFlag(ACCELERATED_FIT);
 
         int defaultFragLengthSamplingCount = ApplyFragmentLengthAdjust ? DEFAULT_FRAG_LENGTH_MIN_COUNT : 0;
         FragmentLengthSamplingCount = configBuilder.hasValue(FRAG_LENGTH_MIN_COUNT) ?
@@ -292,6 +299,11 @@ public class IsofoxConfig
     public boolean skipFilteredRead(final String readId) { return FilteredReadIds != null && !FilteredReadIds.contains(readId); }
 
     public IsofoxConfig(final RefGenomeInterface refGenome)
+    {
+        this(refGenome, null);
+    }
+
+    public IsofoxConfig(final RefGenomeInterface refGenome, final String outputDir)
     {
         SampleId = "TEST";
 
@@ -301,7 +313,7 @@ public class IsofoxConfig
         Functions.add(RETAINED_INTRONS);
 
         Filters = new GeneRegionFilters(V37);
-        OutputDir = null;
+        OutputDir = outputDir;
         BamFile = null;
         RefGenomeFile = null;
         RefGenVersion = V37;
@@ -315,6 +327,7 @@ public class IsofoxConfig
         FragmentSizeData = Lists.newArrayList();
         ExpCountsFile = null;
         ExpGcRatiosFile = null;
+        AcceleratedFit = false;
         NeoDir = null;
         PanelTpmNormFile = null;
 
@@ -335,6 +348,7 @@ public class IsofoxConfig
         RunValidations = true;
         RunPerfChecks = false;
         Threads = 0;
+        TaskGeneCount = 0;
         FilteredReadIds = null;
     }
 
@@ -365,7 +379,8 @@ public class IsofoxConfig
         configBuilder.addFlag(WRITE_FRAG_LENGTHS, "Write intronic fragment lengths to log");
         configBuilder.addFlag(WRITE_GC_DATA, "Write GC ratio counts from all genic reads");
 
-        configBuilder.addPath(EXP_COUNTS_FILE, false, "File with generated expected expression rates per transcript");
+        configBuilder.addPath(EXP_COUNTS_FILE, false, "File with generated expected expression rates per transcript, CSV or binary (.bin)");
+        configBuilder.addFlag(ACCELERATED_FIT, "Use SQUAREM-accelerated EM when fitting transcript expression");
         configBuilder.addPath(EXP_GC_RATIOS_FILE, false, "File with generated expected GC ratios per transcript");
         configBuilder.addPath(NEO_DIR_CFG, false, NEO_DIR_DESC);
         configBuilder.addPath(PANEL_TPM_NORM_FILE, false, "Panel TPM normalisation file");
@@ -378,6 +393,10 @@ public class IsofoxConfig
         configBuilder.addFlag(PERF_CHECKS, "Run performance logging routines");
         configBuilder.addPath(FILTER_READS_FILE, false, "Only process reads in this file");
 
+        configBuilder.addInteger(
+                TASK_GENE_COUNT, "Target genes per BAM task, splitting chromosomes on gene collections (0 = per chromosome)",
+                DEFAULT_TASK_GENE_COUNT);
+
         GeneRegionFilters.registerConfig(configBuilder);
         FusionConfig.registerConfig(configBuilder);
         addThreadOptions(configBuilder);
@@ -17,6 +17,9 @@ public class IsofoxConstants
     // min number of fragments to sample when calculating fragment length distribution for calculation of expected fragment counts
     public static final int DEFAULT_FRAG_LENGTH_MIN_COUNT = 1000000;
 
+    // target number of genes per BAM processing task, with tasks split on gene collection boundaries
+    public static final int DEFAULT_TASK_GENE_COUNT = 1000;
+
     public static final double GC_RATIO_BUCKET = 0.01;
 
     public static final short DEFAULT_SINGLE_MAP_QUALITY = 255;
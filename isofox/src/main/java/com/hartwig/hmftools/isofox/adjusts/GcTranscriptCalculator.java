@@ -56,13 +56,11 @@ public class GcTranscriptCalculator
 
         for(final GeneCollectionSummary geneSummary : geneSummaries)
         {
-            final Map<String,Double> fitAllocations = geneSummary.getFitAllocations();
-
-            for(Map.Entry<String,Double> entry : fitAllocations.entrySet())
+            for(int fitIndex = 0; fitIndex < geneSummary.fitAllocationCount(); ++fitIndex)
             {
-                final String transName = entry.getKey();
+                final String transName = geneSummary.fitAllocationName(fitIndex);
 
-                double fitAlloc = entry.getValue();
+                double fitAlloc = geneSummary.fitAllocation(fitIndex);
 
                 final GcRatioCounts transGcCounts = mTranscriptGcRatioCache.get(transName);
 
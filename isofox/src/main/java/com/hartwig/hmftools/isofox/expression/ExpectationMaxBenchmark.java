@@ -0,0 +1,181 @@
+package com.hartwig.hmftools.isofox.expression;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+import static com.hartwig.hmftools.isofox.IsofoxConstants.APP_NAME;
+import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.formTranscriptDefinitions;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.sigs.ExpectationMaxFit;
+import com.hartwig.hmftools.common.sigs.ExpectationMaxFitter;
+import com.hartwig.hmftools.common.utils.Matrix;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.jetbrains.annotations.NotNull;
+
+// compares the original EM fit with the reusable and accelerated fitters on the gene sets from an expected counts file,
+// fitting simulated fragment counts drawn from each gene set's transcript definitions
+public class ExpectationMaxBenchmark
+{
+    private final List<ExpectedRatesData> mGeneSetRatesData;
+    private final List<double[]> mGeneSetCounts;
+    private final int mRuns;
+
+    private static final String EXP_COUNTS_FILE = "exp_counts_file";
+    private static final String RUNS = "runs";
+    private static final String SEED = "seed";
+
+    public ExpectationMaxBenchmark(final ConfigBuilder configBuilder)
+    {
+        mRuns = configBuilder.getInteger(RUNS);
+        mGeneSetRatesData = Lists.newArrayList();
+        mGeneSetCounts = Lists.newArrayList();
+
+        ExpectedCountsCache cache = new ExpectedCountsCache(configBuilder.getValue(EXP_COUNTS_FILE), Lists.newArrayList());
+
+        if(!cache.isValid())
+            return;
+
+        Random random = new Random(configBuilder.getInteger(SEED));
+
+        for(String geneSetId : cache.geneSetIds())
+        {
+            ExpectedRatesData expRatesData = new ExpectedRatesData(geneSetId);
+            formTranscriptDefinitions(cache.getGeneSetCountsData(geneSetId), expRatesData);
+
+            if(!expRatesData.validData())
+                continue;
+
+            mGeneSetRatesData.add(expRatesData);
+            mGeneSetCounts.add(simulateCounts(expRatesData.getTranscriptDefinitions(), random));
+        }
+
+        ISF_LOGGER.info("loaded {} gene sets for fit benchmark", mGeneSetRatesData.size());
+    }
+
+    private static double[] simulateCounts(final Matrix definitions, final Random random)
+    {
+        // a random abundance per transcript with some transcripts unexpressed, plus noise on each category
+        double[] counts = new double[definitions.Rows];
+
+        for(int transIndex = 0; transIndex < definitions.Cols; ++transIndex)
+        {
+            double abundance = random.nextDouble() < 0.3 ? 0 : random.nextDouble() * 1000;
+
+            for(int catIndex = 0; catIndex < definitions.Rows; ++catIndex)
+            {
+                counts[catIndex] += abundance * definitions.get(catIndex, transIndex);
+            }
+        }
+
+        for(int catIndex = 0; catIndex < counts.length; ++catIndex)
+        {
+            counts[catIndex] = Math.round(max(counts[catIndex] * (0.9 + random.nextDouble() * 0.2), 0));
+        }
+
+        return counts;
+    }
+
+    public void run()
+    {
+        if(mGeneSetRatesData.isEmpty())
+            return;
+
+        ExpectationMaxFitter standardFitter = new ExpectationMaxFitter(false);
+        ExpectationMaxFitter acceleratedFitter = new ExpectationMaxFitter(true);
+
+        for(int run = 0; run < mRuns; ++run)
+        {
+            long startTime = System.nanoTime();
+
+            for(int i = 0; i < mGeneSetRatesData.size(); ++i)
+            {
+                ExpectationMaxFit.performFit(mGeneSetCounts.get(i), mGeneSetRatesData.get(i).getTranscriptDefinitions());
+            }
+
+            long originalTime = System.nanoTime() - startTime;
+
+            FitStats standardStats = runFitter(standardFitter);
+            FitStats acceleratedStats = runFitter(acceleratedFitter);
+
+            ISF_LOGGER.info(String.format("run(%d) original(%.1fms) reusable(%.1fms iterations=%d residualsPerc=%.5f)"
+                            + " accelerated(%.1fms iterations=%d residualsPerc=%.5f)",
+                    run, originalTime / 1e6, standardStats.TimeNanos / 1e6, standardStats.Iterations, standardStats.meanResidualsPerc(),
+                    acceleratedStats.TimeNanos / 1e6, acceleratedStats.Iterations, acceleratedStats.meanResidualsPerc()));
+        }
+
+        // confirm the reusable fitter reproduces the original results
+        double maxDiff = 0;
+
+        for(int i = 0; i < mGeneSetRatesData.size(); ++i)
+        {
+            final Matrix definitions = mGeneSetRatesData.get(i).getTranscriptDefinitions();
+            double[] original = ExpectationMaxFit.performFit(mGeneSetCounts.get(i), definitions);
+            double[] allocations = new double[definitions.Cols];
+            standardFitter.fit(mGeneSetCounts.get(i), definitions, allocations);
+
+            for(int j = 0; j < allocations.length; ++j)
+            {
+                maxDiff = max(maxDiff, abs(original[j] - allocations[j]));
+            }
+        }
+
+        ISF_LOGGER.info(String.format("max allocation difference vs original fit: %.6f", maxDiff));
+    }
+
+    private class FitStats
+    {
+        public long TimeNanos = 0;
+        public int Iterations = 0;
+        public double ResidualsPercTotal = 0;
+
+        public double meanResidualsPerc() { return ResidualsPercTotal / mGeneSetRatesData.size(); }
+    }
+
+    private FitStats runFitter(final ExpectationMaxFitter fitter)
+    {
+        FitStats stats = new FitStats();
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < mGeneSetRatesData.size(); ++i)
+        {
+            final Matrix definitions = mGeneSetRatesData.get(i).getTranscriptDefinitions();
+            double[] allocations = new double[definitions.Cols];
+            fitter.fit(mGeneSetCounts.get(i), definitions, allocations);
+
+            stats.Iterations += fitter.iterations();
+            stats.ResidualsPercTotal += fitter.residualsPercent();
+        }
+
+        stats.TimeNanos = System.nanoTime() - startTime;
+        return stats;
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addPath(EXP_COUNTS_FILE, true, "Expected counts file, CSV or binary (.bin)");
+        configBuilder.addInteger(RUNS, "Number of timed runs across all gene sets", 5);
+        configBuilder.addInteger(SEED, "Random seed for simulated counts", 1);
+        addLoggingOptions(configBuilder);
+
+        if(!configBuilder.parseCommandLine(args))
+        {
+            configBuilder.logInvalidDetails();
+            System.exit(1);
+        }
+
+        setLogLevel(configBuilder);
+
+        ExpectationMaxBenchmark benchmark = new ExpectationMaxBenchmark(configBuilder);
+        benchmark.run();
+    }
+}
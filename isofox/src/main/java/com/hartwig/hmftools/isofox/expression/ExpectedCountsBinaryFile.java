@@ -0,0 +1,298 @@
+package com.hartwig.hmftools.isofox.expression;
+
+import static java.lang.Math.round;
+
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// binary form of the expected counts file, indexed by gene set so a reader can memory-map it and decode one gene collection at a time
+//
+// layout: header (magic, version, fragment lengths), then a block per gene set written in any order, then the gene set index and
+// finally the index's offset:
+// - gene set block: category count, then per category: transcript count, transcript IDs, unspliced gene count,
+//   unspliced gene indices into the gene set's gene IDs, then a count per fragment length
+// - index: gene set count, then per gene set: gene set ID, block offset, gene ID count, gene IDs
+public class ExpectedCountsBinaryFile
+{
+    public static final String EXP_COUNTS_BINARY_EXTENSION = ".bin";
+
+    private static final int MAGIC = 0x49534543; // ISEC
+    private static final int VERSION = 1;
+
+    private final DataOutputStream mOutput;
+    private final List<GeneSetEntry> mGeneSetEntries;
+    private long mBytesWritten;
+
+    public static class GeneSetEntry
+    {
+        public final String GeneSetId;
+        public final long Offset;
+        public final List<String> GeneIds;
+
+        public GeneSetEntry(final String geneSetId, long offset, final List<String> geneIds)
+        {
+            GeneSetId = geneSetId;
+            Offset = offset;
+            GeneIds = geneIds;
+        }
+    }
+
+    public static boolean isBinaryExpectedCountsFile(final String filename)
+    {
+        return filename.endsWith(EXP_COUNTS_BINARY_EXTENSION);
+    }
+
+    public ExpectedCountsBinaryFile(final String filename, final List<Integer> fragmentLengths) throws IOException
+    {
+        mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+        mGeneSetEntries = Lists.newArrayList();
+        mBytesWritten = 0;
+
+        writeInt(MAGIC);
+        writeInt(VERSION);
+        writeInt(fragmentLengths.size());
+
+        for(Integer fragmentLength : fragmentLengths)
+        {
+            writeInt(fragmentLength);
+        }
+    }
+
+    public synchronized void writeGeneSet(
+            final String geneSetId, final List<String> collectionGeneIds, final List<CategoryCountsData> categoryCounts)
+    {
+        try
+        {
+            // unspliced genes are referenced by their index in the gene set's gene IDs
+            List<String> geneIds = Lists.newArrayList(collectionGeneIds);
+            Map<String,Integer> geneIndexMap = Maps.newHashMap();
+
+            for(int i = 0; i < geneIds.size(); ++i)
+            {
+                geneIndexMap.put(geneIds.get(i), i);
+            }
+
+            List<CategoryCountsData> writableCounts = Lists.newArrayList();
+
+            for(CategoryCountsData catCounts : categoryCounts)
+            {
+                if(catCounts.fragmentCountsByLength() == null)
+                    continue;
+
+                writableCounts.add(catCounts);
+
+                for(String geneId : catCounts.unsplicedGeneIds())
+                {
+                    if(!geneIndexMap.containsKey(geneId))
+                    {
+                        geneIndexMap.put(geneId, geneIds.size());
+                        geneIds.add(geneId);
+                    }
+                }
+            }
+
+            mGeneSetEntries.add(new GeneSetEntry(geneSetId, mBytesWritten, geneIds));
+
+            writeInt(writableCounts.size());
+
+            for(CategoryCountsData catCounts : writableCounts)
+            {
+                writeInt(catCounts.transcriptIds().size());
+
+                for(Integer transId : catCounts.transcriptIds())
+                {
+                    writeInt(transId);
+                }
+
+                writeInt(catCounts.unsplicedGeneIds().size());
+
+                for(String geneId : catCounts.unsplicedGeneIds())
+                {
+                    writeInt(geneIndexMap.get(geneId));
+                }
+
+                for(double count : catCounts.fragmentCountsByLength())
+                {
+                    writeInt((int)round(count));
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            ISF_LOGGER.error("failed to write binary expected counts file: {}", e.toString());
+        }
+    }
+
+    public synchronized void close()
+    {
+        try
+        {
+            long indexOffset = mBytesWritten;
+
+            writeInt(mGeneSetEntries.size());
+
+            for(GeneSetEntry entry : mGeneSetEntries)
+            {
+                writeString(entry.GeneSetId);
+                mOutput.writeLong(entry.Offset);
+                mBytesWritten += Long.BYTES;
+                writeInt(entry.GeneIds.size());
+
+                for(String geneId : entry.GeneIds)
+                {
+                    writeString(geneId);
+                }
+            }
+
+            mOutput.writeLong(indexOffset);
+            mOutput.close();
+        }
+        catch(IOException e)
+        {
+            ISF_LOGGER.error("failed to close binary expected counts file: {}", e.toString());
+        }
+    }
+
+    private void writeInt(int value) throws IOException
+    {
+        mOutput.writeInt(value);
+        mBytesWritten += Integer.BYTES;
+    }
+
+    private void writeString(final String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        mOutput.write(bytes);
+        mBytesWritten += bytes.length;
+    }
+
+    // reading methods, all using absolute positions so the mapped buffer can be shared across threads
+    public static List<Integer> readFragmentLengths(final ByteBuffer buffer)
+    {
+        if(buffer.limit() < 3 * Integer.BYTES || buffer.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("invalid binary expected counts file");
+
+        int version = buffer.getInt(Integer.BYTES);
+
+        if(version != VERSION)
+            throw new IllegalArgumentException(String.format("unsupported binary expected counts version(%d)", version));
+
+        int fragLengthCount = buffer.getInt(2 * Integer.BYTES);
+        List<Integer> fragmentLengths = Lists.newArrayListWithCapacity(fragLengthCount);
+
+        for(int i = 0; i < fragLengthCount; ++i)
+        {
+            fragmentLengths.add(buffer.getInt((3 + i) * Integer.BYTES));
+        }
+
+        return fragmentLengths;
+    }
+
+    public static List<GeneSetEntry> readIndex(final ByteBuffer buffer)
+    {
+        int position = (int)buffer.getLong(buffer.limit() - Long.BYTES);
+
+        int geneSetCount = buffer.getInt(position);
+        position += Integer.BYTES;
+
+        List<GeneSetEntry> entries = Lists.newArrayListWithCapacity(geneSetCount);
+
+        for(int i = 0; i < geneSetCount; ++i)
+        {
+            int idLength = buffer.getInt(position);
+            String geneSetId = readString(buffer, position + Integer.BYTES, idLength);
+            position += Integer.BYTES + idLength;
+
+            long offset = buffer.getLong(position);
+            position += Long.BYTES;
+
+            int geneCount = buffer.getInt(position);
+            position += Integer.BYTES;
+
+            List<String> geneIds = Lists.newArrayListWithCapacity(geneCount);
+
+            for(int j = 0; j < geneCount; ++j)
+            {
+                int geneIdLength = buffer.getInt(position);
+                geneIds.add(readString(buffer, position + Integer.BYTES, geneIdLength));
+                position += Integer.BYTES + geneIdLength;
+            }
+
+            entries.add(new GeneSetEntry(geneSetId, offset, geneIds));
+        }
+
+        return entries;
+    }
+
+    public static List<CategoryCountsData> readGeneSet(final ByteBuffer buffer, final GeneSetEntry entry, int fragLengths)
+    {
+        int position = (int)entry.Offset;
+
+        int categoryCount = buffer.getInt(position);
+        position += Integer.BYTES;
+
+        List<CategoryCountsData> categoryCounts = Lists.newArrayListWithCapacity(categoryCount);
+
+        for(int i = 0; i < categoryCount; ++i)
+        {
+            int transCount = buffer.getInt(position);
+            position += Integer.BYTES;
+
+            List<Integer> transIds = Lists.newArrayListWithCapacity(transCount);
+
+            for(int j = 0; j < transCount; ++j)
+            {
+                transIds.add(buffer.getInt(position));
+                position += Integer.BYTES;
+            }
+
+            int geneCount = buffer.getInt(position);
+            position += Integer.BYTES;
+
+            List<String> unsplicedGeneIds = Lists.newArrayListWithCapacity(geneCount);
+
+            for(int j = 0; j < geneCount; ++j)
+            {
+                unsplicedGeneIds.add(entry.GeneIds.get(buffer.getInt(position)));
+                position += Integer.BYTES;
+            }
+
+            CategoryCountsData catCounts = new CategoryCountsData(transIds, unsplicedGeneIds);
+            catCounts.initialiseLengthCounts(fragLengths);
+
+            for(int j = 0; j < fragLengths; ++j)
+            {
+                catCounts.addFragLengthCounts(buffer.getInt(position), j);
+                position += Integer.BYTES;
+            }
+
+            categoryCounts.add(catCounts);
+        }
+
+        return categoryCounts;
+    }
+
+    private static String readString(final ByteBuffer buffer, int position, int length)
+    {
+        byte[] bytes = new byte[length];
+
+        for(int i = 0; i < length; ++i)
+        {
+            bytes[i] = buffer.get(position + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
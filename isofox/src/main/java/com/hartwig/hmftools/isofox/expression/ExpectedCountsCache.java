@@ -2,12 +2,16 @@ package com.hartwig.hmftools.isofox.expression;
 
 import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
 import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+import static com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile.isBinaryExpectedCountsFile;
 import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.EXP_COUNT_LENGTH_HEADER;
 import static com.hartwig.hmftools.isofox.results.ResultsWriter.DELIMITER;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
@@ -20,37 +24,84 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.isofox.IsofoxConfig;
 import com.hartwig.hmftools.isofox.adjusts.FragmentSize;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile.GeneSetEntry;
 
 public class ExpectedCountsCache
 {
-    private final IsofoxConfig mConfig;
+    private final String mExpCountsFile;
+    private final List<FragmentSize> mFragmentSizeData;
 
     // map of chrGeneSetId to category counts data
     private final Map<String,List<CategoryCountsData>> mGeneSetCategoryDataMap;
 
+    // for a binary file, gene sets are decoded from the mapped file on request rather than held in memory
+    private ByteBuffer mBinaryBuffer;
+    private final Map<String,GeneSetEntry> mGeneSetEntries;
+
+    // gene ID to its gene set, used when gene collections don't line up with the generated chromosome gene set IDs
+    private final Map<String,String> mGeneIdGeneSetMap;
+
     private boolean mValidData;
 
     public ExpectedCountsCache(final IsofoxConfig config)
     {
-        mConfig = config;
+        this(config.ExpCountsFile, config.FragmentSizeData);
+    }
+
+    public ExpectedCountsCache(final String expCountsFile, final List<FragmentSize> fragmentSizeData)
+    {
+        mExpCountsFile = expCountsFile;
+        mFragmentSizeData = fragmentSizeData;
         mGeneSetCategoryDataMap = Maps.newHashMap();
+        mBinaryBuffer = null;
+        mGeneSetEntries = Maps.newHashMap();
+        mGeneIdGeneSetMap = Maps.newHashMap();
         mValidData = true;
 
-        if(config.ExpCountsFile != null && Files.exists(Paths.get(mConfig.ExpCountsFile)))
+        if(mExpCountsFile != null && Files.exists(Paths.get(mExpCountsFile)))
         {
-            mValidData = loadExpCountsFile();
+            if(isBinaryExpectedCountsFile(mExpCountsFile))
+                mValidData = loadBinaryExpCountsFile();
+            else
+                mValidData = loadExpCountsFile();
         }
     }
 
     public boolean isValid() { return mValidData; }
 
+    public List<String> geneSetIds()
+    {
+        return Lists.newArrayList(mBinaryBuffer != null ? mGeneSetEntries.keySet() : mGeneSetCategoryDataMap.keySet());
+    }
+
+    public List<CategoryCountsData> getGeneSetCountsData(final String geneSetId)
+    {
+        if(mBinaryBuffer == null)
+            return mGeneSetCategoryDataMap.get(geneSetId);
+
+        GeneSetEntry entry = mGeneSetEntries.get(geneSetId);
+        return entry != null ? ExpectedCountsBinaryFile.readGeneSet(mBinaryBuffer, entry, mFragmentSizeData.size()) : null;
+    }
+
     public List<CategoryCountsData> getGeneExpectedRatesData(final String chrId, final List<String> geneIds)
     {
+        if(mBinaryBuffer != null)
+            return getBinaryGeneSetCountsData(chrId, geneIds);
+
         List<CategoryCountsData> geneSetCountsData = mGeneSetCategoryDataMap.get(chrId);
 
-        if (geneSetCountsData == null || !geneSetCountsDataMatches(geneIds, geneSetCountsData))
+        if(geneSetCountsData == null || !geneSetCountsDataMatches(geneIds, geneSetCountsData))
         {
-            geneSetCountsData = findGeneSetCountsData(geneIds);
+            geneSetCountsData = null;
+            String geneSetId = findGeneSetId(geneIds);
+
+            if(geneSetId != null)
+            {
+                List<CategoryCountsData> candidateCountsData = mGeneSetCategoryDataMap.get(geneSetId);
+
+                if(geneSetCountsDataMatches(geneIds, candidateCountsData))
+                    geneSetCountsData = candidateCountsData;
+            }
         }
 
         return geneSetCountsData;
@@ -65,67 +116,131 @@ public class ExpectedCountsCache
         return geneIds.stream().allMatch(x -> geneTransSet.contains(x));
     }
 
-    private final List<CategoryCountsData> findGeneSetCountsData(final List<String> geneIds)
+    private String findGeneSetId(final List<String> geneIds)
+    {
+        // all genes in a collection belong to the same generated gene set, so the first is sufficient to locate it
+        return !geneIds.isEmpty() ? mGeneIdGeneSetMap.get(geneIds.get(0)) : null;
+    }
+
+    private List<CategoryCountsData> getBinaryGeneSetCountsData(final String chrId, final List<String> geneIds)
+    {
+        GeneSetEntry entry = mGeneSetEntries.get(chrId);
+
+        if(entry == null || !entry.GeneIds.containsAll(geneIds))
+        {
+            String geneSetId = findGeneSetId(geneIds);
+            entry = geneSetId != null ? mGeneSetEntries.get(geneSetId) : null;
+
+            if(entry == null || !entry.GeneIds.containsAll(geneIds))
+                return null;
+        }
+
+        // decoded fresh for each request since the counts are subsequently adjusted by the sample's fragment length distribution
+        return getGeneSetCountsData(entry.GeneSetId);
+    }
+
+    private void registerGeneSetGeneIds(final String geneSetId, final List<String> geneIds)
+    {
+        geneIds.forEach(x -> mGeneIdGeneSetMap.putIfAbsent(x, geneSetId));
+    }
+
+    private boolean setFragmentLengths(final List<Integer> fileFragmentLengths)
+    {
+        // extract the fragment lengths from the file if not already populated (in which case they must match)
+        if(mFragmentSizeData.size() == 0)
+        {
+            StringJoiner sj = new StringJoiner(", ");
+            for(Integer fragmentLength : fileFragmentLengths)
+            {
+                // set default of 1 for frequency in case it is not sampled
+                mFragmentSizeData.add(new FragmentSize(fragmentLength, 1));
+                sj.add(String.valueOf(fragmentLength));
+            }
+
+            ISF_LOGGER.info("fragment lengths({}) set from expected transcript counts file", sj.toString());
+        }
+        else if(mFragmentSizeData.size() != fileFragmentLengths.size())
+        {
+            ISF_LOGGER.error("expected counts file has {} fragment lengths vs configuredCount({})",
+                    fileFragmentLengths.size(), mFragmentSizeData.size());
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean loadBinaryExpCountsFile()
     {
-        // manually find the gene set by looking for a match of all geneIds
-        for(final List<CategoryCountsData> geneCounts : mGeneSetCategoryDataMap.values())
+        try(RandomAccessFile file = new RandomAccessFile(mExpCountsFile, "r"))
+        {
+            FileChannel channel = file.getChannel();
+
+            if(channel.size() > Integer.MAX_VALUE)
+            {
+                ISF_LOGGER.error("binary expected counts file({}) exceeds max mapped size", mExpCountsFile);
+                return false;
+            }
+
+            // the mapping remains valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if(!setFragmentLengths(ExpectedCountsBinaryFile.readFragmentLengths(buffer)))
+                return false;
+
+            for(GeneSetEntry entry : ExpectedCountsBinaryFile.readIndex(buffer))
+            {
+                mGeneSetEntries.put(entry.GeneSetId, entry);
+                registerGeneSetGeneIds(entry.GeneSetId, entry.GeneIds);
+            }
+
+            mBinaryBuffer = buffer;
+
+            ISF_LOGGER.info("indexed {} gene expected counts from binary file({})", mGeneSetEntries.size(), mExpCountsFile);
+        }
+        catch(IOException | IllegalArgumentException e)
         {
-            if(geneSetCountsDataMatches(geneIds, geneCounts))
-                return geneCounts;
+            ISF_LOGGER.warn("failed to load binary expected counts file({}): {}", mExpCountsFile, e.toString());
+            return false;
         }
 
-        return null;
+        return true;
     }
 
     // GeneSetId,TransId,Category,Counts for each fragment length
     private boolean loadExpCountsFile()
     {
-        if (!Files.exists(Paths.get(mConfig.ExpCountsFile)))
+        if (!Files.exists(Paths.get(mExpCountsFile)))
         {
-            ISF_LOGGER.warn("invalid gene ID file({})", mConfig.ExpCountsFile);
+            ISF_LOGGER.warn("invalid gene ID file({})", mExpCountsFile);
             return false;
         }
 
         try
         {
-            BufferedReader fileReader = new BufferedReader(new FileReader(mConfig.ExpCountsFile));
+            BufferedReader fileReader = new BufferedReader(new FileReader(mExpCountsFile));
 
             // skip field names
             String line = fileReader.readLine();
 
             if (line == null)
             {
-                ISF_LOGGER.error("empty calculated expected counts file({})", mConfig.ExpCountsFile);
+                ISF_LOGGER.error("empty calculated expected counts file({})", mExpCountsFile);
                 return false;
             }
 
             String[] headerItems = line.split(DELIMITER, -1);
 
-            // extract the fragment lengths from the header if not already populated (in which case they must match)
-            int fileFragmentLengthCount = headerItems.length - 2;
+            List<Integer> fileFragmentLengths = Lists.newArrayList();
 
-            if(mConfig.FragmentSizeData.size() == 0)
+            for(int i = 2; i < headerItems.length; ++i)
             {
-                StringJoiner sj = new StringJoiner(", ");
-                for(int i = 3; i < headerItems.length; ++i)
-                {
-                    int fragmentLength = Integer.parseInt(headerItems[i].replaceAll(EXP_COUNT_LENGTH_HEADER, ""));
-
-                    // set default of 1 for frequency in case it is not sampled
-                    mConfig.FragmentSizeData.add(new FragmentSize(fragmentLength, 1));
-                    sj.add(String.valueOf(fragmentLength));
-                }
-
-                ISF_LOGGER.info("fragment lengths({}) set from expected transcript counts file", sj.toString());
+                fileFragmentLengths.add(Integer.parseInt(headerItems[i].replaceAll(EXP_COUNT_LENGTH_HEADER, "")));
             }
-            else if(mConfig.FragmentSizeData.size() != fileFragmentLengthCount)
-            {
-                ISF_LOGGER.error("expected counts file has {} fragment lengths vs configuredCount({})",
-                        fileFragmentLengthCount, mConfig.FragmentSizeData.size());
+
+            if(!setFragmentLengths(fileFragmentLengths))
                 return false;
-            }
 
-            int fragLengths = mConfig.FragmentSizeData.size();
+            int fragLengths = mFragmentSizeData.size();
 
             final Map<String,Integer> fieldsIndexMap = createFieldsIndexMap(line, DELIMITER);
             int geneSetIdIndex = fieldsIndexMap.get("GeneSetId");
@@ -158,17 +273,20 @@ public class ExpectedCountsCache
                 }
             }
 
+            for(Map.Entry<String,List<CategoryCountsData>> entry : mGeneSetCategoryDataMap.entrySet())
+            {
+                entry.getValue().forEach(x -> registerGeneSetGeneIds(entry.getKey(), x.unsplicedGeneIds()));
+            }
+
             ISF_LOGGER.info("loaded {} gene expected counts from file({})",
-                    mGeneSetCategoryDataMap.size(), mConfig.ExpCountsFile);
+                    mGeneSetCategoryDataMap.size(), mExpCountsFile);
         }
         catch (IOException e)
         {
-            ISF_LOGGER.warn("failed to load expected counts file({}): {}", mConfig.ExpCountsFile, e.toString());
+            ISF_LOGGER.warn("failed to load expected counts file({}): {}", mExpCountsFile, e.toString());
             return false;
         }
 
         return true;
     }
-
-
 }
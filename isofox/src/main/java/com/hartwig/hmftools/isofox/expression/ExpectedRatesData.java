@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.isofox.expression;
 
+import static com.hartwig.hmftools.isofox.expression.CategoryCountsData.hasGeneIdentifier;
+
 import java.util.List;
 
 import com.google.common.collect.Lists;
@@ -16,6 +18,7 @@ public class ExpectedRatesData
     public final List<String> TranscriptIds;
 
     private Matrix mTranscriptDefinitions;
+    private int[] mTranscriptIdValues;
 
     public ExpectedRatesData(final String id)
     {
@@ -23,10 +26,28 @@ public class ExpectedRatesData
         Categories = Lists.newArrayList();
         TranscriptIds = Lists.newArrayList();
         mTranscriptDefinitions = null;
+        mTranscriptIdValues = null;
     }
 
     public Matrix getTranscriptDefinitions() { return mTranscriptDefinitions; }
 
+    // transcript IDs as integers, or -1 for an unspliced gene, parsed once rather than for each fit
+    public int[] transcriptIdValues()
+    {
+        if(mTranscriptIdValues == null || mTranscriptIdValues.length != TranscriptIds.size())
+        {
+            mTranscriptIdValues = new int[TranscriptIds.size()];
+
+            for(int i = 0; i < TranscriptIds.size(); ++i)
+            {
+                final String transId = TranscriptIds.get(i);
+                mTranscriptIdValues[i] = hasGeneIdentifier(transId) ? -1 : Integer.parseInt(transId);
+            }
+        }
+
+        return mTranscriptIdValues;
+    }
+
     public boolean validData()
     {
         if(Categories.isEmpty() || mTranscriptDefinitions == null)
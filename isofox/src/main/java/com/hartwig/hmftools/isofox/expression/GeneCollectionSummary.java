@@ -1,10 +1,9 @@
 package com.hartwig.hmftools.isofox.expression;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.hartwig.hmftools.isofox.results.GeneResult;
 import com.hartwig.hmftools.isofox.results.TranscriptResult;
 
@@ -19,9 +18,17 @@ public class GeneCollectionSummary
     public final List<TranscriptResult> TranscriptResults;
 
     private final int mTotalLowMqFragments;
-    private final Map<String,Double> mFitAllocations; // results from the expected rate vs counts fit routine, stored per transcript
+    // results from the expected rate vs counts fit routine, per transcript or unspliced gene
+    private String[] mFitNames;
+    private int[] mFitTransIds; // -1 for an unspliced gene
+    private double[] mFitAllocations;
     private double mFitResiduals;
 
+    // fit indices by transcript ID less the lowest fitted transcript ID, and by gene in the order of the gene IDs
+    private int mFitTransIdOffset;
+    private int[] mTransFitIndices;
+    private int[] mGeneFitIndices;
+
     public GeneCollectionSummary(
             final String chrId, final List<String> geneIds, final String geneNames, final List<CategoryCountsData> transCategoryCounts)
     {
@@ -34,8 +41,14 @@ public class GeneCollectionSummary
 
         mTotalLowMqFragments = TransCategoryCounts.stream().mapToInt(x -> x.lowMapQualFragments()).sum();
 
-        mFitAllocations = Maps.newHashMap();
+        mFitNames = new String[0];
+        mFitTransIds = new int[0];
+        mFitAllocations = new double[0];
         mFitResiduals = 0;
+
+        mFitTransIdOffset = 0;
+        mTransFitIndices = new int[0];
+        mGeneFitIndices = new int[0];
     }
 
     public int spliceGenesCount() { return (int)GeneResults.stream().filter(x -> x.getSplicedAlloc() > 0).count(); }
@@ -43,38 +56,85 @@ public class GeneCollectionSummary
     public void setFitResiduals(double residuals) { mFitResiduals = residuals; }
     public double getFitResiduals() { return mFitResiduals; }
 
-    public Map<String,Double> getFitAllocations() { return mFitAllocations; }
+    public void setFitAllocations(final String[] names, final int[] transIds, final double[] allocations)
+    {
+        mFitNames = names;
+        mFitTransIds = transIds;
+        mFitAllocations = allocations;
+
+        int minTransId = Arrays.stream(transIds).filter(x -> x >= 0).min().orElse(0);
+        int maxTransId = Arrays.stream(transIds).filter(x -> x >= 0).max().orElse(-1);
+
+        mFitTransIdOffset = minTransId;
+        mTransFitIndices = new int[maxTransId - minTransId + 1];
+        Arrays.fill(mTransFitIndices, -1);
+
+        mGeneFitIndices = new int[GeneIds.size()];
+        Arrays.fill(mGeneFitIndices, -1);
+
+        for(int i = 0; i < transIds.length; ++i)
+        {
+            if(transIds[i] >= 0)
+            {
+                mTransFitIndices[transIds[i] - minTransId] = i;
+            }
+            else
+            {
+                int geneIndex = GeneIds.indexOf(names[i]);
+
+                if(geneIndex >= 0)
+                    mGeneFitIndices[geneIndex] = i;
+            }
+        }
+    }
+
+    public int fitAllocationCount() { return mFitAllocations.length; }
+    public String fitAllocationName(int index) { return mFitNames[index]; }
+    public double fitAllocation(int index) { return mFitAllocations[index]; }
+
+    public double getTranscriptFitAllocation(int transId)
+    {
+        int index = transId - mFitTransIdOffset;
+
+        if(index < 0 || index >= mTransFitIndices.length || mTransFitIndices[index] < 0)
+            return 0;
+
+        return mFitAllocations[mTransFitIndices[index]];
+    }
 
-    public double getFitAllocation(final String transName)
+    // unspliced allocation of a gene, by its index in the gene IDs
+    public double getGeneFitAllocation(int geneIndex)
     {
-        Double allocation = mFitAllocations.get(transName);
-        return allocation != null ? allocation : 0;
+        if(geneIndex >= mGeneFitIndices.length || mGeneFitIndices[geneIndex] < 0)
+            return 0;
+
+        return mFitAllocations[mGeneFitIndices[geneIndex]];
     }
 
     public void setFitAllocations()
     {
-        Map<String,Double> geneSpliceTotals = Maps.newHashMap();
+        // gene results follow the order of the gene IDs, and each gene's transcript results are added together before it
+        double[] geneSpliceTotals = new double[GeneResults.size()];
+        int geneIndex = 0;
 
-        for (final TranscriptResult transResult : TranscriptResults)
+        for(final TranscriptResult transResult : TranscriptResults)
         {
-            final String transName = transResult.Trans.TransName;
-            double fitAllocation = getFitAllocation(transName);
+            double fitAllocation = getTranscriptFitAllocation(transResult.Trans.TransId);
 
             transResult.setFitAllocation(fitAllocation);
 
-            Double geneFitAllocation = geneSpliceTotals.get(transResult.Trans.GeneId);
-            if(geneFitAllocation == null)
-                geneSpliceTotals.put(transResult.Trans.GeneId, fitAllocation);
-            else
-                geneSpliceTotals.put(transResult.Trans.GeneId, geneFitAllocation + fitAllocation);
+            while(geneIndex < GeneResults.size() && !GeneResults.get(geneIndex).Gene.GeneId.equals(transResult.Trans.GeneId))
+            {
+                ++geneIndex;
+            }
 
+            if(geneIndex < GeneResults.size())
+                geneSpliceTotals[geneIndex] += fitAllocation;
         }
 
-        for(final GeneResult geneResult : GeneResults)
+        for(geneIndex = 0; geneIndex < GeneResults.size(); ++geneIndex)
         {
-            Double geneFitAllocation = geneSpliceTotals.get(geneResult.Gene.GeneId);
-            geneResult.setFitAllocation(
-                    geneFitAllocation != null ? geneFitAllocation : 0, getFitAllocation(geneResult.Gene.GeneId));
+            GeneResults.get(geneIndex).setFitAllocation(geneSpliceTotals[geneIndex], getGeneFitAllocation(geneIndex));
         }
     }
 
@@ -4,13 +4,11 @@ import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
-import static com.hartwig.hmftools.common.sigs.SigUtils.calcResiduals;
 import static com.hartwig.hmftools.common.sigs.SigUtils.calculateFittedCounts;
 import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
 import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
 import static com.hartwig.hmftools.isofox.IsofoxConstants.MAX_GENE_PERC_CONTRIBUTION;
-import static com.hartwig.hmftools.isofox.expression.CategoryCountsData.hasGeneIdentifier;
 import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.formTranscriptDefinitions;
 
 import java.io.BufferedWriter;
@@ -21,8 +19,7 @@ import java.util.StringJoiner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.sigs.ExpectationMaxFit;
-import com.hartwig.hmftools.common.sigs.SigResiduals;
+import com.hartwig.hmftools.common.sigs.ExpectationMaxFitter;
 import com.hartwig.hmftools.isofox.IsofoxConfig;
 import com.hartwig.hmftools.isofox.adjusts.FragmentSize;
 import com.hartwig.hmftools.isofox.adjusts.GcRatioCounts;
@@ -41,6 +38,9 @@ public class TranscriptExpression
 
     private final List<Double> mFragmentFrequencyRates;
 
+    // each instance is used by a single task thread, so the fitter's working buffers are reused across gene collections
+    private final ExpectationMaxFitter mFitter;
+
     public TranscriptExpression(final IsofoxConfig config, final ExpectedCountsCache cache, final ResultsWriter resultsWriter)
     {
         mConfig = config;
@@ -49,6 +49,7 @@ public class TranscriptExpression
         mCache = cache;
         mExpectedRatesDataMap = Maps.newHashMap();
         mCurrentExpRatesData = null;
+        mFitter = new ExpectationMaxFitter(mConfig.AcceleratedFit);
 
         // convert fragment distribution counts to rates
         double totalFrequencyFrags = mConfig.FragmentSizeData.stream().mapToDouble(x -> x.Frequency).sum();
@@ -111,37 +112,38 @@ public class TranscriptExpression
             return;
 
         final List<String> transcriptIds = mCurrentExpRatesData.TranscriptIds;
+        final int[] transIdValues = mCurrentExpRatesData.transcriptIdValues();
 
-        final double[] fitAllocations = ExpectationMaxFit.performFit(transComboCounts, mCurrentExpRatesData.getTranscriptDefinitions());
-        final double[] fittedCounts = calculateFittedCounts(mCurrentExpRatesData.getTranscriptDefinitions(), fitAllocations);
+        final double[] fitAllocations = new double[transcriptIds.size()];
+        mFitter.fit(transComboCounts, mCurrentExpRatesData.getTranscriptDefinitions(), fitAllocations);
         double fitTotal = sumVector(fitAllocations);
 
-        SigResiduals residuals = calcResiduals(transComboCounts, fittedCounts, totalCounts);
-
-        ISF_LOGGER.debug(String.format("gene(%s) totalFragments(%.0f) fitTotal(%.0f) residuals(%.0f perc=%.3f)",
-                geneSummaryData.GeneNames, totalCounts, fitTotal, residuals.Total, residuals.Percent));
+        ISF_LOGGER.debug(String.format("gene(%s) totalFragments(%.0f) fitTotal(%.0f) residuals(%.0f perc=%.3f) iterations(%d)",
+                geneSummaryData.GeneNames, totalCounts, fitTotal, mFitter.residualsTotal(), mFitter.residualsPercent(),
+                mFitter.iterations()));
 
-        geneSummaryData.setFitResiduals(residuals.Total);
+        geneSummaryData.setFitResiduals(mFitter.residualsTotal());
 
-        final Map<String,Double> transAllocations = geneSummaryData.getFitAllocations();
+        final String[] transNames = new String[transcriptIds.size()];
 
         for(int transIndex = 0; transIndex < transcriptIds.size(); ++transIndex)
         {
-            final String transGeneId = transcriptIds.get(transIndex);
-            final String transName = hasGeneIdentifier(transGeneId) ? transGeneId : transIdMap.get(Integer.parseInt(transGeneId));
-
-            double transAllocation = fitAllocations[transIndex];
+            final String transName = transIdValues[transIndex] >= 0 ?
+                    transIdMap.get(transIdValues[transIndex]) : transcriptIds.get(transIndex);
+            transNames[transIndex] = transName;
 
-            if(transAllocation > 0 && ISF_LOGGER.isTraceEnabled())
+            if(fitAllocations[transIndex] > 0 && ISF_LOGGER.isTraceEnabled())
             {
-                ISF_LOGGER.trace("transcript({}) allocated count({})", transName, String.format("%.2f", transAllocation));
+                ISF_LOGGER.trace("transcript({}) allocated count({})", transName, String.format("%.2f", fitAllocations[transIndex]));
             }
-
-            transAllocations.put(transName, transAllocation);
         }
 
+        geneSummaryData.setFitAllocations(transNames, transIdValues, fitAllocations);
+
         if(mConfig.WriteTransComboData)
         {
+            final double[] fittedCounts = calculateFittedCounts(mCurrentExpRatesData.getTranscriptDefinitions(), fitAllocations);
+
             writeCategoryCounts(mResultsWriter.getCategoryCountsWriter(), geneSummaryData.ChrId, mCurrentExpRatesData.Categories,
                     geneSummaryData.TransCategoryCounts, transComboCounts, fittedCounts, mConfig.applyGcBiasAdjust());
         }
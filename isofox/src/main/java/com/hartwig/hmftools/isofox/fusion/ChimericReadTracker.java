@@ -71,6 +71,11 @@ public class ChimericReadTracker
     private final Map<String,List<ReadRecord>> mPreviousPostGeneReadMap;
     private final ChimericStats mChimericStats;
 
+    // for a chromosome split into task ranges, the range's start and first gene's start, and the mapped coords boundaries
+    // of reads from a prior range which extend into the current gene collection, since these may be spanning chimeric reads
+    private int[] mPriorTaskBounds;
+    private final Set<Integer> mPriorTaskReadBoundaries;
+
     public ChimericReadTracker(final IsofoxConfig config)
     {
         mConfig = config;
@@ -93,6 +98,8 @@ public class ChimericReadTracker
         mHardFilteredReadIds = Maps.newHashMap();
         mGeneCollection = null;
         mKnownSpliteSites = null;
+        mPriorTaskBounds = null;
+        mPriorTaskReadBoundaries = Sets.newHashSet();
     }
 
     public boolean enabled() { return mEnabled; }
@@ -113,6 +120,28 @@ public class ChimericReadTracker
     public List<List<ReadRecord>> getLocalChimericReads() { return mLocalChimericReads; }
     public ChimericStats getStats() { return mChimericStats; }
     public Map<String,Set<String>> getHardFilteredReadIds() { return mHardFilteredReadIds; }
+    public Map<String,List<ReadRecord>> getPostGeneReads() { return mPostGeneReadMap; }
+    public Set<Integer> getPriorTaskReadBoundaries() { return mPriorTaskReadBoundaries; }
+
+    public void setPriorTaskBounds(int taskStartPosition, int firstGeneStart)
+    {
+        mPriorTaskBounds = new int[] { taskStartPosition, firstGeneStart };
+    }
+
+    public boolean isPriorTaskRead(int readStart, int readEnd)
+    {
+        // a read starting before this task range and ending after its first gene's start was spanning for the prior range
+        return mRunFusions && mPriorTaskBounds != null && readStart < mPriorTaskBounds[SE_START] && readEnd >= mPriorTaskBounds[SE_END];
+    }
+
+    public void addPriorTaskRead(final ReadRecord read)
+    {
+        for(int[] mappedCoords : read.getMappedRegionCoords(false))
+        {
+            mPriorTaskReadBoundaries.add(mappedCoords[SE_START]);
+            mPriorTaskReadBoundaries.add(mappedCoords[SE_END]);
+        }
+    }
 
     public boolean isChimeric(final ReadRecord read1, final ReadRecord read2, boolean isDuplicate, boolean isMultiMapped)
     {
@@ -167,6 +196,7 @@ public class ChimericReadTracker
         mPreviousPostGeneReadMap.clear();
         mPreviousPostGeneReadMap.putAll(mPostGeneReadMap);
         mPostGeneReadMap.clear();
+        mPriorTaskReadBoundaries.clear();
     }
 
     public void clear() { clear(false); }
@@ -4,16 +4,22 @@ import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
 import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
 import static com.hartwig.hmftools.isofox.IsofoxFunction.FUSIONS;
+import static com.hartwig.hmftools.isofox.common.ReadRecord.NO_GENE_ID;
 import static com.hartwig.hmftools.isofox.fusion.FusionConstants.HIGH_LOG_COUNT;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.isofox.GeneTaskRange;
 import com.hartwig.hmftools.isofox.IsofoxConfig;
 import com.hartwig.hmftools.isofox.common.BaseDepth;
 import com.hartwig.hmftools.isofox.common.GeneCollection;
+import com.hartwig.hmftools.isofox.common.ReadRecord;
 
 public class ChromosomeFusions
 {
@@ -26,8 +32,17 @@ public class ChromosomeFusions
     private final ChimericStats mChimericStats;
     private final PerformanceCounter mPerfCounter;
 
+    // set when the chromosome is split into several task ranges
+    private final FusionTaskRanges mTaskRanges;
+    private final int mTaskIndex;
+    private final int mTaskStartPosition;
+
+    // once a gene collection may complete groups from a prior task range, it and all after it are held until reconciliation
+    private final List<DeferredGeneCollection> mDeferredCollections;
+    private final List<FusionRead> mDeferredSpanningReads;
+
     public ChromosomeFusions(
-            final IsofoxConfig config, final String chromosome,
+            final IsofoxConfig config, final String chromosome, final GeneTaskRange taskRange,
             final FusionTaskManager fusionManager, final ChimericReadTracker chimericReadTracker, final PerformanceCounter perfCounter)
     {
         mConfig = config;
@@ -42,6 +57,14 @@ public class ChromosomeFusions
 
         mChimericReadTracker.setKnownSpliteSites(fusionManager.hardFilteredCache().getKnownSpliteSites());
 
+        mTaskRanges = fusionManager.getTaskRanges(chromosome);
+        mTaskIndex = mTaskRanges != null ? mTaskRanges.taskIndex(taskRange) : 0;
+        mTaskStartPosition = taskRange.PriorCollectionEnd;
+        mDeferredCollections = Lists.newArrayList();
+        mDeferredSpanningReads = Lists.newArrayList();
+
+        if(mTaskRanges != null)
+            mFusionFinder.setLocalFusionPositions(mTaskRanges.localFusionPositions());
     }
 
     public ChimericStats chimericStats() { return mChimericStats; }
@@ -56,6 +79,13 @@ public class ChromosomeFusions
         else
             mPerfCounter.resume();
 
+        if(mTaskRanges != null && mTaskIndex > 0 && (!mDeferredCollections.isEmpty() || linksToPriorTask()))
+        {
+            deferGeneCollection(geneCollection, baseDepth);
+            mPerfCounter.pause();
+            return;
+        }
+
         // pass any complete chimeric read groups to the fusion finder
         // and add to this any groups which are now complete (ie which were partially complete before)
         // cache any incomplete groups, either for later gene collections or from other chromosomes
@@ -88,7 +118,51 @@ public class ChromosomeFusions
 
     }
     
+    public void onTaskComplete()
+    {
+        if(mTaskRanges == null)
+        {
+            onChromosomeComplete();
+            return;
+        }
+
+        // hand this task range's unresolved read groups to the chromosome's last task to complete
+        TaskRangeFusionState taskState = new TaskRangeFusionState(
+                Maps.newHashMap(mFusionFinder.getChimericPartialReadGroups()), Lists.newArrayList(mFusionFinder.getSpanningReadGroups()),
+                Lists.newArrayList(mDeferredCollections), copyHardFilteredReadIds(mChimericReadTracker.getHardFilteredReadIds()),
+                Maps.newHashMap(mChimericReadTracker.getPostGeneReads()));
+
+        mDeferredCollections.clear();
+        mDeferredSpanningReads.clear();
+        mChimericReadTracker.clearAll();
+        mFusionFinder.getChimericPartialReadGroups().clear();
+        mFusionFinder.getSpanningReadGroups().clear();
+
+        ISF_LOGGER.debug("chr({}) task({} of {}) fusion state: {}", mChromosome, mTaskIndex + 1, mTaskRanges.taskCount(), taskState);
+
+        if(!mTaskRanges.addTaskState(mTaskIndex, taskState))
+        {
+            mFusionTaskManager.addHardFilteredFusionCount(mFusionFinder.getHardFilteredCount());
+            mFusionFinder.clearState(false);
+            mPerfCounter.stop();
+            return;
+        }
+
+        mPerfCounter.resume();
+
+        Map<String,Set<String>> chrHardFilteredIds = reconcileTaskRanges();
+
+        mPerfCounter.pause();
+
+        completeChromosome(chrHardFilteredIds);
+    }
+
     public void onChromosomeComplete()
+    {
+        completeChromosome(mChimericReadTracker.getHardFilteredReadIds());
+    }
+
+    private void completeChromosome(final Map<String,Set<String>> chrHardFilteredIds)
     {
         if(mChimericStats.ChimericJunctions > HIGH_LOG_COUNT)
         {
@@ -101,8 +175,6 @@ public class ChromosomeFusions
 
         // handle fragments spanning multiple chromosomes
 
-        Map<String, Set<String>> chrHardFilteredIds = mChimericReadTracker.getHardFilteredReadIds();
-
         // organise incomplete reads into the chromosomes which they link to
         final Map<String,Map<String,FusionReadGroup>> chrIncompleteReadsGroups = mFusionFinder.extractIncompleteReadGroups(
                 mChromosome, chrHardFilteredIds);
@@ -125,4 +197,159 @@ public class ChromosomeFusions
         mFusionFinder.clearState(true);
 
     }
+
+    private boolean linksToPriorTask()
+    {
+        // a read from a prior task range may be spanning into this gene collection, or an incomplete group may have reads
+        // in a prior task range, in which case it would be completed by this or a later gene collection
+        if(!mChimericReadTracker.getPriorTaskReadBoundaries().isEmpty())
+            return true;
+
+        for(FusionReadGroup readGroup : mChimericReadTracker.getReadMap().values())
+        {
+            if(readGroup.isComplete())
+                continue;
+
+            for(FusionRead read : readGroup.Reads)
+            {
+                if(read.MateChromosome.equals(mChromosome) && read.MatePosStart < mTaskStartPosition)
+                    return true;
+
+                if(read.SuppData != null && read.SuppData.Chromosome.equals(mChromosome) && read.SuppData.Position < mTaskStartPosition)
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void deferGeneCollection(final GeneCollection geneCollection, final BaseDepth baseDepth)
+    {
+        if(mDeferredCollections.isEmpty())
+        {
+            ISF_LOGGER.debug("chr({}) task({}) deferring fusions from genes({})",
+                    mChromosome, mTaskIndex + 1, geneCollection.geneNames());
+
+            mFusionFinder.getSpanningReadGroups().forEach(x -> addDeferredSpanningReads(x));
+        }
+
+        // keep depth only where a spanning read's upper gene info and depth could be filled in from this gene collection
+        int nonGenicStart = geneCollection.getNonGenicPositions()[SE_START];
+        mDeferredSpanningReads.removeIf(x -> x.getCoordsBoundary(SE_END) < nonGenicStart);
+
+        Set<Integer> depthPositions = Sets.newHashSet(mChimericReadTracker.getPriorTaskReadBoundaries());
+
+        for(FusionRead read : mDeferredSpanningReads)
+        {
+            for(int[] mappedCoords : read.MappedCoords)
+            {
+                depthPositions.add(mappedCoords[SE_START]);
+                depthPositions.add(mappedCoords[SE_END]);
+            }
+
+            for(int junctionPosition : read.junctionPositions())
+            {
+                depthPositions.add(junctionPosition);
+            }
+        }
+
+        Map<Integer,Integer> depthMap = Maps.newHashMap();
+
+        for(Integer position : depthPositions)
+        {
+            if(baseDepth.hasPosition(position))
+                depthMap.put(position, baseDepth.depthAtBase(position));
+        }
+
+        Map<String,FusionReadGroup> readGroups = Maps.newHashMap(mChimericReadTracker.getReadMap());
+        readGroups.values().forEach(x -> addDeferredSpanningReads(x));
+
+        mDeferredCollections.add(new DeferredGeneCollection(geneCollection, readGroups, new BaseDepth(baseDepth, depthMap)));
+
+        mChimericStats.merge(mChimericReadTracker.getStats());
+
+        mFusionTaskManager.addRacFragments(
+                mChromosome, geneCollection.id(), mChimericReadTracker.extractJunctionRacFragments());
+    }
+
+    private void addDeferredSpanningReads(final FusionReadGroup readGroup)
+    {
+        readGroup.Reads.stream().filter(x -> x.GeneCollections[SE_END] == NO_GENE_ID).forEach(x -> mDeferredSpanningReads.add(x));
+    }
+
+    private Map<String,Set<String>> reconcileTaskRanges()
+    {
+        // take each task range's read groups in order, processing its deferred gene collections as they would have been
+        // if the chromosome had been processed by a single task
+        mFusionFinder.getChimericPartialReadGroups().clear();
+        mFusionFinder.getSpanningReadGroups().clear();
+
+        Map<String,Set<String>> chrHardFilteredIds = Maps.newHashMap();
+        Map<String,List<ReadRecord>> previousPostGeneReads = null;
+
+        for(int taskIndex = 0; taskIndex < mTaskRanges.taskCount(); ++taskIndex)
+        {
+            TaskRangeFusionState taskState = mTaskRanges.getTaskState(taskIndex);
+
+            mFusionFinder.addPriorReadGroups(taskState.PartialReadGroups, taskState.SpanningReadGroups);
+
+            int taskCollectionIdStart = mTaskRanges.taskRange(taskIndex).CollectionIdStart;
+
+            for(DeferredGeneCollection deferredCollection : taskState.DeferredCollections)
+            {
+                if(deferredCollection.Id == taskCollectionIdStart && previousPostGeneReads != null)
+                    removePriorPostGeneReads(deferredCollection, previousPostGeneReads);
+
+                final List<FusionReadGroup> completeReadGroups = mFusionFinder.processNewChimericReadGroups(
+                        deferredCollection.Id, deferredCollection.NonGenicPositions, deferredCollection.RegionBounds,
+                        deferredCollection.Transcripts, deferredCollection.Depth, deferredCollection.ReadGroups);
+
+                mFusionFinder.processLocalReadGroups(completeReadGroups);
+            }
+
+            for(Map.Entry<String,Set<String>> entry : taskState.HardFilteredReadIds.entrySet())
+            {
+                Set<String> readIds = chrHardFilteredIds.computeIfAbsent(entry.getKey(), k -> Sets.newHashSet());
+                readIds.addAll(entry.getValue());
+            }
+
+            previousPostGeneReads = taskState.PostGeneReads;
+        }
+
+        ISF_LOGGER.debug("chr({}) reconciled {} task ranges, partials({}) spanning({})",
+                mChromosome, mTaskRanges.taskCount(), mFusionFinder.getChimericPartialReadGroups().size(),
+                mFusionFinder.getSpanningReadGroups().size());
+
+        return chrHardFilteredIds;
+    }
+
+    private void removePriorPostGeneReads(
+            final DeferredGeneCollection deferredCollection, final Map<String,List<ReadRecord>> previousPostGeneReads)
+    {
+        // reads after the prior task range's last gene collection were processed by it and again by this task range
+        for(Map.Entry<String,List<ReadRecord>> entry : previousPostGeneReads.entrySet())
+        {
+            FusionReadGroup readGroup = deferredCollection.ReadGroups.get(entry.getKey());
+
+            if(readGroup == null)
+                continue;
+
+            readGroup.Reads.removeIf(x -> entry.getValue().stream().anyMatch(y -> matchesRead(x, y)));
+
+            if(readGroup.Reads.isEmpty())
+                deferredCollection.ReadGroups.remove(entry.getKey());
+        }
+    }
+
+    private static boolean matchesRead(final FusionRead read, final ReadRecord readRecord)
+    {
+        return read.posStart() == readRecord.PosStart && read.posEnd() == readRecord.PosEnd && read.Cigar.equals(readRecord.Cigar.toString());
+    }
+
+    private static Map<String,Set<String>> copyHardFilteredReadIds(final Map<String,Set<String>> hardFilteredReadIds)
+    {
+        Map<String,Set<String>> readIdsCopy = Maps.newHashMap();
+        hardFilteredReadIds.forEach((key, value) -> readIdsCopy.put(key, Sets.newHashSet(value)));
+        return readIdsCopy;
+    }
 }
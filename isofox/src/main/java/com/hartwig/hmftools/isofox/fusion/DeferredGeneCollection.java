@@ -0,0 +1,38 @@
+package com.hartwig.hmftools.isofox.fusion;
+
+import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
+import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
+
+import java.util.List;
+import java.util.Map;
+
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.isofox.common.BaseDepth;
+import com.hartwig.hmftools.isofox.common.GeneCollection;
+
+public class DeferredGeneCollection
+{
+    // a gene collection's chimeric read groups held back until read groups from the chromosome's prior task ranges are known
+    public final int Id;
+    public final int[] NonGenicPositions;
+    public final int[] RegionBounds;
+    public final List<TranscriptData> Transcripts;
+    public final Map<String,FusionReadGroup> ReadGroups;
+    public final BaseDepth Depth; // only at the positions of reads which may span into this gene collection
+
+    public DeferredGeneCollection(
+            final GeneCollection geneCollection, final Map<String,FusionReadGroup> readGroups, final BaseDepth depth)
+    {
+        Id = geneCollection.id();
+        NonGenicPositions = geneCollection.getNonGenicPositions().clone();
+        RegionBounds = geneCollection.regionBounds().clone();
+        Transcripts = geneCollection.getTranscripts();
+        ReadGroups = readGroups;
+        Depth = depth;
+    }
+
+    public String toString()
+    {
+        return String.format("id(%d) bounds(%d - %d) readGroups(%d)", Id, RegionBounds[SE_START], RegionBounds[SE_END], ReadGroups.size());
+    }
+}
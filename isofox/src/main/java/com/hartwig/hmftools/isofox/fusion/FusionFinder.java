@@ -60,7 +60,7 @@ public class FusionFinder implements Callable
     private final Map<String,List<FusionReadData>> mFusionCandidates; // keyed by the chromosome pair
     private final Map<String,Map<String,FusionReadData>> mFusionsByLocation; // keyed by the chromosome pair, then precise position (hashed)
     private final Map<String,List<FusionFragment>> mDiscordantFragments; // keyed by the chromosome pair
-    private final Set<String> mLocalFusionPositions; // set to remove duplicates spanning gene collections
+    private Set<String> mLocalFusionPositions; // set to remove duplicates spanning gene collections
 
     private final FusionWriter mFusionWriter;
 
@@ -117,6 +117,17 @@ public class FusionFinder implements Callable
     public final RacFragmentCache racFragmentCache() { return mRacFragmentCache; }
     public int getHardFilteredCount() { return mHardFilteredCount; }
 
+    // shared by the finders of a chromosome's task ranges
+    public void setLocalFusionPositions(final Set<String> localFusionPositions) { mLocalFusionPositions = localFusionPositions; }
+
+    public void addPriorReadGroups(final Map<String,FusionReadGroup> partialReadGroups, final List<FusionReadGroup> spanningReadGroups)
+    {
+        // take on read groups carried from a chromosome's earlier task range, which cannot yet be complete
+        List<FusionReadGroup> completeReadGroups = Lists.newArrayList();
+        mergeChimericReadMaps(mChimericPartialReadGroups, completeReadGroups, partialReadGroups);
+        mSpanningReadGroups.addAll(spanningReadGroups);
+    }
+
     public void clearState(boolean isFinal)
     {
         mAllFragments.clear();
@@ -134,6 +145,15 @@ public class FusionFinder implements Callable
 
     public List<FusionReadGroup> processNewChimericReadGroups(
             final GeneCollection geneCollection, final BaseDepth baseDepth, final Map<String,FusionReadGroup> newReadGroups)
+    {
+        return processNewChimericReadGroups(
+                geneCollection.id(), geneCollection.getNonGenicPositions(), geneCollection.regionBounds(),
+                geneCollection.getTranscripts(), baseDepth, newReadGroups);
+    }
+
+    public List<FusionReadGroup> processNewChimericReadGroups(
+            int geneCollectionId, final int[] nonGenicPositions, final int[] regionBounds, final List<TranscriptData> transcripts,
+            final BaseDepth baseDepth, final Map<String,FusionReadGroup> newReadGroups)
     {
         List<FusionReadGroup> completeReadGroups = Lists.newArrayList();
 
@@ -145,7 +165,8 @@ public class FusionFinder implements Callable
                 .filter(x -> x.Reads.stream().anyMatch(y -> y.GeneCollections[SE_END] == NO_GENE_ID))
                 .collect(Collectors.toList());
 
-        final List<FusionReadGroup> geneCompletedGroups = reconcileSpanningReadGroups(geneCollection, spanningGroups, baseDepth);
+        final List<FusionReadGroup> geneCompletedGroups = reconcileSpanningReadGroups(
+                geneCollectionId, nonGenicPositions, regionBounds, transcripts, spanningGroups, baseDepth);
 
         spanningGroups.stream().forEach(x -> completeReadGroups.remove(x));
         geneCompletedGroups.stream().filter(x -> !completeReadGroups.contains(x)).forEach(x -> completeReadGroups.add(x));
@@ -154,7 +175,8 @@ public class FusionFinder implements Callable
     }
 
     private List<FusionReadGroup> reconcileSpanningReadGroups(
-            final GeneCollection geneCollection, final List<FusionReadGroup> spanningReadGroups, final BaseDepth baseDepth)
+            int geneCollectionId, final int[] nonGenicPositions, final int[] regionBounds, final List<TranscriptData> transcripts,
+            final List<FusionReadGroup> spanningReadGroups, final BaseDepth baseDepth)
     {
         List<FusionReadGroup> completeGroups = Lists.newArrayList();
 
@@ -170,23 +192,21 @@ public class FusionFinder implements Callable
                 if(read.GeneCollections[SE_END] != NO_GENE_ID)
                     continue;
 
-                if(!positionWithin(read.getCoordsBoundary(SE_END),
-                        geneCollection.getNonGenicPositions()[SE_START], geneCollection.getNonGenicPositions()[SE_END]))
+                if(!positionWithin(read.getCoordsBoundary(SE_END), nonGenicPositions[SE_START], nonGenicPositions[SE_END]))
                 {
                     missingGeneInfo = true;
                     continue;
                 }
 
-                if(positionWithin(read.getCoordsBoundary(SE_END),
-                        geneCollection.regionBounds()[SE_START], geneCollection.regionBounds()[SE_END]))
+                if(positionWithin(read.getCoordsBoundary(SE_END), regionBounds[SE_START], regionBounds[SE_END]))
                 {
-                    read.GeneCollections[SE_END] = geneCollection.id();
+                    read.GeneCollections[SE_END] = geneCollectionId;
                     read.IsGenicRegion[SE_END] = true;
-                    checkMissingGeneData(read, geneCollection.getTranscripts());
+                    checkMissingGeneData(read, transcripts);
                 }
                 else
                 {
-                    read.GeneCollections[SE_END] = geneCollection.id();
+                    read.GeneCollections[SE_END] = geneCollectionId;
                     read.IsGenicRegion[SE_END] = false;
                 }
 
@@ -1041,14 +1061,12 @@ public class FusionFinder implements Callable
                 {
                     String junctionPair = fusion.getInitialFragment().positionHash();
 
-                    if(mLocalFusionPositions.contains(junctionPair))
+                    // record this for subsequent gene-collections with partial spanning groups
+                    if(!mLocalFusionPositions.add(junctionPair))
                     {
                         fusionCandidates.remove(index);
                         continue;
                     }
-
-                    // record this for subsequent gene-collections with partial spanning groups
-                    mLocalFusionPositions.add(junctionPair);
                 }
 
                 ++index;
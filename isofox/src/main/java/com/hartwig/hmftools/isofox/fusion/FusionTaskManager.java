@@ -1,18 +1,23 @@
 package com.hartwig.hmftools.isofox.fusion;
 
 import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
-import static com.hartwig.hmftools.isofox.fusion.FusionReadGroup.mergeChimericReadMaps;
 import static com.hartwig.hmftools.isofox.fusion.HardFilteredCache.removePartialGroupsWithHardFilteredMatch;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.isofox.GeneTaskRange;
 import com.hartwig.hmftools.isofox.IsofoxConfig;
 
+import org.jetbrains.annotations.Nullable;
+
 public class FusionTaskManager
 {
     private final IsofoxConfig mConfig;
@@ -23,8 +28,13 @@ public class FusionTaskManager
 
     private final RacFragmentCache mRacFragmentCache;
     private final HardFilteredCache mHardFilteredCache;
-    private int mHardFilteredFusionCount;
-    private final Map<String,Map<String,FusionReadGroup>> mIncompleteReadGroups; // keyed by chromosome then readId
+    private final AtomicInteger mHardFilteredFusionCount;
+
+    // incomplete groups from all chromosomes, keyed by readId and merged as each chromosome completes
+    private final ConcurrentMap<String,FusionReadGroup> mIncompleteReadGroups;
+    private final Set<String> mCompletedChromosomes;
+
+    private final Map<String,FusionTaskRanges> mChromosomeTaskRanges;
 
     public FusionTaskManager(final IsofoxConfig config, final EnsemblDataCache geneTransCache)
     {
@@ -34,12 +44,14 @@ public class FusionTaskManager
         mPassingFusions = new PassingFusions(config.Fusions.KnownFusions, config.Fusions.CohortFile);
 
         mRacFragmentCache = new RacFragmentCache();
-        mIncompleteReadGroups = Maps.newHashMap();
+        mIncompleteReadGroups = Maps.newConcurrentMap();
+        mCompletedChromosomes = Sets.newConcurrentHashSet();
         mHardFilteredCache = new HardFilteredCache();
+        mChromosomeTaskRanges = Maps.newHashMap();
 
         mGeneTransCache.createTranscriptIdMap();
         mHardFilteredCache.registerKnownSpliteSites(mGeneTransCache);
-        mHardFilteredFusionCount = 0;
+        mHardFilteredFusionCount = new AtomicInteger();
 
         mFusionWriter = new FusionWriter(mConfig);
     }
@@ -51,66 +63,78 @@ public class FusionTaskManager
 
     public final RacFragmentCache racFragmentCache() { return mRacFragmentCache; }
     public final HardFilteredCache hardFilteredCache() { return mHardFilteredCache; }
-    public final Map<String,Map<String,FusionReadGroup>> incompleteReadGroups() { return mIncompleteReadGroups; }
+    public final Map<String,FusionReadGroup> incompleteReadGroups() { return mIncompleteReadGroups; }
+
+    public void registerTaskRanges(final String chromosome, final List<GeneTaskRange> taskRanges)
+    {
+        // a chromosome split into several tasks hands its fusion read groups to the task which completes last
+        if(taskRanges.size() > 1)
+            mChromosomeTaskRanges.put(chromosome, new FusionTaskRanges(chromosome, taskRanges));
+    }
 
-    public synchronized List<FusionReadGroup> addIncompleteReadGroup(
+    @Nullable
+    public FusionTaskRanges getTaskRanges(final String chromosome) { return mChromosomeTaskRanges.get(chromosome); }
+
+    public List<FusionReadGroup> addIncompleteReadGroup(
             final String chromosome, final Map<String,Map<String,FusionReadGroup>> chrIncompleteGroups,
             final Map<String,Set<String>> chrHardFilteredReadIds)
     {
         // receive new chromosome's incomplete groups for a particular chromosome, with these grouped by the chromosome they link to
         // additionally the new chromosome's hard-filtered groups, which are used to clear out the cache of previous partial groups
         // likewise use the existing hard-filtered cache to clean out any of the new partial groups
-        int initTotalIncomplete = mIncompleteReadGroups.values().stream().mapToInt(x -> x.size()).sum();
+        // chromosomes complete concurrently, so each group is merged atomically on its readId and the thread completing it owns it
+        int initTotalIncomplete = mIncompleteReadGroups.size();
         int initTotalHardFiltered = mHardFilteredCache.cacheCount();
         int initChrIncomplete = chrIncompleteGroups.values().stream().mapToInt(x -> x.size()).sum();
         int initChrHardFiltered = chrHardFilteredReadIds.values().stream().mapToInt(x -> x.size()).sum();
 
         List<FusionReadGroup> completeGroups = Lists.newArrayList();
 
-        for(Map.Entry<String,Map<String, FusionReadGroup>> entry : chrIncompleteGroups.entrySet())
+        mHardFilteredCache.removeHardFilteredReads(chromosome, chrIncompleteGroups, chrHardFilteredReadIds);
+
+        removePartialGroupsWithHardFilteredMatch(mIncompleteReadGroups, chrHardFilteredReadIds);
+
+        for(Map.Entry<String,Map<String,FusionReadGroup>> entry : chrIncompleteGroups.entrySet())
         {
             String otherChromosome = entry.getKey();
-            Map<String, FusionReadGroup> newIncompleteGroups = entry.getValue();
+            Map<String,FusionReadGroup> newIncompleteGroups = entry.getValue();
 
-            Map<String,FusionReadGroup> existingGroups = mIncompleteReadGroups.get(otherChromosome);
+            int existingComplete = completeGroups.size();
 
-            if(existingGroups == null)
+            for(FusionReadGroup readGroup : newIncompleteGroups.values())
             {
-                Map<String,FusionReadGroup> chromosomeGroups = mIncompleteReadGroups.get(chromosome);
-                if(chromosomeGroups == null)
+                mIncompleteReadGroups.compute(readGroup.ReadId, (readId, existingGroup) ->
                 {
-                    chromosomeGroups = Maps.newHashMap();
-                    mIncompleteReadGroups.put(chromosome, chromosomeGroups);
-                }
+                    if(existingGroup == null)
+                        return readGroup;
 
-                chromosomeGroups.putAll(newIncompleteGroups);
+                    existingGroup.merge(readGroup);
 
-                ISF_LOGGER.debug("added chromosomes({} & {}) newGroups({}) new hardFiltered({})",
-                        chromosome, otherChromosome, newIncompleteGroups.size(),
-                        chrHardFilteredReadIds.values().stream().mapToInt(x -> x.size()).sum());
-            }
-            else
-            {
-                removePartialGroupsWithHardFilteredMatch(existingGroups, chrHardFilteredReadIds);
+                    if(!existingGroup.isComplete())
+                        return existingGroup;
 
-                mHardFilteredCache.removeHardFilteredReads(chromosome, chrIncompleteGroups, chrHardFilteredReadIds);
+                    completeGroups.add(existingGroup);
+                    return null;
+                });
+            }
 
-                mergeChimericReadMaps(existingGroups, completeGroups, newIncompleteGroups);
+            ISF_LOGGER.debug("combined chromosomes({} & {}) new({}) complete({})",
+                    chromosome, otherChromosome, newIncompleteGroups.size(), completeGroups.size() - existingComplete);
+        }
 
-                // check and remove previously hard-filtered supplementary read groups
-                // purge any hard-filtered groups involving these 2 chromosomes since they won't be handled again
-                mHardFilteredCache.purgeChromosomeEntries(chromosome, otherChromosome);
+        mHardFilteredCache.addHardFilteredReads(chrHardFilteredReadIds);
 
-                ISF_LOGGER.debug("combined chromosomes({} & {}) existing({}) new({}) complete({})",
-                        chromosome, otherChromosome, existingGroups.size(), newIncompleteGroups.size(), completeGroups.size());
-            }
+        // purge any hard-filtered groups involving chromosomes which have both completed since they won't be handled again
+        for(String otherChromosome : mCompletedChromosomes)
+        {
+            mHardFilteredCache.purgeChromosomeEntries(chromosome, otherChromosome);
         }
 
-        mHardFilteredCache.addHardFilteredReads(chrHardFilteredReadIds);
+        mCompletedChromosomes.add(chromosome);
 
-        int newTotalIncomplete = mIncompleteReadGroups.values().stream().mapToInt(x -> x.size()).sum();
+        int newTotalIncomplete = mIncompleteReadGroups.size();
         int newTotalHardFiltered = mHardFilteredCache.cacheCount();
-        int newChrHardFiltered = chrHardFilteredReadIds.values().stream().mapToInt(x -> x.size()).sum();;
+        int newChrHardFiltered = chrHardFilteredReadIds.values().stream().mapToInt(x -> x.size()).sum();
 
         ISF_LOGGER.info("chr({}) complete({}) partials chr({}) total({} -> {}), filtered chr({} -> {}) total({} -> {})",
                 chromosome, completeGroups.size(), initChrIncomplete, initTotalIncomplete, newTotalIncomplete,
@@ -119,17 +143,17 @@ public class FusionTaskManager
         return completeGroups;
     }
 
-    public synchronized void addRacFragments(final String chromosome, int geneCollectionId, final JunctionRacFragments racFragments)
+    public void addRacFragments(final String chromosome, int geneCollectionId, final JunctionRacFragments racFragments)
     {
         mRacFragmentCache.addRacFragments(chromosome, geneCollectionId, racFragments);
     }
 
-    public synchronized void addHardFilteredFusionCount(int count) { mHardFilteredFusionCount += count; }
+    public void addHardFilteredFusionCount(int count) { mHardFilteredFusionCount.addAndGet(count); }
 
     public void close()
     {
-        int incompleteGroupCount = mIncompleteReadGroups.values().stream().mapToInt(x -> x.size()).sum();
-        int totalHardFiltered = mHardFilteredFusionCount + mHardFilteredCache.hardFilteredCount();
+        int incompleteGroupCount = mIncompleteReadGroups.size();
+        int totalHardFiltered = mHardFilteredFusionCount.get() + mHardFilteredCache.hardFilteredCount();
 
         ISF_LOGGER.info("all fusion tasks complete: incompleteGroups({}) RAC frags({} assigned={} groups={}) hardFiltered({} supps={})",
                 incompleteGroupCount, mRacFragmentCache.totalFragmentCount(), mRacFragmentCache.assignedFragmentCount(),
@@ -143,26 +167,20 @@ public class FusionTaskManager
         {
             List<FusionReadGroup> incompleteGroups = Lists.newArrayList();
 
-            for(Map.Entry<String,Map<String, FusionReadGroup>> chrEntry : mIncompleteReadGroups.entrySet())
+            for(FusionReadGroup readGroup : mIncompleteReadGroups.values())
             {
-                String chromosome = chrEntry.getKey();
-
-                if(mConfig.Filters.excludeChromosome(chromosome))
+                if(mConfig.Filters.excludeChromosome(readGroup.Reads.get(0).Chromosome))
                     continue;
 
-                Map<String, FusionReadGroup> rgMap = chrEntry.getValue();
-                for(FusionReadGroup readGroup : rgMap.values())
+                if(!mConfig.Filters.SpecificChrRegions.Chromosomes.isEmpty())
+                {
+                    if(readGroup.Reads.stream().anyMatch(x -> mConfig.Filters.SpecificChrRegions.excludeChromosome(x.MateChromosome)))
+                        continue;
+                }
+
+                if(!skipMissingReads(readGroup.Reads))
                 {
-                    if(!mConfig.Filters.SpecificChrRegions.Chromosomes.isEmpty())
-                    {
-                        if(readGroup.Reads.stream().anyMatch(x -> mConfig.Filters.SpecificChrRegions.excludeChromosome(x.MateChromosome)))
-                            continue;
-                    }
-
-                    if(!skipMissingReads(readGroup.Reads))
-                    {
-                        incompleteGroups.add(readGroup);
-                    }
+                    incompleteGroups.add(readGroup);
                 }
             }
 
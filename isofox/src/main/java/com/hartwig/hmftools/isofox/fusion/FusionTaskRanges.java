@@ -0,0 +1,55 @@
+package com.hartwig.hmftools.isofox.fusion;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.isofox.GeneTaskRange;
+
+public class FusionTaskRanges
+{
+    // fusion state for a chromosome processed as several task ranges, handed to whichever task completes last for reconciliation
+    private final String mChromosome;
+    private final List<GeneTaskRange> mTaskRanges;
+    private final AtomicReferenceArray<TaskRangeFusionState> mTaskStates;
+    private final AtomicInteger mCompletedTasks;
+
+    // local fusions found by any task, to remove duplicates spanning gene collections
+    private final Set<String> mLocalFusionPositions;
+
+    public FusionTaskRanges(final String chromosome, final List<GeneTaskRange> taskRanges)
+    {
+        mChromosome = chromosome;
+        mTaskRanges = taskRanges;
+        mTaskStates = new AtomicReferenceArray<>(taskRanges.size());
+        mCompletedTasks = new AtomicInteger();
+        mLocalFusionPositions = Sets.newConcurrentHashSet();
+    }
+
+    public String chromosome() { return mChromosome; }
+    public int taskCount() { return mTaskRanges.size(); }
+    public GeneTaskRange taskRange(int taskIndex) { return mTaskRanges.get(taskIndex); }
+    public Set<String> localFusionPositions() { return mLocalFusionPositions; }
+
+    public int taskIndex(final GeneTaskRange taskRange)
+    {
+        for(int i = 0; i < mTaskRanges.size(); ++i)
+        {
+            if(mTaskRanges.get(i).CollectionIdStart == taskRange.CollectionIdStart)
+                return i;
+        }
+
+        return -1;
+    }
+
+    public TaskRangeFusionState getTaskState(int taskIndex) { return mTaskStates.get(taskIndex); }
+
+    // returns true if this was the chromosome's last task to complete, which then reconciles all task states in order
+    public boolean addTaskState(int taskIndex, final TaskRangeFusionState taskState)
+    {
+        mTaskStates.set(taskIndex, taskState);
+        return mCompletedTasks.incrementAndGet() == mTaskRanges.size();
+    }
+}
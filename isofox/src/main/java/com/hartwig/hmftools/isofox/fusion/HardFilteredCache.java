@@ -8,6 +8,8 @@ import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.beust.jcommander.internal.Sets;
@@ -19,22 +21,23 @@ import com.hartwig.hmftools.common.gene.TranscriptData;
 
 public class HardFilteredCache
 {
+    // updated concurrently as each chromosome's incomplete groups are reconciled
     private final Map<String,Set<String>> mChromosomePairFilteredReads;
 
     private final Map<String,Set<Integer>> mKnownSpliteSites;
 
-    private int mHardFilteredCount;
+    private final AtomicInteger mHardFilteredCount;
 
     public HardFilteredCache()
     {
-        mChromosomePairFilteredReads = Maps.newHashMap();
+        mChromosomePairFilteredReads = Maps.newConcurrentMap();
         mKnownSpliteSites = Maps.newHashMap();
-        mHardFilteredCount = 0;
+        mHardFilteredCount = new AtomicInteger();
     }
 
     public int cacheCount() { return mChromosomePairFilteredReads.values().stream().mapToInt(x -> x.size()).sum(); }
     public int chrPairCount() { return mChromosomePairFilteredReads.size(); }
-    public int hardFilteredCount() { return mHardFilteredCount; }
+    public int hardFilteredCount() { return mHardFilteredCount.get(); }
     public Map<String,Set<Integer>> getKnownSpliteSites() { return mKnownSpliteSites; }
 
     public void addHardFilteredReads(final Map<String,Set<String>> hardFilteredReadIds)
@@ -44,15 +47,11 @@ public class HardFilteredCache
             if(entry.getValue().isEmpty())
                 continue;
 
-            Set<String> filteredReadIds = mChromosomePairFilteredReads.get(entry.getKey());
-            if(filteredReadIds == null)
-            {
-                filteredReadIds = Sets.newHashSet();
-                mChromosomePairFilteredReads.put(entry.getKey(), filteredReadIds);
-            }
+            Set<String> filteredReadIds = mChromosomePairFilteredReads.computeIfAbsent(
+                    entry.getKey(), k -> ConcurrentHashMap.newKeySet());
 
             filteredReadIds.addAll(entry.getValue());
-            mHardFilteredCount += entry.getValue().size();
+            mHardFilteredCount.addAndGet(entry.getValue().size());
         }
     }
 
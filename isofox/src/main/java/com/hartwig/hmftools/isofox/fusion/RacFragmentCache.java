@@ -5,6 +5,7 @@ import static com.hartwig.hmftools.isofox.fusion.FusionFragmentType.REALIGN_CAND
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.Maps;
 
@@ -13,13 +14,14 @@ import org.jetbrains.annotations.Nullable;
 
 public class RacFragmentCache
 {
+    // added to concurrently by each chromosome's gene collection tasks
     private ConcurrentMap<String, Map<Integer, JunctionRacFragments>> mGroups;
-    private int mTotalFragmentCount;
+    private final AtomicInteger mTotalFragmentCount;
 
     public RacFragmentCache()
     {
         mGroups = Maps.newConcurrentMap();
-        mTotalFragmentCount = 0;
+        mTotalFragmentCount = new AtomicInteger();
     }
 
     public void addRacFragments(final String chromosome, int geneCollectionId, final JunctionRacFragments group)
@@ -27,16 +29,10 @@ public class RacFragmentCache
         if(group.fragmentCount() == 0)
             return;
 
-        Map<Integer,JunctionRacFragments> chrGroups = mGroups.get(chromosome);
-
-        if(chrGroups == null)
-        {
-            chrGroups = Maps.newHashMap();
-            mGroups.put(chromosome, chrGroups);
-        }
+        Map<Integer,JunctionRacFragments> chrGroups = mGroups.computeIfAbsent(chromosome, k -> Maps.newConcurrentMap());
 
         chrGroups.put(geneCollectionId, group);
-        mTotalFragmentCount += group.fragmentCount();
+        mTotalFragmentCount.addAndGet(group.fragmentCount());
     }
 
     @Nullable
@@ -50,7 +46,7 @@ public class RacFragmentCache
         return chrGroups.get(geneCollectionId);
     }
 
-    public int totalFragmentCount() { return mTotalFragmentCount; }
+    public int totalFragmentCount() { return mTotalFragmentCount.get(); }
 
     public int assignedFragmentCount()
     {
@@ -0,0 +1,35 @@
+package com.hartwig.hmftools.isofox.fusion;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.hartwig.hmftools.isofox.common.ReadRecord;
+
+public class TaskRangeFusionState
+{
+    // a task range's fusion read groups which could not be resolved without its chromosome's other task ranges
+    public final Map<String,FusionReadGroup> PartialReadGroups;
+    public final List<FusionReadGroup> SpanningReadGroups;
+    public final List<DeferredGeneCollection> DeferredCollections;
+    public final Map<String,Set<String>> HardFilteredReadIds;
+    public final Map<String,List<ReadRecord>> PostGeneReads; // from the task range's last gene collection
+
+    public TaskRangeFusionState(
+            final Map<String,FusionReadGroup> partialReadGroups, final List<FusionReadGroup> spanningReadGroups,
+            final List<DeferredGeneCollection> deferredCollections, final Map<String,Set<String>> hardFilteredReadIds,
+            final Map<String,List<ReadRecord>> postGeneReads)
+    {
+        PartialReadGroups = partialReadGroups;
+        SpanningReadGroups = spanningReadGroups;
+        DeferredCollections = deferredCollections;
+        HardFilteredReadIds = hardFilteredReadIds;
+        PostGeneReads = postGeneReads;
+    }
+
+    public String toString()
+    {
+        return String.format("partials(%d) spanning(%d) deferred(%d)",
+                PartialReadGroups.size(), SpanningReadGroups.size(), DeferredCollections.size());
+    }
+}
@@ -30,6 +30,7 @@ import com.hartwig.hmftools.isofox.common.FragmentMatchType;
 import com.hartwig.hmftools.isofox.common.GeneCollection;
 import com.hartwig.hmftools.isofox.common.GeneReadData;
 import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile;
 import com.hartwig.hmftools.isofox.expression.ExpectedRatesData;
 
 public class ExpectedCountsGenerator
@@ -51,6 +52,7 @@ public class ExpectedCountsGenerator
     private int mReadLength;
 
     private final BufferedWriter mExpRateWriter;
+    private final ExpectedCountsBinaryFile mExpCountsBinaryWriter;
 
     public ExpectedCountsGenerator(final RefDataConfig config, final RefDataWriter resultsWriter)
     {
@@ -66,6 +68,7 @@ public class ExpectedCountsGenerator
         mGeneCollection = null;
 
         mExpRateWriter = resultsWriter != null ? resultsWriter.getExpRatesWriter() : null;
+        mExpCountsBinaryWriter = resultsWriter != null ? resultsWriter.getExpCountsBinaryWriter() : null;
     }
 
     public List<CategoryCountsData> getTransComboData() { return mTransCategoryCounts; }
@@ -196,6 +199,12 @@ public class ExpectedCountsGenerator
         buildUniqueCategoryCounts();
 
         writeExpectedCounts(mExpRateWriter, geneCollection.chrId(), mTransCategoryCounts);
+
+        if(mExpCountsBinaryWriter != null)
+        {
+            List<String> geneIds = geneCollection.genes().stream().map(x -> x.GeneData.GeneId).collect(Collectors.toList());
+            mExpCountsBinaryWriter.writeGeneSet(geneCollection.chrId(), geneIds, mTransCategoryCounts);
+        }
     }
 
     private void buildUniqueCategoryCounts()
@@ -40,6 +40,7 @@ public class RefDataConfig
     public final List<FragmentSize> FragmentSizeData;
     public final boolean GenerateExpectedCounts;
     public final boolean GenerateGcRatios;
+    public final boolean WriteBinaryExpectedCounts;
     public final RefGenomeVersion RefGenVersion;
     public final RefGenomeInterface RefGenome;
 
@@ -52,11 +53,13 @@ public class RefDataConfig
 
     private final static String GEN_EXPECTED_COUNTS = "expected_counts";
     private final static String GEN_GC_RATIOS = "expected_gc_ratios";
+    private final static String EXP_COUNTS_BINARY = "expected_counts_binary";
 
     public RefDataConfig(final ConfigBuilder configBuilder)
     {
         GenerateExpectedCounts = configBuilder.hasFlag(GEN_EXPECTED_COUNTS);
         GenerateGcRatios = configBuilder.hasFlag(GEN_GC_RATIOS);
+        WriteBinaryExpectedCounts = GenerateExpectedCounts && configBuilder.hasFlag(EXP_COUNTS_BINARY);
         OutputDir = parseOutputDir(configBuilder);
         OutputId = configBuilder.getValue(OUTPUT_ID);
         Threads = parseThreads(configBuilder);
@@ -109,6 +112,7 @@ public class RefDataConfig
     {
         configBuilder.addFlag(GEN_EXPECTED_COUNTS, "Generate expected transcript counts");
         configBuilder.addFlag(GEN_GC_RATIOS, "Generate expected GC ratios");
+        configBuilder.addFlag(EXP_COUNTS_BINARY, "Also write expected counts as a binary file indexed by gene set");
 
         configBuilder.addInteger(LONG_FRAGMENT_LIMIT, "Max RNA fragment size", DEFAULT_MAX_FRAGMENT_SIZE);
         configBuilder.addRequiredInteger(READ_LENGTH, "Sample sequencing read length");
@@ -129,6 +133,7 @@ public class RefDataConfig
     {
         GenerateExpectedCounts = true;
         GenerateGcRatios = true;
+        WriteBinaryExpectedCounts = false;
         OutputDir = null;
         OutputId = null;
         Threads = 0;
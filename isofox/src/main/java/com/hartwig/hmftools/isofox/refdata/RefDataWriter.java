@@ -6,21 +6,25 @@ import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
 import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+import static com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile.EXP_COUNTS_BINARY_EXTENSION;
 import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.EXP_COUNT_LENGTH_HEADER;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.hartwig.hmftools.isofox.adjusts.FragmentSize;
 import com.hartwig.hmftools.isofox.adjusts.GcRatioCounts;
 import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile;
 
 public class RefDataWriter
 {
     private final RefDataConfig mConfig;
     private BufferedWriter mExpRateWriter;
     private BufferedWriter mGcRatioWriter;
+    private ExpectedCountsBinaryFile mExpCountsBinaryWriter;
 
     public RefDataWriter(final RefDataConfig config)
     {
@@ -29,6 +33,9 @@ public class RefDataWriter
         if(mConfig.GenerateExpectedCounts)
         {
             mExpRateWriter = initExpectedCountsWriter();
+
+            if(mConfig.WriteBinaryExpectedCounts)
+                mExpCountsBinaryWriter = initExpectedCountsBinaryWriter();
         }
 
         if(mConfig.GenerateGcRatios)
@@ -39,6 +46,24 @@ public class RefDataWriter
 
     public BufferedWriter getExpRatesWriter() { return mExpRateWriter;}
     public BufferedWriter getReadGcRatioWriter() { return mGcRatioWriter; }
+    public ExpectedCountsBinaryFile getExpCountsBinaryWriter() { return mExpCountsBinaryWriter; }
+
+    private ExpectedCountsBinaryFile initExpectedCountsBinaryWriter()
+    {
+        try
+        {
+            String outputFileName = String.format("%sread_%d_exp_counts.%s%s",
+                    mConfig.OutputDir, mConfig.ReadLength, mConfig.RefGenVersion.identifier(), EXP_COUNTS_BINARY_EXTENSION);
+
+            List<Integer> fragmentLengths = mConfig.FragmentSizeData.stream().map(x -> x.Length).collect(Collectors.toList());
+            return new ExpectedCountsBinaryFile(outputFileName, fragmentLengths);
+        }
+        catch (IOException e)
+        {
+            ISF_LOGGER.error("failed to create binary expected counts file: {}", e.toString());
+            return null;
+        }
+    }
 
     public BufferedWriter initExpectedCountsWriter()
     {
@@ -157,6 +182,9 @@ public class RefDataWriter
     {
         closeBufferedWriter(mExpRateWriter);
         closeBufferedWriter(mGcRatioWriter);
+
+        if(mExpCountsBinaryWriter != null)
+            mExpCountsBinaryWriter.close();
     }
 
 }
@@ -14,6 +14,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +31,7 @@ import com.hartwig.hmftools.isofox.common.FragmentMatchType;
 import com.hartwig.hmftools.isofox.common.GeneCollection;
 import com.hartwig.hmftools.isofox.common.GeneReadData;
 import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsBinaryFile;
 import com.hartwig.hmftools.common.sigs.ExpectationMaxFit;
 import com.hartwig.hmftools.isofox.expression.ExpectedRatesData;
 import com.hartwig.hmftools.common.utils.Matrix;
@@ -703,4 +709,58 @@ public class ExpectedRatesTest
 
     }
 
+    @Test
+    public void testBinaryExpectedCountsFile() throws IOException
+    {
+        File file = File.createTempFile("exp_counts", ExpectedCountsBinaryFile.EXP_COUNTS_BINARY_EXTENSION);
+        file.deleteOnExit();
+
+        String geneId1 = "ENSG0001";
+        String geneId2 = "ENSG0002";
+        String geneId3 = "ENSG0003";
+
+        CategoryCountsData catCounts1 = new CategoryCountsData(Lists.newArrayList(1, 2), Lists.newArrayList());
+        catCounts1.initialiseLengthCounts(2);
+        catCounts1.addFragLengthCounts(10, 0);
+        catCounts1.addFragLengthCounts(20, 1);
+
+        CategoryCountsData catCounts2 = new CategoryCountsData(Lists.newArrayList(2), Lists.newArrayList(geneId2));
+        catCounts2.initialiseLengthCounts(2);
+        catCounts2.addFragLengthCounts(5, 1);
+
+        CategoryCountsData catCounts3 = new CategoryCountsData(Lists.newArrayList(), Lists.newArrayList(geneId3));
+        catCounts3.initialiseLengthCounts(2);
+        catCounts3.addFragLengthCounts(7, 0);
+
+        ExpectedCountsBinaryFile writer = new ExpectedCountsBinaryFile(file.getAbsolutePath(), Lists.newArrayList(100, 200));
+        writer.writeGeneSet("1_0", Lists.newArrayList(geneId1, geneId2), Lists.newArrayList(catCounts1, catCounts2));
+        writer.writeGeneSet("2_0", Lists.newArrayList(geneId3), Lists.newArrayList(catCounts3));
+        writer.close();
+
+        try(RandomAccessFile raFile = new RandomAccessFile(file, "r"))
+        {
+            ByteBuffer buffer = raFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raFile.length());
+
+            assertEquals(Lists.newArrayList(100, 200), ExpectedCountsBinaryFile.readFragmentLengths(buffer));
+
+            List<ExpectedCountsBinaryFile.GeneSetEntry> entries = ExpectedCountsBinaryFile.readIndex(buffer);
+            assertEquals(2, entries.size());
+            assertEquals("1_0", entries.get(0).GeneSetId);
+            assertEquals(Lists.newArrayList(geneId1, geneId2), entries.get(0).GeneIds);
+            assertEquals("2_0", entries.get(1).GeneSetId);
+
+            List<CategoryCountsData> geneSetCounts = ExpectedCountsBinaryFile.readGeneSet(buffer, entries.get(0), 2);
+            assertEquals(2, geneSetCounts.size());
+            assertEquals(catCounts1.combinedKey(), geneSetCounts.get(0).combinedKey());
+            assertEquals(30, geneSetCounts.get(0).fragmentCount(), 0.01);
+            assertEquals(20, geneSetCounts.get(0).fragmentCountsByLength()[1], 0.01);
+            assertEquals(catCounts2.combinedKey(), geneSetCounts.get(1).combinedKey());
+            assertEquals(5, geneSetCounts.get(1).fragmentCount(), 0.01);
+
+            geneSetCounts = ExpectedCountsBinaryFile.readGeneSet(buffer, entries.get(1), 2);
+            assertEquals(1, geneSetCounts.size());
+            assertEquals(Lists.newArrayList(geneId3), geneSetCounts.get(0).unsplicedGeneIds());
+            assertEquals(7, geneSetCounts.get(0).fragmentCountsByLength()[0], 0.01);
+        }
+    }
 }
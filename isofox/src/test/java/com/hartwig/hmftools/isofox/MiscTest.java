@@ -1,8 +1,16 @@
 package com.hartwig.hmftools.isofox;
 
+import static com.hartwig.hmftools.common.gene.TranscriptProteinData.BIOTYPE_PROTEIN_CODING;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.addTransExonData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createEnsemblGeneData;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createGeneDataCache;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.createTransExons;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_PAIR;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
+import static com.hartwig.hmftools.isofox.GeneTaskRange.formGeneTaskRanges;
+import static com.hartwig.hmftools.isofox.TestUtils.createIsofoxConfig;
 import static com.hartwig.hmftools.isofox.results.TranscriptResult.calcEffectiveLength;
 
 import static junit.framework.TestCase.assertEquals;
@@ -13,8 +21,12 @@ import java.util.Set;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.isofox.adjusts.FragmentSize;
 import com.hartwig.hmftools.isofox.common.BaseDepth;
+import com.hartwig.hmftools.isofox.common.GeneCollection;
+import com.hartwig.hmftools.isofox.results.ResultsWriter;
 
 import org.junit.Test;
 
@@ -87,4 +99,115 @@ public class MiscTest
         assertEquals(2, mapDepth.depthAtBase(115));
         assertEquals(0, mapDepth.depthAtBase(200)); // below the threshold for inclusion
     }
+
+    @Test
+    public void testGeneTaskRanges()
+    {
+        final List<GeneData> geneDataList = createTaskRangeGenes();
+        EnsemblDataCache geneTransCache = createTaskRangeTranscripts(geneDataList, 4000);
+
+        List<GeneTaskRange> taskRanges = formGeneTaskRanges(geneDataList, geneTransCache, 0);
+        assertEquals(1, taskRanges.size());
+        assertEquals(6, taskRanges.get(0).geneCount());
+
+        // ranges cannot split a gene collection
+        taskRanges = formGeneTaskRanges(geneDataList, geneTransCache, 2);
+        assertEquals(3, taskRanges.size());
+
+        assertEquals(0, taskRanges.get(0).GeneStartIndex);
+        assertEquals(3, taskRanges.get(0).GeneEndIndex);
+        assertEquals(0, taskRanges.get(0).CollectionIdStart);
+        assertEquals(1, taskRanges.get(0).PriorCollectionEnd);
+
+        assertEquals(3, taskRanges.get(1).GeneStartIndex);
+        assertEquals(5, taskRanges.get(1).GeneEndIndex);
+        assertEquals(1, taskRanges.get(1).CollectionIdStart);
+        assertEquals(4001, taskRanges.get(1).PriorCollectionEnd);
+
+        assertEquals(5, taskRanges.get(2).GeneStartIndex);
+        assertEquals(6, taskRanges.get(2).GeneEndIndex);
+        assertEquals(3, taskRanges.get(2).CollectionIdStart);
+        assertEquals(8001, taskRanges.get(2).PriorCollectionEnd);
+    }
+
+    @Test
+    public void testSplitGeneCollectionsMatchWholeChromosome()
+    {
+        final List<GeneData> geneDataList = createTaskRangeGenes();
+
+        // a transcript of GENE03 extends past the end of its gene, so the first gene collection's region does too
+        EnsemblDataCache geneTransCache = createTaskRangeTranscripts(geneDataList, 4600);
+
+        List<GeneTaskRange> taskRanges = formGeneTaskRanges(geneDataList, geneTransCache, 2);
+        assertEquals(3, taskRanges.size());
+        assertEquals(4601, taskRanges.get(1).PriorCollectionEnd);
+
+        IsofoxConfig config = createIsofoxConfig();
+        ResultsWriter resultsWriter = new ResultsWriter(config);
+
+        List<String> wholeChromosome = formGeneCollections(
+                new ChromosomeTaskExecutor(config, "1", geneDataList, geneTransCache, resultsWriter, null, null, null));
+
+        List<String> splitChromosome = Lists.newArrayList();
+
+        for(GeneTaskRange taskRange : taskRanges)
+        {
+            splitChromosome.addAll(formGeneCollections(new ChromosomeTaskExecutor(
+                    config, "1", geneDataList, taskRange, geneTransCache, resultsWriter, null, null, null)));
+        }
+
+        // reads are assigned to gene collections by their IDs, region bounds and non-genic positions
+        assertEquals(4, wholeChromosome.size());
+        assertEquals(wholeChromosome, splitChromosome);
+    }
+
+    private static List<String> formGeneCollections(final ChromosomeTaskExecutor chrTask)
+    {
+        List<String> geneCollections = Lists.newArrayList();
+
+        while(chrTask.hasNextGeneCollection())
+        {
+            GeneCollection geneCollection = chrTask.nextGeneCollection();
+
+            geneCollections.add(String.format("%d: genes(%s) region(%d-%d) nonGenic(%d-%d)",
+                    geneCollection.id(), geneCollection.geneNames(), geneCollection.regionBounds()[SE_START],
+                    geneCollection.regionBounds()[SE_END], geneCollection.getNonGenicPositions()[SE_START],
+                    geneCollection.getNonGenicPositions()[SE_END]));
+        }
+
+        return geneCollections;
+    }
+
+    private static List<GeneData> createTaskRangeGenes()
+    {
+        final List<GeneData> geneDataList = Lists.newArrayList();
+
+        // genes 1-3 overlap and so form a single gene collection, the others are each a gene collection
+        geneDataList.add(createEnsemblGeneData("GENE01", "GENE01", "1", 1, 1000, 2000));
+        geneDataList.add(createEnsemblGeneData("GENE02", "GENE02", "1", 1, 1500, 3000));
+        geneDataList.add(createEnsemblGeneData("GENE03", "GENE03", "1", 1, 2500, 4000));
+        geneDataList.add(createEnsemblGeneData("GENE04", "GENE04", "1", 1, 5000, 6000));
+        geneDataList.add(createEnsemblGeneData("GENE05", "GENE05", "1", 1, 7000, 8000));
+        geneDataList.add(createEnsemblGeneData("GENE06", "GENE06", "1", 1, 9000, 10000));
+        return geneDataList;
+    }
+
+    private static EnsemblDataCache createTaskRangeTranscripts(final List<GeneData> geneDataList, int gene3TransEnd)
+    {
+        EnsemblDataCache geneTransCache = createGeneDataCache();
+        addGeneData(geneTransCache, "1", geneDataList);
+
+        for(int i = 0; i < geneDataList.size(); ++i)
+        {
+            GeneData geneData = geneDataList.get(i);
+            int transEnd = geneData.GeneId.equals("GENE03") ? gene3TransEnd : geneData.GeneEnd;
+
+            // a single exon covering the transcript
+            addTransExonData(geneTransCache, geneData.GeneId, Lists.newArrayList(createTransExons(
+                    geneData.GeneId, i + 1, geneData.Strand, new int[] { geneData.GeneStart }, transEnd - geneData.GeneStart,
+                    null, null, true, BIOTYPE_PROTEIN_CODING)));
+        }
+
+        return geneTransCache;
+    }
 }
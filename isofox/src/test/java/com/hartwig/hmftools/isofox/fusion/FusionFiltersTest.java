@@ -285,7 +285,7 @@ public class FusionFiltersTest
         interChromosomalGroups = fusionTaskManager.addIncompleteReadGroup(
                 gc3.chromosome(), chrIncompleteReadsGroups, bamReader2.getChimericReadTracker().getHardFilteredReadIds());
 
-        assertEquals(0, fusionTaskManager.incompleteReadGroups().values().stream().mapToInt(x -> x.size()).sum());
+        assertEquals(0, fusionTaskManager.incompleteReadGroups().size());
         assertEquals(0, fusionTaskManager.hardFilteredCache().cacheCount());
         assertEquals(0, fusionTaskManager.hardFilteredCache().chrPairCount());
 
@@ -0,0 +1,232 @@
+package com.hartwig.hmftools.isofox.fusion;
+
+import static com.hartwig.hmftools.common.rna.GeneFusionFile.UNFILTERED_FUSION_FILE_ID;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
+import static com.hartwig.hmftools.isofox.IsofoxFunction.FUSIONS;
+import static com.hartwig.hmftools.isofox.TestUtils.CHR_1;
+import static com.hartwig.hmftools.isofox.TestUtils.CHR_2;
+import static com.hartwig.hmftools.isofox.TestUtils.GENE_ID_1;
+import static com.hartwig.hmftools.isofox.TestUtils.GENE_ID_2;
+import static com.hartwig.hmftools.isofox.TestUtils.GENE_ID_3;
+import static com.hartwig.hmftools.isofox.TestUtils.GENE_ID_5;
+import static com.hartwig.hmftools.isofox.TestUtils.NEG_STRAND;
+import static com.hartwig.hmftools.isofox.TestUtils.POS_STRAND;
+import static com.hartwig.hmftools.isofox.TestUtils.createCigar;
+import static com.hartwig.hmftools.isofox.TestUtils.createGeneCollection;
+import static com.hartwig.hmftools.isofox.TestUtils.createMappedRead;
+import static com.hartwig.hmftools.isofox.TestUtils.createReadPair;
+import static com.hartwig.hmftools.isofox.TestUtils.createSupplementaryReadPair;
+import static com.hartwig.hmftools.isofox.TestUtils.populateRefGenome;
+import static com.hartwig.hmftools.isofox.fusion.FusionData.FLD_FUSION_ID;
+import static com.hartwig.hmftools.isofox.fusion.FusionData.FLD_REL_SPLICED_IDS;
+import static com.hartwig.hmftools.isofox.fusion.FusionTestUtils.createGeneDataCache;
+import static com.hartwig.hmftools.isofox.fusion.FusionTestUtils.createGroup;
+import static com.hartwig.hmftools.isofox.results.ResultsWriter.DELIMITER;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.test.MockRefGenome;
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.isofox.GeneTaskRange;
+import com.hartwig.hmftools.isofox.IsofoxConfig;
+import com.hartwig.hmftools.isofox.common.BaseDepth;
+import com.hartwig.hmftools.isofox.common.GeneCollection;
+import com.hartwig.hmftools.isofox.common.ReadRecord;
+
+import org.junit.Test;
+
+public class FusionTaskRangesTest
+{
+    @Test
+    public void testSplitChromosomeMatchesSingleTask() throws IOException
+    {
+        File singleTaskDir = createTempDir("isofox_fusions_single");
+        File splitTaskDir = createTempDir("isofox_fusions_split");
+
+        try
+        {
+            List<String> singleTaskFusions = runFusions(singleTaskDir, false);
+            List<String> splitTaskFusions = runFusions(splitTaskDir, true);
+
+            // a fusion across the task ranges, one local to the second range and one with another chromosome
+            assertEquals(3, singleTaskFusions.size());
+            assertEquals(singleTaskFusions, splitTaskFusions);
+        }
+        finally
+        {
+            deleteDir(singleTaskDir);
+            deleteDir(splitTaskDir);
+        }
+    }
+
+    private static List<String> runFusions(final File outputDir, boolean splitTasks) throws IOException
+    {
+        final EnsemblDataCache geneTransCache = createGeneDataCache();
+
+        IsofoxConfig config = new IsofoxConfig(new MockRefGenome(), outputDir.getAbsolutePath() + File.separator);
+        config.Functions.add(FUSIONS);
+        config.MaxFragmentLength = 500;
+        config.Filters.buildGeneRegions(geneTransCache);
+        populateRefGenome(config.RefGenome);
+
+        int gcId = 0;
+        final GeneCollection gc1 = createGeneCollection(geneTransCache, gcId++, Lists.newArrayList(geneTransCache.getGeneDataById(GENE_ID_1)));
+        final GeneCollection gc2 = createGeneCollection(geneTransCache, gcId++, Lists.newArrayList(geneTransCache.getGeneDataById(GENE_ID_2)));
+        final GeneCollection gc3 = createGeneCollection(geneTransCache, gcId++, Lists.newArrayList(geneTransCache.getGeneDataById(GENE_ID_3)));
+        final GeneCollection gc5 = createGeneCollection(geneTransCache, 0, Lists.newArrayList(geneTransCache.getGeneDataById(GENE_ID_5)));
+
+        final Map<String,FusionReadGroup> readGroups1 = Maps.newHashMap();
+        final Map<String,FusionReadGroup> readGroups2 = Maps.newHashMap();
+        final Map<String,FusionReadGroup> readGroups3 = Maps.newHashMap();
+        final Map<String,FusionReadGroup> readGroups5 = Maps.newHashMap();
+
+        // 2 spliced fragments from GENE1 to GENE2, completed by the second task range
+        int readId = 0;
+        ReadRecord read1 = createMappedRead(readId, gc1, 1050, 1089, createCigar(0, 40, 0));
+
+        ReadRecord[] readPair = createSupplementaryReadPair(readId, gc1, gc2, 1081, 1100, 10200, 10219,
+                createCigar(0, 20, 20), createCigar(20, 20, 0), true);
+
+        readPair[1].setStrand(true, false);
+
+        readGroups1.put(read1.Id, createGroup(read1, readPair[0]));
+        readGroups2.put(read1.Id, createGroup(readPair[1]));
+
+        readPair = createSupplementaryReadPair(++readId, gc1, gc2, 1081, 1100, 10200, 10219,
+                createCigar(0, 20, 20), createCigar(20, 20, 0), true);
+
+        ReadRecord read3 = createMappedRead(readId, gc2, 10210, 10249, createCigar(0, 40, 0));
+
+        readPair[1].setStrand(true, false);
+        read3.setStrand(true, false);
+
+        readGroups1.put(read3.Id, createGroup(readPair[0]));
+        readGroups2.put(read3.Id, createGroup(readPair[1], read3));
+
+        // a spliced fragment from GENE2 to GENE3, within the second task range
+        read1 = createMappedRead(++readId, gc2, 10650, 10689, createCigar(0, 40, 0));
+
+        readPair = createSupplementaryReadPair(readId, gc2, gc3, 10681, 10700, 20200, 20219,
+                createCigar(0, 20, 20), createCigar(20, 20, 0), true);
+
+        readPair[1].setStrand(true, false);
+
+        readGroups2.put(read1.Id, createGroup(read1, readPair[0]));
+        readGroups3.put(read1.Id, createGroup(readPair[1]));
+
+        // a spliced fragment and discordant fragment from GENE5 on the other chromosome to GENE3
+        read1 = createMappedRead(++readId, gc5, 10210, 10249, createCigar(0, 40, 20));
+
+        readPair = createSupplementaryReadPair(readId, gc5, gc3, 10200, 10219, 20281, 20300,
+                createCigar(20, 20, 0), createCigar(0, 20, 20), true);
+
+        readPair[0].setStrand(true, false);
+
+        readGroups5.put(read1.Id, createGroup(read1, readPair[0]));
+        readGroups3.put(read1.Id, createGroup(readPair[1]));
+
+        ReadRecord[] discordantReads = createReadPair(++readId, gc3, gc5, 20250, 20289, 10210, 10249,
+                createCigar(0, 40, 0),  createCigar(0, 40, 0), POS_STRAND, NEG_STRAND);
+
+        readGroups5.put(discordantReads[0].Id, createGroup(discordantReads[1]));
+        readGroups3.put(discordantReads[0].Id, createGroup(discordantReads[0]));
+
+        FusionTaskManager fusionTaskManager = new FusionTaskManager(config, geneTransCache);
+
+        if(splitTasks)
+        {
+            GeneTaskRange firstRange = new GeneTaskRange(0, 1, 0, 1);
+            GeneTaskRange secondRange = new GeneTaskRange(1, 3, 1, gc1.regionBounds()[SE_END] + 1);
+            fusionTaskManager.registerTaskRanges(CHR_1, Lists.newArrayList(firstRange, secondRange));
+
+            // the second range completes first, leaving the first to reconcile the chromosome
+            FusionTask secondTask = new FusionTask(config, CHR_1, secondRange, fusionTaskManager);
+            processGeneCollection(secondTask, gc2, readGroups2);
+            processGeneCollection(secondTask, gc3, readGroups3);
+            secondTask.Fusions.onTaskComplete();
+
+            FusionTask firstTask = new FusionTask(config, CHR_1, firstRange, fusionTaskManager);
+            processGeneCollection(firstTask, gc1, readGroups1);
+            firstTask.Fusions.onTaskComplete();
+        }
+        else
+        {
+            FusionTask chrTask = new FusionTask(config, CHR_1, GeneTaskRange.wholeChromosome(Lists.newArrayList()), fusionTaskManager);
+            processGeneCollection(chrTask, gc1, readGroups1);
+            processGeneCollection(chrTask, gc2, readGroups2);
+            processGeneCollection(chrTask, gc3, readGroups3);
+            chrTask.Fusions.onTaskComplete();
+        }
+
+        FusionTask otherChrTask = new FusionTask(config, CHR_2, GeneTaskRange.wholeChromosome(Lists.newArrayList()), fusionTaskManager);
+        processGeneCollection(otherChrTask, gc5, readGroups5);
+        otherChrTask.Fusions.onTaskComplete();
+
+        assertTrue(fusionTaskManager.incompleteReadGroups().isEmpty());
+
+        fusionTaskManager.close();
+
+        return loadFusions(config.formOutputFile(UNFILTERED_FUSION_FILE_ID));
+    }
+
+    private static class FusionTask
+    {
+        public final ChimericReadTracker Tracker;
+        public final ChromosomeFusions Fusions;
+
+        public FusionTask(
+                final IsofoxConfig config, final String chromosome, final GeneTaskRange taskRange, final FusionTaskManager fusionTaskManager)
+        {
+            Tracker = new ChimericReadTracker(config);
+            Fusions = new ChromosomeFusions(config, chromosome, taskRange, fusionTaskManager, Tracker, new PerformanceCounter("Fusions"));
+        }
+    }
+
+    private static void processGeneCollection(
+            final FusionTask fusionTask, final GeneCollection geneCollection, final Map<String,FusionReadGroup> readGroups)
+    {
+        ChimericReadTracker chimericReadTracker = fusionTask.Tracker;
+        chimericReadTracker.initialise(geneCollection);
+        chimericReadTracker.getReadMap().putAll(readGroups);
+
+        fusionTask.Fusions.onGeneCollectionComplete(geneCollection, new BaseDepth());
+
+        chimericReadTracker.clear();
+    }
+
+    private static List<String> loadFusions(final String filename) throws IOException
+    {
+        // fusion IDs depend on the order fusions are found in, so are excluded from the comparison
+        List<String> lines = Files.readAllLines(Paths.get(filename));
+        List<String> fields = Arrays.asList(lines.get(0).split(DELIMITER, -1));
+        int fusionIdIndex = fields.indexOf(FLD_FUSION_ID);
+        int relatedIdsIndex = fields.indexOf(FLD_REL_SPLICED_IDS);
+
+        List<String> fusions = Lists.newArrayList();
+
+        for(String line : lines.subList(1, lines.size()))
+        {
+            List<String> values = Lists.newArrayList(line.split(DELIMITER, -1));
+            values.set(fusionIdIndex, "");
+            values.set(relatedIdsIndex, "");
+            fusions.add(String.join(DELIMITER, values));
+        }
+
+        return fusions.stream().sorted().collect(Collectors.toList());
+    }
+}
@@ -117,33 +117,19 @@ public class LinxApplication
 
         List<SampleAnalyser> sampleAnalysers = Lists.newArrayList();
 
+        SampleQueue sampleQueue = new SampleQueue(config, samplesList, cohortDataWriter);
+
         if(config.Threads > 1)
         {
-            List<List<String>> saSampleLists = Lists.newArrayList();
-
             int threads = min(config.Threads, samplesList.size());
 
             for(int i = 0; i < threads; ++i)
             {
-                sampleAnalysers.add(new SampleAnalyser(
-                        i, config, dbAccess, svAnnotators, ensemblDataCache, fusionResources, cohortDataWriter));
-
-                saSampleLists.add(Lists.newArrayList());
-            }
-
-            int saIndex = 0;
-            for(final String sampleId : samplesList)
-            {
-                saSampleLists.get(saIndex).add(sampleId);
-                ++saIndex;
-
-                if(saIndex >= threads)
-                    saIndex = 0;
-            }
+                SampleAnalyser sampleAnalyser = new SampleAnalyser(
+                        i, config, dbAccess, svAnnotators, ensemblDataCache, fusionResources, cohortDataWriter);
 
-            for(int i = 0; i < threads; ++i)
-            {
-                sampleAnalysers.get(i).setSampleIds(saSampleLists.get(i));
+                sampleAnalyser.setSampleQueue(sampleQueue);
+                sampleAnalysers.add(sampleAnalyser);
             }
 
             final List<Callable> callableList = sampleAnalysers.stream().collect(Collectors.toList());
@@ -155,7 +141,7 @@ public class LinxApplication
                     0, config, dbAccess, svAnnotators, ensemblDataCache, fusionResources, cohortDataWriter);
 
             sampleAnalysers.add(sampleAnalyser);
-            sampleAnalyser.setSampleIds(config.getSampleIds());
+            sampleAnalyser.setSampleQueue(sampleQueue);
             sampleAnalyser.processSamples();
         }
 
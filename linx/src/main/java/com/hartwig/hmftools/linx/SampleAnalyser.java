@@ -64,7 +64,7 @@ public class SampleAnalyser implements Callable
 {
     private final int mId;
     private final LinxConfig mConfig;
-    private List<String> mSampleIds;
+    private SampleQueue mSampleQueue;
 
     private final ClusterAnalyser mAnalyser;
     private final DatabaseAccess mDbAccess;
@@ -99,7 +99,7 @@ public class SampleAnalyser implements Callable
     {
         mId = instanceId;
         mConfig = config;
-        mSampleIds = Lists.newArrayList();
+        mSampleQueue = null;
 
         mVisSampleData = new VisSampleData();
         mCurrentSampleId = "";
@@ -149,11 +149,7 @@ public class SampleAnalyser implements Callable
 
     public Map<String,PerformanceCounter> getPerfCounters() { return mPerfCounters; }
 
-    public void setSampleIds(final List<String> sampleIds)
-    {
-        mSampleIds.clear();
-        mSampleIds.addAll(sampleIds);
-    }
+    public void setSampleQueue(final SampleQueue sampleQueue) { mSampleQueue = sampleQueue; }
 
     @Override
     public Long call()
@@ -164,27 +160,33 @@ public class SampleAnalyser implements Callable
 
     public void processSamples()
     {
-        if(mSampleIds.size() == 1)
+        if(mSampleQueue.sampleCount() == 1)
         {
             mPerfCounters.get(PERF_COUNTER_TOTAL).start();
-            processSample(mSampleIds.get(0));
+            processSample(mSampleQueue.nextSampleId());
             mPerfCounters.get(PERF_COUNTER_TOTAL).stop();
             return;
         }
 
-        LNX_LOGGER.info("{}: processing {} samples", mId, mSampleIds.size());
+        LNX_LOGGER.info("{}: processing samples from queue of {}", mId, mSampleQueue.remainingCount());
 
-        for(int i = 0; i < mSampleIds.size(); ++i)
+        int processed = 0;
+        String sampleId;
+
+        while((sampleId = mSampleQueue.nextSampleId()) != null)
         {
             mPerfCounters.get(PERF_COUNTER_TOTAL).start();
 
+            long startTime = System.nanoTime();
+            int svCount = 0;
+
             try
             {
-                processSample(mSampleIds.get(i));
+                svCount = processSample(sampleId);
             }
             catch(Exception e)
             {
-                LNX_LOGGER.error("sample({}) processing failed: {}", mSampleIds.get(i), e.toString());
+                LNX_LOGGER.error("sample({}) processing failed: {}", sampleId, e.toString());
 
                 if(mConfig.FailOnMissing || mConfig.isSingleSample())
                 {
@@ -193,9 +195,13 @@ public class SampleAnalyser implements Callable
                 }
             }
 
-            if(i > 10 && (i % 10) == 0)
+            mSampleQueue.recordSampleTime(mId, sampleId, svCount, (System.nanoTime() - startTime) / 1e9);
+
+            ++processed;
+
+            if(processed > 10 && (processed % 10) == 0)
             {
-                LNX_LOGGER.info("{}: processed {} samples", mId, i);
+                LNX_LOGGER.info("{}: processed {} samples, {} remaining in queue", mId, processed, mSampleQueue.remainingCount());
             }
 
             mPerfCounters.get(PERF_COUNTER_TOTAL).stop();
@@ -204,10 +210,10 @@ public class SampleAnalyser implements Callable
                 break;
         }
 
-        LNX_LOGGER.info("{}: completed processing of {} samples", mId, mSampleIds.size());
+        LNX_LOGGER.info("{}: completed processing of {} samples", mId, processed);
     }
 
-    private void processSample(final String sampleId)
+    private int processSample(final String sampleId)
     {
         mCurrentSampleId = sampleId;
         mVisSampleData.setSampleId(sampleId);
@@ -224,7 +230,7 @@ public class SampleAnalyser implements Callable
             if(mConfig.isSingleSample())
                 writeSampleWithNoSVs();
 
-            return;
+            return 0;
         }
 
         if(!mConfig.IsGermline)
@@ -245,7 +251,7 @@ public class SampleAnalyser implements Callable
         if(!inValidState())
         {
             LNX_LOGGER.info("exiting after sample({}), in invalid state", mCurrentSampleId);
-            return;
+            return svDataList.size();
         }
 
         // when matching RNA, allow all transcripts regardless of their viability for fusions
@@ -264,6 +270,7 @@ public class SampleAnalyser implements Callable
         close();
 
         LNX_LOGGER.info("sample({}) procesed {} SVs", sampleId, svDataList.size());
+        return svDataList.size();
     }
 
     public final List<SvVarData> getVariants() { return mAllVariants; }
@@ -0,0 +1,102 @@
+package com.hartwig.hmftools.linx;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.convertWildcardSamplePath;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
+import static com.hartwig.hmftools.linx.LinxConfig.LNX_LOGGER;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// a shared queue of samples from which each sample analyser takes its next sample, so that threads finishing early keep working,
+// ordered by expected run time with the largest SV files first so that highly rearranged samples don't finish last
+public class SampleQueue implements CohortFileInterface
+{
+    private final ConcurrentLinkedQueue<String> mSampleIds;
+    private final int mSampleCount;
+    private final Map<String,Long> mExpectedSizes;
+    private final CohortDataWriter mCohortDataWriter;
+
+    public static final String COHORT_WRITER_SAMPLE_TIMES = "SampleTimes";
+
+    public SampleQueue(final LinxConfig config, final List<String> sampleIds, final CohortDataWriter cohortDataWriter)
+    {
+        mCohortDataWriter = cohortDataWriter;
+        mExpectedSizes = Maps.newHashMap();
+
+        List<String> orderedSampleIds = Lists.newArrayList(sampleIds);
+
+        if(config.Threads > 1 && config.loadSampleDataFromFile())
+        {
+            // the SV VCF's size is used as a proxy for the SV count, avoiding loading each VCF an extra time
+            for(String sampleId : sampleIds)
+            {
+                File vcfFile = new File(convertWildcardSamplePath(config.SvVcfFile, sampleId));
+                mExpectedSizes.put(sampleId, vcfFile.exists() ? vcfFile.length() : 0L);
+            }
+
+            // a stable sort so samples with equal sizes retain their original order
+            orderedSampleIds.sort(Comparator.comparingLong((String x) -> mExpectedSizes.get(x)).reversed());
+        }
+
+        mSampleIds = new ConcurrentLinkedQueue<>(orderedSampleIds);
+        mSampleCount = orderedSampleIds.size();
+    }
+
+    public String nextSampleId() { return mSampleIds.poll(); }
+    public int sampleCount() { return mSampleCount; }
+    public int remainingCount() { return mSampleIds.size(); }
+
+    public void recordSampleTime(int analyserId, final String sampleId, int svCount, double seconds)
+    {
+        LNX_LOGGER.debug(format("%d: sample(%s) SVs(%d) time(%.3fs)", analyserId, sampleId, svCount, seconds));
+
+        if(!mCohortDataWriter.writeCohortFiles())
+            return;
+
+        StringJoiner sj = new StringJoiner(TSV_DELIM);
+        sj.add(sampleId);
+        sj.add(String.valueOf(svCount));
+        sj.add(String.valueOf(mExpectedSizes.getOrDefault(sampleId, 0L)));
+        sj.add(String.valueOf(analyserId));
+        sj.add(format("%.3f", seconds));
+
+        mCohortDataWriter.write(this, Lists.newArrayList(sj.toString()));
+    }
+
+    @Override
+    public String fileType() { return COHORT_WRITER_SAMPLE_TIMES; }
+
+    @Override
+    public BufferedWriter createWriter(final String outputDir)
+    {
+        try
+        {
+            String outputFileName = outputDir + "LNX_SAMPLE_TIMES.tsv";
+
+            BufferedWriter writer = createBufferedWriter(outputFileName, false);
+
+            StringJoiner sj = new StringJoiner(TSV_DELIM);
+            sj.add("SampleId").add("SvCount").add("SvFileSize").add("ThreadId").add("TimeSeconds");
+            writer.write(sj.toString());
+            writer.newLine();
+            return writer;
+        }
+        catch(IOException e)
+        {
+            LNX_LOGGER.error("failed to open and write output file headers");
+            return null;
+        }
+    }
+}
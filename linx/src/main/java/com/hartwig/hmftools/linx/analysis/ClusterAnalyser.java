@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.linx.analysis;
 
+import static java.lang.Math.min;
+
 import static com.hartwig.hmftools.linx.LinxConfig.LNX_LOGGER;
 import static com.hartwig.hmftools.linx.analysis.AnnotationExtension.UNDER_CLUSTERING;
 import static com.hartwig.hmftools.linx.analysis.ClusterAnnotations.annotateClusterChains;
@@ -22,12 +24,19 @@ import static com.hartwig.hmftools.linx.types.ResolvedType.NONE;
 import static com.hartwig.hmftools.linx.types.ResolvedType.SIMPLE_GRP;
 import static com.hartwig.hmftools.linx.types.SvCluster.CLUSTER_ANNOT_DM;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.linx.CohortDataWriter;
 import com.hartwig.hmftools.linx.LinxConfig;
 import com.hartwig.hmftools.linx.annotators.LineElementAnnotator;
@@ -57,6 +66,10 @@ public class ClusterAnalyser {
     private final List<SvVarData> mAllVariants;
     private final ChainFinder mChainFinder;
 
+    // additional thread-confined chain finders for chaining clusters in parallel within a sample
+    private final List<ChainFinder> mThreadChainFinders;
+    private final CohortDataWriter mCohortDataWriter;
+
     private boolean mRunValidationChecks;
 
     PerformanceCounter mPcClustering;
@@ -89,6 +102,13 @@ public class ClusterAnalyser {
         mChainFinder.setUseAllelePloidies(true); // can probably remove and assume always in place
         mChainFinder.setLogVerbose(mConfig.LogVerbose);
 
+        // threads are used across samples for multi-sample runs, and verbose logging changes the global log level during chaining
+        mThreadChainFinders = Lists.newArrayList();
+        mCohortDataWriter = cohortDataWriter;
+
+        if(mConfig.isSingleSample() && !mConfig.LogVerbose)
+            setChainingThreads(mConfig.Threads);
+
         mRunValidationChecks = false; // enabled in unit tests and after changes to merging-rule flow
 
         mPcClustering = new PerformanceCounter("Clustering");
@@ -122,6 +142,19 @@ public class ClusterAnalyser {
 
     public void setRunValidationChecks(boolean toggle) { mRunValidationChecks = toggle; }
 
+    public void setChainingThreads(int threads)
+    {
+        mThreadChainFinders.clear();
+
+        for(int i = 1; i < threads; ++i)
+        {
+            ChainFinder chainFinder = new ChainFinder(mCohortDataWriter);
+            chainFinder.setUseAllelePloidies(true);
+            chainFinder.setSampleId(mSampleId);
+            mThreadChainFinders.add(chainFinder);
+        }
+    }
+
     public void setSampleData(final String sampleId, List<SvVarData> allVariants)
     {
         mSampleId = sampleId;
@@ -131,6 +164,7 @@ public class ClusterAnalyser {
         mArtifactClusters.clear();
         mSimpleClustering.initialise(sampleId);
         mChainFinder.setSampleId(sampleId);
+        mThreadChainFinders.forEach(x -> x.setSampleId(sampleId));
     }
 
     public final List<SvCluster> getClusters() { return mClusters; }
@@ -321,6 +355,9 @@ public class ClusterAnalyser {
         // chain small clusters and only assembled links in larger ones
         boolean checkDMs = !mConfig.IsGermline;
 
+        List<SvCluster> chainClusters = Lists.newArrayList();
+        Set<SvCluster> simpleClusters = Sets.newHashSet();
+
         for(SvCluster cluster : mClusters)
         {
             if(checkDMs && isSimpleSingleSV(cluster))
@@ -333,16 +370,24 @@ public class ClusterAnalyser {
             // more complicated clusters for now
             boolean isSimple = cluster.getSvCount() <= SMALL_CLUSTER_SIZE && cluster.isConsistent() && !cluster.hasVariedJcn();
 
+            if(isSimple)
+                simpleClusters.add(cluster);
+
             cluster.setAssemblyLinkedPairs(createAssemblyLinkedPairs(cluster));
             cluster.determineRequiresReplication();
 
             if(checkDMs)
                 mDmFinder.analyseCluster(cluster);
 
-            // then look for fully-linked clusters, ie chains involving all SVs
-            findChains(cluster, !isSimple);
+            chainClusters.add(cluster);
+        }
 
-            if(isSimple)
+        // then look for fully-linked clusters, ie chains involving all SVs
+        findChains(chainClusters, cluster -> !simpleClusters.contains(cluster));
+
+        for(SvCluster cluster : chainClusters)
+        {
+            if(simpleClusters.contains(cluster))
             {
                 setClusterResolvedState(cluster, false);
 
@@ -356,6 +401,8 @@ public class ClusterAnalyser {
 
     private void findLinksAndChains()
     {
+        List<SvCluster> chainClusters = Lists.newArrayList();
+
         for(SvCluster cluster : mClusters)
         {
             if(cluster.getResolvedType() == LINE) // only simple assembly links for LINE clusters
@@ -380,9 +427,14 @@ public class ClusterAnalyser {
 
             // no need to re-find assembled TIs
 
-            // then look for fully-linked clusters, ie chains involving all SVs
-            findChains(cluster, false);
+            chainClusters.add(cluster);
+        }
+
+        // then look for fully-linked clusters, ie chains involving all SVs
+        findChains(chainClusters, cluster -> false);
 
+        for(SvCluster cluster : chainClusters)
+        {
             setClusterResolvedState(cluster, true);
             cluster.logDetails();
         }
@@ -421,7 +473,44 @@ public class ClusterAnalyser {
                 mState.getDelCutoffLength(), mState.getDupCutoffLength(), mState.getChrBreakendMap());
     }
 
-    private void findChains(SvCluster cluster, boolean assembledLinksOnly)
+    private void findChains(final List<SvCluster> clusters, final Predicate<SvCluster> assembledLinksOnly)
+    {
+        // each cluster's chaining only reads and modifies its own SVs and breakends, so clusters can be chained in any order
+        if(mThreadChainFinders.isEmpty() || clusters.size() < 2)
+        {
+            clusters.forEach(x -> findChains(mChainFinder, x, assembledLinksOnly.test(x)));
+            return;
+        }
+
+        // largest clusters first so a single complex cluster doesn't start last
+        List<SvCluster> orderedClusters = Lists.newArrayList(clusters);
+        orderedClusters.sort(Comparator.comparingInt(SvCluster::getSvCount).reversed());
+        ConcurrentLinkedQueue<SvCluster> clusterQueue = new ConcurrentLinkedQueue<>(orderedClusters);
+
+        List<ChainFinder> chainFinders = Lists.newArrayList(mChainFinder);
+        chainFinders.addAll(mThreadChainFinders);
+
+        List<Callable> tasks = Lists.newArrayList();
+
+        for(ChainFinder chainFinder : chainFinders)
+        {
+            tasks.add(() ->
+            {
+                SvCluster cluster;
+
+                while((cluster = clusterQueue.poll()) != null)
+                {
+                    findChains(chainFinder, cluster, assembledLinksOnly.test(cluster));
+                }
+
+                return (long)1;
+            });
+        }
+
+        TaskExecutor.executeTasks(tasks, min(tasks.size(), clusters.size()));
+    }
+
+    private void findChains(final ChainFinder chainFinder, SvCluster cluster, boolean assembledLinksOnly)
     {
         if(mConfig.ChainingSvLimit > 0 && cluster.getSvCount() > mConfig.ChainingSvLimit)
         {
@@ -431,23 +520,23 @@ public class ClusterAnalyser {
         }
 
         cluster.getChains().clear();
-        mChainFinder.initialise(cluster);
-        mChainFinder.formChains(assembledLinksOnly);
-        mChainFinder.addChains(cluster);
+        chainFinder.initialise(cluster);
+        chainFinder.formChains(assembledLinksOnly);
+        chainFinder.addChains(cluster);
 
         if(!assembledLinksOnly)
-            mChainFinder.getDiagnostics().diagnoseChains();
+            chainFinder.getDiagnostics().diagnoseChains();
 
-        final long[] rangeData = mChainFinder.calcRangeData();
+        final long[] rangeData = chainFinder.calcRangeData();
 
         if(rangeData != null)
         {
-            cluster.getMetrics().ValidAlleleJcnSegmentPerc = mChainFinder.getValidAllelePloidySegmentPerc();
+            cluster.getMetrics().ValidAlleleJcnSegmentPerc = chainFinder.getValidAllelePloidySegmentPerc();
             cluster.getMetrics().TraversedRange = rangeData[RANGE_TOTAL];
             cluster.getMetrics().TotalDeleted = rangeData[DELETED_TOTAL];
         }
 
-        mChainFinder.clear(); // release any refs to clusters and SVs
+        chainFinder.clear(); // release any refs to clusters and SVs
     }
 
     public void annotateClusters()
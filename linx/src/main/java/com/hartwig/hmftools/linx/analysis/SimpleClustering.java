@@ -2,6 +2,7 @@ package com.hartwig.hmftools.linx.analysis;
 
 import static java.lang.Math.abs;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
@@ -38,9 +39,12 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.sv.StructuralVariantType;
 import com.hartwig.hmftools.linx.CohortDataWriter;
 import com.hartwig.hmftools.linx.CohortFileInterface;
@@ -52,6 +56,8 @@ import com.hartwig.hmftools.linx.types.SvBreakend;
 import com.hartwig.hmftools.linx.types.SvCluster;
 import com.hartwig.hmftools.linx.types.SvVarData;
 
+import org.jetbrains.annotations.Nullable;
+
 public class SimpleClustering implements CohortFileInterface
 {
     private ClusteringState mState;
@@ -280,13 +286,13 @@ public class SimpleClustering implements CohortFileInterface
         // will then fall within the bounds of the new larger clusters
         boolean foundMerges = true;
         int iterations = 0;
+        Set<SvCluster> mergedIntoClusters = null;
 
         while(foundMerges)
         {
-            foundMerges = false;
-
-            if(mergeOnOverlappingInvDupDels(clusters, false))
-                foundMerges = true;
+            // only pairs involving a cluster which grew in the previous pass can newly merge
+            mergedIntoClusters = mergeOnOverlappingInvDupDels(clusters, false, mergedIntoClusters);
+            foundMerges = !mergedIntoClusters.isEmpty();
 
             ++iterations;
 
@@ -586,13 +592,12 @@ public class SimpleClustering implements CohortFileInterface
     {
         boolean foundMerges = true;
         int iterations = 0;
+        Set<SvCluster> mergedIntoClusters = null;
 
         while(foundMerges)
         {
-            foundMerges = false;
-
-            if(mergeOnOverlappingInvDupDels(clusters, true))
-                foundMerges = true;
+            mergedIntoClusters = mergeOnOverlappingInvDupDels(clusters, true, mergedIntoClusters);
+            foundMerges = !mergedIntoClusters.isEmpty();
 
             ++iterations;
 
@@ -605,21 +610,34 @@ public class SimpleClustering implements CohortFileInterface
         }
     }
 
-    private boolean mergeOnOverlappingInvDupDels(List<SvCluster> clusters, boolean allowDelDupOverlaps)
+    private Set<SvCluster> mergeOnOverlappingInvDupDels(
+            List<SvCluster> clusters, boolean allowDelDupOverlaps, @Nullable final Set<SvCluster> previousMergedIntoClusters)
     {
         // merge any clusters with overlapping inversions, long dels or long dups on the same arm
+        // a pair of clusters not modified since the previous pass was already compared and cannot merge, since the merge criteria
+        // depend only on each cluster's own SVs and LOH events, so when the previous pass's merged-into clusters are provided,
+        // only pairs involving one of these or a cluster merged into during this pass are compared
+        Set<SvCluster> mergedIntoClusters = Sets.newHashSet();
+
         List<SvCluster> longDDIClusters = clusters.stream()
                 .filter(x -> !x.getInversions().isEmpty() || !x.getLongDelDups().isEmpty())
                 .filter(x -> !x.hasLinkingLineElements())
                 .collect(Collectors.toList());
 
         if(longDDIClusters.size() <= 1)
-            return false;
+            return mergedIntoClusters;
 
-        LNX_LOGGER.debug("checking long {}} overlaps for {} clusters",
+        LNX_LOGGER.debug("checking long {} overlaps for {} clusters",
                 !allowDelDupOverlaps ? "DEL_DUP-requiring-INV" : "multiple DDI overlaps", longDDIClusters.size());
 
-        List<SvCluster> mergedClusters = Lists.newArrayList();
+        Set<SvCluster> mergedClusters = Sets.newHashSet();
+
+        // per-chromosome position bounds of each cluster's candidate SVs, so clusters without any overlapping SVs are skipped
+        Map<SvCluster,Map<String,int[]>> clusterBounds = Maps.newHashMap();
+        longDDIClusters.forEach(x -> clusterBounds.put(x, ddiSvBounds(x)));
+
+        int clusterPairComparisons = 0;
+        int svPairComparisons = 0;
 
         int index1 = 0;
         while(index1 < longDDIClusters.size())
@@ -638,6 +656,11 @@ public class SimpleClustering implements CohortFileInterface
             List<SvVarData> cluster1Svs = Lists.newArrayList(cluster1.getLongDelDups());
             cluster1Svs.addAll(cluster1.getInversions());
 
+            boolean cluster1Changed = previousMergedIntoClusters == null
+                    || previousMergedIntoClusters.contains(cluster1) || mergedIntoClusters.contains(cluster1);
+
+            Map<String,int[]> cluster1Bounds = clusterBounds.get(cluster1);
+
             int index2 = index1 + 1;
             while(index2 < longDDIClusters.size())
             {
@@ -649,6 +672,20 @@ public class SimpleClustering implements CohortFileInterface
                     continue;
                 }
 
+                if(!cluster1Changed && !previousMergedIntoClusters.contains(cluster2) && !mergedIntoClusters.contains(cluster2))
+                {
+                    ++index2;
+                    continue;
+                }
+
+                if(!boundsOverlap(cluster1Bounds, clusterBounds.get(cluster2)))
+                {
+                    ++index2;
+                    continue;
+                }
+
+                ++clusterPairComparisons;
+
                 List<SvVarData> cluster2Svs = Lists.newArrayList(cluster2.getLongDelDups());
                 cluster2Svs.addAll(cluster2.getInversions());
 
@@ -659,6 +696,8 @@ public class SimpleClustering implements CohortFileInterface
                 {
                     for(final SvVarData var2 : cluster2Svs)
                     {
+                        ++svPairComparisons;
+
                         boolean pairContainsInv = var1.type() == INV || var2.type() == INV;
 
                         if(!allowDelDupOverlaps && !pairContainsInv)
@@ -735,6 +774,8 @@ public class SimpleClustering implements CohortFileInterface
                     cluster1.mergeOtherCluster(cluster2);
                     cluster1.addClusterReason(mergeReason);
                     mergedClusters.add(cluster2);
+                    mergedIntoClusters.add(cluster1);
+                    clusterBounds.put(cluster1, ddiSvBounds(cluster1));
                     break;
                 }
                 else
@@ -749,11 +790,55 @@ public class SimpleClustering implements CohortFileInterface
                 ++index1;
         }
 
+        LNX_LOGGER.debug("long DDI overlaps compared {} cluster pairs and {} SV pairs, merged {} clusters",
+                clusterPairComparisons, svPairComparisons, mergedClusters.size());
+
         if(mergedClusters.isEmpty())
-            return false;
+            return mergedIntoClusters;
 
-        mergedClusters.forEach(x -> clusters.remove(x));
-        return true;
+        clusters.removeIf(mergedClusters::contains);
+
+        // a cluster merged into during this pass may since have been merged into another
+        mergedIntoClusters.removeAll(mergedClusters);
+        return mergedIntoClusters;
+    }
+
+    private static Map<String,int[]> ddiSvBounds(final SvCluster cluster)
+    {
+        Map<String,int[]> chrBounds = Maps.newHashMap();
+
+        List<SvVarData> svs = Lists.newArrayList(cluster.getLongDelDups());
+        svs.addAll(cluster.getInversions());
+
+        for(SvVarData var : svs)
+        {
+            int[] bounds = chrBounds.get(var.chromosome(true));
+
+            if(bounds == null)
+            {
+                chrBounds.put(var.chromosome(true), new int[] { var.position(true), var.position(false) });
+            }
+            else
+            {
+                bounds[0] = min(bounds[0], var.position(true));
+                bounds[1] = max(bounds[1], var.position(false));
+            }
+        }
+
+        return chrBounds;
+    }
+
+    private static boolean boundsOverlap(final Map<String,int[]> chrBounds1, final Map<String,int[]> chrBounds2)
+    {
+        for(Map.Entry<String,int[]> entry : chrBounds1.entrySet())
+        {
+            int[] bounds2 = chrBounds2.get(entry.getKey());
+
+            if(bounds2 != null && entry.getValue()[0] <= bounds2[1] && entry.getValue()[1] >= bounds2[0])
+                return true;
+        }
+
+        return false;
     }
 
     protected static boolean variantsViolateLohHomLoss(final SvVarData var1, final SvVarData var2)
@@ -0,0 +1,68 @@
+package com.hartwig.hmftools.linx.chaining;
+
+import static com.hartwig.hmftools.common.sv.StructuralVariantType.BND;
+import static com.hartwig.hmftools.common.sv.StructuralVariantType.DUP;
+import static com.hartwig.hmftools.common.sv.StructuralVariantType.INV;
+import static com.hartwig.hmftools.linx.utils.SvTestUtils.createTestSv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.linx.types.SvCluster;
+import com.hartwig.hmftools.linx.utils.LinxTester;
+
+import org.junit.Test;
+
+public class ParallelChainingTest
+{
+    @Test
+    public void testParallelChainingMatchesSerial()
+    {
+        List<String> serialChains = chainClusters(1);
+        List<String> parallelChains = chainClusters(4);
+
+        assertTrue(serialChains.size() > 1);
+        assertEquals(serialChains, parallelChains);
+    }
+
+    private static List<String> chainClusters(int threads)
+    {
+        LinxTester tester = new LinxTester();
+        tester.Analyser.setChainingThreads(threads);
+
+        // a BFB-style cluster on each of several chromosomes, plus a simple cluster on each, all chained independently
+        int varId = 0;
+
+        for(int i = 0; i < 6; ++i)
+        {
+            String chromosome = String.valueOf(i + 1);
+            String otherChromosome = String.valueOf(i + 11);
+
+            tester.AllVariants.add(createTestSv(varId++, chromosome, chromosome, 1000, 2000, -1, -1, INV, 8));
+            tester.AllVariants.add(createTestSv(varId++, chromosome, chromosome, 9000, 10000, 1, 1, INV, 4));
+            tester.AllVariants.add(createTestSv(varId++, chromosome, chromosome, 6000, 7000, 1, 1, INV, 2));
+            tester.AllVariants.add(createTestSv(varId++, chromosome, chromosome, 3000, 4000, 1, 1, INV, 1));
+            tester.AllVariants.add(createTestSv(varId++, chromosome, otherChromosome, 12000, 100, 1, 1, BND, 1));
+
+            tester.AllVariants.add(createTestSv(varId++, chromosome, chromosome, 5000000, 5001000, -1, 1, DUP, 1));
+        }
+
+        tester.preClusteringInit();
+        tester.Analyser.clusterAndAnalyse();
+
+        List<String> clusterChains = Lists.newArrayList();
+
+        for(SvCluster cluster : tester.Analyser.getClusters())
+        {
+            for(SvChain chain : cluster.getChains())
+            {
+                clusterChains.add(String.format("cluster(%d) chain(%d) links(%s)", cluster.id(), chain.id(), chain.getLinkedPairs()));
+            }
+        }
+
+        return clusterChains;
+    }
+}
@@ -154,17 +154,14 @@ public class GeneDataCache
         {
             List<GeneData> genes = Lists.newArrayList();
 
-            List<GeneData> geneDataList = mEnsemblDataCache.getChrGeneDataMap().get(chromosome);
+            // the cache's interval index narrows the search to genes within the upstream distance of the variant
+            List<GeneData> candidateGenes = mEnsemblDataCache.findOverlappingGenes(
+                    chromosome, startPosition - GENE_UPSTREAM_DISTANCE, endPosition + GENE_UPSTREAM_DISTANCE);
 
-            if(geneDataList == null)
-                return genes;
-
-            for(GeneData geneData : geneDataList)
+            for(GeneData geneData : candidateGenes)
             {
                 if(isWithinGeneRange(geneData, startPosition, endPosition))
                     genes.add(geneData);
-                else if(geneData.GeneStart > endPosition + GENE_UPSTREAM_DISTANCE)
-                    break;
             }
 
             return genes;
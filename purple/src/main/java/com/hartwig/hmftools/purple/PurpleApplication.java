@@ -140,7 +140,7 @@ public class PurpleApplication
 
         mExecutorService = Executors.newFixedThreadPool(mConfig.Threads);
 
-        mGermlineVariants = new GermlineVariants(mConfig, mReferenceData, mPurpleVersion.version());
+        mGermlineVariants = new GermlineVariants(mConfig, mReferenceData, mPurpleVersion.version(), mExecutorService);
 
         mSegmentation = !mConfig.DriversOnly ? new Segmentation(mReferenceData) : null;
     }
@@ -406,7 +406,8 @@ public class PurpleApplication
                 charts.write(
                         referenceId, tumorId, !sampleDataFiles.SomaticVcfFile.isEmpty(),
                         gender, copyNumbers, somaticStream.downsampledVariants(), sampleData.SvCache.variants(),
-                        fittedRegions, Lists.newArrayList(amberData.ChromosomeBafs.values()));
+                        fittedRegions, Lists.newArrayList(amberData.ChromosomeBafs.values()),
+                        bestFit, somaticStream.chartData(), somaticStream.peakModel());
 
                 // clean up any temporary files
                 // RChartData.cleanupFiles(mConfig, tumorId);
@@ -3,15 +3,22 @@ package com.hartwig.hmftools.purple.config;
 import java.io.File;
 
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.purple.plot.ChartFormat;
 
 public class ChartConfig
 {
     private static final String CIRCOS = "circos";
     private static final String DISABLE = "no_charts";
+    private static final String R_CHARTS = "r_charts";
+    private static final String CHART_FORMAT = "chart_format";
+    private static final String CIRCOS_BINARY = "circos_binary";
 
     public final boolean Disabled;
+    public final boolean UseRCharts;
+    public final ChartFormat Format;
 
     public final String CircosBinary;
+    public final boolean UseCircosBinary;
 
     public final String PlotDirectory;
     public final String CircosDirectory;
@@ -19,15 +26,21 @@ public class ChartConfig
     public ChartConfig(final ConfigBuilder configBuilder, final String outputDir)
     {
         Disabled = configBuilder.hasFlag(DISABLE);
+        UseRCharts = configBuilder.hasFlag(R_CHARTS);
+        Format = ChartFormat.valueOf(configBuilder.getValue(CHART_FORMAT));
         PlotDirectory = outputDir + "plot" + File.separator;
         CircosDirectory = outputDir + "circos" + File.separator;
         CircosBinary = configBuilder.getValue(CIRCOS);
+        UseCircosBinary = configBuilder.hasFlag(CIRCOS_BINARY) && CircosBinary != null;
     }
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
         configBuilder.addPath(CIRCOS, false, "Location of circos binary");
+        configBuilder.addFlag(CIRCOS_BINARY, "Generate circos plots with the circos binary rather than in PURPLE, requires 'circos'");
         configBuilder.addFlag(DISABLE, "Disable charts");
+        configBuilder.addFlag(R_CHARTS, "Generate charts with the R scripts rather than in PURPLE");
+        configBuilder.addConfigItem(CHART_FORMAT, false, "Chart format: PNG or SVG, not applicable to R charts", ChartFormat.PNG.toString());
     }
 
 }
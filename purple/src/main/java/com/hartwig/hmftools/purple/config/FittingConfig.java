@@ -37,6 +37,7 @@ public class FittingConfig
     public final double PurityIncrement;
     public final double MinPloidy;
     public final double MaxPloidy;
+    public final boolean AdaptiveSearch;
 
     public final int MinDiploidTumorRatioCount;
     public final int MinDiploidTumorRatioCountAtCentromere;
@@ -59,6 +60,7 @@ public class FittingConfig
     private static final String PURITY_INCREMENT = "purity_increment";
     private static final String MIN_PLOIDY = "min_ploidy";
     private static final String MAX_PLOIDY = "max_ploidy";
+    private static final String ADAPTIVE_SEARCH = "adaptive_fit_search";
     private static final String MIN_DIPLOID_TUMOR_RATIO_COUNT = "min_diploid_tumor_ratio_count";
     private static final String MIN_DIPLOID_TUMOR_RATIO_COUNT_AT_CENTROMERE = "min_diploid_tumor_ratio_count_centromere";
 
@@ -84,6 +86,7 @@ public class FittingConfig
         PurityIncrement = configBuilder.getDecimal(PURITY_INCREMENT);
         MinPloidy = configBuilder.getDecimal(MIN_PLOIDY);
         MaxPloidy = configBuilder.getDecimal(MAX_PLOIDY);
+        AdaptiveSearch = configBuilder.hasFlag(ADAPTIVE_SEARCH);
 
         MinDiploidTumorRatioCount = getConfigInteger(
                 configBuilder, MIN_DIPLOID_TUMOR_RATIO_COUNT,
@@ -126,6 +129,9 @@ public class FittingConfig
         configBuilder.addDecimal(PURITY_INCREMENT, "Purity increment", PURITY_INCREMENT_DEFAULT);
         configBuilder.addDecimal(MIN_PLOIDY, "Minimum ploidy", MIN_PLOIDY_DEFAULT);
         configBuilder.addDecimal(MAX_PLOIDY, "Maximum ploidy", MAX_PLOIDY_DEFAULT);
+        configBuilder.addFlag(
+                ADAPTIVE_SEARCH, "Refine fits from a coarse ploidy grid instead of fitting every purity and ploidy combination, "
+                        + "leaving the purity range output sparse");
 
         addTargetedInteger(
                 configBuilder, MIN_DIPLOID_TUMOR_RATIO_COUNT,
@@ -100,7 +100,7 @@ public class PurpleConfig
 
         if(!Charting.Disabled)
         {
-            if(Charting.CircosBinary != null)
+            if(Charting.UseCircosBinary)
                 mIsValid &= createDirectory(Charting.CircosDirectory);
 
             mIsValid &= createDirectory(Charting.PlotDirectory);
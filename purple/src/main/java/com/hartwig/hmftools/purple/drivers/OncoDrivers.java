@@ -140,6 +140,6 @@ public class OncoDrivers extends SomaticVariantDriverFinder
     private static boolean isKnownInframeIndel(final SomaticVariant variant)
     {
         return variant.type() == VariantType.INDEL && variant.variantImpact().CanonicalCodingEffect == CodingEffect.MISSENSE
-                && variant.decorator().repeatCount() <= MAX_INDEL_DRIVER_REPEAT_COUNT;
+                && variant.repeatCount() <= MAX_INDEL_DRIVER_REPEAT_COUNT;
     }
 }
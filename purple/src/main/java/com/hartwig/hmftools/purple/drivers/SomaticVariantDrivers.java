@@ -22,6 +22,8 @@ import com.hartwig.hmftools.common.variant.impact.AltTranscriptReportableInfo;
 import com.hartwig.hmftools.common.variant.impact.VariantImpact;
 import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.variant.variantcontext.VariantContext;
 
 public class SomaticVariantDrivers
@@ -81,7 +83,7 @@ public class SomaticVariantDrivers
 
     protected static boolean isReportable(final ReportablePredicate predicate, final SomaticVariant variant)
     {
-        return predicate.isReportable(variant.variantImpact(), variant.type(), variant.decorator().repeatCount(), variant.isHotspot());
+        return predicate.isReportable(variant.variantImpact(), variant.type(), variant.repeatCount(), variant.isHotspot());
     }
 
     public static boolean hasTranscriptCodingEffect(final VariantImpact variantImpact, final VariantType variantType, final String transcript)
@@ -126,10 +128,19 @@ public class SomaticVariantDrivers
 
     public static void addReportableTranscriptList(
             final VariantType variantType, final VariantContext variantContext, final VariantImpact variantImpact)
+    {
+        String reportableTranscripts = reportableTranscriptList(variantType, variantImpact);
+
+        if(reportableTranscripts != null)
+            variantContext.getCommonInfo().putAttribute(REPORTABLE_TRANSCRIPTS, reportableTranscripts);
+    }
+
+    @Nullable
+    public static String reportableTranscriptList(final VariantType variantType, final VariantImpact variantImpact)
     {
         // check alt transcript status vs canonical
         if(variantImpact.OtherReportableEffects.isEmpty())
-            return;
+            return null;
 
         StringJoiner reportableTranscripts = new StringJoiner(REPORTABLE_TRANSCRIPTS_DELIM);
 
@@ -146,7 +157,7 @@ public class SomaticVariantDrivers
                 reportableTranscripts.add(altTransEffect.TransName);
         }
 
-        variantContext.getCommonInfo().putAttribute(REPORTABLE_TRANSCRIPTS, reportableTranscripts.toString());
+        return reportableTranscripts.toString();
     }
 
     public List<DriverCatalog> buildCatalog(final Map<String,List<GeneCopyNumber>> geneCopyNumberMap)
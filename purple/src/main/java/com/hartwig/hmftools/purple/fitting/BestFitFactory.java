@@ -18,6 +18,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.function.Predicate;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.purple.BestFit;
 import com.hartwig.hmftools.common.purple.FittedPurity;
@@ -197,7 +198,8 @@ public class BestFitFactory
         return Doubles.greaterOrEqual(score.maxDiploidProportion(), mConfig.SomaticFitting.HighlyDiploidPercentage);
     }
 
-    private static List<FittedPurity> inRangeOfLowest(double lowestScore, final List<FittedPurity> purities)
+    @VisibleForTesting
+    public static List<FittedPurity> inRangeOfLowest(double lowestScore, final List<FittedPurity> purities)
     {
         return purities.stream().filter(inRangeOfLowest(lowestScore)).collect(toList());
     }
@@ -27,6 +27,25 @@ public final class PeakModelFile
         Files.write(new File(filename).toPath(), toLines(model));
     }
 
+    public static List<PeakModelData> read(final String filename) throws IOException
+    {
+        List<String> lines = Files.readAllLines(new File(filename).toPath());
+        lines.remove(0);
+
+        List<PeakModelData> model = Lists.newArrayListWithCapacity(lines.size());
+
+        for(String line : lines)
+        {
+            String[] values = line.split(TSV_DELIM, -1);
+
+            model.add(new PeakModelData(
+                    Double.parseDouble(values[0]), Double.parseDouble(values[3]), Double.parseDouble(values[1]),
+                    Double.parseDouble(values[2]), Boolean.parseBoolean(values[4]), Boolean.parseBoolean(values[5])));
+        }
+
+        return model;
+    }
+
     private static List<String> toLines(final List<PeakModelData> model)
     {
         final List<String> lines = Lists.newArrayList();
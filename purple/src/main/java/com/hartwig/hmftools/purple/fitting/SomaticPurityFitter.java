@@ -4,8 +4,6 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 
-import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ;
-import static com.hartwig.hmftools.common.variant.SomaticVariantFactory.MAPPABILITY_TAG;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 import static com.hartwig.hmftools.purple.PurpleUtils.formatPurity;
 import static com.hartwig.hmftools.purple.config.PurpleConstants.SNV_FITTING_MAPPABILITY;
@@ -28,9 +26,6 @@ import com.hartwig.hmftools.common.sv.StructuralVariant;
 import com.hartwig.hmftools.common.utils.collection.Multimaps;
 import com.hartwig.hmftools.common.variant.VariantTier;
 import com.hartwig.hmftools.common.variant.VariantType;
-import com.hartwig.hmftools.common.variant.filter.HumanChromosomeFilter;
-import com.hartwig.hmftools.common.variant.filter.NTFilter;
-import com.hartwig.hmftools.common.variant.filter.SGTFilter;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
 import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 
@@ -38,8 +33,6 @@ import com.google.common.collect.Lists;
 import org.apache.commons.math3.distribution.PoissonDistribution;
 import org.jetbrains.annotations.Nullable;
 
-import htsjdk.variant.variantcontext.filter.CompoundFilter;
-
 public class SomaticPurityFitter
 {
     // kernel density parameters
@@ -73,11 +66,6 @@ public class SomaticPurityFitter
     {
         List<SomaticVariant> fittingVariants = Lists.newArrayList();
 
-        CompoundFilter filter = new CompoundFilter(true);
-        filter.add(new SGTFilter());
-        filter.add(new HumanChromosomeFilter());
-        filter.add(new NTFilter());
-
         GenomeRegionSelector<ObservedRegion> observedRegionSelector = GenomeRegionSelectorFactory.createImproved(
                 Multimaps.fromRegions(observedRegions));
 
@@ -91,7 +79,7 @@ public class SomaticPurityFitter
                 continue;
             }
 
-            if(!variant.isPass() || !filter.test(variant.context()))
+            if(!variant.isPass() || !variant.hasFittingGenotype() || !HumanChromosome.contains(variant.chromosome()))
             {
                 ++filterCounts[FilterReason.FILTERED.ordinal()];
                 continue;
@@ -136,11 +124,11 @@ public class SomaticPurityFitter
         if(!variant.hasTumorAlleleDepth() || variant.tumorAlleleDepth().totalReadCount() == 0)
             return false;
 
-        VariantTier variantTier = variant.decorator().tier();
+        VariantTier variantTier = variant.tier();
 
         if(variantTier != VariantTier.HOTSPOT)
         {
-            if(variant.context().hasAttribute(GNOMAD_FREQ))
+            if(variant.hasGnomadFrequency())
             {
                 ++filterCounts[FilterReason.GNOMAD_FREQ.ordinal()];
                 return false;
@@ -152,13 +140,13 @@ public class SomaticPurityFitter
                 return false;
             }
 
-            if(variant.decorator().repeatCount() > SNV_FITTING_MAX_REPEATS)
+            if(variant.repeatCount() > SNV_FITTING_MAX_REPEATS)
             {
                 ++filterCounts[FilterReason.MAX_REPEATS.ordinal()];
                 return false;
             }
 
-            if(variant.context().hasAttribute(MAPPABILITY_TAG) && variant.decorator().mappability() < SNV_FITTING_MAPPABILITY)
+            if(variant.hasMappability() && variant.mappability() < SNV_FITTING_MAPPABILITY)
             {
                 ++filterCounts[FilterReason.MAPPABILITY.ordinal()];
                 return false;
@@ -41,8 +41,17 @@ public class GermlineReportedEnrichment
         mBuffer = Lists.newArrayList();
     }
 
+    public boolean isDriverGene(final GermlineVariant variant)
+    {
+        return mDriverGeneMap.containsKey(variant.gene());
+    }
+
     public void processVariant(final GermlineVariant variant)
     {
+        // only variants in germline-reported driver genes can be affected, so there's no need to hold on to any others
+        if(!isDriverGene(variant))
+            return;
+
         // critical that the new context and filters are used
         mBuffer.add(variant);
     }
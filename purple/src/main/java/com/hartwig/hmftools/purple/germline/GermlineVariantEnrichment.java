@@ -1,7 +1,6 @@
 package com.hartwig.hmftools.purple.germline;
 
 import java.util.List;
-import java.util.Set;
 
 import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
@@ -9,7 +8,6 @@ import com.hartwig.hmftools.purple.purity.PurityAdjuster;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
 import com.hartwig.hmftools.purple.somatic.HotspotEnrichment;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
-import com.hartwig.hmftools.purple.config.ReferenceData;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -18,18 +16,15 @@ import htsjdk.variant.vcf.VCFHeader;
 public class GermlineVariantEnrichment
 {
     private final GermlinePurityEnrichment mPurityEnrichment;
-    private final GermlineReportedEnrichment mReportableEnrichment;
     private final HotspotEnrichment mHotspotEnrichment;
     private final GermlineGenotypeEnrichment mGenotypeEnrichment;
     private final GermlineRescueLowVAF mLowVafRescueEnrichment;
 
     public GermlineVariantEnrichment(
-            final String purpleVersion, final String referenceSample, final String tumorSample, final ReferenceData refData,
+            final String purpleVersion, final String referenceSample, final String tumorSample,
             @Nullable final PurityAdjuster purityAdjuster, final List<PurpleCopyNumber> copyNumbers,
-            final Multimap<Chromosome, VariantHotspot> germlineHotspots, final Set<String> somaticReportedGenes)
+            final Multimap<Chromosome, VariantHotspot> germlineHotspots)
     {
-        mReportableEnrichment = new GermlineReportedEnrichment(refData.DriverGenes.driverGenes(), somaticReportedGenes);
-
         mLowVafRescueEnrichment = new GermlineRescueLowVAF(referenceSample);
 
         mPurityEnrichment = new GermlinePurityEnrichment(purpleVersion, tumorSample, referenceSample, purityAdjuster, copyNumbers);
@@ -41,6 +36,7 @@ public class GermlineVariantEnrichment
     public void enrichVariant(final GermlineVariant variant)
     {
         // enrich the variant's original context so subsequent calls to get copy number and hotspot status are valid
+        // reported status depends on other variants in the same gene, so is set separately as the enriched variants are written
         mGenotypeEnrichment.processVariant(variant);
 
         mHotspotEnrichment.processVariant(variant.context());
@@ -52,12 +48,6 @@ public class GermlineVariantEnrichment
         GermlineLowTumorVCNFilter.processVariant(variant);
 
         GermlinePathogenicEnrichment.processVariant(variant.context());
-        mReportableEnrichment.processVariant(variant);
-    }
-
-    public void flush()
-    {
-        mReportableEnrichment.flush();
     }
 
     public void enrichHeader(final VCFHeader header)
@@ -65,7 +55,7 @@ public class GermlineVariantEnrichment
         mPurityEnrichment.enrichHeader(header);
         mHotspotEnrichment.enrichHeader(header);
         GermlineLowTumorVCNFilter.enrichHeader(header);
-        mReportableEnrichment.enrichHeader(header);
+        GermlineReportedEnrichment.enrichHeader(header);
         mGenotypeEnrichment.enrichHeader(header);
         GermlinePathogenicEnrichment.enrichHeader(header);
     }
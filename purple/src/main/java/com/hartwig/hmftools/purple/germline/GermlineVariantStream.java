@@ -0,0 +1,229 @@
+package com.hartwig.hmftools.purple.germline;
+
+import static com.hartwig.hmftools.common.variant.CommonVcfTags.REPORTED_FLAG;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import com.google.common.collect.Lists;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+
+// reads the germline VCF once, enriching batches of variants in parallel and writing them back out in input order
+public class GermlineVariantStream
+{
+    private final Supplier<GermlineVariantEnrichment> mEnrichmentFactory;
+    private final GermlineReportedEnrichment mReportedEnrichment;
+    private final Map<String,Integer> mDriverGeneEnds;
+    private final ExecutorService mExecutorService;
+    private final int mMaxPendingBatches;
+    private final int mBatchSize;
+
+    private final Deque<Future<List<GermlineVariant>>> mPendingBatches;
+    private final List<GermlineVariant> mHeldVariants; // awaiting the reported status of driver gene variants
+    private final List<GermlineVariant> mReportableVariants;
+
+    private GermlineVariantEnrichment mEnrichment; // used when enriching on the calling thread
+    private String mCurrentChromosome;
+    private int mHoldUntilPosition;
+    private int mVariantCount;
+
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
+    // covers variants annotated as upstream of a gene
+    private static final int GENE_END_BUFFER = 10000;
+
+    public GermlineVariantStream(
+            final Supplier<GermlineVariantEnrichment> enrichmentFactory, final GermlineReportedEnrichment reportedEnrichment,
+            final Map<String,Integer> driverGeneEnds, @Nullable final ExecutorService executorService, int threads, int batchSize)
+    {
+        mEnrichmentFactory = enrichmentFactory;
+        mReportedEnrichment = reportedEnrichment;
+        mDriverGeneEnds = driverGeneEnds;
+        mExecutorService = executorService;
+        mMaxPendingBatches = Math.max(threads, 1) * 2;
+        mBatchSize = batchSize;
+
+        mPendingBatches = new ArrayDeque<>();
+        mHeldVariants = Lists.newArrayList();
+        mReportableVariants = Lists.newArrayList();
+        mEnrichment = null;
+        mCurrentChromosome = null;
+        mHoldUntilPosition = 0;
+        mVariantCount = 0;
+    }
+
+    public List<GermlineVariant> reportableVariants() { return mReportableVariants; }
+    public int variantCount() { return mVariantCount; }
+
+    public void process(final Iterable<VariantContext> variants, final VariantContextWriter writer)
+    {
+        List<VariantContext> batch = Lists.newArrayListWithCapacity(mBatchSize);
+
+        for(VariantContext context : variants)
+        {
+            // batches do not span chromosomes so that reported status is always resolved at each chromosome's end
+            if(!batch.isEmpty() && (batch.size() >= mBatchSize || !batch.get(0).getContig().equals(context.getContig())))
+            {
+                submitBatch(batch, writer);
+                batch = Lists.newArrayListWithCapacity(mBatchSize);
+            }
+
+            // the VCF codec's genotype parsing is not thread-safe, so decode these before handing off to other threads
+            GenotypesContext genotypes = context.getGenotypes();
+
+            if(genotypes instanceof LazyGenotypesContext)
+                ((LazyGenotypesContext)genotypes).decode();
+
+            batch.add(context);
+        }
+
+        if(!batch.isEmpty())
+            submitBatch(batch, writer);
+
+        while(!mPendingBatches.isEmpty())
+        {
+            writeBatch(takeBatch(mPendingBatches.poll()), writer);
+        }
+
+        writeHeldVariants(writer);
+    }
+
+    private void submitBatch(final List<VariantContext> batch, final VariantContextWriter writer)
+    {
+        if(mExecutorService == null)
+        {
+            if(mEnrichment == null)
+                mEnrichment = mEnrichmentFactory.get();
+
+            writeBatch(enrichBatch(mEnrichment, batch), writer);
+            return;
+        }
+
+        // bound the number of batches in memory, writing completed ones in their original order
+        while(mPendingBatches.size() >= mMaxPendingBatches)
+        {
+            writeBatch(takeBatch(mPendingBatches.poll()), writer);
+        }
+
+        mPendingBatches.add(mExecutorService.submit(new EnrichmentTask(batch)));
+    }
+
+    private class EnrichmentTask implements Callable<List<GermlineVariant>>
+    {
+        private final List<VariantContext> mBatch;
+
+        public EnrichmentTask(final List<VariantContext> batch)
+        {
+            mBatch = batch;
+        }
+
+        @Override
+        public List<GermlineVariant> call()
+        {
+            // purity enrichment's copy number lookups are stateful, so each batch uses its own instance
+            return enrichBatch(mEnrichmentFactory.get(), mBatch);
+        }
+    }
+
+    private static List<GermlineVariant> enrichBatch(final GermlineVariantEnrichment enrichment, final List<VariantContext> batch)
+    {
+        List<GermlineVariant> variants = Lists.newArrayListWithCapacity(batch.size());
+
+        for(VariantContext context : batch)
+        {
+            GermlineVariant variant = new GermlineVariant(context);
+            enrichment.enrichVariant(variant);
+            variants.add(variant);
+        }
+
+        return variants;
+    }
+
+    private static List<GermlineVariant> takeBatch(final Future<List<GermlineVariant>> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch(InterruptedException | ExecutionException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeBatch(final List<GermlineVariant> variants, final VariantContextWriter writer)
+    {
+        if(variants.isEmpty())
+            return;
+
+        String chromosome = variants.get(0).chromosome();
+
+        if(mCurrentChromosome != null && !mCurrentChromosome.equals(chromosome))
+            writeHeldVariants(writer);
+
+        mCurrentChromosome = chromosome;
+
+        for(GermlineVariant variant : variants)
+        {
+            ++mVariantCount;
+
+            // reported status depends on all variants in the same gene, so once past the end of each held driver gene they
+            // can be resolved and written
+            if(!mHeldVariants.isEmpty() && variant.context().getStart() > mHoldUntilPosition)
+                writeHeldVariants(writer);
+
+            if(mReportedEnrichment.isDriverGene(variant))
+            {
+                mReportedEnrichment.processVariant(variant);
+
+                // without a known gene end, hold variants until the end of the chromosome
+                Integer geneEnd = mDriverGeneEnds.get(variant.gene());
+                int holdUntil = geneEnd != null ? geneEnd + GENE_END_BUFFER : Integer.MAX_VALUE;
+
+                mHoldUntilPosition = mHeldVariants.isEmpty() ? holdUntil : Math.max(mHoldUntilPosition, holdUntil);
+            }
+
+            // once a driver gene variant is seen, all subsequent variants are held to preserve the output order
+            if(!mHeldVariants.isEmpty() || mReportedEnrichment.isDriverGene(variant))
+                mHeldVariants.add(variant);
+            else
+                writeVariant(variant, writer);
+        }
+    }
+
+    private void writeHeldVariants(final VariantContextWriter writer)
+    {
+        if(mHeldVariants.isEmpty())
+            return;
+
+        mReportedEnrichment.flush();
+
+        mHeldVariants.forEach(x -> writeVariant(x, writer));
+        mHeldVariants.clear();
+    }
+
+    private void writeVariant(final GermlineVariant variant, final VariantContextWriter writer)
+    {
+        VariantContext newContext = new VariantContextBuilder(variant.context()).filters(variant.filters()).make();
+
+        // only reported variants are retained for the driver catalog
+        if(newContext.getAttributeAsBoolean(REPORTED_FLAG, false))
+            mReportableVariants.add(variant);
+
+        writer.add(newContext);
+    }
+}
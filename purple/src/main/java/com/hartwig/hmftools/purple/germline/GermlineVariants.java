@@ -1,12 +1,18 @@
 package com.hartwig.hmftools.purple.germline;
 
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
+import static com.hartwig.hmftools.purple.germline.GermlineVariantStream.DEFAULT_BATCH_SIZE;
 
 import java.io.File;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
+import com.hartwig.hmftools.common.drivercatalog.panel.DriverGene;
+import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.common.purple.PurpleCommon;
 import com.hartwig.hmftools.purple.purity.PurityAdjuster;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
@@ -15,10 +21,10 @@ import com.hartwig.hmftools.purple.config.PurpleConfig;
 import com.hartwig.hmftools.purple.config.ReferenceData;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.jetbrains.annotations.Nullable;
 
 import htsjdk.variant.variantcontext.VariantContext;
-import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
 import htsjdk.variant.vcf.VCFFileReader;
@@ -29,17 +35,18 @@ public class GermlineVariants
     private final PurpleConfig mConfig;
     private final ReferenceData mReferenceData;
     private final String mVersion;
+    private final ExecutorService mExecutorService;
 
-    private final List<GermlineVariant> mVariants;
     private final List<GermlineVariant> mReportableVariants;
 
-    public GermlineVariants(final PurpleConfig config, final ReferenceData referenceData, final String version)
+    public GermlineVariants(
+            final PurpleConfig config, final ReferenceData referenceData, final String version, final ExecutorService executorService)
     {
         mReferenceData = referenceData;
         mConfig = config;
         mVersion = version;
+        mExecutorService = executorService;
 
-        mVariants = Lists.newArrayList();
         mReportableVariants = Lists.newArrayList();
     }
 
@@ -49,48 +56,30 @@ public class GermlineVariants
     }
 
     public void loadReportableVariants(final String germlineVcf)
-    {
-        loadGermlineVariants(germlineVcf, true);
-    }
-
-    private void loadGermlineVariants(final String germlineVcf, boolean checkReported)
     {
         if(germlineVcf.isEmpty())
             return;
 
         VCFFileReader vcfReader = new VCFFileReader(new File(germlineVcf), false);
 
-        GermlineReportedEnrichment germlineReportedEnrichment = checkReported ?
-                new GermlineReportedEnrichment(mReferenceData.DriverGenes.driverGenes(), Collections.emptySet()) : null;
+        GermlineReportedEnrichment germlineReportedEnrichment = new GermlineReportedEnrichment(
+                mReferenceData.DriverGenes.driverGenes(), Collections.emptySet());
 
         for(VariantContext context : vcfReader)
         {
             GermlineVariant variant = new GermlineVariant(context);
 
-            if(checkReported)
-            {
-                // re-check status in driver-only mode
-                boolean isReported = context.getAttributeAsBoolean(CommonVcfTags.REPORTED_FLAG, false)
-                        || germlineReportedEnrichment.report(variant.decorator(), Collections.emptySet());
+            // re-check status in driver-only mode
+            boolean isReported = context.getAttributeAsBoolean(CommonVcfTags.REPORTED_FLAG, false)
+                    || germlineReportedEnrichment.report(variant.decorator(), Collections.emptySet());
 
-                if(!isReported)
-                    continue;
-            }
-
-            if(checkReported)
+            if(isReported)
                 mReportableVariants.add(variant);
-            else
-                mVariants.add(variant);
         }
 
-        if(checkReported)
-        {
-            PPL_LOGGER.info("load {} reported germline variants from {}", mReportableVariants.size(), germlineVcf);
-        }
-        else
-        {
-            PPL_LOGGER.info("load {} germline variants from {}", mVariants.size(), germlineVcf);
-        }
+        vcfReader.close();
+
+        PPL_LOGGER.info("load {} reported germline variants from {}", mReportableVariants.size(), germlineVcf);
     }
 
     public void processAndWrite(
@@ -104,39 +93,41 @@ public class GermlineVariants
 
         final String outputVCF = PurpleCommon.purpleGermlineVcfFile(mConfig.OutputDir, tumorSample);
 
-        loadGermlineVariants(germlineVcf, false);
-
         VCFFileReader vcfReader = new VCFFileReader(new File(germlineVcf), false);
 
         VariantContextWriter writer = new VariantContextWriterBuilder().setOutputFile(outputVCF)
                 .setOption(htsjdk.variant.variantcontext.writer.Options.ALLOW_MISSING_FIELDS_IN_HEADER)
                 .build();
 
-        final GermlineVariantEnrichment enrichment = new GermlineVariantEnrichment(
-                mVersion, referenceId, tumorSample, mReferenceData, purityAdjuster, copyNumbers,
-                mReferenceData.GermlineHotspots, somaticReportedGenes);
+        final Supplier<GermlineVariantEnrichment> enrichmentFactory = () -> new GermlineVariantEnrichment(
+                mVersion, referenceId, tumorSample, purityAdjuster, copyNumbers, mReferenceData.GermlineHotspots);
 
         VCFHeader header = vcfReader.getFileHeader();
-        enrichment.enrichHeader(header);
+        enrichmentFactory.get().enrichHeader(header);
         writer.writeHeader(header);
 
-        for(GermlineVariant variant : mVariants)
+        Map<String,Integer> driverGeneEnds = Maps.newHashMap();
+
+        for(DriverGene driverGene : mReferenceData.DriverGenes.driverGenes())
         {
-            enrichment.enrichVariant(variant);
+            GeneData geneData = mReferenceData.GeneTransCache.getGeneDataByName(driverGene.gene());
+
+            if(geneData != null)
+                driverGeneEnds.put(driverGene.gene(), geneData.GeneEnd);
         }
 
-        enrichment.flush();
+        GermlineVariantStream variantStream = new GermlineVariantStream(
+                enrichmentFactory,
+                new GermlineReportedEnrichment(mReferenceData.DriverGenes.driverGenes(), somaticReportedGenes), driverGeneEnds,
+                mConfig.Threads > 1 ? mExecutorService : null, mConfig.Threads, DEFAULT_BATCH_SIZE);
 
-        for(GermlineVariant variant : mVariants)
-        {
-            VariantContext newContext = new VariantContextBuilder(variant.context()).filters(variant.filters()).make();
+        variantStream.process(vcfReader, writer);
 
-            if(newContext.getAttributeAsBoolean(CommonVcfTags.REPORTED_FLAG, false))
-                mReportableVariants.add(variant);
+        writer.close();
+        vcfReader.close();
 
-            writer.add(newContext);
-        }
+        mReportableVariants.addAll(variantStream.reportableVariants());
 
-        writer.close();
+        PPL_LOGGER.info("enriched {} germline variants, reportable({})", variantStream.variantCount(), mReportableVariants.size());
     }
 }
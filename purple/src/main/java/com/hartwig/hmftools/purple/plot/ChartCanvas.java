@@ -0,0 +1,74 @@
+package com.hartwig.hmftools.purple.plot;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.jfree.svg.SVGGraphics2D;
+import org.jfree.svg.SVGUtils;
+
+// a drawing surface sized in inches and drawn on in points, written out as either a PNG or an SVG
+public class ChartCanvas
+{
+    public final double Width; // in points
+    public final double Height;
+
+    private final ChartFormat mFormat;
+    private final BufferedImage mImage;
+    private final SVGGraphics2D mSvgGraphics;
+    private final Graphics2D mGraphics;
+
+    public static final int DEFAULT_DPI = 300;
+
+    private static final double POINTS_PER_INCH = 72;
+
+    public ChartCanvas(final ChartFormat format, double widthInches, double heightInches, int dpi)
+    {
+        mFormat = format;
+        Width = widthInches * POINTS_PER_INCH;
+        Height = heightInches * POINTS_PER_INCH;
+
+        if(format == ChartFormat.PNG)
+        {
+            mImage = new BufferedImage(
+                    (int)Math.round(widthInches * dpi), (int)Math.round(heightInches * dpi), BufferedImage.TYPE_INT_RGB);
+
+            mSvgGraphics = null;
+            mGraphics = mImage.createGraphics();
+            mGraphics.scale(dpi / POINTS_PER_INCH, dpi / POINTS_PER_INCH);
+        }
+        else
+        {
+            mImage = null;
+            mSvgGraphics = new SVGGraphics2D(Width, Height);
+            mGraphics = mSvgGraphics;
+        }
+
+        mGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        mGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        mGraphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+        mGraphics.setColor(Color.WHITE);
+        mGraphics.fill(new Rectangle2D.Double(0, 0, Width, Height));
+    }
+
+    public Graphics2D graphics() { return mGraphics; }
+
+    public BufferedImage image() { return mImage; }
+
+    public void write(final String filename) throws IOException
+    {
+        mGraphics.dispose();
+
+        if(mFormat == ChartFormat.PNG)
+            ImageIO.write(mImage, "png", new File(filename));
+        else
+            SVGUtils.writeToSVG(new File(filename), mSvgGraphics.getSVGElement());
+    }
+}
@@ -9,32 +9,43 @@ import java.util.concurrent.Future;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.amber.AmberBAF;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.purple.BestFit;
 import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
 import com.hartwig.hmftools.common.purple.Gender;
 import com.hartwig.hmftools.common.variant.VariantContextDecorator;
 import com.hartwig.hmftools.common.sv.StructuralVariant;
 import com.hartwig.hmftools.purple.config.ChartConfig;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.fitting.PeakModelData;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
 
+import org.jetbrains.annotations.Nullable;
+
 public class Charts
 {
     private final RCharts mRCharts;
+    private final JavaCharts mJavaCharts;
     private final PurpleConfig mConfig;
     private final CircosCharts mCircosCharts;
+    private final RefGenomeVersion mRefGenomeVersion;
 
     public Charts(final PurpleConfig config, final ExecutorService executorService, boolean isHg38) throws IOException
     {
-        mRCharts = new RCharts(config, executorService);
+        mRCharts = config.Charting.UseRCharts ? new RCharts(config, executorService) : null;
+        mJavaCharts = new JavaCharts(config, executorService);
         mConfig = config;
-        mCircosCharts = config.Charting.CircosBinary != null ? new CircosCharts(config, executorService, isHg38) : null;
+        mCircosCharts = config.Charting.UseCircosBinary ? new CircosCharts(config, executorService, isHg38) : null;
+        mRefGenomeVersion = isHg38 ? RefGenomeVersion.V38 : RefGenomeVersion.V37;
     }
 
     public void write(
             final String referenceId, final String sampleId, boolean plotSomatics,
             final Gender gender, final List<PurpleCopyNumber> copyNumbers,
             final List<VariantContextDecorator> somaticVariants, final List<StructuralVariant> structuralVariants,
-            final List<ObservedRegion> regions, final List<AmberBAF> bafs) throws Exception
+            final List<ObservedRegion> regions, final List<AmberBAF> bafs,
+            final BestFit bestFit, @Nullable final RChartData somaticChartData, @Nullable final List<PeakModelData> peakModel)
+            throws Exception
     {
         final ChartConfig chartConfig = mConfig.Charting;
 
@@ -45,10 +56,27 @@ public class Charts
             mCircosCharts.write(referenceId, sampleId, gender, copyNumbers, somaticVariants, structuralVariants, regions, bafs);
             chartFutures.addAll(mCircosCharts.chartFutures());
         }
+        else if(!chartConfig.Disabled)
+        {
+            chartFutures.addAll(mJavaCharts.circosFutures(
+                    sampleId, referenceId, mRefGenomeVersion, gender, copyNumbers, somaticVariants, structuralVariants, regions, bafs));
+        }
 
         if(!chartConfig.Disabled)
         {
-            chartFutures.addAll(mRCharts.chartFutures(sampleId, plotSomatics));
+            if(mRCharts != null)
+            {
+                chartFutures.addAll(mRCharts.chartFutures(sampleId, plotSomatics));
+            }
+            else
+            {
+                boolean hasSomaticData = plotSomatics && somaticChartData != null;
+
+                chartFutures.addAll(mJavaCharts.chartFutures(
+                        sampleId, bestFit.fit(), bestFit.allFits(), copyNumbers, regions,
+                        hasSomaticData ? somaticChartData.somaticHistogram() : null, hasSomaticData ? peakModel : null,
+                        hasSomaticData ? somaticChartData.rainfallData() : null));
+            }
         }
 
         for(final Future<Integer> future : chartFutures)
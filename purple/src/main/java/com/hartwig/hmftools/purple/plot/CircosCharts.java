@@ -35,7 +35,7 @@ import org.jetbrains.annotations.Nullable;
 
 public class CircosCharts
 {
-    private static final int MAX_PLOT_POINTS = 25000;
+    static final int MAX_PLOT_POINTS = 25000;
 
     private final ExecutorService mExecutorService;
     private final ChartConfig mConfig;
@@ -113,11 +113,7 @@ public class CircosCharts
         List<ObservedRegion> selectRegions = fittedRegions.stream()
                 .filter(x -> x.germlineStatus() == GermlineStatus.DIPLOID).collect(Collectors.toList());
 
-        // make the glyph size proportional to number of cobalt windows
-        ToDoubleFunction<ObservedRegion> glyphSizeFunc = (ObservedRegion region) -> {
-            int windowCount = region.depthWindowCount();
-            return 4 * (Math.log10(Math.max(windowCount, 1)) + 1);
-        };
+        ToDoubleFunction<ObservedRegion> glyphSizeFunc = CircosCharts::ratioGlyphSize;
 
         if(!mBaseCircosReferenceSample.isEmpty())
         {
@@ -134,6 +130,13 @@ public class CircosCharts
                 glyphSizeFunc);
     }
 
+    // make the glyph size proportional to number of cobalt windows
+    static double ratioGlyphSize(final ObservedRegion region)
+    {
+        int windowCount = region.depthWindowCount();
+        return 4 * (Math.log10(Math.max(windowCount, 1)) + 1);
+    }
+
     private void writeBafs(final List<AmberBAF> bafs) throws IOException
     {
         CircosFileWriter.writePositions(mBaseCircosTumorSample + ".baf.circos", bafs, x -> x.TumorBAF);
@@ -24,7 +24,7 @@ public final class CircosINDELWriter
     //    DEL MH>2 RED
     //    OTHER DEL YELLOW
     //    INS  GREEN
-    private static String color(final VariantContextDecorator variant)
+    static String color(final VariantContextDecorator variant)
     {
         if(variant.alt().length() > variant.ref().length())
         {
@@ -54,7 +54,7 @@ public final class CircosLinkWriter
     }
 
     @NotNull
-    private static String color(final StructuralVariant variant)
+    static String color(final StructuralVariant variant)
     {
         switch(variant.type())
         {
@@ -77,6 +77,13 @@ public final class CircosLinkWriter
     // it is proportional to the log10 size of the SV if it is within same chromosome
     @Nullable
     static String bezierRadius(final StructuralVariant variant)
+    {
+        Double bezierRadius = bezierRadiusValue(variant);
+        return bezierRadius != null ? String.format("%.3fr", bezierRadius) : null;
+    }
+
+    @Nullable
+    static Double bezierRadiusValue(final StructuralVariant variant)
     {
         String startChromosome = variant.chromosome(true);
         String endChromosome = variant.chromosome(false);
@@ -112,8 +119,6 @@ public final class CircosLinkWriter
         double log10Max = 7.0;
         double r = Math.min(Math.log10(length), log10Max);
 
-        r = maxBezRadius - r / log10Max * (maxBezRadius - minBezRadius);
-
-        return String.format("%.3fr", r);
+        return maxBezRadius - r / log10Max * (maxBezRadius - minBezRadius);
     }
 }
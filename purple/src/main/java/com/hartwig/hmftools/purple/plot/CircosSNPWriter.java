@@ -27,7 +27,7 @@ public final class CircosSNPWriter
         return CircosFileWriter.transformPosition(position, CircosSNPWriter::color);
     }
 
-    private static String color(final VariantContextDecorator variant)
+    static String color(final VariantContextDecorator variant)
     {
         if(signature("C", "A", variant))
         {
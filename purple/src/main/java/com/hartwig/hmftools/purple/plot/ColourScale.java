@@ -0,0 +1,69 @@
+package com.hartwig.hmftools.purple.plot;
+
+import java.awt.Color;
+
+// a continuous colour gradient, with each colour placed at a relative position between the scale's limits
+public class ColourScale
+{
+    public final double Min;
+    public final double Max;
+
+    private final Color[] mColours;
+    private final double[] mPositions;
+
+    public static final Color MISSING_COLOUR = new Color(0x7F, 0x7F, 0x7F);
+
+    public ColourScale(final double min, final double max, final Color[] colours, final double[] positions)
+    {
+        Min = min;
+        Max = max;
+        mColours = colours;
+        mPositions = positions;
+    }
+
+    public ColourScale(final double min, final double max, final Color[] colours)
+    {
+        this(min, max, colours, evenPositions(colours.length));
+    }
+
+    private static double[] evenPositions(int count)
+    {
+        double[] positions = new double[count];
+
+        for(int i = 0; i < count; ++i)
+        {
+            positions[i] = count > 1 ? i / (double)(count - 1) : 0;
+        }
+
+        return positions;
+    }
+
+    public Color colour(double value)
+    {
+        // matches ggplot's treatment of values outside the scale's limits
+        if(Double.isNaN(value) || value < Min || value > Max)
+            return MISSING_COLOUR;
+
+        double position = Max > Min ? (value - Min) / (Max - Min) : 0;
+
+        for(int i = 1; i < mPositions.length; ++i)
+        {
+            if(position <= mPositions[i])
+            {
+                double range = mPositions[i] - mPositions[i - 1];
+                double fraction = range > 0 ? (position - mPositions[i - 1]) / range : 1;
+                return interpolate(mColours[i - 1], mColours[i], fraction);
+            }
+        }
+
+        return mColours[mColours.length - 1];
+    }
+
+    private static Color interpolate(final Color from, final Color to, double fraction)
+    {
+        return new Color(
+                (int)Math.round(from.getRed() + (to.getRed() - from.getRed()) * fraction),
+                (int)Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * fraction),
+                (int)Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * fraction));
+    }
+}
@@ -0,0 +1,435 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.ceil;
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.rint;
+import static java.lang.Math.sqrt;
+
+import static com.hartwig.hmftools.purple.plot.PlotFrame.DEFAULT_EXPAND;
+import static com.hartwig.hmftools.purple.plot.PlotFrame.integerBreaks;
+import static com.hartwig.hmftools.purple.plot.PlotFrame.labels;
+import static com.hartwig.hmftools.purple.plot.PlotFrame.prettyBreaks;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+// draws the copy number and fit charts previously produced by copyNumberPlots.R
+public final class CopyNumberCharts
+{
+    public static final Color[] CN_COLOURS = {
+            new Color(0x8dd3c7), new Color(0xffffb3), new Color(0xbebada), new Color(0xfb8072),
+            new Color(0x80b1d3), new Color(0xfdb462), new Color(0xb3de69) };
+
+    public static final List<String> CN_LABELS = Lists.newArrayList("CN0", "CN1", "CN2", "CN3", "CN4", "CN5", "CN6+");
+    private static final List<String> MACN_LABELS = Lists.newArrayList("MACN0", "MACN1", "MACN2", "MACN3", "MACN4", "MACN5+");
+
+    private static final double HISTOGRAM_BIN_WIDTH = 0.1;
+    private static final double BAR_OUTLINE_WIDTH = 0.2;
+
+    private static final Color[] PURITY_SCORE_COLOURS = {
+            Color.BLUE, Color.BLUE, Color.GREEN, Color.YELLOW, new Color(0xFFA500), Color.RED, new Color(0xEE0000) };
+
+    private static final double[] PURITY_SCORE_POSITIONS = { 0, 0.0999, 0.1, 0.5, 0.8, 0.9, 1 };
+
+    private static final Color[] SEGMENT_SCORE_COLOURS = { Color.BLUE, Color.GREEN, Color.YELLOW, new Color(0xFFA500), Color.RED };
+
+    private static final Color TOTAL_COPY_NUMBER_COLOUR = new Color(0x1F, 0x78, 0xB4);
+    private static final Color MINOR_ALLELE_COLOUR = new Color(0xE3, 0x1A, 0x1C);
+    private static final Color ALTERNATE_CHROMOSOME_COLOUR = new Color(0xF4, 0xF4, 0xF4);
+
+    private CopyNumberCharts() {}
+
+    private static boolean isAutosome(final String chromosome)
+    {
+        return HumanChromosome.contains(chromosome) && HumanChromosome.fromString(chromosome).isAutosome();
+    }
+
+    public static List<PurpleCopyNumber> autosomesWithBafs(final List<PurpleCopyNumber> copyNumbers)
+    {
+        return copyNumbers.stream().filter(x -> isAutosome(x.chromosome()) && x.bafCount() > 0).collect(Collectors.toList());
+    }
+
+    public static void copyNumberPdf(final ChartCanvas canvas, final List<PurpleCopyNumber> copyNumbers)
+    {
+        // copy number weighted by BAF count, stacked by minor allele copy number
+        double maxCopyNumber = thresholdBucket(
+                copyNumbers, x -> (int)ceil(x.averageTumorCopyNumber()), PurpleCopyNumber::bafCount, 0.9);
+
+        double minCopyNumber = floor(copyNumbers.stream().mapToDouble(PurpleCopyNumber::averageTumorCopyNumber).min().orElse(0));
+
+        Map<Double,double[]> bars = stackedHistogram(
+                copyNumbers, PurpleCopyNumber::averageTumorCopyNumber,
+                x -> (int)min(max(rint(x.minorAlleleCopyNumber()), 0), MACN_LABELS.size() - 1),
+                MACN_LABELS.size(), minCopyNumber - 0.1, maxCopyNumber + 0.1);
+
+        PlotFrame frame = new PlotFrame(canvas, "Copy Number PDF", true);
+        frame.setXRange(minCopyNumber - 0.1, maxCopyNumber + 0.1, DEFAULT_EXPAND);
+        frame.setYRange(0, PlotFrame.maxStackHeight(bars), DEFAULT_EXPAND);
+
+        double[] xBreaks = integerBreaks(minCopyNumber - 1, maxCopyNumber + 1);
+        double[] yBreaks = prettyBreaks(0, PlotFrame.maxStackHeight(bars), 5);
+        frame.drawPanel(xBreaks, labels(xBreaks), yBreaks, labels(yBreaks));
+
+        frame.drawStackedBars(bars, HISTOGRAM_BIN_WIDTH, CN_COLOURS, Color.BLACK, BAR_OUTLINE_WIDTH);
+
+        frame.drawBorder();
+        frame.drawAxisTitles("Copy Number", "Baf Count");
+        frame.drawLegend("", MACN_LABELS, Arrays.asList(CN_COLOURS).subList(0, MACN_LABELS.size()), false);
+    }
+
+    public static void minorAlleleCopyNumberPdf(final ChartCanvas canvas, final List<PurpleCopyNumber> copyNumbers)
+    {
+        // minor allele copy number weighted by BAF count, stacked by copy number
+        double maxMinorAllele = thresholdBucket(
+                copyNumbers, x -> (int)ceil(x.minorAlleleCopyNumber()), PurpleCopyNumber::bafCount, 0.9);
+
+        Map<Double,double[]> bars = stackedHistogram(
+                copyNumbers, PurpleCopyNumber::minorAlleleCopyNumber,
+                x -> (int)min(max(rint(x.averageTumorCopyNumber()), 0), CN_LABELS.size() - 1),
+                CN_LABELS.size(), -0.1, maxMinorAllele + 0.1);
+
+        PlotFrame frame = new PlotFrame(canvas, "Minor Allele Copy Number PDF", true);
+        frame.setXRange(-0.1, maxMinorAllele + 0.1, DEFAULT_EXPAND);
+        frame.setYRange(0, PlotFrame.maxStackHeight(bars), DEFAULT_EXPAND);
+
+        double[] xBreaks = integerBreaks(0, 10);
+        double[] yBreaks = prettyBreaks(0, PlotFrame.maxStackHeight(bars), 5);
+        frame.drawPanel(xBreaks, labels(xBreaks), yBreaks, labels(yBreaks));
+
+        frame.drawStackedBars(bars, HISTOGRAM_BIN_WIDTH, CN_COLOURS, Color.BLACK, BAR_OUTLINE_WIDTH);
+
+        frame.drawBorder();
+        frame.drawAxisTitles("Minor Allele Copy Number", "Baf Count");
+        frame.drawLegend("", CN_LABELS, Arrays.asList(CN_COLOURS), false);
+    }
+
+    private static Map<Double,double[]> stackedHistogram(
+            final List<PurpleCopyNumber> copyNumbers, final ToDoubleFunction<PurpleCopyNumber> value,
+            final ToIntFunction<PurpleCopyNumber> category, int categoryCount, double minValue, double maxValue)
+    {
+        Map<Integer,double[]> binCounts = new TreeMap<>();
+
+        for(PurpleCopyNumber copyNumber : copyNumbers)
+        {
+            double xValue = value.applyAsDouble(copyNumber);
+
+            if(xValue < minValue || xValue > maxValue)
+                continue;
+
+            // bins are centred on multiples of the bin width and closed on the right, as for geom_histogram
+            int bin = (int)ceil(xValue / HISTOGRAM_BIN_WIDTH - 0.5);
+            binCounts.computeIfAbsent(bin, x -> new double[categoryCount])[category.applyAsInt(copyNumber)] += copyNumber.bafCount();
+        }
+
+        Map<Double,double[]> bars = new TreeMap<>();
+
+        for(Map.Entry<Integer,double[]> entry : binCounts.entrySet())
+        {
+            double centre = entry.getKey() * HISTOGRAM_BIN_WIDTH;
+
+            // bars extending past the axis limits are dropped
+            if(centre - HISTOGRAM_BIN_WIDTH / 2 >= minValue - 1e-9 && centre + HISTOGRAM_BIN_WIDTH / 2 <= maxValue + 1e-9)
+                bars.put(centre, entry.getValue());
+        }
+
+        return bars;
+    }
+
+    static <T> double thresholdBucket(
+            final List<T> items, final ToIntFunction<T> bucket, final ToDoubleFunction<T> weight, double proportion)
+    {
+        // the first bucket at which the cumulative weight exceeds the required proportion of the total
+        Map<Integer,Double> bucketWeights = new TreeMap<>();
+        items.forEach(x -> bucketWeights.merge(bucket.applyAsInt(x), weight.applyAsDouble(x), Double::sum));
+
+        double total = bucketWeights.values().stream().mapToDouble(x -> x).sum();
+        double cumulative = 0;
+
+        for(Map.Entry<Integer,Double> entry : bucketWeights.entrySet())
+        {
+            cumulative += entry.getValue();
+
+            if(cumulative / total > proportion)
+                return entry.getKey();
+        }
+
+        return bucketWeights.isEmpty() ? 0 : ((TreeMap<Integer,Double>)bucketWeights).lastKey();
+    }
+
+    private static class PurityRangeCell
+    {
+        public final double Purity;
+        public final double Ploidy;
+        public final double Score;
+        public double XMin;
+        public double XMax;
+
+        public PurityRangeCell(final FittedPurity fittedPurity, double bestScore)
+        {
+            Purity = fittedPurity.purity();
+            Ploidy = fittedPurity.ploidy();
+            Score = min(1, abs(fittedPurity.score() - bestScore) / fittedPurity.score());
+            XMin = Ploidy;
+            XMax = Ploidy;
+        }
+    }
+
+    public static void purityRange(final ChartCanvas canvas, final FittedPurity bestFit, final List<FittedPurity> allFits)
+    {
+        Map<Double,List<PurityRangeCell>> purityCells = new TreeMap<>();
+
+        for(FittedPurity fittedPurity : allFits)
+        {
+            purityCells.computeIfAbsent(fittedPurity.purity(), x -> Lists.newArrayList())
+                    .add(new PurityRangeCell(fittedPurity, bestFit.score()));
+        }
+
+        // each cell extends half-way to its neighbouring ploidies at the same purity, and the plotted ploidy range is limited
+        // to that covered by every purity
+        double minPloidy = Double.NEGATIVE_INFINITY;
+        double maxPloidy = Double.POSITIVE_INFINITY;
+
+        for(List<PurityRangeCell> cells : purityCells.values())
+        {
+            cells.sort(Comparator.comparingDouble(x -> x.Ploidy));
+
+            for(int i = 0; i < cells.size(); ++i)
+            {
+                PurityRangeCell cell = cells.get(i);
+
+                if(i > 0)
+                    cell.XMin = cell.Ploidy - (cell.Ploidy - cells.get(i - 1).Ploidy) / 2;
+
+                if(i < cells.size() - 1)
+                    cell.XMax = cell.Ploidy + (cells.get(i + 1).Ploidy - cell.Ploidy) / 2;
+            }
+
+            minPloidy = max(minPloidy, cells.get(0).XMin);
+            maxPloidy = min(maxPloidy, cells.get(cells.size() - 1).XMax);
+        }
+
+        double bestPloidy = bestFit.ploidy();
+        double bestPurity = bestFit.purity();
+
+        if(purityCells.isEmpty())
+        {
+            minPloidy = bestPloidy;
+            maxPloidy = bestPloidy;
+        }
+
+        maxPloidy = max(maxPloidy, bestPloidy);
+        minPloidy = min(minPloidy, bestPloidy);
+
+        double minPurity = purityCells.isEmpty() ? bestPurity : ((TreeMap<Double,List<PurityRangeCell>>)purityCells).firstKey();
+        double maxPurity = purityCells.isEmpty() ? bestPurity : ((TreeMap<Double,List<PurityRangeCell>>)purityCells).lastKey();
+
+        ColourScale scale = new ColourScale(0, 1, PURITY_SCORE_COLOURS, PURITY_SCORE_POSITIONS);
+
+        PlotFrame frame = new PlotFrame(canvas, "Purity/Ploidy Scores", true);
+        frame.setXRange(minPloidy, maxPloidy + 0.55, DEFAULT_EXPAND);
+        frame.setYRange(min(0.085, minPurity - 0.005), max(1.05, maxPurity + 0.005), DEFAULT_EXPAND);
+
+        double[] xBreaks = prettyBreaks(minPloidy, maxPloidy + 0.55, 5);
+        double[] yBreaks = { 0.25, 0.5, 0.75, 1 };
+        frame.drawPanel(xBreaks, labels(xBreaks), yBreaks, new String[] { "25%", "50%", "75%", "100%" });
+
+        for(List<PurityRangeCell> cells : purityCells.values())
+        {
+            for(PurityRangeCell cell : cells)
+            {
+                if(cell.XMin > maxPloidy || cell.XMax < minPloidy)
+                    continue;
+
+                frame.fillRect(
+                        max(cell.XMin, minPloidy), min(cell.XMax, maxPloidy), cell.Purity - 0.005, cell.Purity + 0.005,
+                        scale.colour(cell.Score));
+            }
+        }
+
+        frame.drawLine(bestPloidy, 0.085, bestPloidy, 1.05, Color.BLACK, 0.3, true);
+        frame.drawLine(minPloidy, bestPurity, maxPloidy + 0.4, bestPurity, Color.BLACK, 0.3, true);
+
+        frame.drawLabel(PlotFrame.formatValue(rint(bestPloidy * 100) / 100), bestPloidy, 1.05, 7, 0.5);
+        frame.drawLabel(PlotFrame.formatValue(bestPurity * 100) + "%", maxPloidy + 0.4, bestPurity, 7, 0.7);
+
+        frame.drawBorder();
+        frame.drawAxisTitles("Ploidy", "Purity");
+        frame.drawColourBar("Relative\nScore", scale, new double[] { 0.1, 0.5, 1 }, new String[] { "10%", "50%", "100%" });
+    }
+
+    public static void segmentScores(final ChartCanvas canvas, final List<ObservedRegion> fittedRegions)
+    {
+        List<ObservedRegion> regions = fittedRegions.stream()
+                .filter(x -> x.germlineStatus() == GermlineStatus.DIPLOID && x.bafCount() > 0)
+                .sorted(Comparator.comparingDouble(ObservedRegion::majorAlleleCopyNumber))
+                .collect(Collectors.toList());
+
+        // axis limits cover the regions making up 90% of the BAF-weighted major allele copy number
+        double totalWeightedMajorAllele = regions.stream().mapToDouble(x -> x.bafCount() * x.majorAlleleCopyNumber()).sum();
+        double cumulative = 0;
+
+        List<ObservedRegion> limitRegions = Lists.newArrayList();
+
+        for(ObservedRegion region : regions)
+        {
+            cumulative += region.bafCount() * region.majorAlleleCopyNumber();
+
+            if(cumulative / totalWeightedMajorAllele <= 0.9)
+                limitRegions.add(region);
+        }
+
+        if(limitRegions.isEmpty())
+            limitRegions.addAll(regions);
+
+        double minScore = floor(limitRegions.stream().mapToDouble(CopyNumberCharts::segmentScore).min().orElse(0));
+        double maxScore = ceil(limitRegions.stream().mapToDouble(CopyNumberCharts::segmentScore).max().orElse(1));
+        double minMajorAllele = min(0, floor(limitRegions.stream().mapToDouble(ObservedRegion::majorAlleleCopyNumber).min().orElse(0)));
+        double maxMajorAllele = ceil(limitRegions.stream().mapToDouble(ObservedRegion::majorAlleleCopyNumber).max().orElse(1));
+        double maxMinorAllele = maxMajorAllele - 1;
+
+        ColourScale scale = new ColourScale(minScore, maxScore, SEGMENT_SCORE_COLOURS);
+
+        PlotFrame frame = new PlotFrame(canvas, "Segment Scores", true);
+        frame.setXRange(minMajorAllele, maxMajorAllele, DEFAULT_EXPAND);
+        frame.setYRange(0, maxMinorAllele, DEFAULT_EXPAND);
+
+        double[] xBreaks = integerBreaks(minMajorAllele, maxMajorAllele);
+        double[] yBreaks = integerBreaks(0, maxMinorAllele);
+        frame.drawPanel(xBreaks, labels(xBreaks), yBreaks, labels(yBreaks));
+
+        // point area scales with BAF count
+        double minWeight = regions.stream().mapToDouble(ObservedRegion::bafCount).min().orElse(0);
+        double maxWeight = regions.stream().mapToDouble(ObservedRegion::bafCount).max().orElse(1);
+
+        for(ObservedRegion region : regions)
+        {
+            double major = region.majorAlleleCopyNumber();
+            double minor = region.minorAlleleCopyNumber();
+
+            if(major < minMajorAllele || major > maxMajorAllele || minor < 0 || minor > maxMinorAllele)
+                continue;
+
+            double relativeWeight = maxWeight > minWeight ? (region.bafCount() - minWeight) / (maxWeight - minWeight) : 0;
+            double size = 1 + 8 * sqrt(relativeWeight);
+
+            Color colour = scale.colour(segmentScore(region));
+            frame.fillCircle(major, minor, size * 1.4, new Color(colour.getRed(), colour.getGreen(), colour.getBlue(), 178));
+        }
+
+        frame.drawBorder();
+        frame.drawAxisTitles("Major Allele", "Minor Allele");
+
+        double[] scoreBreaks = prettyBreaks(minScore, maxScore, 4);
+        frame.drawColourBar("Score", scale, scoreBreaks, labels(scoreBreaks));
+    }
+
+    private static double segmentScore(final ObservedRegion region)
+    {
+        return region.deviationPenalty() * region.eventPenalty();
+    }
+
+    public static void chromosomeCopyNumbers(final ChartCanvas canvas, final List<PurpleCopyNumber> copyNumbers)
+    {
+        // total and minor allele copy number along the genome, with chromosomes laid end to end
+        Map<String,List<PurpleCopyNumber>> chromosomeCopyNumbers = Maps.newLinkedHashMap();
+
+        copyNumbers.stream()
+                .filter(x -> HumanChromosome.contains(x.chromosome()))
+                .forEach(x -> chromosomeCopyNumbers.computeIfAbsent(x.chromosome(), k -> Lists.newArrayList()).add(x));
+
+        Map<String,Double> chromosomeOffsets = Maps.newLinkedHashMap();
+        double genomeLength = 0;
+
+        for(Map.Entry<String,List<PurpleCopyNumber>> entry : chromosomeCopyNumbers.entrySet())
+        {
+            chromosomeOffsets.put(entry.getKey(), genomeLength);
+            genomeLength += entry.getValue().stream().mapToInt(PurpleCopyNumber::end).max().orElse(0);
+        }
+
+        // cap the axis so that a few highly amplified segments do not flatten the remainder
+        double[] sortedCopyNumbers = copyNumbers.stream().mapToDouble(PurpleCopyNumber::averageTumorCopyNumber).sorted().toArray();
+        double highCopyNumber = sortedCopyNumbers.length > 0 ? sortedCopyNumbers[(int)floor(0.98 * (sortedCopyNumbers.length - 1))] : 0;
+        double maxCopyNumber = max(4, ceil(highCopyNumber));
+
+        PlotFrame frame = new PlotFrame(canvas, "Copy Number by Chromosome", true);
+        frame.setXRange(0, max(genomeLength, 1), 0.01);
+        frame.setYRange(0, maxCopyNumber, DEFAULT_EXPAND);
+
+        double[] xBreaks = new double[chromosomeOffsets.size()];
+        String[] xLabels = new String[chromosomeOffsets.size()];
+
+        int index = 0;
+        for(Map.Entry<String,Double> entry : chromosomeOffsets.entrySet())
+        {
+            double length = chromosomeCopyNumbers.get(entry.getKey()).stream().mapToInt(PurpleCopyNumber::end).max().orElse(0);
+            xBreaks[index] = entry.getValue() + length / 2;
+            xLabels[index] = HumanChromosome.fromString(entry.getKey()).toString();
+            ++index;
+        }
+
+        double[] yBreaks = integerBreaks(0, maxCopyNumber);
+        frame.drawPanel(new double[0], new String[0], yBreaks, labels(yBreaks));
+
+        frame.clipToPanel();
+
+        index = 0;
+        for(Map.Entry<String,Double> entry : chromosomeOffsets.entrySet())
+        {
+            double length = chromosomeCopyNumbers.get(entry.getKey()).stream().mapToInt(PurpleCopyNumber::end).max().orElse(0);
+
+            if(index % 2 == 1)
+                frame.fillRect(entry.getValue(), entry.getValue() + length, 0, maxCopyNumber * 1.1, ALTERNATE_CHROMOSOME_COLOUR);
+
+            ++index;
+        }
+
+        for(double yBreak : yBreaks)
+        {
+            frame.drawLine(0, yBreak, genomeLength, yBreak, PlotFrame.GRID_COLOUR, 0.5, false);
+        }
+
+        for(Map.Entry<String,List<PurpleCopyNumber>> entry : chromosomeCopyNumbers.entrySet())
+        {
+            double offset = chromosomeOffsets.get(entry.getKey());
+
+            for(PurpleCopyNumber copyNumber : entry.getValue())
+            {
+                double start = offset + copyNumber.start();
+                double end = offset + copyNumber.end();
+
+                frame.drawLine(start, copyNumber.minorAlleleCopyNumber(), end, copyNumber.minorAlleleCopyNumber(), MINOR_ALLELE_COLOUR, 1.5, false);
+                frame.drawLine(start, copyNumber.averageTumorCopyNumber(), end, copyNumber.averageTumorCopyNumber(), TOTAL_COPY_NUMBER_COLOUR, 1.5, false);
+            }
+        }
+
+        frame.resetClip();
+
+        for(int i = 0; i < xBreaks.length; ++i)
+        {
+            frame.drawText(xLabels[i], frame.x(xBreaks[i]), frame.panel().getMaxY() + PlotFrame.AXIS_TEXT_SIZE + 2,
+                    PlotFrame.AXIS_TEXT_SIZE, PlotFrame.TEXT_COLOUR, 0.5);
+        }
+
+        frame.drawBorder();
+        frame.drawAxisTitles("Chromosome", "Copy Number");
+        frame.drawLegend("", Lists.newArrayList("Copy Number", "Minor Allele"), Lists.newArrayList(TOTAL_COPY_NUMBER_COLOUR, MINOR_ALLELE_COLOUR), false);
+    }
+}
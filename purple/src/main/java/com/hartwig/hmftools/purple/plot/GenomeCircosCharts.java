@@ -0,0 +1,291 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static com.hartwig.hmftools.purple.plot.CircosCharts.MAX_PLOT_POINTS;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.amber.AmberBAF;
+import com.hartwig.hmftools.common.circos.CircosLayout;
+import com.hartwig.hmftools.common.circos.CircosPlot;
+import com.hartwig.hmftools.common.circos.HeatmapTrack;
+import com.hartwig.hmftools.common.circos.HistogramTrack;
+import com.hartwig.hmftools.common.circos.IdeogramTrack;
+import com.hartwig.hmftools.common.circos.LinkTrack;
+import com.hartwig.hmftools.common.circos.ScatterTrack;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.sv.StructuralVariant;
+import com.hartwig.hmftools.common.utils.Doubles;
+import com.hartwig.hmftools.common.utils.collection.Downsample;
+import com.hartwig.hmftools.common.variant.VariantContextDecorator;
+import com.hartwig.hmftools.common.variant.VariantType;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+// draws the circos and input plots from the circos templates without the circos binary, with the same tracks, radii,
+// ranges and colours and the same down-sampling of the plotted data
+public final class GenomeCircosCharts
+{
+    // approximations of circos' default colour definitions, with _a3 and _a5 transparency
+    private static final Map<String,Color> CIRCOS_COLOURS = Maps.newHashMap();
+
+    static
+    {
+        CIRCOS_COLOURS.put("black", new Color(0, 0, 0));
+        CIRCOS_COLOURS.put("dgrey", new Color(95, 95, 95));
+        CIRCOS_COLOURS.put("red", new Color(247, 42, 66));
+        CIRCOS_COLOURS.put("lred", new Color(255, 82, 102));
+        CIRCOS_COLOURS.put("vlred", new Color(255, 137, 151));
+        CIRCOS_COLOURS.put("vdred", new Color(153, 0, 0));
+        CIRCOS_COLOURS.put("green", new Color(51, 204, 94));
+        CIRCOS_COLOURS.put("lgreen", new Color(140, 230, 166));
+        CIRCOS_COLOURS.put("vlgreen", new Color(204, 245, 214));
+        CIRCOS_COLOURS.put("blue", new Color(54, 116, 217));
+        CIRCOS_COLOURS.put("lblue", new Color(128, 177, 230));
+        CIRCOS_COLOURS.put("vlblue", new Color(179, 205, 240));
+        CIRCOS_COLOURS.put("orange", new Color(255, 136, 0));
+        CIRCOS_COLOURS.put("lorange", new Color(255, 180, 102));
+        CIRCOS_COLOURS.put("vlorange", new Color(255, 207, 153));
+        CIRCOS_COLOURS.put("purple", new Color(153, 51, 204));
+        CIRCOS_COLOURS.put("lpurple", new Color(194, 148, 229));
+        CIRCOS_COLOURS.put("vlpurple", new Color(230, 202, 244));
+        CIRCOS_COLOURS.put("vdyellow", new Color(153, 153, 0));
+        CIRCOS_COLOURS.put("amber", new Color(255, 126, 0));
+        CIRCOS_COLOURS.put("cobalt", new Color(0, 71, 171));
+    }
+
+    private static final Color[] CHROMOSOME_COLOURS = {
+            new Color(128, 125, 186), new Color(145, 142, 179), new Color(161, 159, 173), new Color(179, 176, 166),
+            new Color(196, 193, 160), new Color(213, 210, 153), new Color(230, 228, 147), new Color(202, 218, 138),
+            new Color(175, 209, 129), new Color(147, 199, 120), new Color(120, 190, 111), new Color(92, 180, 102),
+            new Color(65, 171, 93), new Color(65, 166, 110), new Color(65, 162, 128), new Color(65, 158, 145),
+            new Color(65, 154, 163), new Color(65, 150, 180), new Color(66, 146, 198), new Color(76, 142, 196),
+            new Color(86, 139, 194), new Color(97, 135, 192), new Color(107, 132, 190), new Color(117, 128, 188) };
+
+    private static final double IDEOGRAM_THICKNESS = 50;
+    private static final double DEFAULT_GLYPH_SIZE = 8;
+    private static final double LINK_RADIUS = 0.35;
+    private static final double LINK_BEZIER_RADIUS = 0.1;
+    private static final double LINK_THICKNESS = 2;
+
+    public static void circos(
+            final ChartCanvas canvas, final RefGenomeVersion refGenomeVersion, boolean includeY,
+            final List<PurpleCopyNumber> copyNumbers, final List<VariantContextDecorator> somaticVariants,
+            final List<StructuralVariant> structuralVariants)
+    {
+        CircosPlot plot = createPlot(canvas, refGenomeVersion, includeY);
+        CircosLayout layout = plot.layout();
+
+        List<VariantContextDecorator> somatics = somaticVariants.stream()
+                .filter(x -> HumanChromosome.contains(x.chromosome()))
+                .collect(Collectors.toList());
+
+        // somatic SNVs, coloured by mutation type
+        ScatterTrack snpTrack = new ScatterTrack(0.775, 0.975, 0, 1);
+        snpTrack.setBackground(circosColour("vlpurple", 5));
+        snpTrack.setAxes(circosColour("lpurple"), 1, 0.25);
+
+        List<VariantContextDecorator> snps = somatics.stream().filter(x -> x.type() == VariantType.SNP).collect(Collectors.toList());
+
+        for(VariantContextDecorator variant : Downsample.downsample(MAX_PLOT_POINTS, snps))
+        {
+            snpTrack.add(layout.chromosomeIndex(variant.chromosome()), variant.position(), variant.adjustedVaf(),
+                    circosColour(CircosSNPWriter.color(variant)), DEFAULT_GLYPH_SIZE);
+        }
+
+        plot.addTrack(snpTrack);
+
+        HeatmapTrack indelTrack = new HeatmapTrack(0.775, 0.725);
+        indelTrack.setBackground(circosColour("vlpurple", 5));
+        indelTrack.setAxes(circosColour("lpurple"), 1, 1);
+
+        List<VariantContextDecorator> indels = somatics.stream().filter(x -> x.type() == VariantType.INDEL).collect(Collectors.toList());
+
+        for(VariantContextDecorator variant : Downsample.downsample(MAX_PLOT_POINTS, indels))
+        {
+            indelTrack.add(layout.chromosomeIndex(variant.chromosome()), variant.position(), variant.position(),
+                    circosColour(CircosINDELWriter.color(variant)));
+        }
+
+        plot.addTrack(indelTrack);
+
+        // copy number relative to diploid, with high-level gains marked by a scaled glyph
+        addCopyNumberTracks(
+                plot, copyNumbers, x -> x.averageTumorCopyNumber() - 2, 0.70, 4, 0.55, 0.70, 4, 0.50, 0.55, -2,
+                "green", "red", 0.25, 0.5);
+
+        // minor allele copy number relative to 1
+        addCopyNumberTracks(
+                plot, copyNumbers, x -> x.minorAlleleCopyNumber() - 1, 0.475, 2, 0.40, 0.475, 2, 0.375, 0.40, -1,
+                "blue", "orange", 0.5, 1);
+
+        LinkTrack linkTrack = new LinkTrack(LINK_RADIUS, LINK_BEZIER_RADIUS, LINK_THICKNESS);
+
+        for(StructuralVariant variant : structuralVariants)
+        {
+            // SGLs are not plotted
+            if(variant.end() == null)
+                continue;
+
+            Double bezierRadius = CircosLinkWriter.bezierRadiusValue(variant);
+
+            linkTrack.add(
+                    layout.chromosomeIndex(variant.chromosome(true)), variant.position(true),
+                    layout.chromosomeIndex(variant.chromosome(false)), variant.position(false),
+                    circosColour(CircosLinkWriter.color(variant)), bezierRadius != null ? bezierRadius : LINK_BEZIER_RADIUS);
+        }
+
+        plot.addTrack(linkTrack);
+
+        plot.draw(canvas.graphics(), canvas.Width, canvas.Height);
+    }
+
+    private static void addCopyNumberTracks(
+            final CircosPlot plot, final List<PurpleCopyNumber> copyNumbers, final ToDoubleFunction<PurpleCopyNumber> valueFunction,
+            double scatterRadius, double scatterThreshold, double gainInner, double gainOuter, double gainMax,
+            double lossInner, double lossOuter, double lossMin, final String gainColour, final String lossColour,
+            double gainAxisSpacing, double lossAxisSpacing)
+    {
+        CircosLayout layout = plot.layout();
+
+        ScatterTrack scatterTrack = new ScatterTrack(scatterRadius, scatterRadius, 0, 1);
+
+        HistogramTrack gainTrack = new HistogramTrack(gainInner, gainOuter, 0, gainMax, circosColour(gainColour));
+        gainTrack.setBackground(circosColour("vl" + gainColour, 5));
+        gainTrack.setAxes(circosColour("l" + gainColour), 2, gainAxisSpacing);
+
+        HistogramTrack lossTrack = new HistogramTrack(lossInner, lossOuter, lossMin, 0, circosColour(lossColour));
+        lossTrack.setBackground(circosColour("vl" + lossColour, 5));
+        lossTrack.setAxes(circosColour("l" + lossColour), 1, lossAxisSpacing);
+
+        for(PurpleCopyNumber copyNumber : copyNumbers)
+        {
+            int chromosomeIndex = layout.chromosomeIndex(copyNumber.chromosome());
+            double value = valueFunction.applyAsDouble(copyNumber);
+
+            gainTrack.add(chromosomeIndex, copyNumber.start(), copyNumber.end(), value);
+            lossTrack.add(chromosomeIndex, copyNumber.start(), copyNumber.end(), value);
+
+            if(value > scatterThreshold)
+            {
+                // as per the template's remap_int(value, 4, 12, 15, 30) glyph size rule
+                double glyphSize = (int)Math.round(15 + (Math.max(4, Math.min(12, value)) - 4) / 8 * 15);
+
+                scatterTrack.add(chromosomeIndex, (copyNumber.start() + copyNumber.end()) / 2, 0, circosColour(gainColour),
+                        glyphSize);
+            }
+        }
+
+        plot.addTrack(scatterTrack);
+        plot.addTrack(gainTrack);
+        plot.addTrack(lossTrack);
+    }
+
+    public static void input(
+            final ChartCanvas canvas, final RefGenomeVersion refGenomeVersion, boolean includeY, boolean hasReference,
+            final List<ObservedRegion> regions, final List<AmberBAF> bafs)
+    {
+        CircosPlot plot = createPlot(canvas, refGenomeVersion, includeY);
+        CircosLayout layout = plot.layout();
+
+        List<ObservedRegion> diploidRegions = Downsample.downsample(MAX_PLOT_POINTS, regions).stream()
+                .filter(x -> x.germlineStatus() == GermlineStatus.DIPLOID).collect(Collectors.toList());
+
+        ScatterTrack tumorRatioTrack = new ScatterTrack(0.575, 0.975, 0, 2);
+        tumorRatioTrack.setBackground(circosColour("vlblue", 5));
+        tumorRatioTrack.setAxes(circosColour("lblue"), 1, 0.25);
+
+        // use the tumor colour for reference in tumor-only mode to keep those points the same
+        ScatterTrack referenceRatioTrack = new ScatterTrack(0.575, 0.975, 0, 2);
+        Color referenceColour = circosColour(hasReference ? "green" : "cobalt");
+
+        for(ObservedRegion region : diploidRegions)
+        {
+            int chromosomeIndex = layout.chromosomeIndex(region.chromosome());
+            int midpoint = (region.start() + region.end()) / 2;
+            double glyphSize = CircosCharts.ratioGlyphSize(region);
+
+            if(Doubles.positive(region.observedTumorRatio()))
+                tumorRatioTrack.add(chromosomeIndex, midpoint, region.observedTumorRatio(), circosColour("cobalt"), glyphSize);
+
+            if(hasReference && Doubles.positive(region.unnormalisedObservedNormalRatio()))
+            {
+                referenceRatioTrack.add(
+                        chromosomeIndex, midpoint, region.unnormalisedObservedNormalRatio(), referenceColour, glyphSize);
+            }
+        }
+
+        plot.addTrack(tumorRatioTrack);
+        plot.addTrack(referenceRatioTrack);
+
+        ScatterTrack bafTrack = new ScatterTrack(0.300, 0.550, 0, 1);
+        bafTrack.setBackground(circosColour("vlorange", 5));
+        bafTrack.setAxes(circosColour("lorange"), 1, 0.25);
+
+        for(AmberBAF baf : Downsample.downsample(MAX_PLOT_POINTS, bafs))
+        {
+            bafTrack.add(layout.chromosomeIndex(baf.Chromosome), baf.Position, baf.TumorBAF, circosColour("amber"), DEFAULT_GLYPH_SIZE);
+        }
+
+        plot.addTrack(bafTrack);
+
+        plot.draw(canvas.graphics(), canvas.Width, canvas.Height);
+    }
+
+    private static CircosPlot createPlot(final ChartCanvas canvas, final RefGenomeVersion refGenomeVersion, boolean includeY)
+    {
+        CircosLayout layout = CircosLayout.fromRefGenome(refGenomeVersion, includeY);
+
+        CircosPlot plot = new CircosPlot(layout, IDEOGRAM_THICKNESS);
+        plot.setRasterGlyphs(canvas.image() != null);
+
+        // the templates' ideograms are filled with the karyotype's chromosome colours but do not set show_bands, so as with
+        // the circos binary the karyotype bands are not drawn
+        IdeogramTrack ideogram = new IdeogramTrack();
+        ideogram.setOutline(circosColour("dgrey"), 2);
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            ideogram.setChromosomeColour(chromosome.toString(), CHROMOSOME_COLOURS[chromosome.ordinal()]);
+        }
+
+        String gapsResource = "/circos/gaps." + (refGenomeVersion.is38() ? "38" : "37") + ".txt";
+        Color gapColour = circosColour("black", 3);
+
+        new BufferedReader(new InputStreamReader(GenomeCircosCharts.class.getResourceAsStream(gapsResource))).lines()
+                .map(x -> x.split("\t"))
+                .forEach(x -> ideogram.addHighlight(
+                        layout.chromosomeIndex(x[0]), Integer.parseInt(x[1]), Integer.parseInt(x[2]), gapColour));
+
+        plot.addTrack(ideogram);
+        return plot;
+    }
+
+    // supports colour names and RGB triplets as written to the circos data files
+    static Color circosColour(final String colour)
+    {
+        if(colour.contains(","))
+        {
+            String[] values = colour.split(",");
+            return new Color(Integer.parseInt(values[0]), Integer.parseInt(values[1]), Integer.parseInt(values[2]));
+        }
+
+        return CIRCOS_COLOURS.getOrDefault(colour, Color.GRAY);
+    }
+
+    // circos' _aN suffix, where each level adds a sixth of transparency
+    private static Color circosColour(final String colour, int transparencyLevel)
+    {
+        Color baseColour = circosColour(colour);
+        int alpha = (int)Math.round(255 * (1 - transparencyLevel / 6.0));
+        return new Color(baseColour.getRed(), baseColour.getGreen(), baseColour.getBlue(), alpha);
+    }
+}
@@ -0,0 +1,144 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.amber.AmberBAF;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.sv.StructuralVariant;
+import com.hartwig.hmftools.common.variant.VariantContextDecorator;
+import com.hartwig.hmftools.purple.config.ChartConfig;
+import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.fitting.PeakModelData;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.jetbrains.annotations.Nullable;
+
+// draws the same chart set as the R scripts, with each chart rendered as its own task
+public class JavaCharts
+{
+    private final ChartConfig mChartConfig;
+    private final ExecutorService mExecutorService;
+    private final int mDpi;
+
+    private static final double DEFAULT_WIDTH = 4.8;
+    private static final double DEFAULT_HEIGHT = 4;
+
+    // matches circos' default 3000 pixel image at the default DPI
+    private static final double CIRCOS_SIZE = 10;
+
+    public JavaCharts(final PurpleConfig config, final ExecutorService executorService)
+    {
+        this(config.Charting, executorService, ChartCanvas.DEFAULT_DPI);
+    }
+
+    public JavaCharts(final ChartConfig chartConfig, final ExecutorService executorService, int dpi)
+    {
+        mChartConfig = chartConfig;
+        mExecutorService = executorService;
+        mDpi = dpi;
+    }
+
+    public List<Future<Integer>> chartFutures(
+            final String sampleId, final FittedPurity bestFit, final List<FittedPurity> allFits,
+            final List<PurpleCopyNumber> copyNumbers, final List<ObservedRegion> fittedRegions,
+            @Nullable final List<SomaticHistogramBucket> somaticHistogram, @Nullable final List<PeakModelData> peakModel,
+            @Nullable final RainfallData rainfallData)
+    {
+        final List<Future<Integer>> result = Lists.newArrayList();
+
+        final List<PurpleCopyNumber> autosomeCopyNumbers = CopyNumberCharts.autosomesWithBafs(copyNumbers);
+
+        if(!autosomeCopyNumbers.isEmpty())
+        {
+            result.add(submit(sampleId, "copynumber", DEFAULT_WIDTH, DEFAULT_HEIGHT,
+                    x -> CopyNumberCharts.copyNumberPdf(x, autosomeCopyNumbers)));
+
+            result.add(submit(sampleId, "map", DEFAULT_WIDTH, DEFAULT_HEIGHT,
+                    x -> CopyNumberCharts.minorAlleleCopyNumberPdf(x, autosomeCopyNumbers)));
+        }
+
+        result.add(submit(sampleId, "purity.range", DEFAULT_WIDTH, DEFAULT_HEIGHT,
+                x -> CopyNumberCharts.purityRange(x, bestFit, allFits)));
+
+        result.add(submit(sampleId, "segment", DEFAULT_WIDTH, DEFAULT_HEIGHT,
+                x -> CopyNumberCharts.segmentScores(x, fittedRegions)));
+
+        result.add(submit(sampleId, "copynumber.chromosome", 12, DEFAULT_HEIGHT,
+                x -> CopyNumberCharts.chromosomeCopyNumbers(x, copyNumbers)));
+
+        if(somaticHistogram != null)
+        {
+            result.add(submit(sampleId, "somatic", DEFAULT_WIDTH, DEFAULT_HEIGHT,
+                    x -> SomaticCharts.somaticCopyNumberPdf(x, somaticHistogram)));
+
+            if(peakModel != null)
+            {
+                result.add(submit(sampleId, "somatic.clonality", 8, 6,
+                        x -> SomaticCharts.clonality(x, somaticHistogram, peakModel)));
+            }
+        }
+
+        if(rainfallData != null)
+        {
+            result.add(submit(sampleId, "somatic.rainfall", 8, 4, x -> SomaticCharts.rainfall(x, rainfallData)));
+        }
+
+        return result;
+    }
+
+    // the circos and input genome plots, otherwise drawn by the circos binary
+    public List<Future<Integer>> circosFutures(
+            final String sampleId, @Nullable final String referenceId, final RefGenomeVersion refGenomeVersion, final Gender gender,
+            final List<PurpleCopyNumber> copyNumbers, final List<VariantContextDecorator> somaticVariants,
+            final List<StructuralVariant> structuralVariants, final List<ObservedRegion> regions, final List<AmberBAF> bafs)
+    {
+        final List<Future<Integer>> result = Lists.newArrayList();
+
+        boolean includeY = gender != Gender.FEMALE;
+
+        result.add(submit(sampleId, "circos", CIRCOS_SIZE, CIRCOS_SIZE,
+                x -> GenomeCircosCharts.circos(x, refGenomeVersion, includeY, copyNumbers, somaticVariants, structuralVariants)));
+
+        result.add(submit(sampleId, "input", CIRCOS_SIZE, CIRCOS_SIZE,
+                x -> GenomeCircosCharts.input(x, refGenomeVersion, includeY, referenceId != null, regions, bafs)));
+
+        return result;
+    }
+
+    public String chartFilename(final String sampleId, final String chartName)
+    {
+        return mChartConfig.PlotDirectory + sampleId + "." + chartName + mChartConfig.Format.extension();
+    }
+
+    private Future<Integer> submit(
+            final String sampleId, final String chartName, double widthInches, double heightInches, final Consumer<ChartCanvas> drawer)
+    {
+        return mExecutorService.submit(() ->
+        {
+            String filename = chartFilename(sampleId, chartName);
+
+            try
+            {
+                ChartCanvas canvas = new ChartCanvas(mChartConfig.Format, widthInches, heightInches, mDpi);
+                drawer.accept(canvas);
+                canvas.write(filename);
+                return 0;
+            }
+            catch(IOException e)
+            {
+                PPL_LOGGER.error("failed to write chart({}): {}", filename, e.toString());
+                return 1;
+            }
+        });
+    }
+}
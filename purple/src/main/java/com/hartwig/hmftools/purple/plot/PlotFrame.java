@@ -0,0 +1,464 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.floor;
+import static java.lang.Math.log10;
+import static java.lang.Math.pow;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+
+// a single plot panel with axes, title and an optional legend, styled after ggplot's black and white theme
+// all positions are in points, with data values mapped onto the panel through each axis' range
+public class PlotFrame
+{
+    private final Graphics2D mGraphics;
+    private final Rectangle2D mPanel;
+    private final double mLegendX;
+
+    private double mXMin;
+    private double mXMax;
+    private double mYMin;
+    private double mYMax;
+    private boolean mLogY;
+
+    private double mLegendY;
+
+    public static final Color TEXT_COLOUR = new Color(0x4D, 0x4D, 0x4D);
+    public static final Color BORDER_COLOUR = new Color(0x33, 0x33, 0x33);
+    public static final Color GRID_COLOUR = new Color(0xEB, 0xEB, 0xEB);
+
+    public static final double AXIS_TEXT_SIZE = 8.8;
+    public static final double AXIS_TITLE_SIZE = 11;
+    public static final double TITLE_SIZE = 13.2;
+    public static final double LEGEND_TEXT_SIZE = 6;
+
+    // ggplot's default expansion of continuous scales
+    public static final double DEFAULT_EXPAND = 0.05;
+
+    private static final double MARGIN = 6;
+    private static final double LEFT_AXIS_WIDTH = 40;
+    private static final double BOTTOM_AXIS_HEIGHT = 30;
+    private static final double TITLE_HEIGHT = 20;
+    private static final double LEGEND_WIDTH = 62;
+    private static final double LEGEND_KEY_SIZE = 12;
+
+    public PlotFrame(final ChartCanvas canvas, final String title, boolean hasLegend)
+    {
+        this(canvas.graphics(), new Rectangle2D.Double(0, 0, canvas.Width, canvas.Height), title, hasLegend);
+    }
+
+    public PlotFrame(final Graphics2D graphics, final Rectangle2D bounds, final String title, boolean hasLegend)
+    {
+        mGraphics = graphics;
+
+        double top = bounds.getY() + MARGIN + (title.isEmpty() ? 0 : TITLE_HEIGHT);
+        double left = bounds.getX() + MARGIN + LEFT_AXIS_WIDTH;
+        double right = bounds.getMaxX() - MARGIN - (hasLegend ? LEGEND_WIDTH : 0);
+        double bottom = bounds.getMaxY() - MARGIN - BOTTOM_AXIS_HEIGHT;
+
+        mPanel = new Rectangle2D.Double(left, top, right - left, bottom - top);
+        mLegendX = right + MARGIN;
+        mLegendY = top;
+
+        mXMin = 0;
+        mXMax = 1;
+        mYMin = 0;
+        mYMax = 1;
+        mLogY = false;
+
+        if(!title.isEmpty())
+            drawText(title, left, bounds.getY() + MARGIN + TITLE_SIZE, TITLE_SIZE, Color.BLACK, 0);
+    }
+
+    public Graphics2D graphics() { return mGraphics; }
+    public Rectangle2D panel() { return mPanel; }
+
+    public void setXRange(double min, double max, double expand)
+    {
+        double range = max > min ? max - min : 1;
+        mXMin = min - range * expand;
+        mXMax = max + range * expand;
+    }
+
+    public void setYRange(double min, double max, double expand)
+    {
+        if(mLogY)
+        {
+            min = log10(min);
+            max = log10(max);
+        }
+
+        double range = max > min ? max - min : 1;
+        mYMin = min - range * expand;
+        mYMax = max + range * expand;
+    }
+
+    public void setLogY() { mLogY = true; }
+
+    public double x(double value)
+    {
+        return mPanel.getX() + (value - mXMin) / (mXMax - mXMin) * mPanel.getWidth();
+    }
+
+    public double y(double value)
+    {
+        double scaled = mLogY ? log10(value) : value;
+        return mPanel.getMaxY() - (scaled - mYMin) / (mYMax - mYMin) * mPanel.getHeight();
+    }
+
+    public void drawPanel(final double[] xBreaks, final String[] xLabels, final double[] yBreaks, final String[] yLabels)
+    {
+        mGraphics.setColor(Color.WHITE);
+        mGraphics.fill(mPanel);
+
+        mGraphics.setColor(GRID_COLOUR);
+        mGraphics.setStroke(new BasicStroke(0.5f));
+
+        for(int i = 0; i < xBreaks.length; ++i)
+        {
+            double xPos = x(xBreaks[i]);
+
+            if(xPos < mPanel.getX() || xPos > mPanel.getMaxX())
+                continue;
+
+            mGraphics.setColor(GRID_COLOUR);
+            mGraphics.draw(new Line2D.Double(xPos, mPanel.getY(), xPos, mPanel.getMaxY()));
+
+            drawText(xLabels[i], xPos, mPanel.getMaxY() + AXIS_TEXT_SIZE + 2, AXIS_TEXT_SIZE, TEXT_COLOUR, 0.5);
+        }
+
+        for(int i = 0; i < yBreaks.length; ++i)
+        {
+            double yPos = y(yBreaks[i]);
+
+            if(yPos < mPanel.getY() || yPos > mPanel.getMaxY())
+                continue;
+
+            mGraphics.setColor(GRID_COLOUR);
+            mGraphics.draw(new Line2D.Double(mPanel.getX(), yPos, mPanel.getMaxX(), yPos));
+
+            drawText(yLabels[i], mPanel.getX() - 3, yPos + AXIS_TEXT_SIZE * 0.35, AXIS_TEXT_SIZE, TEXT_COLOUR, 1);
+        }
+    }
+
+    public void drawBorder()
+    {
+        mGraphics.setColor(BORDER_COLOUR);
+        mGraphics.setStroke(new BasicStroke(0.5f));
+        mGraphics.draw(mPanel);
+    }
+
+    public void drawAxisTitles(final String xTitle, final String yTitle)
+    {
+        if(!xTitle.isEmpty())
+        {
+            drawText(xTitle, mPanel.getCenterX(), mPanel.getMaxY() + BOTTOM_AXIS_HEIGHT - 4, AXIS_TITLE_SIZE, Color.BLACK, 0.5);
+        }
+
+        if(!yTitle.isEmpty())
+        {
+            AffineTransform transform = mGraphics.getTransform();
+            mGraphics.translate(mPanel.getX() - LEFT_AXIS_WIDTH + AXIS_TITLE_SIZE, mPanel.getCenterY());
+            mGraphics.rotate(-Math.PI / 2);
+            drawText(yTitle, 0, 0, AXIS_TITLE_SIZE, Color.BLACK, 0.5);
+            mGraphics.setTransform(transform);
+        }
+    }
+
+    public void clipToPanel() { mGraphics.setClip(mPanel); }
+    public void resetClip() { mGraphics.setClip(null); }
+
+    public void fillRect(double xStart, double xEnd, double yStart, double yEnd, final Color colour)
+    {
+        Rectangle2D rect = rect(xStart, xEnd, yStart, yEnd);
+        mGraphics.setColor(colour);
+        mGraphics.fill(rect);
+    }
+
+    public void drawRect(double xStart, double xEnd, double yStart, double yEnd, final Color colour, double lineWidth)
+    {
+        mGraphics.setColor(colour);
+        mGraphics.setStroke(new BasicStroke((float)lineWidth));
+        mGraphics.draw(rect(xStart, xEnd, yStart, yEnd));
+    }
+
+    private Rectangle2D rect(double xStart, double xEnd, double yStart, double yEnd)
+    {
+        double x1 = x(xStart);
+        double x2 = x(xEnd);
+        double y1 = y(yStart);
+        double y2 = y(yEnd);
+        return new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+    }
+
+    public void drawLine(double xStart, double yStart, double xEnd, double yEnd, final Color colour, double lineWidth, boolean dashed)
+    {
+        mGraphics.setColor(colour);
+
+        mGraphics.setStroke(dashed ?
+                new BasicStroke((float)lineWidth, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10, new float[] { 3, 3 }, 0)
+                : new BasicStroke((float)lineWidth));
+
+        mGraphics.draw(new Line2D.Double(x(xStart), y(yStart), x(xEnd), y(yEnd)));
+    }
+
+    public void drawPath(final double[] xValues, final double[] yValues, final Color colour, double lineWidth)
+    {
+        if(xValues.length < 2)
+            return;
+
+        Path2D.Double path = new Path2D.Double();
+        path.moveTo(x(xValues[0]), y(yValues[0]));
+
+        for(int i = 1; i < xValues.length; ++i)
+        {
+            path.lineTo(x(xValues[i]), y(yValues[i]));
+        }
+
+        mGraphics.setColor(colour);
+        mGraphics.setStroke(new BasicStroke((float)lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        mGraphics.draw(path);
+    }
+
+    public void fillArea(final double[] xValues, final double[] yValues, double yBase, final Color colour)
+    {
+        if(xValues.length < 2)
+            return;
+
+        Path2D.Double path = new Path2D.Double();
+        path.moveTo(x(xValues[0]), y(yBase));
+
+        for(int i = 0; i < xValues.length; ++i)
+        {
+            path.lineTo(x(xValues[i]), y(yValues[i]));
+        }
+
+        path.lineTo(x(xValues[xValues.length - 1]), y(yBase));
+        path.closePath();
+
+        mGraphics.setColor(colour);
+        mGraphics.fill(path);
+    }
+
+    public void drawStackedBars(
+            final Map<Double,double[]> categoryCounts, double barWidth, final Color[] colours, final Color outline, double outlineWidth)
+    {
+        // as for ggplot, the first category is stacked on top
+        for(Map.Entry<Double,double[]> entry : categoryCounts.entrySet())
+        {
+            double xValue = entry.getKey();
+            double[] counts = entry.getValue();
+            double base = 0;
+
+            for(int i = counts.length - 1; i >= 0; --i)
+            {
+                if(counts[i] <= 0)
+                    continue;
+
+                fillRect(xValue - barWidth / 2, xValue + barWidth / 2, base, base + counts[i], colours[i]);
+
+                if(outline != null)
+                    drawRect(xValue - barWidth / 2, xValue + barWidth / 2, base, base + counts[i], outline, outlineWidth);
+
+                base += counts[i];
+            }
+        }
+    }
+
+    public static double maxStackHeight(final Map<Double,double[]> categoryCounts)
+    {
+        return categoryCounts.values().stream().mapToDouble(x -> Arrays.stream(x).sum()).max().orElse(0);
+    }
+
+    public void fillCircle(double xValue, double yValue, double radius, final Color colour)
+    {
+        mGraphics.setColor(colour);
+        mGraphics.fill(new Ellipse2D.Double(x(xValue) - radius, y(yValue) - radius, radius * 2, radius * 2));
+    }
+
+    public void drawLabel(final String text, double xValue, double yValue, double size, double hAlign)
+    {
+        // a boxed label, as drawn by geom_label
+        Font font = font(size);
+        FontMetrics metrics = mGraphics.getFontMetrics(font);
+
+        double width = metrics.stringWidth(text) + 4;
+        double height = size + 4;
+        double left = x(xValue) - width * hAlign;
+        double top = y(yValue) - height / 2;
+
+        Rectangle2D box = new Rectangle2D.Double(left, top, width, height);
+        mGraphics.setColor(Color.WHITE);
+        mGraphics.fill(box);
+        mGraphics.setColor(Color.BLACK);
+        mGraphics.setStroke(new BasicStroke(0.25f));
+        mGraphics.draw(box);
+
+        drawText(text, left + 2, top + height / 2 + size * 0.35, size, Color.BLACK, 0);
+    }
+
+    public void drawLegend(final String title, final List<String> labels, final List<Color> colours, boolean circles)
+    {
+        if(!title.isEmpty())
+        {
+            drawText(title, mLegendX, mLegendY + LEGEND_TEXT_SIZE + 2, LEGEND_TEXT_SIZE + 1, Color.BLACK, 0);
+            mLegendY += LEGEND_TEXT_SIZE + 6;
+        }
+
+        for(int i = 0; i < labels.size(); ++i)
+        {
+            Rectangle2D key = new Rectangle2D.Double(mLegendX, mLegendY, LEGEND_KEY_SIZE, LEGEND_KEY_SIZE);
+
+            if(circles)
+            {
+                mGraphics.setColor(colours.get(i));
+                mGraphics.fill(new Ellipse2D.Double(key.getCenterX() - 3, key.getCenterY() - 3, 6, 6));
+            }
+            else
+            {
+                mGraphics.setColor(colours.get(i));
+                mGraphics.fill(key);
+                mGraphics.setColor(Color.BLACK);
+                mGraphics.setStroke(new BasicStroke(0.25f));
+                mGraphics.draw(key);
+            }
+
+            drawText(labels.get(i), mLegendX + LEGEND_KEY_SIZE + 4, key.getCenterY() + LEGEND_TEXT_SIZE * 0.35,
+                    LEGEND_TEXT_SIZE, Color.BLACK, 0);
+
+            mLegendY += LEGEND_KEY_SIZE + 2;
+        }
+
+        mLegendY += 8;
+    }
+
+    public void drawColourBar(final String title, final ColourScale scale, final double[] breaks, final String[] labels)
+    {
+        double barWidth = LEGEND_KEY_SIZE;
+        double barHeight = 70;
+
+        for(String line : title.split("\n"))
+        {
+            drawText(line, mLegendX, mLegendY + LEGEND_TEXT_SIZE + 2, LEGEND_TEXT_SIZE + 1, Color.BLACK, 0);
+            mLegendY += LEGEND_TEXT_SIZE + 3;
+        }
+
+        mLegendY += 3;
+
+        int steps = 50;
+        double stepHeight = barHeight / steps;
+
+        for(int i = 0; i < steps; ++i)
+        {
+            double value = scale.Max - (i + 0.5) / steps * (scale.Max - scale.Min);
+            mGraphics.setColor(scale.colour(value));
+            mGraphics.fill(new Rectangle2D.Double(mLegendX, mLegendY + i * stepHeight, barWidth, stepHeight + 0.1));
+        }
+
+        for(int i = 0; i < breaks.length; ++i)
+        {
+            double yPos = mLegendY + (scale.Max - breaks[i]) / (scale.Max - scale.Min) * barHeight;
+
+            mGraphics.setColor(Color.WHITE);
+            mGraphics.setStroke(new BasicStroke(0.5f));
+            mGraphics.draw(new Line2D.Double(mLegendX, yPos, mLegendX + 2, yPos));
+            mGraphics.draw(new Line2D.Double(mLegendX + barWidth - 2, yPos, mLegendX + barWidth, yPos));
+
+            drawText(labels[i], mLegendX + barWidth + 4, yPos + LEGEND_TEXT_SIZE * 0.35, LEGEND_TEXT_SIZE, Color.BLACK, 0);
+        }
+
+        mLegendY += barHeight + 8;
+    }
+
+    public void drawText(final String text, double xPos, double yPos, double size, final Color colour, double hAlign)
+    {
+        Font font = font(size);
+        mGraphics.setFont(font);
+        mGraphics.setColor(colour);
+
+        double width = hAlign > 0 ? mGraphics.getFontMetrics(font).getStringBounds(text, mGraphics).getWidth() : 0;
+        mGraphics.drawString(text, (float)(xPos - width * hAlign), (float)yPos);
+    }
+
+    private static Font font(double size)
+    {
+        return new Font(Font.SANS_SERIF, Font.PLAIN, 1).deriveFont((float)size);
+    }
+
+    public static double[] integerBreaks(double min, double max)
+    {
+        List<Double> breaks = Lists.newArrayList();
+
+        for(double value = ceil(min); value <= floor(max); value += 1)
+        {
+            breaks.add(value);
+        }
+
+        return breaks.stream().mapToDouble(x -> x).toArray();
+    }
+
+    public static double[] prettyBreaks(double min, double max, int targetCount)
+    {
+        // steps of 1, 2 or 5 times a power of 10, as chosen by R's pretty()
+        double range = max > min ? max - min : 1;
+        double rawStep = range / targetCount;
+        double magnitude = pow(10, floor(log10(rawStep)));
+        double residual = rawStep / magnitude;
+
+        double step;
+
+        if(residual > 5)
+            step = 10 * magnitude;
+        else if(residual > 2)
+            step = 5 * magnitude;
+        else if(residual > 1)
+            step = 2 * magnitude;
+        else
+            step = magnitude;
+
+        List<Double> breaks = Lists.newArrayList();
+
+        for(double value = ceil(min / step) * step; value <= max + step * 1e-9; value += step)
+        {
+            breaks.add(value);
+        }
+
+        return breaks.stream().mapToDouble(x -> x).toArray();
+    }
+
+    public static String[] labels(final double[] values)
+    {
+        String[] labels = new String[values.length];
+
+        for(int i = 0; i < values.length; ++i)
+        {
+            labels[i] = formatValue(values[i]);
+        }
+
+        return labels;
+    }
+
+    public static String formatValue(double value)
+    {
+        if(value == Math.rint(value) && Math.abs(value) < 1e15)
+            return String.valueOf((long)value);
+
+        String formatted = String.format("%.4f", value);
+        formatted = formatted.replaceAll("0+$", "");
+        return formatted.endsWith(".") ? formatted.substring(0, formatted.length() - 1) : formatted;
+    }
+}
@@ -5,9 +5,6 @@ import static java.lang.String.format;
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
-import static com.hartwig.hmftools.common.variant.PurpleVcfTags.KATAEGIS_FLAG;
-import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_CN;
-import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_VARIANT_CN;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 
 import java.io.BufferedWriter;
@@ -26,9 +23,6 @@ import com.hartwig.hmftools.common.variant.VariantType;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
 import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 
-import htsjdk.variant.variantcontext.CommonInfo;
-import htsjdk.variant.variantcontext.VariantContext;
-
 public class RChartData
 {
     private static final double COPY_NUMBER_BUCKET_SIZE = 1;
@@ -38,25 +32,64 @@ public class RChartData
     private final Map<String, AtomicInteger> mSomaticHistogram = Maps.newHashMap();
     private final String mHistogramFilename;
     private final BufferedWriter mSomaticWriter;
+    private final RainfallData mRainfallData; // collected in memory when charts are drawn by PURPLE
     private int mSomaticCount;
 
-    public RChartData(final PurpleConfig config, final String tumorSample)
+    public RChartData(final PurpleConfig config, final String tumorSample, int snpDownsampleMod)
     {
-        mHistogramFilename = config.OutputDir + tumorSample + ".purple.somatic.hist.tsv";
+        mHistogramFilename = somaticHistogramFilename(config.OutputDir, tumorSample);
+
+        boolean writeCharts = !config.Charting.Disabled;
 
         String somaticFilename = somaticDataFilename(config, tumorSample);
-        mSomaticWriter = !config.Charting.Disabled ? initialiseSomaticWriter(somaticFilename) : null;
+        mSomaticWriter = writeCharts && config.Charting.UseRCharts ? initialiseSomaticWriter(somaticFilename) : null;
+        mRainfallData = writeCharts && !config.Charting.UseRCharts ? new RainfallData(snpDownsampleMod) : null;
         mSomaticCount = 0;
     }
 
+    public RainfallData rainfallData() { return mRainfallData; }
+
+    public List<SomaticHistogramBucket> somaticHistogram()
+    {
+        List<SomaticHistogramBucket> buckets = Lists.newArrayListWithCapacity(mSomaticHistogram.size());
+
+        for(Map.Entry<String,AtomicInteger> entry : mSomaticHistogram.entrySet())
+        {
+            String[] keys = entry.getKey().split(">");
+
+            buckets.add(new SomaticHistogramBucket(
+                    Integer.parseInt(keys[0]) * VARIANT_COPY_NUMBER_BUCKET_SIZE, Integer.parseInt(keys[1]) * COPY_NUMBER_BUCKET_SIZE,
+                    entry.getValue().get()));
+        }
+
+        return buckets;
+    }
+
+    public static String somaticHistogramFilename(final String outputDir, final String tumorSample)
+    {
+        return outputDir + tumorSample + ".purple.somatic.hist.tsv";
+    }
+
+    public static String somaticDataFilename(final String plotDir, final String tumorSample)
+    {
+        return plotDir + tumorSample + ".somatic_data.tsv";
+    }
+
     private static String somaticDataFilename(final PurpleConfig config, final String tumorSample)
     {
-        return config.Charting.PlotDirectory + tumorSample + ".somatic_data.tsv";
+        return somaticDataFilename(config.Charting.PlotDirectory, tumorSample);
     }
 
     public void processVariant(final SomaticVariant variant)
     {
-        somaticVariantCopyNumberPdf(variant.context());
+        somaticVariantCopyNumberPdf(variant.adjustedCopyNumber(), variant.copyNumber());
+
+        if(mRainfallData != null && variant.type() == VariantType.SNP && variant.isPass())
+        {
+            mRainfallData.addVariant(
+                    variant.chromosome(), variant.position(), variant.ref(), variant.alt(),
+                    variant.kataegisId() != null ? variant.kataegisId() : "");
+        }
 
         if(mSomaticCount >= MAX_SOMATIC_PLOT_COUNT)
             return;
@@ -70,6 +103,9 @@ public class RChartData
     {
         Files.write(new File(mHistogramFilename).toPath(), variantCopyNumberByCopyNumberString());
         closeBufferedWriter(mSomaticWriter);
+
+        if(mRainfallData != null)
+            mRainfallData.complete();
     }
 
     public static void cleanupFiles(final PurpleConfig config, final String tumorSample)
@@ -128,8 +164,8 @@ public class RChartData
 
         try
         {
-            String mutation = format("%s>%s", variant.decorator().ref(), variant.decorator().alt());
-            String kataegis = variant.context().getAttributeAsString(KATAEGIS_FLAG, "");
+            String mutation = format("%s>%s", variant.ref(), variant.alt());
+            String kataegis = variant.kataegisId() != null ? variant.kataegisId() : "";
 
             mSomaticWriter.write(format("%s\t%d\t%s\t%s",
                     variant.chromosome(), variant.position(), mutation, kataegis));
@@ -152,12 +188,8 @@ public class RChartData
                 .toString();
     }
 
-    private void somaticVariantCopyNumberPdf(final VariantContext somaticVariant)
+    private void somaticVariantCopyNumberPdf(double copyNumber, double variantCopyNumber)
     {
-        CommonInfo commonInfo = somaticVariant.getCommonInfo();
-        double copyNumber = commonInfo.getAttributeAsDouble(PURPLE_CN, 0.0);
-        double variantCopyNumber = commonInfo.getAttributeAsDouble(PURPLE_VARIANT_CN, 0.0);
-
         int copyNumberBucket = bucket(copyNumber, COPY_NUMBER_BUCKET_SIZE);
         int variantCopyNumberBucket = bucket(variantCopyNumber, VARIANT_COPY_NUMBER_BUCKET_SIZE);
 
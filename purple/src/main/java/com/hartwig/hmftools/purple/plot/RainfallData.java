@@ -0,0 +1,134 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.min;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// distances between consecutive SNVs for the rainfall plot, collected as variants stream past in position order
+public class RainfallData
+{
+    public static final String[] MUTATION_TYPES = { "C>A", "C>G", "C>T", "T>A", "T>C", "T>G" };
+
+    private final int mDownsampleMod;
+    private final List<RainfallPoint> mPoints;
+    private final Map<String,int[]> mKataegisRanks; // min and max rank of each kataegis event
+
+    // the variant awaiting its next neighbour
+    private String mPendingChromosome;
+    private int mPendingPosition;
+    private int mPendingMutation;
+    private String mPendingKataegis;
+    private int mPreviousPosition;
+
+    private int mRank;
+    private int mMinDistance;
+    private int mMaxDistance;
+
+    public RainfallData(int downsampleMod)
+    {
+        mDownsampleMod = Math.max(downsampleMod, 1);
+        mPoints = Lists.newArrayList();
+        mKataegisRanks = Maps.newLinkedHashMap();
+        mPendingChromosome = null;
+        mPreviousPosition = 0;
+        mRank = 0;
+        mMinDistance = Integer.MAX_VALUE;
+        mMaxDistance = 0;
+    }
+
+    public static class RainfallPoint
+    {
+        public final int Rank;
+        public final int Distance;
+        public final int MutationIndex;
+
+        public RainfallPoint(int rank, int distance, int mutationIndex)
+        {
+            Rank = rank;
+            Distance = distance;
+            MutationIndex = mutationIndex;
+        }
+    }
+
+    public List<RainfallPoint> points() { return mPoints; }
+    public Map<String,int[]> kataegisRanks() { return mKataegisRanks; }
+    public int variantCount() { return mRank; }
+    public int minDistance() { return mMinDistance == Integer.MAX_VALUE ? 0 : mMinDistance; }
+    public int maxDistance() { return mMaxDistance; }
+
+    public void addVariant(final String chromosome, int position, final String ref, final String alt, final String kataegisId)
+    {
+        boolean sameChromosome = chromosome.equals(mPendingChromosome);
+
+        if(mPendingChromosome != null)
+            completePending(sameChromosome ? position : 0);
+
+        // as for the R implementation, a missing neighbour is taken to be at position zero
+        mPreviousPosition = sameChromosome ? mPendingPosition : 0;
+
+        mPendingChromosome = chromosome;
+        mPendingPosition = position;
+        mPendingMutation = mutationIndex(ref, alt);
+        mPendingKataegis = kataegisId;
+    }
+
+    public void complete()
+    {
+        if(mPendingChromosome != null)
+            completePending(0);
+
+        mPendingChromosome = null;
+    }
+
+    private void completePending(int nextPosition)
+    {
+        ++mRank;
+
+        int distance = min(abs(mPendingPosition - mPreviousPosition), abs(nextPosition - mPendingPosition));
+
+        mMinDistance = min(mMinDistance, distance);
+        mMaxDistance = Math.max(mMaxDistance, distance);
+
+        if(mPendingKataegis != null && !mPendingKataegis.isEmpty())
+        {
+            int[] ranks = mKataegisRanks.computeIfAbsent(mPendingKataegis, x -> new int[] { mRank, mRank });
+            ranks[1] = mRank;
+        }
+
+        if(mRank % mDownsampleMod == 0 && mPendingMutation >= 0)
+            mPoints.add(new RainfallPoint(mRank, distance, mPendingMutation));
+    }
+
+    public static int mutationIndex(final String ref, final String alt)
+    {
+        String mutation = standardMutation(ref + ">" + alt);
+
+        for(int i = 0; i < MUTATION_TYPES.length; ++i)
+        {
+            if(MUTATION_TYPES[i].equals(mutation))
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static String standardMutation(final String mutation)
+    {
+        // reported relative to the pyrimidine base
+        switch(mutation)
+        {
+            case "G>T": return "C>A";
+            case "G>C": return "C>G";
+            case "G>A": return "C>T";
+            case "A>T": return "T>A";
+            case "A>G": return "T>C";
+            case "A>C": return "T>G";
+            default: return mutation;
+        }
+    }
+}
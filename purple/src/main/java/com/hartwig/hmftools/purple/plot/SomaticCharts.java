@@ -0,0 +1,264 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.rint;
+
+import static com.hartwig.hmftools.purple.plot.CopyNumberCharts.CN_COLOURS;
+import static com.hartwig.hmftools.purple.plot.CopyNumberCharts.CN_LABELS;
+import static com.hartwig.hmftools.purple.plot.PlotFrame.DEFAULT_EXPAND;
+import static com.hartwig.hmftools.purple.plot.PlotFrame.integerBreaks;
+import static com.hartwig.hmftools.purple.plot.PlotFrame.labels;
+import static com.hartwig.hmftools.purple.plot.PlotFrame.prettyBreaks;
+
+import java.awt.Color;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.purple.fitting.PeakModelData;
+
+// draws the somatic variant charts previously produced by somaticVariantPlots.R
+public final class SomaticCharts
+{
+    private static final double VARIANT_COPY_NUMBER_BAR_WIDTH = 0.05;
+    private static final double CLONALITY_MAX_VARIANT_COPY_NUMBER = 3.5;
+    private static final double CLONALITY_EXPAND = 0.01;
+
+    private static final Color CLONAL_COLOUR = new Color(0x6b, 0xae, 0xd6);
+    private static final Color SUBCLONAL_COLOUR = new Color(0xd9, 0x47, 0x01);
+
+    private static final Color[] MUTATION_COLOURS = {
+            new Color(0x14B0EF), new Color(0x060809), new Color(0xE00714),
+            new Color(0xBFBEBF), new Color(0x90CA4B), new Color(0xE9BBB8) };
+
+    private static final Color KATAEGIS_FORWARD_COLOUR = new Color(0x6b, 0xd6, 0x92, 153);
+    private static final Color KATAEGIS_REVERSE_COLOUR = new Color(0x7e, 0x6b, 0xd6, 153);
+    private static final String KATAEGIS_FORWARD_PREFIX = "FWD";
+
+    private SomaticCharts() {}
+
+    public static void somaticCopyNumberPdf(final ChartCanvas canvas, final List<SomaticHistogramBucket> buckets)
+    {
+        double maxVariantCopyNumber = CopyNumberCharts.thresholdBucket(
+                buckets, x -> (int)ceil(x.VariantCopyNumber), x -> x.Count, 0.95);
+
+        double minValue = -0.1;
+        double maxValue = maxVariantCopyNumber + 1.1;
+
+        Map<Double,double[]> bars = new TreeMap<>();
+
+        for(SomaticHistogramBucket bucket : buckets)
+        {
+            if(bucket.VariantCopyNumber - VARIANT_COPY_NUMBER_BAR_WIDTH / 2 < minValue
+            || bucket.VariantCopyNumber + VARIANT_COPY_NUMBER_BAR_WIDTH / 2 > maxValue)
+            {
+                continue;
+            }
+
+            int category = (int)min(max(rint(bucket.CopyNumber), 0), CN_LABELS.size() - 1);
+            bars.computeIfAbsent(bucket.VariantCopyNumber, x -> new double[CN_LABELS.size()])[category] += bucket.Count;
+        }
+
+        PlotFrame frame = new PlotFrame(canvas, "Somatic Variant Copy Number PDF", true);
+        frame.setXRange(minValue, maxValue, DEFAULT_EXPAND);
+        frame.setYRange(0, PlotFrame.maxStackHeight(bars), DEFAULT_EXPAND);
+
+        double[] xBreaks = integerBreaks(0, 10);
+        double[] yBreaks = prettyBreaks(0, PlotFrame.maxStackHeight(bars), 5);
+        frame.drawPanel(xBreaks, labels(xBreaks), yBreaks, labels(yBreaks));
+
+        frame.drawStackedBars(bars, VARIANT_COPY_NUMBER_BAR_WIDTH, CN_COLOURS, Color.BLACK, 0.2);
+
+        frame.drawBorder();
+        frame.drawAxisTitles("Variant Copy Number", "Count");
+        frame.drawLegend("", CN_LABELS, Arrays.asList(CN_COLOURS), false);
+    }
+
+    public static void clonality(
+            final ChartCanvas canvas, final List<SomaticHistogramBucket> buckets, final List<PeakModelData> peakModel)
+    {
+        List<PeakModelData> validPeaks = peakModel.stream().filter(x -> x.IsValid).collect(Collectors.toList());
+
+        // variant counts by variant copy number
+        Map<Double,Double> variantCounts = new TreeMap<>();
+        buckets.forEach(x -> variantCounts.merge(x.VariantCopyNumber, (double)x.Count, Double::sum));
+
+        // the combined model and subclonal weight excludes the residual peak, while the subclonal likelihood includes it
+        Map<Double,Double> totalWeights = new TreeMap<>();
+        Map<Double,Double> subclonalWeights = new TreeMap<>();
+        Map<Double,Double> nonResidualWeights = new TreeMap<>();
+        Map<Double,Double> nonResidualSubclonalWeights = new TreeMap<>();
+        Map<Double,Map<Double,Double>> peakWeights = new TreeMap<>();
+
+        for(PeakModelData peak : validPeaks)
+        {
+            totalWeights.merge(peak.Bucket, peak.BucketWeight, Double::sum);
+
+            if(peak.IsSubclonal)
+                subclonalWeights.merge(peak.Bucket, peak.BucketWeight, Double::sum);
+
+            if(peak.Peak == 0)
+                continue;
+
+            nonResidualWeights.merge(peak.Bucket, peak.BucketWeight, Double::sum);
+
+            if(peak.IsSubclonal)
+                nonResidualSubclonalWeights.merge(peak.Bucket, peak.BucketWeight, Double::sum);
+
+            peakWeights.computeIfAbsent(peak.Peak, x -> new TreeMap<>()).merge(peak.Bucket, peak.BucketWeight, Double::sum);
+        }
+
+        Rectangle2D.Double topBounds = new Rectangle2D.Double(0, 0, canvas.Width, canvas.Height * 5 / 6);
+        Rectangle2D.Double bottomBounds = new Rectangle2D.Double(0, topBounds.getMaxY(), canvas.Width, canvas.Height / 6);
+
+        // top panel: variant counts overlaid with the peak model
+        PlotFrame top = new PlotFrame(canvas.graphics(), topBounds, "", false);
+
+        double maxCount = max(
+                variantCounts.entrySet().stream()
+                        .filter(x -> x.getKey() <= CLONALITY_MAX_VARIANT_COPY_NUMBER)
+                        .mapToDouble(Map.Entry::getValue).max().orElse(0),
+                nonResidualWeights.values().stream().mapToDouble(x -> x).max().orElse(0));
+
+        top.setXRange(0, CLONALITY_MAX_VARIANT_COPY_NUMBER, CLONALITY_EXPAND);
+        top.setYRange(0, maxCount, 0.02);
+
+        double[] xBreaks = prettyBreaks(0, CLONALITY_MAX_VARIANT_COPY_NUMBER, 5);
+        double[] yBreaks = prettyBreaks(0, maxCount, 5);
+        top.drawPanel(xBreaks, labels(xBreaks), yBreaks, labels(yBreaks));
+
+        Color clonalFill = new Color(CLONAL_COLOUR.getRed(), CLONAL_COLOUR.getGreen(), CLONAL_COLOUR.getBlue(), 102);
+
+        for(Map.Entry<Double,Double> entry : variantCounts.entrySet())
+        {
+            double xValue = entry.getKey();
+
+            if(xValue - VARIANT_COPY_NUMBER_BAR_WIDTH / 2 < 0 || xValue + VARIANT_COPY_NUMBER_BAR_WIDTH / 2 > CLONALITY_MAX_VARIANT_COPY_NUMBER)
+                continue;
+
+            double xStart = xValue - VARIANT_COPY_NUMBER_BAR_WIDTH / 2;
+            double xEnd = xValue + VARIANT_COPY_NUMBER_BAR_WIDTH / 2;
+            top.fillRect(xStart, xEnd, 0, entry.getValue(), clonalFill);
+            top.drawRect(xStart, xEnd, 0, entry.getValue(), clonalFill, 0.2);
+        }
+
+        top.clipToPanel();
+
+        top.drawPath(keys(nonResidualWeights), values(nonResidualWeights), new Color(0, 0, 0, 204), 0.8);
+
+        int peakIndex = 0;
+        for(Map<Double,Double> weights : peakWeights.values())
+        {
+            top.drawPath(keys(weights), values(weights), hueColour(peakIndex++, peakWeights.size()), 0.8);
+        }
+
+        Color subclonalFill = new Color(SUBCLONAL_COLOUR.getRed(), SUBCLONAL_COLOUR.getGreen(), SUBCLONAL_COLOUR.getBlue(), 77);
+
+        if(!nonResidualSubclonalWeights.isEmpty())
+        {
+            top.fillArea(keys(nonResidualSubclonalWeights), values(nonResidualSubclonalWeights), 0, subclonalFill);
+            top.drawPath(keys(nonResidualSubclonalWeights), values(nonResidualSubclonalWeights), SUBCLONAL_COLOUR, 0.5);
+        }
+
+        top.resetClip();
+        top.drawAxisTitles("Variant Copy Number", "");
+
+        // bottom panel: the likelihood of a variant in each bucket being subclonal
+        PlotFrame bottom = new PlotFrame(canvas.graphics(), bottomBounds, "", false);
+        bottom.setXRange(0, CLONALITY_MAX_VARIANT_COPY_NUMBER, CLONALITY_EXPAND);
+        bottom.setYRange(0, 1, 0.02);
+
+        bottom.drawPanel(
+                xBreaks, labels(xBreaks), new double[] { 0, 0.5, 1 }, new String[] { "0%", "50%", "100%" });
+
+        for(Map.Entry<Double,Double> entry : subclonalWeights.entrySet())
+        {
+            double xValue = entry.getKey();
+            double totalWeight = totalWeights.get(xValue);
+            double likelihood = entry.getValue() == 0 ? 0 : entry.getValue() / totalWeight;
+
+            if(xValue - VARIANT_COPY_NUMBER_BAR_WIDTH / 2 < 0 || xValue + VARIANT_COPY_NUMBER_BAR_WIDTH / 2 > CLONALITY_MAX_VARIANT_COPY_NUMBER)
+                continue;
+
+            double xStart = xValue - VARIANT_COPY_NUMBER_BAR_WIDTH / 2;
+            double xEnd = xValue + VARIANT_COPY_NUMBER_BAR_WIDTH / 2;
+            bottom.fillRect(xStart, xEnd, 0, likelihood, subclonalFill);
+            bottom.drawRect(xStart, xEnd, 0, likelihood, subclonalFill, 0.2);
+        }
+    }
+
+    public static void rainfall(final ChartCanvas canvas, final RainfallData rainfallData)
+    {
+        // distances of zero cannot be shown on a log scale
+        double minDistance = max(rainfallData.minDistance(), 1);
+        double maxDistance = max(rainfallData.maxDistance(), minDistance * 10);
+        int variantCount = max(rainfallData.variantCount(), 1);
+
+        PlotFrame frame = new PlotFrame(canvas, "", true);
+        frame.setXRange(1, variantCount, DEFAULT_EXPAND);
+        frame.setLogY();
+        frame.setYRange(minDistance, maxDistance, DEFAULT_EXPAND);
+
+        double[] xBreaks = prettyBreaks(1, variantCount, 5);
+        double[] yBreaks = logBreaks(minDistance, maxDistance);
+        frame.drawPanel(xBreaks, labels(xBreaks), yBreaks, labels(yBreaks));
+
+        for(Map.Entry<String,int[]> entry : rainfallData.kataegisRanks().entrySet())
+        {
+            Color colour = entry.getKey().startsWith(KATAEGIS_FORWARD_PREFIX) ? KATAEGIS_FORWARD_COLOUR : KATAEGIS_REVERSE_COLOUR;
+            frame.fillRect(entry.getValue()[0], entry.getValue()[1], minDistance, maxDistance, colour);
+        }
+
+        for(RainfallData.RainfallPoint point : rainfallData.points())
+        {
+            if(point.Distance <= 0)
+                continue;
+
+            frame.fillCircle(point.Rank, point.Distance, 0.3, MUTATION_COLOURS[point.MutationIndex]);
+        }
+
+        frame.drawBorder();
+        frame.drawAxisTitles("Mutation number", "Intermutation distance (bp)");
+        frame.drawLegend("Mutation", Arrays.asList(RainfallData.MUTATION_TYPES), Arrays.asList(MUTATION_COLOURS), true);
+
+        frame.drawLegend(
+                "Kataegis Regions", Lists.newArrayList("Forward", "Reverse"),
+                Lists.newArrayList(KATAEGIS_FORWARD_COLOUR, KATAEGIS_REVERSE_COLOUR), false);
+    }
+
+    private static double[] logBreaks(double min, double max)
+    {
+        List<Double> breaks = Lists.newArrayList();
+
+        for(double value = 1; value <= max; value *= 10)
+        {
+            if(value >= min)
+                breaks.add(value);
+        }
+
+        return breaks.stream().mapToDouble(x -> x).toArray();
+    }
+
+    private static double[] keys(final Map<Double,Double> values)
+    {
+        return values.keySet().stream().mapToDouble(x -> x).toArray();
+    }
+
+    private static double[] values(final Map<Double,Double> values)
+    {
+        return values.values().stream().mapToDouble(x -> x).toArray();
+    }
+
+    private static Color hueColour(int index, int count)
+    {
+        // evenly spaced hues, as for ggplot's default discrete colour scale
+        float hue = (float)((15 + 360.0 * index / max(count, 1)) / 360.0);
+        return Color.getHSBColor(hue, 0.6f, 0.9f);
+    }
+}
@@ -0,0 +1,41 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+// a count of somatic variants by variant copy number and copy number bucket, as written to the somatic histogram file
+public class SomaticHistogramBucket
+{
+    public final double VariantCopyNumber;
+    public final double CopyNumber;
+    public final int Count;
+
+    public SomaticHistogramBucket(double variantCopyNumber, double copyNumber, int count)
+    {
+        VariantCopyNumber = variantCopyNumber;
+        CopyNumber = copyNumber;
+        Count = count;
+    }
+
+    public static List<SomaticHistogramBucket> read(final String filename) throws IOException
+    {
+        List<String> lines = Files.readAllLines(new File(filename).toPath());
+        lines.remove(0);
+
+        List<SomaticHistogramBucket> buckets = Lists.newArrayListWithCapacity(lines.size());
+
+        for(String line : lines)
+        {
+            String[] values = line.split(TSV_DELIM, -1);
+            buckets.add(new SomaticHistogramBucket(Double.parseDouble(values[0]), Double.parseDouble(values[1]), Integer.parseInt(values[2])));
+        }
+
+        return buckets;
+    }
+}
@@ -10,10 +10,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
@@ -45,6 +43,7 @@ public class FittedPurityFactory
 
     private final List<FittedPurity> mFittedPurities;
     private final List<ObservedRegionData> mFilteredObservedRegions;
+    private final FittingRegions mFittingRegions;
     private final List<Double> mPloidyRange;
 
     private static final int MAX_SOMATICS_TO_FIT = 1000;
@@ -101,6 +100,8 @@ public class FittedPurityFactory
         {
             filteredVariantSelector.select(regionData.Region, regionData::addVariant);
         }
+
+        mFittingRegions = new FittingRegions(mFilteredObservedRegions, mRegionFitCalculator);
     }
 
     public List<FittedPurity> getFittedPurities() { return mFittedPurities; }
@@ -109,50 +110,27 @@ public class FittedPurityFactory
     {
         FittingConfig config = mConfig.Fitting;
 
-        if(mConfig.Threads <= 1)
+        List<Double> purityRange = Lists.newArrayList();
+
+        for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
         {
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
-            {
-                mFittedPurities.addAll(fitPurity(purity));
-            }
+            purityRange.add(purity);
         }
-        else
-        {
-            final List<Future<List<FittedPurity>>> futures = Lists.newArrayList();
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
-            {
-                futures.add(mExecutorService.submit(callableFitPurity(purity)));
-            }
 
-            for(Future<List<FittedPurity>> future : futures)
-            {
-                List<FittedPurity> fittedPurities = future.get();
+        PurityPloidyGridSearch gridSearch = new PurityPloidyGridSearch(
+                purityRange, mPloidyRange, !config.AdaptiveSearch, mConfig.Threads > 1 ? mExecutorService : null);
 
-                if(!fittedPurities.isEmpty())
-                {
-                    mFittedPurities.addAll(fittedPurities);
-                }
-            }
-        }
+        mFittedPurities.addAll(gridSearch.search(this::fitPurityPloidy));
 
-        Collections.sort(mFittedPurities);
-    }
+        PPL_LOGGER.debug("fitted {} of {} purity-ploidy combinations", gridSearch.fitCount(), gridSearch.gridSize());
 
-    private Callable<List<FittedPurity>> callableFitPurity(final double purity)
-    {
-        return () -> fitPurity(purity);
+        Collections.sort(mFittedPurities);
     }
 
-    private List<FittedPurity> fitPurity(final double purity)
+    private FittedPurity fitPurityPloidy(final double purity, final double ploidy)
     {
-        final List<FittedPurity> fittedPurities = Lists.newArrayList();
-        for(Double ploidy : mPloidyRange)
-        {
-            double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
-            fittedPurities.add(fitPurity(purity, impliedNormFactor));
-        }
-
-        return fittedPurities;
+        double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
+        return fitPurity(purity, impliedNormFactor);
     }
 
     private FittedPurity fitPurity(final double purity, final double normFactor)
@@ -168,12 +146,17 @@ public class FittedPurityFactory
         final SomaticDeviation somaticDeviation = SomaticDeviation.INSTANCE;
         PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
 
-        for(ObservedRegionData regionData : mFilteredObservedRegions)
+        final FittingRegions regions = mFittingRegions;
+
+        for(int i = 0; i < regions.RegionCount; ++i)
         {
-            ObservedRegion region = regionData.Region;
-            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purity, normFactor, region);
+            String chromosome = regions.Chromosomes[i];
+
+            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(
+                    purityAdjuster, chromosome, regions.ObservedTumorRatios[i], regions.ObservedNormalRatios[i], regions.ObservedBAFs[i],
+                    regions.DeviationPenaltyDenoms[i]);
 
-            int bafCount = region.bafCount();
+            int bafCount = regions.BafCounts[i];
             eventPenalty += weightWithBaf(regionFitCalcs.EventPenalty, bafCount);
             deviationPenalty += weightWithBaf(regionFitCalcs.DeviationPenalty, bafCount);
             averagePloidy += weightWithBaf(regionFitCalcs.TumorCopyNumber, bafCount);
@@ -183,19 +166,20 @@ public class FittedPurityFactory
                 diploidProportion += weightWithBaf(1, bafCount);
             }
 
-            for(SomaticVariant variant : regionData.Variants)
+            for(int v = regions.VariantOffsets[i]; v < regions.VariantOffsets[i + 1]; ++v)
             {
                 ++somaticVariantCount;
 
                 double variantPenalty = somaticDeviation.deviationFromMax(
-                        purityAdjuster, region.chromosome(), regionFitCalcs.majorAlleleCopyNumber(), regionFitCalcs.TumorCopyNumber, variant);
+                        purityAdjuster, chromosome, regionFitCalcs.majorAlleleCopyNumber(), regionFitCalcs.TumorCopyNumber,
+                        regions.VariantDepths[v]);
 
                 somaticPenaltyTotal += mSomaticPenaltyWeight * variantPenalty;
             }
 
             /*
             PPL_LOGGER.trace(format("region(%s:%d-%d) fit(purity=%.2f norm=%.4f) somaticPenTotal(%.4f) devPen(%.4f) eventPen(%.4f) avgPloidy(%.4f)",
-                    region.chromosome(), region.start(), region.end(),
+                    chromosome, region.start(), region.end(),
                     purity, normFactor, somaticPenaltyTotal, deviationPenalty, eventPenalty, averagePloidy));
             */
         }
@@ -0,0 +1,66 @@
+package com.hartwig.hmftools.purple.purity;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.variant.AllelicDepth;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+import com.hartwig.hmftools.purple.somatic.SomaticVariant;
+
+// the regions used to fit purity, held as parallel arrays of only the values required by each purity-ploidy fit
+public class FittingRegions
+{
+    public final int RegionCount;
+
+    public final String[] Chromosomes;
+    public final double[] ObservedTumorRatios;
+    public final double[] ObservedNormalRatios;
+    public final double[] ObservedBAFs;
+    public final int[] BafCounts;
+
+    // independent of purity and ploidy so calculated once for all fits
+    public final double[] DeviationPenaltyDenoms;
+
+    // the tumor depths of region i's variants are at indices VariantOffsets[i] to VariantOffsets[i + 1] - 1
+    public final int[] VariantOffsets;
+    public final AllelicDepth[] VariantDepths;
+
+    public FittingRegions(final List<ObservedRegionData> regions, final RegionFitCalculator regionFitCalculator)
+    {
+        RegionCount = regions.size();
+
+        Chromosomes = new String[RegionCount];
+        ObservedTumorRatios = new double[RegionCount];
+        ObservedNormalRatios = new double[RegionCount];
+        ObservedBAFs = new double[RegionCount];
+        BafCounts = new int[RegionCount];
+        DeviationPenaltyDenoms = new double[RegionCount];
+        VariantOffsets = new int[RegionCount + 1];
+
+        int variantCount = regions.stream().mapToInt(x -> x.Variants.size()).sum();
+        VariantDepths = new AllelicDepth[variantCount];
+
+        int variantIndex = 0;
+
+        for(int i = 0; i < RegionCount; ++i)
+        {
+            ObservedRegionData regionData = regions.get(i);
+            ObservedRegion region = regionData.Region;
+
+            Chromosomes[i] = region.chromosome();
+            ObservedTumorRatios[i] = region.observedTumorRatio();
+            ObservedNormalRatios[i] = region.observedNormalRatio();
+            ObservedBAFs[i] = region.observedBAF();
+            BafCounts[i] = region.bafCount();
+            DeviationPenaltyDenoms[i] = regionFitCalculator.deviationPenaltyDenominator(region.observedTumorRatio());
+
+            VariantOffsets[i] = variantIndex;
+
+            for(SomaticVariant variant : regionData.Variants)
+            {
+                VariantDepths[variantIndex++] = variant.tumorAlleleDepth();
+            }
+        }
+
+        VariantOffsets[RegionCount] = variantIndex;
+    }
+}
@@ -0,0 +1,263 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.common.utils.Doubles.lessOrEqual;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+
+import org.jetbrains.annotations.Nullable;
+
+// evaluates fits across the purity-ploidy grid, exhaustively by default or adaptively when configured: every purity is first fitted
+// with a coarse subset of the ploidies (plus those closest to diploid), and then the full ploidy resolution is fitted only between the
+// coarse neighbours of each purity's local minima and of any coarse fit close to the best score - every fitted candidate feeds the
+// purity range output and the best-fit score spread, so an adaptive search leaves both sparse
+public class PurityPloidyGridSearch
+{
+    private final List<Double> mPurities;
+    private final List<Double> mPloidies;
+    private final boolean mExhaustive;
+    private final ExecutorService mExecutorService;
+
+    private final FittedPurity[][] mFits;
+    private int mFitCount;
+
+    public interface FitFunction
+    {
+        FittedPurity fit(double purity, double ploidy);
+    }
+
+    public static final int COARSE_PLOIDY_STEP = 4;
+
+    // coarse fits within this range of the best coarse score are refined, a wider range than used to select best-fit candidates
+    private static final double REFINE_SCORE_PERCENT = 0.25;
+    private static final double REFINE_SCORE_ABS = 0.001;
+
+    // ploidies are fitted in blocks per purity so that tasks are evenly sized
+    private static final int PLOIDY_BLOCK_SIZE = 16;
+
+    private static final double DIPLOID_PLOIDY = 2;
+
+    public PurityPloidyGridSearch(
+            final List<Double> purities, final List<Double> ploidies, boolean exhaustive, @Nullable final ExecutorService executorService)
+    {
+        mPurities = purities;
+        mPloidies = ploidies;
+        mExhaustive = exhaustive;
+        mExecutorService = executorService;
+        mFits = new FittedPurity[purities.size()][ploidies.size()];
+        mFitCount = 0;
+    }
+
+    public int fitCount() { return mFitCount; }
+    public int gridSize() { return mPurities.size() * mPloidies.size(); }
+
+    public List<FittedPurity> search(final FitFunction fitFunction) throws ExecutionException, InterruptedException
+    {
+        List<List<Integer>> ploidyIndices = Lists.newArrayListWithCapacity(mPurities.size());
+
+        if(mExhaustive)
+        {
+            List<Integer> allIndices = Lists.newArrayListWithCapacity(mPloidies.size());
+
+            for(int i = 0; i < mPloidies.size(); ++i)
+            {
+                allIndices.add(i);
+            }
+
+            mPurities.forEach(x -> ploidyIndices.add(allIndices));
+            fit(fitFunction, ploidyIndices);
+        }
+        else
+        {
+            List<Integer> coarseIndices = coarsePloidyIndices();
+            mPurities.forEach(x -> ploidyIndices.add(coarseIndices));
+            fit(fitFunction, ploidyIndices);
+
+            fit(fitFunction, refinePloidyIndices());
+        }
+
+        List<FittedPurity> fittedPurities = Lists.newArrayListWithCapacity(mFitCount);
+
+        for(FittedPurity[] purityFits : mFits)
+        {
+            for(FittedPurity fittedPurity : purityFits)
+            {
+                if(fittedPurity != null)
+                    fittedPurities.add(fittedPurity);
+            }
+        }
+
+        return fittedPurities;
+    }
+
+    private List<Integer> coarsePloidyIndices()
+    {
+        List<Integer> indices = Lists.newArrayList();
+        int lastIndex = mPloidies.size() - 1;
+
+        for(int i = 0; i < lastIndex; i += COARSE_PLOIDY_STEP)
+        {
+            indices.add(i);
+        }
+
+        indices.add(lastIndex);
+
+        // the ploidies either side of diploid, since the most diploid fit for each purity is a somatic fit candidate
+        int diploidIndex = 0;
+
+        for(int i = 1; i < mPloidies.size(); ++i)
+        {
+            if(abs(mPloidies.get(i) - DIPLOID_PLOIDY) < abs(mPloidies.get(diploidIndex) - DIPLOID_PLOIDY))
+                diploidIndex = i;
+        }
+
+        for(int i = diploidIndex - 1; i <= diploidIndex + 1; ++i)
+        {
+            if(i >= 0 && i <= lastIndex && !indices.contains(i))
+                indices.add(i);
+        }
+
+        Collections.sort(indices);
+        return indices;
+    }
+
+    private List<List<Integer>> refinePloidyIndices()
+    {
+        double bestScore = Double.MAX_VALUE;
+
+        for(FittedPurity[] purityFits : mFits)
+        {
+            for(FittedPurity fittedPurity : purityFits)
+            {
+                if(fittedPurity != null)
+                    bestScore = min(bestScore, fittedPurity.score());
+            }
+        }
+
+        List<List<Integer>> refineIndices = Lists.newArrayListWithCapacity(mPurities.size());
+
+        for(FittedPurity[] purityFits : mFits)
+        {
+            List<Integer> fittedIndices = Lists.newArrayList();
+
+            for(int i = 0; i < purityFits.length; ++i)
+            {
+                if(purityFits[i] != null)
+                    fittedIndices.add(i);
+            }
+
+            boolean[] refine = new boolean[purityFits.length];
+
+            for(int j = 0; j < fittedIndices.size(); ++j)
+            {
+                int index = fittedIndices.get(j);
+                int prevIndex = j > 0 ? fittedIndices.get(j - 1) : -1;
+                int nextIndex = j < fittedIndices.size() - 1 ? fittedIndices.get(j + 1) : purityFits.length;
+
+                double score = purityFits[index].score();
+
+                boolean isLocalMinimum = (prevIndex < 0 || score <= purityFits[prevIndex].score())
+                        && (nextIndex >= purityFits.length || score <= purityFits[nextIndex].score());
+
+                if(!isLocalMinimum && !withinRefineRange(score, bestScore))
+                    continue;
+
+                for(int i = prevIndex + 1; i < nextIndex; ++i)
+                {
+                    refine[i] = true;
+                }
+            }
+
+            List<Integer> indices = Lists.newArrayList();
+
+            for(int i = 0; i < refine.length; ++i)
+            {
+                if(refine[i] && purityFits[i] == null)
+                    indices.add(i);
+            }
+
+            refineIndices.add(indices);
+        }
+
+        return refineIndices;
+    }
+
+    private static boolean withinRefineRange(double score, double bestScore)
+    {
+        double absDifference = abs(score - bestScore);
+        return lessOrEqual(absDifference, REFINE_SCORE_ABS) || lessOrEqual(absDifference / abs(bestScore), REFINE_SCORE_PERCENT);
+    }
+
+    private void fit(final FitFunction fitFunction, final List<List<Integer>> ploidyIndices)
+            throws ExecutionException, InterruptedException
+    {
+        List<Callable<Integer>> tasks = Lists.newArrayList();
+
+        for(int purityIndex = 0; purityIndex < mPurities.size(); ++purityIndex)
+        {
+            List<Integer> indices = ploidyIndices.get(purityIndex);
+
+            for(int blockStart = 0; blockStart < indices.size(); blockStart += PLOIDY_BLOCK_SIZE)
+            {
+                List<Integer> blockIndices = indices.subList(blockStart, min(blockStart + PLOIDY_BLOCK_SIZE, indices.size()));
+                tasks.add(createTask(fitFunction, purityIndex, blockIndices));
+            }
+        }
+
+        if(mExecutorService == null)
+        {
+            for(Callable<Integer> task : tasks)
+            {
+                mFitCount += callTask(task);
+            }
+        }
+        else
+        {
+            List<Future<Integer>> futures = Lists.newArrayListWithCapacity(tasks.size());
+            tasks.forEach(x -> futures.add(mExecutorService.submit(x)));
+
+            for(Future<Integer> future : futures)
+            {
+                mFitCount += future.get();
+            }
+        }
+    }
+
+    private Callable<Integer> createTask(final FitFunction fitFunction, int purityIndex, final List<Integer> ploidyIndices)
+    {
+        // each task writes only its own cells, which are read once all tasks have completed
+        return () ->
+        {
+            double purity = mPurities.get(purityIndex);
+
+            for(Integer ploidyIndex : ploidyIndices)
+            {
+                mFits[purityIndex][ploidyIndex] = fitFunction.fit(purity, mPloidies.get(ploidyIndex));
+            }
+
+            return ploidyIndices.size();
+        };
+    }
+
+    private static int callTask(final Callable<Integer> task)
+    {
+        try
+        {
+            return task.call();
+        }
+        catch(Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
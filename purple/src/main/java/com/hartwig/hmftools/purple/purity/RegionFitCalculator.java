@@ -12,6 +12,7 @@ import static com.hartwig.hmftools.purple.config.PurpleConstants.BAF_PNT_5;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -31,10 +32,13 @@ public class RegionFitCalculator
     private final FittingConfig mFitScoreConfig;
     private final PloidyDeviation mPloidyDeviation;
     private final CobaltChromosomes mCobaltChromosomes;
+    private final Map<String,Double> mObservedRatioMap;
 
     public RegionFitCalculator(final CobaltChromosomes cobaltChromosomes, final FittingConfig fitScoreConfig, int averageReadDepth)
     {
         mCobaltChromosomes = cobaltChromosomes;
+        mObservedRatioMap = cobaltChromosomes.chromosomes().stream()
+                .collect(Collectors.toMap(CobaltChromosome::contig, CobaltChromosome::actualRatio));
         mFitScoreConfig = fitScoreConfig;
 
         mPloidyDeviation = new PloidyDeviation(
@@ -78,15 +82,27 @@ public class RegionFitCalculator
 
     public RegionFitCalcs calculateRegionFit(final double purity, final double normFactor, final ObservedRegion observedRegion)
     {
-        final PurityAdjuster purityAdjuster = new PurityAdjuster(purity, normFactor, mCobaltChromosomes);
+        final PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
 
         double observedTumorRatio = observedRegion.observedTumorRatio();
 
-        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedRegion.chromosome(), observedTumorRatio);
-        double observedBAF = observedRegion.observedBAF();
-        double impliedBAF = impliedBaf(purityAdjuster, observedRegion.chromosome(), impliedCopyNumber, observedBAF);
+        return calculateRegionFit(
+                purityAdjuster, observedRegion.chromosome(), observedTumorRatio, observedRegion.observedNormalRatio(),
+                observedRegion.observedBAF(), deviationPenaltyDenominator(observedTumorRatio));
+    }
+
+    // allows the purity adjuster and the region's deviation penalty denominator to be reused across many candidate fits
+    public RegionFitCalcs calculateRegionFit(
+            final PurityAdjuster purityAdjuster, final String chromosome, double observedTumorRatio, double observedNormalRatio,
+            double observedBAF, double deviationPenaltyDenom)
+    {
+        double purity = purityAdjuster.purity();
+        double normFactor = purityAdjuster.normFactor();
 
-        double refNormalisedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, observedRegion.observedNormalRatio());
+        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(chromosome, observedTumorRatio);
+        double impliedBAF = impliedBaf(purityAdjuster, chromosome, impliedCopyNumber, observedBAF);
+
+        double refNormalisedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, observedNormalRatio);
 
         double majorAllelePloidy = impliedBAF * impliedCopyNumber;
         double minorAllelePloidy = impliedCopyNumber - majorAllelePloidy;
@@ -98,24 +114,30 @@ public class RegionFitCalculator
 
         double deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF;
 
-        if(mFitScoreConfig.GcRatioExponent > 0 || mFitScoreConfig.DeviationPenaltyGcMinAdjust > 0)
-        {
-            // NEW FORMULA:
-            // deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF
-            //  / max(DeviationPenaltyGcMinAdjust, observedTumorRatio^GcRatioExponent)
-
-            double adjTumorRatio = mFitScoreConfig.GcRatioExponent > 0 ? pow(observedTumorRatio, mFitScoreConfig.GcRatioExponent) : 1;
-
-            double deviationPenaltyDenom = max(mFitScoreConfig.DeviationPenaltyGcMinAdjust, adjTumorRatio);
-
+        if(deviationPenaltyDenom != NO_DEVIATION_PENALTY_DENOM)
             deviationPenalty /= deviationPenaltyDenom;
-        }
 
         return new RegionFitCalcs(
                 impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
                 minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
     }
 
+    private static final double NO_DEVIATION_PENALTY_DENOM = 1;
+
+    public double deviationPenaltyDenominator(double observedTumorRatio)
+    {
+        if(mFitScoreConfig.GcRatioExponent <= 0 && mFitScoreConfig.DeviationPenaltyGcMinAdjust <= 0)
+            return NO_DEVIATION_PENALTY_DENOM;
+
+        // NEW FORMULA:
+        // deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF
+        //  / max(DeviationPenaltyGcMinAdjust, observedTumorRatio^GcRatioExponent)
+
+        double adjTumorRatio = mFitScoreConfig.GcRatioExponent > 0 ? pow(observedTumorRatio, mFitScoreConfig.GcRatioExponent) : 1;
+
+        return max(mFitScoreConfig.DeviationPenaltyGcMinAdjust, adjTumorRatio);
+    }
+
     public static double calculateEventPenalty(double eventPenaltyFactor, double majorAllele, double minorAllele)
     {
         double wholeGenomeDoublingDistance = 1 + (abs(majorAllele - 2)) + (abs(minorAllele - 2));
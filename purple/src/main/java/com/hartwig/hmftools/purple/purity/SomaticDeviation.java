@@ -40,13 +40,20 @@ public enum SomaticDeviation implements RemovalListener<Double, Integer>
     public double deviationFromMax(
             final PurityAdjuster purityAdjuster, final String chromosome, double majorAlleleCopyNumber, double tumorCopyNumber,
             final SomaticVariant variant)
+    {
+        return deviationFromMax(purityAdjuster, chromosome, majorAlleleCopyNumber, tumorCopyNumber, variant.tumorAlleleDepth());
+    }
+
+    public double deviationFromMax(
+            final PurityAdjuster purityAdjuster, final String chromosome, double majorAlleleCopyNumber, double tumorCopyNumber,
+            final AllelicDepth tumorDepth)
     {
         double normalCopyNumber = purityAdjuster.germlineCopyNumber(chromosome);
         double constrainedMajorAllelePloidy = Math.max(0, majorAlleleCopyNumber);
         double constrainedTumorCopyNumber = Math.max(0, tumorCopyNumber);
 
         return deviationFromMax(
-                purityAdjuster, normalCopyNumber, variant.tumorAlleleDepth(), constrainedTumorCopyNumber, constrainedMajorAllelePloidy);
+                purityAdjuster, normalCopyNumber, tumorDepth, constrainedTumorCopyNumber, constrainedMajorAllelePloidy);
     }
 
     @VisibleForTesting
@@ -1,12 +1,20 @@
 package com.hartwig.hmftools.purple.somatic;
 
+import static java.lang.String.format;
+
 import static com.hartwig.hmftools.common.variant.PurpleVcfTags.KATAEGIS_FLAG;
 import static com.hartwig.hmftools.common.variant.PurpleVcfTags.KATAEGIS_FLAG_DESCRIPTION;
-import static com.hartwig.hmftools.common.variant.SageVcfTags.TRINUCLEOTIDE_CONTEXT;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
-import org.apache.logging.log4j.util.Strings;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
@@ -15,24 +23,92 @@ import htsjdk.variant.vcf.VCFInfoHeaderLine;
 
 public class KataegisEnrichment
 {
-    private final KataegisQueue mForwardDetector;
-    private final KataegisQueue mReverseDetector;
+    // the first IDs were previously taken by each strand's detector on creation
+    private static final int INITIAL_KATAEGIS_ID = 2;
+
+    private static final String FORWARD_PREFIX = "FWD";
+    private static final String REVERSE_PREFIX = "REV";
 
-    public KataegisEnrichment(final AtomicInteger kataegisId)
+    public static void findKataegis(final List<List<SomaticVariant>> chromosomeVariants, int threads)
     {
-        mReverseDetector = new KataegisQueue("REV", kataegisId, KataegisEnrichment::isReverseCandidate, null);
-        mForwardDetector = new KataegisQueue("FWD", kataegisId, KataegisEnrichment::isForwardCandidate, mReverseDetector::processVariant);
+        findKataegis(
+                chromosomeVariants, KataegisEnrichment::isForwardCandidate, KataegisEnrichment::isReverseCandidate, threads);
     }
 
-    public void processVariant(final SomaticVariant variant)
+    @VisibleForTesting
+    static void findKataegis(
+            final List<List<SomaticVariant>> chromosomeVariants, final Predicate<SomaticVariant> forwardCandidate,
+            final Predicate<SomaticVariant> reverseCandidate, int threads)
     {
-        mForwardDetector.processVariant(variant);
+        List<KataegisFinder> finders = chromosomeVariants.stream()
+                .map(x -> new KataegisFinder(x, forwardCandidate, reverseCandidate))
+                .collect(Collectors.toList());
+
+        final List<Callable> callableList = finders.stream().collect(Collectors.toList());
+        TaskExecutor.executeTasks(callableList, threads);
+
+        // IDs follow the order in which windows completed when the strands were scanned together in VCF order: forward
+        // windows per segment, except that reverse windows for a segment complete once the next segment's first variant
+        // has been processed by the forward strand
+        List<FinderWindow> windows = Lists.newArrayList();
+        int segmentOffset = 0;
+
+        for(KataegisFinder finder : finders)
+        {
+            for(KataegisFinder.Window window : finder.windows())
+            {
+                windows.add(new FinderWindow(finder, window, segmentOffset));
+            }
+
+            segmentOffset += finder.segmentCount();
+        }
+
+        Collections.sort(windows);
+
+        int kataegisId = INITIAL_KATAEGIS_ID;
+
+        for(FinderWindow window : windows)
+        {
+            String prefix = window.Window.Forward ? FORWARD_PREFIX : REVERSE_PREFIX;
+            window.Finder.setKataegisId(window.Window, format("%s_%d", prefix, ++kataegisId));
+        }
     }
 
-    public void flush()
+    private static class FinderWindow implements Comparable<FinderWindow>
     {
-        mForwardDetector.flush();
-        mReverseDetector.flush();
+        public final KataegisFinder Finder;
+        public final KataegisFinder.Window Window;
+        public final int Segment;
+        public final int Phase;
+
+        public FinderWindow(final KataegisFinder finder, final KataegisFinder.Window window, int segmentOffset)
+        {
+            Finder = finder;
+            Window = window;
+
+            if(!window.Forward)
+            {
+                Segment = segmentOffset + window.Segment + 1;
+                Phase = 1;
+            }
+            else
+            {
+                Segment = segmentOffset + window.Segment;
+                Phase = window.StartsSegment ? 0 : 2;
+            }
+        }
+
+        @Override
+        public int compareTo(final FinderWindow other)
+        {
+            if(Segment != other.Segment)
+                return Integer.compare(Segment, other.Segment);
+
+            if(Phase != other.Phase)
+                return Integer.compare(Phase, other.Phase);
+
+            return Integer.compare(Window.CandidateStart, other.Window.CandidateStart);
+        }
     }
 
     public static void enrichHeader(final VCFHeader template)
@@ -40,29 +116,38 @@ public class KataegisEnrichment
         template.addMetaDataLine(new VCFInfoHeaderLine(KATAEGIS_FLAG, 1, VCFHeaderLineType.String, KATAEGIS_FLAG_DESCRIPTION));
     }
 
-    private static boolean isForwardCandidate(final SomaticVariant variant)
+    @VisibleForTesting
+    static boolean isForwardCandidate(final SomaticVariant variant)
     {
-        final VariantContext context = variant.context();
+        final boolean altMatch = hasAlt(variant, "T") || hasAlt(variant, "G");
+        final boolean triMatch = variant.trinucleotideContext().startsWith("TC");
 
-        final boolean altMatch = context.getAlternateAlleles().stream()
-                .anyMatch(x -> x.getBaseString().equals("T") || x.getBaseString().equals("G"));
+        return variant.isPass() && triMatch && altMatch;
+    }
 
-        final String triContext = context.getAttributeAsString(TRINUCLEOTIDE_CONTEXT, Strings.EMPTY);
-        final boolean triMatch = triContext.startsWith("TC");
+    @VisibleForTesting
+    static boolean isReverseCandidate(final SomaticVariant variant)
+    {
+        final boolean altMatch = hasAlt(variant, "C") || hasAlt(variant, "A");
+        final boolean triMatch = variant.trinucleotideContext().endsWith("GA");
 
         return variant.isPass() && triMatch && altMatch;
     }
 
-    private static boolean isReverseCandidate(final SomaticVariant variant)
+    private static boolean hasAlt(final SomaticVariant variant, final String base)
     {
-        final VariantContext context = variant.context();
+        String alt = variant.alt();
 
-        final boolean altMatch = context.getAlternateAlleles().stream()
-                .anyMatch(x -> x.getBaseString().equals("C") || x.getBaseString().equals("A"));
+        if(alt.equals(base))
+            return true;
 
-        final String triContext = context.getAttributeAsString(TRINUCLEOTIDE_CONTEXT, Strings.EMPTY);
-        final boolean triMatch = triContext.endsWith("GA");
+        // alts are comma-separated for multi-allelic variants
+        return alt.indexOf(',') >= 0 && Arrays.asList(alt.split(",")).contains(base);
+    }
 
-        return variant.isPass() && triMatch && altMatch;
+    public static void writeAttributes(final SomaticVariant variant, final VariantContext variantContext)
+    {
+        if(variant.kataegisId() != null)
+            variantContext.getCommonInfo().putAttribute(KATAEGIS_FLAG, variant.kataegisId(), true);
     }
 }
@@ -0,0 +1,195 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+
+// finds the kataegis windows on a single chromosome, keeping them for IDs to be assigned once all chromosomes are processed
+public class KataegisFinder implements Callable
+{
+    static final int MAX_ABS_DISTANCE = 2000;
+    static final int MAX_AVG_DISTANCE = 1000;
+    static final int MIN_COUNT = 3;
+
+    private final List<SomaticVariant> mVariants;
+    private final Predicate<SomaticVariant> mForwardCandidate;
+    private final Predicate<SomaticVariant> mReverseCandidate;
+
+    private final int[] mPositions;
+    private final int[] mSegments; // variants are split into segments wherever they are too far apart to share a window
+    private int[] mForwardCandidates;
+    private int[] mReverseCandidates;
+    private final List<Window> mWindows;
+
+    public KataegisFinder(
+            final List<SomaticVariant> variants, final Predicate<SomaticVariant> forwardCandidate,
+            final Predicate<SomaticVariant> reverseCandidate)
+    {
+        mVariants = variants;
+        mForwardCandidate = forwardCandidate;
+        mReverseCandidate = reverseCandidate;
+
+        mPositions = new int[variants.size()];
+        mSegments = new int[variants.size()];
+        mForwardCandidates = null;
+        mReverseCandidates = null;
+        mWindows = Lists.newArrayList();
+    }
+
+    public List<Window> windows() { return mWindows; }
+
+    public int segmentCount() { return mVariants.isEmpty() ? 0 : mSegments[mSegments.length - 1] + 1; }
+
+    public static class Window
+    {
+        public final boolean Forward;
+        public final int Segment;
+        public final boolean StartsSegment;
+        public final int CandidateStart; // indices into the strand's candidates
+        public final int CandidateEnd;
+
+        public Window(boolean forward, int segment, boolean startsSegment, int candidateStart, int candidateEnd)
+        {
+            Forward = forward;
+            Segment = segment;
+            StartsSegment = startsSegment;
+            CandidateStart = candidateStart;
+            CandidateEnd = candidateEnd;
+        }
+    }
+
+    @Override
+    public Long call()
+    {
+        int segment = 0;
+
+        for(int i = 0; i < mVariants.size(); ++i)
+        {
+            mPositions[i] = mVariants.get(i).position();
+
+            if(i > 0 && mPositions[i] - mPositions[i - 1] > MAX_ABS_DISTANCE)
+                ++segment;
+
+            mSegments[i] = segment;
+        }
+
+        mForwardCandidates = findCandidates(mForwardCandidate);
+        mReverseCandidates = findCandidates(mReverseCandidate);
+
+        findWindows(true, mForwardCandidates);
+        findWindows(false, mReverseCandidates);
+
+        return (long)0;
+    }
+
+    public void setKataegisId(final Window window, final String kataegisId)
+    {
+        int[] candidates = window.Forward ? mForwardCandidates : mReverseCandidates;
+
+        for(int i = window.CandidateStart; i <= window.CandidateEnd; ++i)
+        {
+            mVariants.get(candidates[i]).setKataegisId(kataegisId);
+        }
+    }
+
+    private int[] findCandidates(final Predicate<SomaticVariant> candidate)
+    {
+        int[] candidates = new int[mVariants.size()];
+        int count = 0;
+
+        for(int i = 0; i < mVariants.size(); ++i)
+        {
+            if(candidate.test(mVariants.get(i)))
+                candidates[count++] = i;
+        }
+
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private void findWindows(boolean forward, final int[] candidates)
+    {
+        // a window only extends to the next candidate if it is close enough to the last, so runs of close candidates are
+        // independent of each other
+        int runStart = 0;
+
+        for(int i = 1; i <= candidates.length; ++i)
+        {
+            if(i == candidates.length || mPositions[candidates[i]] - mPositions[candidates[i - 1]] > MAX_ABS_DISTANCE)
+            {
+                findRunWindows(forward, candidates, runStart, i);
+                runStart = i;
+            }
+        }
+    }
+
+    private void findRunWindows(boolean forward, final int[] candidates, int runStart, int runEnd)
+    {
+        // candidates a to t have an average distance which rounds to within the limit when
+        // 2 * (pos(t) - pos(a)) < (2 * MAX_AVG_DISTANCE + 1) * (t - a), ie when score(t) > score(a)
+        long[] scores = new long[runEnd - runStart];
+
+        for(int i = runStart; i < runEnd; ++i)
+        {
+            scores[i - runStart] = (2L * MAX_AVG_DISTANCE + 1) * i - 2L * mPositions[candidates[i]];
+        }
+
+        // the longest window from a candidate ends at the last candidate with a higher score, which is always one of
+        // the run's right-to-left score maxima, held here in order of increasing score
+        int[] maxima = new int[scores.length];
+        int maximaCount = 0;
+
+        for(int i = scores.length - 1; i >= 0; --i)
+        {
+            if(maximaCount == 0 || scores[i] > scores[maxima[maximaCount - 1]])
+                maxima[maximaCount++] = i;
+        }
+
+        int head = 0;
+
+        while(head < scores.length)
+        {
+            int windowEnd = lastHigherScore(scores, maxima, maximaCount, scores[head]);
+
+            if(windowEnd >= head + MIN_COUNT - 1)
+            {
+                int headVariant = candidates[runStart + head];
+                boolean startsSegment = headVariant == 0 || mSegments[headVariant - 1] != mSegments[headVariant];
+
+                mWindows.add(new Window(forward, mSegments[headVariant], startsSegment, runStart + head, runStart + windowEnd));
+                head = windowEnd + 1;
+            }
+            else
+            {
+                // other candidates at the same position cannot start a window either
+                int headPosition = mPositions[candidates[runStart + head]];
+                ++head;
+
+                while(head < scores.length && mPositions[candidates[runStart + head]] == headPosition)
+                {
+                    ++head;
+                }
+            }
+        }
+    }
+
+    private static int lastHigherScore(final long[] scores, final int[] maxima, int maximaCount, long score)
+    {
+        int low = 0;
+        int high = maximaCount;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(scores[maxima[mid]] > score)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+
+        return low < maximaCount ? maxima[low] : -1;
+    }
+}
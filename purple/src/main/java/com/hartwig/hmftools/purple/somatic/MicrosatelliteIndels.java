@@ -2,8 +2,6 @@ package com.hartwig.hmftools.purple.somatic;
 
 import static java.lang.String.format;
 
-import static com.hartwig.hmftools.common.variant.SageVcfTags.REPEAT_COUNT;
-import static com.hartwig.hmftools.common.variant.SageVcfTags.REPEAT_SEQUENCE;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 import static com.hartwig.hmftools.purple.config.PurpleConstants.MB_PER_GENOME;
 
@@ -13,7 +11,6 @@ import com.google.common.annotations.VisibleForTesting;
 import com.hartwig.hmftools.common.variant.VariantType;
 import com.hartwig.hmftools.purple.config.TargetRegionsData;
 
-import org.apache.logging.log4j.util.Strings;
 import org.jetbrains.annotations.NotNull;
 
 import htsjdk.variant.variantcontext.Allele;
@@ -57,8 +54,8 @@ public class MicrosatelliteIndels
         if(variant.type() != VariantType.INDEL)
             return;
 
-        int altLength = variant.decorator().alt().length();
-        int refLength = variant.decorator().ref().length();
+        int altLength = variant.alt().length();
+        int refLength = variant.ref().length();
 
         if(refLength >= MAX_REF_ALT_LENGTH || altLength >= MAX_REF_ALT_LENGTH)
             return;
@@ -91,8 +88,8 @@ public class MicrosatelliteIndels
             }
         }
 
-        int repeatCount = variant.context().getAttributeAsInt(REPEAT_COUNT, 0);
-        int repeatSequenceLength = variant.context().getAttributeAsString(REPEAT_SEQUENCE, Strings.EMPTY).length();
+        int repeatCount = variant.repeatCount();
+        int repeatSequenceLength = variant.repeatSequence().length();
 
         if(!repeatContextIsRelevant(repeatCount, repeatSequenceLength))
             return;
@@ -31,12 +31,14 @@ public class SomaticGenotypeEnrichment
 
     public void processVariant(final SomaticVariant variant)
     {
-        VariantContext origContext = variant.context();
-        Allele refAllele = origContext.getReference();
-
-        if(origContext.getAlleles().size() < 2)
-            return;
+        // genotypes are not retained in the variant cache, so are updated as the variant is written
+        if(!variant.alt().isEmpty())
+            variant.markGenotypeEnriched();
+    }
 
+    public VariantContext enrichContext(final VariantContext origContext, boolean biallelic)
+    {
+        Allele refAllele = origContext.getReference();
         Allele altAllele = origContext.getAlternateAllele(0);
 
         List<Genotype> updatedGenotypes = Lists.newArrayList();
@@ -57,7 +59,7 @@ public class SomaticGenotypeEnrichment
 
         // set the tumor status
         Genotype tumorGT = origContext.getGenotype(mTumorSample);
-        SomaticGenotypeStatus tumorStatus = variant.biallelic() ? SomaticGenotypeStatus.HOM : SomaticGenotypeStatus.HET;
+        SomaticGenotypeStatus tumorStatus = biallelic ? SomaticGenotypeStatus.HOM : SomaticGenotypeStatus.HET;
 
         List<Allele> tumorAlleles = Lists.newArrayList();
         if(tumorStatus.equals(SomaticGenotypeStatus.HOM))
@@ -76,10 +78,9 @@ public class SomaticGenotypeEnrichment
         VariantContextBuilder builder = new VariantContextBuilder(origContext).genotypes(updatedGenotypes);
 
         // remove any fields set by Pave (in regression testing only)
-        if(variant.context().hasAttribute(REPORTED_FLAG))
+        if(origContext.hasAttribute(REPORTED_FLAG))
             builder.rmAttribute(REPORTED_FLAG);
 
-        VariantContext newContext = builder.make();
-        variant.setContext(newContext);
+        return builder.make();
     }
 }
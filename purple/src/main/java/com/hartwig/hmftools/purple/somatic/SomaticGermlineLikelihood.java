@@ -2,7 +2,6 @@ package com.hartwig.hmftools.purple.somatic;
 
 import static java.lang.Math.abs;
 
-import static com.hartwig.hmftools.common.variant.CommonVcfTags.getGenotypeAttributeAsDouble;
 import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PANEL_GERMLINE_VAF_DISTANCE;
 import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PANEL_GERMLINE_VAF_DISTANCE_DESC;
 import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PANEL_SOMATIC_LIKELIHOOD;
@@ -10,11 +9,10 @@ import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PANEL_SOMATIC_LI
 import static com.hartwig.hmftools.purple.config.TargetRegionsData.PANEL_SOMATIC_LIKELIHOOD_DIFF_HIGH;
 import static com.hartwig.hmftools.purple.config.TargetRegionsData.PANEL_SOMATIC_LIKELIHOOD_DIFF_LOW;
 
-import com.hartwig.hmftools.common.variant.GenotypeIds;
 import com.hartwig.hmftools.common.variant.SomaticLikelihood;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
 
-import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLineType;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
@@ -22,12 +20,10 @@ import htsjdk.variant.vcf.VCFInfoHeaderLine;
 public class SomaticGermlineLikelihood
 {
     private final boolean mEnabled;
-    private final GenotypeIds mGenotypeIds;
 
-    public SomaticGermlineLikelihood(final PurpleConfig config, final GenotypeIds genotypeIds)
+    public SomaticGermlineLikelihood(final PurpleConfig config)
     {
         mEnabled = config.tumorOnlyMode();
-        mGenotypeIds = genotypeIds;
     }
 
     public static VCFHeader enrichHeader(final VCFHeader template)
@@ -42,11 +38,10 @@ public class SomaticGermlineLikelihood
         if(!mEnabled)
             return;
 
-        double rawAf = getGenotypeAttributeAsDouble(
-                variant.context().getGenotype(mGenotypeIds.TumorOrdinal), VCFConstants.ALLELE_FREQUENCY_KEY, 0);
+        double rawAf = variant.tumorGenotypeAf();
 
-        double segmentCn = variant.decorator().adjustedCopyNumber();
-        double tumorMinorCn = variant.decorator().minorAlleleCopyNumber();
+        double segmentCn = variant.adjustedCopyNumber();
+        double tumorMinorCn = variant.minorAlleleCopyNumber();
         double tumorMajorCn = segmentCn - tumorMinorCn;
 
         double refPurity = 1 - purity;
@@ -101,7 +96,6 @@ public class SomaticGermlineLikelihood
         */
 
         double[] diffValues = new double[] { germlineMinDiff, somaticMinDiff };
-        variant.context().getCommonInfo().putAttribute(PANEL_GERMLINE_VAF_DISTANCE, diffValues);
 
         SomaticLikelihood somaticLikelihood;
         double somaticGermlineDiff = abs(somaticMinDiff) - abs(germlineMinDiff);
@@ -119,6 +113,15 @@ public class SomaticGermlineLikelihood
             somaticLikelihood = SomaticLikelihood.MEDIUM;
         }
 
-        variant.context().getCommonInfo().putAttribute(PANEL_SOMATIC_LIKELIHOOD, somaticLikelihood);
+        variant.setSomaticLikelihood(diffValues, somaticLikelihood);
+    }
+
+    public static void writeAttributes(final SomaticVariant variant, final VariantContext variantContext)
+    {
+        if(variant.germlineVafDistance() == null)
+            return;
+
+        variantContext.getCommonInfo().putAttribute(PANEL_GERMLINE_VAF_DISTANCE, variant.germlineVafDistance());
+        variantContext.getCommonInfo().putAttribute(PANEL_SOMATIC_LIKELIHOOD, variant.somaticLikelihood());
     }
 }
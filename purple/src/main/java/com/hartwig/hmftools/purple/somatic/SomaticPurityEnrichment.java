@@ -57,7 +57,7 @@ public class SomaticPurityEnrichment
         if(observedRegion.isPresent())
             germlineStatus = observedRegion.get().germlineStatus();
 
-        variant.context().getCommonInfo().putAttribute(PURPLE_GERMLINE_INFO, germlineStatus.toString());
+        variant.setGermlineStatus(germlineStatus);
 
         if(variant.hasTumorAlleleDepth())
         {
@@ -81,15 +81,27 @@ public class SomaticPurityEnrichment
         double biallelicProbability = calculateBiallelic(purpleCopyNumber, variant);
         boolean classifyBiallelic = classifyBiallelic(biallelicProbability);
 
-        VariantContext variantContext = variant.context();
+        variant.setPurityAdjustment(
+                copyNumber, variantCopyNumber, vaf, purpleCopyNumber.minorAlleleCopyNumber(), biallelicProbability, classifyBiallelic);
+    }
+
+    public static void writeAttributes(final SomaticVariant variant, final VariantContext variantContext)
+    {
+        if(variant.germlineStatus() == null)
+            return;
+
+        variantContext.getCommonInfo().putAttribute(PURPLE_GERMLINE_INFO, variant.germlineStatus().toString());
+
+        if(!variant.purityEnriched())
+            return;
 
-        variantContext.getCommonInfo().putAttribute(PURPLE_VARIANT_CN, variantCopyNumber);
-        variantContext.getCommonInfo().putAttribute(PURPLE_CN, copyNumber);
+        variantContext.getCommonInfo().putAttribute(PURPLE_VARIANT_CN, variant.copyNumber());
+        variantContext.getCommonInfo().putAttribute(PURPLE_CN, variant.adjustedCopyNumber());
 
-        variantContext.getCommonInfo().putAttribute(PURPLE_AF, String.format("%.4f", vaf));
-        variantContext.getCommonInfo().putAttribute(PURPLE_MINOR_ALLELE_CN_INFO, purpleCopyNumber.minorAlleleCopyNumber());
-        variantContext.getCommonInfo().putAttribute(PURPLE_BIALLELIC_PROB, biallelicProbability);
-        variantContext.getCommonInfo().putAttribute(PURPLE_BIALLELIC_FLAG, classifyBiallelic);
+        variantContext.getCommonInfo().putAttribute(PURPLE_AF, String.format("%.4f", variant.adjustedVaf()));
+        variantContext.getCommonInfo().putAttribute(PURPLE_MINOR_ALLELE_CN_INFO, variant.minorAlleleCopyNumber());
+        variantContext.getCommonInfo().putAttribute(PURPLE_BIALLELIC_PROB, variant.biallelicProbability());
+        variantContext.getCommonInfo().putAttribute(PURPLE_BIALLELIC_FLAG, variant.biallelic());
     }
 
     // version 6.0 - New biallelic model
@@ -160,7 +172,7 @@ public class SomaticPurityEnrichment
         double minorAlleleCopyNumber = purpleCopyNumber.minorAlleleCopyNumber();
         double copyNumber = purpleCopyNumber.averageTumorCopyNumber();
 
-        double variantCopyNumber = variant.decorator().variantCopyNumber();
+        double variantCopyNumber = variant.copyNumber();
         int alleleReadCount = variant.alleleReadCount();
 
         // part 1
@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.purple.somatic;
 
+import static java.lang.Math.max;
 import static java.lang.Math.round;
 
 import static com.hartwig.hmftools.common.variant.CodingEffect.hasProteinImpact;
@@ -13,17 +14,21 @@ import static com.hartwig.hmftools.common.variant.impact.VariantEffect.PHASED_MI
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 import static com.hartwig.hmftools.purple.config.PurpleConstants.ASSUMED_BIALLELIC_FRACTION;
 import static com.hartwig.hmftools.purple.config.PurpleConstants.MB_PER_GENOME;
-import static com.hartwig.hmftools.purple.drivers.SomaticVariantDrivers.addReportableTranscriptList;
+import static com.hartwig.hmftools.purple.drivers.SomaticVariantDrivers.reportableTranscriptList;
 import static com.hartwig.hmftools.purple.somatic.SomaticVariantEnrichment.populateHeader;
+import static com.hartwig.hmftools.purple.somatic.SomaticVariantEnrichment.requiresEnrichment;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -38,20 +43,23 @@ import com.hartwig.hmftools.purple.purity.PurityAdjuster;
 import com.hartwig.hmftools.common.purple.GeneCopyNumber;
 import com.hartwig.hmftools.common.variant.VariantContextDecorator;
 import com.hartwig.hmftools.common.variant.VariantType;
+import com.hartwig.hmftools.common.variant.VcfFileReader;
 import com.hartwig.hmftools.purple.config.ReferenceData;
+import com.hartwig.hmftools.purple.config.TargetRegionsData;
 import com.hartwig.hmftools.common.variant.msi.MicrosatelliteStatus;
 import com.hartwig.hmftools.common.purple.TumorMutationalStatus;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
 import com.hartwig.hmftools.purple.plot.RChartData;
 
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
 import htsjdk.variant.vcf.VCFHeader;
 
 public class SomaticStream
 {
-    private final ReferenceData mReferenceData;
     private final PurpleConfig mConfig;
+    private final TargetRegionsData mTargetRegions;
 
     private boolean mEnabled;
     private final String mOutputVCF;
@@ -84,25 +92,34 @@ public class SomaticStream
             final PurpleConfig config, final ReferenceData referenceData, final SomaticVariantCache somaticVariantCache,
             final List<PeakModelData> peakModel)
     {
-        mReferenceData = referenceData;
+        this(config, referenceData.DriverGenes, referenceData.TargetRegions, somaticVariantCache, peakModel);
+    }
+
+    @VisibleForTesting
+    SomaticStream(
+            final PurpleConfig config, final DriverGenePanel genePanel, final TargetRegionsData targetRegions,
+            final SomaticVariantCache somaticVariantCache, final List<PeakModelData> peakModel)
+    {
         mConfig = config;
+        mTargetRegions = targetRegions;
 
-        mGenePanel = referenceData.DriverGenes;
+        mGenePanel = genePanel;
         mPeakModel = peakModel;
         mOutputVCF = PurpleCommon.purpleSomaticVcfFile(config.OutputDir, config.TumorId);
         mEnabled = somaticVariantCache.hasData();
-        mTumorMutationalLoad = new TumorMutationalLoad(mReferenceData.TargetRegions);
-        mSomaticGermlineLikelihood = new SomaticGermlineLikelihood(mConfig, somaticVariantCache.genotypeIds());
-        mMicrosatelliteIndels = new MicrosatelliteIndels(mReferenceData.TargetRegions);
+        mTumorMutationalLoad = new TumorMutationalLoad(mTargetRegions);
+        mSomaticGermlineLikelihood = new SomaticGermlineLikelihood(mConfig);
+        mMicrosatelliteIndels = new MicrosatelliteIndels(mTargetRegions);
         mDrivers = new SomaticVariantDrivers(mGenePanel);
         mSomaticVariants = somaticVariantCache;
-        mRChartData = new RChartData(config, config.TumorId);
 
         mReportedGenes = Sets.newHashSet();
         mDownsampledVariants = Lists.newArrayList();
         mSnpMod = somaticVariantCache.snpCount() <= CHART_DOWNSAMPLE_FACTOR ? 1 : somaticVariantCache.snpCount() / CHART_DOWNSAMPLE_FACTOR;
         mIndelMod = somaticVariantCache.indelCount() <= CHART_DOWNSAMPLE_FACTOR ? 1 : somaticVariantCache.indelCount() / CHART_DOWNSAMPLE_FACTOR;
 
+        mRChartData = new RChartData(config, config.TumorId, mSnpMod);
+
         mTmb = 0;
         mTml = 0;
         mMsiIndelPerMb = 0;
@@ -131,10 +148,10 @@ public class SomaticStream
 
     public List<DriverCatalog> buildDrivers(final Map<String,List<GeneCopyNumber>> geneCopyNumberMap)
     {
-        if(mReferenceData.TargetRegions.hasTargetRegions())
+        if(mTargetRegions.hasTargetRegions())
         {
             // override the counts passed to the DNDS calcs
-            int inferredSnvCount = (int)round(mTml * mReferenceData.TargetRegions.tmbRatio() * MB_PER_GENOME);
+            int inferredSnvCount = (int)round(mTml * mTargetRegions.tmbRatio() * MB_PER_GENOME);
             int inferredIndelCount = (int)round(mMsiIndelPerMb * MB_PER_GENOME);
 
             Map<VariantType,Integer> variantTypeCounts = Maps.newHashMap();
@@ -157,6 +174,8 @@ public class SomaticStream
     public Set<String> reportedGenes() { return mReportedGenes; }
 
     public List<VariantContextDecorator> downsampledVariants() { return mDownsampledVariants; }
+    public RChartData chartData() { return mRChartData; }
+    public List<PeakModelData> peakModel() { return mPeakModel; }
 
     public void processAndWrite(final PurityAdjuster purityAdjuster)
     {
@@ -179,45 +198,31 @@ public class SomaticStream
             mVcfWriter.writeHeader(vcfHeader);
 
             boolean tumorOnly = mConfig.tumorOnlyMode();
-            AtomicInteger kataegisId = new AtomicInteger();
-
-            if(mConfig.Threads > 1)
-            {
-                List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
-
-                for(int i = 0; i < mConfig.Threads; ++i)
-                {
-                    enrichers.add(new SomaticVariantEnrichment(i, mConfig, mReferenceData, mPeakModel, kataegisId));
-                }
 
-                int taskIndex = 0;
-                String currentChr = !mSomaticVariants.variants().isEmpty() ? mSomaticVariants.variants().get(0).chromosome() : "";
+            // chromosomes are shared between tasks in turn
+            List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
 
-                for(SomaticVariant variant : mSomaticVariants.variants())
-                {
-                    if(!currentChr.equals(variant.chromosome()))
-                    {
-                        currentChr = variant.chromosome();
-                        ++taskIndex;
-
-                        if(taskIndex >= enrichers.size())
-                            taskIndex = 0;
-                    }
+            for(int i = 0; i < max(mConfig.Threads, 1); ++i)
+            {
+                enrichers.add(new SomaticVariantEnrichment(i, mConfig, mPeakModel));
+            }
 
-                    enrichers.get(taskIndex).addVariant(variant);
-                }
+            int taskIndex = 0;
 
-                final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
-                TaskExecutor.executeTasks(callableList, mConfig.Threads);
-            }
-            else
+            for(List<SomaticVariant> chromosomeVariants : mSomaticVariants.chromosomeVariants().values())
             {
-                SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(0, mConfig, mReferenceData, mPeakModel, kataegisId);
-                mSomaticVariants.variants().forEach(x -> enricher.addVariant(x));
-                enricher.call();
+                enrichers.get(taskIndex).addVariants(chromosomeVariants);
+                taskIndex = (taskIndex + 1) % enrichers.size();
             }
 
+            final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
+            TaskExecutor.executeTasks(callableList, mConfig.Threads);
+
+            enrichKataegis();
+
             // various processing for charting, TMB/L calcs, drivers
+            BitSet chartRecords = new BitSet();
+
             for(SomaticVariant variant : mSomaticVariants.variants())
             {
                 if(!HumanChromosome.contains(variant.chromosome()))
@@ -233,20 +238,44 @@ public class SomaticStream
                     checkDrivers(variant, true); // sets reportable flag if applicable
 
                     mRChartData.processVariant(variant);
-                    checkChartDownsampling(variant);
+
+                    if(checkChartDownsampling(variant))
+                        chartRecords.set(variant.recordIndex());
                 }
             }
 
             // should not be required if coding effects have been set correctly for phased variants in Pave
             checkPhasedReportableVariants();
 
-            // write enriched variants to VCF
-            for(SomaticVariant variant : mSomaticVariants.variants())
+            // write enriched variants to VCF, re-reading each record from the input VCF in turn
+            SomaticVariantEnrichment contextEnricher = enrichers.get(0);
+            VcfFileReader vcfReader = new VcfFileReader(mSomaticVariants.somaticVcf());
+            Iterator<SomaticVariant> variantIter = mSomaticVariants.variants().iterator();
+            SomaticVariant variant = variantIter.hasNext() ? variantIter.next() : null;
+            int recordIndex = 0;
+
+            for(VariantContext variantContext : vcfReader.iterator())
             {
+                if(variant == null)
+                    break;
+
+                if(variant.recordIndex() != recordIndex++)
+                    continue; // not loaded
+
                 if(!tumorOnly || variant.isPass() || mConfig.WriteAllSomatics)
-                    mVcfWriter.add(variant.context());
+                {
+                    VariantContext enrichedContext = contextEnricher.enrichContext(variant, variantContext);
+                    mVcfWriter.add(enrichedContext);
+
+                    if(chartRecords.get(variant.recordIndex()))
+                        mDownsampledVariants.add(new VariantContextDecorator(enrichedContext));
+                }
+
+                variant = variantIter.hasNext() ? variantIter.next() : null;
             }
 
+            vcfReader.close();
+
             mVcfWriter.close();
             mRChartData.write();
 
@@ -266,9 +295,9 @@ public class SomaticStream
         mTml = mTumorMutationalLoad.calcTml();
         mMsiIndelPerMb = mMicrosatelliteIndels.calcMsiIndelsPerMb();
 
-        if(mReferenceData.TargetRegions.hasTargetRegions())
+        if(mTargetRegions.hasTargetRegions())
         {
-            mTmb = mMsiIndelPerMb + mTml * mReferenceData.TargetRegions.tmbRatio();
+            mTmb = mMsiIndelPerMb + mTml * mTargetRegions.tmbRatio();
         }
         else
         {
@@ -286,12 +315,12 @@ public class SomaticStream
 
         if(reported && updateVcf)
         {
-            variant.context().getCommonInfo().putAttribute(REPORTED_FLAG, true);
+            variant.markReported();
 
-            mReportedGenes.add(variant.decorator().gene());
+            mReportedGenes.add(variant.gene());
 
             // check alt transcript status vs canonical
-            addReportableTranscriptList(variant.type(), variant.context(), variant.variantImpact());
+            variant.setReportableTranscripts(reportableTranscriptList(variant.type(), variant.variantImpact()));
         }
     }
 
@@ -323,12 +352,12 @@ public class SomaticStream
             SomaticVariant variant = mSomaticVariants.variants().get(i);
 
             // first find any reportable phased inframe INDEL
-            if(!variant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
+            if(!variant.reported() || !hasPhasedEffect(variant))
                 continue;
 
-            List<Integer> localPhaseSets = variant.context().getAttributeAsIntList(LOCAL_PHASE_SET, 0);
+            int[] localPhaseSets = variant.localPhaseSets();
 
-            if(localPhaseSets.isEmpty())
+            if(localPhaseSets == null || localPhaseSets.length == 0)
                 continue;
 
             // look forwards and backwards for unreported passing variants in the same phase set
@@ -349,23 +378,23 @@ public class SomaticStream
 
                     SomaticVariant nextVariant = mSomaticVariants.variants().get(j);
 
-                    if(!nextVariant.isPass() || nextVariant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
+                    if(!nextVariant.isPass() || nextVariant.reported() || !hasPhasedEffect(variant))
                         continue;
 
                     // must have a coding impact
                     if(nextVariant.variantImpact() == null || !hasProteinImpact(nextVariant.variantImpact().CanonicalCodingEffect))
                         continue;
 
-                    List<Integer> nextLocalPhaseSets = nextVariant.context().getAttributeAsIntList(LOCAL_PHASE_SET, 0);
+                    int[] nextLocalPhaseSets = nextVariant.localPhaseSets();
 
                     // stop looking when phase set changes or is empty, so assumes that there aren't unphased variants in between
-                    if(nextLocalPhaseSets.isEmpty())
+                    if(nextLocalPhaseSets == null || nextLocalPhaseSets.length == 0)
                         break;
 
-                    if(nextLocalPhaseSets.stream().noneMatch(x -> localPhaseSets.contains(x)))
+                    if(Arrays.stream(nextLocalPhaseSets).noneMatch(x -> Arrays.stream(localPhaseSets).anyMatch(y -> y == x)))
                         break;
 
-                    nextVariant.context().getCommonInfo().putAttribute(REPORTED_FLAG, true);
+                    nextVariant.markReported();
 
                     PPL_LOGGER.debug("var({}) setting reported due to inframe-phasing with other({})", nextVariant, variant);
 
@@ -376,27 +405,32 @@ public class SomaticStream
         }
     }
 
-    private void checkChartDownsampling(final SomaticVariant variant)
+    private void enrichKataegis()
+    {
+        List<List<SomaticVariant>> chromosomeVariants = mSomaticVariants.chromosomeVariants().values().stream()
+                .map(x -> x.stream().filter(y -> requiresEnrichment(y, mConfig)).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+
+        KataegisEnrichment.findKataegis(chromosomeVariants, mConfig.Threads);
+    }
+
+    private boolean checkChartDownsampling(final SomaticVariant variant)
     {
         if(mConfig.Charting.Disabled)
-            return;
+            return false;
 
         if(!HumanChromosome.contains(variant.chromosome()))
-            return;
+            return false;
 
         if(variant.type() == VariantType.INDEL)
         {
             mIndelCount++;
-
-            if(mIndelCount % mIndelMod == 0)
-                mDownsampledVariants.add(variant.decorator());
+            return mIndelCount % mIndelMod == 0;
         }
         else
         {
             mSnpCount++;
-
-            if(mSnpCount % mSnpMod == 0)
-                mDownsampledVariants.add(variant.decorator());
+            return mSnpCount % mSnpMod == 0;
         }
     }
 }
@@ -1,42 +1,180 @@
 package com.hartwig.hmftools.purple.somatic;
 
-import static com.hartwig.hmftools.common.variant.Hotspot.HOTSPOT_FLAG;
+import static com.hartwig.hmftools.common.variant.CommonVcfTags.REPORTED_FLAG;
+import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PANEL_SOMATIC_LIKELIHOOD;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_AF;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_BIALLELIC_FLAG;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_CN;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_MINOR_ALLELE_CN_INFO;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_VARIANT_CN;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.REPEAT_COUNT;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.REPEAT_SEQUENCE;
+import static com.hartwig.hmftools.common.variant.SomaticVariantFactory.MAPPABILITY_TAG;
 
+import java.util.List;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
 import com.hartwig.hmftools.common.variant.AllelicDepth;
+import com.hartwig.hmftools.common.variant.CodingEffect;
+import com.hartwig.hmftools.common.variant.Hotspot;
+import com.hartwig.hmftools.common.variant.ImmutableAllelicDepthImpl;
+import com.hartwig.hmftools.common.variant.SomaticLikelihood;
 import com.hartwig.hmftools.common.variant.VariantContextDecorator;
+import com.hartwig.hmftools.common.variant.VariantTier;
 import com.hartwig.hmftools.common.variant.VariantType;
+import com.hartwig.hmftools.common.variant.filter.NTFilter;
+import com.hartwig.hmftools.common.variant.filter.SGTFilter;
 import com.hartwig.hmftools.common.variant.impact.VariantImpact;
 
 import htsjdk.variant.variantcontext.VariantContext;
 
-public class SomaticVariant implements GenomePosition
+// a compact copy of the fields of a somatic VCF record used by fitting, enrichment and drivers, with the record itself re-read
+// when the enriched VCF is written, and the values set by enrichment held here until then
+public class SomaticVariant implements GenomePosition, AllelicDepth
 {
-    private VariantContext mContext;
-
     private final String mChromosome;
     private final int mPosition;
-    private VariantContextDecorator mDecorator;
-    private final AllelicDepth mTumorAllelicDepth;
-    private final AllelicDepth mReferenceAllelicDepth;
+
+    private final String mRef;
+    private final String mAlt;
+    private final VariantType mType;
+    private final VariantTier mTier;
+    private final String mFilter;
+    private final boolean mIsPass;
+    private final VariantImpact mVariantImpact;
+    private Hotspot mHotspot;
+
+    private final boolean mHasTumorDepth;
+    private final int mTumorAlleleReadCount;
+    private final int mTumorTotalReadCount;
+    private final boolean mHasReferenceDepth;
+    private final int mReferenceAlleleReadCount;
+    private final int mReferenceTotalReadCount;
+
+    private final String mTrinucleotideContext;
+    private final int mRepeatCount;
+    private final String mRepeatSequence;
+    private final double mMappability; // NaN if not annotated
+    private final double mGnomadFrequency; // NaN if not annotated
+    private final int[] mLocalPhaseSets;
+    private final boolean mFittingGenotype;
+
+    private int mRecordIndex; // the record's position in the VCF, used to match it when the VCF is re-read
+    private double mTumorGenotypeAf;
+
+    // values from purity enrichment, initialised from the VCF
+    private GermlineStatus mGermlineStatus;
+    private boolean mPurityEnriched;
+    private double mAdjustedCopyNumber;
+    private double mVariantCopyNumber;
+    private double mAdjustedVaf;
+    private double mMinorAlleleCopyNumber;
+    private double mBiallelicProbability;
+    private boolean mBiallelic;
+
+    // values from enrichment
+    private double mSubclonalLikelihood; // NaN if not set
+    private String mKataegisId;
+    private boolean mGenotypeEnriched;
+    private double[] mGermlineVafDistance;
+    private SomaticLikelihood mSomaticLikelihood;
+    private boolean mReported;
+    private String mReportableTranscripts;
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    private static final SGTFilter SGT_FILTER = new SGTFilter();
+    private static final NTFilter NT_FILTER = new NTFilter();
+
+    private static final VariantImpact NO_IMPACT = new VariantImpact(
+            "", "", "", CodingEffect.UNDEFINED, "", "", false, "", CodingEffect.UNDEFINED, 0);
 
     public SomaticVariant(final VariantContext context, final String sampleId, final String referenceId)
     {
-        mContext = context;
-        mDecorator = new VariantContextDecorator(mContext);
+        VariantContextDecorator decorator = new VariantContextDecorator(context);
 
-        mChromosome = mContext.getContig();
-        mPosition = mContext.getStart();
-        mTumorAllelicDepth = sampleId != null ? mDecorator.allelicDepth(sampleId) :  null;
-        mReferenceAllelicDepth = referenceId != null ? mDecorator.allelicDepth(referenceId) :  null;
-    }
+        mChromosome = STRINGS.intern(context.getContig());
+        mPosition = context.getStart();
+        mRecordIndex = -1;
+
+        mRef = STRINGS.intern(decorator.ref());
+        mAlt = STRINGS.intern(decorator.alt());
+        mType = decorator.type();
+        mTier = decorator.tier();
+        mFilter = STRINGS.intern(decorator.filter());
+        mIsPass = decorator.isPass();
+        mVariantImpact = compactImpact(decorator.variantImpact());
+        mHotspot = decorator.hotspot();
+
+        AllelicDepth tumorDepth = sampleId != null ? decorator.allelicDepth(sampleId) : null;
+        mHasTumorDepth = tumorDepth != null;
+        mTumorAlleleReadCount = mHasTumorDepth ? tumorDepth.alleleReadCount() : 0;
+        mTumorTotalReadCount = mHasTumorDepth ? tumorDepth.totalReadCount() : 0;
 
-    public VariantContext context() { return mContext; }
+        AllelicDepth referenceDepth = referenceId != null ? decorator.allelicDepth(referenceId) : null;
+        mHasReferenceDepth = referenceDepth != null;
+        mReferenceAlleleReadCount = mHasReferenceDepth ? referenceDepth.alleleReadCount() : 0;
+        mReferenceTotalReadCount = mHasReferenceDepth ? referenceDepth.totalReadCount() : 0;
 
-    public void setContext(final VariantContext context)
+        mTrinucleotideContext = STRINGS.intern(decorator.trinucleotideContext());
+        mRepeatCount = context.getAttributeAsInt(REPEAT_COUNT, 0);
+        mRepeatSequence = STRINGS.intern(context.getAttributeAsString(REPEAT_SEQUENCE, ""));
+        mMappability = context.hasAttribute(MAPPABILITY_TAG) ? decorator.mappability() : Double.NaN;
+        mGnomadFrequency = context.hasAttribute(GNOMAD_FREQ) ? context.getAttributeAsDouble(GNOMAD_FREQ, 0) : Double.NaN;
+        mFittingGenotype = SGT_FILTER.test(context) && NT_FILTER.test(context);
+
+        if(context.hasAttribute(LOCAL_PHASE_SET))
+        {
+            List<Integer> localPhaseSets = context.getAttributeAsIntList(LOCAL_PHASE_SET, 0);
+            mLocalPhaseSets = localPhaseSets.stream().mapToInt(Integer::intValue).toArray();
+        }
+        else
+        {
+            mLocalPhaseSets = null;
+        }
+
+        mTumorGenotypeAf = 0;
+
+        mGermlineStatus = null;
+        mPurityEnriched = false;
+        mAdjustedCopyNumber = context.getAttributeAsDouble(PURPLE_CN, 0);
+        mVariantCopyNumber = context.getAttributeAsDouble(PURPLE_VARIANT_CN, 0);
+        mAdjustedVaf = context.getAttributeAsDouble(PURPLE_AF, 0);
+        mMinorAlleleCopyNumber = context.getAttributeAsDouble(PURPLE_MINOR_ALLELE_CN_INFO, 0);
+        mBiallelicProbability = 0;
+        mBiallelic = context.getAttributeAsBoolean(PURPLE_BIALLELIC_FLAG, false);
+
+        mSubclonalLikelihood = Double.NaN;
+        mKataegisId = null;
+        mGenotypeEnriched = false;
+        mGermlineVafDistance = null;
+
+        mSomaticLikelihood = context.hasAttribute(PANEL_SOMATIC_LIKELIHOOD) ?
+                SomaticLikelihood.valueOf(context.getAttributeAsString(PANEL_SOMATIC_LIKELIHOOD, "")) : null;
+
+        mReported = context.hasAttribute(REPORTED_FLAG);
+        mReportableTranscripts = null;
+    }
+
+    private static VariantImpact compactImpact(final VariantImpact impact)
     {
-        mContext = context;
-        mDecorator = new VariantContextDecorator(mContext);
+        // HGVS annotations are not used by PURPLE so are not retained
+        if(impact.GeneName.isEmpty() && impact.CanonicalTranscript.isEmpty() && impact.OtherReportableEffects.isEmpty()
+        && impact.CanonicalCodingEffect == NO_IMPACT.CanonicalCodingEffect && impact.WorstCodingEffect == NO_IMPACT.WorstCodingEffect
+        && impact.CanonicalEffect.isEmpty() && !impact.CanonicalSpliceRegion && impact.GenesAffected == 0)
+        {
+            return NO_IMPACT;
+        }
+
+        return new VariantImpact(
+                STRINGS.intern(impact.GeneName), STRINGS.intern(impact.CanonicalTranscript), STRINGS.intern(impact.CanonicalEffect),
+                impact.CanonicalCodingEffect, "", "", impact.CanonicalSpliceRegion,
+                STRINGS.intern(impact.OtherReportableEffects), impact.WorstCodingEffect, impact.GenesAffected);
     }
 
     @Override
@@ -45,33 +183,123 @@ public class SomaticVariant implements GenomePosition
     @Override
     public int position() { return mPosition; }
 
-    // convenience methods
-    public VariantContextDecorator decorator() { return mDecorator; }
-    public VariantImpact variantImpact() { return mDecorator.variantImpact(); }
+    public int recordIndex() { return mRecordIndex; }
+    public void setRecordIndex(int recordIndex) { mRecordIndex = recordIndex; }
 
-    public VariantType type() { return mDecorator.type(); }
+    public String ref() { return mRef; }
+    public String alt() { return mAlt; }
+    public VariantType type() { return mType; }
+    public VariantTier tier() { return mTier; }
+    public VariantImpact variantImpact() { return mVariantImpact; }
+    public String gene() { return mVariantImpact.GeneName; }
 
-    public boolean isPass() { return mDecorator.isPass(); }
+    public boolean isPass() { return mIsPass; }
     public boolean isFiltered() { return !isPass(); }
 
-    public double copyNumber() { return mDecorator.variantCopyNumber(); }
+    public Hotspot hotspot() { return mHotspot; }
+    public boolean isHotspot() { return mHotspot == Hotspot.HOTSPOT; }
+    public void setHotspot(final Hotspot hotspot) { mHotspot = hotspot; }
+
+    public String trinucleotideContext() { return mTrinucleotideContext; }
+    public int repeatCount() { return mRepeatCount; }
+    public String repeatSequence() { return mRepeatSequence; }
+    public boolean hasMappability() { return !Double.isNaN(mMappability); }
+    public double mappability() { return hasMappability() ? mMappability : 0; }
+    public boolean hasGnomadFrequency() { return !Double.isNaN(mGnomadFrequency); }
+    public double gnomadFrequency() { return hasGnomadFrequency() ? mGnomadFrequency : 0; }
+    public int[] localPhaseSets() { return mLocalPhaseSets; }
+
+    // the somatic and normal genotype annotations used to exclude variants from fitting
+    public boolean hasFittingGenotype() { return mFittingGenotype; }
+
+    public double tumorGenotypeAf() { return mTumorGenotypeAf; }
+    public void setTumorGenotypeAf(double af) { mTumorGenotypeAf = af; }
+
+    // tumor depth
+    public boolean hasTumorAlleleDepth() { return mHasTumorDepth; }
+    public AllelicDepth tumorAlleleDepth() { return mHasTumorDepth ? this : null; }
+
+    public AllelicDepth referenceAlleleDepth()
+    {
+        if(!mHasReferenceDepth)
+            return null;
+
+        return ImmutableAllelicDepthImpl.builder()
+                .alleleReadCount(mReferenceAlleleReadCount).totalReadCount(mReferenceTotalReadCount).build();
+    }
+
+    @Override
+    public double alleleFrequency() { return mHasTumorDepth ? (double)mTumorAlleleReadCount / mTumorTotalReadCount : 0; }
+
+    @Override
+    public int totalReadCount() { return mTumorTotalReadCount; }
+
+    @Override
+    public int alleleReadCount() { return mTumorAlleleReadCount; }
+
+    public int referenceAlleleReadCount() { return mReferenceAlleleReadCount; }
+
+    // purity enrichment
+    public GermlineStatus germlineStatus() { return mGermlineStatus; }
+    public void setGermlineStatus(final GermlineStatus status) { mGermlineStatus = status; }
+
+    public boolean purityEnriched() { return mPurityEnriched; }
+
+    public void setPurityAdjustment(
+            double adjustedCopyNumber, double variantCopyNumber, double adjustedVaf, double minorAlleleCopyNumber,
+            double biallelicProbability, boolean biallelic)
+    {
+        mPurityEnriched = true;
+        mAdjustedCopyNumber = adjustedCopyNumber;
+        mVariantCopyNumber = variantCopyNumber;
+        mAdjustedVaf = adjustedVaf;
+        mMinorAlleleCopyNumber = minorAlleleCopyNumber;
+        mBiallelicProbability = biallelicProbability;
+        mBiallelic = biallelic;
+    }
+
+    public double adjustedCopyNumber() { return mAdjustedCopyNumber; }
+    public double copyNumber() { return mVariantCopyNumber; }
+    public double adjustedVaf() { return mAdjustedVaf; }
+    public double minorAlleleCopyNumber() { return mMinorAlleleCopyNumber; }
+    public double biallelicProbability() { return mBiallelicProbability; }
+    public boolean biallelic() { return mBiallelic; }
+
+    // other enrichment
+    public boolean hasSubclonalLikelihood() { return !Double.isNaN(mSubclonalLikelihood); }
+    public double subclonalLikelihood() { return mSubclonalLikelihood; }
+    public void setSubclonalLikelihood(double likelihood) { mSubclonalLikelihood = likelihood; }
+
+    public String kataegisId() { return mKataegisId; }
+    public void setKataegisId(final String kataegisId) { mKataegisId = kataegisId; }
+
+    public boolean genotypeEnriched() { return mGenotypeEnriched; }
+
+    public void markGenotypeEnriched()
+    {
+        // any reported status set by Pave is removed with the genotype update
+        mGenotypeEnriched = true;
+        mReported = false;
+    }
+
+    public double[] germlineVafDistance() { return mGermlineVafDistance; }
+    public SomaticLikelihood somaticLikelihood() { return mSomaticLikelihood; }
+
+    public void setSomaticLikelihood(final double[] germlineVafDistance, final SomaticLikelihood somaticLikelihood)
+    {
+        mGermlineVafDistance = germlineVafDistance;
+        mSomaticLikelihood = somaticLikelihood;
+    }
 
-    public boolean isHotspot() { return mContext.hasAttribute(HOTSPOT_FLAG); }
-    public boolean biallelic() { return mDecorator.biallelic(); }
-    public String gene() { return mDecorator.variantImpact().GeneName; }
+    public boolean reported() { return mReported; }
+    public void markReported() { mReported = true; }
 
-    public boolean hasTumorAlleleDepth() { return mTumorAllelicDepth != null; }
-    public AllelicDepth tumorAlleleDepth() { return mTumorAllelicDepth; }
-    public AllelicDepth referenceAlleleDepth() { return mReferenceAllelicDepth; }
-    public double alleleFrequency() { return mTumorAllelicDepth != null ? mTumorAllelicDepth.alleleFrequency() : 0; }
-    public int totalReadCount() { return mTumorAllelicDepth != null ? mTumorAllelicDepth.totalReadCount() : 0; }
-    public int alleleReadCount() { return mTumorAllelicDepth != null ? mTumorAllelicDepth.alleleReadCount() : 0; }
-    public int referenceAlleleReadCount() { return mReferenceAllelicDepth != null ? mReferenceAllelicDepth.alleleReadCount() : 0; }
+    public String reportableTranscripts() { return mReportableTranscripts; }
+    public void setReportableTranscripts(final String transcripts) { mReportableTranscripts = transcripts; }
 
     public String toString()
     {
         return String.format("%s %s:%d %s>%s filter(%s) tier(%s) codingEffect(%s)",
-                type(), chromosome(), position(), mDecorator.ref(), mDecorator.alt(), mDecorator.filter(), mDecorator.tier(),
-                mDecorator.variantImpact().CanonicalCodingEffect);
+                type(), chromosome(), position(), mRef, mAlt, mFilter, mTier, mVariantImpact.CanonicalCodingEffect);
     }
 }
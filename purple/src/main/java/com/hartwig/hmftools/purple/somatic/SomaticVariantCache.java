@@ -1,14 +1,22 @@
 package com.hartwig.hmftools.purple.somatic;
 
+import static com.hartwig.hmftools.common.variant.CommonVcfTags.getGenotypeAttributeAsDouble;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 
+import static htsjdk.variant.vcf.VCFConstants.ALLELE_FREQUENCY_KEY;
+
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.hla.HlaCommon;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.common.variant.GenotypeIds;
+import com.hartwig.hmftools.common.variant.Hotspot;
 import com.hartwig.hmftools.common.variant.VariantType;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
@@ -22,7 +30,9 @@ public class SomaticVariantCache
     private final PurpleConfig mConfig;
 
     private final List<SomaticVariant> mVariants;
+    private final Map<String,List<SomaticVariant>> mChromosomeVariants; // the same variants by chromosome in VCF order
 
+    private String mSomaticVcf;
     private VCFHeader mVcfHeader;
     private GenotypeIds mGenotypeIds;
 
@@ -35,6 +45,8 @@ public class SomaticVariantCache
         mConfig = config;
 
         mVariants = Lists.newArrayList();
+        mChromosomeVariants = Maps.newLinkedHashMap();
+        mSomaticVcf = null;
         mIndelCount = 0;
         mSnpCount = 0;
         mVcfHeader = null;
@@ -43,6 +55,8 @@ public class SomaticVariantCache
 
     public boolean hasData() { return !mVariants.isEmpty(); }
     public List<SomaticVariant> variants() { return mVariants; }
+    public Map<String,List<SomaticVariant>> chromosomeVariants() { return mChromosomeVariants; }
+    public String somaticVcf() { return mSomaticVcf; }
     public GenotypeIds genotypeIds() { return mGenotypeIds; }
 
     public int snpCount() { return mSnpCount; }
@@ -55,24 +69,28 @@ public class SomaticVariantCache
 
         final HotspotEnrichment hotspotEnrichment = new HotspotEnrichment(somaticHotspots, true);
 
+        mSomaticVcf = somaticVcf;
+
         VcfFileReader vcfReader = new VcfFileReader(somaticVcf);
         mVcfHeader = vcfReader.vcfHeader();
 
         mGenotypeIds = GenotypeIds.fromVcfHeader(mVcfHeader, mConfig.ReferenceId, mConfig.TumorId);
 
         boolean tumorOnly = mConfig.tumorOnlyMode();
+        int recordIndex = 0;
 
         for(VariantContext variantContext : vcfReader.iterator())
         {
             SomaticVariant variant = new SomaticVariant(variantContext, mConfig.TumorId, mConfig.ReferenceId);
+            variant.setRecordIndex(recordIndex++);
 
             if(tumorOnly && HlaCommon.containsPosition(variant)) // ignore these completely
                 continue;
 
             if(!mConfig.TierQualFilters.isEmpty())
             {
-                Integer qualThreshold = mConfig.TierQualFilters.get(variant.decorator().tier());
-                if(qualThreshold != null && variant.decorator().qual() < qualThreshold)
+                Integer qualThreshold = mConfig.TierQualFilters.get(variant.tier());
+                if(qualThreshold != null && variantContext.getPhredScaledQual() < qualThreshold)
                     continue;
             }
 
@@ -86,9 +104,17 @@ public class SomaticVariantCache
                 continue;
 
             mVariants.add(variant);
+            mChromosomeVariants.computeIfAbsent(variant.chromosome(), k -> Lists.newArrayList()).add(variant);
 
             // hotspot status is used in fitting as well as during and for enrichment
             hotspotEnrichment.processVariant(variantContext);
+            variant.setHotspot(Hotspot.fromVariant(variantContext));
+
+            if(tumorOnly)
+            {
+                variant.setTumorGenotypeAf(getGenotypeAttributeAsDouble(
+                        variantContext.getGenotype(mGenotypeIds.TumorOrdinal), ALLELE_FREQUENCY_KEY, 0));
+            }
 
             if(variant.isPass())
             {
@@ -99,6 +125,8 @@ public class SomaticVariantCache
             }
         }
 
+        vcfReader.close();
+
         PPL_LOGGER.info("loaded {} somatic variants from {}", mVariants.size(), somaticVcf);
     }
 
@@ -106,6 +134,14 @@ public class SomaticVariantCache
 
     public void purityEnrich(final SomaticPurityEnrichment purityEnrichment)
     {
-        mVariants.forEach(x -> purityEnrichment.processVariant(x));
+        // the copy number and region selectors keep their position per chromosome, so each chromosome is enriched by a single task
+        List<Callable> tasks = Lists.newArrayList();
+
+        for(List<SomaticVariant> variants : mChromosomeVariants.values())
+        {
+            tasks.add(() -> { variants.forEach(x -> purityEnrichment.processVariant(x)); return 0L; });
+        }
+
+        TaskExecutor.executeTasks(tasks, mConfig.Threads);
     }
 }
@@ -1,24 +1,27 @@
 package com.hartwig.hmftools.purple.somatic;
 
+import static com.hartwig.hmftools.common.variant.CommonVcfTags.REPORTED_FLAG;
+import static com.hartwig.hmftools.common.variant.Hotspot.HOTSPOT_FLAG;
+import static com.hartwig.hmftools.common.variant.Hotspot.NEAR_HOTSPOT_FLAG;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.REPORTABLE_TRANSCRIPTS;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 import static com.hartwig.hmftools.purple.config.PurpleConstants.CLONALITY_BIN_WIDTH;
 
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.variant.Hotspot;
 import com.hartwig.hmftools.common.variant.PurpleVcfTags;
 import com.hartwig.hmftools.common.variant.SageVcfTags;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
 import com.hartwig.hmftools.purple.fitting.PeakModelData;
-import com.hartwig.hmftools.purple.config.ReferenceData;
 
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
 
 public class SomaticVariantEnrichment implements Callable
 {
-    private final KataegisEnrichment mKataegisEnrichment;
     private final SubclonalLikelihoodEnrichment mSubclonalLikelihoodEnrichment;
     private final SomaticGenotypeEnrichment mGenotypeEnrichment;
 
@@ -26,19 +29,16 @@ public class SomaticVariantEnrichment implements Callable
     private final int mTaskId;
     private final List<SomaticVariant> mVariants;
 
-    public SomaticVariantEnrichment(
-            final int taskId, final PurpleConfig config, final ReferenceData refData, final List<PeakModelData> peakModel,
-            final AtomicInteger kataegisId)
+    public SomaticVariantEnrichment(final int taskId, final PurpleConfig config, final List<PeakModelData> peakModel)
     {
         mConfig = config;
         mTaskId = taskId;
         mGenotypeEnrichment = new SomaticGenotypeEnrichment(mConfig.ReferenceId, mConfig.TumorId);
         mSubclonalLikelihoodEnrichment = new SubclonalLikelihoodEnrichment(CLONALITY_BIN_WIDTH, peakModel);
-        mKataegisEnrichment = new KataegisEnrichment(kataegisId);
         mVariants = Lists.newArrayList();
     }
 
-    public void addVariant(final SomaticVariant variant) { mVariants.add(variant); }
+    public void addVariants(final List<SomaticVariant> variants) { mVariants.addAll(variants); }
 
     @Override
     public Long call()
@@ -47,11 +47,9 @@ public class SomaticVariantEnrichment implements Callable
         // int gcCount = 250000;
         int varCount = 0;
 
-        boolean tumorOnly = mConfig.tumorOnlyMode();
-
         for(SomaticVariant variant : mVariants)
         {
-            if(tumorOnly && variant.isFiltered() && !mConfig.WriteAllSomatics)
+            if(!requiresEnrichment(variant, mConfig))
                 continue;
 
             enrich(variant);
@@ -63,21 +61,47 @@ public class SomaticVariantEnrichment implements Callable
             }
         }
 
-        flush(); // finalise any enrichment routines with queued variants
-
         return (long)0;
     }
 
+    public static boolean requiresEnrichment(final SomaticVariant variant, final PurpleConfig config)
+    {
+        return !config.tumorOnlyMode() || variant.isPass() || config.WriteAllSomatics;
+    }
+
     public void enrich(final SomaticVariant variant)
     {
-        mKataegisEnrichment.processVariant(variant);
         mSubclonalLikelihoodEnrichment.processVariant(variant);
         mGenotypeEnrichment.processVariant(variant);
     }
 
-    public void flush()
+    public VariantContext enrichContext(final SomaticVariant variant, final VariantContext variantContext)
     {
-        mKataegisEnrichment.flush();
+        // apply the values from enrichment to the variant's VCF record
+        if(variant.hotspot() != Hotspot.NON_HOTSPOT
+        && !variantContext.hasAttribute(HOTSPOT_FLAG) && !variantContext.hasAttribute(NEAR_HOTSPOT_FLAG))
+        {
+            variantContext.getCommonInfo().putAttribute(variant.isHotspot() ? HOTSPOT_FLAG : NEAR_HOTSPOT_FLAG, true);
+        }
+
+        SomaticPurityEnrichment.writeAttributes(variant, variantContext);
+        KataegisEnrichment.writeAttributes(variant, variantContext);
+        SubclonalLikelihoodEnrichment.writeAttributes(variant, variantContext);
+
+        VariantContext enrichedContext = variant.genotypeEnriched() ?
+                mGenotypeEnrichment.enrichContext(variantContext, variant.biallelic()) : variantContext;
+
+        SomaticGermlineLikelihood.writeAttributes(variant, enrichedContext);
+
+        if(variant.reported())
+        {
+            enrichedContext.getCommonInfo().putAttribute(REPORTED_FLAG, true, true);
+
+            if(variant.reportableTranscripts() != null)
+                enrichedContext.getCommonInfo().putAttribute(REPORTABLE_TRANSCRIPTS, variant.reportableTranscripts());
+        }
+
+        return enrichedContext;
     }
 
     public static void populateHeader(final VCFHeader header, final String purpleVersion)
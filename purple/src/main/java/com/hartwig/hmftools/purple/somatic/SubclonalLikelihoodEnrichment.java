@@ -7,6 +7,7 @@ import java.util.List;
 
 import com.hartwig.hmftools.purple.fitting.PeakModelData;
 
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLineType;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
@@ -24,7 +25,13 @@ public class SubclonalLikelihoodEnrichment
     {
         double copyNumber = variant.copyNumber();
         double subclonalLikelihood = Math.round(mSubclonalLikelihood.subclonalLikelihood(copyNumber) * 1000d) / 1000d;
-        variant.context().getCommonInfo().putAttribute(SUBCLONAL_LIKELIHOOD_FLAG, subclonalLikelihood);
+        variant.setSubclonalLikelihood(subclonalLikelihood);
+    }
+
+    public static void writeAttributes(final SomaticVariant variant, final VariantContext variantContext)
+    {
+        if(variant.hasSubclonalLikelihood())
+            variantContext.getCommonInfo().putAttribute(SUBCLONAL_LIKELIHOOD_FLAG, variant.subclonalLikelihood());
     }
 
     public static void enrichHeader(final VCFHeader header)
@@ -7,8 +7,6 @@ import static com.hartwig.hmftools.common.variant.CodingEffect.UNDEFINED;
 import static com.hartwig.hmftools.common.variant.SomaticLikelihood.HIGH;
 import static com.hartwig.hmftools.common.variant.SomaticLikelihood.LOW;
 import static com.hartwig.hmftools.common.variant.SomaticLikelihood.MEDIUM;
-import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ;
-import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PANEL_SOMATIC_LIKELIHOOD;
 import static com.hartwig.hmftools.common.variant.VariantType.SNP;
 import static com.hartwig.hmftools.purple.config.PurpleConstants.CODING_BASES_PER_GENOME;
 import static com.hartwig.hmftools.purple.config.TargetRegionsData.TMB_GENE_EXCLUSIONS;
@@ -88,12 +86,10 @@ public class TumorMutationalLoad
         if(TMB_GENE_EXCLUSIONS.contains(variantImpact.GeneName))
             return;
 
-        double gnomadFreq = variant.context().getAttributeAsDouble(GNOMAD_FREQ, 0);
-        if(gnomadFreq > 0)
+        if(variant.gnomadFrequency() > 0)
             return;
 
-        SomaticLikelihood somaticLikelihood = variant.context().hasAttribute(PANEL_SOMATIC_LIKELIHOOD) ?
-                SomaticLikelihood.valueOf(variant.context().getAttributeAsString(PANEL_SOMATIC_LIKELIHOOD, "")) : LOW;
+        SomaticLikelihood somaticLikelihood = variant.somaticLikelihood() != null ? variant.somaticLikelihood() : LOW;
 
         if(somaticLikelihood == HIGH)
         {
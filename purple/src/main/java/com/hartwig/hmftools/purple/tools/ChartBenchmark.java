@@ -0,0 +1,197 @@
+package com.hartwig.hmftools.purple.tools;
+
+import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.PURPLE_DIR_CFG;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.PURPLE_DIR_DESC;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.SAMPLE;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.SAMPLE_DESC;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDirSeparator;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.FittedPurityRangeFile;
+import com.hartwig.hmftools.common.purple.PurityContextFile;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumberFile;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.r.RExecutor;
+import com.hartwig.hmftools.purple.config.ChartConfig;
+import com.hartwig.hmftools.purple.fitting.PeakModelData;
+import com.hartwig.hmftools.purple.fitting.PeakModelFile;
+import com.hartwig.hmftools.purple.plot.ChartCanvas;
+import com.hartwig.hmftools.purple.plot.JavaCharts;
+import com.hartwig.hmftools.purple.plot.RChartData;
+import com.hartwig.hmftools.purple.plot.RainfallData;
+import com.hartwig.hmftools.purple.plot.SomaticHistogramBucket;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+import com.hartwig.hmftools.purple.segment.SegmentFile;
+
+import org.jetbrains.annotations.NotNull;
+
+// times the per-sample chart generation from an existing PURPLE output directory, drawing the charts in PURPLE and, when
+// requested, with the R scripts - the somatic data file used for rainfall plots is only written by runs with R charts
+public class ChartBenchmark
+{
+    private final String mSampleId;
+    private final String mPurpleDir;
+    private final ChartConfig mChartConfig;
+    private final int mRuns;
+    private final int mThreads;
+
+    private static final String RUNS = "runs";
+
+    public ChartBenchmark(final ConfigBuilder configBuilder)
+    {
+        mSampleId = configBuilder.getValue(SAMPLE);
+        mPurpleDir = checkAddDirSeparator(configBuilder.getValue(PURPLE_DIR_CFG));
+        mChartConfig = new ChartConfig(configBuilder, parseOutputDir(configBuilder));
+        mRuns = configBuilder.getInteger(RUNS);
+        mThreads = parseThreads(configBuilder);
+    }
+
+    public void run() throws Exception
+    {
+        new File(mChartConfig.PlotDirectory).mkdirs();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(mThreads);
+
+        try
+        {
+            long javaTime = 0;
+
+            for(int run = 0; run < mRuns; ++run)
+            {
+                // loading is included since the R scripts also read their inputs from file
+                long startTime = System.nanoTime();
+                runJavaCharts(executorService);
+                javaTime += System.nanoTime() - startTime;
+            }
+
+            PPL_LOGGER.info(String.format("sample(%s) Java charts: %.2fs per sample", mSampleId, javaTime / 1e9 / mRuns));
+
+            if(!mChartConfig.UseRCharts)
+                return;
+
+            String somaticDataFile = RChartData.somaticDataFilename(mPurpleDir + "plot" + File.separator, mSampleId);
+
+            Files.copy(new File(somaticDataFile).toPath(), new File(RChartData.somaticDataFilename(mChartConfig.PlotDirectory, mSampleId)).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            long rTime = 0;
+
+            for(int run = 0; run < mRuns; ++run)
+            {
+                long startTime = System.nanoTime();
+                runRCharts(executorService);
+                rTime += System.nanoTime() - startTime;
+            }
+
+            PPL_LOGGER.info(String.format("sample(%s) R charts: %.2fs per sample, %.1fx Java time",
+                    mSampleId, rTime / 1e9 / mRuns, rTime / (double)javaTime));
+        }
+        finally
+        {
+            executorService.shutdown();
+        }
+    }
+
+    private void runJavaCharts(final ExecutorService executorService) throws Exception
+    {
+        List<PurpleCopyNumber> copyNumbers = PurpleCopyNumberFile.read(PurpleCopyNumberFile.generateFilenameForReading(mPurpleDir, mSampleId));
+        List<ObservedRegion> fittedRegions = SegmentFile.read(SegmentFile.generateFilename(mPurpleDir, mSampleId));
+        FittedPurity bestFit = PurityContextFile.read(mPurpleDir, mSampleId).bestFit();
+        List<FittedPurity> allFits = FittedPurityRangeFile.readAll(mPurpleDir, mSampleId);
+
+        List<SomaticHistogramBucket> somaticHistogram = SomaticHistogramBucket.read(
+                RChartData.somaticHistogramFilename(mPurpleDir, mSampleId));
+
+        List<PeakModelData> peakModel = PeakModelFile.read(PeakModelFile.generateFilename(mPurpleDir, mSampleId));
+
+        String somaticDataFile = RChartData.somaticDataFilename(mPurpleDir + "plot" + File.separator, mSampleId);
+        RainfallData rainfallData = new File(somaticDataFile).exists() ? loadRainfallData(somaticDataFile) : null;
+
+        JavaCharts javaCharts = new JavaCharts(mChartConfig, executorService, ChartCanvas.DEFAULT_DPI);
+
+        List<Future<Integer>> futures = javaCharts.chartFutures(
+                mSampleId, bestFit, allFits, copyNumbers, fittedRegions, somaticHistogram, peakModel, rainfallData);
+
+        checkResults(futures);
+    }
+
+    private static RainfallData loadRainfallData(final String filename) throws IOException
+    {
+        List<String> lines = Files.readAllLines(new File(filename).toPath());
+        lines.remove(0);
+
+        RainfallData rainfallData = new RainfallData(1);
+
+        for(String line : lines)
+        {
+            String[] values = line.split(TSV_DELIM, -1);
+            String[] bases = values[2].split(">");
+            rainfallData.addVariant(values[0], Integer.parseInt(values[1]), bases[0], bases[1], values[3]);
+        }
+
+        rainfallData.complete();
+        return rainfallData;
+    }
+
+    private void runRCharts(final ExecutorService executorService) throws Exception
+    {
+        List<Future<Integer>> futures = Lists.newArrayList();
+
+        futures.add(executorService.submit(() -> RExecutor.executeFromClasspath(
+                "r/copyNumberPlots.R", mSampleId, mPurpleDir, mChartConfig.PlotDirectory)));
+
+        futures.add(executorService.submit(() -> RExecutor.executeFromClasspath(
+                "r/somaticVariantPlots.R", mSampleId, mPurpleDir, mChartConfig.PlotDirectory)));
+
+        checkResults(futures);
+    }
+
+    private static void checkResults(final List<Future<Integer>> futures) throws Exception
+    {
+        for(Future<Integer> future : futures)
+        {
+            if(future.get() != 0)
+                throw new Exception("charting failed");
+        }
+    }
+
+    public static void main(@NotNull final String[] args) throws Exception
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+
+        configBuilder.addConfigItem(SAMPLE, true, SAMPLE_DESC);
+        configBuilder.addPath(PURPLE_DIR_CFG, true, PURPLE_DIR_DESC);
+        configBuilder.addInteger(RUNS, "Number of timed runs", 3);
+        ChartConfig.addConfig(configBuilder);
+
+        addLoggingOptions(configBuilder);
+        addOutputOptions(configBuilder);
+        addThreadOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        setLogLevel(configBuilder);
+
+        ChartBenchmark chartBenchmark = new ChartBenchmark(configBuilder);
+        chartBenchmark.run();
+    }
+}
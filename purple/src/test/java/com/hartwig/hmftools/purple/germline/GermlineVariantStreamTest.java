@@ -0,0 +1,406 @@
+package com.hartwig.hmftools.purple.germline;
+
+import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGeneGermlineReporting.ANY;
+import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGeneGermlineReporting.WILDTYPE_LOST;
+import static com.hartwig.hmftools.common.purple.PurpleTestUtils.createCopyNumber;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.peakHeap;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.resetPeakHeap;
+import static com.hartwig.hmftools.common.variant.CommonVcfTags.REPORTED_FLAG;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.common.variant.impact.VariantImpactSerialiser.VAR_IMPACT;
+import static com.hartwig.hmftools.common.variant.impact.VariantImpactSerialiser.toVcfData;
+import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
+import static com.hartwig.hmftools.purple.TestUtils.REF_SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.buildPurityAdjuster;
+import static com.hartwig.hmftools.purple.drivers.OncoDriversTest.createGeneCopyNumber;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.drivercatalog.DriverCatalog;
+import com.hartwig.hmftools.common.drivercatalog.DriverCategory;
+import com.hartwig.hmftools.common.drivercatalog.panel.DriverGene;
+import com.hartwig.hmftools.common.drivercatalog.panel.ImmutableDriverGene;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.purple.GeneCopyNumber;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.variant.CodingEffect;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+import com.hartwig.hmftools.common.variant.impact.VariantImpact;
+import com.hartwig.hmftools.purple.purity.PurityAdjuster;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+
+public class GermlineVariantStreamTest
+{
+    // run with -Dgermline_stream_records=200000 for a full-size comparison and timings
+    private static final int RECORD_COUNT = Integer.getInteger("germline_stream_records", 20_000);
+    private static final String[] CHROMOSOMES = {
+            "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20",
+            "21", "22", "X" };
+
+    private static final int CHROMOSOME_LENGTH = 50_000_000;
+    private static final int SEGMENT_LENGTH = 1_000_000;
+
+    // driver gene variants are placed in these tenths of each chromosome
+    private static final int[] DRIVER_GENE_REGIONS = { 2, 7 };
+
+    private File mTempDir;
+    private ExecutorService mExecutorService;
+
+    @Before
+    public void setup() throws IOException
+    {
+        mTempDir = createTempDir("germline_stream");
+        mExecutorService = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown()
+    {
+        mExecutorService.shutdown();
+        deleteDir(mTempDir);
+    }
+
+    @Test
+    public void testStreamMatchesTwoPassOutput() throws IOException
+    {
+        String inputVcf = new File(mTempDir, "input.vcf").getAbsolutePath();
+        writeSyntheticVcf(inputVcf, RECORD_COUNT, new Random(1));
+
+        List<DriverGene> driverGenes = Lists.newArrayList();
+        Map<String,Integer> driverGeneEnds = Maps.newHashMap();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            for(int g = 0; g <= 1; ++g)
+            {
+                String gene = driverGeneName(chromosome, g);
+                driverGenes.add(createDriverGene(gene));
+
+                // leave one gene's end unknown so its variants are held until the end of the chromosome
+                if(!(chromosome.equals("X") && g == 1))
+                    driverGeneEnds.put(gene, (DRIVER_GENE_REGIONS[g] + 1) * CHROMOSOME_LENGTH / 10);
+            }
+        }
+
+        List<PurpleCopyNumber> copyNumbers = createCopyNumbers();
+        PurityAdjuster purityAdjuster = buildPurityAdjuster(Gender.FEMALE, 0.7, 1.0);
+        ArrayListMultimap<Chromosome,VariantHotspot> hotspots = ArrayListMultimap.create();
+
+        Supplier<GermlineVariantEnrichment> enrichmentFactory = () -> new GermlineVariantEnrichment(
+                "1.0", REF_SAMPLE_ID, SAMPLE_ID, purityAdjuster, copyNumbers, hotspots);
+
+        String twoPassVcf = new File(mTempDir, "two_pass.vcf").getAbsolutePath();
+        List<GermlineVariant> twoPassReported = Lists.newArrayList();
+
+        runTimed("two-pass", () -> twoPassReported.addAll(writeTwoPass(
+                inputVcf, twoPassVcf, enrichmentFactory, new GermlineReportedEnrichment(driverGenes, Collections.emptySet()))));
+
+        assertFalse(twoPassReported.isEmpty());
+
+        String serialVcf = new File(mTempDir, "stream_serial.vcf").getAbsolutePath();
+
+        GermlineVariantStream serialStream = new GermlineVariantStream(
+                enrichmentFactory, new GermlineReportedEnrichment(driverGenes, Collections.emptySet()), driverGeneEnds,
+                null, 1, 1000);
+
+        runTimed("stream serial", () -> writeStream(inputVcf, serialVcf, enrichmentFactory, serialStream));
+
+        String threadedVcf = new File(mTempDir, "stream_threaded.vcf").getAbsolutePath();
+
+        GermlineVariantStream threadedStream = new GermlineVariantStream(
+                enrichmentFactory, new GermlineReportedEnrichment(driverGenes, Collections.emptySet()), driverGeneEnds,
+                mExecutorService, 4, 1000);
+
+        runTimed("stream threaded", () -> writeStream(inputVcf, threadedVcf, enrichmentFactory, threadedStream));
+
+        byte[] expectedOutput = Files.readAllBytes(new File(twoPassVcf).toPath());
+        assertArrayEquals(expectedOutput, Files.readAllBytes(new File(serialVcf).toPath()));
+        assertArrayEquals(expectedOutput, Files.readAllBytes(new File(threadedVcf).toPath()));
+
+        assertEquals(RECORD_COUNT, threadedStream.variantCount());
+
+        // the reported variants feed the driver catalog, which must also be unchanged
+        Map<String,List<GeneCopyNumber>> geneCopyNumberMap = Maps.newHashMap();
+        driverGenes.forEach(x -> geneCopyNumberMap.put(x.gene(), Lists.newArrayList(createGeneCopyNumber(x.gene()))));
+
+        GermlineDrivers germlineDrivers = new GermlineDrivers(driverGenes);
+        List<DriverCatalog> expectedDrivers = germlineDrivers.findDrivers(twoPassReported, geneCopyNumberMap);
+        assertFalse(expectedDrivers.isEmpty());
+
+        assertEquals(twoPassReported.size(), serialStream.reportableVariants().size());
+        assertEquals(twoPassReported.size(), threadedStream.reportableVariants().size());
+        assertEquals(expectedDrivers, germlineDrivers.findDrivers(serialStream.reportableVariants(), geneCopyNumberMap));
+        assertEquals(expectedDrivers, germlineDrivers.findDrivers(threadedStream.reportableVariants(), geneCopyNumberMap));
+    }
+
+    // the original approach of loading every variant, enriching them all and only then writing them out
+    private static List<GermlineVariant> writeTwoPass(
+            final String inputVcf, final String outputVcf, final Supplier<GermlineVariantEnrichment> enrichmentFactory,
+            final GermlineReportedEnrichment reportedEnrichment)
+    {
+        VCFFileReader vcfReader = new VCFFileReader(new File(inputVcf), false);
+
+        List<GermlineVariant> variants = Lists.newArrayList();
+        vcfReader.forEach(x -> variants.add(new GermlineVariant(x)));
+
+        VariantContextWriter writer = createWriter(outputVcf);
+
+        GermlineVariantEnrichment enrichment = enrichmentFactory.get();
+
+        VCFHeader header = vcfReader.getFileHeader();
+        enrichment.enrichHeader(header);
+        writer.writeHeader(header);
+
+        for(GermlineVariant variant : variants)
+        {
+            enrichment.enrichVariant(variant);
+            reportedEnrichment.processVariant(variant);
+        }
+
+        reportedEnrichment.flush();
+
+        List<GermlineVariant> reportedVariants = Lists.newArrayList();
+
+        for(GermlineVariant variant : variants)
+        {
+            VariantContext newContext = new VariantContextBuilder(variant.context()).filters(variant.filters()).make();
+
+            if(newContext.getAttributeAsBoolean(REPORTED_FLAG, false))
+                reportedVariants.add(variant);
+
+            writer.add(newContext);
+        }
+
+        writer.close();
+        vcfReader.close();
+
+        return reportedVariants;
+    }
+
+    private static void writeStream(
+            final String inputVcf, final String outputVcf, final Supplier<GermlineVariantEnrichment> enrichmentFactory,
+            final GermlineVariantStream variantStream)
+    {
+        VCFFileReader vcfReader = new VCFFileReader(new File(inputVcf), false);
+        VariantContextWriter writer = createWriter(outputVcf);
+
+        VCFHeader header = vcfReader.getFileHeader();
+        enrichmentFactory.get().enrichHeader(header);
+        writer.writeHeader(header);
+
+        variantStream.process(vcfReader, writer);
+
+        writer.close();
+        vcfReader.close();
+    }
+
+    private static VariantContextWriter createWriter(final String outputVcf)
+    {
+        return new VariantContextWriterBuilder().setOutputFile(outputVcf)
+                .unsetOption(Options.INDEX_ON_THE_FLY)
+                .setOption(Options.ALLOW_MISSING_FIELDS_IN_HEADER)
+                .build();
+    }
+
+    private static void runTimed(final String name, final Runnable runnable)
+    {
+        long usedBefore = resetPeakHeap();
+
+        long startTime = System.nanoTime();
+        runnable.run();
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        long peakHeap = peakHeap() - usedBefore;
+
+        PPL_LOGGER.info("germline {} write: records({}) time({}ms) peakHeap({}MB)",
+                name, RECORD_COUNT, elapsedMs, peakHeap / (1024 * 1024));
+    }
+
+    private static String driverGeneName(final String chromosome, int index)
+    {
+        return "DRIVER_" + chromosome + "_" + index;
+    }
+
+    private static List<PurpleCopyNumber> createCopyNumbers()
+    {
+        List<PurpleCopyNumber> copyNumbers = Lists.newArrayList();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            for(int start = 1; start < CHROMOSOME_LENGTH; start += SEGMENT_LENGTH)
+            {
+                // alternate segments of loss, normal and gain
+                int segment = start / SEGMENT_LENGTH;
+                double copyNumber = segment % 3 == 0 ? 1.0 : (segment % 3 == 1 ? 2.0 : 3.5);
+
+                copyNumbers.add(createCopyNumber(chromosome, start, start + SEGMENT_LENGTH - 1, copyNumber)
+                        .averageActualBAF(segment % 3 == 0 ? 1.0 : 0.6).build());
+            }
+        }
+
+        return copyNumbers;
+    }
+
+    private static void writeSyntheticVcf(final String filename, int recordCount, final Random random) throws IOException
+    {
+        BufferedWriter writer = Files.newBufferedWriter(new File(filename).toPath());
+
+        writer.write("##fileformat=VCFv4.2\n");
+        writer.write("##FILTER=<ID=PASS,Description=\"All filters passed\">\n");
+        writer.write("##FILTER=<ID=minQual,Description=\"Insufficient quality\">\n");
+        writer.write("##INFO=<ID=" + VAR_IMPACT + ",Number=.,Type=String,Description=\"Variant impact\">\n");
+        writer.write("##INFO=<ID=CLNSIG,Number=.,Type=String,Description=\"Clinical significance\">\n");
+        writer.write("##INFO=<ID=" + LOCAL_PHASE_SET + ",Number=1,Type=Integer,Description=\"Local phase set\">\n");
+        writer.write("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+        writer.write("##FORMAT=<ID=AD,Number=R,Type=Integer,Description=\"Allelic depths\">\n");
+        writer.write("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">\n");
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            writer.write("##contig=<ID=" + chromosome + ",length=" + CHROMOSOME_LENGTH + ">\n");
+        }
+
+        writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\t" + REF_SAMPLE_ID + "\t" + SAMPLE_ID + "\n");
+
+        int perChromosome = recordCount / CHROMOSOMES.length;
+        String[] bases = { "A", "C", "G", "T" };
+
+        for(int c = 0; c < CHROMOSOMES.length; ++c)
+        {
+            String chromosome = CHROMOSOMES[c];
+            int chromosomeRecords = c == CHROMOSOMES.length - 1 ? recordCount - perChromosome * c : perChromosome;
+            int spacing = CHROMOSOME_LENGTH / (chromosomeRecords + 1);
+
+            for(int i = 0; i < chromosomeRecords; ++i)
+            {
+                int position = (i + 1) * spacing;
+
+                // cluster driver gene variants into two regions on each chromosome
+                String gene;
+                int regionIndex = i * 10 / chromosomeRecords;
+
+                if((regionIndex == DRIVER_GENE_REGIONS[0] || regionIndex == DRIVER_GENE_REGIONS[1]) && random.nextInt(20) == 0)
+                    gene = driverGeneName(chromosome, regionIndex == DRIVER_GENE_REGIONS[0] ? 0 : 1);
+                else
+                    gene = "GENE_" + chromosome + "_" + (i / 50);
+
+                CodingEffect codingEffect;
+                String effect;
+                int effectType = random.nextInt(4);
+
+                if(effectType == 0)
+                {
+                    codingEffect = CodingEffect.NONSENSE_OR_FRAMESHIFT;
+                    effect = "stop_gained";
+                }
+                else if(effectType == 1)
+                {
+                    codingEffect = CodingEffect.MISSENSE;
+                    effect = "missense_variant";
+                }
+                else
+                {
+                    codingEffect = CodingEffect.SYNONYMOUS;
+                    effect = "synonymous_variant";
+                }
+
+                VariantImpact impact = new VariantImpact(
+                        gene, "ENST0000" + (i / 50), effect, codingEffect, "c.100A>G", "", false, "", codingEffect, 1);
+
+                StringJoiner impactData = new StringJoiner(",");
+                toVcfData(impact).forEach(impactData::add);
+
+                StringJoiner info = new StringJoiner(";");
+                info.add(VAR_IMPACT + "=" + impactData);
+
+                if(random.nextInt(10) == 0)
+                    info.add("CLNSIG=" + (random.nextBoolean() ? "Pathogenic" : "Benign"));
+
+                if(random.nextInt(5) == 0)
+                    info.add(LOCAL_PHASE_SET + "=" + random.nextInt(3));
+
+                String ref = bases[random.nextInt(4)];
+                String alt = bases[(random.nextInt(3) + 1 + indexOf(bases, ref)) % 4];
+
+                int refDepth = 20 + random.nextInt(30);
+                int refAltSupport = random.nextInt(5) == 0 ? refDepth : random.nextInt(refDepth + 1);
+                int tumorDepth = 30 + random.nextInt(60);
+                int tumorAltSupport = random.nextInt(tumorDepth + 1);
+
+                int qual = 50 + random.nextInt(400);
+                String filter = random.nextInt(10) == 0 ? "minQual" : "PASS";
+
+                writer.write(String.format("%s\t%d\t.\t%s\t%s\t%d\t%s\t%s\tGT:AD:DP\t0/1:%d,%d:%d\t0/1:%d,%d:%d\n",
+                        chromosome, position, ref, alt, qual, filter, info,
+                        refDepth - refAltSupport, refAltSupport, refDepth,
+                        tumorDepth - tumorAltSupport, tumorAltSupport, tumorDepth));
+            }
+        }
+
+        writer.close();
+    }
+
+    private static int indexOf(final String[] values, final String value)
+    {
+        for(int i = 0; i < values.length; ++i)
+        {
+            if(values[i].equals(value))
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static DriverGene createDriverGene(final String gene)
+    {
+        return ImmutableDriverGene.builder()
+                .gene(gene)
+                .reportDisruption(false)
+                .reportDeletion(false)
+                .reportNonsenseAndFrameshift(false)
+                .reportMissenseAndInframe(false)
+                .reportGermlineHotspot(ANY)
+                .reportGermlineVariant(WILDTYPE_LOST)
+                .likelihoodType(DriverCategory.TSG)
+                .reportAmplification(false)
+                .reportSomaticHotspot(false)
+                .reportSplice(false)
+                .reportGermlineDisruption(ANY)
+                .reportGermlineDeletion(ANY)
+                .reportPGX(false)
+                .build();
+    }
+}
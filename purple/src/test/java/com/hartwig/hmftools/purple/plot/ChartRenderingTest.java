@@ -0,0 +1,374 @@
+package com.hartwig.hmftools.purple.plot;
+
+import static com.hartwig.hmftools.common.purple.PurpleTestUtils.createCopyNumber;
+import static com.hartwig.hmftools.common.purple.PurpleTestUtils.createStructuralVariant;
+import static com.hartwig.hmftools.common.variant.PurpleVcfTags.PURPLE_AF;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.amber.AmberBAF;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.common.sv.StructuralVariant;
+import com.hartwig.hmftools.common.sv.StructuralVariantType;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.VariantContextDecorator;
+import com.hartwig.hmftools.purple.config.ChartConfig;
+import com.hartwig.hmftools.purple.fitting.PeakModelData;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+public class ChartRenderingTest
+{
+    // golden images are rendered at a low resolution to keep them small, and can be regenerated with -Dupdate_chart_goldens=true
+    private static final int TEST_DPI = 72;
+    private static final String GOLDEN_DIR = "src/test/resources/plot/";
+    private static final boolean UPDATE_GOLDENS = Boolean.getBoolean("update_chart_goldens");
+
+    // allow for differences in font rasterisation and anti-aliasing between platforms
+    private static final int CHANNEL_TOLERANCE = 48;
+    private static final double MAX_DIFF_PIXEL_PROPORTION = 0.03;
+
+    private static final String[] CHROMOSOMES = { "1", "2", "3", "4", "5" };
+    private static final int CHROMOSOME_LENGTH = 50_000_000;
+
+    private final List<PurpleCopyNumber> mCopyNumbers;
+    private final List<ObservedRegion> mFittedRegions;
+    private final List<FittedPurity> mFittedPurities;
+    private final FittedPurity mBestFit;
+    private final List<SomaticHistogramBucket> mSomaticHistogram;
+    private final List<PeakModelData> mPeakModel;
+    private final RainfallData mRainfallData;
+    private final List<VariantContextDecorator> mSomaticVariants;
+    private final List<StructuralVariant> mStructuralVariants;
+    private final List<AmberBAF> mBafs;
+
+    public ChartRenderingTest()
+    {
+        Random random = new Random(42);
+
+        mCopyNumbers = Lists.newArrayList();
+        mFittedRegions = Lists.newArrayList();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            int segmentLength = CHROMOSOME_LENGTH / 10;
+
+            for(int start = 1; start < CHROMOSOME_LENGTH; start += segmentLength)
+            {
+                double copyNumber = random.nextInt(5) + random.nextGaussian() * 0.1;
+                double baf = 0.5 + random.nextDouble() * 0.5;
+                int bafCount = 50 + random.nextInt(500);
+
+                mCopyNumbers.add(createCopyNumber(chromosome, start, start + segmentLength - 1, copyNumber)
+                        .bafCount(bafCount).averageActualBAF(baf).averageObservedBAF(baf).build());
+
+                mFittedRegions.add(new ObservedRegion(
+                        chromosome, start, start + segmentLength - 1, true, SegmentSupport.NONE, bafCount, baf, 100,
+                        1, 1, 1, GermlineStatus.DIPLOID, false, 0.4, start, start,
+                        0.1, 0.1, random.nextDouble() * 2, 1 + random.nextDouble(),
+                        copyNumber, copyNumber, baf, copyNumber, baf));
+            }
+        }
+
+        mFittedPurities = Lists.newArrayList();
+
+        for(int purityIndex = 10; purityIndex <= 100; purityIndex += 5)
+        {
+            for(int ploidyIndex = 0; ploidyIndex < 20; ++ploidyIndex)
+            {
+                double purity = purityIndex / 100.0;
+                double ploidy = 1 + ploidyIndex * 0.2 + purity * 0.1;
+                double score = 0.2 + Math.abs(purity - 0.6) + Math.abs(ploidy - 3.1) * 0.3;
+
+                mFittedPurities.add(fittedPurity(purity, ploidy, score));
+            }
+        }
+
+        mBestFit = mFittedPurities.stream().min((x, y) -> Double.compare(x.score(), y.score())).get();
+
+        mSomaticHistogram = Lists.newArrayList();
+        mPeakModel = Lists.newArrayList();
+
+        for(int bucket = 0; bucket < 80; ++bucket)
+        {
+            double variantCopyNumber = bucket * 0.05;
+            double clonal = 400 * Math.exp(-Math.pow(variantCopyNumber - 1, 2) / 0.02);
+            double subclonal = 150 * Math.exp(-Math.pow(variantCopyNumber - 0.4, 2) / 0.01);
+
+            mSomaticHistogram.add(new SomaticHistogramBucket(variantCopyNumber, 2, (int)Math.round(clonal * 0.8 + subclonal)));
+            mSomaticHistogram.add(new SomaticHistogramBucket(variantCopyNumber, 3, (int)Math.round(clonal * 0.2)));
+
+            mPeakModel.add(new PeakModelData(1, 1, variantCopyNumber, clonal, true, false));
+            mPeakModel.add(new PeakModelData(0.4, 1, variantCopyNumber, subclonal, true, true));
+            mPeakModel.add(new PeakModelData(0, 1, variantCopyNumber, random.nextDouble() * 5, true, false));
+        }
+
+        mRainfallData = new RainfallData(2);
+        String[] bases = { "A", "C", "G", "T" };
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            int position = 1;
+
+            for(int i = 0; i < 400; ++i)
+            {
+                boolean inKataegis = chromosome.equals("3") && i >= 200 && i < 220;
+                position += inKataegis ? 50 + random.nextInt(500) : 10_000 + random.nextInt(200_000);
+
+                int refIndex = random.nextInt(4);
+                int altIndex = (refIndex + 1 + random.nextInt(3)) % 4;
+
+                mRainfallData.addVariant(chromosome, position, bases[refIndex], bases[altIndex], inKataegis ? "FWD_1" : "");
+            }
+        }
+
+        mRainfallData.complete();
+
+        mSomaticVariants = Lists.newArrayList();
+        mBafs = Lists.newArrayList();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            for(int i = 0; i < 500; ++i)
+            {
+                int position = 1 + random.nextInt(CHROMOSOME_LENGTH);
+                int refIndex = random.nextInt(4);
+                int altIndex = (refIndex + 1 + random.nextInt(3)) % 4;
+                String ref = bases[refIndex];
+                String alt = i % 10 == 0 ? ref + bases[altIndex] : bases[altIndex];
+
+                mSomaticVariants.add(new VariantContextDecorator(new VariantContextBuilder()
+                        .chr(chromosome).start(position).stop(position)
+                        .alleles(List.of(Allele.create(ref, true), Allele.create(alt, false)))
+                        .attribute(PURPLE_AF, random.nextDouble())
+                        .make()));
+
+                mBafs.add(new AmberBAF(chromosome, 1 + random.nextInt(CHROMOSOME_LENGTH), 0.5 + random.nextGaussian() * 0.1, 50,
+                        0.5, 50));
+            }
+        }
+
+        mStructuralVariants = Lists.newArrayList();
+        StructuralVariantType[] svTypes = { StructuralVariantType.DEL, StructuralVariantType.DUP, StructuralVariantType.INV };
+
+        for(int i = 0; i < 60; ++i)
+        {
+            String startChromosome = CHROMOSOMES[random.nextInt(CHROMOSOMES.length)];
+            int startPosition = 1 + random.nextInt(CHROMOSOME_LENGTH / 2);
+
+            if(i % 3 == 0)
+            {
+                String endChromosome = CHROMOSOMES[random.nextInt(CHROMOSOMES.length)];
+
+                mStructuralVariants.add(createStructuralVariant(
+                        startChromosome, startPosition, endChromosome, 1 + random.nextInt(CHROMOSOME_LENGTH), StructuralVariantType.BND)
+                        .build());
+            }
+            else
+            {
+                mStructuralVariants.add(createStructuralVariant(
+                        startChromosome, startPosition, startChromosome, startPosition + (int)Math.pow(10, 2 + random.nextDouble() * 6),
+                        svTypes[random.nextInt(svTypes.length)]).build());
+            }
+        }
+    }
+
+    private static FittedPurity fittedPurity(double purity, double ploidy, double score)
+    {
+        return ImmutableFittedPurity.builder()
+                .purity(purity).normFactor(1).ploidy(ploidy).score(score).diploidProportion(0.5).somaticPenalty(0).build();
+    }
+
+    @Test
+    public void testRainfallData()
+    {
+        assertEquals(CHROMOSOMES.length * 400, mRainfallData.variantCount());
+        assertEquals(CHROMOSOMES.length * 400 / 2, mRainfallData.points().size());
+        assertEquals(1, mRainfallData.kataegisRanks().size());
+
+        int[] ranks = mRainfallData.kataegisRanks().get("FWD_1");
+        assertEquals(2 * 400 + 201, ranks[0]);
+        assertEquals(2 * 400 + 220, ranks[1]);
+
+        // a lone variant is measured from the start of its chromosome
+        RainfallData singleVariant = new RainfallData(1);
+        singleVariant.addVariant("1", 1000, "C", "T", "");
+        singleVariant.addVariant("2", 500, "G", "A", "");
+        singleVariant.addVariant("2", 600, "T", "A", "");
+        singleVariant.complete();
+
+        assertEquals(3, singleVariant.points().size());
+        assertEquals(1000, singleVariant.points().get(0).Distance);
+        assertEquals(100, singleVariant.points().get(1).Distance);
+        assertEquals(100, singleVariant.points().get(2).Distance);
+        assertEquals(2, singleVariant.points().get(1).MutationIndex);
+        assertEquals(3, singleVariant.points().get(2).MutationIndex);
+    }
+
+    @Test
+    public void testThresholdBucket()
+    {
+        List<Integer> values = Lists.newArrayList(0, 1, 1, 2, 2, 2, 3, 3, 3, 10);
+        assertEquals(3, CopyNumberCharts.thresholdBucket(values, x -> x, x -> 1, 0.8), 1e-9);
+        assertEquals(10, CopyNumberCharts.thresholdBucket(values, x -> x, x -> 1, 0.9), 1e-9);
+        assertEquals(1, CopyNumberCharts.thresholdBucket(values, x -> x, x -> 1, 0.1), 1e-9);
+    }
+
+    @Test
+    public void testCopyNumberCharts() throws IOException
+    {
+        List<PurpleCopyNumber> autosomeCopyNumbers = CopyNumberCharts.autosomesWithBafs(mCopyNumbers);
+
+        checkChart("copynumber", 4.8, 4, x -> CopyNumberCharts.copyNumberPdf(x, autosomeCopyNumbers));
+        checkChart("map", 4.8, 4, x -> CopyNumberCharts.minorAlleleCopyNumberPdf(x, autosomeCopyNumbers));
+        checkChart("purity.range", 4.8, 4, x -> CopyNumberCharts.purityRange(x, mBestFit, mFittedPurities));
+        checkChart("segment", 4.8, 4, x -> CopyNumberCharts.segmentScores(x, mFittedRegions));
+        checkChart("copynumber.chromosome", 12, 4, x -> CopyNumberCharts.chromosomeCopyNumbers(x, mCopyNumbers));
+    }
+
+    @Test
+    public void testSomaticCharts() throws IOException
+    {
+        checkChart("somatic", 4.8, 4, x -> SomaticCharts.somaticCopyNumberPdf(x, mSomaticHistogram));
+        checkChart("somatic.clonality", 8, 6, x -> SomaticCharts.clonality(x, mSomaticHistogram, mPeakModel));
+        checkChart("somatic.rainfall", 8, 4, x -> SomaticCharts.rainfall(x, mRainfallData));
+    }
+
+    @Test
+    public void testCircosCharts() throws IOException
+    {
+        checkChart("circos", 10, 10, x -> GenomeCircosCharts.circos(
+                x, RefGenomeVersion.V37, true, mCopyNumbers, mSomaticVariants, mStructuralVariants));
+
+        checkChart("input", 10, 10, x -> GenomeCircosCharts.input(x, RefGenomeVersion.V37, false, true, mFittedRegions, mBafs));
+    }
+
+    @Test
+    public void testParallelChartWriting() throws Exception
+    {
+        File outputDir = Files.createTempDirectory("purple_charts").toFile();
+
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        ChartConfig.addConfig(configBuilder);
+        configBuilder.checkAndParseCommandLine(new String[] { "-chart_format", "SVG" });
+
+        ChartConfig chartConfig = new ChartConfig(configBuilder, outputDir.getAbsolutePath() + File.separator);
+        new File(chartConfig.PlotDirectory).mkdirs();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            JavaCharts javaCharts = new JavaCharts(chartConfig, executorService, TEST_DPI);
+
+            List<Future<Integer>> futures = javaCharts.chartFutures(
+                    "SAMPLE", mBestFit, mFittedPurities, mCopyNumbers, mFittedRegions, mSomaticHistogram, mPeakModel, mRainfallData);
+
+            futures.addAll(javaCharts.circosFutures(
+                    "SAMPLE", "REF", RefGenomeVersion.V37, Gender.MALE, mCopyNumbers, mSomaticVariants, mStructuralVariants,
+                    mFittedRegions, mBafs));
+
+            assertEquals(10, futures.size());
+
+            for(Future<Integer> future : futures)
+            {
+                assertEquals(0, (int)future.get());
+            }
+
+            for(String chartName : new String[] { "copynumber", "map", "purity.range", "segment", "copynumber.chromosome",
+                    "somatic", "somatic.clonality", "somatic.rainfall", "circos", "input" })
+            {
+                File chartFile = new File(javaCharts.chartFilename("SAMPLE", chartName));
+                assertTrue(chartFile.exists());
+                assertTrue(Files.readString(chartFile.toPath()).contains("<svg"));
+                chartFile.delete();
+            }
+        }
+        finally
+        {
+            executorService.shutdown();
+            new File(chartConfig.PlotDirectory).delete();
+            outputDir.delete();
+        }
+    }
+
+    private static void checkChart(final String chartName, double width, double height, final Consumer<ChartCanvas> drawer)
+            throws IOException
+    {
+        ChartCanvas canvas = new ChartCanvas(ChartFormat.PNG, width, height, TEST_DPI);
+        drawer.accept(canvas);
+        BufferedImage actual = canvas.image();
+
+        String goldenFile = chartName + ".png";
+
+        if(UPDATE_GOLDENS)
+        {
+            ImageIO.write(actual, "png", new File(GOLDEN_DIR + goldenFile));
+            return;
+        }
+
+        BufferedImage expected;
+
+        try(InputStream inputStream = ChartRenderingTest.class.getResourceAsStream("/plot/" + goldenFile))
+        {
+            expected = ImageIO.read(inputStream);
+        }
+
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        int diffPixels = 0;
+
+        for(int x = 0; x < actual.getWidth(); ++x)
+        {
+            for(int y = 0; y < actual.getHeight(); ++y)
+            {
+                if(pixelDifference(expected.getRGB(x, y), actual.getRGB(x, y)) > CHANNEL_TOLERANCE)
+                    ++diffPixels;
+            }
+        }
+
+        double diffProportion = diffPixels / (double)(actual.getWidth() * actual.getHeight());
+
+        assertTrue(String.format("chart(%s) differs from golden image in %.1f%% of pixels", chartName, diffProportion * 100),
+                diffProportion <= MAX_DIFF_PIXEL_PROPORTION);
+    }
+
+    private static int pixelDifference(int rgb1, int rgb2)
+    {
+        int maxDiff = 0;
+
+        for(int shift = 0; shift <= 16; shift += 8)
+        {
+            maxDiff = Math.max(maxDiff, Math.abs(((rgb1 >> shift) & 0xFF) - ((rgb2 >> shift) & 0xFF)));
+        }
+
+        return maxDiff;
+    }
+}
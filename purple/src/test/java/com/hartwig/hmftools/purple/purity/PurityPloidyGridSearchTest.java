@@ -0,0 +1,174 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.cos;
+
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.FittedPurityRangeFile;
+import com.hartwig.hmftools.common.purple.FittedPurityScore;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.purple.config.FittingConfig;
+import com.hartwig.hmftools.purple.fitting.BestFitFactory;
+
+import org.junit.Test;
+
+public class PurityPloidyGridSearchTest
+{
+    private static final double EPSILON = 1e-10;
+
+    // a score with a global minimum at purity 0.6 and ploidy 3.1, a local minimum near diploid and periodic ripples across ploidy
+    private static FittedPurity score(double purity, double ploidy)
+    {
+        double score = 0.2 * abs(purity - 0.6) + 0.4 * Math.min(abs(ploidy - 3.1), abs(ploidy - 2.0) + 0.05)
+                + 0.01 * cos(ploidy * 7);
+
+        return ImmutableFittedPurity.builder()
+                .purity(purity).normFactor(1).ploidy(ploidy).score(score).diploidProportion(0).somaticPenalty(0).build();
+    }
+
+    private static List<Double> purityRange()
+    {
+        List<Double> purities = Lists.newArrayList();
+
+        for(double purity = 0.08; purity <= 1.0; purity += 0.01)
+        {
+            purities.add(purity);
+        }
+
+        return purities;
+    }
+
+    @Test
+    public void testAdaptiveMatchesExhaustiveBestFits() throws Exception
+    {
+        List<Double> purities = purityRange();
+        List<Double> ploidies = FittedPurityFactory.ploidyRange(1, 8);
+
+        PurityPloidyGridSearch exhaustiveSearch = new PurityPloidyGridSearch(purities, ploidies, true, null);
+        List<FittedPurity> exhaustiveFits = exhaustiveSearch.search(PurityPloidyGridSearchTest::score);
+
+        PurityPloidyGridSearch adaptiveSearch = new PurityPloidyGridSearch(purities, ploidies, false, null);
+        List<FittedPurity> adaptiveFits = adaptiveSearch.search(PurityPloidyGridSearchTest::score);
+
+        assertEquals(purities.size() * ploidies.size(), exhaustiveFits.size());
+        assertEquals(exhaustiveFits.size(), exhaustiveSearch.fitCount());
+        assertEquals(adaptiveFits.size(), adaptiveSearch.fitCount());
+        assertTrue(adaptiveFits.size() < exhaustiveFits.size() / 2);
+
+        FittedPurity exhaustiveBest = Collections.min(exhaustiveFits);
+        FittedPurity adaptiveBest = Collections.min(adaptiveFits);
+        assertEquals(exhaustiveBest.purity(), adaptiveBest.purity(), EPSILON);
+        assertEquals(exhaustiveBest.ploidy(), adaptiveBest.ploidy(), EPSILON);
+
+        // every purity retains its best fit and has a fit at the ploidy closest to diploid
+        for(double purity : purities)
+        {
+            FittedPurity exhaustivePurityBest = Collections.min(fitsForPurity(exhaustiveFits, purity));
+            List<FittedPurity> adaptivePurityFits = fitsForPurity(adaptiveFits, purity);
+
+            assertEquals(exhaustivePurityBest.ploidy(), Collections.min(adaptivePurityFits).ploidy(), EPSILON);
+            assertTrue(adaptivePurityFits.stream().anyMatch(x -> abs(x.ploidy() - 2) < EPSILON));
+        }
+    }
+
+    @Test
+    public void testDefaultSearchMatchesExhaustiveScoreAndRange() throws Exception
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        FittingConfig.addConfig(configBuilder);
+        FittingConfig fittingConfig = new FittingConfig(configBuilder, false);
+
+        assertFalse(fittingConfig.AdaptiveSearch);
+
+        List<Double> purities = purityRange();
+        List<Double> ploidies = FittedPurityFactory.ploidyRange(1, 8);
+
+        List<FittedPurity> defaultFits = new PurityPloidyGridSearch(purities, ploidies, !fittingConfig.AdaptiveSearch, null)
+                .search(PurityPloidyGridSearchTest::score);
+
+        List<FittedPurity> exhaustiveFits = new PurityPloidyGridSearch(purities, ploidies, true, null)
+                .search(PurityPloidyGridSearchTest::score);
+
+        Collections.sort(defaultFits);
+        Collections.sort(exhaustiveFits);
+
+        // the best-fit score spread is taken from all candidates within range of the lowest score
+        FittedPurityScore defaultScore = FittedPurityScoreFactory.score(
+                BestFitFactory.inRangeOfLowest(defaultFits.get(0).score(), defaultFits));
+
+        FittedPurityScore exhaustiveScore = FittedPurityScoreFactory.score(
+                BestFitFactory.inRangeOfLowest(exhaustiveFits.get(0).score(), exhaustiveFits));
+
+        assertEquals(exhaustiveScore, defaultScore);
+
+        File outputDir = createTempDir("purity_range");
+
+        try
+        {
+            String basePath = outputDir.getAbsolutePath();
+            FittedPurityRangeFile.write(basePath, "DEFAULT", defaultFits);
+            FittedPurityRangeFile.write(basePath, "EXHAUSTIVE", exhaustiveFits);
+
+            List<String> defaultRows = Files.readAllLines(
+                    new File(FittedPurityRangeFile.generateFilenameForReading(basePath, "DEFAULT")).toPath());
+
+            List<String> exhaustiveRows = Files.readAllLines(
+                    new File(FittedPurityRangeFile.generateFilenameForReading(basePath, "EXHAUSTIVE")).toPath());
+
+            assertEquals(purities.size() * ploidies.size() + 1, exhaustiveRows.size());
+            assertEquals(exhaustiveRows, defaultRows);
+        }
+        finally
+        {
+            deleteDir(outputDir);
+        }
+    }
+
+    @Test
+    public void testThreadedSearch() throws Exception
+    {
+        List<Double> purities = purityRange();
+        List<Double> ploidies = FittedPurityFactory.ploidyRange(1, 8);
+
+        List<FittedPurity> fits = new PurityPloidyGridSearch(purities, ploidies, false, null)
+                .search(PurityPloidyGridSearchTest::score);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        List<FittedPurity> threadedFits = new PurityPloidyGridSearch(purities, ploidies, false, executorService)
+                .search(PurityPloidyGridSearchTest::score);
+
+        executorService.shutdown();
+
+        assertEquals(fits, threadedFits);
+    }
+
+    private static List<FittedPurity> fitsForPurity(final List<FittedPurity> fits, double purity)
+    {
+        List<FittedPurity> purityFits = Lists.newArrayList();
+
+        for(FittedPurity fit : fits)
+        {
+            if(abs(fit.purity() - purity) < EPSILON)
+                purityFits.add(fit);
+        }
+
+        return purityFits;
+    }
+}
@@ -0,0 +1,192 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
+import static com.hartwig.hmftools.purple.TestUtils.SAMPLE_ID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+public class KataegisEnrichmentTest
+{
+    private static final Predicate<SomaticVariant> FORWARD_CANDIDATE = x -> x.alt().equals("T");
+    private static final Predicate<SomaticVariant> REVERSE_CANDIDATE = x -> x.alt().equals("A");
+
+    @Test
+    public void testWindows()
+    {
+        List<SomaticVariant> variants = Lists.newArrayList();
+
+        for(int i = 0; i < KataegisFinder.MIN_COUNT; i++)
+        {
+            variants.add(create("1", 100 + i, "T"));
+        }
+
+        // too few to form a window
+        variants.add(create("1", 10000, "A"));
+        variants.add(create("1", 10100, "A"));
+
+        // too far apart on average
+        variants.add(create("1", 20000, "A"));
+        variants.add(create("1", 21900, "A"));
+        variants.add(create("1", 23800, "A"));
+
+        // split by distance
+        variants.add(create("1", 30000, "T"));
+        variants.add(create("1", 30100, "T"));
+        variants.add(create("1", 32200, "T"));
+
+        variants.add(create("1", 40000, "A"));
+        variants.add(create("1", 40500, "G"));
+        variants.add(create("1", 41000, "A"));
+        variants.add(create("1", 41500, "A"));
+
+        findKataegis(Lists.<List<SomaticVariant>>newArrayList(variants), 1);
+
+        for(int i = 0; i < KataegisFinder.MIN_COUNT; i++)
+        {
+            assertEquals("FWD_3", variants.get(i).kataegisId());
+        }
+
+        for(int i = KataegisFinder.MIN_COUNT; i < 11; i++)
+        {
+            assertNull(variants.get(i).kataegisId());
+        }
+
+        assertEquals("REV_4", variants.get(11).kataegisId());
+        assertNull(variants.get(12).kataegisId());
+        assertEquals("REV_4", variants.get(13).kataegisId());
+        assertEquals("REV_4", variants.get(14).kataegisId());
+    }
+
+    @Test
+    public void testMatchesQueueOnRandomVariants()
+    {
+        for(int seed = 0; seed < 200; ++seed)
+        {
+            Random random = new Random(seed);
+            List<List<SomaticVariant>> chromosomeVariants = Lists.newArrayList();
+
+            for(int chromosome = 1; chromosome <= 3; ++chromosome)
+            {
+                List<SomaticVariant> variants = Lists.newArrayList();
+                int position = 1000;
+
+                for(int i = 0; i < 300; ++i)
+                {
+                    int gapType = random.nextInt(10);
+                    int gap = gapType == 0 ? 0 : gapType < 5 ? random.nextInt(1200) : gapType < 9 ? random.nextInt(2500) : 5000;
+                    position += gap;
+
+                    String alt = random.nextBoolean() ? "T" : random.nextBoolean() ? "A" : "G";
+                    variants.add(create(String.valueOf(chromosome), position, alt));
+                }
+
+                chromosomeVariants.add(variants);
+            }
+
+            assertMatchesQueue(chromosomeVariants);
+        }
+    }
+
+    @Test
+    public void testMatchesQueueOnDenseVariants()
+    {
+        // long chains of candidates which don't form windows from most heads, along with averages near the limit
+        int[][] gapPatterns = { { 1500 }, { 1, 2000 }, { 1000, 1001 }, { 0, 0, 2000 }, { 1999, 2, 1001, 1000 } };
+
+        for(int[] gaps : gapPatterns)
+        {
+            List<SomaticVariant> variants = Lists.newArrayList();
+            int position = 1000;
+
+            for(int i = 0; i < 3000; ++i)
+            {
+                position += gaps[i % gaps.length];
+                variants.add(create("1", position, i % 7 == 3 ? "G" : i % 5 == 2 ? "A" : "T"));
+            }
+
+            assertMatchesQueue(Lists.<List<SomaticVariant>>newArrayList(variants));
+        }
+    }
+
+    @Test
+    public void testClusterScaling()
+    {
+        // a chain of candidates which the previous queue rescanned from every head
+        for(int clusterSize = 10; clusterSize <= 100_000; clusterSize *= 10)
+        {
+            List<SomaticVariant> variants = Lists.newArrayList();
+
+            for(int i = 0; i < clusterSize; ++i)
+            {
+                variants.add(create("1", 1000 + i * 1500, "T"));
+            }
+
+            List<List<SomaticVariant>> chromosomeVariants = Lists.<List<SomaticVariant>>newArrayList(variants);
+
+            // warm up before timing
+            findKataegis(chromosomeVariants, 1);
+
+            long startTime = System.nanoTime();
+            findKataegis(chromosomeVariants, 1);
+            long elapsedNs = System.nanoTime() - startTime;
+
+            PPL_LOGGER.info("kataegis cluster({}) time({}us) perVariant({}ns)",
+                    clusterSize, elapsedNs / 1000, elapsedNs / clusterSize);
+        }
+    }
+
+    private static void assertMatchesQueue(final List<List<SomaticVariant>> chromosomeVariants)
+    {
+        // the previous implementation, with the forward detector feeding the reverse one in VCF order
+        AtomicInteger kataegisId = new AtomicInteger();
+        KataegisQueue reverseQueue = new KataegisQueue("REV", kataegisId, REVERSE_CANDIDATE, null);
+        KataegisQueue forwardQueue = new KataegisQueue("FWD", kataegisId, FORWARD_CANDIDATE, reverseQueue::processVariant);
+
+        chromosomeVariants.forEach(x -> x.forEach(forwardQueue::processVariant));
+        forwardQueue.flush();
+        reverseQueue.flush();
+
+        List<String> expectedIds = Lists.newArrayList();
+        chromosomeVariants.forEach(x -> x.forEach(y -> expectedIds.add(y.kataegisId())));
+
+        for(int threads : new int[] { 1, 4 })
+        {
+            chromosomeVariants.forEach(x -> x.forEach(y -> y.setKataegisId(null)));
+
+            findKataegis(chromosomeVariants, threads);
+
+            List<String> ids = Lists.newArrayList();
+            chromosomeVariants.forEach(x -> x.forEach(y -> ids.add(y.kataegisId())));
+
+            assertEquals(expectedIds, ids);
+        }
+    }
+
+    private static void findKataegis(final List<List<SomaticVariant>> chromosomeVariants, int threads)
+    {
+        KataegisEnrichment.findKataegis(chromosomeVariants, FORWARD_CANDIDATE, REVERSE_CANDIDATE, threads);
+    }
+
+    private static SomaticVariant create(final String contig, int start, final String alt)
+    {
+        Allele refAllele = Allele.create("C", true);
+        Allele altAllele = Allele.create(alt, false);
+
+        VariantContext context = new VariantContextBuilder("Source", contig, start, start, Lists.newArrayList(refAllele, altAllele)).make();
+        return new SomaticVariant(context, SAMPLE_ID, null);
+    }
+}
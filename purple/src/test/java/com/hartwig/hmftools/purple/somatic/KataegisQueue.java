@@ -2,14 +2,13 @@ package com.hartwig.hmftools.purple.somatic;
 
 import static java.lang.String.format;
 
-import static com.hartwig.hmftools.common.variant.PurpleVcfTags.KATAEGIS_FLAG;
-
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+// the previous queue-based kataegis detection, kept as a reference for KataegisFinder
 public class KataegisQueue
 {
     static final long MAX_ABS_DISTANCE = 2000;
@@ -92,8 +91,7 @@ public class KataegisQueue
 
                     if(isWindowViable && mCandidate.test(peek))
                     {
-                        peek.context().getCommonInfo().putAttribute(KATAEGIS_FLAG, mCurrentIdentifier, true);
-                        // PPL_LOGGER.debug("var({}) added kataegis flag: {}", peek, peek.context().getAttribute(KATAEGIS_FLAG));
+                        peek.setKataegisId(mCurrentIdentifier);
                     }
 
                     SomaticVariant var = mBuffer.pollFirst();
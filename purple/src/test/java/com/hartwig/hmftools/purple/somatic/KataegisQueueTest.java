@@ -1,10 +1,9 @@
 package com.hartwig.hmftools.purple.somatic;
 
-import static com.hartwig.hmftools.common.variant.PurpleVcfTags.KATAEGIS_FLAG;
 import static com.hartwig.hmftools.purple.TestUtils.SAMPLE_ID;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,7 +31,7 @@ public class KataegisQueueTest
 
         List<SomaticVariant> result = kataegis(input);
         assertEquals(KataegisQueue.MIN_COUNT, result.size());
-        assertEquals("TST_2", result.get(0).context().getAttribute(KATAEGIS_FLAG));
+        assertEquals("TST_2", result.get(0).kataegisId());
     }
 
     @Test
@@ -46,7 +45,7 @@ public class KataegisQueueTest
 
         List<SomaticVariant> result = kataegis(input);
         assertEquals(KataegisQueue.MIN_COUNT, result.size());
-        assertFalse(result.get(0).context().hasAttribute(KATAEGIS_FLAG));
+        assertNull(result.get(0).kataegisId());
     }
 
     @Test
@@ -61,7 +60,7 @@ public class KataegisQueueTest
 
         List<SomaticVariant> result = kataegis(Lists.newArrayList(context1, context2, context3, context4, context5, context6));
         assertEquals(6, result.size());
-        assertEquals("TST_2", result.get(0).context().getAttribute(KATAEGIS_FLAG));
+        assertEquals("TST_2", result.get(0).kataegisId());
     }
 
     @Test
@@ -76,7 +75,7 @@ public class KataegisQueueTest
 
         List<SomaticVariant> result = kataegis(Lists.newArrayList(context1, context2, context3, context4, context5, context6));
         assertEquals(6, result.size());
-        assertEquals("TST_2", result.get(0).context().getAttribute(KATAEGIS_FLAG));
+        assertEquals("TST_2", result.get(0).kataegisId());
     }
 
     @Test
@@ -95,8 +94,8 @@ public class KataegisQueueTest
 
         final List<SomaticVariant> result = kataegis(input);
         assertEquals(KataegisQueue.MIN_COUNT + 2, result.size());
-        assertEquals("TST_2", result.get(i + 1).context().getAttribute(KATAEGIS_FLAG));
-        assertFalse(result.get(i + 2).context().hasAttribute(KATAEGIS_FLAG));
+        assertEquals("TST_2", result.get(i + 1).kataegisId());
+        assertNull(result.get(i + 2).kataegisId());
     }
 
     static SomaticVariant create(final String contig, long start, boolean kataegis)
@@ -115,7 +114,7 @@ public class KataegisQueueTest
 
     private static List<SomaticVariant> kataegis(final List<SomaticVariant> variants)
     {
-        final Predicate<SomaticVariant> kataegisPredicate = variant -> variant.context().getAlternateAllele(0).getBaseString().equals("T");
+        final Predicate<SomaticVariant> kataegisPredicate = variant -> variant.alt().equals("T");
         final List<SomaticVariant> result = Lists.newArrayList();
         KataegisQueue inner = new KataegisQueue("TST", new AtomicInteger(), kataegisPredicate, result::add);
         variants.forEach(inner::processVariant);
@@ -0,0 +1,659 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import static com.hartwig.hmftools.common.drivercatalog.panel.DriverGeneGermlineReporting.NONE;
+import static com.hartwig.hmftools.common.purple.PurpleTestUtils.createCopyNumber;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.createTempDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.deleteDir;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.peakHeap;
+import static com.hartwig.hmftools.common.test.BenchmarkTestUtils.resetPeakHeap;
+import static com.hartwig.hmftools.common.variant.CommonVcfTags.REPORTED_FLAG;
+import static com.hartwig.hmftools.common.variant.Hotspot.HOTSPOT_FLAG;
+import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.REPEAT_COUNT;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.REPEAT_SEQUENCE;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.TRINUCLEOTIDE_CONTEXT;
+import static com.hartwig.hmftools.common.variant.SomaticVariantFactory.MAPPABILITY_TAG;
+import static com.hartwig.hmftools.common.variant.VariantTier.TIER;
+import static com.hartwig.hmftools.common.variant.impact.VariantEffect.PHASED_INFRAME_DELETION;
+import static com.hartwig.hmftools.common.variant.impact.VariantImpactSerialiser.VAR_IMPACT;
+import static com.hartwig.hmftools.common.variant.impact.VariantImpactSerialiser.toVcfData;
+import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
+import static com.hartwig.hmftools.purple.TestUtils.REF_SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.buildPurityAdjuster;
+import static com.hartwig.hmftools.purple.drivers.OncoDriversTest.createGeneCopyNumber;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.drivercatalog.DriverCatalog;
+import com.hartwig.hmftools.common.drivercatalog.DriverCategory;
+import com.hartwig.hmftools.common.drivercatalog.panel.DriverGene;
+import com.hartwig.hmftools.common.drivercatalog.panel.DriverGenePanelFactory;
+import com.hartwig.hmftools.common.drivercatalog.panel.ImmutableDriverGene;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.purple.GeneCopyNumber;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.PurpleCommon;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.CodingEffect;
+import com.hartwig.hmftools.common.variant.VariantContextDecorator;
+import com.hartwig.hmftools.common.variant.hotspot.ImmutableVariantHotspotImpl;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+import com.hartwig.hmftools.common.variant.impact.VariantImpact;
+import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.config.TargetRegionsData;
+import com.hartwig.hmftools.purple.fitting.PeakModelData;
+import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter;
+import com.hartwig.hmftools.purple.plot.RainfallData;
+import com.hartwig.hmftools.purple.plot.SomaticHistogramBucket;
+import com.hartwig.hmftools.purple.purity.PurityAdjuster;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SomaticStreamTest
+{
+    // expected outputs were written by the previous approach of holding every full VCF record in memory, and can be regenerated
+    // with -Dupdate_somatic_goldens=true
+    private static final int RECORD_COUNT = 1500;
+    private static final String GOLDEN_DIR = "src/test/resources/somatic/";
+    private static final boolean UPDATE_GOLDENS = Boolean.getBoolean("update_somatic_goldens");
+
+    // run with -Dsomatic_stream_records=3000000 to time the enrichment passes and measure peak heap at hypermutator scale
+    private static final int SCALE_RECORD_COUNT = Integer.getInteger("somatic_stream_records", 20_000);
+
+    private static final String[] CHROMOSOMES = {
+            "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20",
+            "21", "22", "X", "MT" };
+
+    private static final int CHROMOSOME_LENGTH = 50_000_000;
+    private static final int SEGMENT_LENGTH = 1_000_000;
+
+    private static final String[] TSG_GENES = { "TP53", "APC" };
+    private static final String[] ONCO_GENES = { "KRAS", "BRAF" };
+
+    private static final String[] BASES = { "A", "C", "G", "T" };
+
+    private File mTempDir;
+
+    @Before
+    public void setup() throws IOException
+    {
+        mTempDir = createTempDir("somatic_stream");
+    }
+
+    @After
+    public void tearDown()
+    {
+        deleteDir(mTempDir);
+    }
+
+    @Test
+    public void testTumorNormalOutput() throws IOException
+    {
+        testOutputMatchesExpected("tumor_normal", true);
+    }
+
+    @Test
+    public void testTumorOnlyOutput() throws IOException
+    {
+        testOutputMatchesExpected("tumor_only", false);
+    }
+
+    private void testOutputMatchesExpected(final String name, boolean hasReference) throws IOException
+    {
+        String inputVcf = new File(mTempDir, name + ".vcf").getAbsolutePath();
+        List<VariantHotspot> hotspots = writeSyntheticVcf(inputVcf, RECORD_COUNT, hasReference, new Random(1));
+
+        File serialDir = new File(mTempDir, "serial");
+        SomaticRun serialRun = new SomaticRun(inputVcf, serialDir, hasReference, 1, hotspots);
+
+        String outputVcf = PurpleCommon.purpleSomaticVcfFile(serialDir.getAbsolutePath() + File.separator, SAMPLE_ID);
+        byte[] output = readGzipFile(outputVcf);
+        String summary = serialRun.summary();
+
+        String goldenVcf = name + ".purple.somatic.vcf.gz";
+        String goldenSummary = name + ".summary.tsv";
+
+        if(UPDATE_GOLDENS)
+        {
+            try(OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(new File(GOLDEN_DIR + goldenVcf).toPath())))
+            {
+                outputStream.write(output);
+            }
+
+            Files.write(new File(GOLDEN_DIR + goldenSummary).toPath(), summary.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertArrayEquals(readGzipResource("/somatic/" + goldenVcf), output);
+        assertEquals(new String(readResource("/somatic/" + goldenSummary), StandardCharsets.UTF_8), summary);
+
+        // enrichment across chromosomes in parallel must not change the output
+        File threadedDir = new File(mTempDir, "threaded");
+        SomaticRun threadedRun = new SomaticRun(inputVcf, threadedDir, hasReference, 4, hotspots);
+
+        String threadedVcf = PurpleCommon.purpleSomaticVcfFile(threadedDir.getAbsolutePath() + File.separator, SAMPLE_ID);
+        assertArrayEquals(output, readGzipFile(threadedVcf));
+        assertEquals(summary, threadedRun.summary());
+    }
+
+    @Test
+    public void testScale() throws IOException
+    {
+        String inputVcf = new File(mTempDir, "scale.vcf").getAbsolutePath();
+        List<VariantHotspot> hotspots = writeSyntheticVcf(inputVcf, SCALE_RECORD_COUNT, true, new Random(2));
+
+        long usedBefore = resetPeakHeap();
+
+        long startTime = System.nanoTime();
+        SomaticRun run = new SomaticRun(inputVcf, new File(mTempDir, "scale"), true, 4, hotspots);
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        long peakHeap = peakHeap() - usedBefore;
+
+        assertEquals(SCALE_RECORD_COUNT, run.Cache.variants().size());
+
+        PPL_LOGGER.info("somatic stream: records({}) time({}ms) peakHeap({}MB)",
+                SCALE_RECORD_COUNT, elapsedMs, peakHeap / (1024 * 1024));
+    }
+
+    private static byte[] readResource(final String resource) throws IOException
+    {
+        try(InputStream inputStream = SomaticStreamTest.class.getResourceAsStream(resource))
+        {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static byte[] readGzipFile(final String filename) throws IOException
+    {
+        try(InputStream inputStream = new GZIPInputStream(Files.newInputStream(new File(filename).toPath())))
+        {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static byte[] readGzipResource(final String resource) throws IOException
+    {
+        try(InputStream inputStream = new GZIPInputStream(SomaticStreamTest.class.getResourceAsStream(resource)))
+        {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private class SomaticRun
+    {
+        public final SomaticVariantCache Cache;
+        public final SomaticStream Stream;
+        public final List<PeakModelData> PeakModel;
+        public final int FittingVariantCount;
+        public final List<DriverCatalog> Drivers;
+
+        public SomaticRun(
+                final String inputVcf, final File outputDir, boolean hasReference, int threads, final List<VariantHotspot> hotspots)
+        {
+            PurpleConfig config = createConfig(outputDir, hasReference, threads);
+
+            ArrayListMultimap<Chromosome,VariantHotspot> hotspotMap = ArrayListMultimap.create();
+            hotspots.stream()
+                    .filter(x -> HumanChromosome.contains(x.chromosome()))
+                    .forEach(x -> hotspotMap.put(HumanChromosome.fromString(x.chromosome()), x));
+
+            List<PurpleCopyNumber> copyNumbers = createCopyNumbers();
+            List<ObservedRegion> fittedRegions = createFittedRegions();
+            PurityAdjuster purityAdjuster = buildPurityAdjuster(Gender.FEMALE, 0.7, 1.0);
+
+            Cache = new SomaticVariantCache(config);
+            Cache.loadSomatics(inputVcf, hotspotMap);
+
+            FittingVariantCount = SomaticPurityFitter.findFittingVariants(Cache.variants(), fittedRegions).size();
+
+            Cache.purityEnrich(new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions));
+
+            PeakModel = new SomaticPeakStream().somaticPeakModel(Cache);
+
+            Stream = new SomaticStream(
+                    config, DriverGenePanelFactory.create(createDriverGenes()), new TargetRegionsData(null, null, null), Cache, PeakModel);
+
+            Stream.processAndWrite(purityAdjuster);
+
+            Map<String,List<GeneCopyNumber>> geneCopyNumberMap = Maps.newHashMap();
+
+            for(String gene : TSG_GENES)
+            {
+                geneCopyNumberMap.put(gene, Lists.newArrayList(createGeneCopyNumber(gene)));
+            }
+
+            for(String gene : ONCO_GENES)
+            {
+                geneCopyNumberMap.put(gene, Lists.newArrayList(createGeneCopyNumber(gene)));
+            }
+
+            Drivers = Stream.buildDrivers(geneCopyNumberMap);
+        }
+
+        public String summary()
+        {
+            StringJoiner summary = new StringJoiner("\n", "", "\n");
+
+            summary.add(String.format("tml\t%d", Stream.tumorMutationalLoad()));
+            summary.add(String.format("tmbPerMb\t%.6f", Stream.tumorMutationalBurdenPerMb()));
+            summary.add(String.format("msiIndelsPerMb\t%.6f", Stream.msiIndelsPerMb()));
+            summary.add(String.format("fittingVariants\t%d", FittingVariantCount));
+
+            for(PeakModelData peak : PeakModel)
+            {
+                if(peak.BucketWeight == 0)
+                    continue;
+
+                summary.add(String.format("peak\t%.4f\t%.4f\t%.4f\t%.4f\t%s\t%s",
+                        peak.Peak, peak.PeakAvgWeight, peak.Bucket, peak.BucketWeight, peak.IsValid, peak.IsSubclonal));
+            }
+
+            Stream.reportedGenes().stream().sorted().forEach(x -> summary.add("reportedGene\t" + x));
+
+            for(DriverCatalog driver : Drivers)
+            {
+                summary.add(String.format("driver\t%s\t%s\t%s\t%.6f\t%d\t%d\t%d\t%d\t%d\t%s",
+                        driver.gene(), driver.driver(), driver.likelihoodMethod(), driver.driverLikelihood(), driver.missense(),
+                        driver.nonsense(), driver.splice(), driver.inframe(), driver.frameshift(), driver.biallelic()));
+            }
+
+            for(VariantContextDecorator variant : Stream.downsampledVariants())
+            {
+                summary.add(String.format("chartVariant\t%s\t%d\t%s\t%.4f\t%.4f\t%.4f\t%s",
+                        variant.chromosome(), variant.position(), variant.type(), variant.adjustedVaf(),
+                        variant.adjustedCopyNumber(), variant.variantCopyNumber(), variant.reported()));
+            }
+
+            for(SomaticHistogramBucket bucket : Stream.chartData().somaticHistogram())
+            {
+                summary.add(String.format("histogram\t%.2f\t%.0f\t%d", bucket.VariantCopyNumber, bucket.CopyNumber, bucket.Count));
+            }
+
+            RainfallData rainfallData = Stream.chartData().rainfallData();
+            summary.add(String.format("rainfall\t%d\t%d", rainfallData.variantCount(), rainfallData.points().size()));
+
+            rainfallData.kataegisRanks().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(x -> summary.add(String.format("kataegis\t%s\t%d\t%d", x.getKey(), x.getValue()[0], x.getValue()[1])));
+
+            return summary.toString();
+        }
+    }
+
+    private PurpleConfig createConfig(final File outputDir, boolean hasReference, int threads)
+    {
+        outputDir.mkdirs();
+
+        ConfigBuilder configBuilder = new ConfigBuilder();
+        PurpleConfig.addOptions(configBuilder);
+
+        List<String> args = Lists.newArrayList(
+                "-tumor", SAMPLE_ID, "-output_dir", outputDir.getAbsolutePath(), "-threads", String.valueOf(threads),
+                "-ensembl_data_dir", mTempDir.getAbsolutePath());
+
+        if(hasReference)
+        {
+            args.add("-reference");
+            args.add(REF_SAMPLE_ID);
+        }
+
+        configBuilder.checkAndParseCommandLine(args.toArray(new String[0]));
+
+        return new PurpleConfig("1.0", configBuilder);
+    }
+
+    private static List<DriverGene> createDriverGenes()
+    {
+        List<DriverGene> driverGenes = Lists.newArrayList();
+
+        for(String gene : TSG_GENES)
+        {
+            driverGenes.add(createDriverGene(gene, DriverCategory.TSG));
+        }
+
+        for(String gene : ONCO_GENES)
+        {
+            driverGenes.add(createDriverGene(gene, DriverCategory.ONCO));
+        }
+
+        return driverGenes;
+    }
+
+    private static DriverGene createDriverGene(final String gene, final DriverCategory category)
+    {
+        return ImmutableDriverGene.builder()
+                .gene(gene)
+                .reportDisruption(false)
+                .reportDeletion(false)
+                .reportNonsenseAndFrameshift(true)
+                .reportMissenseAndInframe(true)
+                .reportGermlineHotspot(NONE)
+                .reportGermlineVariant(NONE)
+                .likelihoodType(category)
+                .reportAmplification(false)
+                .reportSomaticHotspot(true)
+                .reportSplice(true)
+                .reportGermlineDisruption(NONE)
+                .reportGermlineDeletion(NONE)
+                .reportPGX(false)
+                .build();
+    }
+
+    private static List<PurpleCopyNumber> createCopyNumbers()
+    {
+        List<PurpleCopyNumber> copyNumbers = Lists.newArrayList();
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            for(int start = 1; start < CHROMOSOME_LENGTH; start += SEGMENT_LENGTH)
+            {
+                // alternate segments of loss, normal and gain
+                int segment = start / SEGMENT_LENGTH;
+                double copyNumber = segment % 3 == 0 ? 1.0 : (segment % 3 == 1 ? 2.0 : 3.5);
+
+                copyNumbers.add(createCopyNumber(chromosome, start, start + SEGMENT_LENGTH - 1, copyNumber)
+                        .averageActualBAF(segment % 3 == 0 ? 1.0 : 0.6).build());
+            }
+        }
+
+        return copyNumbers;
+    }
+
+    private static List<ObservedRegion> createFittedRegions()
+    {
+        List<ObservedRegion> regions = Lists.newArrayList();
+        GermlineStatus[] statuses = { GermlineStatus.DIPLOID, GermlineStatus.HET_DELETION, GermlineStatus.DIPLOID, GermlineStatus.AMPLIFICATION };
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            for(int start = 1; start < CHROMOSOME_LENGTH; start += SEGMENT_LENGTH)
+            {
+                int segment = start / SEGMENT_LENGTH;
+
+                regions.add(new ObservedRegion(
+                        chromosome, start, start + SEGMENT_LENGTH - 1, true, SegmentSupport.NONE, 10, 0.5, 10,
+                        1, 1, 1, statuses[segment % statuses.length], false, 0.45, start, start));
+            }
+        }
+
+        return regions;
+    }
+
+    // writes a sorted somatic VCF covering the annotations used in fitting, enrichment and drivers, returning its hotspots
+    private static List<VariantHotspot> writeSyntheticVcf(
+            final String filename, int recordCount, boolean hasReference, final Random random) throws IOException
+    {
+        List<VariantHotspot> hotspots = Lists.newArrayList();
+
+        BufferedWriter writer = Files.newBufferedWriter(new File(filename).toPath());
+
+        writer.write("##fileformat=VCFv4.2\n");
+        writer.write("##FILTER=<ID=PASS,Description=\"All filters passed\">\n");
+        writer.write("##FILTER=<ID=minQual,Description=\"Insufficient quality\">\n");
+        writer.write("##INFO=<ID=" + VAR_IMPACT + ",Number=.,Type=String,Description=\"Variant impact\">\n");
+        writer.write("##INFO=<ID=" + TIER + ",Number=1,Type=String,Description=\"Tier\">\n");
+        writer.write("##INFO=<ID=" + TRINUCLEOTIDE_CONTEXT + ",Number=1,Type=String,Description=\"Trinucleotide context\">\n");
+        writer.write("##INFO=<ID=" + REPEAT_COUNT + ",Number=1,Type=Integer,Description=\"Repeat count\">\n");
+        writer.write("##INFO=<ID=" + REPEAT_SEQUENCE + ",Number=1,Type=String,Description=\"Repeat sequence\">\n");
+        writer.write("##INFO=<ID=" + LOCAL_PHASE_SET + ",Number=.,Type=Integer,Description=\"Local phase set\">\n");
+        writer.write("##INFO=<ID=" + GNOMAD_FREQ + ",Number=1,Type=Float,Description=\"Gnomad frequency\">\n");
+        writer.write("##INFO=<ID=" + MAPPABILITY_TAG + ",Number=1,Type=Float,Description=\"Mappability\">\n");
+        writer.write("##INFO=<ID=" + HOTSPOT_FLAG + ",Number=0,Type=Flag,Description=\"Hotspot\">\n");
+        writer.write("##INFO=<ID=" + REPORTED_FLAG + ",Number=0,Type=Flag,Description=\"Reported\">\n");
+        writer.write("##INFO=<ID=SGT,Number=1,Type=String,Description=\"Somatic genotype\">\n");
+        writer.write("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n");
+        writer.write("##FORMAT=<ID=AD,Number=R,Type=Integer,Description=\"Allelic depths\">\n");
+        writer.write("##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Read depth\">\n");
+        writer.write("##FORMAT=<ID=AF,Number=1,Type=Float,Description=\"Allele frequency\">\n");
+
+        for(String chromosome : CHROMOSOMES)
+        {
+            writer.write("##contig=<ID=" + chromosome + ",length=" + CHROMOSOME_LENGTH + ">\n");
+        }
+
+        writer.write("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\t" + (hasReference ? REF_SAMPLE_ID + "\t" : "") + SAMPLE_ID + "\n");
+
+        int perChromosome = recordCount / CHROMOSOMES.length;
+
+        for(int c = 0; c < CHROMOSOMES.length; ++c)
+        {
+            String chromosome = CHROMOSOMES[c];
+            int chromosomeRecords = c == CHROMOSOMES.length - 1 ? recordCount - perChromosome * c : perChromosome;
+
+            int position = 1000;
+            int kataegisRemaining = 0;
+            boolean kataegisForward = true;
+            int phasedRemaining = 0;
+
+            for(int i = 0; i < chromosomeRecords; ++i)
+            {
+                // clusters of closely spaced C>T and C>G mutations in a TCN context, on either strand, form kataegis events
+                if(kataegisRemaining == 0 && random.nextInt(100) == 0)
+                {
+                    kataegisRemaining = 3 + random.nextInt(4);
+                    kataegisForward = random.nextBoolean();
+                }
+
+                boolean isKataegis = kataegisRemaining > 0;
+                boolean isPhased = phasedRemaining > 0;
+
+                if(isKataegis)
+                {
+                    --kataegisRemaining;
+                    position += 50 + random.nextInt(400);
+                }
+                else if(isPhased)
+                {
+                    position += 3;
+                }
+                else
+                {
+                    position += 1 + random.nextInt(2 * CHROMOSOME_LENGTH / (chromosomeRecords + 1));
+                }
+
+                position = Math.min(position, CHROMOSOME_LENGTH - 10);
+
+                String ref;
+                String alt;
+                String trinucleotideContext;
+
+                if(isKataegis)
+                {
+                    ref = kataegisForward ? "C" : "G";
+                    alt = kataegisForward ? (random.nextBoolean() ? "T" : "G") : (random.nextBoolean() ? "A" : "C");
+                    trinucleotideContext = kataegisForward ? "TC" + BASES[random.nextInt(4)] : BASES[random.nextInt(4)] + "GA";
+                }
+                else
+                {
+                    int variantType = random.nextInt(20);
+                    ref = BASES[random.nextInt(4)];
+
+                    if(variantType == 0)
+                    {
+                        alt = ref + "T";
+                    }
+                    else if(variantType == 1)
+                    {
+                        alt = ref;
+                        ref = ref + "AA";
+                    }
+                    else if(variantType == 2)
+                    {
+                        ref = ref + "C";
+                        alt = "GT";
+                    }
+                    else
+                    {
+                        alt = BASES[(random.nextInt(3) + 1 + indexOf(BASES, ref)) % 4];
+
+                        if(variantType == 3)
+                        {
+                            int secondAlt = (indexOf(BASES, alt) + 1) % 4;
+
+                            if(BASES[secondAlt].equals(ref))
+                                secondAlt = (secondAlt + 1) % 4;
+
+                            alt += "," + BASES[secondAlt];
+                        }
+                    }
+
+                    trinucleotideContext = BASES[random.nextInt(4)] + ref.charAt(0) + BASES[random.nextInt(4)];
+                }
+
+                StringJoiner info = new StringJoiner(";");
+
+                String gene;
+                CodingEffect codingEffect;
+                String effect;
+
+                int geneType = random.nextInt(20);
+
+                if(isPhased)
+                {
+                    gene = "GENE_" + chromosome;
+                    codingEffect = CodingEffect.MISSENSE;
+                    effect = PHASED_INFRAME_DELETION.effect();
+                    --phasedRemaining;
+                }
+                else if(geneType == 0 && !isKataegis)
+                {
+                    gene = random.nextBoolean() ? TSG_GENES[random.nextInt(TSG_GENES.length)] : ONCO_GENES[random.nextInt(ONCO_GENES.length)];
+                    int effectType = random.nextInt(3);
+                    codingEffect = effectType == 0 ? CodingEffect.NONSENSE_OR_FRAMESHIFT : (effectType == 1 ? CodingEffect.MISSENSE : CodingEffect.SPLICE);
+                    effect = effectType == 0 ? "stop_gained" : (effectType == 1 ? "missense_variant" : "splice_acceptor_variant");
+
+                    // a reportable variant can bring its phased neighbours into the driver catalog
+                    if(random.nextInt(3) == 0)
+                    {
+                        effect = effect + "&" + PHASED_INFRAME_DELETION.effect();
+                        phasedRemaining = 2;
+                    }
+
+                    if(random.nextInt(4) == 0)
+                    {
+                        hotspots.add(ImmutableVariantHotspotImpl.builder()
+                                .chromosome(chromosome).position(position).ref(ref).alt(alt.split(",")[0]).build());
+                    }
+                }
+                else if(geneType < 10)
+                {
+                    gene = "GENE_" + chromosome + "_" + (position / 100_000);
+                    int effectType = random.nextInt(3);
+                    codingEffect = effectType == 0 ? CodingEffect.MISSENSE : (effectType == 1 ? CodingEffect.SYNONYMOUS : CodingEffect.NONE);
+                    effect = effectType == 0 ? "missense_variant" : (effectType == 1 ? "synonymous_variant" : "intron_variant");
+                }
+                else
+                {
+                    gene = "";
+                    codingEffect = CodingEffect.NONE;
+                    effect = "";
+                }
+
+                if(!gene.isEmpty())
+                {
+                    VariantImpact impact = new VariantImpact(
+                            gene, "ENST" + gene, effect, codingEffect, "c.100A>G", "p.Lys34Glu", false,
+                            random.nextInt(10) == 0 ? "ENSTALT|c.100A>G|p.Lys34Glu|" + codingEffect : "", codingEffect, 1);
+
+                    StringJoiner impactData = new StringJoiner(",");
+                    toVcfData(impact).forEach(impactData::add);
+                    info.add(VAR_IMPACT + "=" + impactData);
+                }
+
+                String[] tiers = { "HOTSPOT", "PANEL", "HIGH_CONFIDENCE", "LOW_CONFIDENCE" };
+                info.add(TIER + "=" + tiers[random.nextInt(20) == 0 ? 0 : 1 + random.nextInt(3)]);
+
+                info.add(TRINUCLEOTIDE_CONTEXT + "=" + trinucleotideContext);
+
+                if(random.nextInt(4) == 0)
+                {
+                    String repeatSequence = random.nextBoolean() ? "A" : "AC";
+                    info.add(REPEAT_COUNT + "=" + (2 + random.nextInt(8)));
+                    info.add(REPEAT_SEQUENCE + "=" + repeatSequence);
+                }
+
+                if(isPhased || random.nextInt(10) == 0)
+                    info.add(LOCAL_PHASE_SET + "=" + (isPhased ? 1 : random.nextInt(3)));
+
+                if(random.nextInt(20) == 0)
+                    info.add(GNOMAD_FREQ + "=0.01");
+
+                if(random.nextInt(5) == 0)
+                    info.add(MAPPABILITY_TAG + "=" + (random.nextBoolean() ? "1.0" : "0.5"));
+
+                if(random.nextInt(200) == 0)
+                    info.add(HOTSPOT_FLAG);
+
+                if(random.nextInt(100) == 0)
+                    info.add(REPORTED_FLAG);
+
+                if(random.nextInt(50) == 0)
+                    info.add("SGT=" + (random.nextBoolean() ? "CC->CC" : "CC->CT"));
+
+                int refDepth = 20 + random.nextInt(30);
+                int refAltSupport = random.nextInt(10) == 0 ? 1 : 0;
+                int tumorDepth = 30 + random.nextInt(60);
+                int tumorAltSupport = 2 + random.nextInt(tumorDepth - 2);
+
+                int qual = 50 + random.nextInt(400);
+                String filter = !isKataegis && !isPhased && random.nextInt(8) == 0 ? "minQual" : "PASS";
+
+                boolean multiAllelic = alt.contains(",");
+                String tumorGenotype = String.format("0/1:%d,%d%s:%d:%.3f",
+                        tumorDepth - tumorAltSupport, tumorAltSupport, multiAllelic ? ",1" : "", tumorDepth,
+                        tumorAltSupport / (double)tumorDepth);
+
+                String refGenotype = String.format("0/0:%d,%d%s:%d:%.3f",
+                        refDepth - refAltSupport, refAltSupport, multiAllelic ? ",0" : "", refDepth, refAltSupport / (double)refDepth);
+
+                writer.write(String.format("%s\t%d\t.\t%s\t%s\t%d\t%s\t%s\tGT:AD:DP:AF\t%s%s\n",
+                        chromosome, position, ref, alt, qual, filter, info,
+                        hasReference ? refGenotype + "\t" : "", tumorGenotype));
+            }
+        }
+
+        writer.close();
+
+        hotspots.sort(null);
+
+        return hotspots;
+    }
+
+    private static int indexOf(final String[] values, final String value)
+    {
+        for(int i = 0; i < values.length; ++i)
+        {
+            if(values[i].equals(value))
+                return i;
+        }
+
+        return -1;
+    }
+}
@@ -1,12 +1,14 @@
 package com.hartwig.hmftools.statcalcs.css;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.round;
 
 import static com.hartwig.hmftools.common.stats.CosineSimilarity.calcCosineSim;
 import static com.hartwig.hmftools.common.sigs.NoiseCalcs.calcPoissonRangeGivenProb;
 import static com.hartwig.hmftools.common.utils.MatrixFile.loadMatrixDataFile;
-import static com.hartwig.hmftools.common.utils.VectorUtils.copyVector;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
 import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
@@ -21,16 +23,21 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.utils.Matrix;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.statcalcs.common.StatsCommon;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class CosineSimAnalyser
 {
@@ -49,6 +56,9 @@ public class CosineSimAnalyser
     private final Matrix mReferenceSampleCounts;
     private final List<String> mRefNames;
 
+    private final int mTopMatches;
+    private final int mThreads;
+
     private BufferedWriter mWriter;
 
     private static final String CSS_THRESHOLD = "css_threshold";
@@ -56,11 +66,15 @@ public class CosineSimAnalyser
     private static final String SAMPLE_COUNTS_FILE = "sample_counts_file";
     private static final String REF_COUNTS_FILE = "ref_counts_file";
     private static final String SAMPLE_REF_FILE = "sample_ref_file";
+    private static final String TOP_MATCHES = "top_matches";
 
     private static final int MIN_ELEVATED_BUCKETS = 10;
     private static final double ELEVATED_BUCKET_PROBABILITY = 0.1;
     private static final double DEFAULT_CSS_THRESHOLD = 0.8;
 
+    private static final int SAMPLE_BLOCK_SIZE = 64;
+    private static final int BLOCKS_PER_THREAD = 4;
+
     public CosineSimAnalyser(final ConfigBuilder configBuilder)
     {
         mOutputDir = parseOutputDir(configBuilder);
@@ -70,10 +84,11 @@ public class CosineSimAnalyser
 
         mCssThreshold = configBuilder.getDecimal(CSS_THRESHOLD);
         mUseElevated = configBuilder.hasFlag(USE_ELEVATED);
+        mTopMatches = configBuilder.getInteger(TOP_MATCHES);
+        mThreads = parseThreads(configBuilder);
         mRangeMap = Maps.newHashMap();
 
         mSampleCounts = loadMatrixDataFile(configBuilder.getValue(SAMPLE_COUNTS_FILE), mSampleCountsIndex, null, false);
-        mSampleCounts.cacheTranspose();
 
         mSampleCancerTypes = Maps.newHashMap();
         mSampleIds = Lists.newArrayList();
@@ -93,7 +108,6 @@ public class CosineSimAnalyser
             STAT_LOGGER.info("loading reference data from file({})", configBuilder.getValue(REF_COUNTS_FILE));
 
             mReferenceSampleCounts = loadMatrixDataFile(configBuilder.getValue(REF_COUNTS_FILE), mRefNames, false);
-            mReferenceSampleCounts.cacheTranspose();
         }
         else
         {
@@ -139,73 +153,79 @@ public class CosineSimAnalyser
             return;
         }
 
-        STAT_LOGGER.info("running CSS comparison for {} samples", mSampleIds.size());
+        List<String> sampleIds = Lists.newArrayList();
+        List<Integer> sampleColumns = Lists.newArrayList();
 
-        for(int i = 0; i < mSampleIds.size(); ++i)
+        for(String sampleId : mSampleIds)
         {
-            final String sampleId = mSampleIds.get(i);
+            Integer column = mSampleCountsIndex.get(sampleId);
 
-            if(mSampleCountsIndex.get(sampleId) == null)
+            if(column == null)
                 continue;
 
-            final double[] sampleCounts = mSampleCounts.getCol(mSampleCountsIndex.get(sampleId));
+            sampleIds.add(sampleId);
+            sampleColumns.add(column);
+        }
 
-            if(mReferenceSampleCounts == null)
-            {
-                for(int j = i + 1; j < mSampleIds.size(); ++j)
-                {
-                    final String sampleId2 = mSampleIds.get(j);
-                    final double[] sampleCounts2 = mSampleCounts.getCol(mSampleCountsIndex.get(sampleId2));
+        STAT_LOGGER.info("running CSS comparison for {} samples", sampleIds.size());
 
-                    double css = mUseElevated ?
-                            calcElevatedCountsCss(sampleCounts, sampleCounts2) : calcCosineSim(sampleCounts, sampleCounts2);
+        CosineSimMatrix sampleMatrix = new CosineSimMatrix(mSampleCounts, sampleColumns);
 
-                    if(css >= mCssThreshold)
-                    {
-                        writeCssResults(sampleId, sampleId2, css);
-                    }
-                }
-            }
-            else
+        if(mUseElevated && mReferenceSampleCounts == null)
+        {
+            for(int i = 0; i < sampleMatrix.Count; ++i)
             {
-                double sampleTotal = sumVector(sampleCounts);
-                final String sampleCancerType = mSampleCancerTypes.get(sampleId);
+                sampleMatrix.setElevatedBuckets(i, findElevatedBuckets(sampleMatrix.counts(i)));
+            }
+        }
 
-                for(int j = 0; j < mRefNames.size(); ++j)
-                {
-                    final String refName = mRefNames.get(j);
-                    final double[] refCounts = mReferenceSampleCounts.getCol(j);
+        CosineSimMatrix refMatrix = null;
+        List<String> refCancerTypes = null;
 
-                    double css;
+        if(mReferenceSampleCounts != null)
+        {
+            List<Integer> refColumns = Lists.newArrayList();
 
-                    if(sampleCancerType != null && refName.equals(sampleCancerType))
-                    {
-                        double[] adjustedRefCounts = new double[refCounts.length];
-                        copyVector(refCounts, adjustedRefCounts);
+            for(int j = 0; j < mRefNames.size(); ++j)
+            {
+                refColumns.add(j);
+            }
 
-                        for(int b = 0; b < refCounts.length; ++b)
-                        {
-                            adjustedRefCounts[b] = max(adjustedRefCounts[b] - (sampleCounts[b]), 0);
-                        }
+            refMatrix = new CosineSimMatrix(mReferenceSampleCounts, refColumns);
+            refCancerTypes = sampleIds.stream().map(x -> mSampleCancerTypes.get(x)).collect(Collectors.toList());
+        }
 
-                        css = calcCosineSim(sampleCounts, adjustedRefCounts);
-                    }
-                    else
-                    {
-                        css = calcCosineSim(sampleCounts, refCounts);
-                    }
+        // process blocks of samples in batches across the threads, writing each batch's results in sample order before the next
+        int blockCount = (sampleMatrix.Count + SAMPLE_BLOCK_SIZE - 1) / SAMPLE_BLOCK_SIZE;
+        int batchSize = max(mThreads, 1) * BLOCKS_PER_THREAD;
+        int processed = 0;
 
-                    if(css >= mCssThreshold)
-                    {
-                        writeCssResults(sampleId, refName, css);
-                    }
-                }
+        for(int batchStart = 0; batchStart < blockCount; batchStart += batchSize)
+        {
+            List<CssBlockTask> blockTasks = Lists.newArrayList();
+
+            for(int block = batchStart; block < min(batchStart + batchSize, blockCount); ++block)
+            {
+                int startIndex = block * SAMPLE_BLOCK_SIZE;
+                int endIndex = min(startIndex + SAMPLE_BLOCK_SIZE, sampleMatrix.Count);
+                blockTasks.add(new CssBlockTask(sampleMatrix, refMatrix, refCancerTypes, startIndex, endIndex));
             }
 
-            if(i > 0 && (i % 100) == 0)
+            final List<Callable> callableList = blockTasks.stream().collect(Collectors.toList());
+            TaskExecutor.executeTasks(callableList, mThreads);
+
+            for(CssBlockTask blockTask : blockTasks)
             {
-                STAT_LOGGER.info("processed {} samples", i);
+                for(CssResult result : blockTask.results())
+                {
+                    String otherName = refMatrix != null ? mRefNames.get(result.OtherIndex) : sampleIds.get(result.OtherIndex);
+                    writeCssResults(sampleIds.get(result.Index), otherName, result.Css);
+                }
+
+                processed += blockTask.sampleCount();
             }
+
+            STAT_LOGGER.info("processed {} samples", processed);
         }
 
         STAT_LOGGER.info("CSS comparison complete");
@@ -213,29 +233,130 @@ public class CosineSimAnalyser
         closeBufferedWriter(mWriter);
     }
 
-    private double calcElevatedCountsCss(final double[] sampleCounts1, final double[] sampleCounts2)
+    private class CssResult
     {
-        double[] elevCounts1 = extractElevatedCounts(sampleCounts1);
-        double[] elevCounts2 = extractElevatedCounts(sampleCounts2);
-        int elevatedBuckets = 0;
+        public final int Index;
+        public final int OtherIndex;
+        public final double Css;
+
+        public CssResult(final int index, final int otherIndex, final double css)
+        {
+            Index = index;
+            OtherIndex = otherIndex;
+            Css = css;
+        }
+    }
+
+    private class CssBlockTask implements Callable
+    {
+        private final CosineSimMatrix mSamples;
+        private final CosineSimMatrix mRefs;
+        private final List<String> mRefCancerTypes;
+        private final int mStartIndex;
+        private final int mEndIndex;
+
+        private final List<List<CssResult>> mSampleResults;
 
-        for(int b = 0; b < sampleCounts1.length; ++b)
+        public CssBlockTask(
+                final CosineSimMatrix samples, @Nullable final CosineSimMatrix refs, @Nullable final List<String> refCancerTypes,
+                int startIndex, int endIndex)
         {
-            if(elevCounts1[b] > 0 || elevCounts2[b] > 0)
+            mSamples = samples;
+            mRefs = refs;
+            mRefCancerTypes = refCancerTypes;
+            mStartIndex = startIndex;
+            mEndIndex = endIndex;
+            mSampleResults = Lists.newArrayListWithCapacity(endIndex - startIndex);
+        }
+
+        public int sampleCount() { return mEndIndex - mStartIndex; }
+
+        public List<CssResult> results()
+        {
+            List<CssResult> results = Lists.newArrayList();
+            mSampleResults.forEach(results::addAll);
+            return results;
+        }
+
+        @Override
+        public Long call()
+        {
+            for(int i = mStartIndex; i < mEndIndex; ++i)
+            {
+                mSampleResults.add(Lists.newArrayList());
+            }
+
+            CosineSimMatrix others = mRefs != null ? mRefs : mSamples;
+
+            // without a top-N limit each pair of samples is compared once, otherwise every sample needs all of its matches
+            boolean allPairs = mRefs == null && mTopMatches == 0;
+
+            // compare this block's samples against a block of the others at a time so the others' vectors stay in cache
+            int otherStart = allPairs ? mStartIndex : 0;
+
+            for(int otherBlockStart = otherStart; otherBlockStart < others.Count; otherBlockStart += SAMPLE_BLOCK_SIZE)
+            {
+                int otherBlockEnd = min(otherBlockStart + SAMPLE_BLOCK_SIZE, others.Count);
+
+                for(int i = mStartIndex; i < mEndIndex; ++i)
+                {
+                    List<CssResult> sampleResults = mSampleResults.get(i - mStartIndex);
+
+                    for(int j = allPairs ? max(otherBlockStart, i + 1) : otherBlockStart; j < otherBlockEnd; ++j)
+                    {
+                        if(mRefs == null && i == j)
+                            continue;
+
+                        double css = calcCss(i, j);
+
+                        if(css >= mCssThreshold)
+                            sampleResults.add(new CssResult(i, j, css));
+                    }
+                }
+            }
+
+            if(mTopMatches > 0)
             {
-                elevCounts1[b] = sampleCounts1[b];
-                elevCounts2[b] = sampleCounts2[b];
-                ++elevatedBuckets;
+                for(List<CssResult> sampleResults : mSampleResults)
+                {
+                    // a stable sort so equal scores remain in comparison order
+                    sampleResults.sort(Comparator.comparingDouble((CssResult x) -> x.Css).reversed());
+
+                    if(sampleResults.size() > mTopMatches)
+                        sampleResults.subList(mTopMatches, sampleResults.size()).clear();
+                }
             }
+
+            return (long)0;
         }
 
-        if(elevatedBuckets < MIN_ELEVATED_BUCKETS)
-            return 0;
+        private double calcCss(int index, int otherIndex)
+        {
+            if(mRefs == null)
+            {
+                return mUseElevated ?
+                        mSamples.elevatedCosineSim(index, otherIndex, MIN_ELEVATED_BUCKETS) : mSamples.cosineSim(index, mSamples, otherIndex);
+            }
+
+            final String sampleCancerType = mRefCancerTypes.get(index);
+
+            if(sampleCancerType == null || !mRefNames.get(otherIndex).equals(sampleCancerType))
+                return mSamples.cosineSim(index, mRefs, otherIndex);
+
+            // remove the sample's own contribution from its cancer type's reference counts
+            final double[] sampleCounts = mSamples.counts(index);
+            final double[] adjustedRefCounts = mRefs.counts(otherIndex);
 
-        return calcCosineSim(elevCounts1, elevCounts2);
+            for(int b = 0; b < adjustedRefCounts.length; ++b)
+            {
+                adjustedRefCounts[b] = max(adjustedRefCounts[b] - sampleCounts[b], 0);
+            }
+
+            return calcCosineSim(sampleCounts, adjustedRefCounts);
+        }
     }
 
-    private double[] extractElevatedCounts(final double[] counts)
+    private boolean[] findElevatedBuckets(final double[] counts)
     {
         double total = sumVector(counts);
         int bucketCount = counts.length;
@@ -250,15 +371,14 @@ public class CosineSimAnalyser
             mRangeMap.put(expectedValue, maxPermittedValue);
         }
 
-        double[] elevatedCounts = new double[bucketCount];
+        boolean[] elevated = new boolean[bucketCount];
 
         for(int b = 0; b < bucketCount; ++b)
         {
-            if(counts[b] > maxPermittedValue)
-                elevatedCounts[b] = counts[b];
+            elevated[b] = counts[b] > maxPermittedValue && counts[b] > 0;
         }
 
-        return elevatedCounts;
+        return elevated;
     }
 
     private void writeCssResults(
@@ -294,8 +414,11 @@ public class CosineSimAnalyser
         StatsCommon.registerConfig(configBuilder);
         configBuilder.addDecimal(CSS_THRESHOLD, "Min CSS to log", DEFAULT_CSS_THRESHOLD);
         configBuilder.addFlag(USE_ELEVATED, "Only include elevated counts in comparison");
+        configBuilder.addInteger(TOP_MATCHES, "Only log each sample's top N matches above the CSS threshold, 0 = all", 0);
+        configBuilder.addPath(SAMPLE_COUNTS_FILE, true, "Sample counts");
         configBuilder.addPath(REF_COUNTS_FILE, false, "Reference counts");
         configBuilder.addPath(SAMPLE_REF_FILE, false, "Sample to ref-type mapping file");
+        addThreadOptions(configBuilder);
 
         configBuilder.checkAndParseCommandLine(args);
 
@@ -0,0 +1,146 @@
+package com.hartwig.hmftools.statcalcs.css;
+
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.utils.Matrix;
+
+// a set of count vectors held contiguously by sample, with each also scaled to unit length so the cosine similarity of any two
+// is their dot product, along with an optional mask of elevated buckets per sample
+public class CosineSimMatrix
+{
+    public final int Count;
+    public final int Buckets;
+
+    private final double[] mCounts;
+    private final double[] mUnitCounts;
+    private final boolean[] mValid;
+
+    private long[] mElevatedMasks;
+    private final int mMaskWords;
+
+    public CosineSimMatrix(final Matrix matrix, final List<Integer> columns)
+    {
+        Count = columns.size();
+        Buckets = matrix.Rows;
+
+        mCounts = new double[Count * Buckets];
+        mUnitCounts = new double[Count * Buckets];
+        mValid = new boolean[Count];
+        mElevatedMasks = null;
+        mMaskWords = (Buckets + 63) / 64;
+
+        final double[][] data = matrix.getData();
+
+        for(int i = 0; i < Count; ++i)
+        {
+            int col = columns.get(i);
+            int offset = i * Buckets;
+            double total = 0;
+
+            for(int b = 0; b < Buckets; ++b)
+            {
+                double value = data[b][col];
+                mCounts[offset + b] = value;
+                total += value * value;
+            }
+
+            // matches the conditions under which the cosine similarity of two vectors is taken as zero
+            mValid[i] = total > 0 && Buckets >= 2;
+
+            if(!mValid[i])
+                continue;
+
+            double length = sqrt(total);
+
+            for(int b = 0; b < Buckets; ++b)
+            {
+                mUnitCounts[offset + b] = mCounts[offset + b] / length;
+            }
+        }
+    }
+
+    public double[] counts(int index)
+    {
+        double[] counts = new double[Buckets];
+        System.arraycopy(mCounts, index * Buckets, counts, 0, Buckets);
+        return counts;
+    }
+
+    public void setElevatedBuckets(int index, final boolean[] elevated)
+    {
+        if(mElevatedMasks == null)
+            mElevatedMasks = new long[Count * mMaskWords];
+
+        for(int b = 0; b < Buckets; ++b)
+        {
+            if(elevated[b])
+                mElevatedMasks[index * mMaskWords + b / 64] |= 1L << (b % 64);
+        }
+    }
+
+    public double cosineSim(int index, final CosineSimMatrix other, int otherIndex)
+    {
+        if(!mValid[index] || !other.mValid[otherIndex])
+            return 0;
+
+        int offset = index * Buckets;
+        int otherOffset = otherIndex * Buckets;
+        double total = 0;
+
+        for(int b = 0; b < Buckets; ++b)
+        {
+            total += mUnitCounts[offset + b] * other.mUnitCounts[otherOffset + b];
+        }
+
+        return min(total, 1.0);
+    }
+
+    public double elevatedCosineSim(int index, int otherIndex, int minElevatedBuckets)
+    {
+        // compare only the buckets which are elevated in either sample
+        int maskOffset = index * mMaskWords;
+        int otherMaskOffset = otherIndex * mMaskWords;
+
+        int elevatedBuckets = 0;
+
+        for(int w = 0; w < mMaskWords; ++w)
+        {
+            elevatedBuckets += Long.bitCount(mElevatedMasks[maskOffset + w] | mElevatedMasks[otherMaskOffset + w]);
+        }
+
+        if(elevatedBuckets < minElevatedBuckets)
+            return 0;
+
+        int offset = index * Buckets;
+        int otherOffset = otherIndex * Buckets;
+
+        double aaTotal = 0;
+        double bbTotal = 0;
+        double abTotal = 0;
+
+        for(int w = 0; w < mMaskWords; ++w)
+        {
+            long mask = mElevatedMasks[maskOffset + w] | mElevatedMasks[otherMaskOffset + w];
+
+            while(mask != 0)
+            {
+                int b = w * 64 + Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+
+                double value1 = mCounts[offset + b];
+                double value2 = mCounts[otherOffset + b];
+                aaTotal += value1 * value1;
+                bbTotal += value2 * value2;
+                abTotal += value1 * value2;
+            }
+        }
+
+        if(aaTotal <= 0 || bbTotal <= 0 || elevatedBuckets < 2)
+            return 0;
+
+        return min(abTotal / (sqrt(aaTotal) * sqrt(bbTotal)), 1.0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.hartwig.hmftools.statcalcs.css;
+
+import static com.hartwig.hmftools.common.stats.CosineSimilarity.calcCosineSim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.Matrix;
+
+import org.junit.Test;
+
+public class CosineSimMatrixTest
+{
+    private static final double EPSILON = 1e-10;
+
+    @Test
+    public void testMatchesPairwiseCss()
+    {
+        int buckets = 96;
+        int samples = 10;
+
+        Random random = new Random(1);
+        Matrix counts = new Matrix(buckets, samples);
+
+        for(int s = 0; s < samples; ++s)
+        {
+            // leave one sample empty
+            if(s == 3)
+                continue;
+
+            for(int b = 0; b < buckets; ++b)
+            {
+                counts.set(b, s, random.nextInt(20) * (b % 7 == s % 7 ? 10 : 1));
+            }
+        }
+
+        List<Integer> columns = Lists.newArrayList();
+
+        for(int s = samples - 1; s >= 0; --s)
+        {
+            columns.add(s);
+        }
+
+        CosineSimMatrix matrix = new CosineSimMatrix(counts, columns);
+
+        for(int i = 0; i < matrix.Count; ++i)
+        {
+            boolean[] elevated = new boolean[buckets];
+
+            for(int b = 0; b < buckets; ++b)
+            {
+                elevated[b] = b % 7 == columns.get(i) % 7;
+            }
+
+            matrix.setElevatedBuckets(i, elevated);
+        }
+
+        for(int i = 0; i < matrix.Count; ++i)
+        {
+            double[] counts1 = counts.getCol(columns.get(i));
+
+            for(int j = 0; j < matrix.Count; ++j)
+            {
+                double[] counts2 = counts.getCol(columns.get(j));
+
+                assertEquals(calcCosineSim(counts1, counts2), matrix.cosineSim(i, matrix, j), EPSILON);
+
+                double[] elevated1 = new double[buckets];
+                double[] elevated2 = new double[buckets];
+                int elevatedBuckets = 0;
+
+                for(int b = 0; b < buckets; ++b)
+                {
+                    if(b % 7 == columns.get(i) % 7 || b % 7 == columns.get(j) % 7)
+                    {
+                        elevated1[b] = counts1[b];
+                        elevated2[b] = counts2[b];
+                        ++elevatedBuckets;
+                    }
+                }
+
+                double expectedCss = elevatedBuckets >= 10 ? calcCosineSim(elevated1, elevated2) : 0;
+                assertEquals(expectedCss, matrix.elevatedCosineSim(i, j, 10), EPSILON);
+            }
+        }
+    }
+}